@@ -0,0 +1,69 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * A/B测试自动评估配置
+ * 后台定时对运行中的提示词模板/工作流A/B测试做混合序贯概率比检验（mSPRT），达到显著性后自动推广胜出版本；
+ * 分流模式为bandit的测试按各版本胜出概率自动调整流量。
+ *
+ * @author sinosoft
+ * @date 2026-02-06
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.ab-test-evaluation")
+public class AbTestEvaluationConfig {
+
+    /**
+     * 是否启用后台自动评估
+     * 默认：true
+     */
+    private boolean enabled = true;
+
+    /**
+     * 序贯检验的显著性水平α（Λ ≥ 1/α时判定胜出）。
+     * mSPRT在任意查看次数下都保证假阳性率不超过α，无需因定时重复评估而另行收紧
+     * 默认：0.05
+     */
+    private double significanceLevel = 0.05;
+
+    /**
+     * mSPRT混合先验的标准化效应量δ（以标准差为单位），应接近预期的版本差异：
+     * 取值越小对小差异越敏感，但对大差异需要更多样本才能判定
+     * 默认：0.2
+     */
+    private double mixtureEffectSize = 0.2;
+
+    /**
+     * 判定胜出时每个版本至少需要的样本数（低于该值时不做判定，保证正态近似可用）
+     * 默认：30
+     */
+    private int minSamplesPerVariant = 30;
+
+    /**
+     * bandit模式下每个版本保留的最小流量百分比（持续探索）
+     * 默认：10
+     */
+    private int minTrafficPercent = 10;
+
+    /**
+     * bandit模式下开始调整流量前两个版本合计需要的样本数
+     * 默认：20
+     */
+    private int banditWarmupSamples = 20;
+
+    /**
+     * 是否使用Redis锁保证同一周期只有一个节点执行评估（Redis不可用时各节点照常评估，推广由状态条件更新保证只执行一次）
+     * 默认：true
+     */
+    private boolean clusterLockEnabled = true;
+
+    /**
+     * 评估锁的过期时间（秒），应略小于评估间隔，持有锁的节点不主动释放，本周期内其他节点跳过评估
+     * 默认：50
+     */
+    private long lockTtlSeconds = 50;
+}
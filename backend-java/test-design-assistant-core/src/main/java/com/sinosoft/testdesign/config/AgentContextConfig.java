@@ -0,0 +1,54 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Agent会话上下文配置
+ * 每个会话只保留Token预算内的最近消息和有上限的历史摘要，会话再长，每轮对话的上下文大小和内存占用都不变
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.agent-context")
+public class AgentContextConfig {
+
+    /**
+     * 最近消息窗口的Token预算，超出后最早的消息移入摘要
+     * 默认：6000
+     */
+    private int windowTokenBudget = 6000;
+
+    /**
+     * 历史摘要的Token预算，超出后丢弃最早的摘要行
+     * 默认：1000
+     */
+    private int summaryTokenBudget = 1000;
+
+    /**
+     * 每条移入摘要的消息保留的字符数
+     * 默认：120
+     */
+    private int digestChars = 120;
+
+    /**
+     * 本地缓存的活跃会话窗口数上限
+     * 默认：1000
+     */
+    private int maxCachedSessions = 1000;
+
+    /**
+     * 追加新消息到窗口时每批读取的消息数
+     * 默认：200
+     */
+    private int catchUpBatchSize = 200;
+
+    /**
+     * 消息分页每页上限
+     * 默认：100
+     */
+    private int maxPageSize = 100;
+}
@@ -0,0 +1,55 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Agent工具执行配置
+ * 同一轮对话的多个工具调用在独立的有界线程池中并发执行；
+ * 单个工具的超时、并发上限和是否幂等优先取工具配置（tool_config中的timeout_ms、max_concurrency、idempotent），未配置时使用这里的默认值
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.agent-tool-execution")
+public class AgentToolExecutionConfig {
+
+    /**
+     * 工具执行线程数
+     * 默认：16
+     */
+    private int poolSize = 16;
+
+    /**
+     * 等待执行的工具调用队列容量，队列满时新调用直接失败
+     * 默认：200
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 工具默认超时时间（毫秒），包含等待并发名额的时间
+     * 默认：30000
+     */
+    private long defaultTimeoutMs = 30000;
+
+    /**
+     * 单个工具默认的并发调用上限
+     * 默认：4
+     */
+    private int defaultMaxConcurrency = 4;
+
+    /**
+     * 幂等工具结果缓存时间（秒）
+     * 默认：300
+     */
+    private long resultCacheTtlSeconds = 300;
+
+    /**
+     * 幂等工具结果缓存条数上限
+     * 默认：1000
+     */
+    private int maxCachedResults = 1000;
+}
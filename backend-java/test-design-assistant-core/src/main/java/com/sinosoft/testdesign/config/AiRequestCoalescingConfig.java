@@ -0,0 +1,48 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI请求合并配置
+ * 相同请求并发到达时只发起一次AI调用，其余请求等待并复用其结果
+ *
+ * @author sinosoft
+ * @date 2026-02-03
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.ai-request-coalescing")
+public class AiRequestCoalescingConfig {
+
+    /**
+     * 是否启用请求合并
+     * 默认：true
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否启用跨节点合并（基于Redis锁，等待方从响应缓存读取结果）
+     * 默认：true
+     */
+    private boolean clusterEnabled = true;
+
+    /**
+     * Redis锁过期时间（秒），需大于AI服务调用超时时间
+     * 默认：240
+     */
+    private long lockTtlSeconds = 240;
+
+    /**
+     * 等待其他请求结果的最长时间（秒），超时后自行调用AI服务
+     * 默认：200
+     */
+    private long waitTimeoutSeconds = 200;
+
+    /**
+     * 跨节点等待时轮询响应缓存的间隔（毫秒）
+     * 默认：500
+     */
+    private long pollIntervalMillis = 500;
+}
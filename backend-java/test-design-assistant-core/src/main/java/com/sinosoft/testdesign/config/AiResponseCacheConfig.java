@@ -0,0 +1,80 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AI响应缓存配置
+ * 对相同（或近似相同）的AI请求复用已有响应，节省模型调用耗时与Token
+ *
+ * @author sinosoft
+ * @date 2026-02-02
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.ai-response-cache")
+public class AiResponseCacheConfig {
+
+    /**
+     * 是否启用AI响应缓存
+     * 默认：true
+     */
+    private boolean enabled = true;
+
+    /**
+     * 默认缓存过期时间（秒）
+     * 默认：86400（1天）
+     */
+    private long defaultTtlSeconds = 86400;
+
+    /**
+     * 按任务类型配置的缓存过期时间（秒），未配置的任务类型使用默认值
+     */
+    private Map<String, Long> ttlSeconds = new HashMap<>();
+
+    /**
+     * 每种任务类型最多缓存的条目数，超出后淘汰最早写入的条目
+     * 默认：5000
+     */
+    private int maxEntriesPerTaskType = 5000;
+
+    /**
+     * 是否启用近似匹配（基于SimHash的文本相似度查找）
+     * 默认：false
+     */
+    private boolean similarityEnabled = false;
+
+    /**
+     * 近似匹配允许的最大汉明距离（64位SimHash）
+     * 默认：3
+     */
+    private int similarityMaxDistance = 3;
+
+    /**
+     * 同一请求范围内参与近似匹配的最大候选数
+     * 默认：200
+     */
+    private int similarityMaxCandidates = 200;
+
+    /**
+     * 按任务类型配置参与近似匹配的文本字段（逗号分隔），未配置的任务类型只做精确匹配
+     * 第一个字段用于计算相似度，其余字段（如内嵌需求文本的prompt）仅从匹配范围中排除
+     */
+    private Map<String, String> similarityFields = new HashMap<>(Map.of(
+            "CASE_GENERATION", "requirement_text",
+            "REQUIREMENT_ANALYSIS", "requirement_text,prompt",
+            "UI_SCRIPT_GENERATION", "natural_language_desc"
+    ));
+
+    /**
+     * 获取指定任务类型的缓存过期时间（秒）
+     */
+    public long getTtlSeconds(String taskType) {
+        Long ttl = ttlSeconds.get(taskType);
+        return ttl != null && ttl > 0 ? ttl : defaultTtlSeconds;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 后台任务队列配置
+ * 每种任务类型是一个独立通道，各自的并发数互不占用，批量用例生成不会挤占UI脚本生成
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.job-queue")
+public class JobQueueConfig {
+
+    /**
+     * 本实例是否领取并执行任务（只提供接口的实例可关闭，任务由其他实例执行）
+     * 默认：true
+     */
+    private boolean workerEnabled = true;
+
+    /**
+     * 轮询间隔（毫秒）
+     * 默认：1000
+     */
+    private long pollIntervalMs = 1000;
+
+    /**
+     * 租约时长（秒），执行实例宕机后最多经过该时间任务被重新排队
+     * 默认：120
+     */
+    private long leaseSeconds = 120;
+
+    /**
+     * 续约间隔（毫秒），应明显小于租约时长
+     * 默认：30000
+     */
+    private long heartbeatIntervalMs = 30000;
+
+    /**
+     * 回收过期租约的间隔（毫秒）
+     * 默认：30000
+     */
+    private long reapIntervalMs = 30000;
+
+    /**
+     * 最大领取次数，达到后任务记为FAILED
+     * 默认：3
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 重试退避基数（秒），第n次重试等待 base * 2^(n-1) 秒
+     * 默认：10
+     */
+    private long backoffBaseSeconds = 10;
+
+    /**
+     * 重试退避上限（秒）
+     * 默认：600
+     */
+    private long backoffMaxSeconds = 600;
+
+    /**
+     * 各任务类型的并发数（任务类型 -> 本实例执行线程数）
+     * 默认：CASE_GENERATION 4，UI_SCRIPT_GENERATION 2，REPORT_EXPORT 2，CASE_QUALITY_ASSESSMENT 1，WORKFLOW_EXECUTION 4
+     */
+    private Map<String, Integer> lanes = new HashMap<>(Map.of(
+            "CASE_GENERATION", 4,
+            "UI_SCRIPT_GENERATION", 2,
+            "REPORT_EXPORT", 2,
+            "CASE_QUALITY_ASSESSMENT", 1,
+            "WORKFLOW_EXECUTION", 4
+    ));
+
+    /**
+     * 未在lanes中配置的任务类型的并发数
+     * 默认：2
+     */
+    private int defaultConcurrency = 2;
+
+    /**
+     * 获取指定任务类型的并发数
+     */
+    public int getConcurrency(String jobType) {
+        Integer concurrency = lanes.get(jobType);
+        return concurrency != null && concurrency > 0 ? concurrency : Math.max(1, defaultConcurrency);
+    }
+}
@@ -0,0 +1,48 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 知识库权限本地缓存配置
+ * 按用户缓存 知识库ID -> 权限类型，授权/撤销时通过Redis发布失效消息，各实例清除对应用户的缓存
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.kb-permission-cache")
+public class KbPermissionCacheConfig {
+
+    /**
+     * 是否启用本地缓存，关闭后每次检查都查询数据库
+     * 默认：true
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存的用户数上限（LRU淘汰）
+     * 默认：10000
+     */
+    private int maxUsers = 10000;
+
+    /**
+     * 缓存有效期（秒），失效消息丢失（如Redis短暂不可用）时最多经过该时间后重新加载
+     * 默认：300
+     */
+    private long ttlSeconds = 300;
+
+    /**
+     * 是否通过Redis发布/订阅失效消息，单实例部署或没有Redis时可关闭
+     * 默认：true
+     */
+    private boolean pubsubEnabled = true;
+
+    /**
+     * 失效消息的Redis频道
+     * 默认：kb:permission:invalidate
+     */
+    private String channel = "kb:permission:invalidate";
+}
@@ -0,0 +1,52 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 知识库增量同步配置
+ * 核心服务遍历源目录并维护文档清单，只把新增和内容变化的文件分批交给AI服务重新向量化
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.kb-sync")
+public class KbSyncConfig {
+
+    /**
+     * 计算文件内容哈希的线程数
+     * 默认：8
+     */
+    private int hashThreads = 8;
+
+    /**
+     * 每次提交给AI服务的文件数
+     * 默认：50
+     */
+    private int batchSize = 50;
+
+    /**
+     * 同步日志中保留的错误信息条数上限
+     * 默认：100
+     */
+    private int maxErrors = 100;
+
+    /**
+     * 运行中的同步日志超过该时间（分钟）未结束时视为节点异常退出遗留，不再阻止同一知识库的新同步
+     * 默认：120
+     */
+    private long runningTimeoutMinutes = 120;
+
+    /**
+     * 参与同步的文件扩展名（与AI服务支持解析的格式一致）
+     * 默认：txt, md, pdf, doc, docx, ppt, pptx, html, csv
+     */
+    private List<String> supportedExtensions = new ArrayList<>(
+            List.of("txt", "md", "pdf", "doc", "docx", "ppt", "pptx", "html", "csv"));
+}
@@ -7,6 +7,8 @@ import com.fasterxml.jackson.databind.type.CollectionType;
 import com.fasterxml.jackson.databind.type.MapType;
 import com.fasterxml.jackson.databind.type.SimpleType;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sinosoft.testdesign.service.impl.KbPermissionCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -16,6 +18,8 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -66,6 +70,20 @@ public class RedisConfig {
         return new StringRedisTemplate(connectionFactory);
     }
     
+    /**
+     * 配置Redis消息监听容器（订阅知识库权限失效消息）
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kb-permission-cache", name = "pubsub-enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       KbPermissionCache kbPermissionCache,
+                                                                       KbPermissionCacheConfig kbPermissionCacheConfig) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(kbPermissionCache, new ChannelTopic(kbPermissionCacheConfig.getChannel()));
+        return container;
+    }
+    
     /**
      * 配置CacheManager
      */
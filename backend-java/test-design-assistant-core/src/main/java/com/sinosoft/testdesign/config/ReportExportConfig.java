@@ -0,0 +1,36 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 报告导出任务配置
+ * 报告导出写入后台任务队列执行，不占用请求线程；并发数由任务队列的 REPORT_EXPORT 通道配置
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.report-export")
+public class ReportExportConfig {
+
+    /**
+     * 等待中的导出任务上限，达到后拒绝新的导出任务
+     * 默认：50
+     */
+    private int queueCapacity = 50;
+
+    /**
+     * 已结束任务的保留时间（分钟），超时后不再可查询
+     * 默认：60
+     */
+    private long jobRetentionMinutes = 60;
+
+    /**
+     * 导出文件缓存的保留时间（小时），超过该时间未生成或复用的文件被清理，应大于已结束任务的保留时间
+     * 默认：168
+     */
+    private long cacheRetentionHours = 168;
+}
@@ -0,0 +1,30 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 评分线程池配置
+ * 用例质量批量评估和版本上线风险评估共用一个有界线程池并行评分，不占用公共ForkJoin池
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.scoring-executor")
+public class ScoringExecutorConfig {
+
+    /**
+     * 评分线程数，评分是纯计算，按CPU核数设置即可
+     * 默认：CPU核数
+     */
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 等待评分的任务队列容量，队列满时由提交评分的线程自行执行
+     * 默认：1000
+     */
+    private int queueCapacity = 1000;
+}
@@ -0,0 +1,43 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 工作流执行配置
+ * 工作流节点在独立的有界线程池中执行，互不依赖的分支并发运行；
+ * 整体交给Python引擎执行的工作流使用另一个线程池，阻塞等待Python响应时不占用节点线程
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.workflow-execution")
+public class WorkflowExecutionConfig {
+
+    /**
+     * 节点执行线程数，即所有工作流同时运行的节点数上限
+     * 默认：8
+     */
+    private int poolSize = 8;
+
+    /**
+     * 就绪节点等待队列容量，队列满时新就绪的节点直接失败
+     * 默认：200
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 整体交给Python引擎执行的工作流的并发数
+     * 默认：4
+     */
+    private int remotePoolSize = 4;
+
+    /**
+     * 整体交给Python引擎执行的工作流的等待队列容量，队列满时拒绝新的执行
+     * 默认：50
+     */
+    private int remoteQueueCapacity = 50;
+}
@@ -0,0 +1,39 @@
+package com.sinosoft.testdesign.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 工作流节点结果缓存配置
+ * 输入未变化的节点重新执行时复用已保存的输出，缓存超过保留时间没有命中后清理
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.workflow-memo")
+public class WorkflowNodeMemoConfig {
+
+    /**
+     * 是否启用节点结果缓存
+     * 默认：true
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存结果的节点类型。JVM内执行的轻量节点重算比查缓存更快，默认只缓存模型调用
+     * 默认：llm_call
+     */
+    private List<String> nodeTypes = new ArrayList<>(List.of("llm_call"));
+
+    /**
+     * 保留时间（小时），超过该时间没有写入或命中的缓存被清理
+     * 默认：72
+     */
+    private long ttlHours = 72;
+}
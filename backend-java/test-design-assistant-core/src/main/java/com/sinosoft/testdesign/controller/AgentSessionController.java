@@ -1,8 +1,15 @@
 package com.sinosoft.testdesign.controller;
 
 import com.sinosoft.testdesign.common.Result;
+import com.sinosoft.testdesign.dto.AgentContextDTO;
+import com.sinosoft.testdesign.dto.AgentMessagePageDTO;
+import com.sinosoft.testdesign.dto.AgentToolCallRequestDTO;
+import com.sinosoft.testdesign.entity.AgentMessage;
 import com.sinosoft.testdesign.entity.AgentSession;
+import com.sinosoft.testdesign.entity.AgentToolCall;
+import com.sinosoft.testdesign.service.AgentConversationService;
 import com.sinosoft.testdesign.service.AgentSessionService;
+import com.sinosoft.testdesign.service.AgentToolExecutionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +31,12 @@ public class AgentSessionController {
     @Autowired
     private AgentSessionService sessionService;
 
+    @Autowired
+    private AgentConversationService conversationService;
+
+    @Autowired
+    private AgentToolExecutionService toolExecutionService;
+
     /**
      * 创建会话
      */
@@ -119,4 +132,72 @@ public class AgentSessionController {
             return Result.error("删除失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 分页查询会话消息（游标分页，从新到旧）
+     */
+    @GetMapping("/{id}/messages")
+    @Operation(summary = "分页查询会话消息")
+    public Result<AgentMessagePageDTO> listMessages(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return Result.success(conversationService.listMessages(id, cursor, size));
+    }
+
+    /**
+     * 查询消息详情（含工具调用内容）
+     */
+    @GetMapping("/{id}/messages/{messageId}")
+    @Operation(summary = "查询消息详情")
+    public Result<AgentMessage> getMessage(@PathVariable Long id, @PathVariable Long messageId) {
+        try {
+            return Result.success(conversationService.getMessage(id, messageId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 追加消息
+     */
+    @PostMapping("/{id}/messages")
+    @Operation(summary = "追加会话消息")
+    public Result<AgentMessage> appendMessage(@PathVariable Long id, @RequestBody AgentMessage message) {
+        try {
+            AgentMessage savedMessage = conversationService.appendMessage(id, message);
+            return Result.success("追加成功", savedMessage);
+        } catch (Exception e) {
+            return Result.error("追加失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询会话上下文（历史摘要 + Token预算内的最近消息）
+     */
+    @GetMapping("/{id}/context")
+    @Operation(summary = "查询会话上下文")
+    public Result<AgentContextDTO> getContext(@PathVariable Long id) {
+        try {
+            return Result.success(conversationService.getContext(id));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一轮对话中的工具调用（并发执行）
+     */
+    @PostMapping("/{id}/tool-calls")
+    @Operation(summary = "执行工具调用")
+    public Result<List<AgentToolCall>> executeToolCalls(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long messageId,
+            @RequestBody List<AgentToolCallRequestDTO> calls) {
+        try {
+            return Result.success(toolExecutionService.executeToolCalls(id, messageId, calls));
+        } catch (Exception e) {
+            return Result.error("执行失败: " + e.getMessage());
+        }
+    }
 }
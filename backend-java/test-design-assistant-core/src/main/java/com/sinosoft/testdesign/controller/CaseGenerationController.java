@@ -12,9 +12,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -79,22 +83,27 @@ public class CaseGenerationController {
         // 查询任务详情
         TaskDetailDTO taskDetail = caseGenerationService.getTaskDetail(taskId);
 
-        // 生成Excel
-        byte[] excelData = CaseExportUtil.exportTaskToExcel(taskDetail);
+        // 先完整写入临时文件，不在内存中生成完整文件；导出失败时响应尚未提交，仍能返回错误信息
+        Path tempFile = Files.createTempFile("case-task-export-", ".xlsx");
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                CaseExportUtil.exportTaskToExcel(taskDetail, outputStream);
+            }
 
-        // 设置响应头
-        String fileName = URLEncoder.encode(
-                "用例生成任务_" + taskDetail.getTaskCode() + ".xlsx",
-                StandardCharsets.UTF_8
-        );
-        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + fileName + "\"");
-        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(excelData.length));
-
-        // 写入响应
-        response.getOutputStream().write(excelData);
-        response.getOutputStream().flush();
+            // 设置响应头
+            String fileName = URLEncoder.encode(
+                    "用例生成任务_" + taskDetail.getTaskCode() + ".xlsx",
+                    StandardCharsets.UTF_8
+            );
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + fileName + "\"");
+            response.setContentLengthLong(Files.size(tempFile));
+            Files.copy(tempFile, response.getOutputStream());
+            response.getOutputStream().flush();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
     }
 }
 
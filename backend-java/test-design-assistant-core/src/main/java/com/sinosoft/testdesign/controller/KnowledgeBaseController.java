@@ -213,7 +213,7 @@ public class KnowledgeBaseController {
             String docCode = knowledgeBaseManageService.uploadDocument(
                     kbId, 
                     file.getOriginalFilename(), 
-                    file.getBytes(), 
+                    file.getInputStream(), 
                     creatorId
             );
             return Result.success(docCode);
@@ -1,6 +1,8 @@
 package com.sinosoft.testdesign.controller;
 
 import com.sinosoft.testdesign.common.Result;
+import com.sinosoft.testdesign.service.AiRequestCoalescingService;
+import com.sinosoft.testdesign.service.AiResponseCacheService;
 import com.sinosoft.testdesign.service.MonitoringService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -25,6 +27,8 @@ import java.util.Map;
 public class MonitoringController {
     
     private final MonitoringService monitoringService;
+    private final AiResponseCacheService aiResponseCacheService;
+    private final AiRequestCoalescingService aiRequestCoalescingService;
     
     @Operation(summary = "获取性能统计", description = "获取指定时间范围内的性能统计信息")
     @GetMapping("/performance")
@@ -128,4 +132,23 @@ public class MonitoringController {
         java.util.List<Map<String, Object>> stats = monitoringService.getModelPerformanceStats(startTime, endTime);
         return Result.success(stats);
     }
+
+    @Operation(summary = "获取AI响应缓存统计", description = "获取AI响应缓存的命中数、命中率和节省的Token数")
+    @GetMapping("/ai-cache")
+    public Result<Map<String, Object>> getAiCacheStatistics() {
+        return Result.success(aiResponseCacheService.getStatistics());
+    }
+
+    @Operation(summary = "获取AI请求合并统计", description = "获取本节点内及跨节点被合并的重复AI请求数")
+    @GetMapping("/ai-coalescing")
+    public Result<Map<String, Object>> getAiCoalescingStatistics() {
+        return Result.success(aiRequestCoalescingService.getStatistics());
+    }
+
+    @Operation(summary = "清除AI响应缓存", description = "清除指定任务类型的AI响应缓存")
+    @DeleteMapping("/ai-cache/{taskType}")
+    public Result<Void> evictAiCache(@PathVariable String taskType) {
+        aiResponseCacheService.evict(taskType);
+        return Result.success();
+    }
 }
@@ -1,12 +1,19 @@
 package com.sinosoft.testdesign.controller;
 
 import com.sinosoft.testdesign.common.Result;
+import com.sinosoft.testdesign.dto.CaseQualityBatchJobDTO;
 import com.sinosoft.testdesign.entity.TestCase;
+import com.sinosoft.testdesign.entity.TestCaseQuality;
 import com.sinosoft.testdesign.repository.TestCaseRepository;
+import com.sinosoft.testdesign.service.CaseQualityBatchJobService;
 import com.sinosoft.testdesign.service.TestCaseQualityService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -22,6 +29,7 @@ import org.springframework.web.bind.annotation.*;
 public class TestCaseQualityController {
     
     private final TestCaseQualityService qualityService;
+    private final CaseQualityBatchJobService batchJobService;
     private final TestCaseRepository testCaseRepository;
     
     @Operation(summary = "评估用例质量", description = "综合评估测试用例质量，返回质量评分")
@@ -53,5 +61,30 @@ public class TestCaseQualityController {
         TestCaseQualityService.StandardizationScore score = qualityService.checkStandardization(testCase);
         return Result.success(score);
     }
+    
+    @Operation(summary = "提交批量评估用例质量任务", description = "后台评估需求下（不指定需求时为全部）用例的质量并保存评分，版本未变化的用例跳过，返回任务ID用于查询进度")
+    @PostMapping("/assess/batch")
+    public Result<CaseQualityBatchJobDTO> assessBatch(@RequestParam(required = false) Long requirementId) {
+        return Result.success(batchJobService.submit(requirementId));
+    }
+    
+    @Operation(summary = "查询批量评估用例质量任务", description = "查询批量评估任务的状态、进度和评估结果")
+    @GetMapping("/assess/batch/{jobId}")
+    public Result<CaseQualityBatchJobDTO> getBatchJob(@PathVariable String jobId) {
+        return Result.success(batchJobService.getJob(jobId));
+    }
+    
+    @Operation(summary = "查询用例质量评分", description = "分页查询已保存的用例质量评分，可按需求、质量等级和分数筛选，按总分排序")
+    @GetMapping("/scores")
+    public Result<Page<TestCaseQuality>> getQualityScores(
+            @RequestParam(required = false) Long requirementId,
+            @RequestParam(required = false) String qualityLevel,
+            @RequestParam(required = false) Double minScore,
+            @RequestParam(required = false) Double maxScore,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "DESC") Sort.Direction direction) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, "totalScore").and(Sort.by("caseId")));
+        return Result.success(qualityService.getQualityScores(requirementId, qualityLevel, minScore, maxScore, pageable));
+    }
 }
-
@@ -1,10 +1,12 @@
 package com.sinosoft.testdesign.controller;
 
 import com.sinosoft.testdesign.common.Result;
+import com.sinosoft.testdesign.dto.ReportExportJobDTO;
 import com.sinosoft.testdesign.dto.TestReportRequestDTO;
 import com.sinosoft.testdesign.dto.TestReportResponseDTO;
 import com.sinosoft.testdesign.entity.TestReport;
 import com.sinosoft.testdesign.mapper.EntityDTOMapper;
+import com.sinosoft.testdesign.service.ReportExportJobService;
 import com.sinosoft.testdesign.service.TestReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -31,6 +33,7 @@ import java.util.stream.Collectors;
 public class TestReportController {
     
     private final TestReportService reportService;
+    private final ReportExportJobService reportExportJobService;
     private final EntityDTOMapper entityDTOMapper;
     
     @Operation(summary = "生成测试报告", description = "生成新的测试报告")
@@ -122,6 +125,20 @@ public class TestReportController {
         return Result.success(fileUrl);
     }
     
+    @Operation(summary = "提交报告导出任务", description = "后台导出测试报告文件（WORD/PDF/EXCEL），返回任务ID用于查询进度")
+    @PostMapping("/{reportCode}/export-jobs")
+    public Result<ReportExportJobDTO> submitExportJob(
+            @PathVariable String reportCode,
+            @RequestParam String format) {
+        return Result.success(reportExportJobService.submit(reportCode, format));
+    }
+    
+    @Operation(summary = "查询报告导出任务", description = "查询报告导出任务的状态、进度和文件URL")
+    @GetMapping("/export-jobs/{jobId}")
+    public Result<ReportExportJobDTO> getExportJob(@PathVariable String jobId) {
+        return Result.success(reportExportJobService.getJob(jobId));
+    }
+    
     @Operation(summary = "汇总测试执行结果", description = "汇总测试执行结果（JSON格式）")
     @GetMapping("/summarize")
     public Result<String> summarizeExecutionResults(
@@ -1,6 +1,8 @@
 package com.sinosoft.testdesign.controller;
 
 import com.sinosoft.testdesign.common.Result;
+import com.sinosoft.testdesign.dto.ReleaseRiskAssessmentRequestDTO;
+import com.sinosoft.testdesign.dto.ReleaseRiskAssessmentResponseDTO;
 import com.sinosoft.testdesign.dto.TestRiskAssessmentRequestDTO;
 import com.sinosoft.testdesign.dto.TestRiskAssessmentResponseDTO;
 import com.sinosoft.testdesign.entity.TestRiskAssessment;
@@ -59,6 +61,15 @@ public class TestRiskAssessmentController {
         return Result.success(entityDTOMapper.toTestRiskAssessmentResponseDTO(result));
     }
     
+    @Operation(summary = "评估版本上线风险", description = "批量评估版本包含的需求和执行任务，给出上线结论")
+    @PostMapping("/assess/release")
+    public Result<ReleaseRiskAssessmentResponseDTO> assessReleaseRisk(
+            @Valid @RequestBody ReleaseRiskAssessmentRequestDTO dto) {
+        ReleaseRiskAssessmentResponseDTO result = riskService.assessReleaseRisk(
+                dto.getRequirementIds(), dto.getExecutionTaskIds());
+        return Result.success(result);
+    }
+    
     @Operation(summary = "评估风险等级", description = "根据风险评分评估风险等级")
     @GetMapping("/assess/level")
     public Result<String> assessRiskLevel(@RequestParam BigDecimal riskScore) {
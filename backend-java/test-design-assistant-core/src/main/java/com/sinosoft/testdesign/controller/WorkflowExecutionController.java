@@ -29,15 +29,16 @@ public class WorkflowExecutionController {
     
     private final WorkflowExecutionService executionService;
     
-    @Operation(summary = "执行工作流", description = "执行指定的工作流")
+    @Operation(summary = "执行工作流", description = "执行指定的工作流，reuseMemo=false时不复用节点结果缓存，所有节点重新执行")
     @PostMapping("/execute")
     public Result<WorkflowExecution> executeWorkflow(
             @RequestParam Long workflowId,
             @RequestBody Map<String, Object> inputData,
             @RequestParam(required = false) Long creatorId,
-            @RequestParam(required = false) String creatorName) {
+            @RequestParam(required = false) String creatorName,
+            @RequestParam(defaultValue = "true") boolean reuseMemo) {
         WorkflowExecution execution = executionService.executeWorkflow(
-                workflowId, inputData, creatorId, creatorName);
+                workflowId, inputData, creatorId, creatorName, reuseMemo);
         return Result.success(execution);
     }
     
@@ -87,6 +88,16 @@ public class WorkflowExecutionController {
         return Result.success(execution);
     }
     
+    @Operation(summary = "从失败节点恢复", description = "复用已成功节点的输出，从失败节点继续执行工作流")
+    @PostMapping("/{executionId}/resume")
+    public Result<WorkflowExecution> resumeExecution(
+            @PathVariable String executionId,
+            @RequestParam(required = false) Long creatorId,
+            @RequestParam(required = false) String creatorName) {
+        WorkflowExecution execution = executionService.resumeExecution(executionId, creatorId, creatorName);
+        return Result.success(execution);
+    }
+    
     @Operation(summary = "查询执行进度", description = "查询工作流执行进度")
     @GetMapping("/{executionId}/progress")
     public Result<Map<String, Object>> getExecutionProgress(@PathVariable String executionId) {
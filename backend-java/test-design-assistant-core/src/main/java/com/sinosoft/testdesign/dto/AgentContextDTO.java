@@ -0,0 +1,47 @@
+package com.sinosoft.testdesign.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agent会话上下文DTO
+ * 发送给模型的上下文：更早消息的摘要加上Token预算内的最近消息
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+public class AgentContextDTO {
+
+    /**
+     * 会话ID
+     */
+    private Long sessionId;
+
+    /**
+     * 更早消息的摘要，没有移出窗口的消息时为null
+     */
+    private String summary;
+
+    /**
+     * 最近消息（从旧到新，每条包含role和content）
+     */
+    private List<Map<String, String>> messages;
+
+    /**
+     * 上下文估算Token数（摘要+最近消息）
+     */
+    private int estimatedTokens;
+
+    /**
+     * 已纳入上下文的最后一条消息ID
+     */
+    private Long lastMessageId;
+
+    /**
+     * 已移出窗口的消息数
+     */
+    private long summarizedMessages;
+}
@@ -0,0 +1,55 @@
+package com.sinosoft.testdesign.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agent消息DTO
+ * 列表和上下文只需要消息正文，不加载工具调用信息和工具执行结果（JSON大字段），详情接口返回完整消息
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgentMessageDTO {
+
+    /**
+     * 消息ID（分页游标）
+     */
+    private Long id;
+
+    /**
+     * 消息类型（USER/ASSISTANT/TOOL/SYSTEM）
+     */
+    private String messageType;
+
+    /**
+     * 角色（user/assistant/tool/system）
+     */
+    private String role;
+
+    /**
+     * 消息内容
+     */
+    private String content;
+
+    /**
+     * Token使用量
+     */
+    private Integer tokensUsed;
+
+    /**
+     * 使用的模型代码
+     */
+    private String modelCode;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+}
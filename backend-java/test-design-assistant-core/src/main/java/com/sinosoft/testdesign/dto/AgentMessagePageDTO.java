@@ -0,0 +1,35 @@
+package com.sinosoft.testdesign.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Agent消息分页结果（游标分页）
+ * 按消息ID从新到旧返回，下一页以nextCursor作为cursor参数，翻页开销与页码无关
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgentMessagePageDTO {
+
+    /**
+     * 消息列表（从新到旧）
+     */
+    private List<AgentMessageDTO> messages;
+
+    /**
+     * 下一页游标（本页最早一条消息的ID），没有更多消息时为null
+     */
+    private Long nextCursor;
+
+    /**
+     * 是否还有更早的消息
+     */
+    private boolean hasMore;
+}
@@ -0,0 +1,30 @@
+package com.sinosoft.testdesign.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Agent工具调用请求DTO
+ * 模型一轮输出中的一个工具调用
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgentToolCallRequestDTO {
+
+    /**
+     * 工具编码
+     */
+    private String toolCode;
+
+    /**
+     * 调用参数
+     */
+    private Map<String, Object> arguments;
+}
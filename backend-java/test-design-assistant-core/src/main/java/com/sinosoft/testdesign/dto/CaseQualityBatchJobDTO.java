@@ -0,0 +1,55 @@
+package com.sinosoft.testdesign.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用例质量批量评估任务DTO
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+public class CaseQualityBatchJobDTO {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 需求ID，为空表示全部用例
+     */
+    private Long requirementId;
+
+    /**
+     * 任务状态（PENDING/RUNNING/COMPLETED/FAILED）
+     */
+    private String status;
+
+    /**
+     * 进度（0-100）
+     */
+    private Integer progress;
+
+    /**
+     * 评估结果（完成后返回）
+     */
+    private CaseQualityBatchResponseDTO result;
+
+    /**
+     * 错误信息
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 完成时间
+     */
+    private LocalDateTime finishTime;
+}
@@ -0,0 +1,51 @@
+package com.sinosoft.testdesign.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 用例质量批量评估响应DTO
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+public class CaseQualityBatchResponseDTO {
+
+    /**
+     * 需求ID，为空表示全部用例
+     */
+    private Long requirementId;
+
+    /**
+     * 范围内的用例数
+     */
+    private Integer totalCount;
+
+    /**
+     * 本次重新评分的用例数
+     */
+    private Integer assessedCount;
+
+    /**
+     * 评分未过期而跳过的用例数
+     */
+    private Integer skippedCount;
+
+    /**
+     * 各质量等级的用例数
+     */
+    private Map<String, Long> qualityLevelCount;
+
+    /**
+     * 平均总分
+     */
+    private BigDecimal avgScore;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private Long elapsedMillis;
+}
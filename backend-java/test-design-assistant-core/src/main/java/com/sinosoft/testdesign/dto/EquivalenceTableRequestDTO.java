@@ -1,5 +1,7 @@
 package com.sinosoft.testdesign.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -56,5 +58,21 @@ public class EquivalenceTableRequestDTO {
      * 是否自动识别参数（从用例中提取参数名）
      */
     private Boolean autoIdentifyParameters = true;
+    
+    /**
+     * 组合策略：AUTO/FULL/PAIRWISE/RANDOM（默认AUTO）
+     * AUTO: 组合数不超过最大用例数时生成完整笛卡尔积，否则优先生成有效组合和边界组合
+     * FULL: 按顺序生成笛卡尔积，达到最大用例数后截断
+     * PAIRWISE: 配对覆盖，任意两个参数的等价类组合至少出现一次
+     * RANDOM: 随机抽样不重复的组合
+     */
+    private String combinationStrategy = "AUTO";
+    
+    /**
+     * 最大用例数（默认1000）
+     */
+    @Min(value = 1, message = "最大用例数最小为1")
+    @Max(value = 10000, message = "最大用例数不能超过10000")
+    private Integer maxCombinations = 1000;
 }
 
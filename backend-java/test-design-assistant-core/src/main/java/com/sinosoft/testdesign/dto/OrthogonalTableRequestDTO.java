@@ -1,5 +1,7 @@
 package com.sinosoft.testdesign.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -30,13 +32,14 @@ public class OrthogonalTableRequestDTO {
     private String title;
     
     /**
-     * 正交表类型：L4/L8/L9/L12/L16/L25（默认自动选择）
-     * L4: 4行，适合2因素2水平
-     * L8: 8行，适合2-7因素2水平或1因素2水平+1因素3水平
-     * L9: 9行，适合2因素3水平
-     * L12: 12行，适合最多11因素2水平
-     * L16: 16行，适合最多15因素2水平
-     * L25: 25行，适合最多2因素5水平
+     * 正交表类型：L4/L8/L9/L12/L16/L25/L27/L32/L64/L81/L125等（默认自动选择能容纳所有因素的最小正交表）
+     * L4: 4行，最多3因素2水平
+     * L8: 8行，最多7因素2水平
+     * L9: 9行，最多4因素3水平
+     * L12: 12行，最多11因素2水平
+     * L16: 16行，最多15因素2水平；L16(4⁵)：最多5因素4水平
+     * L25: 25行，最多6因素5水平
+     * 因素水平数少于正交表水平数时自动合并水平；指定约束条件、种子组合或覆盖强度大于2时改用覆盖表算法
      */
     private String tableType;
     
@@ -50,5 +53,24 @@ public class OrthogonalTableRequestDTO {
      * 是否包含交互作用分析
      */
     private Boolean includeInteractionAnalysis = false;
+    
+    /**
+     * 覆盖强度（t-way）：2为配对组合，3/4保证任意3/4个因素的取值组合都被覆盖
+     */
+    @Min(value = 2, message = "覆盖强度最小为2")
+    @Max(value = 4, message = "覆盖强度最大为4")
+    private Integer strength = 2;
+    
+    /**
+     * 约束条件（禁止出现的取值组合）
+     * 格式：[{"浏览器": "Safari", "操作系统": "Windows"}]，同一行中这些因素同时取到这些值的组合不会生成
+     */
+    private List<Map<String, String>> constraints;
+    
+    /**
+     * 种子组合（必须包含的测试组合，可只指定部分因素）
+     * 格式：[{"浏览器": "Chrome", "操作系统": "Linux"}]
+     */
+    private List<Map<String, String>> seeds;
 }
 
@@ -41,6 +41,11 @@ public class OrthogonalTableResponseDTO {
      */
     private List<Map<String, Object>> tableData;
     
+    /**
+     * 因约束条件之间的冲突无法覆盖的组合（只包含组合涉及的因素），全部可覆盖时为null
+     */
+    private List<Map<String, Object>> uncoverableCombinations;
+    
     /**
      * 测试组合数量（行数）
      */
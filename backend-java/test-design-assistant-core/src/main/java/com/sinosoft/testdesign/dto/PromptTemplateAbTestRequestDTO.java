@@ -34,4 +34,6 @@ public class PromptTemplateAbTestRequestDTO {
     private Integer minSamples = 100;
     
     private String selectionCriteria = "success_rate";
+    
+    private String allocationMode = "fixed";
 }
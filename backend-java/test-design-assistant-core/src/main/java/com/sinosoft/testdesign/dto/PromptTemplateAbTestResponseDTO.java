@@ -25,6 +25,7 @@ public class PromptTemplateAbTestResponseDTO {
     private String autoSelectEnabled;
     private Integer minSamples;
     private String selectionCriteria;
+    private String allocationMode;
     private Long createdBy;
     private String createdByName;
     private String createTime;
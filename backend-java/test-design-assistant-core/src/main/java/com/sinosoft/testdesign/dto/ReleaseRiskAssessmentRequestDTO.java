@@ -0,0 +1,28 @@
+package com.sinosoft.testdesign.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 版本上线风险评估请求DTO
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+public class ReleaseRiskAssessmentRequestDTO {
+
+    /**
+     * 本次上线包含的需求ID
+     */
+    @Size(max = 1000, message = "需求数量不能超过1000个")
+    private List<Long> requirementIds;
+
+    /**
+     * 本次上线包含的执行任务ID
+     */
+    @Size(max = 1000, message = "执行任务数量不能超过1000个")
+    private List<Long> executionTaskIds;
+}
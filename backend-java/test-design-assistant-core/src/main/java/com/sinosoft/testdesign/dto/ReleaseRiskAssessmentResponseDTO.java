@@ -0,0 +1,48 @@
+package com.sinosoft.testdesign.dto;
+
+import com.sinosoft.testdesign.entity.TestRiskAssessment;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 版本上线风险评估响应DTO
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+public class ReleaseRiskAssessmentResponseDTO {
+
+    /**
+     * 上线结论（GO/CONDITIONAL_GO/NO_GO）
+     */
+    private String decision;
+
+    /**
+     * 上线建议
+     */
+    private String recommendation;
+
+    /**
+     * 各风险等级的评估数
+     */
+    private Map<String, Long> riskLevelCount;
+
+    /**
+     * 最低上线可行性评分
+     */
+    private BigDecimal minFeasibilityScore;
+
+    /**
+     * 平均上线可行性评分
+     */
+    private BigDecimal avgFeasibilityScore;
+
+    /**
+     * 各需求、执行任务的评估结果
+     */
+    private List<TestRiskAssessment> assessments;
+}
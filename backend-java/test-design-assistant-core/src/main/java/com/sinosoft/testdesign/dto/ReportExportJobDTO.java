@@ -0,0 +1,60 @@
+package com.sinosoft.testdesign.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 报告导出任务DTO
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+@Data
+public class ReportExportJobDTO {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 报告编码
+     */
+    private String reportCode;
+
+    /**
+     * 导出格式（WORD/PDF/EXCEL）
+     */
+    private String format;
+
+    /**
+     * 任务状态（PENDING/RUNNING/COMPLETED/FAILED）
+     */
+    private String status;
+
+    /**
+     * 进度（0-100）
+     */
+    private Integer progress;
+
+    /**
+     * 文件URL（完成后返回）
+     */
+    private String fileUrl;
+
+    /**
+     * 错误信息
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 完成时间
+     */
+    private LocalDateTime finishTime;
+}
@@ -27,5 +27,9 @@ public class WorkflowAbTestRequestDTO {
 
     private Integer trafficSplitA = 50;
     private Integer trafficSplitB = 50;
+    private String autoSelectEnabled = "0";
+    private Integer minSamples = 100;
+    private String selectionCriteria = "success_rate";
+    private String allocationMode = "fixed";
     private Long createdBy;
 }
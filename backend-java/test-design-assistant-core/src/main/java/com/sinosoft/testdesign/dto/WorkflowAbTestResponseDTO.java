@@ -24,6 +24,10 @@ public class WorkflowAbTestResponseDTO {
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private String status;
+    private String autoSelectEnabled;
+    private Integer minSamples;
+    private String selectionCriteria;
+    private String allocationMode;
     private Long createdBy;
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
@@ -0,0 +1,100 @@
+package com.sinosoft.testdesign.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台任务队列实体
+ * 耗时的AI任务（用例生成、UI脚本生成）先写入队列再由任意实例的工作线程领取执行；
+ * 领取时加租约，执行期间定时续约，实例宕机后租约过期的任务由其他实例重新排队
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "async_job", indexes = {
+    @Index(name = "idx_async_job_claim", columnList = "status, job_type, available_time"),
+    @Index(name = "idx_async_job_lease", columnList = "status, lease_expire_time"),
+    @Index(name = "idx_async_job_business_key", columnList = "job_type, business_key")
+})
+public class AsyncJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "job_type", length = 50, nullable = false)
+    private String jobType; // 任务类型：CASE_GENERATION/UI_SCRIPT_GENERATION
+    
+    @Column(name = "business_key", length = 100)
+    private String businessKey; // 业务主键（如用例生成任务ID）
+    
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload; // 任务参数（JSON格式）
+    
+    @Column(name = "priority", nullable = false)
+    @Builder.Default
+    private Integer priority = 0; // 优先级，同一类型内数值大的先领取
+    
+    @Column(name = "status", length = 20, nullable = false)
+    @Builder.Default
+    private String status = "PENDING"; // 状态：PENDING/RUNNING/SUCCESS/FAILED
+    
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0; // 已领取次数
+    
+    @Column(name = "max_attempts", nullable = false)
+    @Builder.Default
+    private Integer maxAttempts = 3; // 最大领取次数
+    
+    @Column(name = "available_time", nullable = false)
+    private LocalDateTime availableTime; // 可被领取的时间（重试退避）
+    
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner; // 持有租约的工作实例
+    
+    @Column(name = "lease_expire_time")
+    private LocalDateTime leaseExpireTime; // 租约到期时间
+    
+    @Column(name = "heartbeat_time")
+    private LocalDateTime heartbeatTime; // 最近一次续约时间
+    
+    @Column(name = "progress", nullable = false)
+    @Builder.Default
+    private Integer progress = 0; // 执行进度（0-100），由处理器回报
+    
+    @Column(name = "result", columnDefinition = "TEXT")
+    private String result; // 执行结果（如导出文件URL）
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError; // 最近一次失败原因
+    
+    @Column(name = "create_time")
+    private LocalDateTime createTime; // 创建时间
+    
+    @Column(name = "start_time")
+    private LocalDateTime startTime; // 最近一次领取时间
+    
+    @Column(name = "finish_time")
+    private LocalDateTime finishTime; // 结束时间
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createTime == null) {
+            createTime = LocalDateTime.now();
+        }
+        if (availableTime == null) {
+            availableTime = createTime;
+        }
+    }
+}
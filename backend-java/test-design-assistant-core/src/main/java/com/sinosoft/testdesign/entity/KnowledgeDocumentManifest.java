@@ -0,0 +1,58 @@
+package com.sinosoft.testdesign.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 知识库文档清单实体
+ * 记录增量同步时源目录中每个文件的大小、修改时间和内容哈希，用于判断文件是否需要重新向量化
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "knowledge_document_manifest", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_knowledge_document_manifest_path", columnNames = {"kb_id", "relative_path"})
+})
+public class KnowledgeDocumentManifest {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "kb_id", nullable = false)
+    private Long kbId; // 知识库ID
+    
+    @Column(name = "relative_path", length = 1000, nullable = false)
+    private String relativePath; // 相对源目录的路径（/分隔）
+    
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize; // 文件大小（字节）
+    
+    @Column(name = "last_modified", nullable = false)
+    private Long lastModified; // 文件修改时间（毫秒）
+    
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash; // 内容哈希（SHA-256十六进制）
+    
+    @Column(name = "doc_code", length = 500)
+    private String docCode; // 对应的知识库文档编码
+    
+    @Column(name = "sync_time")
+    private LocalDateTime syncTime; // 最近同步时间
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        syncTime = LocalDateTime.now();
+    }
+}
@@ -58,6 +58,9 @@ public class PromptTemplateAbTest {
     @Column(name = "selection_criteria", length = 50)
     private String selectionCriteria = "success_rate";  // success_rate/response_time/user_rating
     
+    @Column(name = "allocation_mode", length = 20)
+    private String allocationMode = "fixed";  // fixed-固定比例/bandit-按胜出概率自动调整
+    
     @Column(name = "created_by")
     private Long createdBy;
     
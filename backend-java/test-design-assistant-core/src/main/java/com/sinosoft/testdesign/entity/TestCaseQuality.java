@@ -0,0 +1,90 @@
+package com.sinosoft.testdesign.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 用例质量评分实体
+ * 批量质量评估的结果按用例保存，列表按质量排序、筛选时直接读取，不再重新计算。
+ * 评分时记录用例的版本号和更新时间，两者都未变化的用例在下次批量评估时跳过
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Entity
+@Table(name = "test_case_quality", indexes = {
+    @Index(name = "idx_case_quality_requirement_id", columnList = "requirement_id"),
+    @Index(name = "idx_case_quality_total_score", columnList = "total_score")
+})
+public class TestCaseQuality {
+    
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * 用例ID
+     */
+    @Column(name = "case_id", nullable = false, unique = true)
+    private Long caseId;
+    
+    /**
+     * 需求ID（冗余自用例，用于按需求筛选）
+     */
+    @Column(name = "requirement_id")
+    private Long requirementId;
+    
+    /**
+     * 总分（0-100）
+     */
+    @Column(name = "total_score", precision = 5, scale = 2)
+    private BigDecimal totalScore;
+    
+    /**
+     * 完整性评分
+     */
+    @Column(name = "completeness_score", precision = 5, scale = 2)
+    private BigDecimal completenessScore;
+    
+    /**
+     * 规范性评分
+     */
+    @Column(name = "standardization_score", precision = 5, scale = 2)
+    private BigDecimal standardizationScore;
+    
+    /**
+     * 可执行性评分
+     */
+    @Column(name = "executability_score", precision = 5, scale = 2)
+    private BigDecimal executabilityScore;
+    
+    /**
+     * 质量等级：优秀/良好/一般/需改进
+     */
+    @Column(name = "quality_level", length = 20)
+    private String qualityLevel;
+    
+    /**
+     * 评分时的用例版本号
+     */
+    @Column(name = "case_version")
+    private Integer caseVersion;
+    
+    /**
+     * 评分时的用例更新时间
+     */
+    @Column(name = "case_update_time")
+    private LocalDateTime caseUpdateTime;
+    
+    /**
+     * 评估时间
+     */
+    @Column(name = "assess_time")
+    private LocalDateTime assessTime;
+}
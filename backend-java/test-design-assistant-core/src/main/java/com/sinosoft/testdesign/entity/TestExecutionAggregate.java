@@ -0,0 +1,76 @@
+package com.sinosoft.testdesign.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 测试执行聚合实体
+ * 按（执行任务, 执行状态）汇总执行记录的条数和耗时，创建执行记录和更新记录状态时增量维护，
+ * 报告统计直接读取聚合行，不再加载执行记录
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Entity
+@Table(name = "test_execution_aggregate", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"task_id", "execution_status"})
+})
+public class TestExecutionAggregate {
+    
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * 执行任务ID
+     */
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+    
+    /**
+     * 需求ID（冗余自执行任务，用于按需求汇总）
+     */
+    @Column(name = "requirement_id")
+    private Long requirementId;
+    
+    /**
+     * 执行状态（为空的记录计入UNKNOWN）
+     */
+    @Column(name = "execution_status", nullable = false, length = 50)
+    private String executionStatus;
+    
+    /**
+     * 执行记录数
+     */
+    @Column(name = "record_count", nullable = false)
+    private Long recordCount = 0L;
+    
+    /**
+     * 有执行耗时的记录数
+     */
+    @Column(name = "duration_count", nullable = false)
+    private Long durationCount = 0L;
+    
+    /**
+     * 执行耗时合计（毫秒）
+     */
+    @Column(name = "duration_sum", nullable = false)
+    private Long durationSum = 0L;
+    
+    /**
+     * 更新时间
+     */
+    @Column(name = "update_time")
+    private LocalDateTime updateTime;
+    
+    @PrePersist
+    @PreUpdate
+    public void preUpdate() {
+        this.updateTime = LocalDateTime.now();
+    }
+}
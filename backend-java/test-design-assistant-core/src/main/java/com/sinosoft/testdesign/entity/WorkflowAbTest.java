@@ -62,6 +62,22 @@ public class WorkflowAbTest {
     @Builder.Default
     private String status = "draft";
 
+    @Column(name = "auto_select_enabled", length = 1)
+    @Builder.Default
+    private String autoSelectEnabled = "0";
+
+    @Column(name = "min_samples")
+    @Builder.Default
+    private Integer minSamples = 100;
+
+    @Column(name = "selection_criteria", length = 50)
+    @Builder.Default
+    private String selectionCriteria = "success_rate"; // success_rate / response_time
+
+    @Column(name = "allocation_mode", length = 20)
+    @Builder.Default
+    private String allocationMode = "fixed"; // fixed / bandit
+
     @Column(name = "created_by")
     private Long createdBy;
 
@@ -0,0 +1,63 @@
+package com.sinosoft.testdesign.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 工作流节点结果缓存实体
+ * 按（节点类型, 节点配置, 节点输入）的内容哈希保存节点输出，输入未变化的节点重新执行时直接复用
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "workflow_node_memo", indexes = {
+    @Index(name = "idx_workflow_node_memo_last_hit_time", columnList = "last_hit_time")
+})
+public class WorkflowNodeMemo {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "memo_key", length = 64, unique = true, nullable = false)
+    private String memoKey; // 内容哈希（SHA-256十六进制）
+    
+    @Column(name = "node_type", length = 50, nullable = false)
+    private String nodeType; // 节点类型
+    
+    @Column(name = "output_data", columnDefinition = "TEXT")
+    private String outputData; // 节点输出（JSON格式）
+    
+    @Column(name = "hit_count", nullable = false)
+    @Builder.Default
+    private Integer hitCount = 0; // 命中次数
+    
+    @Column(name = "create_time")
+    private LocalDateTime createTime; // 创建时间
+    
+    @Column(name = "last_hit_time")
+    private LocalDateTime lastHitTime; // 最近写入或命中时间，过期清理以此为准
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createTime == null) {
+            createTime = LocalDateTime.now();
+        }
+        if (lastHitTime == null) {
+            lastHitTime = createTime;
+        }
+        if (hitCount == null) {
+            hitCount = 0;
+        }
+    }
+}
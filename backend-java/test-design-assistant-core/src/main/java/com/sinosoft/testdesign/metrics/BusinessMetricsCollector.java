@@ -180,6 +180,49 @@ public class BusinessMetricsCollector {
         log.debug("记录模型调用失败指标，模型: {}，耗时: {}秒，原因: {}", modelCode, durationSeconds, reason);
     }
     
+    /**
+     * 记录AI响应缓存命中
+     * 
+     * @param taskType 任务类型
+     * @param matchType 命中方式（exact-精确匹配，similar-近似匹配）
+     * @param tokensSaved 节省的Token数
+     */
+    public void recordAiCacheHit(String taskType, String matchType, long tokensSaved) {
+        Tags tags = Tags.of("task_type", taskType != null ? taskType : "unknown");
+        meterRegistry.counter("ai_response_cache_hit_total",
+                tags.and("match", matchType != null ? matchType : "exact")).increment();
+        if (tokensSaved > 0) {
+            meterRegistry.counter("ai_response_cache_tokens_saved_total", tags).increment(tokensSaved);
+        }
+        log.debug("记录AI响应缓存命中指标，任务类型: {}，命中方式: {}，节省Token: {}", taskType, matchType, tokensSaved);
+    }
+    
+    /**
+     * 记录AI响应缓存未命中
+     * 
+     * @param taskType 任务类型
+     */
+    public void recordAiCacheMiss(String taskType) {
+        meterRegistry.counter("ai_response_cache_miss_total",
+                Tags.of("task_type", taskType != null ? taskType : "unknown")).increment();
+        log.debug("记录AI响应缓存未命中指标，任务类型: {}", taskType);
+    }
+    
+    /**
+     * 记录被合并的重复AI请求
+     * 
+     * @param taskType 任务类型
+     * @param scope 合并范围（local-本节点，cluster-跨节点）
+     */
+    public void recordAiRequestCoalesced(String taskType, String scope) {
+        meterRegistry.counter("ai_request_coalesced_total",
+                Tags.of(
+                        "task_type", taskType != null ? taskType : "unknown",
+                        "scope", scope != null ? scope : "local"
+                )).increment();
+        log.debug("记录AI请求合并指标，任务类型: {}，范围: {}", taskType, scope);
+    }
+
     /**
      * 更新任务队列长度
      * 
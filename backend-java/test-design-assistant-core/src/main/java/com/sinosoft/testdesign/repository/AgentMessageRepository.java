@@ -1,6 +1,8 @@
 package com.sinosoft.testdesign.repository;
 
+import com.sinosoft.testdesign.dto.AgentMessageDTO;
 import com.sinosoft.testdesign.entity.AgentMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -27,5 +29,32 @@ public interface AgentMessageRepository extends JpaRepository<AgentMessage, Long
      * 根据会话ID和消息类型查询
      */
     List<AgentMessage> findBySessionIdAndMessageType(Long sessionId, String messageType);
+    
+    /**
+     * 会话最新的消息（按ID倒序，不加载工具调用大字段）
+     */
+    @Query("SELECT new com.sinosoft.testdesign.dto.AgentMessageDTO(m.id, m.messageType, m.role, m.content, " +
+            "m.tokensUsed, m.modelCode, m.createTime) FROM AgentMessage m " +
+            "WHERE m.sessionId = :sessionId ORDER BY m.id DESC")
+    List<AgentMessageDTO> findLatest(@Param("sessionId") Long sessionId, Pageable pageable);
+    
+    /**
+     * 游标之前的消息（按ID倒序，不加载工具调用大字段）
+     */
+    @Query("SELECT new com.sinosoft.testdesign.dto.AgentMessageDTO(m.id, m.messageType, m.role, m.content, " +
+            "m.tokensUsed, m.modelCode, m.createTime) FROM AgentMessage m " +
+            "WHERE m.sessionId = :sessionId AND m.id < :beforeId ORDER BY m.id DESC")
+    List<AgentMessageDTO> findBefore(@Param("sessionId") Long sessionId,
+                                     @Param("beforeId") Long beforeId,
+                                     Pageable pageable);
+    
+    /**
+     * 指定ID之后的消息（按ID正序，不加载工具调用大字段）
+     */
+    @Query("SELECT new com.sinosoft.testdesign.dto.AgentMessageDTO(m.id, m.messageType, m.role, m.content, " +
+            "m.tokensUsed, m.modelCode, m.createTime) FROM AgentMessage m " +
+            "WHERE m.sessionId = :sessionId AND m.id > :afterId ORDER BY m.id ASC")
+    List<AgentMessageDTO> findAfter(@Param("sessionId") Long sessionId,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
 }
-
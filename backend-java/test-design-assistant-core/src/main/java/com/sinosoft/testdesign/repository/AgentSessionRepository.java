@@ -1,7 +1,9 @@
 package com.sinosoft.testdesign.repository;
 
 import com.sinosoft.testdesign.entity.AgentSession;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -43,5 +45,12 @@ public interface AgentSessionRepository extends JpaRepository<AgentSession, Long
      * 根据状态查询会话列表
      */
     List<AgentSession> findByStatus(String status);
+    
+    /**
+     * 按ID查询并加行锁（需在事务中调用）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AgentSession s WHERE s.id = :id")
+    Optional<AgentSession> findByIdForUpdate(@Param("id") Long id);
 }
 
@@ -0,0 +1,91 @@
+package com.sinosoft.testdesign.repository;
+
+import com.sinosoft.testdesign.entity.AsyncJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 后台任务队列Repository
+ * 领取和回收使用FOR UPDATE SKIP LOCKED：多个实例同时轮询时互不等待，已被锁定的行直接跳过
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Repository
+public interface AsyncJobRepository extends JpaRepository<AsyncJob, Long> {
+    
+    /**
+     * 锁定可领取的任务（需在事务中调用）
+     */
+    @Query(value = "SELECT * FROM async_job WHERE status = 'PENDING' AND job_type = :jobType " +
+            "AND available_time <= :now ORDER BY priority DESC, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<AsyncJob> lockClaimable(@Param("jobType") String jobType,
+                                 @Param("now") LocalDateTime now,
+                                 @Param("limit") int limit);
+    
+    /**
+     * 锁定租约已过期的运行中任务（需在事务中调用）
+     */
+    @Query(value = "SELECT * FROM async_job WHERE status = 'RUNNING' AND lease_expire_time < :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<AsyncJob> lockExpiredLeases(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    /**
+     * 按ID查询并加行锁（需在事务中调用）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM AsyncJob j WHERE j.id = :id")
+    Optional<AsyncJob> findByIdForUpdate(@Param("id") Long id);
+    
+    /**
+     * 查询业务主键最近的一个指定状态的任务
+     */
+    Optional<AsyncJob> findFirstByJobTypeAndBusinessKeyAndStatusInOrderByIdDesc(
+            String jobType, String businessKey, Collection<String> statuses);
+    
+    /**
+     * 统计指定类型、状态的任务数
+     */
+    long countByJobTypeAndStatus(String jobType, String status);
+    
+    /**
+     * 回报本实例仍持有的任务的进度和结果
+     * 
+     * @return 更新行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE AsyncJob j SET j.progress = :progress, j.result = COALESCE(:result, j.result) " +
+            "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int updateProgress(@Param("id") Long id,
+                       @Param("owner") String owner,
+                       @Param("progress") int progress,
+                       @Param("result") String result);
+    
+    /**
+     * 为本实例仍持有的任务续约
+     * 
+     * @return 续约行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE AsyncJob j SET j.leaseExpireTime = :leaseUntil, j.heartbeatTime = :now " +
+            "WHERE j.id IN :ids AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int extendLeases(@Param("ids") Collection<Long> ids,
+                     @Param("owner") String owner,
+                     @Param("leaseUntil") LocalDateTime leaseUntil,
+                     @Param("now") LocalDateTime now);
+}
@@ -3,6 +3,8 @@ package com.sinosoft.testdesign.repository;
 import com.sinosoft.testdesign.entity.KnowledgeBasePermission;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -80,5 +82,24 @@ public interface KnowledgeBasePermissionRepository extends JpaRepository<Knowled
      * @param userId 用户ID
      */
     void deleteByKbIdAndUserId(Long kbId, Long userId);
+    
+    /**
+     * 查询知识库的所有权限及知识库编码、名称（联表查询）
+     * 
+     * @param kbId 知识库ID
+     * @return [权限实体, 知识库编码, 知识库名称]
+     */
+    @Query("SELECT p, kb.kbCode, kb.kbName FROM KnowledgeBasePermission p " +
+            "LEFT JOIN KnowledgeBase kb ON kb.id = p.kbId WHERE p.kbId = :kbId ORDER BY p.id")
+    List<Object[]> findWithKnowledgeBaseByKbId(@Param("kbId") Long kbId);
+    
+    /**
+     * 查询用户的所有权限及知识库编码、名称（联表查询）
+     * 
+     * @param userId 用户ID
+     * @return [权限实体, 知识库编码, 知识库名称]
+     */
+    @Query("SELECT p, kb.kbCode, kb.kbName FROM KnowledgeBasePermission p " +
+            "LEFT JOIN KnowledgeBase kb ON kb.id = p.kbId WHERE p.userId = :userId ORDER BY p.id")
+    List<Object[]> findWithKnowledgeBaseByUserId(@Param("userId") Long userId);
 }
-
@@ -3,8 +3,13 @@ package com.sinosoft.testdesign.repository;
 import com.sinosoft.testdesign.entity.KnowledgeBaseSyncLog;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,5 +63,19 @@ public interface KnowledgeBaseSyncLogRepository extends JpaRepository<KnowledgeB
      * @return 成功同步次数
      */
     long countByKbIdAndStatus(Long kbId, String status);
+    
+    /**
+     * 将超时未结束的运行中同步日志标记为失败（节点异常退出时遗留）
+     * 
+     * @param kbId 知识库ID
+     * @param startedBefore 开始时间早于该时间的视为超时
+     * @param now 结束时间
+     * @return 更新行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE KnowledgeBaseSyncLog l SET l.status = 'failed', l.errorMessage = '同步超时未结束', l.endTime = :now " +
+            "WHERE l.kbId = :kbId AND l.status = 'running' AND l.startTime < :startedBefore")
+    int failStaleRunning(@Param("kbId") Long kbId, @Param("startedBefore") LocalDateTime startedBefore,
+                         @Param("now") LocalDateTime now);
 }
-
@@ -0,0 +1,34 @@
+package com.sinosoft.testdesign.repository;
+
+import com.sinosoft.testdesign.entity.KnowledgeDocumentManifest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 知识库文档清单Repository
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Repository
+public interface KnowledgeDocumentManifestRepository extends JpaRepository<KnowledgeDocumentManifest, Long> {
+    
+    /**
+     * 查询知识库的全部清单记录
+     */
+    List<KnowledgeDocumentManifest> findByKbId(Long kbId);
+    
+    /**
+     * 删除知识库的全部清单记录
+     * 
+     * @return 删除行数
+     */
+    @Modifying
+    @Query("DELETE FROM KnowledgeDocumentManifest m WHERE m.kbId = :kbId")
+    int deleteByKbId(@Param("kbId") Long kbId);
+}
@@ -29,6 +29,16 @@ public interface PromptTemplateAbTestExecutionRepository extends JpaRepository<P
      */
     Optional<PromptTemplateAbTestExecution> findByRequestId(String requestId);
     
+    /**
+     * 查询请求ID在A/B测试中的首条执行记录（分流粘性）
+     */
+    Optional<PromptTemplateAbTestExecution> findFirstByAbTestIdAndRequestIdOrderByIdAsc(Long abTestId, String requestId);
+    
+    /**
+     * 查询用户在A/B测试中的首条执行记录（分流粘性）
+     */
+    Optional<PromptTemplateAbTestExecution> findFirstByAbTestIdAndUserIdOrderByIdAsc(Long abTestId, Long userId);
+    
     /**
      * 根据A/B测试ID和版本标签查询执行记录
      */
@@ -82,6 +92,22 @@ public interface PromptTemplateAbTestExecutionRepository extends JpaRepository<P
     @Query("SELECT AVG(e.userRating) FROM PromptTemplateAbTestExecution e WHERE e.abTestId = :abTestId AND e.versionLabel = 'B' AND e.userRating IS NOT NULL")
     Double getVersionBAvgRating(@Param("abTestId") Long abTestId);
     
+    /**
+     * 按版本标签汇总执行记录（一次查询）
+     * 每行依次为：版本标签、执行数、成功数、成功记录响应时间之和、平方和、条数、评分之和、平方和、条数
+     */
+    @Query("SELECT e.versionLabel, COUNT(e), " +
+           "SUM(CASE WHEN e.status = 'success' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN e.status = 'success' AND e.responseTime IS NOT NULL THEN e.responseTime ELSE 0 END), " +
+           "SUM(CASE WHEN e.status = 'success' AND e.responseTime IS NOT NULL " +
+           "THEN CAST(e.responseTime AS Long) * e.responseTime ELSE 0 END), " +
+           "SUM(CASE WHEN e.status = 'success' AND e.responseTime IS NOT NULL THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN e.userRating IS NOT NULL THEN e.userRating ELSE 0 END), " +
+           "SUM(CASE WHEN e.userRating IS NOT NULL THEN e.userRating * e.userRating ELSE 0 END), " +
+           "SUM(CASE WHEN e.userRating IS NOT NULL THEN 1 ELSE 0 END) " +
+           "FROM PromptTemplateAbTestExecution e WHERE e.abTestId = :abTestId GROUP BY e.versionLabel")
+    List<Object[]> aggregateByVersionLabel(@Param("abTestId") Long abTestId);
+    
     /**
      * 查询指定时间范围内的执行记录
      */
@@ -2,10 +2,12 @@ package com.sinosoft.testdesign.repository;
 
 import com.sinosoft.testdesign.entity.PromptTemplateAbTest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,4 +40,12 @@ public interface PromptTemplateAbTestRepository extends JpaRepository<PromptTemp
      * 查询所有正在运行的A/B测试
      */
     List<PromptTemplateAbTest> findByStatus(String status);
+    
+    /**
+     * 仅当测试仍在运行时标记为已完成，返回更新行数；多个节点同时判定胜出时只有一个节点更新成功
+     */
+    @Modifying
+    @Query("UPDATE PromptTemplateAbTest ab SET ab.status = 'completed', ab.endTime = :now, ab.updateTime = :now " +
+            "WHERE ab.id = :id AND ab.status = 'running'")
+    int completeIfRunning(@Param("id") Long id, @Param("now") LocalDateTime now);
 }
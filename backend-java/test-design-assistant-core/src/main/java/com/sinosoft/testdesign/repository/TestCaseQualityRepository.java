@@ -0,0 +1,25 @@
+package com.sinosoft.testdesign.repository;
+
+import com.sinosoft.testdesign.entity.TestCaseQuality;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用例质量评分数据访问接口
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Repository
+public interface TestCaseQualityRepository extends JpaRepository<TestCaseQuality, Long>,
+        JpaSpecificationExecutor<TestCaseQuality> {
+    
+    /**
+     * 批量查询用例的质量评分
+     */
+    List<TestCaseQuality> findByCaseIdIn(Collection<Long> caseIds);
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -63,5 +64,31 @@ public interface TestCaseRepository extends JpaRepository<TestCase, Long>,
      */
     @Query("SELECT DISTINCT tc.requirementId FROM TestCase tc WHERE tc.requirementId IS NOT NULL")
     List<Long> findDistinctRequirementIds();
+    
+    /**
+     * 查询需求下用例的版本戳（ID、版本号、更新时间），按ID排序
+     * 用于判断缓存的用例快照是否过期，只有过期的用例才需要加载完整实体
+     */
+    @Query("SELECT tc.id, tc.version, tc.updateTime FROM TestCase tc WHERE tc.requirementId = :requirementId ORDER BY tc.id")
+    List<Object[]> findVersionStampsByRequirementId(@Param("requirementId") Long requirementId);
+    
+    /**
+     * 批量查询用例的版本戳（ID、版本号、更新时间），按ID排序
+     */
+    @Query("SELECT tc.id, tc.version, tc.updateTime FROM TestCase tc WHERE tc.id IN :ids ORDER BY tc.id")
+    List<Object[]> findVersionStampsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 批量统计需求下的用例数
+     * 
+     * @return [需求ID, 用例数]，没有用例的需求不返回
+     */
+    @Query("SELECT tc.requirementId, COUNT(tc) FROM TestCase tc WHERE tc.requirementId IN :requirementIds GROUP BY tc.requirementId")
+    List<Object[]> countByRequirementIdIn(@Param("requirementIds") Collection<Long> requirementIds);
+    
+    /**
+     * 查询全部用例的版本戳（ID、版本号、更新时间），按ID排序
+     */
+    @Query("SELECT tc.id, tc.version, tc.updateTime FROM TestCase tc ORDER BY tc.id")
+    List<Object[]> findAllVersionStamps();
 }
-
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +29,11 @@ public interface TestCoverageAnalysisRepository extends JpaRepository<TestCovera
      */
     List<TestCoverageAnalysis> findByRequirementId(Long requirementId);
     
+    /**
+     * 批量查询多个需求的覆盖分析列表
+     */
+    List<TestCoverageAnalysis> findByRequirementIdIn(Collection<Long> requirementIds);
+    
     /**
      * 根据覆盖类型查询覆盖分析列表
      */
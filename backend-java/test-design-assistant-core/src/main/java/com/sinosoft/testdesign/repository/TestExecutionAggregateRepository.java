@@ -0,0 +1,88 @@
+package com.sinosoft.testdesign.repository;
+
+import com.sinosoft.testdesign.entity.TestExecutionAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 测试执行聚合数据访问接口
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Repository
+public interface TestExecutionAggregateRepository extends JpaRepository<TestExecutionAggregate, Long> {
+    
+    /**
+     * 根据任务ID查询各状态的聚合
+     */
+    List<TestExecutionAggregate> findByTaskId(Long taskId);
+    
+    /**
+     * 批量查询多个任务各状态的聚合
+     */
+    List<TestExecutionAggregate> findByTaskIdIn(Collection<Long> taskIds);
+    
+    /**
+     * 按需求汇总各状态的聚合
+     * 
+     * @return [执行状态, 记录数, 有耗时的记录数, 耗时合计, 最近更新时间]
+     */
+    @Query("SELECT a.executionStatus, SUM(a.recordCount), SUM(a.durationCount), SUM(a.durationSum), MAX(a.updateTime) " +
+            "FROM TestExecutionAggregate a WHERE a.requirementId = :requirementId GROUP BY a.executionStatus")
+    List<Object[]> sumByRequirementId(@Param("requirementId") Long requirementId);
+    
+    /**
+     * 原地累加聚合值
+     * 
+     * @return 更新行数，聚合行不存在时为0
+     */
+    @Modifying
+    @Query("UPDATE TestExecutionAggregate a SET a.recordCount = a.recordCount + :recordDelta, " +
+            "a.durationCount = a.durationCount + :durationCountDelta, " +
+            "a.durationSum = a.durationSum + :durationSumDelta, a.updateTime = :updateTime " +
+            "WHERE a.taskId = :taskId AND a.executionStatus = :executionStatus")
+    int increment(@Param("taskId") Long taskId,
+                  @Param("executionStatus") String executionStatus,
+                  @Param("recordDelta") long recordDelta,
+                  @Param("durationCountDelta") long durationCountDelta,
+                  @Param("durationSumDelta") long durationSumDelta,
+                  @Param("updateTime") LocalDateTime updateTime);
+    
+    /**
+     * 累加聚合值，聚合行不存在时插入（单条语句，同一任务同一状态的首条记录并发写入时不会冲突）
+     * 
+     * @return 插入或更新的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO test_execution_aggregate (task_id, requirement_id, execution_status, record_count, " +
+            "duration_count, duration_sum, update_time) " +
+            "VALUES (:taskId, :requirementId, :executionStatus, :recordDelta, :durationCountDelta, :durationSumDelta, :updateTime) " +
+            "ON CONFLICT (task_id, execution_status) DO UPDATE SET " +
+            "record_count = test_execution_aggregate.record_count + EXCLUDED.record_count, " +
+            "duration_count = test_execution_aggregate.duration_count + EXCLUDED.duration_count, " +
+            "duration_sum = test_execution_aggregate.duration_sum + EXCLUDED.duration_sum, " +
+            "update_time = EXCLUDED.update_time",
+            nativeQuery = true)
+    int upsertIncrement(@Param("taskId") Long taskId,
+                        @Param("requirementId") Long requirementId,
+                        @Param("executionStatus") String executionStatus,
+                        @Param("recordDelta") long recordDelta,
+                        @Param("durationCountDelta") long durationCountDelta,
+                        @Param("durationSumDelta") long durationSumDelta,
+                        @Param("updateTime") LocalDateTime updateTime);
+    
+    /**
+     * 执行任务关联的需求变化时同步冗余的需求ID
+     */
+    @Modifying
+    @Query("UPDATE TestExecutionAggregate a SET a.requirementId = :requirementId WHERE a.taskId = :taskId")
+    void updateRequirementIdByTaskId(@Param("taskId") Long taskId, @Param("requirementId") Long requirementId);
+}
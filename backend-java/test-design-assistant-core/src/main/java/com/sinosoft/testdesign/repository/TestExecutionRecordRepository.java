@@ -5,10 +5,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +30,21 @@ public interface TestExecutionRecordRepository extends JpaRepository<TestExecuti
      */
     Optional<TestExecutionRecord> findByRecordCode(String recordCode);
     
+    /**
+     * 条件更新执行状态：只有记录仍是原状态时才更新，并发的状态变更只有一个能成功
+     * 更新后清空持久化上下文，失败方重新查询时读到的是数据库中的最新状态
+     * 
+     * @return 更新行数，状态已被其他请求修改时为0
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TestExecutionRecord r SET r.executionStatus = :newStatus, r.finishTime = :finishTime " +
+            "WHERE r.recordCode = :recordCode AND r.executionStatus = :oldStatus")
+    int transitionStatus(@Param("recordCode") String recordCode,
+                         @Param("oldStatus") String oldStatus,
+                         @Param("newStatus") String newStatus,
+                         @Param("finishTime") LocalDateTime finishTime);
+    
     /**
      * 查询指定前缀的记录编码列表（用于编码生成优化）
      */
@@ -37,6 +55,13 @@ public interface TestExecutionRecordRepository extends JpaRepository<TestExecuti
      */
     List<TestExecutionRecord> findByTaskId(Long taskId);
     
+    /**
+     * 按ID顺序分批读取任务的执行记录（只读取报告需要的字段）
+     * 
+     * @param afterId 上一批最后一条记录的ID，首批传0
+     */
+    List<RecordRow> findByTaskIdAndIdGreaterThanOrderByIdAsc(Long taskId, Long afterId, Pageable pageable);
+    
     /**
      * 根据用例ID查询执行记录列表
      */
@@ -74,5 +99,19 @@ public interface TestExecutionRecordRepository extends JpaRepository<TestExecuti
             @Param("caseId") Long caseId,
             @Param("executionStatus") String executionStatus,
             Pageable pageable);
+    
+    /**
+     * 执行记录行（报告导出用的只读投影）
+     */
+    interface RecordRow {
+        Long getId();
+        String getRecordCode();
+        Long getCaseId();
+        String getExecutionType();
+        String getExecutionStatus();
+        Integer getExecutionDuration();
+        LocalDateTime getExecutionTime();
+        LocalDateTime getFinishTime();
+        String getErrorMessage();
+    }
 }
-
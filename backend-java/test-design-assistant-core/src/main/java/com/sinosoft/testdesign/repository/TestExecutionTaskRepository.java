@@ -42,6 +42,11 @@ public interface TestExecutionTaskRepository extends JpaRepository<TestExecution
      */
     List<TestExecutionTask> findByRequirementId(Long requirementId);
     
+    /**
+     * 统计需求下的任务数
+     */
+    long countByRequirementId(Long requirementId);
+    
     /**
      * 根据用例ID查询任务列表
      */
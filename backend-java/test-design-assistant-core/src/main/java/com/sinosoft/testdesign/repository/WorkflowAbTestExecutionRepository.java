@@ -23,6 +23,9 @@ public interface WorkflowAbTestExecutionRepository extends JpaRepository<Workflo
 
     Optional<WorkflowAbTestExecution> findByRequestId(String requestId);
 
+    /** 请求ID在A/B测试中的首条执行记录（分流粘性） */
+    Optional<WorkflowAbTestExecution> findFirstByAbTestIdAndRequestIdOrderByIdAsc(Long abTestId, String requestId);
+
     List<WorkflowAbTestExecution> findByAbTestIdAndVersionLabel(Long abTestId, String versionLabel);
 
     @Query("SELECT COUNT(e) FROM WorkflowAbTestExecution e WHERE e.abTestId = :abTestId AND e.versionLabel = 'A'")
@@ -43,5 +46,18 @@ public interface WorkflowAbTestExecutionRepository extends JpaRepository<Workflo
     @Query("SELECT AVG(e.responseTime) FROM WorkflowAbTestExecution e WHERE e.abTestId = :abTestId AND e.versionLabel = 'B' AND e.status = 'success' AND e.responseTime IS NOT NULL")
     Double avgResponseTimeB(@Param("abTestId") Long abTestId);
 
+    /**
+     * 按版本标签汇总执行记录（一次查询）
+     * 每行依次为：版本标签、执行数、成功数、成功记录响应时间之和、平方和、条数
+     */
+    @Query("SELECT e.versionLabel, COUNT(e), " +
+           "SUM(CASE WHEN e.status = 'success' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN e.status = 'success' AND e.responseTime IS NOT NULL THEN e.responseTime ELSE 0 END), " +
+           "SUM(CASE WHEN e.status = 'success' AND e.responseTime IS NOT NULL " +
+           "THEN CAST(e.responseTime AS Long) * e.responseTime ELSE 0 END), " +
+           "SUM(CASE WHEN e.status = 'success' AND e.responseTime IS NOT NULL THEN 1 ELSE 0 END) " +
+           "FROM WorkflowAbTestExecution e WHERE e.abTestId = :abTestId GROUP BY e.versionLabel")
+    List<Object[]> aggregateByVersionLabel(@Param("abTestId") Long abTestId);
+
     List<WorkflowAbTestExecution> findByAbTestIdAndExecutionTimeBetween(Long abTestId, LocalDateTime start, LocalDateTime end);
 }
@@ -2,10 +2,12 @@ package com.sinosoft.testdesign.repository;
 
 import com.sinosoft.testdesign.entity.WorkflowAbTest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +28,12 @@ public interface WorkflowAbTestRepository extends JpaRepository<WorkflowAbTest,
     Optional<WorkflowAbTest> findRunningTestByWorkflowId(@Param("workflowId") Long workflowId);
 
     List<WorkflowAbTest> findByStatus(String status);
+
+    /**
+     * 仅当测试仍在运行时标记为已完成，返回更新行数；多个节点同时判定胜出时只有一个节点更新成功
+     */
+    @Modifying
+    @Query("UPDATE WorkflowAbTest w SET w.status = 'completed', w.endTime = :now, w.updateTime = :now " +
+            "WHERE w.id = :id AND w.status = 'running'")
+    int completeIfRunning(@Param("id") Long id, @Param("now") LocalDateTime now);
 }
@@ -5,7 +5,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -49,4 +53,73 @@ public interface WorkflowExecutionRepository extends JpaRepository<WorkflowExecu
      * 分页查询执行记录
      */
     Page<WorkflowExecution> findAll(Pageable pageable);
+    
+    /**
+     * 开始排队中的执行；执行实例中断后重新领取的执行仍为RUNNING，同样可以开始
+     * 
+     * @return 更新行数，执行已结束或已取消时为0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkflowExecution e SET e.status = 'RUNNING' " +
+            "WHERE e.executionId = :executionId AND e.status IN ('PENDING', 'RUNNING')")
+    int startIfActive(@Param("executionId") String executionId);
+    
+    /**
+     * 更新运行中执行的进度，只改进度相关列，不会覆盖并发写入的取消状态
+     * 
+     * @return 更新行数，执行已结束或已取消时为0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkflowExecution e SET e.progress = :progress, e.currentNodeId = :currentNodeId " +
+            "WHERE e.executionId = :executionId AND e.status = 'RUNNING'")
+    int updateProgress(@Param("executionId") String executionId,
+                       @Param("progress") Integer progress,
+                       @Param("currentNodeId") String currentNodeId);
+    
+    /**
+     * 写入运行中执行的结果，执行已被取消（可能由其他实例取消）时不覆盖
+     * 
+     * @param progress 进度，为null时保留原值
+     * @return 更新行数，执行已不在运行中时为0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkflowExecution e SET e.status = :status, e.progress = COALESCE(:progress, e.progress), " +
+            "e.outputData = :outputData, e.errorMessage = :errorMessage, e.errorNodeId = :errorNodeId, " +
+            "e.endTime = :endTime, e.duration = :duration " +
+            "WHERE e.executionId = :executionId AND e.status = 'RUNNING'")
+    int finishIfRunning(@Param("executionId") String executionId,
+                        @Param("status") String status,
+                        @Param("progress") Integer progress,
+                        @Param("outputData") String outputData,
+                        @Param("errorMessage") String errorMessage,
+                        @Param("errorNodeId") String errorNodeId,
+                        @Param("endTime") LocalDateTime endTime,
+                        @Param("duration") Integer duration);
+    
+    /**
+     * 取消未结束的执行
+     * 
+     * @return 更新行数，执行已结束时为0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkflowExecution e SET e.status = 'CANCELLED', e.endTime = :endTime " +
+            "WHERE e.executionId = :executionId AND e.status IN ('PENDING', 'RUNNING')")
+    int cancelIfActive(@Param("executionId") String executionId, @Param("endTime") LocalDateTime endTime);
+    
+    /**
+     * 将未结束的执行记为失败（后台任务放弃重试时），之后可以从失败节点恢复
+     * 
+     * @return 更新行数，执行已结束时为0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkflowExecution e SET e.status = 'FAILED', e.errorMessage = :errorMessage, e.endTime = :endTime " +
+            "WHERE e.executionId = :executionId AND e.status IN ('PENDING', 'RUNNING')")
+    int failIfActive(@Param("executionId") String executionId,
+                     @Param("errorMessage") String errorMessage,
+                     @Param("endTime") LocalDateTime endTime);
 }
@@ -3,8 +3,13 @@ package com.sinosoft.testdesign.repository;
 import com.sinosoft.testdesign.entity.WorkflowNodeExecution;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -25,4 +30,17 @@ public interface WorkflowNodeExecutionRepository extends JpaRepository<WorkflowN
      * 根据执行ID和节点ID查询
      */
     List<WorkflowNodeExecution> findByExecutionIdAndNodeId(String executionId, String nodeId);
+    
+    /**
+     * 将执行中遗留的运行中节点记为失败（执行实例中断后）
+     * 
+     * @return 更新行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkflowNodeExecution n SET n.status = 'FAILED', n.errorMessage = :errorMessage, n.endTime = :endTime " +
+            "WHERE n.executionId = :executionId AND n.status = 'RUNNING'")
+    int failRunningNodes(@Param("executionId") String executionId,
+                         @Param("errorMessage") String errorMessage,
+                         @Param("endTime") LocalDateTime endTime);
 }
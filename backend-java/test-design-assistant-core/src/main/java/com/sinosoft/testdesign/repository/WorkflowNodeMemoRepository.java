@@ -0,0 +1,46 @@
+package com.sinosoft.testdesign.repository;
+
+import com.sinosoft.testdesign.entity.WorkflowNodeMemo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 工作流节点结果缓存Repository
+ * 
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Repository
+public interface WorkflowNodeMemoRepository extends JpaRepository<WorkflowNodeMemo, Long> {
+    
+    /**
+     * 根据内容哈希查询
+     */
+    Optional<WorkflowNodeMemo> findByMemoKey(String memoKey);
+    
+    /**
+     * 记录一次命中，同时延长过期时间
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkflowNodeMemo m SET m.hitCount = m.hitCount + 1, m.lastHitTime = :hitTime " +
+            "WHERE m.memoKey = :memoKey")
+    int recordHit(@Param("memoKey") String memoKey, @Param("hitTime") LocalDateTime hitTime);
+    
+    /**
+     * 删除指定时间之后没有写入或命中的缓存
+     * 
+     * @return 删除行数
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM WorkflowNodeMemo m WHERE m.lastHitTime < :expireBefore")
+    int deleteByLastHitTimeBefore(@Param("expireBefore") LocalDateTime expireBefore);
+}
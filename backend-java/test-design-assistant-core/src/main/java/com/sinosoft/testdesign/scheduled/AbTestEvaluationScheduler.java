@@ -0,0 +1,90 @@
+package com.sinosoft.testdesign.scheduled;
+
+import com.sinosoft.testdesign.config.AbTestEvaluationConfig;
+import com.sinosoft.testdesign.entity.PromptTemplateAbTest;
+import com.sinosoft.testdesign.entity.WorkflowAbTest;
+import com.sinosoft.testdesign.repository.PromptTemplateAbTestRepository;
+import com.sinosoft.testdesign.repository.WorkflowAbTestRepository;
+import com.sinosoft.testdesign.service.PromptTemplateAbTestService;
+import com.sinosoft.testdesign.service.WorkflowAbTestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * A/B测试自动评估定时任务
+ * 定时评估运行中的提示词模板和工作流A/B测试，每个测试在独立事务中评估，单个测试失败不影响其他测试。
+ * 多节点部署时先获取Redis评估锁（不主动释放，过期时间略小于评估间隔），同一周期只有一个节点评估；
+ * Redis不可用时照常评估，胜出版本的推广由状态条件更新保证只执行一次。
+ *
+ * @author sinosoft
+ * @date 2026-02-06
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AbTestEvaluationScheduler {
+
+    private static final String LOCK_KEY = "ab-test:evaluation:lock";
+
+    private final AbTestEvaluationConfig evaluationConfig;
+    private final PromptTemplateAbTestRepository promptAbTestRepository;
+    private final WorkflowAbTestRepository workflowAbTestRepository;
+    private final PromptTemplateAbTestService promptAbTestService;
+    private final WorkflowAbTestService workflowAbTestService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /** 本节点标识，写入锁的值便于排查持有锁的节点 */
+    private final String nodeToken = UUID.randomUUID().toString();
+
+    /**
+     * 评估运行中的A/B测试
+     * 默认每60秒执行一次
+     */
+    @Scheduled(fixedDelay = 60000) // 60秒
+    public void evaluateRunningAbTests() {
+        if (!evaluationConfig.isEnabled() || !acquireLock()) {
+            return;
+        }
+        for (PromptTemplateAbTest abTest : promptAbTestRepository.findByStatus("running")) {
+            try {
+                promptAbTestService.evaluateAbTest(abTest.getId());
+            } catch (Exception e) {
+                log.error("评估提示词模板A/B测试失败: id={}, 错误={}", abTest.getId(), e.getMessage());
+            }
+        }
+        for (WorkflowAbTest abTest : workflowAbTestRepository.findByStatus("running")) {
+            try {
+                workflowAbTestService.evaluateAbTest(abTest.getId());
+            } catch (Exception e) {
+                log.error("评估工作流A/B测试失败: id={}, 错误={}", abTest.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 获取本周期的评估锁，锁被其他节点持有时返回false
+     */
+    private boolean acquireLock() {
+        if (!evaluationConfig.isClusterLockEnabled()) {
+            return true;
+        }
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, nodeToken,
+                    Duration.ofSeconds(evaluationConfig.getLockTtlSeconds()));
+            if (!Boolean.TRUE.equals(acquired)) {
+                log.debug("A/B测试评估锁由其他节点持有，跳过本周期");
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("获取A/B测试评估锁失败，本节点照常评估: {}", e.getMessage());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.sinosoft.testdesign.scheduled;
+
+import com.sinosoft.testdesign.service.impl.AbTestStatsRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * A/B测试统计刷新定时任务
+ * 定时从执行记录重新加载统计基线，合并其他节点写入的执行结果
+ *
+ * @author sinosoft
+ * @date 2026-02-05
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AbTestStatsScheduler {
+
+    private final AbTestStatsRegistry statsRegistry;
+
+    /**
+     * 刷新A/B测试统计
+     * 默认每60秒执行一次
+     */
+    @Scheduled(fixedDelay = 60000) // 60秒
+    public void refreshAbTestStats() {
+        try {
+            statsRegistry.refreshAll();
+        } catch (Exception e) {
+            log.error("刷新A/B测试统计失败", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.sinosoft.testdesign.scheduled;
+
+import com.sinosoft.testdesign.config.JobQueueConfig;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.service.JobHandler;
+import com.sinosoft.testdesign.service.JobQueueService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台任务队列工作线程
+ * 每种任务类型一个通道（独立线程池和并发上限），按通道的空闲线程数领取任务；
+ * 执行中的任务定时续约，并定时回收其他实例遗留的过期租约。实例停止后未完成的任务在租约过期后由其他实例重新执行。
+ * 领取、续约、回收使用自己的调度线程（各一个），不占用 @Scheduled 的公共调度线程，
+ * 其他定时任务执行较慢时续约不会被推迟到租约过期之后
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+public class JobQueueWorker {
+
+    private final JobQueueService jobQueueService;
+    private final JobQueueConfig config;
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    /** 本实例执行中的任务ID */
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+    private final String workerId;
+    /** 领取、续约、回收各占一个线程，互不阻塞 */
+    private final ScheduledExecutorService scheduler;
+
+    public JobQueueWorker(JobQueueService jobQueueService, JobQueueConfig config, List<JobHandler> handlers) {
+        this.jobQueueService = jobQueueService;
+        this.config = config;
+        for (JobHandler handler : handlers) {
+            String jobType = handler.jobType();
+            int concurrency = config.getConcurrency(jobType);
+            AtomicInteger threadIndex = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread thread = new Thread(r, "job-" + jobType.toLowerCase() + "-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            lanes.put(jobType, new Lane(handler, concurrency, executor, new AtomicInteger()));
+        }
+        this.workerId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        AtomicInteger schedulerIndex = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(3, r -> {
+            Thread thread = new Thread(r, "job-queue-scheduler-" + schedulerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        schedule(this::poll, config.getPollIntervalMs());
+        schedule(this::heartbeat, config.getHeartbeatIntervalMs());
+        schedule(this::reapExpiredLeases, config.getReapIntervalMs());
+    }
+
+    private void schedule(Runnable task, long delayMs) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // 异常不能抛出，否则后续调度会被取消
+                log.error("后台任务队列调度异常: {}", e.getMessage(), e);
+            }
+        }, delayMs, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 按各通道的空闲线程数领取任务
+     */
+    public void poll() {
+        if (!config.isWorkerEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, Lane> entry : lanes.entrySet()) {
+            Lane lane = entry.getValue();
+            int idle = lane.concurrency() - lane.inFlight().get();
+            if (idle <= 0) {
+                continue;
+            }
+            try {
+                for (AsyncJob job : jobQueueService.claim(entry.getKey(), workerId, idle)) {
+                    runningJobs.add(job.getId());
+                    lane.inFlight().incrementAndGet();
+                    lane.executor().execute(() -> run(job, lane));
+                }
+            } catch (Exception e) {
+                log.error("领取后台任务失败: 类型={}, 错误={}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 为执行中的任务续约
+     */
+    public void heartbeat() {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+        try {
+            jobQueueService.extendLeases(Set.copyOf(runningJobs), workerId);
+        } catch (Exception e) {
+            log.error("后台任务续约失败: 实例={}, 错误={}", workerId, e.getMessage());
+        }
+    }
+
+    /**
+     * 回收租约过期的任务
+     */
+    public void reapExpiredLeases() {
+        if (!config.isWorkerEnabled()) {
+            return;
+        }
+        try {
+            for (AsyncJob job : jobQueueService.reapExpiredLeases()) {
+                giveUp(job, job.getLastError());
+            }
+        } catch (Exception e) {
+            log.error("回收后台任务失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        lanes.values().forEach(lane -> lane.executor().shutdownNow());
+    }
+
+    private void run(AsyncJob job, Lane lane) {
+        try {
+            lane.handler().handle(job);
+            jobQueueService.complete(job.getId(), workerId);
+        } catch (Exception e) {
+            log.warn("后台任务执行失败: id={}, 类型={}, 第{}次, 错误={}",
+                    job.getId(), job.getJobType(), job.getAttempts(), e.getMessage());
+            try {
+                if (jobQueueService.fail(job.getId(), workerId, e.getMessage())) {
+                    giveUp(job, e.getMessage());
+                }
+            } catch (Exception ex) {
+                // 未能写入结果的任务在租约过期后被回收
+                log.error("记录后台任务失败结果失败: id={}, 错误={}", job.getId(), ex.getMessage());
+            }
+        } finally {
+            runningJobs.remove(job.getId());
+            lane.inFlight().decrementAndGet();
+        }
+    }
+
+    private void giveUp(AsyncJob job, String error) {
+        Lane lane = lanes.get(job.getJobType());
+        if (lane == null) {
+            return;
+        }
+        try {
+            lane.handler().onGiveUp(job, error);
+        } catch (Exception e) {
+            log.error("后台任务失败回调异常: id={}, 错误={}", job.getId(), e.getMessage());
+        }
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker";
+        }
+    }
+
+    /**
+     * 任务类型通道
+     *
+     * @param handler 任务处理器
+     * @param concurrency 并发上限
+     * @param executor 执行线程池
+     * @param inFlight 执行中的任务数
+     */
+    private record Lane(JobHandler handler, int concurrency, ExecutorService executor, AtomicInteger inFlight) {
+    }
+}
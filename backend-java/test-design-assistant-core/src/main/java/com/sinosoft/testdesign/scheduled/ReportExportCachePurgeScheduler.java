@@ -0,0 +1,40 @@
+package com.sinosoft.testdesign.scheduled;
+
+import com.sinosoft.testdesign.config.ReportExportConfig;
+import com.sinosoft.testdesign.service.TestReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 报告导出文件缓存清理定时任务
+ * 定时删除超过保留时间没有生成或复用的导出文件
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportExportCachePurgeScheduler {
+
+    private final ReportExportConfig exportConfig;
+    private final TestReportService reportService;
+
+    /**
+     * 清理过期的导出文件
+     * 默认每小时执行一次
+     */
+    @Scheduled(fixedDelay = 3600000) // 1小时
+    public void purgeExpiredExportFiles() {
+        try {
+            int purged = reportService.purgeExpiredExportFiles(exportConfig.getCacheRetentionHours());
+            if (purged > 0) {
+                log.info("清理过期的报告导出文件: {}个", purged);
+            }
+        } catch (Exception e) {
+            log.error("清理报告导出文件失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.sinosoft.testdesign.scheduled;
+
+import com.sinosoft.testdesign.config.WorkflowNodeMemoConfig;
+import com.sinosoft.testdesign.service.impl.WorkflowNodeMemoStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 工作流节点结果缓存清理定时任务
+ * 定时删除超过保留时间没有写入或命中的节点缓存
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkflowNodeMemoPurgeScheduler {
+
+    private final WorkflowNodeMemoConfig memoConfig;
+    private final WorkflowNodeMemoStore memoStore;
+
+    /**
+     * 清理过期的节点缓存
+     * 默认每小时执行一次
+     */
+    @Scheduled(fixedDelay = 3600000) // 1小时
+    public void purgeExpiredMemos() {
+        if (!memoConfig.isEnabled()) {
+            return;
+        }
+        try {
+            int purged = memoStore.purgeExpired();
+            if (purged > 0) {
+                log.info("清理过期的工作流节点缓存: {}条", purged);
+            }
+        } catch (Exception e) {
+            log.error("清理工作流节点缓存失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.sinosoft.testdesign.service;
+
+import com.sinosoft.testdesign.dto.AgentContextDTO;
+import com.sinosoft.testdesign.dto.AgentMessagePageDTO;
+import com.sinosoft.testdesign.entity.AgentMessage;
+
+/**
+ * Agent会话对话服务接口
+ * 维护每个会话的上下文窗口（Token预算内的最近消息 + 有上限的历史摘要）并分页查询消息
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+public interface AgentConversationService {
+
+    /**
+     * 追加消息，同时累计会话Token数并更新上下文窗口
+     *
+     * @param sessionId 会话ID
+     * @param message 消息（sessionId以参数为准）
+     * @return 保存后的消息
+     */
+    AgentMessage appendMessage(Long sessionId, AgentMessage message);
+
+    /**
+     * 获取会话的上下文窗口，会先纳入其他服务（如Python Agent引擎）直接写入的新消息
+     *
+     * @param sessionId 会话ID
+     * @return 摘要和最近消息
+     */
+    AgentContextDTO getContext(Long sessionId);
+
+    /**
+     * 分页查询会话消息（从新到旧，不含工具调用内容）
+     *
+     * @param sessionId 会话ID
+     * @param cursor 上一页返回的nextCursor，首页传null
+     * @param size 每页条数
+     * @return 消息分页
+     */
+    AgentMessagePageDTO listMessages(Long sessionId, Long cursor, int size);
+
+    /**
+     * 查询消息详情（含工具调用内容）
+     *
+     * @param sessionId 会话ID
+     * @param messageId 消息ID
+     * @return 消息
+     */
+    AgentMessage getMessage(Long sessionId, Long messageId);
+}
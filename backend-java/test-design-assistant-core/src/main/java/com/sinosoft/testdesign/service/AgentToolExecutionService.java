@@ -0,0 +1,26 @@
+package com.sinosoft.testdesign.service;
+
+import com.sinosoft.testdesign.dto.AgentToolCallRequestDTO;
+import com.sinosoft.testdesign.entity.AgentToolCall;
+
+import java.util.List;
+
+/**
+ * Agent工具执行服务接口
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+public interface AgentToolExecutionService {
+
+    /**
+     * 并发执行一轮对话中的工具调用，并批量保存调用记录
+     * 单个调用失败或超时不影响其他调用，结果记录在对应的调用记录中
+     *
+     * @param sessionId 会话ID
+     * @param messageId 发起调用的消息ID（可选）
+     * @param calls 工具调用列表
+     * @return 调用记录，顺序与calls一致
+     */
+    List<AgentToolCall> executeToolCalls(Long sessionId, Long messageId, List<AgentToolCallRequestDTO> calls);
+}
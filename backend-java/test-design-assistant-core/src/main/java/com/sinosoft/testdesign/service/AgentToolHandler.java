@@ -0,0 +1,26 @@
+package com.sinosoft.testdesign.service;
+
+import java.util.Map;
+
+/**
+ * Agent工具实现
+ * 注册为Spring Bean后，按工具编码与agent_tool表中的工具对应，由AgentToolExecutionService调度执行
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+public interface AgentToolHandler {
+
+    /**
+     * 工具编码（对应agent_tool.tool_code）
+     */
+    String toolCode();
+
+    /**
+     * 执行工具
+     *
+     * @param arguments 调用参数
+     * @return 执行结果（会序列化为JSON保存）
+     */
+    Map<String, Object> execute(Map<String, Object> arguments);
+}
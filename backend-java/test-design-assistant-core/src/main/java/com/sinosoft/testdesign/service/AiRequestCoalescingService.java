@@ -0,0 +1,34 @@
+package com.sinosoft.testdesign.service;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * AI请求合并服务接口（single-flight）
+ * 相同请求哈希的并发调用只由一个调用方实际执行，其余调用方等待并复用其结果
+ *
+ * @author sinosoft
+ * @date 2026-02-03
+ */
+public interface AiRequestCoalescingService {
+
+    /**
+     * 执行AI调用，相同requestHash的并发调用会被合并
+     *
+     * @param taskType 任务类型（用于指标统计）
+     * @param requestHash 请求的规范化哈希
+     * @param loader 实际调用AI服务的逻辑
+     * @param sharedResult 读取其他节点已产出结果的逻辑（通常为读取响应缓存），为空时只做本节点内合并
+     * @return AI响应
+     */
+    Map<String, Object> execute(String taskType, String requestHash,
+                                Supplier<Map<String, Object>> loader,
+                                Supplier<Map<String, Object>> sharedResult);
+
+    /**
+     * 获取合并统计（本节点内合并数、跨节点合并数、当前进行中的请求数）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
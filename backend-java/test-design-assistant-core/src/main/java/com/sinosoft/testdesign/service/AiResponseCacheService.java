@@ -0,0 +1,76 @@
+package com.sinosoft.testdesign.service;
+
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * AI响应缓存服务接口
+ * 位于AI服务调用之前，按请求的规范化哈希复用已有响应
+ *
+ * @author sinosoft
+ * @date 2026-02-02
+ */
+public interface AiResponseCacheService {
+
+    /** 任务类型：用例生成 */
+    String TASK_CASE_GENERATION = "CASE_GENERATION";
+
+    /** 任务类型：需求分析 */
+    String TASK_REQUIREMENT_ANALYSIS = "REQUIREMENT_ANALYSIS";
+
+    /** 任务类型：UI脚本生成 */
+    String TASK_UI_SCRIPT_GENERATION = "UI_SCRIPT_GENERATION";
+
+    /**
+     * 获取缓存的AI响应，未命中时调用loader并缓存可复用的结果
+     *
+     * @param taskType 任务类型（决定过期时间和近似匹配字段）
+     * @param request 发送给AI服务的请求体（参与缓存键计算）
+     * @param cacheable 判断响应是否可缓存（通常只缓存成功响应）
+     * @param loader 实际调用AI服务的逻辑
+     * @return AI响应
+     */
+    Map<String, Object> getOrLoad(String taskType, Map<String, Object> request,
+                                  Predicate<Map<String, Object>> cacheable,
+                                  Supplier<Map<String, Object>> loader);
+
+    /**
+     * 获取缓存的AI响应，未命中时调用loader并缓存可复用的结果
+     *
+     * @param taskType 任务类型
+     * @param request 发送给AI服务的请求体
+     * @param keyExtras 仅参与缓存键计算、不发送给AI服务的附加信息（如模板版本号）
+     * @param cacheable 判断响应是否可缓存
+     * @param loader 实际调用AI服务的逻辑
+     * @return AI响应
+     */
+    Map<String, Object> getOrLoad(String taskType, Map<String, Object> request, Map<String, Object> keyExtras,
+                                  Predicate<Map<String, Object>> cacheable,
+                                  Supplier<Map<String, Object>> loader);
+
+    /**
+     * 计算请求的规范化哈希（SHA-256）
+     * 键排序、字符串去首尾空白并合并连续空白，使等价请求得到相同的哈希
+     *
+     * @param taskType 任务类型
+     * @param request 请求体
+     * @param keyExtras 附加键信息（可为空）
+     * @return 十六进制哈希
+     */
+    String canonicalHash(String taskType, Map<String, Object> request, Map<String, Object> keyExtras);
+
+    /**
+     * 清除指定任务类型的缓存
+     *
+     * @param taskType 任务类型
+     */
+    void evict(String taskType);
+
+    /**
+     * 获取缓存统计（命中数、未命中数、命中率、节省Token数）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,30 @@
+package com.sinosoft.testdesign.service;
+
+import com.sinosoft.testdesign.dto.CaseQualityBatchJobDTO;
+
+/**
+ * 用例质量批量评估任务服务接口
+ * 批量评估在后台执行，调用方通过任务ID轮询进度和结果
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+public interface CaseQualityBatchJobService {
+
+    /**
+     * 提交批量评估任务
+     * 同一范围已有未结束的任务时直接返回该任务
+     *
+     * @param requirementId 需求ID，为空时评估全部用例
+     * @return 评估任务
+     */
+    CaseQualityBatchJobDTO submit(Long requirementId);
+
+    /**
+     * 查询批量评估任务
+     *
+     * @param jobId 任务ID
+     * @return 评估任务
+     */
+    CaseQualityBatchJobDTO getJob(String jobId);
+}
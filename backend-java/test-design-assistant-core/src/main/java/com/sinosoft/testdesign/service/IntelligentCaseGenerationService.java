@@ -42,7 +42,7 @@ public interface IntelligentCaseGenerationService {
     List<GenerationTaskDTO> getBatchGenerationTasks(List<Long> taskIds);
     
     /**
-     * 异步执行用例生成任务
+     * 执行用例生成任务（由后台任务队列调用）
      * @param taskId 任务ID
      */
     void executeGenerationTask(Long taskId);
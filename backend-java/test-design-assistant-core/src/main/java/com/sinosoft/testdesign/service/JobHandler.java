@@ -0,0 +1,31 @@
+package com.sinosoft.testdesign.service;
+
+import com.sinosoft.testdesign.entity.AsyncJob;
+
+/**
+ * 后台任务处理器
+ * 每种任务类型一个实现，由任务队列工作线程调用。同一任务可能因实例宕机被执行多次，实现需要幂等
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+public interface JobHandler {
+
+    /**
+     * 处理的任务类型
+     */
+    String jobType();
+
+    /**
+     * 执行任务，抛出异常时任务按退避策略重试
+     */
+    void handle(AsyncJob job) throws Exception;
+
+    /**
+     * 任务达到最大重试次数后调用，用于把业务记录标记为失败
+     *
+     * @param error 最后一次失败原因
+     */
+    default void onGiveUp(AsyncJob job, String error) {
+    }
+}
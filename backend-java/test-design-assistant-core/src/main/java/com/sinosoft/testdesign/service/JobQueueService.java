@@ -0,0 +1,94 @@
+package com.sinosoft.testdesign.service;
+
+import com.sinosoft.testdesign.entity.AsyncJob;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 后台任务队列服务接口
+ * 任务保存在数据库中，任意实例都可以领取；领取的任务带租约，执行实例定时续约，
+ * 租约过期（实例宕机）的任务重新排队，失败的任务按指数退避重试，达到最大次数后记为FAILED
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+public interface JobQueueService {
+
+    /** 任务类型：用例生成 */
+    String JOB_CASE_GENERATION = "CASE_GENERATION";
+
+    /** 任务类型：UI脚本生成 */
+    String JOB_UI_SCRIPT_GENERATION = "UI_SCRIPT_GENERATION";
+
+    /** 任务类型：报告导出 */
+    String JOB_REPORT_EXPORT = "REPORT_EXPORT";
+
+    /** 任务类型：用例质量批量评估 */
+    String JOB_CASE_QUALITY_ASSESSMENT = "CASE_QUALITY_ASSESSMENT";
+
+    /** 任务类型：工作流执行 */
+    String JOB_WORKFLOW_EXECUTION = "WORKFLOW_EXECUTION";
+
+    /** 优先级：用户交互提交的单个任务 */
+    int PRIORITY_INTERACTIVE = 10;
+
+    /** 优先级：批量提交的任务 */
+    int PRIORITY_BATCH = 0;
+
+    /**
+     * 提交任务
+     * 在调用方事务中写入，调用方事务回滚时任务不会被执行
+     *
+     * @param jobType 任务类型
+     * @param businessKey 业务主键
+     * @param payload 任务参数（序列化为JSON，可为null）
+     * @param priority 优先级，同一类型内数值大的先执行
+     * @return 任务
+     */
+    AsyncJob enqueue(String jobType, String businessKey, Object payload, int priority);
+
+    /**
+     * 领取任务并加租约
+     *
+     * @param jobType 任务类型
+     * @param workerId 工作实例ID
+     * @param limit 最多领取数
+     * @return 领取到的任务
+     */
+    List<AsyncJob> claim(String jobType, String workerId, int limit);
+
+    /**
+     * 标记任务成功（租约已不属于该实例时忽略）
+     */
+    void complete(Long jobId, String workerId);
+
+    /**
+     * 标记任务失败：未达到最大次数时退避后重新排队，否则记为FAILED
+     *
+     * @return 放弃重试时返回true
+     */
+    boolean fail(Long jobId, String workerId, String error);
+
+    /**
+     * 回报执行中的任务的进度和结果（租约已不属于该实例时忽略）
+     *
+     * @param progress 进度（0-100）
+     * @param result 执行结果，为null时保留原值
+     */
+    void reportProgress(Long jobId, String workerId, int progress, String result);
+
+    /**
+     * 为执行中的任务续约
+     *
+     * @return 续约成功的任务数
+     */
+    int extendLeases(Collection<Long> jobIds, String workerId);
+
+    /**
+     * 回收租约过期的任务：重新排队或记为FAILED
+     *
+     * @return 放弃重试的任务
+     */
+    List<AsyncJob> reapExpiredLeases();
+}
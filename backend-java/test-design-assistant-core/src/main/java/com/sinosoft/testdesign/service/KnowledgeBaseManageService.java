@@ -6,6 +6,7 @@ import com.sinosoft.testdesign.dto.KnowledgePermissionRequestDTO;
 import com.sinosoft.testdesign.dto.KnowledgePermissionResponseDTO;
 import com.sinosoft.testdesign.dto.KnowledgeBaseSyncLogResponseDTO;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -137,6 +138,19 @@ public interface KnowledgeBaseManageService {
      */
     String uploadDocument(Long kbId, String fileName, byte[] fileContent, Long creatorId);
     
+    /**
+     * 上传文档到知识库（流式）
+     * 内容先写入临时文件并计算SHA-256，知识库中已有相同内容的文档时直接返回该文档编码，
+     * 否则以流的方式转发给AI服务，不在内存中保留整个文件
+     * 
+     * @param kbId 知识库ID
+     * @param fileName 文件名
+     * @param content 文件内容
+     * @param creatorId 创建人ID
+     * @return 文档编码
+     */
+    String uploadDocument(Long kbId, String fileName, InputStream content, Long creatorId);
+    
     /**
      * 生成知识库编码
      * 
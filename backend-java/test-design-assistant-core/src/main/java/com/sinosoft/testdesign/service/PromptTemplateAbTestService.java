@@ -75,4 +75,9 @@ public interface PromptTemplateAbTestService {
      * 检查是否需要自动选择版本
      */
     boolean shouldAutoSelect(Long abTestId);
+    
+    /**
+     * 评估运行中的A/B测试：bandit模式下调整流量分配，启用自动选择且结果已显著时提升胜出版本
+     */
+    void evaluateAbTest(Long abTestId);
 }
@@ -0,0 +1,31 @@
+package com.sinosoft.testdesign.service;
+
+import com.sinosoft.testdesign.dto.ReportExportJobDTO;
+
+/**
+ * 报告导出任务服务接口
+ * 报告文件在后台生成，调用方通过任务ID轮询进度和结果
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+public interface ReportExportJobService {
+
+    /**
+     * 提交导出任务
+     * 同一报告同一格式已有未结束的任务时直接返回该任务
+     *
+     * @param reportCode 报告编码
+     * @param format 文件格式（WORD/PDF/EXCEL）
+     * @return 导出任务
+     */
+    ReportExportJobDTO submit(String reportCode, String format);
+
+    /**
+     * 查询导出任务
+     *
+     * @param jobId 任务ID
+     * @return 导出任务
+     */
+    ReportExportJobDTO getJob(String jobId);
+}
@@ -1,6 +1,12 @@
 package com.sinosoft.testdesign.service;
 
+import com.sinosoft.testdesign.dto.CaseQualityBatchResponseDTO;
 import com.sinosoft.testdesign.entity.TestCase;
+import com.sinosoft.testdesign.entity.TestCaseQuality;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.function.IntConsumer;
 
 /**
  * 用例质量评估服务接口
@@ -31,6 +37,33 @@ public interface TestCaseQualityService {
      */
     StandardizationScore checkStandardization(TestCase testCase);
     
+    /**
+     * 批量评估用例质量并保存评分，评分后版本未变化的用例跳过
+     * @param requirementId 需求ID，为空时评估全部用例
+     * @return 批量评估结果
+     */
+    CaseQualityBatchResponseDTO assessBatch(Long requirementId);
+    
+    /**
+     * 批量评估用例质量并回报进度，每批评分单独提交
+     * @param requirementId 需求ID，为空时评估全部用例
+     * @param progressListener 进度回调（0-100），每批结束后调用
+     * @return 批量评估结果
+     */
+    CaseQualityBatchResponseDTO assessBatch(Long requirementId, IntConsumer progressListener);
+    
+    /**
+     * 分页查询已保存的用例质量评分
+     * @param requirementId 需求ID（可选）
+     * @param qualityLevel 质量等级（可选）
+     * @param minScore 最低总分（可选）
+     * @param maxScore 最高总分（可选）
+     * @param pageable 分页和排序参数
+     * @return 质量评分分页
+     */
+    Page<TestCaseQuality> getQualityScores(Long requirementId, String qualityLevel,
+                                           Double minScore, Double maxScore, Pageable pageable);
+    
     /**
      * 质量评分结果
      */
@@ -4,6 +4,8 @@ import com.sinosoft.testdesign.entity.TestReport;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.function.IntConsumer;
+
 /**
  * 测试报告生成服务接口
  * 
@@ -83,6 +85,22 @@ public interface TestReportService {
      */
     String exportReport(String reportCode, String format);
     
+    /**
+     * 导出报告文件并回报进度
+     * @param reportCode 报告编码
+     * @param format 文件格式（WORD/PDF/EXCEL）
+     * @param progressListener 进度回调（0-100）
+     * @return 文件URL
+     */
+    String exportReport(String reportCode, String format, IntConsumer progressListener);
+    
+    /**
+     * 清理导出文件缓存中超过保留时间未生成或复用的文件
+     * @param retentionHours 保留时间（小时）
+     * @return 删除的文件数
+     */
+    int purgeExpiredExportFiles(long retentionHours);
+    
     /**
      * 汇总测试执行结果
      * @param requirementId 需求ID（可选）
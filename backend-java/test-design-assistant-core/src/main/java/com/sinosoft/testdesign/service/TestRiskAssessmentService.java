@@ -1,5 +1,6 @@
 package com.sinosoft.testdesign.service;
 
+import com.sinosoft.testdesign.dto.ReleaseRiskAssessmentResponseDTO;
 import com.sinosoft.testdesign.entity.TestRiskAssessment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -36,6 +37,15 @@ public interface TestRiskAssessmentService {
      */
     TestRiskAssessment assessExecutionTaskRisk(Long executionTaskId);
     
+    /**
+     * 评估版本上线风险：批量评估版本包含的需求和执行任务，并给出上线结论
+     * 
+     * @param requirementIds 需求ID列表
+     * @param executionTaskIds 执行任务ID列表
+     * @return 版本上线风险评估结果
+     */
+    ReleaseRiskAssessmentResponseDTO assessReleaseRisk(List<Long> requirementIds, List<Long> executionTaskIds);
+    
     /**
      * 评估风险等级
      * @param riskScore 风险评分（0-100）
@@ -34,5 +34,12 @@ public interface UIScriptGenerationService {
      * @return 页面元素信息列表
      */
     List<PageElementInfo> parsePageCode(String pageCodeUrl);
+    
+    /**
+     * 执行脚本生成任务（由后台任务队列调用）
+     * @param taskId 任务ID
+     * @param request 脚本生成请求
+     */
+    void executeScriptGeneration(Long taskId, UIScriptGenerationRequest request);
 }
 
@@ -38,4 +38,9 @@ public interface WorkflowAbTestService {
     String selectVersion(Long abTestId, String requestId);
 
     WorkflowAbTestExecution recordExecution(WorkflowAbTestExecution execution);
+
+    /**
+     * 评估运行中的 A/B 测试：bandit 模式下调整流量分配，启用自动选择且结果已显著时回滚工作流到胜出版本
+     */
+    void evaluateAbTest(Long abTestId);
 }
@@ -16,16 +16,53 @@ import java.util.Optional;
  */
 public interface WorkflowExecutionService {
     
+    /**
+     * 执行工作流，输入未变化的节点复用缓存结果
+     */
+    default WorkflowExecution executeWorkflow(
+            Long workflowId,
+            Map<String, Object> inputData,
+            Long creatorId,
+            String creatorName) {
+        return executeWorkflow(workflowId, inputData, creatorId, creatorName, true);
+    }
+    
     /**
      * 执行工作流
+     *
+     * @param reuseMemo 是否复用节点结果缓存；为false时所有节点重新执行（强制刷新），输出仍会更新缓存
      */
     WorkflowExecution executeWorkflow(
             Long workflowId,
             Map<String, Object> inputData,
             Long creatorId,
-            String creatorName
+            String creatorName,
+            boolean reuseMemo
     );
     
+    /**
+     * 从失败节点恢复执行
+     * 创建新的执行记录，原执行中已成功的节点不再执行
+     *
+     * @param executionId 失败或已取消的执行ID
+     * @return 新的执行记录
+     */
+    WorkflowExecution resumeExecution(String executionId, Long creatorId, String creatorName);
+    
+    /**
+     * 执行排队中的工作流（由后台任务队列调用），阻塞到执行结束
+     * 执行实例中断后任务被重新领取时，本执行中已成功的节点作为检查点不再执行
+     *
+     * @param reuseMemo 是否复用节点结果缓存
+     * @param resumedFrom 恢复的原执行ID，原执行中已成功的节点不再执行；不是恢复执行时为null
+     */
+    void runExecution(String executionId, boolean reuseMemo, String resumedFrom);
+    
+    /**
+     * 将未结束的执行记为失败（后台任务达到最大重试次数后调用），之后可以从失败节点恢复
+     */
+    void failExecution(String executionId, String errorMessage);
+    
     /**
      * 根据执行ID查询执行记录
      */
@@ -0,0 +1,76 @@
+package com.sinosoft.testdesign.service.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A/B测试分流粘性
+ * 固定分流时一致性哈希本身保证同一分流键始终落在同一版本；bandit模式调整流量比例后，
+ * 桶号落在新旧阈值之间的分流键会被分到另一版本，同一用户前后使用不同版本，两组样本互相污染。
+ * 这里记录分流键首次分到的版本：先查本地缓存，再查该键在测试中的首条执行记录，都没有时才按当前流量比例分桶，
+ * 流量调整只影响新进入测试的分流键。尚未写入执行记录的分配只保存在本节点，跨节点以执行记录为准。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Component
+public class AbTestAssignmentCache {
+
+    /** 缓存的分配记录上限，超出后淘汰最久未访问的记录（再次访问时从执行记录恢复） */
+    private static final int MAX_ASSIGNMENTS = 100_000;
+
+    private final Map<String, String> assignments = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ASSIGNMENTS;
+        }
+    };
+
+    /**
+     * 选择分流键的版本
+     *
+     * @param scope 统计范围（提示词模板/工作流）
+     * @param abTestId A/B测试ID
+     * @param key 分流键（用户ID或请求ID）
+     * @param recordedVariant 查询该分流键在测试中首条执行记录的版本
+     * @param bucketVariant 按当前流量比例分桶
+     * @return "A"或"B"
+     */
+    public String select(String scope, long abTestId, String key,
+                         Supplier<Optional<String>> recordedVariant, Supplier<String> bucketVariant) {
+        if (key == null || key.isEmpty()) {
+            return bucketVariant.get();
+        }
+        String cacheKey = cacheKey(scope, abTestId, key);
+        String variant;
+        synchronized (assignments) {
+            variant = assignments.get(cacheKey);
+        }
+        if (variant != null) {
+            return variant;
+        }
+        variant = recordedVariant.get().orElseGet(bucketVariant);
+        synchronized (assignments) {
+            String existing = assignments.putIfAbsent(cacheKey, variant);
+            return existing != null ? existing : variant;
+        }
+    }
+
+    /**
+     * 清除A/B测试的分配记录（测试删除后）
+     */
+    public void evict(String scope, long abTestId) {
+        String prefix = cacheKey(scope, abTestId, "");
+        synchronized (assignments) {
+            assignments.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private static String cacheKey(String scope, long abTestId, String key) {
+        return scope + ':' + abTestId + ':' + key;
+    }
+}
@@ -0,0 +1,169 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.AbTestEvaluationConfig;
+import com.sinosoft.testdesign.util.AbTestBucketing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * A/B测试序贯评估
+ * 基于AbTestStatsRegistry维护的充分统计量（计数、和、平方和）判定胜出版本。
+ * 后台每分钟评估一次运行中的测试，同一测试会被反复查看，固定显著性水平的检验反复查看会使假阳性率远超名义水平，
+ * 因此胜出判定使用混合序贯概率比检验（mSPRT，正态混合先验）：对两版本差值θ的估计值计算
+ * Λ = sqrt(V/(V+τ²))·exp(τ²θ̂²/(2V(V+τ²)))，Λ ≥ 1/α时判定胜出。该检验在任意时刻停止都保证
+ * 假阳性率不超过α，可随时查看（always-valid），评估周期和查看次数不影响结论。
+ * 成功率以Beta(1,1)平滑后的比例计算方差；响应时间和用户评分使用各版本样本方差。
+ * P(B优于A)（正态近似）仅用于展示和bandit模式下的流量分配（Thompson采样的期望分流比例）。
+ *
+ * @author sinosoft
+ * @date 2026-02-06
+ */
+@Component
+@RequiredArgsConstructor
+public class AbTestEvaluator {
+
+    public static final String CRITERIA_SUCCESS_RATE = "success_rate";
+    public static final String CRITERIA_RESPONSE_TIME = "response_time";
+    public static final String CRITERIA_USER_RATING = "user_rating";
+
+    private final AbTestEvaluationConfig evaluationConfig;
+
+    /**
+     * 评估两个版本
+     *
+     * @param criteria 判定指标（success_rate/response_time/user_rating）
+     * @param statsA 版本A统计
+     * @param statsB 版本B统计
+     * @return 评估结果
+     */
+    public Evaluation evaluate(String criteria, AbTestStatsRegistry.VariantStats statsA,
+                               AbTestStatsRegistry.VariantStats statsB) {
+        if (CRITERIA_RESPONSE_TIME.equals(criteria)) {
+            return compareMeans(statsA.responseTimeCount(), statsA.avgResponseTime(), statsA.responseTimeVariance(),
+                    statsB.responseTimeCount(), statsB.avgResponseTime(), statsB.responseTimeVariance(), true);
+        }
+        if (CRITERIA_USER_RATING.equals(criteria)) {
+            return compareMeans(statsA.ratingCount(), statsA.avgRating(), statsA.ratingVariance(),
+                    statsB.ratingCount(), statsB.avgRating(), statsB.ratingVariance(), false);
+        }
+        return compareSuccessRates(statsA, statsB);
+    }
+
+    /**
+     * bandit模式下版本A应分配的流量百分比：按A为最优版本的概率分配，并为每个版本保留最小流量
+     *
+     * @param evaluation 评估结果
+     * @param totalSamples 两个版本合计样本数
+     * @return 版本A流量百分比，样本不足以调整流量时为null
+     */
+    public Integer banditTrafficSplitA(Evaluation evaluation, long totalSamples) {
+        if (totalSamples < evaluationConfig.getBanditWarmupSamples()) {
+            return null;
+        }
+        int minPercent = Math.max(0, Math.min(50, evaluationConfig.getMinTrafficPercent()));
+        int splitA = (int) Math.round((1.0 - evaluation.probabilityBBetter()) * 100);
+        return Math.max(minPercent, Math.min(100 - minPercent, splitA));
+    }
+
+    /**
+     * 成功率：θ = pB - pA，比例以Beta(1,1)后验均值平滑，避免全成功/全失败时方差为0
+     */
+    private Evaluation compareSuccessRates(AbTestStatsRegistry.VariantStats statsA,
+                                           AbTestStatsRegistry.VariantStats statsB) {
+        double alphaA = 1.0 + statsA.successCount();
+        double betaA = 1.0 + statsA.executions() - statsA.successCount();
+        double alphaB = 1.0 + statsB.successCount();
+        double betaB = 1.0 + statsB.executions() - statsB.successCount();
+        double meanA = alphaA / (alphaA + betaA);
+        double meanB = alphaB / (alphaB + betaB);
+        double probabilityBBetter = normalCdf((meanB - meanA)
+                / Math.sqrt(betaVariance(alphaA, betaA) + betaVariance(alphaB, betaB)));
+
+        long countA = statsA.executions();
+        long countB = statsB.executions();
+        double unitVarianceA = meanA * (1 - meanA);
+        double unitVarianceB = meanB * (1 - meanB);
+        String leader = probabilityBBetter >= 0.5 ? AbTestBucketing.VARIANT_B : AbTestBucketing.VARIANT_A;
+        if (countA == 0 || countB == 0) {
+            return new Evaluation(leader, null, probabilityBBetter, null);
+        }
+        return sequentialTest(leader, probabilityBBetter, meanB - meanA, countA, unitVarianceA, countB, unitVarianceB);
+    }
+
+    /**
+     * 均值比较：θ = 均值B - 均值A（值越小越好时取反），返回P(B优于A)及always-valid p值
+     *
+     * @param lowerIsBetter 值越小越好（如响应时间）
+     */
+    private Evaluation compareMeans(long countA, Double meanA, double varianceA,
+                                    long countB, Double meanB, double varianceB, boolean lowerIsBetter) {
+        if (meanA == null || meanB == null || countA < 2 || countB < 2) {
+            // 样本不足，保持均分
+            String leader = meanA == null && meanB != null ? AbTestBucketing.VARIANT_B : AbTestBucketing.VARIANT_A;
+            return new Evaluation(leader, null, 0.5, null);
+        }
+        double standardError = Math.sqrt(varianceA / countA + varianceB / countB);
+        double difference = lowerIsBetter ? meanA - meanB : meanB - meanA;
+        double z = standardError > 0 ? difference / standardError : Math.signum(difference) * 10;
+        double probabilityBBetter = normalCdf(z);
+        String leader = probabilityBBetter > 0.5 ? AbTestBucketing.VARIANT_B : AbTestBucketing.VARIANT_A;
+        return sequentialTest(leader, probabilityBBetter, difference, countA, varianceA, countB, varianceB);
+    }
+
+    /**
+     * 混合序贯概率比检验
+     * θ̂的方差V = σA²/nA + σB²/nB，混合先验方差τ² = (δ·σ̄)²，其中δ为标准化效应量，σ̄² = (σA² + σB²)/2
+     *
+     * @param difference θ̂，正值表示B更优
+     */
+    private Evaluation sequentialTest(String leader, double probabilityBBetter, double difference,
+                                      long countA, double unitVarianceA, long countB, double unitVarianceB) {
+        double variance = unitVarianceA / countA + unitVarianceB / countB;
+        double mixtureVariance = Math.pow(evaluationConfig.getMixtureEffectSize(), 2)
+                * (unitVarianceA + unitVarianceB) / 2;
+        if (!(variance > 0) || !(mixtureVariance > 0)) {
+            return new Evaluation(leader, null, probabilityBBetter, null);
+        }
+        double logLikelihoodRatio = 0.5 * Math.log(variance / (variance + mixtureVariance))
+                + mixtureVariance * difference * difference / (2 * variance * (variance + mixtureVariance));
+        double pValue = Math.min(1.0, Math.exp(-logLikelihoodRatio));
+
+        String winner = null;
+        int minSamples = evaluationConfig.getMinSamplesPerVariant();
+        if (countA >= minSamples && countB >= minSamples && difference != 0
+                && pValue <= evaluationConfig.getSignificanceLevel()) {
+            winner = difference > 0 ? AbTestBucketing.VARIANT_B : AbTestBucketing.VARIANT_A;
+        }
+        return new Evaluation(leader, winner, probabilityBBetter, pValue);
+    }
+
+    private static double betaVariance(double alpha, double beta) {
+        double sum = alpha + beta;
+        return alpha * beta / (sum * sum * (sum + 1));
+    }
+
+    /**
+     * 标准正态分布函数（Abramowitz-Stegun 26.2.17，误差小于7.5e-8）
+     */
+    static double normalCdf(double x) {
+        if (Double.isNaN(x)) {
+            return 0.5;
+        }
+        double t = 1.0 / (1.0 + 0.2316419 * Math.abs(x));
+        double density = Math.exp(-x * x / 2) / Math.sqrt(2 * Math.PI);
+        double tail = density * t * (0.319381530 + t * (-0.356563782 + t * (1.781477937
+                + t * (-1.821255978 + t * 1.330274429))));
+        return x >= 0 ? 1 - tail : tail;
+    }
+
+    /**
+     * 评估结果
+     *
+     * @param leader 当前领先的版本
+     * @param winner 已达到显著性的胜出版本，未达到时为null
+     * @param probabilityBBetter 版本B优于版本A的概率（正态近似，用于展示和bandit分流）
+     * @param pValue mSPRT的always-valid p值（1/Λ），样本不足时为null
+     */
+    public record Evaluation(String leader, String winner, double probabilityBBetter, Double pValue) {
+    }
+}
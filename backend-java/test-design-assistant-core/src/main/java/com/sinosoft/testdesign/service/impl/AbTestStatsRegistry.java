@@ -0,0 +1,295 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.repository.PromptTemplateAbTestExecutionRepository;
+import com.sinosoft.testdesign.repository.WorkflowAbTestExecutionRepository;
+import com.sinosoft.testdesign.util.AbTestBucketing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A/B测试统计计数器
+ * 每个A/B测试首次查询统计时用一次分组聚合查询加载基线，此后本节点记录的执行结果累加到LongAdder，
+ * 统计直接由"基线 + 增量"计算，不再查库。定时刷新时重新加载基线，使其他节点写入的执行记录
+ * 最迟在一个刷新周期后反映到统计中。
+ * <p>
+ * 基线和增量作为一个快照整体发布：加载新基线期间，执行结果同时累加到当前快照和待发布的新增量，
+ * 基线加载完成后用新基线和新增量替换快照，读取方始终看到完整的一组"基线 + 增量"。
+ * 执行结果在事务提交后才计入增量，回滚的执行记录不会被统计。基线查询执行期间提交的少量记录可能同时计入基线和增量，
+ * 下一次刷新时纠正。
+ *
+ * @author sinosoft
+ * @date 2026-02-05
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AbTestStatsRegistry {
+
+    public static final String SCOPE_PROMPT = "prompt";
+    public static final String SCOPE_WORKFLOW = "workflow";
+
+    /** 超过该时长未被查询的测试不再刷新，下次查询时重新加载 */
+    private static final long IDLE_EVICT_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final int EXECUTIONS = 0;
+    private static final int SUCCESS = 1;
+    private static final int RESPONSE_TIME_SUM = 2;
+    private static final int RESPONSE_TIME_SQ_SUM = 3;
+    private static final int RESPONSE_TIME_COUNT = 4;
+    private static final int RATING_SUM = 5;
+    private static final int RATING_SQ_SUM = 6;
+    private static final int RATING_COUNT = 7;
+    private static final int FIELDS = 8;
+
+    private final PromptTemplateAbTestExecutionRepository promptExecutionRepository;
+    private final WorkflowAbTestExecutionRepository workflowExecutionRepository;
+
+    private final Map<String, TestCounters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次执行结果，在当前事务提交后计入。该测试的统计尚未加载时忽略（加载基线时会包含这条记录）
+     *
+     * @param scope 测试范围（prompt/workflow）
+     * @param abTestId A/B测试ID
+     * @param versionLabel 版本标签（A/B）
+     * @param status 执行状态
+     * @param responseTime 响应时间（毫秒）
+     * @param userRating 用户评分
+     */
+    public void record(String scope, Long abTestId, String versionLabel, String status,
+                       Integer responseTime, Integer userRating) {
+        afterCommit(() -> {
+            TestCounters testCounters = counters.get(key(scope, abTestId));
+            if (testCounters == null) {
+                return;
+            }
+            // 先读待发布增量再读快照：两次读取之间快照被替换时，新快照的增量就是读到的待发布增量，只累加一次
+            LongAdder[][] pending = testCounters.pending;
+            Snapshot snapshot = testCounters.snapshot;
+            if (snapshot != null) {
+                add(snapshot.delta[variantIndex(versionLabel)], status, responseTime, userRating);
+            }
+            if (pending != null && (snapshot == null || pending != snapshot.delta)) {
+                add(pending[variantIndex(versionLabel)], status, responseTime, userRating);
+            }
+        });
+    }
+
+    private static void add(LongAdder[] delta, String status, Integer responseTime, Integer userRating) {
+        delta[EXECUTIONS].increment();
+        if ("success".equals(status)) {
+            delta[SUCCESS].increment();
+            if (responseTime != null) {
+                delta[RESPONSE_TIME_SUM].add(responseTime);
+                delta[RESPONSE_TIME_SQ_SUM].add((long) responseTime * responseTime);
+                delta[RESPONSE_TIME_COUNT].increment();
+            }
+        }
+        if (userRating != null) {
+            delta[RATING_SUM].add(userRating);
+            delta[RATING_SQ_SUM].add((long) userRating * userRating);
+            delta[RATING_COUNT].increment();
+        }
+    }
+
+    /**
+     * 获取某个版本的统计
+     *
+     * @param scope 测试范围（prompt/workflow）
+     * @param abTestId A/B测试ID
+     * @param versionLabel 版本标签（A/B）
+     * @return 统计快照
+     */
+    public VariantStats getStats(String scope, Long abTestId, String versionLabel) {
+        String key = key(scope, abTestId);
+        TestCounters testCounters = counters.get(key);
+        if (testCounters == null) {
+            // 基线查询不放在computeIfAbsent中执行，避免查库期间阻塞同一分段上其他测试的记录和查询
+            TestCounters created = new TestCounters();
+            testCounters = counters.putIfAbsent(key, created);
+            if (testCounters == null) {
+                testCounters = created;
+                try {
+                    testCounters.publish(loadBaseline(scope, abTestId));
+                } catch (RuntimeException e) {
+                    counters.remove(key, created);
+                    throw e;
+                }
+            }
+        }
+        testCounters.lastAccess = System.currentTimeMillis();
+        int variant = variantIndex(versionLabel);
+        Snapshot snapshot = testCounters.snapshot;
+        // 其他线程正在首次加载基线时直接查库，不等待
+        long[] base = snapshot != null ? snapshot.base[variant] : loadBaseline(scope, abTestId)[variant];
+        long[] values = new long[FIELDS];
+        for (int i = 0; i < FIELDS; i++) {
+            values[i] = base[i] + (snapshot != null ? snapshot.delta[variant][i].sum() : 0L);
+        }
+        return new VariantStats(values[EXECUTIONS], values[SUCCESS], values[RESPONSE_TIME_SUM],
+                values[RESPONSE_TIME_SQ_SUM], values[RESPONSE_TIME_COUNT], values[RATING_SUM],
+                values[RATING_SQ_SUM], values[RATING_COUNT]);
+    }
+
+    /**
+     * 重新加载所有已缓存测试的基线，并清除长时间未查询的测试
+     */
+    public void refreshAll() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, TestCounters> entry : counters.entrySet()) {
+            TestCounters testCounters = entry.getValue();
+            if (now - testCounters.lastAccess > IDLE_EVICT_MILLIS) {
+                counters.remove(entry.getKey(), testCounters);
+                continue;
+            }
+            if (testCounters.snapshot == null) {
+                // 首次加载尚未完成
+                continue;
+            }
+            String[] parts = entry.getKey().split(":", 2);
+            // 加载基线前开始收集新增量，加载完成后与新基线一起发布；加载失败时保留原快照
+            testCounters.pending = newDelta();
+            try {
+                testCounters.publish(loadBaseline(parts[0], Long.valueOf(parts[1])));
+            } catch (Exception e) {
+                testCounters.pending = null;
+                log.warn("刷新A/B测试统计失败，继续使用上次的统计: key={}, 错误={}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A/B测试删除后清除计数器
+     */
+    public void evict(String scope, Long abTestId) {
+        counters.remove(key(scope, abTestId));
+    }
+
+    private long[][] loadBaseline(String scope, Long abTestId) {
+        long[][] base = new long[2][FIELDS];
+        List<Object[]> rows = SCOPE_WORKFLOW.equals(scope)
+                ? workflowExecutionRepository.aggregateByVersionLabel(abTestId)
+                : promptExecutionRepository.aggregateByVersionLabel(abTestId);
+        for (Object[] row : rows) {
+            long[] target = base[variantIndex((String) row[0])];
+            for (int i = 1; i < row.length && i <= FIELDS; i++) {
+                target[i - 1] += row[i] instanceof Number n ? n.longValue() : 0L;
+            }
+        }
+        log.debug("加载A/B测试统计基线: scope={}, abTestId={}", scope, abTestId);
+        return base;
+    }
+
+    private static String key(String scope, Long abTestId) {
+        return scope + ":" + abTestId;
+    }
+
+    private static int variantIndex(String versionLabel) {
+        return AbTestBucketing.VARIANT_B.equals(versionLabel) ? 1 : 0;
+    }
+
+    private static LongAdder[][] newDelta() {
+        LongAdder[][] delta = new LongAdder[2][FIELDS];
+        for (LongAdder[] variant : delta) {
+            for (int i = 0; i < FIELDS; i++) {
+                variant[i] = new LongAdder();
+            }
+        }
+        return delta;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 一组基线和基线之后的增量，整体发布
+     */
+    private record Snapshot(long[][] base, LongAdder[][] delta) {
+    }
+
+    private static final class TestCounters {
+        /** 当前快照，首次加载基线完成前为null */
+        private volatile Snapshot snapshot;
+        /** 加载基线期间收集的新增量，未在加载时为null */
+        private volatile LongAdder[][] pending = newDelta();
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        /**
+         * 用新基线和加载期间收集的增量替换快照
+         */
+        private void publish(long[][] base) {
+            snapshot = new Snapshot(base, pending);
+            pending = null;
+        }
+    }
+
+    /**
+     * 单个版本的统计快照（充分统计量：计数、和、平方和）
+     */
+    public record VariantStats(long executions, long successCount, long responseTimeSum,
+                               long responseTimeSqSum, long responseTimeCount, long ratingSum,
+                               long ratingSqSum, long ratingCount) {
+
+        /**
+         * 成功率（0-1）
+         */
+        public double successRate() {
+            return executions > 0 ? (double) successCount / executions : 0.0;
+        }
+
+        /**
+         * 成功执行的平均响应时间（毫秒），无数据时为null
+         */
+        public Double avgResponseTime() {
+            return responseTimeCount > 0 ? (double) responseTimeSum / responseTimeCount : null;
+        }
+
+        /**
+         * 平均用户评分，无数据时为null
+         */
+        public Double avgRating() {
+            return ratingCount > 0 ? (double) ratingSum / ratingCount : null;
+        }
+
+        /**
+         * 响应时间样本方差，样本不足两条时为0
+         */
+        public double responseTimeVariance() {
+            return variance(responseTimeSum, responseTimeSqSum, responseTimeCount);
+        }
+
+        /**
+         * 用户评分样本方差，样本不足两条时为0
+         */
+        public double ratingVariance() {
+            return variance(ratingSum, ratingSqSum, ratingCount);
+        }
+
+        private static double variance(long sum, long sqSum, long count) {
+            if (count < 2) {
+                return 0.0;
+            }
+            double mean = (double) sum / count;
+            return Math.max(0.0, (sqSum - mean * sum) / (count - 1));
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.AgentContextConfig;
+import com.sinosoft.testdesign.dto.AgentContextDTO;
+import com.sinosoft.testdesign.dto.AgentMessageDTO;
+import com.sinosoft.testdesign.dto.AgentMessagePageDTO;
+import com.sinosoft.testdesign.entity.AgentMessage;
+import com.sinosoft.testdesign.entity.AgentSession;
+import com.sinosoft.testdesign.repository.AgentMessageRepository;
+import com.sinosoft.testdesign.repository.AgentSessionRepository;
+import com.sinosoft.testdesign.service.AgentConversationService;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agent会话对话服务实现
+ * 上下文窗口：最近消息按Token预算保留，超出预算时最早的消息压缩为一行摘要（角色+内容前若干字符）移入历史摘要，
+ * 历史摘要超出预算时丢弃最早的行，因此每轮对话的上下文大小和每个会话的内存占用都有上限。
+ * 窗口按消息ID增量更新（只读取上次之后的新消息），保存在会话context_data的context_window键下，
+ * 与Python Agent引擎写入的其他键共存；活跃会话的窗口同时缓存在本地（LRU），多实例时各自按ID追赶，结果一致。
+ * 追加消息时锁定会话行，在副本上推进窗口后写回，事务提交后才替换本地缓存，回滚不会污染缓存；
+ * 查询上下文只读，追赶的结果只更新本地缓存，不写会话。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Service
+public class AgentConversationServiceImpl implements AgentConversationService {
+
+    /** context_data中上下文窗口的键 */
+    static final String CONTEXT_WINDOW_KEY = "context_window";
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+
+    private final AgentSessionRepository sessionRepository;
+    private final AgentMessageRepository messageRepository;
+    private final AgentContextConfig config;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, ContextWindow> windows;
+
+    public AgentConversationServiceImpl(AgentSessionRepository sessionRepository,
+                                        AgentMessageRepository messageRepository,
+                                        AgentContextConfig config,
+                                        ObjectMapper objectMapper) {
+        this.sessionRepository = sessionRepository;
+        this.messageRepository = messageRepository;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ContextWindow> eldest) {
+                return size() > config.getMaxCachedSessions();
+            }
+        };
+    }
+
+    @Override
+    @Transactional
+    public AgentMessage appendMessage(Long sessionId, AgentMessage message) {
+        // 锁定会话行：多个实例同时追加消息时串行写context_data和累计Token，避免互相覆盖
+        AgentSession session = sessionRepository.findByIdForUpdate(sessionId)
+                .orElseThrow(() -> new BusinessException("会话不存在"));
+        if (!STATUS_ACTIVE.equals(session.getStatus())) {
+            throw new BusinessException("会话已结束，不能追加消息");
+        }
+        if (message.getRole() == null || message.getContent() == null) {
+            throw new BusinessException("消息角色和内容不能为空");
+        }
+        message.setId(null);
+        message.setSessionId(sessionId);
+        if (message.getMessageType() == null) {
+            message.setMessageType(message.getRole());
+        }
+        if (message.getTokensUsed() == null) {
+            message.setTokensUsed(0);
+        }
+        AgentMessage saved = messageRepository.save(message);
+
+        session.setTotalTokens((session.getTotalTokens() == null ? 0 : session.getTotalTokens()) + saved.getTokensUsed());
+        session.setLastActiveTime(LocalDateTime.now());
+        ContextWindow window = windowOf(session);
+        catchUp(sessionId, window);
+        writeWindow(session, window);
+        sessionRepository.save(session);
+        afterCommit(() -> cacheWindow(sessionId, window));
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AgentContextDTO getContext(Long sessionId) {
+        AgentSession session = findSession(sessionId);
+        ContextWindow window = windowOf(session);
+        if (catchUp(sessionId, window)) {
+            // 只纳入已提交的消息，可以直接更新本地缓存；context_data在下次追加消息时写回
+            cacheWindow(sessionId, window);
+        }
+        return toContext(sessionId, window);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AgentMessagePageDTO listMessages(Long sessionId, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, config.getMaxPageSize()));
+        // 多取一条判断是否还有下一页
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<AgentMessageDTO> messages = cursor == null
+                ? messageRepository.findLatest(sessionId, page)
+                : messageRepository.findBefore(sessionId, cursor, page);
+        boolean hasMore = messages.size() > pageSize;
+        if (hasMore) {
+            messages = new ArrayList<>(messages.subList(0, pageSize));
+        }
+        Long nextCursor = hasMore ? messages.get(messages.size() - 1).getId() : null;
+        return new AgentMessagePageDTO(messages, nextCursor, hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AgentMessage getMessage(Long sessionId, Long messageId) {
+        return messageRepository.findById(messageId)
+                .filter(message -> sessionId.equals(message.getSessionId()))
+                .orElseThrow(() -> new BusinessException("消息不存在"));
+    }
+
+    private AgentSession findSession(Long sessionId) {
+        return sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new BusinessException("会话不存在"));
+    }
+
+    /**
+     * 获取会话窗口的副本：本地缓存和context_data中取较新的一个
+     * 窗口只由消息序列决定，较新的窗口等于较旧的窗口追赶之后的结果
+     */
+    private ContextWindow windowOf(AgentSession session) {
+        ContextWindow stored = readWindow(session);
+        synchronized (windows) {
+            ContextWindow cached = windows.get(session.getId());
+            if (cached != null && cached.getLastMessageId() >= stored.getLastMessageId()) {
+                return cached.copy();
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * 替换本地缓存的窗口，已缓存更新的窗口时保留
+     * 缓存中的窗口不再修改，读取时复制
+     */
+    private void cacheWindow(Long sessionId, ContextWindow window) {
+        synchronized (windows) {
+            ContextWindow cached = windows.get(sessionId);
+            if (cached == null || cached.getLastMessageId() < window.getLastMessageId()) {
+                windows.put(sessionId, window);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 把上次之后的新消息纳入窗口
+     *
+     * @return 是否有新消息
+     */
+    private boolean catchUp(Long sessionId, ContextWindow window) {
+        int batchSize = Math.max(1, config.getCatchUpBatchSize());
+        boolean changed = false;
+        List<AgentMessageDTO> batch;
+        do {
+            batch = messageRepository.findAfter(sessionId, window.getLastMessageId(), PageRequest.of(0, batchSize));
+            for (AgentMessageDTO message : batch) {
+                fold(window, message);
+                changed = true;
+            }
+        } while (batch.size() == batchSize);
+        return changed;
+    }
+
+    private void fold(ContextWindow window, AgentMessageDTO message) {
+        int budget = config.getWindowTokenBudget();
+        String content = message.getContent() == null ? "" : message.getContent();
+        // 单条消息超过整个窗口预算时截断
+        if (estimateTokens(content) > budget) {
+            content = content.substring(0, Math.max(0, budget * 2 - 1)) + "…";
+        }
+        WindowEntry entry = new WindowEntry();
+        entry.setId(message.getId());
+        entry.setRole(message.getRole());
+        entry.setContent(content);
+        entry.setTokens(estimateTokens(content));
+        window.getRecent().addLast(entry);
+        window.setRecentTokens(window.getRecentTokens() + entry.getTokens());
+        window.setLastMessageId(message.getId());
+
+        while (window.getRecentTokens() > budget && window.getRecent().size() > 1) {
+            WindowEntry evicted = window.getRecent().removeFirst();
+            window.setRecentTokens(window.getRecentTokens() - evicted.getTokens());
+            String digest = evicted.getRole() + ": " + abbreviate(evicted.getContent());
+            window.getDigests().addLast(digest);
+            window.setSummaryTokens(window.getSummaryTokens() + estimateTokens(digest));
+            window.setSummarizedMessages(window.getSummarizedMessages() + 1);
+        }
+        while (window.getSummaryTokens() > config.getSummaryTokenBudget() && !window.getDigests().isEmpty()) {
+            String dropped = window.getDigests().removeFirst();
+            window.setSummaryTokens(window.getSummaryTokens() - estimateTokens(dropped));
+            window.setDroppedDigests(window.getDroppedDigests() + 1);
+        }
+    }
+
+    private AgentContextDTO toContext(Long sessionId, ContextWindow window) {
+        AgentContextDTO context = new AgentContextDTO();
+        context.setSessionId(sessionId);
+        context.setLastMessageId(window.getLastMessageId() == 0 ? null : window.getLastMessageId());
+        context.setSummarizedMessages(window.getSummarizedMessages());
+
+        String summary = null;
+        if (window.getSummarizedMessages() > 0) {
+            StringBuilder builder = new StringBuilder();
+            if (window.getDroppedDigests() > 0) {
+                builder.append("（更早的").append(window.getDroppedDigests()).append("条消息已省略）");
+            }
+            for (String digest : window.getDigests()) {
+                if (builder.length() > 0) {
+                    builder.append('\n');
+                }
+                builder.append(digest);
+            }
+            summary = builder.toString();
+        }
+        context.setSummary(summary);
+
+        List<Map<String, String>> messages = new ArrayList<>(window.getRecent().size());
+        for (WindowEntry entry : window.getRecent()) {
+            messages.add(Map.of("role", entry.getRole(), "content", entry.getContent()));
+        }
+        context.setMessages(messages);
+        context.setEstimatedTokens(window.getRecentTokens() + (summary == null ? 0 : estimateTokens(summary)));
+        return context;
+    }
+
+    private ContextWindow readWindow(AgentSession session) {
+        if (session.getContextData() == null || session.getContextData().isBlank()) {
+            return new ContextWindow();
+        }
+        try {
+            Map<String, Object> contextData = objectMapper.readValue(session.getContextData(),
+                    new TypeReference<Map<String, Object>>() {});
+            Object stored = contextData.get(CONTEXT_WINDOW_KEY);
+            return stored == null ? new ContextWindow() : objectMapper.convertValue(stored, ContextWindow.class);
+        } catch (Exception e) {
+            // 窗口损坏时从头重建
+            log.warn("会话上下文窗口无法解析，重新构建: {}, 错误: {}", session.getId(), e.getMessage());
+            return new ContextWindow();
+        }
+    }
+
+    /**
+     * 把窗口写入context_data，保留其他键
+     */
+    private void writeWindow(AgentSession session, ContextWindow window) {
+        Map<String, Object> contextData = new LinkedHashMap<>();
+        if (session.getContextData() != null && !session.getContextData().isBlank()) {
+            try {
+                contextData = objectMapper.readValue(session.getContextData(), new TypeReference<Map<String, Object>>() {});
+            } catch (Exception e) {
+                log.warn("会话上下文数据无法解析，仅保存上下文窗口: {}, 错误: {}", session.getId(), e.getMessage());
+            }
+        }
+        contextData.put(CONTEXT_WINDOW_KEY, window);
+        try {
+            session.setContextData(objectMapper.writeValueAsString(contextData));
+        } catch (Exception e) {
+            log.warn("保存会话上下文窗口失败: {}, 错误: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private String abbreviate(String content) {
+        String text = content.replaceAll("\\s+", " ").trim();
+        int limit = config.getDigestChars();
+        return text.length() <= limit ? text : text.substring(0, limit) + "…";
+    }
+
+    /**
+     * 估算Token数（约2个字符一个Token，与AI响应缓存的估算一致）
+     */
+    static int estimateTokens(String text) {
+        return text == null || text.isEmpty() ? 0 : (text.length() + 1) / 2;
+    }
+
+    /**
+     * 会话上下文窗口
+     */
+    @Data
+    static class ContextWindow {
+        /** 已纳入窗口的最后一条消息ID */
+        private long lastMessageId;
+        /** 最近消息（从旧到新） */
+        private Deque<WindowEntry> recent = new ArrayDeque<>();
+        private int recentTokens;
+        /** 历史摘要行（从旧到新） */
+        private Deque<String> digests = new ArrayDeque<>();
+        private int summaryTokens;
+        /** 移出最近消息的条数 */
+        private long summarizedMessages;
+        /** 因摘要超出预算被丢弃的摘要行数 */
+        private long droppedDigests;
+
+        ContextWindow copy() {
+            ContextWindow copy = new ContextWindow();
+            copy.setLastMessageId(lastMessageId);
+            copy.setRecent(new ArrayDeque<>(recent));
+            copy.setRecentTokens(recentTokens);
+            copy.setDigests(new ArrayDeque<>(digests));
+            copy.setSummaryTokens(summaryTokens);
+            copy.setSummarizedMessages(summarizedMessages);
+            copy.setDroppedDigests(droppedDigests);
+            return copy;
+        }
+    }
+
+    @Data
+    static class WindowEntry {
+        private Long id;
+        private String role;
+        private String content;
+        private int tokens;
+    }
+}
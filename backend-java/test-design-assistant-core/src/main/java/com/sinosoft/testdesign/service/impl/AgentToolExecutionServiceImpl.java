@@ -0,0 +1,465 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.AgentToolExecutionConfig;
+import com.sinosoft.testdesign.dto.AgentToolCallRequestDTO;
+import com.sinosoft.testdesign.entity.AgentSession;
+import com.sinosoft.testdesign.entity.AgentTool;
+import com.sinosoft.testdesign.entity.AgentToolCall;
+import com.sinosoft.testdesign.entity.AgentToolRelation;
+import com.sinosoft.testdesign.repository.AgentSessionRepository;
+import com.sinosoft.testdesign.repository.AgentToolCallRepository;
+import com.sinosoft.testdesign.repository.AgentToolRelationRepository;
+import com.sinosoft.testdesign.repository.AgentToolRepository;
+import com.sinosoft.testdesign.service.AgentToolExecutionService;
+import com.sinosoft.testdesign.service.AgentToolHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Agent工具执行服务实现
+ * 一轮对话的工具调用全部提交到线程池后再逐个等待，总耗时取决于最慢的调用而不是各调用之和。
+ * 每个工具有独立的并发名额（信号量）、等待队列和超时时间，调用取得名额后才提交到线程池，线程池线程不会阻塞等待名额，
+ * 超时的调用记为TIMEOUT；
+ * 幂等工具按（工具编码, 规范化参数JSON）缓存结果（保存JSON，每次读取得到新的副本），参数相同的进行中调用（包括其他会话同时发起的）
+ * 只执行一次，各调用方按自己的超时等待，全部调用方都放弃后才中断执行。
+ * 调用记录在全部调用结束后一次保存。
+ * 目前Agent循环在Python引擎中执行，每轮只发起一个工具调用且在引擎内执行；本服务通过会话的tool-calls接口对外提供，
+ * 供一轮发起多个调用的引擎委托执行，Java侧已实现的工具只有get_requirement_details。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Service
+public class AgentToolExecutionServiceImpl implements AgentToolExecutionService {
+
+    static final String STATUS_SUCCESS = "SUCCESS";
+    static final String STATUS_FAILED = "FAILED";
+    static final String STATUS_TIMEOUT = "TIMEOUT";
+
+    private static final String TOO_MANY_CALLS = "工具执行任务过多，请稍后重试";
+
+    private final AgentSessionRepository sessionRepository;
+    private final AgentToolRepository toolRepository;
+    private final AgentToolRelationRepository relationRepository;
+    private final AgentToolCallRepository toolCallRepository;
+    private final AgentToolExecutionConfig config;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter canonicalWriter;
+    private final Map<String, AgentToolHandler> handlers;
+    private final ThreadPoolExecutor executor;
+
+    /** 各工具的并发名额，按工具编码；修改并发上限后调整名额数，执行中的调用仍计入上限 */
+    private final Map<String, ToolPermits> permits = new ConcurrentHashMap<>();
+
+    /** 各工具等待队列中的调用总数，不超过队列容量 */
+    private final AtomicInteger waitingCalls = new AtomicInteger();
+
+    private final Map<String, CachedResult> resultCache;
+
+    /** 进行中的幂等工具调用，键与结果缓存相同，执行结束后移除 */
+    private final Map<String, SharedCall> inFlight = new ConcurrentHashMap<>();
+
+    public AgentToolExecutionServiceImpl(AgentSessionRepository sessionRepository,
+                                         AgentToolRepository toolRepository,
+                                         AgentToolRelationRepository relationRepository,
+                                         AgentToolCallRepository toolCallRepository,
+                                         AgentToolExecutionConfig config,
+                                         ObjectMapper objectMapper,
+                                         List<AgentToolHandler> handlers) {
+        this.sessionRepository = sessionRepository;
+        this.toolRepository = toolRepository;
+        this.relationRepository = relationRepository;
+        this.toolCallRepository = toolCallRepository;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.handlers = handlers.stream()
+                .collect(Collectors.toMap(AgentToolHandler::toolCode, Function.identity(), (a, b) -> a));
+        this.resultCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > config.getMaxCachedResults();
+            }
+        };
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getPoolSize(), config.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "agent-tool-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public List<AgentToolCall> executeToolCalls(Long sessionId, Long messageId, List<AgentToolCallRequestDTO> calls) {
+        AgentSession session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new BusinessException("会话不存在"));
+        if (calls == null || calls.isEmpty()) {
+            return List.of();
+        }
+        Map<String, AgentTool> tools = enabledTools(session.getAgentId());
+
+        // 先全部提交，再逐个等待
+        List<PendingCall> pending = new ArrayList<>(calls.size());
+        for (AgentToolCallRequestDTO call : calls) {
+            pending.add(submit(call, tools.get(call.getToolCode())));
+        }
+        List<AgentToolCall> records = new ArrayList<>(pending.size());
+        for (PendingCall call : pending) {
+            AgentToolCall record = await(call);
+            record.setSessionId(sessionId);
+            record.setMessageId(messageId);
+            records.add(record);
+        }
+        return toolCallRepository.saveAll(records);
+    }
+
+    /**
+     * Agent启用的工具（按编码）
+     */
+    private Map<String, AgentTool> enabledTools(Long agentId) {
+        List<Long> toolIds = relationRepository.findByAgentIdAndEnabled(agentId).stream()
+                .map(AgentToolRelation::getToolId)
+                .toList();
+        if (toolIds.isEmpty()) {
+            return Map.of();
+        }
+        return toolRepository.findAllById(toolIds).stream()
+                .filter(tool -> "1".equals(tool.getIsActive()))
+                .collect(Collectors.toMap(AgentTool::getToolCode, Function.identity(), (a, b) -> a));
+    }
+
+    private PendingCall submit(AgentToolCallRequestDTO call, AgentTool tool) {
+        long start = System.nanoTime();
+        Map<String, Object> arguments = call.getArguments() == null ? Map.of() : call.getArguments();
+        String argumentsJson = toJson(arguments, canonicalWriter);
+        if (tool == null) {
+            return PendingCall.rejected(call, null, argumentsJson, start, "工具不存在或未授权给该Agent");
+        }
+        AgentToolHandler handler = handlers.get(tool.getToolCode());
+        if (handler == null) {
+            return PendingCall.rejected(call, tool, argumentsJson, start, "工具没有可用的实现");
+        }
+        ToolSettings settings = settings(tool);
+        String cacheKey = settings.idempotent() ? tool.getToolCode() + '\u0000' + argumentsJson : null;
+        if (cacheKey != null) {
+            Map<String, Object> cached = cachedResult(cacheKey);
+            if (cached != null) {
+                return new PendingCall(call, tool, settings, argumentsJson, start,
+                        SharedCall.completed(cached), null);
+            }
+            SharedCall running = inFlight.get(cacheKey);
+            if (running != null && running.join()) {
+                return new PendingCall(call, tool, settings, argumentsJson, start, running, null);
+            }
+        }
+        SharedCall shared = new SharedCall();
+        ToolTask task = new ToolTask(() -> invoke(handler, arguments, cacheKey), () -> {
+            if (cacheKey != null) {
+                inFlight.remove(cacheKey, shared);
+            }
+        });
+        shared.start(task);
+        if (cacheKey != null) {
+            // 加入进行中的调用与登记新调用在同一步完成，同时发起的相同调用只执行一次
+            SharedCall winner = inFlight.compute(cacheKey,
+                    (key, running) -> running != null && running.join() ? running : shared);
+            if (winner != shared) {
+                return new PendingCall(call, tool, settings, argumentsJson, start, winner, null);
+            }
+        }
+        if (waitingCalls.incrementAndGet() > config.getQueueCapacity()) {
+            waitingCalls.decrementAndGet();
+            task.reject(TOO_MANY_CALLS);
+            return PendingCall.rejected(call, tool, argumentsJson, start, TOO_MANY_CALLS);
+        }
+        ToolPermits toolPermits = permits.computeIfAbsent(tool.getToolCode(),
+                key -> new ToolPermits(settings.maxConcurrency()));
+        toolPermits.resize(settings.maxConcurrency());
+        toolPermits.waiting.add(task);
+        dispatch(toolPermits);
+        return new PendingCall(call, tool, settings, argumentsJson, start, shared, null);
+    }
+
+    /**
+     * 按名额把工具等待队列中的调用提交到线程池
+     * 调用结束释放名额后再次分派；等待期间已被放弃的调用直接跳过，不占用线程
+     */
+    private void dispatch(ToolPermits toolPermits) {
+        while (!toolPermits.waiting.isEmpty() && toolPermits.tryAcquire()) {
+            ToolTask next = toolPermits.waiting.poll();
+            if (next == null) {
+                toolPermits.release();
+                continue;
+            }
+            waitingCalls.decrementAndGet();
+            if (next.isDone()) {
+                toolPermits.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        next.run();
+                    } finally {
+                        toolPermits.release();
+                        dispatch(toolPermits);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                toolPermits.release();
+                next.reject(TOO_MANY_CALLS);
+            }
+        }
+    }
+
+    private Map<String, Object> invoke(AgentToolHandler handler, Map<String, Object> arguments, String cacheKey) {
+        Map<String, Object> result = handler.execute(arguments);
+        if (cacheKey != null) {
+            cacheResult(cacheKey, result);
+        }
+        return result;
+    }
+
+    private AgentToolCall await(PendingCall call) {
+        AgentToolCall record = new AgentToolCall();
+        record.setToolCode(call.request().getToolCode());
+        record.setToolName(call.tool() != null ? call.tool().getToolName() : call.request().getToolCode());
+        record.setCallArguments(call.argumentsJson());
+        if (call.error() != null) {
+            record.setCallStatus(STATUS_FAILED);
+            record.setErrorMessage(call.error());
+            record.setExecutionTime(0);
+            return record;
+        }
+        long remainingNanos = call.startNanos() + TimeUnit.MILLISECONDS.toNanos(call.settings().timeoutMs())
+                - System.nanoTime();
+        try {
+            Map<String, Object> result = call.shared().future().get(Math.max(0L, remainingNanos), TimeUnit.NANOSECONDS);
+            record.setCallStatus(STATUS_SUCCESS);
+            record.setCallResult(toJson(result, objectMapper.writer()));
+        } catch (TimeoutException | CancellationException e) {
+            call.shared().giveUp();
+            record.setCallStatus(STATUS_TIMEOUT);
+            record.setErrorMessage("工具执行超时（" + call.settings().timeoutMs() + "ms）");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("工具执行失败: {}, 错误: {}", call.request().getToolCode(), cause.getMessage());
+            record.setCallStatus(STATUS_FAILED);
+            record.setErrorMessage(cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            call.shared().giveUp();
+            record.setCallStatus(STATUS_FAILED);
+            record.setErrorMessage("工具执行被中断");
+        }
+        record.setExecutionTime((int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - call.startNanos()));
+        return record;
+    }
+
+    /**
+     * 读取工具配置中的超时、并发上限和幂等标记
+     */
+    private ToolSettings settings(AgentTool tool) {
+        long timeoutMs = config.getDefaultTimeoutMs();
+        int maxConcurrency = config.getDefaultMaxConcurrency();
+        boolean idempotent = false;
+        if (tool.getToolConfig() != null && !tool.getToolConfig().isBlank()) {
+            try {
+                Map<String, Object> toolConfig = objectMapper.readValue(tool.getToolConfig(),
+                        new TypeReference<Map<String, Object>>() {});
+                if (toolConfig.get("timeout_ms") instanceof Number number && number.longValue() > 0) {
+                    timeoutMs = number.longValue();
+                }
+                if (toolConfig.get("max_concurrency") instanceof Number number && number.intValue() > 0) {
+                    maxConcurrency = number.intValue();
+                }
+                idempotent = Boolean.TRUE.equals(toolConfig.get("idempotent"));
+            } catch (Exception e) {
+                log.warn("工具配置无法解析，使用默认值: {}, 错误: {}", tool.getToolCode(), e.getMessage());
+            }
+        }
+        return new ToolSettings(timeoutMs, maxConcurrency, idempotent);
+    }
+
+    /**
+     * 读取缓存的结果，每次返回新的副本，调用方修改结果不影响缓存
+     */
+    Map<String, Object> cachedResult(String cacheKey) {
+        String resultJson;
+        synchronized (resultCache) {
+            CachedResult cached = resultCache.get(cacheKey);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expireAt() < System.currentTimeMillis()) {
+                resultCache.remove(cacheKey);
+                return null;
+            }
+            resultJson = cached.resultJson();
+        }
+        try {
+            return objectMapper.readValue(resultJson, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            log.warn("缓存的工具结果无法解析，重新执行: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void cacheResult(String cacheKey, Map<String, Object> result) {
+        String resultJson = toJson(result, objectMapper.writer());
+        long expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(config.getResultCacheTtlSeconds());
+        synchronized (resultCache) {
+            resultCache.put(cacheKey, new CachedResult(resultJson, expireAt));
+        }
+    }
+
+    private String toJson(Object value, ObjectWriter writer) {
+        try {
+            return writer.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new BusinessException("工具调用数据无法序列化: " + e.getMessage());
+        }
+    }
+
+    private record ToolSettings(long timeoutMs, int maxConcurrency, boolean idempotent) {
+    }
+
+    private record CachedResult(String resultJson, long expireAt) {
+    }
+
+    /**
+     * 参数相同的调用共享的一次执行
+     * 各调用方按自己的超时等待，最后一个调用方放弃时才中断执行；已放弃的执行不再接受新的调用方。
+     * 中断在锁外进行，执行结束的回调会移除进行中的登记，不能在持有本对象的锁时进入登记表
+     */
+    private static final class SharedCall {
+        private Future<Map<String, Object>> future;
+        private int waiters;
+        private boolean abandoned;
+
+        static SharedCall completed(Map<String, Object> result) {
+            SharedCall shared = new SharedCall();
+            shared.start(CompletableFuture.completedFuture(result));
+            return shared;
+        }
+
+        synchronized void start(Future<Map<String, Object>> future) {
+            this.future = future;
+            this.waiters = 1;
+        }
+
+        synchronized Future<Map<String, Object>> future() {
+            return future;
+        }
+
+        synchronized boolean join() {
+            if (abandoned || future.isCancelled()) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        void giveUp() {
+            Future<Map<String, Object>> toCancel;
+            synchronized (this) {
+                if (--waiters > 0) {
+                    return;
+                }
+                abandoned = true;
+                toCancel = future;
+            }
+            toCancel.cancel(true);
+        }
+    }
+
+    /**
+     * 工具调用任务，结束（完成、失败、取消或被拒绝）时执行回调
+     */
+    private static final class ToolTask extends FutureTask<Map<String, Object>> {
+        private final Runnable onDone;
+
+        ToolTask(Callable<Map<String, Object>> callable, Runnable onDone) {
+            super(callable);
+            this.onDone = onDone;
+        }
+
+        void reject(String message) {
+            setException(new BusinessException(message));
+        }
+
+        @Override
+        protected void done() {
+            onDone.run();
+        }
+    }
+
+    /**
+     * 可调整上限的并发名额和等待名额的调用队列：上限调小时扣减名额（可暂时为负），执行中的调用释放后才放行新调用
+     */
+    private static final class ToolPermits extends Semaphore {
+        private final Queue<ToolTask> waiting = new ConcurrentLinkedQueue<>();
+        private int limit;
+
+        ToolPermits(int limit) {
+            super(limit);
+            this.limit = limit;
+        }
+
+        synchronized void resize(int newLimit) {
+            if (newLimit > limit) {
+                release(newLimit - limit);
+            } else if (newLimit < limit) {
+                reducePermits(limit - newLimit);
+            }
+            limit = newLimit;
+        }
+    }
+
+    private record PendingCall(AgentToolCallRequestDTO request, AgentTool tool, ToolSettings settings,
+                               String argumentsJson, long startNanos,
+                               SharedCall shared, String error) {
+
+        static PendingCall rejected(AgentToolCallRequestDTO request, AgentTool tool, String argumentsJson,
+                                    long startNanos, String error) {
+            return new PendingCall(request, tool, null, argumentsJson, startNanos, null, error);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.AiRequestCoalescingConfig;
+import com.sinosoft.testdesign.metrics.BusinessMetricsCollector;
+import com.sinosoft.testdesign.service.AiRequestCoalescingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * AI请求合并服务实现
+ * 本节点内：以请求哈希为键登记进行中的调用（CompletableFuture），重复请求直接等待其结果；
+ * 跨节点：领头调用方持有Redis锁，其他节点上的重复请求轮询响应缓存，锁释放后仍无结果则自行调用。
+ *
+ * @author sinosoft
+ * @date 2026-02-03
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AiRequestCoalescingServiceImpl implements AiRequestCoalescingService {
+
+    private static final String PREFIX_LOCK = "ai:inflight:";
+    private static final String SCOPE_LOCAL = "local";
+    private static final String SCOPE_CLUSTER = "cluster";
+    /** 仅当锁仍归自己持有时才删除，避免误删其他节点重新获取的锁 */
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AiRequestCoalescingConfig coalescingConfig;
+    private final BusinessMetricsCollector metricsCollector;
+
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder localCoalesced = new LongAdder();
+    private final LongAdder clusterCoalesced = new LongAdder();
+    private final String nodeToken = UUID.randomUUID().toString();
+
+    @Override
+    public Map<String, Object> execute(String taskType, String requestHash,
+                                       Supplier<Map<String, Object>> loader,
+                                       Supplier<Map<String, Object>> sharedResult) {
+        if (!coalescingConfig.isEnabled() || requestHash == null) {
+            return loader.get();
+        }
+
+        CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(requestHash, future);
+        if (existing != null) {
+            return awaitLocal(taskType, requestHash, existing, loader);
+        }
+
+        try {
+            Map<String, Object> result = executeAsLeader(taskType, requestHash, loader, sharedResult);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(requestHash, future);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", coalescingConfig.isEnabled());
+        result.put("clusterEnabled", coalescingConfig.isClusterEnabled());
+        result.put("localCoalesced", localCoalesced.sum());
+        result.put("clusterCoalesced", clusterCoalesced.sum());
+        result.put("inFlight", inFlight.size());
+        return result;
+    }
+
+    /**
+     * 等待本节点内相同请求的结果，超时后自行调用
+     */
+    private Map<String, Object> awaitLocal(String taskType, String requestHash,
+                                           CompletableFuture<Map<String, Object>> existing,
+                                           Supplier<Map<String, Object>> loader) {
+        log.debug("合并重复AI请求（本节点）: taskType={}, hash={}", taskType, requestHash);
+        try {
+            Map<String, Object> result = existing.get(coalescingConfig.getWaitTimeoutSeconds(), TimeUnit.SECONDS);
+            recordCoalesced(taskType, SCOPE_LOCAL);
+            return result;
+        } catch (TimeoutException e) {
+            log.warn("等待重复AI请求结果超时，自行调用: taskType={}, hash={}", taskType, requestHash);
+            return loader.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("AI调用失败: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待AI调用结果被中断", e);
+        }
+    }
+
+    /**
+     * 作为本节点的领头调用方执行：获取Redis锁后调用；锁被其他节点持有时等待其结果
+     */
+    private Map<String, Object> executeAsLeader(String taskType, String requestHash,
+                                                Supplier<Map<String, Object>> loader,
+                                                Supplier<Map<String, Object>> sharedResult) {
+        if (!coalescingConfig.isClusterEnabled() || sharedResult == null) {
+            return loader.get();
+        }
+
+        String lockKey = PREFIX_LOCK + requestHash;
+        Boolean acquired;
+        try {
+            acquired = stringRedisTemplate.opsForValue().setIfAbsent(lockKey, nodeToken,
+                    Duration.ofSeconds(coalescingConfig.getLockTtlSeconds()));
+        } catch (Exception e) {
+            log.warn("获取AI请求合并锁失败，直接调用: taskType={}, 错误={}", taskType, e.getMessage());
+            return loader.get();
+        }
+
+        if (Boolean.TRUE.equals(acquired)) {
+            try {
+                return loader.get();
+            } finally {
+                releaseLock(lockKey);
+            }
+        }
+
+        log.debug("合并重复AI请求（跨节点）: taskType={}, hash={}", taskType, requestHash);
+        Map<String, Object> shared = awaitCluster(lockKey, sharedResult);
+        if (shared != null) {
+            recordCoalesced(taskType, SCOPE_CLUSTER);
+            return shared;
+        }
+        log.debug("其他节点未产出可复用结果，自行调用: taskType={}, hash={}", taskType, requestHash);
+        return loader.get();
+    }
+
+    /**
+     * 轮询其他节点产出的结果，直到拿到结果、锁释放或超时
+     */
+    private Map<String, Object> awaitCluster(String lockKey, Supplier<Map<String, Object>> sharedResult) {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(coalescingConfig.getWaitTimeoutSeconds());
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                Thread.sleep(coalescingConfig.getPollIntervalMillis());
+                Map<String, Object> result = sharedResult.get();
+                if (result != null) {
+                    return result;
+                }
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(lockKey))) {
+                    return sharedResult.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("等待其他节点AI调用结果失败: lockKey={}, 错误={}", lockKey, e.getMessage());
+        }
+        return null;
+    }
+
+    private void releaseLock(String lockKey) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), nodeToken);
+        } catch (Exception e) {
+            log.warn("释放AI请求合并锁失败: lockKey={}, 错误={}", lockKey, e.getMessage());
+        }
+    }
+
+    private void recordCoalesced(String taskType, String scope) {
+        if (SCOPE_CLUSTER.equals(scope)) {
+            clusterCoalesced.increment();
+        } else {
+            localCoalesced.increment();
+        }
+        metricsCollector.recordAiRequestCoalesced(taskType, scope);
+    }
+}
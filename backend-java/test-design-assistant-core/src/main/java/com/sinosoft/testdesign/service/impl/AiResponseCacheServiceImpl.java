@@ -0,0 +1,526 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sinosoft.testdesign.config.AiResponseCacheConfig;
+import com.sinosoft.testdesign.metrics.BusinessMetricsCollector;
+import com.sinosoft.testdesign.service.AiRequestCoalescingService;
+import com.sinosoft.testdesign.service.AiResponseCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * AI响应缓存服务实现
+ * 精确匹配：请求规范化后计算SHA-256作为键；近似匹配：对指定文本字段计算64位SimHash，
+ * 在其余字段完全相同的范围内按汉明距离查找。每种任务类型用ZSET记录写入时间，超出上限时淘汰最早条目。
+ * 未命中时经AiRequestCoalescingService合并重复的进行中请求。Redis不可用时直接调用AI服务，不影响业务。
+ *
+ * @author sinosoft
+ * @date 2026-02-02
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AiResponseCacheServiceImpl implements AiResponseCacheService {
+
+    private static final String PREFIX_ENTRY = "ai:resp:entry:";
+    private static final String PREFIX_INDEX = "ai:resp:idx:";
+    private static final String PREFIX_SIMILAR = "ai:resp:sim:";
+    /** 缓存格式版本，规范化规则变化时递增使旧缓存失效 */
+    private static final String KEY_VERSION = "v1";
+    private static final String MATCH_EXACT = "exact";
+    private static final String MATCH_SIMILAR = "similar";
+    private static final int SHINGLE_SIZE = 3;
+    /** 清除缓存时SCAN每批返回和删除的键数 */
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final AiResponseCacheConfig cacheConfig;
+    private final BusinessMetricsCollector metricsCollector;
+    private final AiRequestCoalescingService coalescingService;
+
+    private final Map<String, TaskStats> statsByTaskType = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Object> getOrLoad(String taskType, Map<String, Object> request,
+                                         Predicate<Map<String, Object>> cacheable,
+                                         Supplier<Map<String, Object>> loader) {
+        return getOrLoad(taskType, request, null, cacheable, loader);
+    }
+
+    @Override
+    public Map<String, Object> getOrLoad(String taskType, Map<String, Object> request, Map<String, Object> keyExtras,
+                                         Predicate<Map<String, Object>> cacheable,
+                                         Supplier<Map<String, Object>> loader) {
+        if (request == null) {
+            return loader.get();
+        }
+
+        String hash;
+        try {
+            hash = canonicalHash(taskType, request, keyExtras);
+        } catch (Exception e) {
+            log.warn("计算AI请求缓存键失败，跳过缓存: taskType={}, 错误={}", taskType, e.getMessage());
+            return loader.get();
+        }
+
+        if (!cacheConfig.isEnabled()) {
+            // 缓存关闭时仍合并本节点内的重复请求
+            return coalescingService.execute(taskType, hash, loader, null);
+        }
+
+        List<String> similarityFields = similarityFields(taskType);
+        String similarityText = !similarityFields.isEmpty()
+                && request.get(similarityFields.get(0)) instanceof String text ? text : null;
+
+        Map<String, Object> cached = lookup(taskType, hash, request, keyExtras, similarityFields, similarityText);
+        if (cached != null) {
+            return cached;
+        }
+
+        stats(taskType).misses.increment();
+        metricsCollector.recordAiCacheMiss(taskType);
+
+        // 相同请求并发到达时只调用一次AI服务，结果写入缓存后供其他节点的等待方读取
+        return coalescingService.execute(taskType, hash, () -> {
+            Map<String, Object> response = loader.get();
+            if (response != null && cacheable.test(response)) {
+                store(taskType, hash, request, keyExtras, similarityFields, similarityText, response);
+            }
+            return response;
+        }, () -> readSharedResponse(taskType, hash));
+    }
+
+    @Override
+    public String canonicalHash(String taskType, Map<String, Object> request, Map<String, Object> keyExtras) {
+        Map<String, Object> keyMaterial = new TreeMap<>();
+        keyMaterial.put("_version", KEY_VERSION);
+        keyMaterial.put("_task_type", taskType);
+        keyMaterial.put("request", canonicalize(request));
+        if (keyExtras != null && !keyExtras.isEmpty()) {
+            keyMaterial.put("extras", canonicalize(keyExtras));
+        }
+        try {
+            byte[] json = objectMapper.writer()
+                    .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(keyMaterial);
+            return sha256Hex(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("请求规范化失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void evict(String taskType) {
+        try {
+            String indexKey = PREFIX_INDEX + taskType;
+            Set<String> hashes = stringRedisTemplate.opsForZSet().range(indexKey, 0, -1);
+            List<String> keys = new ArrayList<>();
+            if (hashes != null) {
+                for (String hash : hashes) {
+                    keys.add(PREFIX_ENTRY + taskType + ":" + hash);
+                }
+            }
+            keys.add(indexKey);
+            stringRedisTemplate.delete(keys);
+            // 近似匹配桶用SCAN分批查找删除，避免KEYS在键数量大时阻塞Redis
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(PREFIX_SIMILAR + taskType + ":*")
+                    .count(SCAN_BATCH_SIZE)
+                    .build();
+            List<String> similarKeys = new ArrayList<>();
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    similarKeys.add(cursor.next());
+                    if (similarKeys.size() >= SCAN_BATCH_SIZE) {
+                        stringRedisTemplate.delete(similarKeys);
+                        similarKeys.clear();
+                    }
+                }
+            }
+            if (!similarKeys.isEmpty()) {
+                stringRedisTemplate.delete(similarKeys);
+            }
+            log.info("清除AI响应缓存: taskType={}, count={}", taskType, keys.size() - 1);
+        } catch (Exception e) {
+            log.error("清除AI响应缓存失败: taskType={}", taskType, e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long totalHits = 0;
+        long totalMisses = 0;
+        long totalTokensSaved = 0;
+        Map<String, Object> byTaskType = new LinkedHashMap<>();
+        for (Map.Entry<String, TaskStats> entry : new TreeMap<>(statsByTaskType).entrySet()) {
+            TaskStats stats = entry.getValue();
+            long hits = stats.exactHits.sum() + stats.similarHits.sum();
+            long misses = stats.misses.sum();
+            long tokensSaved = stats.tokensSaved.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("exactHits", stats.exactHits.sum());
+            item.put("similarHits", stats.similarHits.sum());
+            item.put("misses", misses);
+            item.put("hitRate", hitRate(hits, misses));
+            item.put("tokensSaved", tokensSaved);
+            byTaskType.put(entry.getKey(), item);
+            totalHits += hits;
+            totalMisses += misses;
+            totalTokensSaved += tokensSaved;
+        }
+        result.put("enabled", cacheConfig.isEnabled());
+        result.put("similarityEnabled", cacheConfig.isSimilarityEnabled());
+        result.put("hits", totalHits);
+        result.put("misses", totalMisses);
+        result.put("hitRate", hitRate(totalHits, totalMisses));
+        result.put("tokensSaved", totalTokensSaved);
+        result.put("byTaskType", byTaskType);
+        return result;
+    }
+
+    /**
+     * 查找缓存：先精确匹配，再按配置做近似匹配
+     */
+    private Map<String, Object> lookup(String taskType, String hash, Map<String, Object> request,
+                                       Map<String, Object> keyExtras, List<String> similarityFields,
+                                       String similarityText) {
+        try {
+            CachedEntry entry = readEntry(taskType, hash);
+            if (entry != null) {
+                recordHit(taskType, MATCH_EXACT, entry.tokens);
+                return entry.response;
+            }
+
+            if (similarityText == null) {
+                return null;
+            }
+            String scopeHash = scopeHash(taskType, request, keyExtras, similarityFields);
+            Map<Object, Object> candidates = stringRedisTemplate.opsForHash()
+                    .entries(PREFIX_SIMILAR + taskType + ":" + scopeHash);
+            if (candidates == null || candidates.isEmpty()) {
+                return null;
+            }
+            long fingerprint = simHash(similarityText);
+            String bestHash = null;
+            int bestDistance = Integer.MAX_VALUE;
+            for (Map.Entry<Object, Object> candidate : candidates.entrySet()) {
+                long other = Long.parseUnsignedLong((String) candidate.getKey(), 16);
+                int distance = Long.bitCount(fingerprint ^ other);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestHash = (String) candidate.getValue();
+                }
+            }
+            if (bestHash == null || bestDistance > cacheConfig.getSimilarityMaxDistance()) {
+                return null;
+            }
+            entry = readEntry(taskType, bestHash);
+            if (entry != null) {
+                log.debug("AI响应缓存近似命中: taskType={}, distance={}", taskType, bestDistance);
+                recordHit(taskType, MATCH_SIMILAR, entry.tokens);
+                return entry.response;
+            }
+        } catch (Exception e) {
+            log.warn("读取AI响应缓存失败，直接调用AI服务: taskType={}, 错误={}", taskType, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 写入缓存，并按写入时间淘汰超出上限或已过期的条目
+     */
+    private void store(String taskType, String hash, Map<String, Object> request, Map<String, Object> keyExtras,
+                       List<String> similarityFields, String similarityText, Map<String, Object> response) {
+        try {
+            long ttlSeconds = cacheConfig.getTtlSeconds(taskType);
+            long now = System.currentTimeMillis();
+            String responseJson = objectMapper.writeValueAsString(response);
+
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("response", response);
+            entry.put("tokens", estimateTokens(request, response, responseJson));
+            entry.put("createdAt", now);
+            stringRedisTemplate.opsForValue().set(PREFIX_ENTRY + taskType + ":" + hash,
+                    objectMapper.writeValueAsString(entry), ttlSeconds, TimeUnit.SECONDS);
+
+            String indexKey = PREFIX_INDEX + taskType;
+            stringRedisTemplate.opsForZSet().add(indexKey, hash, now);
+            stringRedisTemplate.opsForZSet().removeRangeByScore(indexKey, 0, now - ttlSeconds * 1000);
+            trimIndex(taskType, indexKey);
+
+            if (similarityText != null) {
+                String similarKey = PREFIX_SIMILAR + taskType + ":"
+                        + scopeHash(taskType, request, keyExtras, similarityFields);
+                String fingerprint = Long.toHexString(simHash(similarityText));
+                Long size = stringRedisTemplate.opsForHash().size(similarKey);
+                if (size != null && size >= cacheConfig.getSimilarityMaxCandidates()
+                        && !Boolean.TRUE.equals(stringRedisTemplate.opsForHash().hasKey(similarKey, fingerprint))) {
+                    evictOldestCandidate(indexKey, similarKey);
+                }
+                stringRedisTemplate.opsForHash().put(similarKey, fingerprint, hash);
+                stringRedisTemplate.expire(similarKey, ttlSeconds, TimeUnit.SECONDS);
+            }
+            log.debug("写入AI响应缓存: taskType={}, hash={}, ttl={}秒", taskType, hash, ttlSeconds);
+        } catch (Exception e) {
+            log.warn("写入AI响应缓存失败: taskType={}, 错误={}", taskType, e.getMessage());
+        }
+    }
+
+    private void trimIndex(String taskType, String indexKey) {
+        Long size = stringRedisTemplate.opsForZSet().zCard(indexKey);
+        int maxEntries = cacheConfig.getMaxEntriesPerTaskType();
+        if (size == null || size <= maxEntries) {
+            return;
+        }
+        long overflow = size - maxEntries;
+        Set<String> evicted = stringRedisTemplate.opsForZSet().range(indexKey, 0, overflow - 1);
+        if (evicted != null && !evicted.isEmpty()) {
+            List<String> keys = new ArrayList<>(evicted.size());
+            for (String evictedHash : evicted) {
+                keys.add(PREFIX_ENTRY + taskType + ":" + evictedHash);
+            }
+            stringRedisTemplate.delete(keys);
+        }
+        stringRedisTemplate.opsForZSet().removeRange(indexKey, 0, overflow - 1);
+        log.debug("淘汰AI响应缓存: taskType={}, count={}", taskType, overflow);
+    }
+
+    /**
+     * 近似匹配桶已满时淘汰一个候选：优先淘汰条目已不在索引中（已过期或被淘汰）的候选，否则淘汰最早写入的候选
+     */
+    private void evictOldestCandidate(String indexKey, String similarKey) {
+        Map<Object, Object> candidates = stringRedisTemplate.opsForHash().entries(similarKey);
+        if (candidates == null || candidates.isEmpty()) {
+            return;
+        }
+        List<Object> fingerprints = new ArrayList<>(candidates.keySet());
+        Object[] hashes = new Object[fingerprints.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = candidates.get(fingerprints.get(i));
+        }
+        List<Double> scores = stringRedisTemplate.opsForZSet().score(indexKey, hashes);
+        Object oldest = fingerprints.get(0);
+        double oldestScore = Double.MAX_VALUE;
+        for (int i = 0; scores != null && i < scores.size(); i++) {
+            Double score = scores.get(i);
+            if (score == null) {
+                oldest = fingerprints.get(i);
+                break;
+            }
+            if (score < oldestScore) {
+                oldestScore = score;
+                oldest = fingerprints.get(i);
+            }
+        }
+        stringRedisTemplate.opsForHash().delete(similarKey, oldest);
+    }
+
+    private CachedEntry readEntry(String taskType, String hash) throws Exception {
+        String json = stringRedisTemplate.opsForValue().get(PREFIX_ENTRY + taskType + ":" + hash);
+        if (json == null) {
+            return null;
+        }
+        Map<String, Object> entry = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        @SuppressWarnings("unchecked")
+        Map<String, Object> response = (Map<String, Object>) entry.get("response");
+        if (response == null) {
+            return null;
+        }
+        long tokens = entry.get("tokens") instanceof Number n ? n.longValue() : 0L;
+        return new CachedEntry(response, tokens);
+    }
+
+    /**
+     * 读取其他节点写入的响应（跨节点合并等待时使用），不计入命中统计
+     */
+    private Map<String, Object> readSharedResponse(String taskType, String hash) {
+        try {
+            CachedEntry entry = readEntry(taskType, hash);
+            return entry != null ? entry.response : null;
+        } catch (Exception e) {
+            log.debug("读取其他节点AI响应失败: taskType={}, 错误={}", taskType, e.getMessage());
+            return null;
+        }
+    }
+
+    private void recordHit(String taskType, String matchType, long tokens) {
+        TaskStats stats = stats(taskType);
+        if (MATCH_SIMILAR.equals(matchType)) {
+            stats.similarHits.increment();
+        } else {
+            stats.exactHits.increment();
+        }
+        stats.tokensSaved.add(tokens);
+        metricsCollector.recordAiCacheHit(taskType, matchType, tokens);
+    }
+
+    private TaskStats stats(String taskType) {
+        return statsByTaskType.computeIfAbsent(taskType != null ? taskType : "unknown", k -> new TaskStats());
+    }
+
+    /**
+     * 近似匹配字段：第一个字段参与SimHash计算，所有字段都不参与范围计算（如内嵌需求文本的prompt）
+     */
+    private List<String> similarityFields(String taskType) {
+        if (!cacheConfig.isSimilarityEnabled()) {
+            return List.of();
+        }
+        String fields = cacheConfig.getSimilarityFields().get(taskType);
+        if (fields == null || fields.isBlank()) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) {
+                result.add(field.trim());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 近似匹配的范围：除相似字段外其余字段完全相同的请求
+     */
+    private String scopeHash(String taskType, Map<String, Object> request, Map<String, Object> keyExtras,
+                             List<String> similarityFields) {
+        Map<String, Object> scope = new HashMap<>(request);
+        similarityFields.forEach(scope::remove);
+        return canonicalHash(taskType, scope, keyExtras);
+    }
+
+    /**
+     * Token节省量：优先取AI服务返回的tokens_used，否则按请求和响应的字符数粗略估算
+     */
+    private long estimateTokens(Map<String, Object> request, Map<String, Object> response, String responseJson)
+            throws Exception {
+        Object tokensUsed = response.get("tokens_used");
+        if (tokensUsed instanceof Number n && n.longValue() > 0) {
+            return n.longValue();
+        }
+        long chars = objectMapper.writeValueAsString(request).length() + responseJson.length();
+        return Math.max(1, chars / 2);
+    }
+
+    /**
+     * 递归规范化：Map按键排序，字符串统一换行、去首尾空白并合并连续空白
+     */
+    private Object canonicalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (entry.getValue() != null) {
+                    sorted.put(String.valueOf(entry.getKey()), canonicalize(entry.getValue()));
+                }
+            }
+            return sorted;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> list = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                list.add(canonicalize(item));
+            }
+            return list;
+        }
+        if (value instanceof CharSequence text) {
+            return normalizeText(text.toString());
+        }
+        return value;
+    }
+
+    static String normalizeText(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '　') {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 64位SimHash：对规范化文本按字符3-gram分片，FNV-1a哈希后按位投票
+     */
+    static long simHash(String text) {
+        String normalized = normalizeText(text).toLowerCase();
+        int[] votes = new int[64];
+        int length = normalized.length();
+        if (length == 0) {
+            return 0L;
+        }
+        int shingles = Math.max(1, length - SHINGLE_SIZE + 1);
+        for (int start = 0; start < shingles; start++) {
+            int end = Math.min(length, start + SHINGLE_SIZE);
+            long h = 0xcbf29ce484222325L;
+            for (int i = start; i < end; i++) {
+                h ^= normalized.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            for (int bit = 0; bit < 64; bit++) {
+                votes[bit] += ((h >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+        }
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : Math.round(hits * 10000.0 / total) / 100.0;
+    }
+
+    private record CachedEntry(Map<String, Object> response, long tokens) {
+    }
+
+    private static final class TaskStats {
+        private final LongAdder exactHits = new LongAdder();
+        private final LongAdder similarHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder tokensSaved = new LongAdder();
+    }
+}
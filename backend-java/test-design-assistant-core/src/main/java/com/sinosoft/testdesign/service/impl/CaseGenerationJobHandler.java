@@ -0,0 +1,70 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.entity.CaseGenerationTask;
+import com.sinosoft.testdesign.repository.CaseGenerationTaskRepository;
+import com.sinosoft.testdesign.service.IntelligentCaseGenerationService;
+import com.sinosoft.testdesign.service.JobHandler;
+import com.sinosoft.testdesign.service.JobQueueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用例生成任务处理器
+ * 业务主键是用例生成任务ID；任务已成功或已最终失败时不再重复生成。
+ * 生成服务内部捕获异常并把任务记为FAILED，处理器据此抛出异常让任务队列按退避策略重试，
+ * 重试前任务恢复为PENDING，达到最大次数后由 onGiveUp 记为FAILED
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CaseGenerationJobHandler implements JobHandler {
+
+    private final IntelligentCaseGenerationService caseGenerationService;
+    private final CaseGenerationTaskRepository taskRepository;
+
+    @Override
+    public String jobType() {
+        return JobQueueService.JOB_CASE_GENERATION;
+    }
+
+    @Override
+    public void handle(AsyncJob job) {
+        Long taskId = Long.valueOf(job.getBusinessKey());
+        CaseGenerationTask task = taskRepository.findById(taskId).orElse(null);
+        if (task == null || "SUCCESS".equals(task.getTaskStatus()) || "FAILED".equals(task.getTaskStatus())) {
+            log.info("用例生成任务不存在或已结束，跳过: {}", taskId);
+            return;
+        }
+        caseGenerationService.executeGenerationTask(taskId);
+
+        CaseGenerationTask result = taskRepository.findById(taskId).orElse(null);
+        if (result != null && "FAILED".equals(result.getTaskStatus())) {
+            String error = result.getErrorMessage();
+            // 等待重试，最终失败由 onGiveUp 记录
+            result.setTaskStatus("PENDING");
+            result.setCompleteTime(null);
+            taskRepository.save(result);
+            throw new BusinessException("用例生成失败: " + error);
+        }
+    }
+
+    @Override
+    public void onGiveUp(AsyncJob job, String error) {
+        taskRepository.findById(Long.valueOf(job.getBusinessKey()))
+                .filter(task -> !"SUCCESS".equals(task.getTaskStatus()) && !"FAILED".equals(task.getTaskStatus()))
+                .ifPresent(task -> {
+                    task.setTaskStatus("FAILED");
+                    task.setErrorMessage(error);
+                    task.setCompleteTime(LocalDateTime.now());
+                    taskRepository.save(task);
+                });
+    }
+}
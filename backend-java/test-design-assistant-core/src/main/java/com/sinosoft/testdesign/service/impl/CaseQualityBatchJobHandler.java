@@ -0,0 +1,44 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.dto.CaseQualityBatchResponseDTO;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.service.JobHandler;
+import com.sinosoft.testdesign.service.JobQueueService;
+import com.sinosoft.testdesign.service.TestCaseQualityService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用例质量批量评估任务处理器
+ * 业务主键是需求ID（全部用例时为ALL）；每批评分提交后回报进度，完成后把评估结果写入任务结果。
+ * 每批单独提交，失败重试时已保存的批次版本未变化，直接跳过
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CaseQualityBatchJobHandler implements JobHandler {
+
+    private final TestCaseQualityService qualityService;
+    private final JobQueueService jobQueueService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String jobType() {
+        return JobQueueService.JOB_CASE_QUALITY_ASSESSMENT;
+    }
+
+    @Override
+    public void handle(AsyncJob job) throws Exception {
+        Long requirementId = CaseQualityBatchJobServiceImpl.SCOPE_ALL.equals(job.getBusinessKey())
+                ? null : Long.valueOf(job.getBusinessKey());
+        CaseQualityBatchResponseDTO result = qualityService.assessBatch(requirementId,
+                progress -> jobQueueService.reportProgress(job.getId(), job.getLeaseOwner(), Math.min(progress, 99), null));
+        jobQueueService.reportProgress(job.getId(), job.getLeaseOwner(), 100, objectMapper.writeValueAsString(result));
+        log.info("用例质量批量评估任务完成: {}, 重新评分数: {}", job.getId(), result.getAssessedCount());
+    }
+}
@@ -0,0 +1,95 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.dto.CaseQualityBatchJobDTO;
+import com.sinosoft.testdesign.dto.CaseQualityBatchResponseDTO;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.repository.AsyncJobRepository;
+import com.sinosoft.testdesign.service.CaseQualityBatchJobService;
+import com.sinosoft.testdesign.service.JobQueueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 用例质量批量评估任务服务实现
+ * 批量评估写入后台任务队列（async_job），由任意实例领取执行；评估进度和结果保存在任务表中，任意实例都可以查询。
+ * 业务主键是需求ID（全部用例时为ALL），同一范围同时只保留一个未结束的任务。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CaseQualityBatchJobServiceImpl implements CaseQualityBatchJobService {
+
+    /** 全部用例的业务主键 */
+    static final String SCOPE_ALL = "ALL";
+
+    private static final List<String> ACTIVE_STATUSES = List.of("PENDING", "RUNNING");
+
+    private final JobQueueService jobQueueService;
+    private final AsyncJobRepository jobRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public CaseQualityBatchJobDTO submit(Long requirementId) {
+        String businessKey = requirementId != null ? String.valueOf(requirementId) : SCOPE_ALL;
+        // 本实例内串行化查重和入队；不同实例同时提交时可能各入队一次，后执行的任务只会跳过版本未变化的用例
+        synchronized (this) {
+            AsyncJob active = jobRepository.findFirstByJobTypeAndBusinessKeyAndStatusInOrderByIdDesc(
+                    JobQueueService.JOB_CASE_QUALITY_ASSESSMENT, businessKey, ACTIVE_STATUSES).orElse(null);
+            if (active != null) {
+                return toDTO(active);
+            }
+            AsyncJob job = jobQueueService.enqueue(JobQueueService.JOB_CASE_QUALITY_ASSESSMENT, businessKey,
+                    null, JobQueueService.PRIORITY_INTERACTIVE);
+            log.info("提交用例质量批量评估任务: {}, 需求: {}", job.getId(), businessKey);
+            return toDTO(job);
+        }
+    }
+
+    @Override
+    public CaseQualityBatchJobDTO getJob(String jobId) {
+        AsyncJob job = null;
+        try {
+            job = jobRepository.findById(Long.valueOf(jobId))
+                    .filter(j -> JobQueueService.JOB_CASE_QUALITY_ASSESSMENT.equals(j.getJobType()))
+                    .orElse(null);
+        } catch (NumberFormatException e) {
+            // 按任务不存在处理
+        }
+        if (job == null) {
+            throw new BusinessException("评估任务不存在: " + jobId);
+        }
+        return toDTO(job);
+    }
+
+    private CaseQualityBatchJobDTO toDTO(AsyncJob job) {
+        CaseQualityBatchJobDTO dto = new CaseQualityBatchJobDTO();
+        dto.setJobId(String.valueOf(job.getId()));
+        dto.setRequirementId(SCOPE_ALL.equals(job.getBusinessKey()) ? null : Long.valueOf(job.getBusinessKey()));
+        switch (job.getStatus()) {
+            case "SUCCESS" -> dto.setStatus(ReportExportJobServiceImpl.STATUS_COMPLETED);
+            case "FAILED" -> dto.setStatus(ReportExportJobServiceImpl.STATUS_FAILED);
+            case "RUNNING" -> dto.setStatus(ReportExportJobServiceImpl.STATUS_RUNNING);
+            default -> dto.setStatus(ReportExportJobServiceImpl.STATUS_PENDING);
+        }
+        dto.setProgress(job.getProgress() != null ? job.getProgress() : 0);
+        if (job.getResult() != null) {
+            try {
+                dto.setResult(objectMapper.readValue(job.getResult(), CaseQualityBatchResponseDTO.class));
+            } catch (Exception e) {
+                log.warn("解析用例质量批量评估结果失败: {}, 错误: {}", job.getId(), e.getMessage());
+            }
+        }
+        dto.setErrorMessage(job.getLastError());
+        dto.setCreateTime(job.getCreateTime());
+        dto.setFinishTime(job.getFinishTime());
+        return dto;
+    }
+}
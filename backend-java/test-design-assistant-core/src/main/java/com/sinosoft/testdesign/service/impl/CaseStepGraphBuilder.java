@@ -0,0 +1,162 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.entity.TestCase;
+import com.sinosoft.testdesign.repository.TestCaseRepository;
+import com.sinosoft.testdesign.util.StepTrie;
+import com.sinosoft.testdesign.util.TestStepTokenizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 用例步骤图构建器
+ * 场景图/路径图所需的用例字段和解析后的步骤按用例缓存为快照，快照以（版本号, 更新时间）为版本戳：
+ * 每次只查询版本戳，版本戳变化或未缓存的用例才加载完整实体并重新解析步骤。
+ * 路径图按范围（需求、用例或用例集合）缓存步骤前缀树，重建时只对版本变化的用例做删除和重新插入，
+ * 解析与更新的开销与变化的用例数成正比。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CaseStepGraphBuilder {
+
+    /** 缓存的用例快照上限 */
+    private static final int MAX_CACHED_CASES = 20000;
+    /** 缓存的路径前缀树上限 */
+    private static final int MAX_CACHED_GRAPHS = 256;
+
+    private final TestCaseRepository testCaseRepository;
+
+    private final Map<Long, CaseSnapshot> snapshots = lruMap(MAX_CACHED_CASES);
+    private final Map<String, StepTrie> graphs = lruMap(MAX_CACHED_GRAPHS);
+
+    /**
+     * 加载需求下的用例快照（按ID排序）
+     */
+    public List<CaseSnapshot> loadByRequirement(Long requirementId) {
+        return load(testCaseRepository.findVersionStampsByRequirementId(requirementId));
+    }
+
+    /**
+     * 加载指定用例的快照（按ID排序），不存在的用例忽略
+     */
+    public List<CaseSnapshot> loadByIds(Collection<Long> caseIds) {
+        if (caseIds == null || caseIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return load(testCaseRepository.findVersionStampsByIdIn(caseIds));
+    }
+
+    /**
+     * 按范围增量更新步骤前缀树
+     *
+     * @param scope 范围键（如"requirement:1"），相同范围复用同一棵树
+     * @param cases 范围内的用例快照
+     * @return 步骤前缀树的节点和路径（调用方不得修改）
+     */
+    public PathGraph buildPathGraph(String scope, List<CaseSnapshot> cases) {
+        StepTrie trie;
+        synchronized (graphs) {
+            trie = graphs.computeIfAbsent(scope, k -> new StepTrie());
+        }
+        synchronized (trie) {
+            List<Long> caseIds = new ArrayList<>(cases.size());
+            int changed = 0;
+            for (CaseSnapshot snapshot : cases) {
+                caseIds.add(snapshot.id());
+                if (!trie.contains(snapshot.id(), snapshot)) {
+                    trie.put(snapshot.id(), snapshot, snapshot.steps());
+                    changed++;
+                }
+            }
+            trie.retainAll(caseIds);
+            log.debug("更新路径前缀树: scope={}, 用例数={}, 变化用例数={}, 节点数={}",
+                    scope, cases.size(), changed, trie.nodeCount());
+            return new PathGraph(trie.nodes(), trie.pathNodeIds());
+        }
+    }
+
+    private List<CaseSnapshot> load(List<Object[]> stamps) {
+        List<CaseSnapshot> result = new ArrayList<>(stamps.size());
+        Map<Long, Integer> staleIndexes = new HashMap<>();
+        for (Object[] stamp : stamps) {
+            Long id = ((Number) stamp[0]).longValue();
+            Integer version = stamp[1] != null ? ((Number) stamp[1]).intValue() : null;
+            LocalDateTime updateTime = (LocalDateTime) stamp[2];
+            CaseSnapshot cached;
+            synchronized (snapshots) {
+                cached = snapshots.get(id);
+            }
+            if (cached != null && Objects.equals(cached.version(), version)
+                    && Objects.equals(cached.updateTime(), updateTime)) {
+                result.add(cached);
+            } else {
+                staleIndexes.put(id, result.size());
+                result.add(null);
+            }
+        }
+        if (!staleIndexes.isEmpty()) {
+            log.debug("加载用例快照: 总数={}, 需重新加载数={}", stamps.size(), staleIndexes.size());
+            for (TestCase testCase : testCaseRepository.findAllById(List.copyOf(staleIndexes.keySet()))) {
+                Integer index = staleIndexes.remove(testCase.getId());
+                if (index == null) {
+                    continue;
+                }
+                CaseSnapshot snapshot = CaseSnapshot.of(testCase);
+                synchronized (snapshots) {
+                    snapshots.put(snapshot.id(), snapshot);
+                }
+                result.set(index, snapshot);
+            }
+        }
+        // 查询版本戳与加载实体之间被删除的用例
+        result.removeIf(Objects::isNull);
+        return result;
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 用例快照
+     *
+     * @param steps 解析后的测试步骤
+     */
+    public record CaseSnapshot(Long id, Integer version, LocalDateTime updateTime, String caseName,
+                               String caseType, String preCondition, String testStep, List<String> steps) {
+
+        static CaseSnapshot of(TestCase testCase) {
+            return new CaseSnapshot(testCase.getId(), testCase.getVersion(), testCase.getUpdateTime(),
+                    testCase.getCaseName(), testCase.getCaseType(), testCase.getPreCondition(),
+                    testCase.getTestStep(), TestStepTokenizer.tokenize(testCase.getTestStep()));
+        }
+    }
+
+    /**
+     * 路径图结构
+     *
+     * @param nodes 步骤节点（先序）
+     * @param paths 各用例路径经过的节点ID
+     */
+    public record PathGraph(List<StepTrie.Node> nodes, List<int[]> paths) {
+    }
+}
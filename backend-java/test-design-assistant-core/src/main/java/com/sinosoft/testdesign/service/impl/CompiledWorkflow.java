@@ -0,0 +1,323 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的工作流
+ * 工作流配置JSON只在编译时解析一次：节点按下标编号并归类，出边、入边保存为下标数组，
+ * 拓扑序、环和可达性在编译时一并算出，配置校验与执行都直接使用编译结果。
+ * 出边保持配置中的顺序，条件节点第一条出边是true分支、第二条是false分支，与Python工作流引擎的约定一致。
+ * 编译不会因配置错误抛出异常：错误和警告收集在结果中，执行前通过requireValid()检查。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+public final class CompiledWorkflow {
+
+    private final List<Node> nodes;
+    private final Map<String, Integer> indexById;
+    private final int[][] successors;
+    private final int[][] predecessors;
+    /** 拓扑序，图中有环时为null */
+    private final int[] topologicalOrder;
+    private final List<String> errors;
+    private final List<String> warnings;
+
+    private CompiledWorkflow(List<Node> nodes, Map<String, Integer> indexById, int[][] successors,
+                             int[][] predecessors, int[] topologicalOrder, List<String> errors, List<String> warnings) {
+        this.nodes = nodes;
+        this.indexById = indexById;
+        this.successors = successors;
+        this.predecessors = predecessors;
+        this.topologicalOrder = topologicalOrder;
+        this.errors = errors;
+        this.warnings = warnings;
+    }
+
+    /**
+     * 编译工作流配置，配置错误收集到errors()：缺少nodes/edges、节点缺少id/type、节点ID重复、
+     * 边引用不存在的节点、没有起始节点；不可达节点、未知节点类型和无循环节点的环记为warnings()
+     *
+     * @param workflowConfig 工作流配置JSON（nodes/edges）
+     */
+    public static CompiledWorkflow compile(String workflowConfig, ObjectMapper objectMapper) {
+        List<String> errors = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        JsonNode root = null;
+        try {
+            root = workflowConfig != null ? objectMapper.readTree(workflowConfig) : null;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            errors.add("工作流配置JSON格式错误: " + e.getMessage());
+        }
+        if (root == null || !root.isObject()) {
+            if (errors.isEmpty()) {
+                errors.add("工作流配置JSON格式错误: 配置必须是JSON对象");
+            }
+            return new CompiledWorkflow(List.of(), Map.of(), new int[0][], new int[0][], new int[0],
+                    List.copyOf(errors), List.of());
+        }
+
+        List<Node> nodes = new ArrayList<>();
+        Map<String, Integer> indexById = new HashMap<>();
+        JsonNode nodesJson = root.get("nodes");
+        if (nodesJson == null) {
+            errors.add("缺少必需字段: nodes");
+        } else if (!nodesJson.isArray()) {
+            errors.add("nodes字段必须是数组");
+        } else {
+            if (nodesJson.isEmpty()) {
+                errors.add("工作流必须至少包含一个节点");
+            }
+            for (JsonNode nodeJson : nodesJson) {
+                String id = nodeJson.path("id").asText(null);
+                String type = nodeJson.path("type").asText(null);
+                if (type == null || type.isEmpty()) {
+                    errors.add("节点缺少type字段: " + id);
+                }
+                if (id == null || id.isEmpty()) {
+                    errors.add("节点缺少id字段");
+                    continue;
+                }
+                if (indexById.putIfAbsent(id, nodes.size()) != null) {
+                    errors.add("节点ID重复: " + id);
+                    continue;
+                }
+                NodeKind kind = NodeKind.of(type);
+                if (kind == NodeKind.UNKNOWN && type != null && !type.isEmpty()) {
+                    warnings.add("未知的节点类型: " + type + "（节点" + id + "）");
+                }
+                Map<String, Object> config = nodeJson.path("config").isObject()
+                        ? objectMapper.convertValue(nodeJson.get("config"), new TypeReference<Map<String, Object>>() {})
+                        : Collections.emptyMap();
+                nodes.add(new Node(nodes.size(), id, type, kind, nodeJson.path("name").asText(id), config));
+            }
+        }
+
+        int size = nodes.size();
+        List<List<Integer>> out = new ArrayList<>(size);
+        List<List<Integer>> in = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            out.add(new ArrayList<>());
+            in.add(new ArrayList<>());
+        }
+        JsonNode edgesJson = root.get("edges");
+        if (edgesJson == null) {
+            errors.add("缺少必需字段: edges");
+        } else if (!edgesJson.isArray()) {
+            errors.add("edges字段必须是数组");
+        } else {
+            for (JsonNode edge : edgesJson) {
+                String source = edge.path("source").asText(null);
+                String target = edge.path("target").asText(null);
+                if (source == null || target == null) {
+                    errors.add("边缺少source或target字段");
+                    continue;
+                }
+                Integer from = indexById.get(source);
+                Integer to = indexById.get(target);
+                if (from == null) {
+                    errors.add("边的source节点不存在: " + source);
+                }
+                if (to == null) {
+                    errors.add("边的target节点不存在: " + target);
+                }
+                if (from != null && to != null) {
+                    out.get(from).add(to);
+                    in.get(to).add(from);
+                }
+            }
+        }
+
+        int[][] successors = toArrays(out);
+        int[][] predecessors = toArrays(in);
+        int[] topologicalOrder = topologicalOrder(successors, predecessors);
+        checkReachability(nodes, successors, predecessors, errors, warnings);
+        if (topologicalOrder == null && nodes.stream().noneMatch(node -> node.kind() == NodeKind.LOOP)) {
+            warnings.add("工作流存在环但没有循环节点，环上的节点会被重复执行");
+        }
+        return new CompiledWorkflow(List.copyOf(nodes), Map.copyOf(indexById), successors, predecessors,
+                topologicalOrder, List.copyOf(errors), List.copyOf(warnings));
+    }
+
+    /**
+     * 从没有入边的起始节点出发遍历，找出不可达节点
+     */
+    private static void checkReachability(List<Node> nodes, int[][] successors, int[][] predecessors,
+                                          List<String> errors, List<String> warnings) {
+        int size = nodes.size();
+        if (size == 0) {
+            return;
+        }
+        boolean[] reached = new boolean[size];
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (predecessors[i].length == 0) {
+                reached[i] = true;
+                queue[tail++] = i;
+            }
+        }
+        if (tail == 0) {
+            errors.add("工作流必须包含至少一个起始节点（没有入边的节点）");
+            return;
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int next : successors[queue[head]]) {
+                if (!reached[next]) {
+                    reached[next] = true;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (!reached[i]) {
+                warnings.add("节点不可达: " + nodes.get(i).id());
+            }
+        }
+    }
+
+    /**
+     * Kahn算法求拓扑序，有环时返回null
+     */
+    private static int[] topologicalOrder(int[][] successors, int[][] predecessors) {
+        int size = successors.length;
+        int[] inDegree = new int[size];
+        int[] order = new int[size];
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            inDegree[i] = predecessors[i].length;
+            if (inDegree[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int next : successors[order[head]]) {
+                if (--inDegree[next] == 0) {
+                    order[tail++] = next;
+                }
+            }
+        }
+        return tail == size ? order : null;
+    }
+
+    private static int[][] toArrays(List<List<Integer>> lists) {
+        int[][] arrays = new int[lists.size()][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return arrays;
+    }
+
+    /**
+     * 配置有错误时抛出异常
+     *
+     * @throws BusinessException 配置存在错误
+     */
+    public CompiledWorkflow requireValid() {
+        if (!errors.isEmpty()) {
+            throw new BusinessException("工作流配置无效: " + String.join("；", errors));
+        }
+        return this;
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    public List<String> errors() {
+        return errors;
+    }
+
+    public List<String> warnings() {
+        return warnings;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public Node node(int index) {
+        return nodes.get(index);
+    }
+
+    public List<Node> nodes() {
+        return nodes;
+    }
+
+    /**
+     * 按节点ID查找下标，不存在时返回-1
+     */
+    public int indexOf(String nodeId) {
+        return indexById.getOrDefault(nodeId, -1);
+    }
+
+    /**
+     * 出边目标节点下标（配置顺序），调用方不得修改
+     */
+    public int[] successors(int index) {
+        return successors[index];
+    }
+
+    /**
+     * 入边来源节点下标（配置顺序），调用方不得修改
+     */
+    public int[] predecessors(int index) {
+        return predecessors[index];
+    }
+
+    public boolean isAcyclic() {
+        return topologicalOrder != null;
+    }
+
+    /**
+     * 拓扑序，图中有环时为null
+     */
+    public int[] topologicalOrder() {
+        return topologicalOrder != null ? topologicalOrder.clone() : null;
+    }
+
+    /**
+     * 节点类别，与Python工作流引擎注册的节点类型对应
+     */
+    public enum NodeKind {
+        INPUT, PROCESS, TRANSFORM, OUTPUT, CONDITION, LOOP, UNKNOWN;
+
+        public static NodeKind of(String type) {
+            if (type == null) {
+                return UNKNOWN;
+            }
+            return switch (type) {
+                case "input", "requirement_input", "test_case_input", "file_upload" -> INPUT;
+                case "requirement_analysis", "template_select", "prompt_generate", "llm_call", "result_parse" -> PROCESS;
+                case "format_transform", "data_clean", "data_merge" -> TRANSFORM;
+                case "case_save", "report_generate", "file_export" -> OUTPUT;
+                case "condition" -> CONDITION;
+                case "loop" -> LOOP;
+                default -> UNKNOWN;
+            };
+        }
+    }
+
+    /**
+     * 工作流节点
+     *
+     * @param index 节点下标
+     * @param id 节点ID
+     * @param type 节点类型
+     * @param kind 节点类别
+     * @param name 节点名称，未配置时为节点ID
+     * @param config 节点配置
+     */
+    public record Node(int index, String id, String type, NodeKind kind, String name, Map<String, Object> config) {
+    }
+}
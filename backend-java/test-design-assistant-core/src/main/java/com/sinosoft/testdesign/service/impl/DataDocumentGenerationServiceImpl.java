@@ -1,5 +1,6 @@
 package com.sinosoft.testdesign.service.impl;
 
+import com.sinosoft.testdesign.common.BusinessException;
 import com.sinosoft.testdesign.dto.EquivalenceTableRequestDTO;
 import com.sinosoft.testdesign.dto.EquivalenceTableResponseDTO;
 import com.sinosoft.testdesign.dto.OrthogonalTableRequestDTO;
@@ -11,13 +12,15 @@ import com.sinosoft.testdesign.repository.RequirementRepository;
 import com.sinosoft.testdesign.service.AIServiceClient;
 import com.sinosoft.testdesign.service.DataDocumentGenerationService;
 import com.sinosoft.testdesign.service.FileUploadService;
+import com.sinosoft.testdesign.util.CoveringArrayGenerator;
+import com.sinosoft.testdesign.util.MixedRadixProduct;
+import com.sinosoft.testdesign.util.OrthogonalArray;
+import com.sinosoft.testdesign.util.StreamingExcelWriter;
+import com.sinosoft.testdesign.util.WordTableWriter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.xwpf.usermodel.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,6 +35,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 数据文档生成服务实现类
@@ -55,6 +59,12 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
     
+    /** 等价类表默认最大用例数 */
+    private static final int DEFAULT_MAX_EQUIVALENCE_CASES = 1000;
+    
+    /** 等价类表用例数上限，防止组合爆炸 */
+    private static final int MAX_EQUIVALENCE_CASES = 10000;
+    
     @Override
     @Transactional(readOnly = true)
     public EquivalenceTableResponseDTO generateEquivalenceTable(EquivalenceTableRequestDTO request) {
@@ -74,7 +84,7 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
             }
             
             // 2. 生成等价类表数据
-            List<Map<String, Object>> tableData = generateEquivalenceTableData(equivalenceClasses);
+            List<Map<String, Object>> tableData = generateEquivalenceTableData(equivalenceClasses, request);
             
             // 3. 统计信息
             int validCaseCount = 0;
@@ -129,11 +139,17 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
         try {
             OrthogonalTableResponseDTO response = new OrthogonalTableResponseDTO();
             
-            // 1. 确定正交表类型
-            String tableType = determineOrthogonalTableType(request.getFactors());
+            // 1. 确定正交表类型：配对且无约束/种子时优先使用标准正交表，否则使用覆盖表算法
+            int strength = request.getStrength() != null ? request.getStrength() : 2;
+            OrthogonalArray orthogonalArray = selectOrthogonalArray(request, strength);
+            String tableType = orthogonalArray != null
+                    ? orthogonalArray.getName()
+                    : (strength > 2 ? strength + "-way覆盖表" : "配对组合");
             
             // 2. 生成正交表数据
-            List<Map<String, Object>> tableData = generateOrthogonalTableData(request.getFactors(), tableType);
+            List<Map<String, Object>> tableData = orthogonalArray != null
+                    ? new OrthogonalTableRows(request.getFactors(), orthogonalArray)
+                    : generateOrthogonalTableData(request, strength, response);
             
             // 3. 计算统计信息
             long theoreticalMaxCases = request.getFactors().values().stream()
@@ -173,6 +189,8 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
                     request.getFactors().size(), tableData.size(), response.getReductionRate());
             return response;
             
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("生成正交表失败", e);
             throw new RuntimeException("生成正交表失败：" + e.getMessage(), e);
@@ -182,69 +200,19 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
     @Override
     public void exportEquivalenceTableToExcel(EquivalenceTableResponseDTO response, OutputStream outputStream) {
         log.info("导出等价类表到Excel");
-        try {
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("等价类表");
-            
-            // 创建样式
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle dataStyle = createDataStyle(workbook);
-            
-            int rowNum = 0;
-            
-            // 标题行
-            Row titleRow = sheet.createRow(rowNum++);
-            Cell titleCell = titleRow.createCell(0);
-            titleCell.setCellValue(response.getTitle());
-            titleCell.setCellStyle(headerStyle);
-            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, response.getParameters().size() + 2));
-            
-            rowNum++; // 空行
-            
-            // 表头
-            Row headerRow = sheet.createRow(rowNum++);
-            int colNum = 0;
-            for (String param : response.getParameters()) {
-                Cell cell = headerRow.createCell(colNum++);
-                cell.setCellValue(param);
-                cell.setCellStyle(headerStyle);
-            }
-            Cell caseCodeCell = headerRow.createCell(colNum++);
-            caseCodeCell.setCellValue("用例编号");
-            caseCodeCell.setCellStyle(headerStyle);
-            Cell isValidCell = headerRow.createCell(colNum++);
-            isValidCell.setCellValue("是否有效");
-            isValidCell.setCellStyle(headerStyle);
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("等价类表")) {
+            List<String> headers = equivalenceHeaders(response);
+            writer.writeTitle(response.getTitle(), headers.size() - 1);
+            writer.skipRow();
+            writer.writeRow(StreamingExcelWriter.Style.HEADER, headers);
             
             // 数据行
             int caseIndex = 1;
             for (Map<String, Object> rowData : response.getTableData()) {
-                Row dataRow = sheet.createRow(rowNum++);
-                colNum = 0;
-                for (String param : response.getParameters()) {
-                    Cell cell = dataRow.createCell(colNum++);
-                    Object value = rowData.get(param);
-                    if (value != null) {
-                        cell.setCellValue(value.toString());
-                    }
-                    cell.setCellStyle(dataStyle);
-                }
-                Cell caseCodeDataCell = dataRow.createCell(colNum++);
-                caseCodeDataCell.setCellValue("TC-" + String.format("%03d", caseIndex++));
-                caseCodeDataCell.setCellStyle(dataStyle);
-                Cell isValidDataCell = dataRow.createCell(colNum++);
-                Boolean isValid = (Boolean) rowData.get("isValid");
-                isValidDataCell.setCellValue(Boolean.TRUE.equals(isValid) ? "有效" : "无效");
-                isValidDataCell.setCellStyle(dataStyle);
-            }
-            
-            // 自动调整列宽
-            for (int i = 0; i < response.getParameters().size() + 2; i++) {
-                sheet.autoSizeColumn(i);
+                writer.writeRow(StreamingExcelWriter.Style.DATA, equivalenceRow(response, rowData, caseIndex++));
             }
             
-            workbook.write(outputStream);
-            workbook.close();
+            writer.writeTo(outputStream);
             log.info("等价类表导出到Excel成功");
         } catch (Exception e) {
             log.error("导出等价类表到Excel失败", e);
@@ -255,49 +223,19 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
     @Override
     public void exportEquivalenceTableToWord(EquivalenceTableResponseDTO response, OutputStream outputStream) {
         log.info("导出等价类表到Word");
-        try {
-            XWPFDocument document = new XWPFDocument();
-            
-            // 标题
-            XWPFParagraph titlePara = document.createParagraph();
-            titlePara.setAlignment(ParagraphAlignment.CENTER);
-            XWPFRun titleRun = titlePara.createRun();
-            titleRun.setText(response.getTitle());
-            titleRun.setBold(true);
-            titleRun.setFontSize(16);
+        try (XWPFDocument document = new XWPFDocument()) {
+            WordTableWriter.writeTitle(document, response.getTitle());
             
             // 空行
             document.createParagraph();
             
-            // 创建表格
-            XWPFTable table = document.createTable(response.getTableData().size() + 1, response.getParameters().size() + 2);
-            
-            // 表头
-            XWPFTableRow headerRow = table.getRow(0);
-            int colIndex = 0;
-            for (String param : response.getParameters()) {
-                setCellValue(headerRow.getCell(colIndex++), param);
-            }
-            setCellValue(headerRow.getCell(colIndex++), "用例编号");
-            setCellValue(headerRow.getCell(colIndex++), "是否有效");
-            
-            // 数据行
+            XWPFTable table = WordTableWriter.createTable(document, equivalenceHeaders(response));
             int caseIndex = 1;
-            for (int i = 0; i < response.getTableData().size(); i++) {
-                Map<String, Object> rowData = response.getTableData().get(i);
-                XWPFTableRow dataRow = table.getRow(i + 1);
-                colIndex = 0;
-                for (String param : response.getParameters()) {
-                    Object value = rowData.get(param);
-                    setCellValue(dataRow.getCell(colIndex++), value != null ? value.toString() : "");
-                }
-                setCellValue(dataRow.getCell(colIndex++), "TC-" + String.format("%03d", caseIndex++));
-                Boolean isValid = (Boolean) rowData.get("isValid");
-                setCellValue(dataRow.getCell(colIndex++), Boolean.TRUE.equals(isValid) ? "有效" : "无效");
+            for (Map<String, Object> rowData : response.getTableData()) {
+                WordTableWriter.appendRow(table, equivalenceRow(response, rowData, caseIndex++));
             }
             
             document.write(outputStream);
-            document.close();
             log.info("等价类表导出到Word成功");
         } catch (Exception e) {
             log.error("导出等价类表到Word失败", e);
@@ -308,70 +246,27 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
     @Override
     public void exportOrthogonalTableToExcel(OrthogonalTableResponseDTO response, OutputStream outputStream) {
         log.info("导出正交表到Excel");
-        try {
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("正交表");
-            
-            // 创建样式
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle dataStyle = createDataStyle(workbook);
-            
-            int rowNum = 0;
-            
-            // 标题行
-            Row titleRow = sheet.createRow(rowNum++);
-            Cell titleCell = titleRow.createCell(0);
-            titleCell.setCellValue(response.getTitle() + " (" + response.getTableType() + ")");
-            titleCell.setCellStyle(headerStyle);
-            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, response.getFactors().size() + 1));
-            
-            rowNum++; // 空行
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("正交表")) {
+            List<String> headers = orthogonalHeaders(response);
+            writer.writeTitle(response.getTitle() + " (" + response.getTableType() + ")", headers.size() - 1);
+            writer.skipRow();
             
             // 统计信息
-            Row statRow = sheet.createRow(rowNum++);
-            statRow.createCell(0).setCellValue("组合数：" + response.getCombinationCount());
-            statRow.createCell(1).setCellValue("理论最大用例数：" + response.getTheoreticalMaxCases());
-            statRow.createCell(2).setCellValue("缩减率：" + response.getReductionRate() + "%");
+            writer.writeRow(StreamingExcelWriter.Style.PLAIN,
+                    "组合数：" + response.getCombinationCount(),
+                    "理论最大用例数：" + response.getTheoreticalMaxCases(),
+                    "缩减率：" + response.getReductionRate() + "%");
+            writer.skipRow();
             
-            rowNum++; // 空行
-            
-            // 表头
-            Row headerRow = sheet.createRow(rowNum++);
-            int colNum = 0;
-            for (String factor : response.getFactors()) {
-                Cell cell = headerRow.createCell(colNum++);
-                cell.setCellValue(factor);
-                cell.setCellStyle(headerStyle);
-            }
-            Cell caseCodeCell = headerRow.createCell(colNum++);
-            caseCodeCell.setCellValue("用例编号");
-            caseCodeCell.setCellStyle(headerStyle);
+            writer.writeRow(StreamingExcelWriter.Style.HEADER, headers);
             
             // 数据行
             int caseIndex = 1;
             for (Map<String, Object> rowData : response.getTableData()) {
-                Row dataRow = sheet.createRow(rowNum++);
-                colNum = 0;
-                for (String factor : response.getFactors()) {
-                    Cell cell = dataRow.createCell(colNum++);
-                    Object value = rowData.get(factor);
-                    if (value != null) {
-                        cell.setCellValue(value.toString());
-                    }
-                    cell.setCellStyle(dataStyle);
-                }
-                Cell caseCodeDataCell = dataRow.createCell(colNum++);
-                caseCodeDataCell.setCellValue("TC-" + String.format("%03d", caseIndex++));
-                caseCodeDataCell.setCellStyle(dataStyle);
+                writer.writeRow(StreamingExcelWriter.Style.DATA, orthogonalRow(response, rowData, caseIndex++));
             }
             
-            // 自动调整列宽
-            for (int i = 0; i < response.getFactors().size() + 1; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            workbook.write(outputStream);
-            workbook.close();
+            writer.writeTo(outputStream);
             log.info("正交表导出到Excel成功");
         } catch (Exception e) {
             log.error("导出正交表到Excel失败", e);
@@ -382,16 +277,8 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
     @Override
     public void exportOrthogonalTableToWord(OrthogonalTableResponseDTO response, OutputStream outputStream) {
         log.info("导出正交表到Word");
-        try {
-            XWPFDocument document = new XWPFDocument();
-            
-            // 标题
-            XWPFParagraph titlePara = document.createParagraph();
-            titlePara.setAlignment(ParagraphAlignment.CENTER);
-            XWPFRun titleRun = titlePara.createRun();
-            titleRun.setText(response.getTitle() + " (" + response.getTableType() + ")");
-            titleRun.setBold(true);
-            titleRun.setFontSize(16);
+        try (XWPFDocument document = new XWPFDocument()) {
+            WordTableWriter.writeTitle(document, response.getTitle() + " (" + response.getTableType() + ")");
             
             // 空行
             document.createParagraph();
@@ -405,32 +292,13 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
             // 空行
             document.createParagraph();
             
-            // 创建表格
-            XWPFTable table = document.createTable(response.getTableData().size() + 1, response.getFactors().size() + 1);
-            
-            // 表头
-            XWPFTableRow headerRow = table.getRow(0);
-            int colIndex = 0;
-            for (String factor : response.getFactors()) {
-                setCellValue(headerRow.getCell(colIndex++), factor);
-            }
-            setCellValue(headerRow.getCell(colIndex++), "用例编号");
-            
-            // 数据行
+            XWPFTable table = WordTableWriter.createTable(document, orthogonalHeaders(response));
             int caseIndex = 1;
-            for (int i = 0; i < response.getTableData().size(); i++) {
-                Map<String, Object> rowData = response.getTableData().get(i);
-                XWPFTableRow dataRow = table.getRow(i + 1);
-                colIndex = 0;
-                for (String factor : response.getFactors()) {
-                    Object value = rowData.get(factor);
-                    setCellValue(dataRow.getCell(colIndex++), value != null ? value.toString() : "");
-                }
-                setCellValue(dataRow.getCell(colIndex++), "TC-" + String.format("%03d", caseIndex++));
+            for (Map<String, Object> rowData : response.getTableData()) {
+                WordTableWriter.appendRow(table, orthogonalRow(response, rowData, caseIndex++));
             }
             
             document.write(outputStream);
-            document.close();
             log.info("正交表导出到Word成功");
         } catch (Exception e) {
             log.error("导出正交表到Word失败", e);
@@ -438,6 +306,62 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
         }
     }
     
+    /**
+     * 等价类表导出表头：参数列 + 用例编号 + 是否有效
+     */
+    private List<String> equivalenceHeaders(EquivalenceTableResponseDTO response) {
+        List<String> headers = new ArrayList<>(response.getParameters());
+        headers.add("用例编号");
+        headers.add("是否有效");
+        return headers;
+    }
+    
+    /**
+     * 等价类表导出数据行
+     */
+    private List<String> equivalenceRow(EquivalenceTableResponseDTO response, Map<String, Object> rowData, int caseIndex) {
+        List<String> values = new ArrayList<>(response.getParameters().size() + 2);
+        for (String param : response.getParameters()) {
+            Object value = rowData.get(param);
+            values.add(value != null ? value.toString() : "");
+        }
+        values.add(formatCaseCode(caseIndex));
+        values.add(Boolean.TRUE.equals(rowData.get("isValid")) ? "有效" : "无效");
+        return values;
+    }
+    
+    /**
+     * 正交表导出表头：因素列 + 用例编号
+     */
+    private List<String> orthogonalHeaders(OrthogonalTableResponseDTO response) {
+        List<String> headers = new ArrayList<>(response.getFactors());
+        headers.add("用例编号");
+        return headers;
+    }
+    
+    /**
+     * 正交表导出数据行
+     */
+    private List<String> orthogonalRow(OrthogonalTableResponseDTO response, Map<String, Object> rowData, int caseIndex) {
+        List<String> values = new ArrayList<>(response.getFactors().size() + 1);
+        for (String factor : response.getFactors()) {
+            Object value = rowData.get(factor);
+            values.add(value != null ? value.toString() : "");
+        }
+        values.add(formatCaseCode(caseIndex));
+        return values;
+    }
+    
+    /**
+     * 用例编号：TC-001，超过三位时按实际位数
+     */
+    private static String formatCaseCode(int caseIndex) {
+        if (caseIndex >= 100) {
+            return "TC-" + caseIndex;
+        }
+        return caseIndex >= 10 ? "TC-0" + caseIndex : "TC-00" + caseIndex;
+    }
+    
     /**
      * 从需求或用例中提取等价类数据
      */
@@ -566,340 +490,379 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
     }
     
     /**
-     * 生成等价类表数据（笛卡尔积）
+     * 生成等价类表数据
+     * 每个参数的等价类按"有效在前、无效在后"编号，组合以下标数组表示，按混合进制计数逐个生成，不展开完整笛卡尔积；
+     * 去重使用long编码。结果按有效性排序（有效用例在前，无效用例按无效等价类数量升序）。
      */
-    private List<Map<String, Object>> generateEquivalenceTableData(Map<String, Map<String, List<String>>> equivalenceClasses) {
-        List<Map<String, Object>> tableData = new ArrayList<>();
-        
-        // 提取所有参数的有效和无效等价类
-        List<String> parameters = new ArrayList<>(equivalenceClasses.keySet());
-        List<List<Map.Entry<String, String>>> parameterCombinations = new ArrayList<>();
-        
-        for (String param : parameters) {
-            Map<String, List<String>> classes = equivalenceClasses.get(param);
-            List<Map.Entry<String, String>> paramValues = new ArrayList<>();
-            
-            // 添加有效等价类
-            for (String value : classes.getOrDefault("有效等价类", Collections.emptyList())) {
-                paramValues.add(new AbstractMap.SimpleEntry<>(param, value));
-            }
-            
-            // 添加无效等价类
-            for (String value : classes.getOrDefault("无效等价类", Collections.emptyList())) {
-                paramValues.add(new AbstractMap.SimpleEntry<>(param, value));
-            }
-            
-            parameterCombinations.add(paramValues);
+    private List<Map<String, Object>> generateEquivalenceTableData(Map<String, Map<String, List<String>>> equivalenceClasses,
+                                                                   EquivalenceTableRequestDTO request) {
+        // 提取所有参数的有效和无效等价类（没有任何等价类的参数不参与组合）
+        List<String> parameters = new ArrayList<>();
+        List<String[]> values = new ArrayList<>();
+        List<Integer> validCounts = new ArrayList<>();
+        for (Map.Entry<String, Map<String, List<String>>> entry : equivalenceClasses.entrySet()) {
+            List<String> validClasses = entry.getValue().getOrDefault("有效等价类", Collections.emptyList());
+            List<String> invalidClasses = entry.getValue().getOrDefault("无效等价类", Collections.emptyList());
+            if (validClasses.isEmpty() && invalidClasses.isEmpty()) {
+                continue;
+            }
+            List<String> paramValues = new ArrayList<>(validClasses);
+            paramValues.addAll(invalidClasses);
+            parameters.add(entry.getKey());
+            values.add(paramValues.toArray(new String[0]));
+            validCounts.add(validClasses.size());
         }
-        
-        // 优化：如果参数组合数过多，使用智能生成策略
-        long totalCombinations = parameterCombinations.stream()
-                .mapToLong(List::size)
-                .reduce(1, (a, b) -> a * b);
-        
-        List<List<Map.Entry<String, String>>> cartesianProduct;
-        if (totalCombinations > 1000) {
-            // 如果组合数过多，使用智能生成（优先生成有效组合和边界组合）
-            cartesianProduct = generateSmartCombinations(parameterCombinations, equivalenceClasses);
-        } else {
-            // 组合数较少，生成完整笛卡尔积
-            cartesianProduct = generateCartesianProduct(parameterCombinations);
-        }
-        
-        // 构建表格数据（优化：按有效性排序，有效用例在前）
-        List<Map<String, Object>> validRows = new ArrayList<>();
-        List<Map<String, Object>> invalidRows = new ArrayList<>();
-        
-        for (List<Map.Entry<String, String>> combination : cartesianProduct) {
-            Map<String, Object> row = new LinkedHashMap<>();
-            boolean isValid = true;
-            int invalidCount = 0; // 统计无效等价类数量
-            
-            for (Map.Entry<String, String> entry : combination) {
-                row.put(entry.getKey(), entry.getValue());
-                // 判断是否有效（如果包含无效等价类，则整个组合无效）
-                Map<String, List<String>> classes = equivalenceClasses.get(entry.getKey());
-                List<String> invalidClasses = classes.getOrDefault("无效等价类", Collections.emptyList());
-                if (invalidClasses.contains(entry.getValue())) {
-                    isValid = false;
-                    invalidCount++;
+        EquivalenceSpace space = new EquivalenceSpace(parameters, values,
+                validCounts.stream().mapToInt(Integer::intValue).toArray());
+        
+        int maxCases = request.getMaxCombinations() != null
+                ? Math.max(1, Math.min(request.getMaxCombinations(), MAX_EQUIVALENCE_CASES))
+                : DEFAULT_MAX_EQUIVALENCE_CASES;
+        String strategy = StringUtils.hasText(request.getCombinationStrategy())
+                ? request.getCombinationStrategy().toUpperCase() : "AUTO";
+        
+        CombinationCollector collector = new CombinationCollector(space.product, maxCases);
+        switch (strategy) {
+            case "FULL" -> collectAll(space.product, collector);
+            case "PAIRWISE" -> collectPairwise(space.radices, collector);
+            case "RANDOM" -> collectRandom(space.product, collector, maxCases);
+            case "AUTO" -> {
+                if (space.product.size() <= maxCases) {
+                    // 组合数较少，生成完整笛卡尔积
+                    collectAll(space.product, collector);
+                } else {
+                    // 组合数过多，使用智能生成（优先生成有效组合和边界组合）
+                    collectSmartCombinations(space, collector);
                 }
             }
-            
-            row.put("isValid", isValid);
-            row.put("invalidCount", invalidCount); // 记录无效等价类数量，用于排序
-            
-            if (isValid) {
-                validRows.add(row);
-            } else {
-                invalidRows.add(row);
-            }
+            default -> throw new IllegalArgumentException("不支持的组合策略：" + request.getCombinationStrategy());
+        }
+        if (collector.isFull() && space.product.size() > maxCases) {
+            log.warn("等价类组合数{}超过上限{}，已按{}策略截断", space.product.size(), maxCases, strategy);
         }
         
-        // 排序：有效用例在前，无效用例按无效数量排序
-        validRows.sort((r1, r2) -> 0); // 有效用例保持原序
-        invalidRows.sort((r1, r2) -> {
-            Integer count1 = (Integer) r1.get("invalidCount");
-            Integer count2 = (Integer) r2.get("invalidCount");
-            return Integer.compare(count1 != null ? count1 : 0, count2 != null ? count2 : 0);
-        });
-        
-        tableData.addAll(validRows);
-        tableData.addAll(invalidRows);
-        
-        return tableData;
+        // 排序：有效用例在前并保持原序，无效用例按无效等价类数量升序（稳定排序）
+        List<int[]> rows = collector.rows;
+        rows.sort(Comparator.comparingInt(space::invalidCount));
+        return new EquivalenceTableRows(space, rows);
+    }
+    
+    private void collectAll(MixedRadixProduct product, CombinationCollector collector) {
+        Iterator<int[]> iterator = product.iterator();
+        while (iterator.hasNext() && !collector.isFull()) {
+            collector.add(iterator.next());
+        }
+    }
+    
+    private void collectPairwise(int[] radices, CombinationCollector collector) {
+        int[][] coveringArray = CoveringArrayGenerator.generate(radices, 2);
+        for (int i = 0; i < coveringArray.length && !collector.isFull(); i++) {
+            collector.add(coveringArray[i]);
+        }
+    }
+    
+    private void collectRandom(MixedRadixProduct product, CombinationCollector collector, int count) {
+        if (product.size() <= count) {
+            collectAll(product, collector);
+            return;
+        }
+        addRandom(product, collector, count);
     }
     
     /**
-     * 生成笛卡尔积
+     * 随机补充不重复的组合
+     *
+     * @return 实际补充的数量
      */
-    private <T> List<List<T>> generateCartesianProduct(List<List<T>> lists) {
-        if (lists.isEmpty()) {
-            return Collections.singletonList(Collections.emptyList());
-        }
-        
-        List<List<T>> result = new ArrayList<>();
-        List<T> firstList = lists.get(0);
-        List<List<T>> restProduct = generateCartesianProduct(lists.subList(1, lists.size()));
-        
-        for (T item : firstList) {
-            for (List<T> rest : restProduct) {
-                List<T> combination = new ArrayList<>();
-                combination.add(item);
-                combination.addAll(rest);
-                result.add(combination);
+    private int addRandom(MixedRadixProduct product, CombinationCollector collector, int count) {
+        Random random = ThreadLocalRandom.current();
+        int target = Math.min(count, collector.remaining());
+        int attempts = 0;
+        int added = 0;
+        // 抽样空间远大于目标数，重复概率低；限制尝试次数防止极端情况下死循环
+        while (added < target && attempts < target * 10) {
+            attempts++;
+            if (collector.add(product.random(random))) {
+                added++;
             }
         }
-        
-        return result;
+        return added;
     }
     
     /**
      * 智能生成组合（优化：优先生成有效组合和边界组合）
      */
-    private List<List<Map.Entry<String, String>>> generateSmartCombinations(
-            List<List<Map.Entry<String, String>>> parameterCombinations,
-            Map<String, Map<String, List<String>>> equivalenceClasses) {
-        List<List<Map.Entry<String, String>>> result = new ArrayList<>();
+    private void collectSmartCombinations(EquivalenceSpace space, CombinationCollector collector) {
+        int parameterCount = space.radices.length;
         
-        // 策略1：生成所有有效等价类的组合（优先）
-        List<List<Map.Entry<String, String>>> validCombinations = new ArrayList<>();
-        for (List<Map.Entry<String, String>> paramValues : parameterCombinations) {
-            List<Map.Entry<String, String>> validValues = new ArrayList<>();
-            for (Map.Entry<String, String> entry : paramValues) {
-                String paramName = entry.getKey();
-                Map<String, List<String>> classes = equivalenceClasses.get(paramName);
-                List<String> validClasses = classes.getOrDefault("有效等价类", Collections.emptyList());
-                if (validClasses.contains(entry.getValue())) {
-                    validValues.add(entry);
-                }
-            }
-            if (!validValues.isEmpty()) {
-                validCombinations.add(validValues);
+        // 策略2先确定数量：每个参数一个边界组合，为其预留名额
+        int boundaryCount = parameterCount;
+        
+        // 策略1：有效等价类的组合（优先），超出名额时先保证配对覆盖，剩余名额随机补充
+        int[] validRadices = new int[parameterCount];
+        for (int p = 0; p < parameterCount; p++) {
+            validRadices[p] = Math.max(1, space.validCounts[p]);
+        }
+        MixedRadixProduct validProduct = new MixedRadixProduct(validRadices);
+        int validBudget = Math.max(1, collector.remaining() - boundaryCount);
+        Iterator<int[]> validCombinations = validProduct.size() <= validBudget
+                ? validProduct.iterator()
+                : Arrays.asList(CoveringArrayGenerator.generate(validRadices, 2)).iterator();
+        int validAdded = 0;
+        while (validCombinations.hasNext() && validAdded < validBudget && !collector.isFull()) {
+            // 没有有效等价类的参数取第一个无效等价类
+            if (collector.add(validCombinations.next())) {
+                validAdded++;
             }
         }
-        if (!validCombinations.isEmpty()) {
-            result.addAll(generateCartesianProduct(validCombinations));
+        if (validAdded < validBudget && validProduct.size() > validBudget) {
+            addRandom(validProduct, collector, validBudget - validAdded);
         }
         
-        // 策略2：生成边界组合（每个参数选择一个无效等价类，其他选择有效等价类）
-        for (int i = 0; i < parameterCombinations.size(); i++) {
-            List<Map.Entry<String, String>> boundaryCombination = new ArrayList<>();
-            for (int j = 0; j < parameterCombinations.size(); j++) {
-                if (i == j) {
-                    // 当前参数选择第一个无效等价类
-                    String paramName = parameterCombinations.get(j).get(0).getKey();
-                    Map<String, List<String>> classes = equivalenceClasses.get(paramName);
-                    List<String> invalidClasses = classes.getOrDefault("无效等价类", Collections.emptyList());
-                    if (!invalidClasses.isEmpty()) {
-                        boundaryCombination.add(new AbstractMap.SimpleEntry<>(paramName, invalidClasses.get(0)));
-                    } else {
-                        // 如果没有无效等价类，选择有效等价类
-                        boundaryCombination.add(parameterCombinations.get(j).get(0));
-                    }
-                } else {
-                    // 其他参数选择第一个有效等价类
-                    String paramName = parameterCombinations.get(j).get(0).getKey();
-                    Map<String, List<String>> classes = equivalenceClasses.get(paramName);
-                    List<String> validClasses = classes.getOrDefault("有效等价类", Collections.emptyList());
-                    if (!validClasses.isEmpty()) {
-                        boundaryCombination.add(new AbstractMap.SimpleEntry<>(paramName, validClasses.get(0)));
-                    } else {
-                        boundaryCombination.add(parameterCombinations.get(j).get(0));
-                    }
-                }
-            }
-            if (!boundaryCombination.isEmpty()) {
-                result.add(boundaryCombination);
+        // 策略2：生成边界组合（每个参数选择第一个无效等价类，其他参数选择第一个有效等价类）
+        for (int i = 0; i < parameterCount && !collector.isFull(); i++) {
+            int[] boundary = new int[parameterCount];
+            if (space.radices[i] > space.validCounts[i]) {
+                boundary[i] = space.validCounts[i];
             }
+            collector.add(boundary);
         }
         
         // 策略3：如果结果仍然太少，补充一些随机组合（最多100个）
-        if (result.size() < 50) {
-            int maxAdditional = Math.min(100, (int) (parameterCombinations.stream()
-                    .mapToLong(List::size)
-                    .reduce(1, (a, b) -> a * b) - result.size()));
-            
-            // 随机生成一些组合
-            Random random = new Random();
-            Set<String> existingCombinations = new HashSet<>();
-            for (List<Map.Entry<String, String>> combo : result) {
-                existingCombinations.add(comboToString(combo));
-            }
-            
-            int added = 0;
-            while (added < maxAdditional && added < 1000) {
-                List<Map.Entry<String, String>> randomCombo = new ArrayList<>();
-                for (List<Map.Entry<String, String>> paramValues : parameterCombinations) {
-                    if (!paramValues.isEmpty()) {
-                        randomCombo.add(paramValues.get(random.nextInt(paramValues.size())));
-                    }
-                }
-                String comboKey = comboToString(randomCombo);
-                if (!existingCombinations.contains(comboKey)) {
-                    result.add(randomCombo);
-                    existingCombinations.add(comboKey);
-                    added++;
+        if (collector.rows.size() < 50) {
+            collectRandom(space.product, collector, 100);
+        }
+    }
+    
+    /**
+     * 等价类组合空间：参数、各参数的等价类取值（有效在前）及其数量
+     */
+    private static final class EquivalenceSpace {
+        
+        private final List<String> parameters;
+        private final List<String[]> values;
+        private final int[] validCounts;
+        private final int[] radices;
+        private final MixedRadixProduct product;
+        
+        private EquivalenceSpace(List<String> parameters, List<String[]> values, int[] validCounts) {
+            this.parameters = parameters;
+            this.values = values;
+            this.validCounts = validCounts;
+            this.radices = values.stream().mapToInt(v -> v.length).toArray();
+            this.product = new MixedRadixProduct(radices);
+        }
+        
+        /**
+         * 组合中无效等价类的数量
+         */
+        private int invalidCount(int[] digits) {
+            int count = 0;
+            for (int p = 0; p < digits.length; p++) {
+                if (digits[p] >= validCounts[p]) {
+                    count++;
                 }
             }
+            return count;
         }
-        
-        return result;
     }
     
     /**
-     * 将组合转换为字符串（用于去重）
+     * 组合收集器：按long编码去重，达到上限后不再接收
      */
-    private String comboToString(List<Map.Entry<String, String>> combo) {
-        return combo.stream()
-                .map(e -> e.getKey() + "=" + e.getValue())
-                .collect(Collectors.joining("|"));
+    private static final class CombinationCollector {
+        
+        private final MixedRadixProduct product;
+        private final int limit;
+        private final List<int[]> rows = new ArrayList<>();
+        private final Set<Long> keys = new HashSet<>();
+        
+        private CombinationCollector(MixedRadixProduct product, int limit) {
+            this.product = product;
+            this.limit = limit;
+        }
+        
+        private boolean add(int[] digits) {
+            if (isFull() || !keys.add(product.key(digits))) {
+                return false;
+            }
+            rows.add(digits);
+            return true;
+        }
+        
+        private boolean isFull() {
+            return rows.size() >= limit;
+        }
+        
+        private int remaining() {
+            return limit - rows.size();
+        }
     }
     
     /**
-     * 确定正交表类型
+     * 等价类表数据的只读视图：按下标数组生成行，不预先构建所有行的Map
      */
-    private String determineOrthogonalTableType(Map<String, List<String>> factors) {
-        // 计算因素数和水平数
-        int factorCount = factors.size();
-        List<Integer> levels = factors.values().stream()
-                .map(List::size)
-                .sorted(Collections.reverseOrder())
-                .collect(Collectors.toList());
+    private static final class EquivalenceTableRows extends AbstractList<Map<String, Object>> {
         
-        // 优化：根据因素数和水平数智能选择正交表类型
-        int maxLevel = levels.isEmpty() ? 0 : levels.get(0);
-        boolean allSameLevel = levels.stream().allMatch(l -> l.equals(maxLevel));
+        private final EquivalenceSpace space;
+        private final List<int[]> rows;
         
-        // 标准正交表选择规则
-        if (allSameLevel) {
-            // 所有因素水平数相同
-            if (maxLevel == 2) {
-                if (factorCount <= 3) {
-                    return "L4(2³)";
-                } else if (factorCount <= 7) {
-                    return "L8(2⁷)";
-                } else if (factorCount <= 11) {
-                    return "L12(2¹¹)";
-                } else if (factorCount <= 15) {
-                    return "L16(2¹⁵)";
-                } else {
-                    return "L32(2³¹)";
-                }
-            } else if (maxLevel == 3) {
-                if (factorCount <= 4) {
-                    return "L9(3⁴)";
-                } else if (factorCount <= 13) {
-                    return "L27(3¹³)";
-                } else {
-                    return "L81(3⁴⁰)";
-                }
-            } else if (maxLevel == 4) {
-                if (factorCount <= 5) {
-                    return "L16(4⁵)";
-                } else {
-                    return "L64(4²¹)";
-                }
-            } else if (maxLevel == 5) {
-                if (factorCount <= 6) {
-                    return "L25(5⁶)";
-                } else {
-                    return "L125(5³¹)";
-                }
-            }
-        } else {
-            // 混合水平正交表（简化处理）
-            if (maxLevel <= 2 && factorCount <= 7) {
-                return "L8(混合水平)";
-            } else if (maxLevel <= 3 && factorCount <= 4) {
-                return "L9(混合水平)";
-            } else if (maxLevel <= 4 && factorCount <= 5) {
-                return "L16(混合水平)";
+        private EquivalenceTableRows(EquivalenceSpace space, List<int[]> rows) {
+            this.space = space;
+            this.rows = rows;
+        }
+        
+        @Override
+        public Map<String, Object> get(int index) {
+            int[] digits = rows.get(index);
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int p = 0; p < digits.length; p++) {
+                row.put(space.parameters.get(p), space.values.get(p)[digits[p]]);
             }
+            int invalidCount = space.invalidCount(digits);
+            row.put("isValid", invalidCount == 0);
+            row.put("invalidCount", invalidCount); // 记录无效等价类数量，用于排序
+            return row;
         }
         
-        // 默认使用配对组合算法
-        return "配对组合";
+        @Override
+        public int size() {
+            return rows.size();
+        }
+    }
+    
+    /**
+     * 选择标准正交表
+     * 请求指定了正交表类型时使用指定的表（不适用时报错），否则自动选择能容纳所有因素的最小正交表
+     *
+     * @return 正交表，需要使用覆盖表算法时返回null
+     */
+    private OrthogonalArray selectOrthogonalArray(OrthogonalTableRequestDTO request, int strength) {
+        boolean hasConstraints = request.getConstraints() != null && !request.getConstraints().isEmpty();
+        boolean hasSeeds = request.getSeeds() != null && !request.getSeeds().isEmpty();
+        if (strength != 2 || hasConstraints || hasSeeds) {
+            return null;
+        }
+        int[] levels = request.getFactors().values().stream().mapToInt(List::size).toArray();
+        if (StringUtils.hasText(request.getTableType())) {
+            OrthogonalArray specified = OrthogonalArray.byName(request.getTableType());
+            if (specified == null) {
+                throw new BusinessException("不支持的正交表类型：" + request.getTableType());
+            }
+            if (!specified.fits(levels)) {
+                throw new BusinessException("正交表" + specified.getName() + "无法容纳当前因素（因素数或水平数过多）");
+            }
+            return specified;
+        }
+        return OrthogonalArray.select(levels);
     }
     
     /**
      * 生成正交表数据
+     * 使用IPOG覆盖表算法，保证任意strength个因素的所有取值组合至少出现一次；
+     * 因约束隐含冲突而无法覆盖的组合写入响应的uncoverableCombinations
      */
-    private List<Map<String, Object>> generateOrthogonalTableData(Map<String, List<String>> factors, String tableType) {
-        List<Map<String, Object>> tableData = new ArrayList<>();
-        List<String> factorNames = new ArrayList<>(factors.keySet());
-        
-        // 根据正交表类型生成数据
-        // 这里使用简化的正交表生成算法
-        // 实际应用中可以使用更复杂的正交表生成算法或查找标准正交表
-        
-        // 获取所有因素的水平数
+    private List<Map<String, Object>> generateOrthogonalTableData(OrthogonalTableRequestDTO request, int strength,
+                                                                  OrthogonalTableResponseDTO response) {
+        List<String> factorNames = new ArrayList<>(request.getFactors().keySet());
         List<List<String>> factorLevels = factorNames.stream()
-                .map(factors::get)
+                .map(request.getFactors()::get)
                 .collect(Collectors.toList());
         
-        // 简化的正交表生成：使用配对组合算法
-        tableData = generatePairwiseCombinations(factorNames, factorLevels);
+        int[] levels = factorLevels.stream().mapToInt(List::size).toArray();
+        List<int[]> constraints = toLevelIndexes(request.getConstraints(), factorNames, factorLevels, "约束条件");
+        List<int[]> seeds = toLevelIndexes(request.getSeeds(), factorNames, factorLevels, "种子组合");
+        CoveringArrayGenerator.Report report;
+        try {
+            report = CoveringArrayGenerator.generateWithReport(levels, strength, constraints, seeds);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
         
+        List<Map<String, Object>> tableData = new ArrayList<>(report.rows().length);
+        for (int[] row : report.rows()) {
+            tableData.add(toRowData(row, factorNames, factorLevels));
+        }
+        if (!report.uncoverableTuples().isEmpty()) {
+            log.warn("约束条件之间存在冲突，{}个组合无法覆盖", report.uncoverableTuples().size());
+            response.setUncoverableCombinations(report.uncoverableTuples().stream()
+                    .map(tuple -> toRowData(tuple, factorNames, factorLevels))
+                    .collect(Collectors.toList()));
+        }
         return tableData;
     }
     
     /**
-     * 生成配对组合（Pairwise Testing）
-     * 这是一种简化的正交表生成方法
+     * 水平下标转换为因素名到取值的映射，UNSET的因素不输出
      */
-    private List<Map<String, Object>> generatePairwiseCombinations(List<String> factorNames, List<List<String>> factorLevels) {
-        List<Map<String, Object>> combinations = new ArrayList<>();
-        
-        if (factorNames.isEmpty()) {
-            return combinations;
+    private static Map<String, Object> toRowData(int[] row, List<String> factorNames, List<List<String>> factorLevels) {
+        Map<String, Object> rowData = new LinkedHashMap<>();
+        for (int i = 0; i < factorNames.size(); i++) {
+            if (row[i] != CoveringArrayGenerator.UNSET) {
+                rowData.put(factorNames.get(i), factorLevels.get(i).get(row[i]));
+            }
         }
-        
-        // 递归生成配对组合
-        generatePairwiseRecursive(factorNames, factorLevels, 0, new LinkedHashMap<>(), combinations);
-        
-        return combinations;
+        return rowData;
     }
     
-    private void generatePairwiseRecursive(List<String> factorNames, List<List<String>> factorLevels, 
-                                          int index, Map<String, Object> current, List<Map<String, Object>> result) {
-        if (index >= factorNames.size()) {
-            result.add(new LinkedHashMap<>(current));
-            return;
+    /**
+     * 将按因素名/取值描述的部分组合转换为水平下标，未指定的因素为UNSET
+     */
+    private List<int[]> toLevelIndexes(List<Map<String, String>> combinations, List<String> factorNames,
+                                       List<List<String>> factorLevels, String name) {
+        if (combinations == null || combinations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<int[]> result = new ArrayList<>(combinations.size());
+        for (Map<String, String> combination : combinations) {
+            int[] indexes = new int[factorNames.size()];
+            Arrays.fill(indexes, CoveringArrayGenerator.UNSET);
+            for (Map.Entry<String, String> entry : combination.entrySet()) {
+                int factorIndex = factorNames.indexOf(entry.getKey());
+                if (factorIndex < 0) {
+                    throw new BusinessException(name + "中的因素不存在：" + entry.getKey());
+                }
+                int levelIndex = factorLevels.get(factorIndex).indexOf(entry.getValue());
+                if (levelIndex < 0) {
+                    throw new BusinessException(name + "中的取值不存在：" + entry.getKey() + "=" + entry.getValue());
+                }
+                indexes[factorIndex] = levelIndex;
+            }
+            result.add(indexes);
+        }
+        return result;
+    }
+    
+    /**
+     * 正交表数据的只读视图：按行号从正交表计算各因素取值，不整表展开
+     */
+    private static final class OrthogonalTableRows extends AbstractList<Map<String, Object>> {
+        
+        private final List<String> factorNames;
+        private final List<List<String>> factorValues;
+        private final int[] levels;
+        private final OrthogonalArray orthogonalArray;
+        
+        private OrthogonalTableRows(Map<String, List<String>> factors, OrthogonalArray orthogonalArray) {
+            this.factorNames = new ArrayList<>(factors.keySet());
+            this.factorValues = factorNames.stream().map(factors::get).collect(Collectors.toList());
+            this.levels = factorValues.stream().mapToInt(List::size).toArray();
+            this.orthogonalArray = orthogonalArray;
         }
         
-        String factorName = factorNames.get(index);
-        List<String> levels = factorLevels.get(index);
-        
-        for (String level : levels) {
-            current.put(factorName, level);
-            generatePairwiseRecursive(factorNames, factorLevels, index + 1, current, result);
-            current.remove(factorName);
-            
-            // 简化：只为每个因素的前几个水平生成组合，减少组合数
-            if (index > 0 && result.size() >= 16) {
-                break;
+        @Override
+        public Map<String, Object> get(int index) {
+            int[] row = orthogonalArray.row(index, levels);
+            Map<String, Object> rowData = new LinkedHashMap<>();
+            for (int i = 0; i < factorNames.size(); i++) {
+                rowData.put(factorNames.get(i), factorValues.get(i).get(row[i]));
             }
+            return rowData;
+        }
+        
+        @Override
+        public int size() {
+            return orthogonalArray.getRuns();
         }
     }
     
@@ -916,7 +879,7 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
             dir.mkdirs();
             
             java.io.File file = new java.io.File(dir, fileName);
-            try (OutputStream os = new java.io.FileOutputStream(file)) {
+            try (OutputStream os = new java.io.BufferedOutputStream(new java.io.FileOutputStream(file))) {
                 exportEquivalenceTableToExcel(response, os);
             }
             
@@ -942,7 +905,7 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
             dir.mkdirs();
             
             java.io.File file = new java.io.File(dir, fileName);
-            try (OutputStream os = new java.io.FileOutputStream(file)) {
+            try (OutputStream os = new java.io.BufferedOutputStream(new java.io.FileOutputStream(file))) {
                 exportEquivalenceTableToWord(response, os);
             }
             
@@ -968,7 +931,7 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
             dir.mkdirs();
             
             java.io.File file = new java.io.File(dir, fileName);
-            try (OutputStream os = new java.io.FileOutputStream(file)) {
+            try (OutputStream os = new java.io.BufferedOutputStream(new java.io.FileOutputStream(file))) {
                 exportOrthogonalTableToExcel(response, os);
             }
             
@@ -994,7 +957,7 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
             dir.mkdirs();
             
             java.io.File file = new java.io.File(dir, fileName);
-            try (OutputStream os = new java.io.FileOutputStream(file)) {
+            try (OutputStream os = new java.io.BufferedOutputStream(new java.io.FileOutputStream(file))) {
                 exportOrthogonalTableToWord(response, os);
             }
             
@@ -1007,51 +970,6 @@ public class DataDocumentGenerationServiceImpl implements DataDocumentGeneration
         }
     }
     
-    /**
-     * 创建表头样式
-     */
-    private CellStyle createHeaderStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setBold(true);
-        font.setFontHeightInPoints((short) 12);
-        style.setFont(font);
-        style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        style.setAlignment(HorizontalAlignment.CENTER);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
-        style.setBorderBottom(BorderStyle.THIN);
-        style.setBorderTop(BorderStyle.THIN);
-        style.setBorderLeft(BorderStyle.THIN);
-        style.setBorderRight(BorderStyle.THIN);
-        return style;
-    }
-    
-    /**
-     * 创建数据样式
-     */
-    private CellStyle createDataStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        style.setAlignment(HorizontalAlignment.LEFT);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
-        style.setBorderBottom(BorderStyle.THIN);
-        style.setBorderTop(BorderStyle.THIN);
-        style.setBorderLeft(BorderStyle.THIN);
-        style.setBorderRight(BorderStyle.THIN);
-        return style;
-    }
-    
-    /**
-     * 设置Word表格单元格值
-     */
-    private void setCellValue(XWPFTableCell cell, String value) {
-        cell.removeParagraph(0);
-        XWPFParagraph para = cell.addParagraph();
-        para.setAlignment(ParagraphAlignment.CENTER);
-        XWPFRun run = para.createRun();
-        run.setText(value != null ? value : "");
-    }
-    
     /**
      * 生成文件名
      */
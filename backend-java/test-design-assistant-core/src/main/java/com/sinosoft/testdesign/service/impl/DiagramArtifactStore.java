@@ -0,0 +1,133 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.service.FileUploadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 流程图导出产物存储（按内容寻址）
+ * 产物以SHA-256(Mermaid代码, 格式, 尺寸)命名，存放在上传目录的diagrams/{前两位}/下，相同内容只保存一份。
+ * 格式只允许svg/png/pdf，格式同时作为文件扩展名，其余值在计算产物键之前拒绝，不会拼入文件路径。
+ * 写入先落临时文件再原子替换，并发导出同一图表时不会读到半截文件。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+@Component
+@RequiredArgsConstructor
+public class DiagramArtifactStore {
+
+    static final String DIAGRAM_DIR = "diagrams";
+    /** 支持导出的格式 */
+    static final Set<String> EXPORT_FORMATS = Set.of("svg", "png", "pdf");
+
+    private final FileUploadService fileUploadService;
+
+    @Value("${app.upload.base-path:./uploads}")
+    private String basePath;
+
+    /**
+     * 校验导出格式
+     *
+     * @param format 导出格式（不区分大小写）
+     * @return 小写的格式，即产物文件扩展名
+     * @throws BusinessException 不支持的格式
+     */
+    public static String requireFormat(String format) {
+        String extension = format == null ? "" : format.toLowerCase(Locale.ROOT);
+        if (!EXPORT_FORMATS.contains(extension)) {
+            throw new BusinessException("不支持的导出格式: " + format + "，支持的格式: svg、png、pdf");
+        }
+        return extension;
+    }
+
+    /**
+     * 计算产物键
+     *
+     * @param mermaidCode Mermaid代码
+     * @param format 导出格式
+     * @param width 宽度
+     * @param height 高度
+     * @return 十六进制SHA-256
+     */
+    public String key(String mermaidCode, String format, int width, int height) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(requireFormat(format).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update((width + "x" + height).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(mermaidCode.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 查找已存在的产物
+     *
+     * @param key 产物键
+     * @param format 导出格式
+     * @return 文件URL，不存在时返回null
+     */
+    public String find(String key, String format) {
+        String extension = requireFormat(format);
+        if (Files.isRegularFile(resolve(key, extension))) {
+            return fileUploadService.getFileUrl(relativePath(key, extension));
+        }
+        return null;
+    }
+
+    /**
+     * 保存产物内容
+     *
+     * @param key 产物键
+     * @param format 导出格式
+     * @param content 文件内容
+     * @return 文件URL
+     */
+    public String save(String key, String format, byte[] content) throws IOException {
+        String extension = requireFormat(format);
+        write(resolve(key, extension), content);
+        return fileUploadService.getFileUrl(relativePath(key, extension));
+    }
+
+    private void write(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path resolve(String key, String fileSuffix) {
+        return Paths.get(basePath).resolve(DIAGRAM_DIR).resolve(key.substring(0, 2)).resolve(key + "." + fileSuffix);
+    }
+
+    private static String relativePath(String key, String extension) {
+        return DIAGRAM_DIR + "/" + key.substring(0, 2) + "/" + key + "." + extension;
+    }
+}
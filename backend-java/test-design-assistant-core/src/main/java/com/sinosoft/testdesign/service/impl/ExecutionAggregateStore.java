@@ -0,0 +1,193 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.entity.TestExecutionAggregate;
+import com.sinosoft.testdesign.entity.TestExecutionRecord;
+import com.sinosoft.testdesign.repository.TestExecutionAggregateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试执行聚合存储
+ * 执行记录的新增和状态变化以增量方式累加到（任务, 状态）聚合行上，统计查询只读取聚合行，
+ * 开销与执行记录数无关。计入记录使用 INSERT ... ON CONFLICT DO UPDATE 单条语句，
+ * 同一任务同一状态的首条记录并发写入时累加到同一行，不会因唯一约束冲突导致调用方事务回滚。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExecutionAggregateStore {
+
+    static final String UNKNOWN_STATUS = "UNKNOWN";
+
+    private final TestExecutionAggregateRepository aggregateRepository;
+
+    /**
+     * 计入新建的执行记录
+     *
+     * @param record 执行记录
+     * @param requirementId 执行任务关联的需求ID
+     */
+    @Transactional
+    public void recordCreated(TestExecutionRecord record, Long requirementId) {
+        apply(record.getTaskId(), requirementId, record.getExecutionStatus(), 1, record.getExecutionDuration());
+    }
+
+    /**
+     * 执行记录状态变化时把记录从原状态移到新状态
+     *
+     * @param record 执行记录（已是新状态）
+     * @param oldStatus 原状态
+     * @param requirementId 执行任务关联的需求ID
+     */
+    @Transactional
+    public void statusChanged(TestExecutionRecord record, String oldStatus, Long requirementId) {
+        if (normalizeStatus(oldStatus).equals(normalizeStatus(record.getExecutionStatus()))) {
+            return;
+        }
+        apply(record.getTaskId(), requirementId, oldStatus, -1, record.getExecutionDuration());
+        apply(record.getTaskId(), requirementId, record.getExecutionStatus(), 1, record.getExecutionDuration());
+    }
+
+    /**
+     * 执行任务关联的需求变化
+     */
+    @Transactional
+    public void requirementChanged(Long taskId, Long requirementId) {
+        aggregateRepository.updateRequirementIdByTaskId(taskId, requirementId);
+    }
+
+    /**
+     * 汇总执行任务的执行记录
+     */
+    public ExecutionSummary summarizeTask(Long taskId) {
+        return summarize(aggregateRepository.findByTaskId(taskId));
+    }
+
+    /**
+     * 批量汇总多个执行任务的执行记录，一次查询取回所有任务的聚合行
+     *
+     * @return 任务ID -> 汇总，没有执行记录的任务也返回空汇总
+     */
+    public Map<Long, ExecutionSummary> summarizeTasks(Collection<Long> taskIds) {
+        Map<Long, List<TestExecutionAggregate>> byTask = new HashMap<>();
+        for (Long taskId : taskIds) {
+            byTask.put(taskId, new ArrayList<>());
+        }
+        if (!byTask.isEmpty()) {
+            for (TestExecutionAggregate aggregate : aggregateRepository.findByTaskIdIn(byTask.keySet())) {
+                byTask.computeIfAbsent(aggregate.getTaskId(), k -> new ArrayList<>()).add(aggregate);
+            }
+        }
+        Map<Long, ExecutionSummary> result = new HashMap<>();
+        byTask.forEach((taskId, aggregates) -> result.put(taskId, summarize(aggregates)));
+        return result;
+    }
+
+    /**
+     * 汇总需求下所有执行任务的执行记录
+     */
+    public ExecutionSummary summarizeRequirement(Long requirementId) {
+        Map<String, Long> statusCount = new LinkedHashMap<>();
+        long durationCount = 0;
+        long durationSum = 0;
+        LocalDateTime lastUpdateTime = null;
+        for (Object[] row : aggregateRepository.sumByRequirementId(requirementId)) {
+            long recordCount = ((Number) row[1]).longValue();
+            if (recordCount > 0) {
+                statusCount.put((String) row[0], recordCount);
+            }
+            durationCount += ((Number) row[2]).longValue();
+            durationSum += ((Number) row[3]).longValue();
+            lastUpdateTime = latest(lastUpdateTime, (LocalDateTime) row[4]);
+        }
+        return new ExecutionSummary(statusCount, durationCount, durationSum, lastUpdateTime);
+    }
+
+    private static ExecutionSummary summarize(List<TestExecutionAggregate> aggregates) {
+        Map<String, Long> statusCount = new LinkedHashMap<>();
+        long durationCount = 0;
+        long durationSum = 0;
+        LocalDateTime lastUpdateTime = null;
+        for (TestExecutionAggregate aggregate : aggregates) {
+            if (aggregate.getRecordCount() > 0) {
+                statusCount.put(aggregate.getExecutionStatus(), aggregate.getRecordCount());
+            }
+            durationCount += aggregate.getDurationCount();
+            durationSum += aggregate.getDurationSum();
+            lastUpdateTime = latest(lastUpdateTime, aggregate.getUpdateTime());
+        }
+        return new ExecutionSummary(statusCount, durationCount, durationSum, lastUpdateTime);
+    }
+
+    private void apply(Long taskId, Long requirementId, String status, int sign, Integer duration) {
+        String executionStatus = normalizeStatus(status);
+        long durationCountDelta = duration != null ? sign : 0;
+        long durationSumDelta = duration != null ? (long) sign * duration : 0;
+        if (sign > 0) {
+            aggregateRepository.upsertIncrement(taskId, requirementId, executionStatus, sign,
+                    durationCountDelta, durationSumDelta, LocalDateTime.now());
+            return;
+        }
+        // 扣减时聚合行必然已存在，不插入负数行
+        int updated = aggregateRepository.increment(taskId, executionStatus, sign,
+                durationCountDelta, durationSumDelta, LocalDateTime.now());
+        if (updated == 0) {
+            log.warn("执行聚合缺失，无法扣减: 任务ID={}, 状态={}", taskId, executionStatus);
+        }
+    }
+
+    private static String normalizeStatus(String status) {
+        return status != null ? status : UNKNOWN_STATUS;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    /**
+     * 执行记录汇总
+     *
+     * @param statusCount 各状态的记录数
+     * @param durationCount 有执行耗时的记录数
+     * @param durationSum 执行耗时合计（毫秒）
+     * @param lastUpdateTime 聚合最近更新时间，没有记录时为null
+     */
+    public record ExecutionSummary(Map<String, Long> statusCount, long durationCount, long durationSum,
+                                   LocalDateTime lastUpdateTime) {
+
+        public long totalRecords() {
+            return statusCount.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * 成功率（百分比）
+         */
+        public double successRate() {
+            long total = totalRecords();
+            return total > 0 ? (double) statusCount.getOrDefault("SUCCESS", 0L) / total * 100 : 0.0;
+        }
+
+        /**
+         * 平均执行耗时（毫秒）
+         */
+        public double avgDuration() {
+            return durationCount > 0 ? (double) durationSum / durationCount : 0.0;
+        }
+    }
+}
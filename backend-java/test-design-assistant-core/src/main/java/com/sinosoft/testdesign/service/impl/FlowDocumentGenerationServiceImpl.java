@@ -1,22 +1,26 @@
 package com.sinosoft.testdesign.service.impl;
 
+import com.sinosoft.testdesign.common.BusinessException;
 import com.sinosoft.testdesign.dto.PathDiagramRequestDTO;
 import com.sinosoft.testdesign.dto.PathDiagramResponseDTO;
 import com.sinosoft.testdesign.dto.SceneDiagramRequestDTO;
 import com.sinosoft.testdesign.dto.SceneDiagramResponseDTO;
-import com.sinosoft.testdesign.entity.TestCase;
 import com.sinosoft.testdesign.entity.TestRequirement;
-import com.sinosoft.testdesign.repository.TestCaseRepository;
 import com.sinosoft.testdesign.repository.RequirementRepository;
 import com.sinosoft.testdesign.service.AIServiceClient;
 import com.sinosoft.testdesign.service.FlowDocumentGenerationService;
+import com.sinosoft.testdesign.service.impl.CaseStepGraphBuilder.CaseSnapshot;
+import com.sinosoft.testdesign.util.MermaidSvgRenderer;
+import com.sinosoft.testdesign.util.StepTrie;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -32,8 +36,18 @@ import java.util.stream.Collectors;
 public class FlowDocumentGenerationServiceImpl implements FlowDocumentGenerationService {
     
     private final RequirementRepository requirementRepository;
-    private final TestCaseRepository testCaseRepository;
     private final AIServiceClient aiServiceClient;
+    private final DiagramArtifactStore diagramArtifactStore;
+    private final CaseStepGraphBuilder caseStepGraphBuilder;
+    private final RestTemplate restTemplate;
+    
+    /** 路径图的开始、结束节点（"end"是Mermaid关键字，不能直接作为ID） */
+    private static final String PATH_START_ID = "start_root";
+    private static final String PATH_END_ID = "end_root";
+    
+    /** 导出图片尺寸 */
+    private static final int EXPORT_WIDTH = 1920;
+    private static final int EXPORT_HEIGHT = 1080;
     
     @Value("${app.ai-service.url:http://localhost:8000}")
     private String aiServiceUrl;
@@ -42,6 +56,9 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
     @Transactional(readOnly = true)
     public SceneDiagramResponseDTO generateSceneDiagram(SceneDiagramRequestDTO request) {
         log.info("生成场景图，请求参数：{}", request);
+        if (!"MERMAID".equalsIgnoreCase(request.getFormat())) {
+            DiagramArtifactStore.requireFormat(request.getFormat());
+        }
         
         try {
             // 1. 提取场景数据
@@ -69,6 +86,8 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
             log.info("场景图生成成功，节点数：{}，边数：{}", response.getNodeCount(), response.getEdgeCount());
             return response;
             
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("生成场景图失败", e);
             throw new RuntimeException("生成场景图失败：" + e.getMessage(), e);
@@ -79,6 +98,9 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
     @Transactional(readOnly = true)
     public PathDiagramResponseDTO generatePathDiagram(PathDiagramRequestDTO request) {
         log.info("生成路径图，请求参数：{}", request);
+        if (!"MERMAID".equalsIgnoreCase(request.getFormat())) {
+            DiagramArtifactStore.requireFormat(request.getFormat());
+        }
         
         try {
             // 1. 提取路径数据
@@ -108,6 +130,8 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
                     response.getNodeCount(), response.getEdgeCount(), response.getPathCount());
             return response;
             
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("生成路径图失败", e);
             throw new RuntimeException("生成路径图失败：" + e.getMessage(), e);
@@ -117,82 +141,58 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
     @Override
     public String exportSceneDiagramFile(String mermaidCode, String format, String fileName) {
         log.info("导出场景图文件，格式：{}，文件名：{}", format, fileName);
-        
-        try {
-            // 构建Python服务请求
-            Map<String, Object> request = new HashMap<>();
-            request.put("mermaid_code", mermaidCode);
-            request.put("format", format.toLowerCase());
-            if (fileName != null && !fileName.isEmpty()) {
-                request.put("filename", fileName);
-            }
-            request.put("width", 1920);
-            request.put("height", 1080);
-            
-            // 调用Python服务导出文件
-            String url = aiServiceUrl + "/api/v1/flow-documents/export";
-            log.info("调用Python服务导出场景图，URL: {}", url);
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = aiServiceClient.post(url, request);
-            
-            if (response == null) {
-                log.warn("Python服务返回空响应，返回占位符URL");
-                return "/v1/flow-documents/files/" + fileName;
-            }
-            
-            String status = (String) response.get("status");
-            if (!"success".equals(status)) {
-                Object messageObj = response.get("message");
-                String errorMessage = messageObj != null ? messageObj.toString() : "未知错误";
-                log.warn("Python服务导出失败: {}，返回占位符URL", errorMessage);
-                return "/v1/flow-documents/files/" + fileName;
-            }
-            
-            // 获取文件URL
-            Object urlObj = response.get("url");
-            if (urlObj != null) {
-                String fileUrl = urlObj.toString();
-                log.info("场景图导出成功，文件URL: {}", fileUrl);
-                return fileUrl;
-            }
-            
-            // 如果有在线URL，返回在线URL
-            Object onlineUrlObj = response.get("online_url");
-            if (onlineUrlObj != null) {
-                String onlineUrl = onlineUrlObj.toString();
-                log.info("场景图导出成功，在线URL: {}", onlineUrl);
-                return onlineUrl;
-            }
-            
-            log.warn("Python服务响应中未找到文件URL，返回占位符URL");
-            return "/v1/flow-documents/files/" + fileName;
-            
-        } catch (Exception e) {
-            log.error("调用Python服务导出场景图失败: {}", e.getMessage(), e);
-            // 降级处理：返回占位符URL
-            return "/v1/flow-documents/files/" + fileName;
-        }
+        return exportDiagramFile(mermaidCode, format, fileName, "场景图");
     }
     
     @Override
     public String exportPathDiagramFile(String mermaidCode, String format, String fileName) {
         log.info("导出路径图文件，格式：{}，文件名：{}", format, fileName);
+        return exportDiagramFile(mermaidCode, format, fileName, "路径图");
+    }
+    
+    /**
+     * 导出图表文件
+     * 先按内容查找已导出的产物；SVG在本地渲染，其他格式（或本地不支持的语法）调用Python服务，
+     * Python服务渲染的文件下载后写入产物存储，重复导出和Python服务不可用时都能直接返回。
+     * Python服务未安装Mermaid CLI时只返回第三方在线渲染URL，这种结果不缓存
+     *
+     * @param diagramName 图表名称（用于日志）
+     * @throws BusinessException 不支持的导出格式
+     */
+    private String exportDiagramFile(String mermaidCode, String format, String fileName, String diagramName) {
+        String extension = DiagramArtifactStore.requireFormat(format);
+        String artifactKey = diagramArtifactStore.key(mermaidCode, extension, EXPORT_WIDTH, EXPORT_HEIGHT);
+        String cachedUrl = diagramArtifactStore.find(artifactKey, extension);
+        if (cachedUrl != null) {
+            log.info("{}已导出过，直接返回文件URL: {}", diagramName, cachedUrl);
+            return cachedUrl;
+        }
+        
+        if ("svg".equals(extension)) {
+            try {
+                String svg = MermaidSvgRenderer.render(mermaidCode);
+                String fileUrl = diagramArtifactStore.save(artifactKey, extension, svg.getBytes(StandardCharsets.UTF_8));
+                log.info("{}本地渲染SVG成功，文件URL: {}", diagramName, fileUrl);
+                return fileUrl;
+            } catch (Exception e) {
+                log.warn("{}本地渲染SVG失败，改用Python服务: {}", diagramName, e.getMessage());
+            }
+        }
         
         try {
             // 构建Python服务请求
             Map<String, Object> request = new HashMap<>();
             request.put("mermaid_code", mermaidCode);
-            request.put("format", format.toLowerCase());
+            request.put("format", extension);
             if (fileName != null && !fileName.isEmpty()) {
                 request.put("filename", fileName);
             }
-            request.put("width", 1920);
-            request.put("height", 1080);
+            request.put("width", EXPORT_WIDTH);
+            request.put("height", EXPORT_HEIGHT);
             
             // 调用Python服务导出文件
             String url = aiServiceUrl + "/api/v1/flow-documents/export";
-            log.info("调用Python服务导出路径图，URL: {}", url);
+            log.info("调用Python服务导出{}，URL: {}", diagramName, url);
             
             @SuppressWarnings("unchecked")
             Map<String, Object> response = aiServiceClient.post(url, request);
@@ -210,27 +210,33 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
                 return "/v1/flow-documents/files/" + fileName;
             }
             
-            // 获取文件URL
+            // Python服务渲染的文件下载一次保存到本地，之后不再依赖Python服务
             Object urlObj = response.get("url");
             if (urlObj != null) {
-                String fileUrl = urlObj.toString();
-                log.info("路径图导出成功，文件URL: {}", fileUrl);
-                return fileUrl;
+                String remoteUrl = urlObj.toString();
+                byte[] content = restTemplate.getForObject(
+                        remoteUrl.startsWith("/") ? aiServiceUrl + remoteUrl : remoteUrl, byte[].class);
+                if (content != null && content.length > 0) {
+                    String fileUrl = diagramArtifactStore.save(artifactKey, extension, content);
+                    log.info("{}导出成功，文件URL: {}", diagramName, fileUrl);
+                    return fileUrl;
+                }
+                log.warn("下载{}文件为空: {}，返回Python服务URL", diagramName, remoteUrl);
+                return remoteUrl;
             }
             
-            // 如果有在线URL，返回在线URL
-            Object onlineUrlObj = response.get("online_url");
-            if (onlineUrlObj != null) {
-                String onlineUrl = onlineUrlObj.toString();
-                log.info("路径图导出成功，在线URL: {}", onlineUrl);
-                return onlineUrl;
+            // 在线渲染URL由第三方服务生成，不缓存
+            Object onlineUrl = response.get("online_url");
+            if (onlineUrl != null) {
+                log.info("{}返回在线渲染URL", diagramName);
+                return onlineUrl.toString();
             }
             
             log.warn("Python服务响应中未找到文件URL，返回占位符URL");
             return "/v1/flow-documents/files/" + fileName;
             
         } catch (Exception e) {
-            log.error("调用Python服务导出路径图失败: {}", e.getMessage(), e);
+            log.error("调用Python服务导出{}失败: {}", diagramName, e.getMessage(), e);
             // 降级处理：返回占位符URL
             return "/v1/flow-documents/files/" + fileName;
         }
@@ -254,12 +260,12 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
             sceneData.setRequirementId(request.getRequirementId());
             
             // 查询需求下的所有用例
-            List<TestCase> cases = testCaseRepository.findByRequirementId(request.getRequirementId());
+            List<CaseSnapshot> cases = caseStepGraphBuilder.loadByRequirement(request.getRequirementId());
             
             // 根据用例类型和组织场景（优化：支持更智能的分组）
-            Map<String, List<TestCase>> casesByType = cases.stream()
+            Map<String, List<CaseSnapshot>> casesByType = cases.stream()
                     .collect(Collectors.groupingBy(c -> {
-                        String caseType = StringUtils.hasText(c.getCaseType()) ? c.getCaseType() : "正常";
+                        String caseType = StringUtils.hasText(c.caseType()) ? c.caseType() : "正常";
                         // 识别场景类型：正常、异常、边界、性能等
                         if (caseType.contains("异常") || caseType.contains("错误") || caseType.contains("失败")) {
                             return "异常场景";
@@ -274,7 +280,7 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
             
             // 按场景类型排序（正常 -> 边界 -> 异常 -> 性能）
             List<String> sceneTypeOrder = Arrays.asList("正常场景", "边界场景", "异常场景", "性能场景");
-            List<Map.Entry<String, List<TestCase>>> sortedEntries = casesByType.entrySet().stream()
+            List<Map.Entry<String, List<CaseSnapshot>>> sortedEntries = casesByType.entrySet().stream()
                     .sorted((e1, e2) -> {
                         int idx1 = sceneTypeOrder.indexOf(e1.getKey());
                         int idx2 = sceneTypeOrder.indexOf(e2.getKey());
@@ -286,9 +292,9 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
             
             // 创建场景节点
             int nodeIndex = 1;
-            for (Map.Entry<String, List<TestCase>> entry : sortedEntries) {
+            for (Map.Entry<String, List<CaseSnapshot>> entry : sortedEntries) {
                 String sceneType = entry.getKey();
-                List<TestCase> sceneCases = entry.getValue();
+                List<CaseSnapshot> sceneCases = entry.getValue();
                 
                 SceneNode node = new SceneNode();
                 node.setId("scene_" + nodeIndex);
@@ -297,7 +303,7 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
                 if (sceneCases.size() <= 5 && request.getIncludeCaseDetails()) {
                     // 如果用例数量少，显示用例名称
                     String caseNames = sceneCases.stream()
-                            .map(TestCase::getCaseName)
+                            .map(CaseSnapshot::caseName)
                             .limit(3)
                             .collect(Collectors.joining("、"));
                     if (sceneCases.size() > 3) {
@@ -309,7 +315,7 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
                 node.setType(sceneType);
                 if (request.getIncludeCaseDetails()) {
                     node.setDetails(sceneCases.stream()
-                            .map(TestCase::getCaseName)
+                            .map(CaseSnapshot::caseName)
                             .collect(Collectors.toList()));
                 }
                 nodes.add(node);
@@ -343,7 +349,7 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
             
         } else if (request.getCaseIds() != null && !request.getCaseIds().isEmpty()) {
             // 基于用例列表生成场景图
-            List<TestCase> cases = testCaseRepository.findAllById(request.getCaseIds());
+            List<CaseSnapshot> cases = caseStepGraphBuilder.loadByIds(request.getCaseIds());
             if (cases.isEmpty()) {
                 throw new IllegalArgumentException("用例不存在或为空");
             }
@@ -353,17 +359,17 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
             
             // 为每个用例创建一个场景节点
             int nodeIndex = 1;
-            for (TestCase testCase : cases) {
+            for (CaseSnapshot testCase : cases) {
                 SceneNode node = new SceneNode();
                 node.setId("scene_" + nodeIndex);
-                node.setLabel(testCase.getCaseName());
-                node.setType(testCase.getCaseType());
+                node.setLabel(testCase.caseName());
+                node.setType(testCase.caseType());
                 if (request.getIncludeCaseDetails()) {
                     node.setDetails(Arrays.asList(
-                            "前置条件：" + (StringUtils.hasText(testCase.getPreCondition()) ? 
-                                    testCase.getPreCondition() : "无"),
-                            "测试步骤：" + (StringUtils.hasText(testCase.getTestStep()) ? 
-                                    testCase.getTestStep() : "无")
+                            "前置条件：" + (StringUtils.hasText(testCase.preCondition()) ? 
+                                    testCase.preCondition() : "无"),
+                            "测试步骤：" + (StringUtils.hasText(testCase.testStep()) ? 
+                                    testCase.testStep() : "无")
                     ));
                 }
                 nodes.add(node);
@@ -397,22 +403,26 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
         List<PathEdge> edges = new ArrayList<>();
         List<List<String>> paths = new ArrayList<>();
         
-        List<TestCase> cases = new ArrayList<>();
+        List<CaseSnapshot> cases;
+        String scope;
         
         if (request.getCaseId() != null) {
             // 基于单个用例生成路径图
-            TestCase testCase = testCaseRepository.findById(request.getCaseId())
-                    .orElseThrow(() -> new IllegalArgumentException("用例不存在，ID：" + request.getCaseId()));
-            cases.add(testCase);
+            cases = caseStepGraphBuilder.loadByIds(List.of(request.getCaseId()));
+            if (cases.isEmpty()) {
+                throw new IllegalArgumentException("用例不存在，ID：" + request.getCaseId());
+            }
+            scope = "case:" + request.getCaseId();
             pathData.setTitle(StringUtils.hasText(request.getTitle()) ? 
-                    request.getTitle() : testCase.getCaseName());
+                    request.getTitle() : cases.get(0).caseName());
             
         } else if (request.getCaseIds() != null && !request.getCaseIds().isEmpty()) {
             // 基于多个用例生成路径图
-            cases = testCaseRepository.findAllById(request.getCaseIds());
+            cases = caseStepGraphBuilder.loadByIds(request.getCaseIds());
             if (cases.isEmpty()) {
                 throw new IllegalArgumentException("用例不存在或为空");
             }
+            scope = "cases:" + new TreeSet<>(request.getCaseIds());
             pathData.setTitle(StringUtils.hasText(request.getTitle()) ? 
                     request.getTitle() : "测试路径图");
             
@@ -420,7 +430,8 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
             // 基于需求生成路径图
             TestRequirement requirement = requirementRepository.findById(request.getRequirementId())
                     .orElseThrow(() -> new IllegalArgumentException("需求不存在，ID：" + request.getRequirementId()));
-            cases = testCaseRepository.findByRequirementId(request.getRequirementId());
+            cases = caseStepGraphBuilder.loadByRequirement(request.getRequirementId());
+            scope = "requirement:" + request.getRequirementId();
             pathData.setTitle(StringUtils.hasText(request.getTitle()) ? 
                     request.getTitle() : requirement.getRequirementName() + "-测试路径图");
             
@@ -428,97 +439,30 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
             throw new IllegalArgumentException("必须提供用例ID、用例ID列表或需求ID");
         }
         
-        // 从用例中提取测试步骤，生成路径（优化：更智能的步骤解析）
-        Set<String> stepSet = new LinkedHashSet<>(); // 保持顺序
-        Map<String, String> stepIdMap = new HashMap<>(); // 步骤内容 -> 节点ID映射
-        
-        for (TestCase testCase : cases) {
-            if (StringUtils.hasText(testCase.getTestStep())) {
-                // 解析测试步骤（支持多种分隔符和格式）
-                String testStep = testCase.getTestStep();
-                // 支持换行、分号、中文分号等多种分隔符
-                String[] steps = testStep.split("\n|；|;|\\r\\n|\\r");
-                List<String> path = new ArrayList<>();
-                
-                // 添加起始节点
-                String startNodeId = "start_" + testCase.getId();
-                if (!stepIdMap.containsKey("开始")) {
-                    stepIdMap.put("开始", startNodeId);
-                    stepSet.add("开始");
-                }
-                path.add(startNodeId);
-                
-                for (String step : steps) {
-                    step = step.trim();
-                    if (StringUtils.hasText(step) && step.length() > 1) {
-                        // 清理步骤编号（如"1."、"步骤1："、"①"等）
-                        step = step.replaceAll("^[\\d①②③④⑤⑥⑦⑧⑨⑩]+[.、：:：]\\s*", "");
-                        step = step.replaceAll("^步骤[\\d一二三四五六七八九十]+[：:]\\s*", "");
-                        
-                        // 识别条件判断步骤
-                        if (step.contains("如果") || step.contains("若") || step.contains("当")) {
-                            step = "判断：" + step;
-                        }
-                        // 识别验证步骤
-                        if (step.contains("验证") || step.contains("检查") || step.contains("确认")) {
-                            step = "验证：" + step;
-                        }
-                        // 识别输入步骤
-                        if (step.contains("输入") || step.contains("填写") || step.contains("录入")) {
-                            step = "输入：" + step;
-                        }
-                        
-                        if (StringUtils.hasText(step)) {
-                            stepSet.add(step);
-                            String stepId = stepIdMap.computeIfAbsent(step, s -> "step_" + (stepIdMap.size() + 1));
-                            path.add(stepId);
-                        }
-                    }
-                }
-                
-                // 添加结束节点
-                String endNodeId = "end_" + testCase.getId();
-                if (!stepIdMap.containsKey("结束")) {
-                    stepIdMap.put("结束", endNodeId);
-                    stepSet.add("结束");
-                }
-                path.add(endNodeId);
-                
-                if (path.size() > 2) { // 至少包含开始、一个步骤、结束
-                    paths.add(path);
-                }
+        // 步骤前缀相同的用例共用节点（前缀树），所有路径从同一开始节点出发、汇合到同一结束节点
+        CaseStepGraphBuilder.PathGraph graph = caseStepGraphBuilder.buildPathGraph(scope, cases);
+        if (!graph.paths().isEmpty()) {
+            nodes.add(pathNode(PATH_START_ID, "开始"));
+        }
+        for (StepTrie.Node step : graph.nodes()) {
+            String stepId = "step_" + step.id();
+            nodes.add(pathNode(stepId, step.label()));
+            edges.add(pathEdge(step.parentId() == 0 ? PATH_START_ID : "step_" + step.parentId(), stepId));
+            if (step.terminal()) {
+                edges.add(pathEdge(stepId, PATH_END_ID));
             }
         }
-        
-        // 创建节点
-        int nodeIndex = 1;
-        for (String step : stepSet) {
-            String stepId = stepIdMap.get(step);
-            PathNode node = new PathNode();
-            node.setId(stepId);
-            // 限制步骤文本长度（Mermaid节点标签不能太长）
-            String shortStep = step.length() > 50 ? step.substring(0, 47) + "..." : step;
-            node.setLabel(shortStep);
-            node.setFullText(step);
-            nodes.add(node);
+        if (!graph.paths().isEmpty()) {
+            nodes.add(pathNode(PATH_END_ID, "结束"));
         }
-        
-        // 创建边
-        Set<String> edgeSet = new HashSet<>(); // 去重边
-        for (List<String> path : paths) {
-            for (int i = 0; i < path.size() - 1; i++) {
-                String fromId = path.get(i);
-                String toId = path.get(i + 1);
-                String edgeKey = fromId + "->" + toId;
-                
-                if (!edgeSet.contains(edgeKey)) {
-                    PathEdge edge = new PathEdge();
-                    edge.setFrom(fromId);
-                    edge.setTo(toId);
-                    edges.add(edge);
-                    edgeSet.add(edgeKey);
-                }
+        for (int[] stepIds : graph.paths()) {
+            List<String> path = new ArrayList<>(stepIds.length + 2);
+            path.add(PATH_START_ID);
+            for (int stepId : stepIds) {
+                path.add("step_" + stepId);
             }
+            path.add(PATH_END_ID);
+            paths.add(path);
         }
         
         pathData.setNodes(nodes);
@@ -527,6 +471,22 @@ public class FlowDocumentGenerationServiceImpl implements FlowDocumentGeneration
         return pathData;
     }
     
+    private static PathNode pathNode(String id, String step) {
+        PathNode node = new PathNode();
+        node.setId(id);
+        // 限制步骤文本长度（Mermaid节点标签不能太长）
+        node.setLabel(step.length() > 50 ? step.substring(0, 47) + "..." : step);
+        node.setFullText(step);
+        return node;
+    }
+    
+    private static PathEdge pathEdge(String from, String to) {
+        PathEdge edge = new PathEdge();
+        edge.setFrom(from);
+        edge.setTo(to);
+        return edge;
+    }
+    
     /**
      * 生成场景图Mermaid代码
      */
@@ -9,13 +9,14 @@ import com.sinosoft.testdesign.entity.*;
 import com.sinosoft.testdesign.enums.CaseStatus;
 import com.sinosoft.testdesign.repository.*;
 import com.sinosoft.testdesign.metrics.BusinessMetricsCollector;
+import com.sinosoft.testdesign.service.AiResponseCacheService;
 import com.sinosoft.testdesign.service.IntelligentCaseGenerationService;
+import com.sinosoft.testdesign.service.JobQueueService;
 import com.sinosoft.testdesign.service.SpecificationCheckService;
 import com.sinosoft.testdesign.service.TestCaseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -48,6 +49,9 @@ public class IntelligentCaseGenerationServiceImpl implements IntelligentCaseGene
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     private final BusinessMetricsCollector metricsCollector;
+    private final AiResponseCacheService aiResponseCacheService;
+    private final PromptTemplateRepository promptTemplateRepository;
+    private final JobQueueService jobQueueService;
     
     @Value("${app.ai-service.url:http://localhost:8000}")
     private String aiServiceUrl;
@@ -113,8 +117,9 @@ public class IntelligentCaseGenerationServiceImpl implements IntelligentCaseGene
         // 记录指标：任务创建
         metricsCollector.recordCaseGenerationTaskCreated();
         
-        // 异步执行任务
-        executeGenerationTask(task.getId());
+        // 提交到后台任务队列，与任务记录在同一事务中写入
+        jobQueueService.enqueue(JobQueueService.JOB_CASE_GENERATION, String.valueOf(task.getId()),
+                null, JobQueueService.PRIORITY_INTERACTIVE);
         
         // 返回结果
         CaseGenerationResult result = new CaseGenerationResult();
@@ -211,8 +216,9 @@ public class IntelligentCaseGenerationServiceImpl implements IntelligentCaseGene
                 
                 taskIds.add(task.getId());
                 
-                // 异步执行任务
-                executeGenerationTask(task.getId());
+                // 提交到后台任务队列
+                jobQueueService.enqueue(JobQueueService.JOB_CASE_GENERATION, String.valueOf(task.getId()),
+                        null, JobQueueService.PRIORITY_BATCH);
                 successCount++;
                 
             } catch (Exception e) {
@@ -239,7 +245,6 @@ public class IntelligentCaseGenerationServiceImpl implements IntelligentCaseGene
     }
     
     @Override
-    @Async
     @Transactional
     public void executeGenerationTask(Long taskId) {
         long startTime = System.currentTimeMillis();
@@ -306,7 +311,12 @@ public class IntelligentCaseGenerationServiceImpl implements IntelligentCaseGene
             task = taskRepository.save(task);
             
             String url = aiServiceUrl + "/api/v1/case/generate";
-            Map<String, Object> response = restTemplate.postForObject(url, pythonRequest, Map.class);
+            Map<String, Object> response = aiResponseCacheService.getOrLoad(
+                    AiResponseCacheService.TASK_CASE_GENERATION,
+                    pythonRequest,
+                    buildTemplateKeyExtras(task.getTemplateId()),
+                    r -> "success".equals(r.get("status")) && r.get("cases") instanceof List<?> l && !l.isEmpty(),
+                    () -> restTemplate.postForObject(url, pythonRequest, Map.class));
             
             if (response == null) {
                 throw new BusinessException("Python服务返回空响应");
@@ -404,6 +414,19 @@ public class IntelligentCaseGenerationServiceImpl implements IntelligentCaseGene
         }
     }
     
+    /**
+     * 构建缓存键附加信息：模板内容变更后版本号递增，避免复用旧模板生成的结果
+     */
+    private Map<String, Object> buildTemplateKeyExtras(Long templateId) {
+        if (templateId == null) {
+            return null;
+        }
+        return promptTemplateRepository.findById(templateId)
+                .map(template -> Map.<String, Object>of("template_version",
+                        template.getVersion() != null ? template.getVersion() : 1))
+                .orElse(null);
+    }
+    
     /**
      * 将Python服务返回的用例数据转换为TestCase实体
      */
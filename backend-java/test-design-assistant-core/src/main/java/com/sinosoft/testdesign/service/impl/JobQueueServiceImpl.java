@@ -0,0 +1,191 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.JobQueueConfig;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.repository.AsyncJobRepository;
+import com.sinosoft.testdesign.service.JobQueueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 后台任务队列服务实现
+ * 领取在一个短事务中完成：SKIP LOCKED锁定候选行、改为RUNNING并写入租约后立即提交，
+ * 任务执行期间不持有数据库锁和连接，实例数增加时领取吞吐随之线性增加。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobQueueServiceImpl implements JobQueueService {
+
+    static final String STATUS_PENDING = "PENDING";
+    static final String STATUS_RUNNING = "RUNNING";
+    static final String STATUS_SUCCESS = "SUCCESS";
+    static final String STATUS_FAILED = "FAILED";
+
+    /** 每次回收的最大任务数 */
+    private static final int REAP_BATCH_SIZE = 100;
+
+    /** 失败原因的最大保存长度 */
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final AsyncJobRepository jobRepository;
+    private final JobQueueConfig config;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional
+    public AsyncJob enqueue(String jobType, String businessKey, Object payload, int priority) {
+        String payloadJson = null;
+        if (payload != null) {
+            try {
+                payloadJson = objectMapper.writeValueAsString(payload);
+            } catch (Exception e) {
+                throw new BusinessException("任务参数序列化失败: " + e.getMessage());
+            }
+        }
+        AsyncJob job = AsyncJob.builder()
+                .jobType(jobType)
+                .businessKey(businessKey)
+                .payload(payloadJson)
+                .priority(priority)
+                .status(STATUS_PENDING)
+                .attempts(0)
+                .maxAttempts(Math.max(1, config.getMaxAttempts()))
+                .availableTime(LocalDateTime.now())
+                .build();
+        job = jobRepository.save(job);
+        log.info("提交后台任务: id={}, 类型={}, 业务主键={}", job.getId(), jobType, businessKey);
+        return job;
+    }
+
+    @Override
+    @Transactional
+    public List<AsyncJob> claim(String jobType, String workerId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<AsyncJob> jobs = jobRepository.lockClaimable(jobType, now, limit);
+        for (AsyncJob job : jobs) {
+            job.setStatus(STATUS_RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLeaseOwner(workerId);
+            job.setLeaseExpireTime(now.plusSeconds(config.getLeaseSeconds()));
+            job.setHeartbeatTime(now);
+            job.setStartTime(now);
+        }
+        return jobs.isEmpty() ? jobs : jobRepository.saveAll(jobs);
+    }
+
+    @Override
+    @Transactional
+    public void complete(Long jobId, String workerId) {
+        AsyncJob job = lockOwned(jobId, workerId);
+        if (job == null) {
+            return;
+        }
+        job.setStatus(STATUS_SUCCESS);
+        job.setLeaseOwner(null);
+        job.setLeaseExpireTime(null);
+        job.setFinishTime(LocalDateTime.now());
+        jobRepository.save(job);
+    }
+
+    @Override
+    @Transactional
+    public boolean fail(Long jobId, String workerId, String error) {
+        AsyncJob job = lockOwned(jobId, workerId);
+        if (job == null) {
+            return false;
+        }
+        boolean givenUp = retryOrGiveUp(job, error, LocalDateTime.now());
+        jobRepository.save(job);
+        return givenUp;
+    }
+
+    @Override
+    public void reportProgress(Long jobId, String workerId, int progress, String result) {
+        if (jobRepository.updateProgress(jobId, workerId, Math.max(0, Math.min(progress, 100)), result) == 0) {
+            log.warn("后台任务租约已不属于本实例，忽略进度: id={}, 实例={}", jobId, workerId);
+        }
+    }
+
+    @Override
+    public int extendLeases(Collection<Long> jobIds, String workerId) {
+        if (jobIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return jobRepository.extendLeases(jobIds, workerId, now.plusSeconds(config.getLeaseSeconds()), now);
+    }
+
+    @Override
+    @Transactional
+    public List<AsyncJob> reapExpiredLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        List<AsyncJob> expired = jobRepository.lockExpiredLeases(now, REAP_BATCH_SIZE);
+        List<AsyncJob> givenUp = new ArrayList<>();
+        for (AsyncJob job : expired) {
+            log.warn("后台任务租约过期: id={}, 类型={}, 实例={}", job.getId(), job.getJobType(), job.getLeaseOwner());
+            if (retryOrGiveUp(job, "租约过期，执行实例可能已停止: " + job.getLeaseOwner(), now)) {
+                givenUp.add(job);
+            }
+        }
+        if (!expired.isEmpty()) {
+            jobRepository.saveAll(expired);
+        }
+        return givenUp;
+    }
+
+    /**
+     * 锁定任务并确认租约仍属于该实例（租约过期后可能已被回收并由其他实例领取）
+     */
+    private AsyncJob lockOwned(Long jobId, String workerId) {
+        AsyncJob job = jobRepository.findByIdForUpdate(jobId).orElse(null);
+        if (job == null || !STATUS_RUNNING.equals(job.getStatus()) || !workerId.equals(job.getLeaseOwner())) {
+            log.warn("后台任务租约已不属于本实例，忽略执行结果: id={}, 实例={}", jobId, workerId);
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * 未达到最大次数时退避后重新排队，否则记为FAILED
+     *
+     * @return 放弃重试时返回true
+     */
+    private boolean retryOrGiveUp(AsyncJob job, String error, LocalDateTime now) {
+        job.setLastError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        job.setLeaseOwner(null);
+        job.setLeaseExpireTime(null);
+        if (job.getAttempts() >= job.getMaxAttempts()) {
+            job.setStatus(STATUS_FAILED);
+            job.setFinishTime(now);
+            log.error("后台任务达到最大重试次数: id={}, 类型={}, 错误={}", job.getId(), job.getJobType(), error);
+            return true;
+        }
+        job.setStatus(STATUS_PENDING);
+        job.setAvailableTime(now.plusSeconds(backoffSeconds(job.getAttempts())));
+        return false;
+    }
+
+    /**
+     * 第n次失败后等待 base * 2^(n-1) 秒，不超过上限
+     */
+    long backoffSeconds(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(config.getBackoffBaseSeconds() << exponent, config.getBackoffMaxSeconds());
+    }
+}
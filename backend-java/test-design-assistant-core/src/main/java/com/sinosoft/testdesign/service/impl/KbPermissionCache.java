@@ -0,0 +1,153 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.KbPermissionCacheConfig;
+import com.sinosoft.testdesign.entity.KnowledgeBasePermission;
+import com.sinosoft.testdesign.repository.KnowledgeBasePermissionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 知识库权限本地缓存
+ * 按用户缓存该用户的全部权限（知识库ID -> 权限类型集合），首次检查时一次加载，之后的检查只查内存。
+ * 授权/撤销后本实例立即清除对应用户，并通过Redis频道通知其他实例清除；
+ * 失效消息丢失时依靠有效期兜底。加载期间发生失效时丢弃本次加载结果，避免把旧权限写回缓存。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+public class KbPermissionCache implements MessageListener {
+
+    /** 清除所有用户的失效消息 */
+    static final String INVALIDATE_ALL = "*";
+
+    private final KnowledgeBasePermissionRepository permissionRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final KbPermissionCacheConfig config;
+
+    private final Map<Long, UserPermissions> users;
+
+    /** 失效次数，加载前后不一致说明加载期间权限有变化 */
+    private final AtomicLong generation = new AtomicLong();
+
+    public KbPermissionCache(KnowledgeBasePermissionRepository permissionRepository,
+                             StringRedisTemplate stringRedisTemplate,
+                             KbPermissionCacheConfig config) {
+        this.permissionRepository = permissionRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.config = config;
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserPermissions> eldest) {
+                return size() > config.getMaxUsers();
+            }
+        };
+    }
+
+    /**
+     * 检查用户是否有知识库的指定权限
+     */
+    public boolean hasPermission(Long kbId, Long userId, String permissionType) {
+        if (!config.isEnabled() || kbId == null || userId == null) {
+            return permissionRepository.existsByKbIdAndUserIdAndPermissionType(kbId, userId, permissionType);
+        }
+        return permissionsOf(userId).has(kbId, permissionType);
+    }
+
+    /**
+     * 清除用户的权限缓存并通知其他实例
+     */
+    public void invalidate(Long userId) {
+        evict(userId);
+        publish(userId == null ? INVALIDATE_ALL : userId.toString());
+    }
+
+    /**
+     * 清除所有用户的权限缓存并通知其他实例（如删除知识库后）
+     */
+    public void invalidateAll() {
+        evictAll();
+        publish(INVALIDATE_ALL);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (INVALIDATE_ALL.equals(body)) {
+            evictAll();
+            return;
+        }
+        try {
+            evict(Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            log.warn("无法识别的知识库权限失效消息: {}", body);
+        }
+    }
+
+    private UserPermissions permissionsOf(Long userId) {
+        long now = System.currentTimeMillis();
+        synchronized (users) {
+            UserPermissions cached = users.get(userId);
+            if (cached != null && now - cached.loadedAt() < config.getTtlSeconds() * 1000) {
+                return cached;
+            }
+        }
+        long loadGeneration = generation.get();
+        Map<Long, Set<String>> byKb = new HashMap<>();
+        for (KnowledgeBasePermission permission : permissionRepository.findByUserId(userId)) {
+            byKb.computeIfAbsent(permission.getKbId(), kbId -> new HashSet<>()).add(permission.getPermissionType());
+        }
+        UserPermissions loaded = new UserPermissions(Map.copyOf(byKb), now);
+        synchronized (users) {
+            if (generation.get() == loadGeneration) {
+                users.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private void evict(Long userId) {
+        synchronized (users) {
+            generation.incrementAndGet();
+            users.remove(userId);
+        }
+    }
+
+    private void evictAll() {
+        synchronized (users) {
+            generation.incrementAndGet();
+            users.clear();
+        }
+    }
+
+    private void publish(String message) {
+        if (!config.isPubsubEnabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(config.getChannel(), message);
+        } catch (Exception e) {
+            log.warn("发布知识库权限失效消息失败，其他实例将在缓存过期后更新: {}", e.getMessage());
+        }
+    }
+
+    private record UserPermissions(Map<Long, Set<String>> byKb, long loadedAt) {
+
+        boolean has(Long kbId, String permissionType) {
+            Set<String> types = byKb.get(kbId);
+            return types != null && types.contains(permissionType);
+        }
+    }
+}
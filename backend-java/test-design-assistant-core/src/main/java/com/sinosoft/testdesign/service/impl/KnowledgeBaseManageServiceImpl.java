@@ -3,6 +3,7 @@ package com.sinosoft.testdesign.service.impl;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.KbSyncConfig;
 import com.sinosoft.testdesign.dto.*;
 import com.sinosoft.testdesign.entity.KnowledgeBase;
 import com.sinosoft.testdesign.entity.KnowledgeBasePermission;
@@ -14,16 +15,40 @@ import com.sinosoft.testdesign.service.KnowledgeBaseManageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 知识库管理服务实现（第四阶段增强）
@@ -41,6 +66,13 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
     private final KnowledgeBaseSyncLogRepository syncLogRepository;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final KnowledgeBaseStatisticsCache statisticsCache;
+    private final KbPermissionCache permissionCache;
+    private final KnowledgeBaseManifestSync manifestSync;
+    private final KbSyncConfig kbSyncConfig;
+    
+    /** 本节点正在同步的知识库，跨节点由同步日志的运行中唯一索引保证 */
+    private final Set<Long> syncingKbIds = ConcurrentHashMap.newKeySet();
     
     @Value("${app.ai-service.url:http://localhost:8000}")
     private String aiServiceUrl;
@@ -79,6 +111,7 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
             permission.setUserId(request.getCreatorId());
             permission.setPermissionType("admin");
             permissionRepository.save(permission);
+            afterCommit(() -> permissionCache.invalidate(request.getCreatorId()));
         }
         
         log.info("知识库创建成功, ID: {}", savedKb.getId());
@@ -145,9 +178,11 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
         
         // 删除权限
         permissionRepository.deleteByKbIdAndUserId(id, null);
+        afterCommit(permissionCache::invalidateAll);
         
         // 删除知识库
         knowledgeBaseRepository.deleteById(id);
+        statisticsCache.evict(id);
         
         log.info("知识库删除成功: ID={}", id);
     }
@@ -157,15 +192,13 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
         KnowledgeBase kb = knowledgeBaseRepository.findById(id)
                 .orElseThrow(() -> new BusinessException("知识库不存在: " + id));
         
-        return convertToResponseDTO(kb);
+        return convertToResponseDTOs(List.of(kb)).get(0);
     }
     
     @Override
     public List<KnowledgeBaseResponseDTO> getKnowledgeBaseList() {
         List<KnowledgeBase> kbList = knowledgeBaseRepository.findByIsActive("1");
-        return kbList.stream()
-                .map(this::convertToResponseDTO)
-                .toList();
+        return convertToResponseDTOs(kbList);
     }
     
     @Override
@@ -182,13 +215,13 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
                     .toList();
         }
         
-        // 获取知识库列表
-        return kbIds.stream()
-                .map(knowledgeBaseRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .map(this::convertToResponseDTO)
-                .toList();
+        // 获取知识库列表（一次查询，保持权限列表的顺序）
+        Map<Long, KnowledgeBase> kbById = knowledgeBaseRepository.findAllById(kbIds).stream()
+                .collect(Collectors.toMap(KnowledgeBase::getId, Function.identity()));
+        return convertToResponseDTOs(kbIds.stream()
+                .map(kbById::get)
+                .filter(Objects::nonNull)
+                .toList());
     }
     
     @Override
@@ -218,6 +251,7 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
         permission.setPermissionType(request.getPermissionType());
         
         permissionRepository.save(permission);
+        afterCommit(() -> permissionCache.invalidate(request.getUserId()));
         log.info("权限授予成功");
         return true;
     }
@@ -232,6 +266,7 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
         
         if (permission.isPresent()) {
             permissionRepository.delete(permission.get());
+            afterCommit(() -> permissionCache.invalidate(userId));
             log.info("权限撤销成功");
             return true;
         } else {
@@ -242,30 +277,34 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
     
     @Override
     public boolean checkPermission(Long kbId, Long userId, String permissionType) {
-        return permissionRepository.existsByKbIdAndUserIdAndPermissionType(
-                kbId, userId, permissionType);
+        return permissionCache.hasPermission(kbId, userId, permissionType);
     }
     
     @Override
     public List<KnowledgePermissionResponseDTO> getKnowledgeBasePermissions(Long kbId) {
-        List<KnowledgeBasePermission> permissions = permissionRepository.findByKbId(kbId);
+        List<Object[]> rows = permissionRepository.findWithKnowledgeBaseByKbId(kbId);
         
-        return permissions.stream()
+        return rows.stream()
                 .map(this::convertToPermissionResponseDTO)
                 .toList();
     }
     
     @Override
     public List<KnowledgePermissionResponseDTO> getUserPermissions(Long userId) {
-        List<KnowledgeBasePermission> permissions = permissionRepository.findByUserId(userId);
+        List<Object[]> rows = permissionRepository.findWithKnowledgeBaseByUserId(userId);
         
-        return permissions.stream()
+        return rows.stream()
                 .map(this::convertToPermissionResponseDTO)
                 .toList();
     }
     
+    /**
+     * 同步知识库
+     * 不在外层事务中执行：遍历目录、计算哈希和调用AI服务期间不占用数据库连接，
+     * 同步日志和每批文档清单分别在各自的事务中提交，后续批次失败不会回滚已完成批次的清单。
+     * 同一知识库同时只允许一个同步任务。
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> syncKnowledgeBase(Long kbId, String syncType, String sourcePath) {
         log.info("同步知识库: kbId={}, syncType={}, sourcePath={}", kbId, syncType, sourcePath);
         
@@ -273,28 +312,58 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
         KnowledgeBase kb = knowledgeBaseRepository.findById(kbId)
                 .orElseThrow(() -> new BusinessException("知识库不存在: " + kbId));
         
-        // 创建同步日志
+        if (!syncingKbIds.add(kbId)) {
+            throw new BusinessException("知识库正在同步中，请稍后再试: " + kbId);
+        }
+        try {
+            return doSync(kb, syncType, sourcePath);
+        } finally {
+            syncingKbIds.remove(kbId);
+        }
+    }
+    
+    private Map<String, Object> doSync(KnowledgeBase kb, String syncType, String sourcePath) {
+        Long kbId = kb.getId();
+        
+        // 节点异常退出遗留的运行中日志超时后标记为失败，不再阻塞后续同步
+        LocalDateTime now = LocalDateTime.now();
+        syncLogRepository.failStaleRunning(kbId, now.minusMinutes(kbSyncConfig.getRunningTimeoutMinutes()), now);
+        
+        // 创建同步日志（运行中日志按知识库唯一，其他节点正在同步时插入失败）
         KnowledgeBaseSyncLog syncLog = new KnowledgeBaseSyncLog();
         syncLog.setKbId(kbId);
         syncLog.setSyncType(syncType);
         syncLog.setSourcePath(sourcePath);
         syncLog.setStatus("running");
-        syncLog.setStartTime(LocalDateTime.now());
-        syncLogRepository.save(syncLog);
+        syncLog.setStartTime(now);
+        try {
+            syncLogRepository.save(syncLog);
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException("知识库正在同步中，请稍后再试: " + kbId);
+        }
         
         try {
-            // 调用Python AI服务进行同步
-            String url = aiServiceUrl + "/api/v1/knowledge/sync";
-            
-            Map<String, Object> request = new HashMap<>();
-            request.put("kb_id", kbId);
-            request.put("sync_type", syncType);
-            request.put("source_path", sourcePath);
-            request.put("chunking_strategy", kb.getChunkingStrategy());
-            request.put("chunk_size", kb.getChunkSize());
-            request.put("chunk_overlap", kb.getChunkOverlap());
-            
-            Map<String, Object> response = restTemplate.postForObject(url, request, Map.class);
+            Map<String, Object> response;
+            if ("incremental".equals(syncType)) {
+                // 增量同步由本服务按文档清单计算变化，只把变化的文件分批交给AI服务
+                response = manifestSync.syncIncremental(kb, sourcePath);
+            } else {
+                // 全量同步由Python AI服务重新导入全部文件，完成后重建文档清单
+                String url = aiServiceUrl + "/api/v1/knowledge/sync";
+                
+                Map<String, Object> request = new HashMap<>();
+                request.put("kb_id", kbId);
+                request.put("sync_type", syncType);
+                request.put("source_path", sourcePath);
+                request.put("chunking_strategy", kb.getChunkingStrategy());
+                request.put("chunk_size", kb.getChunkSize());
+                request.put("chunk_overlap", kb.getChunkOverlap());
+                
+                response = restTemplate.postForObject(url, request, Map.class);
+                if (response != null && Boolean.TRUE.equals(response.get("success"))) {
+                    manifestSync.rebuildManifest(kbId, sourcePath);
+                }
+            }
             
             if (response != null && Boolean.TRUE.equals(response.get("success"))) {
                 // 更新同步日志
@@ -305,6 +374,7 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
                 syncLog.setStatus("success");
                 syncLog.setEndTime(LocalDateTime.now());
                 syncLogRepository.save(syncLog);
+                refreshStatisticsAfterCommit(kbId);
                 
                 log.info("知识库同步成功: kbId={}", kbId);
                 return response;
@@ -334,35 +404,98 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
     
     @Override
     public String uploadDocument(Long kbId, String fileName, byte[] fileContent, Long creatorId) {
+        return uploadDocument(kbId, fileName, new ByteArrayInputStream(fileContent), creatorId);
+    }
+    
+    @Override
+    public String uploadDocument(Long kbId, String fileName, InputStream content, Long creatorId) {
         log.info("上传文档到知识库: kbId={}, fileName={}", kbId, fileName);
         
         // 检查知识库是否存在
         knowledgeBaseRepository.findById(kbId)
                 .orElseThrow(() -> new BusinessException("知识库不存在: " + kbId));
         
+        Path tempFile = null;
         try {
-            String url = aiServiceUrl + "/api/v1/knowledge/upload";
+            // 写入临时文件并计算内容哈希，内存中只保留读写缓冲区
+            tempFile = Files.createTempFile("kb-upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
             
-            Map<String, Object> request = new HashMap<>();
-            request.put("kb_id", kbId);
-            request.put("file_name", fileName);
-            request.put("file_content", java.util.Base64.getEncoder().encodeToString(fileContent));
-            request.put("creator_id", creatorId);
+            // 内容未变化的文件不再重复解析、分块和向量化
+            String existingDocCode = findDocumentByHash(kbId, contentHash);
+            if (existingDocCode != null) {
+                log.info("文档内容未变化，跳过上传: fileName={}, docCode={}", fileName, existingDocCode);
+                return existingDocCode;
+            }
             
-            Map<String, Object> response = restTemplate.postForObject(url, request, Map.class);
+            URI uri = UriComponentsBuilder.fromHttpUrl(aiServiceUrl + "/api/v1/knowledge/upload/stream")
+                    .queryParam("kb_id", kbId)
+                    .queryParam("file_name", fileName)
+                    .queryParamIfPresent("creator_id", Optional.ofNullable(creatorId))
+                    .queryParam("content_hash", contentHash)
+                    .encode()
+                    .build()
+                    .toUri();
+            Path body = tempFile;
+            long size = Files.size(body);
+            String responseBody = restTemplate.execute(uri, HttpMethod.POST, request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                request.getHeaders().setContentLength(size);
+                if (request instanceof StreamingHttpOutputMessage streaming) {
+                    streaming.setBody(out -> Files.copy(body, out));
+                } else {
+                    Files.copy(body, request.getBody());
+                }
+            }, response -> StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
             
+            Map<String, Object> response = responseBody == null ? null
+                    : objectMapper.readValue(responseBody, new TypeReference<Map<String, Object>>() {});
             if (response != null && Boolean.TRUE.equals(response.get("success"))) {
-                log.info("文档上传成功: fileName={}", fileName);
+                log.info("文档上传成功: fileName={}, size={}", fileName, size);
+                refreshStatisticsAfterCommit(kbId);
                 return (String) response.get("doc_code");
             } else {
-                throw new BusinessException("上传文档失败: " + response.get("message"));
+                throw new BusinessException("上传文档失败: " + (response == null ? null : response.get("message")));
             }
         } catch (Exception e) {
             log.error("上传文档失败: fileName={}", fileName, e);
             throw new BusinessException("上传文档失败: " + e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("删除上传临时文件失败: {}", tempFile, e);
+                }
+            }
         }
     }
     
+    /**
+     * 查询知识库中内容哈希相同的文档，查询失败时按不存在处理
+     */
+    private String findDocumentByHash(Long kbId, String contentHash) {
+        try {
+            String url = aiServiceUrl + "/api/v1/knowledge/upload/check";
+            
+            Map<String, Object> request = new HashMap<>();
+            request.put("kb_id", kbId);
+            request.put("content_hash", contentHash);
+            
+            Map<String, Object> response = restTemplate.postForObject(url, request, Map.class);
+            if (response != null && Boolean.TRUE.equals(response.get("exists"))) {
+                return (String) response.get("doc_code");
+            }
+        } catch (Exception e) {
+            log.warn("检查文档是否已存在失败，继续上传: kbId={}, 错误={}", kbId, e.getMessage());
+        }
+        return null;
+    }
+    
     @Override
     public String generateKbCode() {
         // 生成知识库编码：KB-YYYYMMDD-序号
@@ -385,10 +518,24 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
         return String.format("%s%04d", prefix, nextSeq);
     }
     
+    /**
+     * 批量转换为响应DTO，统计信息一次批量查询
+     */
+    private List<KnowledgeBaseResponseDTO> convertToResponseDTOs(List<KnowledgeBase> kbList) {
+        if (kbList.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Map<String, Object>> statistics = statisticsCache.getStatistics(
+                kbList.stream().map(KnowledgeBase::getId).toList());
+        return kbList.stream()
+                .map(kb -> convertToResponseDTO(kb, statistics.get(kb.getId())))
+                .toList();
+    }
+    
     /**
      * 转换为响应DTO
      */
-    private KnowledgeBaseResponseDTO convertToResponseDTO(KnowledgeBase kb) {
+    private KnowledgeBaseResponseDTO convertToResponseDTO(KnowledgeBase kb, Map<String, Object> statistics) {
         KnowledgeBaseResponseDTO dto = new KnowledgeBaseResponseDTO();
         dto.setId(kb.getId());
         dto.setKbCode(kb.getKbCode());
@@ -404,58 +551,75 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
         dto.setCreateTime(kb.getCreateTime());
         dto.setUpdateTime(kb.getUpdateTime());
         
-        // 查询文档数量、分块数量、最后同步时间
-        try {
-            Map<String, Object> statistics = getKnowledgeBaseStatistics(kb.getId());
-            if (statistics != null) {
-                dto.setDocumentCount((Integer) statistics.getOrDefault("document_count", 0));
-                dto.setChunkCount((Integer) statistics.getOrDefault("chunk_count", 0));
-                
-                String lastSyncTimeStr = (String) statistics.get("last_sync_time");
-                if (lastSyncTimeStr != null && !lastSyncTimeStr.isEmpty()) {
-                    try {
-                        dto.setLastSyncTime(LocalDateTime.parse(lastSyncTimeStr.replace("Z", "")));
-                    } catch (Exception e) {
-                        log.warn("解析最后同步时间失败: {}", lastSyncTimeStr);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.warn("查询知识库统计信息失败: kbId={}, 错误={}", kb.getId(), e.getMessage());
-            // 设置默认值
+        // 文档数量、分块数量、最后同步时间
+        if (statistics == null) {
             dto.setDocumentCount(0);
             dto.setChunkCount(0);
+            return dto;
+        }
+        dto.setDocumentCount(toInt(statistics.get("document_count")));
+        dto.setChunkCount(toInt(statistics.get("chunk_count")));
+        
+        String lastSyncTimeStr = (String) statistics.get("last_sync_time");
+        if (lastSyncTimeStr != null && !lastSyncTimeStr.isEmpty()) {
+            try {
+                dto.setLastSyncTime(LocalDateTime.parse(lastSyncTimeStr.replace("Z", "")));
+            } catch (Exception e) {
+                log.warn("解析最后同步时间失败: {}", lastSyncTimeStr);
+            }
         }
         
         return dto;
     }
     
+    private static int toInt(Object value) {
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+    
+    /**
+     * 事务提交后在后台刷新知识库统计信息（同步日志提交后才能查到最后同步时间）
+     */
+    private void refreshStatisticsAfterCommit(Long kbId) {
+        statisticsCache.markStale(kbId);
+        afterCommit(() -> statisticsCache.refresh(kbId));
+    }
+    
+    /**
+     * 在当前事务提交后执行（没有事务时立即执行），
+     * 避免其他线程在提交前读到旧数据并重新写入缓存
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
     /**
      * 转换为权限响应DTO
+     * 
+     * @param row 权限实体、知识库编码、知识库名称（联表查询结果）
      */
-    private KnowledgePermissionResponseDTO convertToPermissionResponseDTO(KnowledgeBasePermission permission) {
+    private KnowledgePermissionResponseDTO convertToPermissionResponseDTO(Object[] row) {
+        KnowledgeBasePermission permission = (KnowledgeBasePermission) row[0];
         KnowledgePermissionResponseDTO dto = new KnowledgePermissionResponseDTO();
         dto.setId(permission.getId());
         dto.setKbId(permission.getKbId());
         dto.setUserId(permission.getUserId());
         dto.setPermissionType(permission.getPermissionType());
         dto.setCreateTime(permission.getCreateTime());
+        dto.setKbCode((String) row[1]);
+        dto.setKbName((String) row[2]);
         
-        // 查询知识库名称、用户名
-        try {
-            // 查询知识库信息
-            Optional<KnowledgeBase> kb = knowledgeBaseRepository.findById(permission.getKbId());
-            if (kb.isPresent()) {
-                dto.setKbCode(kb.get().getKbCode());
-                dto.setKbName(kb.get().getKbName());
-            }
-            
-            // 查询用户名（这里需要根据实际的用户服务来获取）
-            // 暂时使用用户ID作为用户名，实际应该调用用户服务
-            dto.setUserName("用户" + permission.getUserId());
-        } catch (Exception e) {
-            log.warn("查询权限相关信息失败: permissionId={}, 错误={}", permission.getId(), e.getMessage());
-        }
+        // 查询用户名（这里需要根据实际的用户服务来获取）
+        // 暂时使用用户ID作为用户名，实际应该调用用户服务
+        dto.setUserName("用户" + permission.getUserId());
         
         return dto;
     }
@@ -517,34 +681,4 @@ public class KnowledgeBaseManageServiceImpl implements KnowledgeBaseManageServic
             return Long.MAX_VALUE;
         }
     }
-    
-    /**
-     * 获取知识库统计信息
-     */
-    private Map<String, Object> getKnowledgeBaseStatistics(Long kbId) {
-        try {
-            // 通过AI服务查询统计信息
-            String url = aiServiceUrl + "/api/v1/knowledge/statistics";
-            
-            Map<String, Object> request = new HashMap<>();
-            request.put("kb_id", kbId);
-            
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
-            org.springframework.http.HttpEntity<Map<String, Object>> entity = 
-                new org.springframework.http.HttpEntity<>(request, headers);
-            
-            Map<String, Object> response = restTemplate.postForObject(url, entity, Map.class);
-            
-            if (response != null && Boolean.TRUE.equals(response.get("success"))) {
-                return response;
-            }
-            
-            return null;
-        } catch (Exception e) {
-            log.error("查询知识库统计信息失败: kbId={}, 错误={}", kbId, e.getMessage());
-            return null;
-        }
-    }
 }
-
@@ -0,0 +1,430 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.KbSyncConfig;
+import com.sinosoft.testdesign.entity.KnowledgeBase;
+import com.sinosoft.testdesign.entity.KnowledgeDocumentManifest;
+import com.sinosoft.testdesign.repository.KnowledgeDocumentManifestRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 知识库文档清单同步
+ * 遍历源目录，与文档清单（knowledge_document_manifest）比较：大小和修改时间都未变化的文件直接跳过，
+ * 其余文件并行计算SHA-256，内容哈希也未变化的只更新清单；新增、内容变化和已删除的文件
+ * 分批提交给AI服务（/api/v1/knowledge/sync/batch）。处理失败的文件不写入清单，下次同步重试。
+ * 每批处理结果在独立事务中写入清单（不占用调用方事务和数据库连接），后续批次失败不会回滚已完成批次的清单。
+ * 文档编码由知识库ID和相对路径生成，不同子目录下的同名文件对应不同文档。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+public class KnowledgeBaseManifestSync {
+
+    private final KnowledgeDocumentManifestRepository manifestRepository;
+    private final RestTemplate restTemplate;
+    private final KbSyncConfig config;
+    private final ThreadPoolExecutor hashExecutor;
+    private final TransactionTemplate batchTransaction;
+
+    @Value("${app.ai-service.url:http://localhost:8000}")
+    private String aiServiceUrl;
+
+    public KnowledgeBaseManifestSync(KnowledgeDocumentManifestRepository manifestRepository,
+                                     RestTemplate restTemplate,
+                                     KbSyncConfig config,
+                                     PlatformTransactionManager transactionManager) {
+        this.manifestRepository = manifestRepository;
+        this.restTemplate = restTemplate;
+        this.config = config;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 队列满时由提交线程自己计算，遍历速度不会超过哈希速度太多
+        this.hashExecutor = new ThreadPoolExecutor(config.getHashThreads(), config.getHashThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getHashThreads() * 4),
+                r -> {
+                    Thread thread = new Thread(r, "kb-sync-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdownNow();
+    }
+
+    /**
+     * 增量同步：只提交新增、内容变化和已删除的文件
+     *
+     * @param kb 知识库
+     * @param sourcePath 源目录
+     * @return 同步结果（success、added_count、updated_count、deleted_count、failed_count、unchanged_count、errors）
+     */
+    public Map<String, Object> syncIncremental(KnowledgeBase kb, String sourcePath) {
+        Path root = resolveRoot(sourcePath);
+        List<ScannedFile> files = scan(root);
+        Map<String, KnowledgeDocumentManifest> manifest = manifestRepository.findByKbId(kb.getId()).stream()
+                .collect(Collectors.toMap(KnowledgeDocumentManifest::getRelativePath, m -> m, (a, b) -> a));
+
+        SyncCounter counter = new SyncCounter(config.getMaxErrors());
+
+        // 大小和修改时间都未变化的文件不读取内容
+        List<ScannedFile> candidates = new ArrayList<>();
+        for (ScannedFile file : files) {
+            KnowledgeDocumentManifest entry = manifest.get(file.relativePath());
+            if (entry != null && entry.getFileSize() == file.size() && entry.getLastModified() == file.lastModified()) {
+                counter.unchanged++;
+            } else {
+                candidates.add(file);
+            }
+        }
+
+        List<ChangedFile> changed = new ArrayList<>();
+        List<KnowledgeDocumentManifest> touched = new ArrayList<>();
+        Map<ScannedFile, String> hashes = hashAll(candidates);
+        for (ScannedFile file : candidates) {
+            String hash = hashes.get(file);
+            if (hash == null) {
+                counter.failed("读取文件失败 " + file.relativePath());
+                continue;
+            }
+            KnowledgeDocumentManifest entry = manifest.get(file.relativePath());
+            if (entry != null && hash.equals(entry.getContentHash())) {
+                // 只有修改时间变化（如重新拷贝），内容相同
+                entry.setFileSize(file.size());
+                entry.setLastModified(file.lastModified());
+                touched.add(entry);
+                counter.unchanged++;
+            } else {
+                changed.add(new ChangedFile(file, hash, entry));
+            }
+        }
+        if (!touched.isEmpty()) {
+            batchTransaction.executeWithoutResult(status -> manifestRepository.saveAll(touched));
+        }
+
+        Set<String> present = files.stream().map(ScannedFile::relativePath).collect(Collectors.toSet());
+        List<KnowledgeDocumentManifest> deleted = manifest.values().stream()
+                .filter(entry -> !present.contains(entry.getRelativePath()))
+                .toList();
+
+        log.info("知识库增量同步: kbId={}, 文件={}, 未变化={}, 待处理={}, 已删除={}",
+                kb.getId(), files.size(), counter.unchanged, changed.size(), deleted.size());
+
+        int batchSize = Math.max(1, config.getBatchSize());
+        for (int i = 0; i < changed.size(); i += batchSize) {
+            submitChanged(kb, changed.subList(i, Math.min(i + batchSize, changed.size())), counter);
+        }
+        for (int i = 0; i < deleted.size(); i += batchSize) {
+            submitDeleted(kb, deleted.subList(i, Math.min(i + batchSize, deleted.size())), counter);
+        }
+        return counter.toResult();
+    }
+
+    /**
+     * 按源目录当前内容重建文档清单（全量同步完成后调用，作为后续增量同步的基准）
+     * 全量同步由AI服务按文件名生成文档编码，不同子目录下的同名文件只对应一个文档；
+     * 这些文件的清单记录标记为待重新同步（修改时间和内容哈希置空），下次增量同步按相对路径重新导入。
+     *
+     * @param kbId 知识库ID
+     * @param sourcePath 源目录
+     * @return 清单记录数
+     */
+    public int rebuildManifest(Long kbId, String sourcePath) {
+        List<ScannedFile> files = scan(resolveRoot(sourcePath));
+        Map<ScannedFile, String> hashes = hashAll(files);
+        Map<String, Long> nameCounts = files.stream()
+                .collect(Collectors.groupingBy(ScannedFile::fileName, Collectors.counting()));
+        List<KnowledgeDocumentManifest> entries = new ArrayList<>();
+        for (ScannedFile file : files) {
+            String hash = hashes.get(file);
+            if (hash == null) {
+                continue;
+            }
+            KnowledgeDocumentManifest entry = newEntry(kbId, file, hash, file.fileName());
+            if (nameCounts.get(file.fileName()) > 1) {
+                log.warn("全量同步存在同名文件，下次增量同步按相对路径重新导入: kbId={}, path={}",
+                        kbId, file.relativePath());
+                entry.setLastModified(-1L);
+                entry.setContentHash("");
+            }
+            entries.add(entry);
+        }
+        batchTransaction.executeWithoutResult(status -> {
+            manifestRepository.deleteByKbId(kbId);
+            manifestRepository.saveAll(entries);
+        });
+        return entries.size();
+    }
+
+    /**
+     * 文件对应的知识库文档编码：知识库ID加相对路径的SHA-256前缀，
+     * 同一知识库中不同路径的文件编码不同，长度固定，不受路径长度影响
+     */
+    static String docCodeOf(Long kbId, String relativePath) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String pathHash = HexFormat.of().formatHex(digest.digest(relativePath.getBytes(StandardCharsets.UTF_8)));
+            return "KB" + kbId + "-" + pathHash.substring(0, 32);
+        } catch (Exception e) {
+            throw new BusinessException("生成文档编码失败: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void submitChanged(KnowledgeBase kb, List<ChangedFile> batch, SyncCounter counter) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (ChangedFile file : batch) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("path", file.file().path().toString());
+            item.put("content_hash", file.hash());
+            item.put("doc_code", docCodeOf(kb.getId(), file.file().relativePath()));
+            // 旧版清单按文件名记录的文档编码与新编码不同时，由AI服务先删除旧文档
+            if (file.previous() != null && file.previous().getDocCode() != null) {
+                item.put("previous_doc_code", file.previous().getDocCode());
+            }
+            items.add(item);
+        }
+        Map<String, Object> request = batchRequest(kb);
+        request.put("files", items);
+
+        Map<String, Map<String, Object>> results = new HashMap<>();
+        try {
+            Map<String, Object> response = restTemplate.postForObject(
+                    aiServiceUrl + "/api/v1/knowledge/sync/batch", request, Map.class);
+            if (response != null && response.get("results") instanceof List<?> list) {
+                for (Object item : list) {
+                    if (item instanceof Map<?, ?> result) {
+                        results.put(String.valueOf(result.get("path")), (Map<String, Object>) result);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("提交知识库同步批次失败: kbId={}, 文件数={}, 错误={}", kb.getId(), batch.size(), e.getMessage());
+        }
+
+        List<KnowledgeDocumentManifest> synced = new ArrayList<>();
+        for (ChangedFile file : batch) {
+            Map<String, Object> result = results.get(file.file().path().toString());
+            if (result == null || !Boolean.TRUE.equals(result.get("success"))) {
+                counter.failed("同步文件失败 " + file.file().relativePath()
+                        + (result == null ? "" : ": " + result.get("error")));
+                continue;
+            }
+            String docCode = result.get("doc_code") != null ? result.get("doc_code").toString()
+                    : docCodeOf(kb.getId(), file.file().relativePath());
+            KnowledgeDocumentManifest entry = file.previous();
+            if (entry == null) {
+                entry = newEntry(kb.getId(), file.file(), file.hash(), docCode);
+                counter.added++;
+            } else {
+                entry.setFileSize(file.file().size());
+                entry.setLastModified(file.file().lastModified());
+                entry.setContentHash(file.hash());
+                entry.setDocCode(docCode);
+                counter.updated++;
+            }
+            synced.add(entry);
+        }
+        if (!synced.isEmpty()) {
+            batchTransaction.executeWithoutResult(status -> manifestRepository.saveAll(synced));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void submitDeleted(KnowledgeBase kb, List<KnowledgeDocumentManifest> batch, SyncCounter counter) {
+        Map<String, Object> request = batchRequest(kb);
+        request.put("deleted_doc_codes", batch.stream().map(KnowledgeDocumentManifest::getDocCode).distinct().toList());
+        try {
+            Map<String, Object> response = restTemplate.postForObject(
+                    aiServiceUrl + "/api/v1/knowledge/sync/batch", request, Map.class);
+            if (response != null && Boolean.TRUE.equals(response.get("success"))) {
+                batchTransaction.executeWithoutResult(status -> manifestRepository.deleteAll(batch));
+                counter.deleted += batch.size();
+                return;
+            }
+            counter.failed(batch.size(), "删除文档失败: " + (response == null ? null : response.get("error")));
+        } catch (Exception e) {
+            log.error("提交知识库删除批次失败: kbId={}, 文件数={}, 错误={}", kb.getId(), batch.size(), e.getMessage());
+            counter.failed(batch.size(), "删除文档失败: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Object> batchRequest(KnowledgeBase kb) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("kb_id", kb.getId());
+        request.put("chunking_strategy", kb.getChunkingStrategy());
+        request.put("chunk_size", kb.getChunkSize());
+        request.put("chunk_overlap", kb.getChunkOverlap());
+        return request;
+    }
+
+    private Path resolveRoot(String sourcePath) {
+        if (sourcePath == null || sourcePath.isBlank()) {
+            throw new BusinessException("源目录不能为空");
+        }
+        Path root = Paths.get(sourcePath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            throw new BusinessException("源目录不存在: " + sourcePath);
+        }
+        return root;
+    }
+
+    /**
+     * 遍历源目录中支持的文件，只读取文件属性
+     */
+    private List<ScannedFile> scan(Path root) {
+        Set<String> extensions = config.getSupportedExtensions().stream()
+                .map(ext -> ext.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        List<ScannedFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(Files::isRegularFile)
+                    .filter(path -> extensions.contains(extensionOf(path)))
+                    .forEach(path -> {
+                        try {
+                            files.add(new ScannedFile(path,
+                                    root.relativize(path).toString().replace('\\', '/'),
+                                    Files.size(path),
+                                    Files.getLastModifiedTime(path).toMillis()));
+                        } catch (IOException e) {
+                            log.warn("读取文件属性失败: {}, 错误={}", path, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            throw new BusinessException("遍历源目录失败: " + e.getMessage());
+        }
+        return files;
+    }
+
+    /**
+     * 并行计算文件内容哈希，读取失败的文件不包含在结果中
+     */
+    private Map<ScannedFile, String> hashAll(List<ScannedFile> files) {
+        List<CompletableFuture<String>> futures = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> hash(file.path()), hashExecutor))
+                .toList();
+        Map<ScannedFile, String> hashes = new HashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                hashes.put(files.get(i), futures.get(i).join());
+            } catch (CompletionException e) {
+                log.warn("计算文件哈希失败: {}, 错误={}", files.get(i).path(), e.getCause().getMessage());
+            }
+        }
+        return hashes;
+    }
+
+    private static String hash(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static String extensionOf(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static KnowledgeDocumentManifest newEntry(Long kbId, ScannedFile file, String hash, String docCode) {
+        return KnowledgeDocumentManifest.builder()
+                .kbId(kbId)
+                .relativePath(file.relativePath())
+                .fileSize(file.size())
+                .lastModified(file.lastModified())
+                .contentHash(hash)
+                .docCode(docCode)
+                .build();
+    }
+
+    private record ScannedFile(Path path, String relativePath, long size, long lastModified) {
+
+        String fileName() {
+            return path.getFileName().toString();
+        }
+    }
+
+    private record ChangedFile(ScannedFile file, String hash, KnowledgeDocumentManifest previous) {
+    }
+
+    private static class SyncCounter {
+
+        private final int maxErrors;
+        private final List<String> errors = new ArrayList<>();
+        private int added;
+        private int updated;
+        private int deleted;
+        private int unchanged;
+        private int failedCount;
+
+        SyncCounter(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void failed(String error) {
+            failed(1, error);
+        }
+
+        void failed(int count, String error) {
+            failedCount += count;
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            }
+        }
+
+        Map<String, Object> toResult() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("added_count", added);
+            result.put("updated_count", updated);
+            result.put("deleted_count", deleted);
+            result.put("failed_count", failedCount);
+            result.put("unchanged_count", unchanged);
+            result.put("errors", errors);
+            return result;
+        }
+    }
+}
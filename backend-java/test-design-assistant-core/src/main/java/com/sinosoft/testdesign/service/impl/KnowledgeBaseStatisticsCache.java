@@ -0,0 +1,193 @@
+package com.sinosoft.testdesign.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 知识库统计信息缓存
+ * 文档数量、分块数量、最后同步时间由Python AI服务统计。列表页一次批量请求所有未缓存的知识库
+ * （/api/v1/knowledge/statistics/batch），结果缓存较短时间；同步、上传文档后在后台刷新对应知识库。
+ * AI服务不可用时返回已过期的缓存值，没有缓存的知识库不返回统计信息；刷新失败时保留旧值。
+ * 同一知识库同时只有一个查询在进行，并发的列表请求和刷新等待进行中的查询，不重复请求AI服务。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+public class KnowledgeBaseStatisticsCache {
+
+    private final RestTemplate restTemplate;
+    private final Map<Long, CachedStatistics> cache = new ConcurrentHashMap<>();
+    /** 知识库ID -> 进行中的查询 */
+    private final Map<Long, InFlightLoad> inFlight = new ConcurrentHashMap<>();
+    /** 查询序号，序号大的查询发起得晚，结果不会被先发起、后返回的查询覆盖 */
+    private final AtomicLong loadSequence = new AtomicLong();
+
+    @Value("${app.ai-service.url:http://localhost:8000}")
+    private String aiServiceUrl;
+
+    /**
+     * 统计信息缓存时间（秒）
+     */
+    @Value("${app.knowledge-base.statistics-ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    public KnowledgeBaseStatisticsCache(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * 获取多个知识库的统计信息，未缓存或已过期的知识库合并为一次批量请求
+     *
+     * @param kbIds 知识库ID
+     * @return 知识库ID -> 统计信息（document_count、chunk_count、last_sync_time），查询失败且无缓存的知识库不包含在结果中
+     */
+    public Map<Long, Map<String, Object>> getStatistics(Collection<Long> kbIds) {
+        Map<Long, Map<String, Object>> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        for (Long kbId : kbIds) {
+            CachedStatistics cached = cache.get(kbId);
+            if (cached != null && now - cached.loadedAt() < ttlSeconds * 1000) {
+                result.put(kbId, cached.statistics());
+            } else {
+                missing.add(kbId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<Long, Map<String, Object>> loaded = loadShared(missing, 0);
+        for (Long kbId : missing) {
+            Map<String, Object> statistics = loaded.get(kbId);
+            if (statistics != null) {
+                result.put(kbId, statistics);
+            } else if (cache.containsKey(kbId)) {
+                // 查询失败时使用过期的缓存
+                result.put(kbId, cache.get(kbId).statistics());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将知识库的统计信息标记为过期（同步、上传文档时调用），保留旧值供刷新失败时返回
+     */
+    public void markStale(Long kbId) {
+        cache.computeIfPresent(kbId, (id, cached) -> new CachedStatistics(cached.statistics(), 0, cached.sequence()));
+    }
+
+    /**
+     * 后台刷新知识库的统计信息（同步、上传文档的事务提交后调用）
+     * 只复用调用之后发起的查询，提交前发起的查询可能读到旧数据；刷新失败时保留旧值
+     */
+    @Async
+    public void refresh(Long kbId) {
+        loadShared(List.of(kbId), loadSequence.get() + 1);
+    }
+
+    /**
+     * 清除知识库的统计信息（知识库删除后）
+     */
+    public void evict(Long kbId) {
+        cache.remove(kbId);
+    }
+
+    /**
+     * 查询统计信息，已有进行中的查询的知识库等待该查询，其余知识库合并为一次请求
+     *
+     * @param kbIds 知识库ID
+     * @param minSequence 可复用的进行中查询的最小序号
+     * @return 查询成功的知识库ID -> 统计信息
+     */
+    private Map<Long, Map<String, Object>> loadShared(Collection<Long> kbIds, long minSequence) {
+        InFlightLoad own = new InFlightLoad(loadSequence.incrementAndGet(), new CompletableFuture<>());
+        List<Long> owned = new ArrayList<>();
+        Map<Long, InFlightLoad> joined = new HashMap<>();
+        for (Long kbId : kbIds) {
+            InFlightLoad current = inFlight.compute(kbId, (id, existing) ->
+                    existing != null && existing.sequence() >= minSequence ? existing : own);
+            if (current == own) {
+                owned.add(kbId);
+            } else {
+                joined.put(kbId, current);
+            }
+        }
+        Map<Long, Map<String, Object>> result = new HashMap<>();
+        if (!owned.isEmpty()) {
+            try {
+                Map<Long, Map<String, Object>> loaded = load(owned, own.sequence());
+                own.future().complete(loaded);
+                result.putAll(loaded);
+            } finally {
+                own.future().complete(Map.of());
+                owned.forEach(kbId -> inFlight.remove(kbId, own));
+            }
+        }
+        joined.forEach((kbId, load) -> {
+            Map<String, Object> statistics = load.future().join().get(kbId);
+            if (statistics != null) {
+                result.put(kbId, statistics);
+            }
+        });
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Map<String, Object>> load(Collection<Long> kbIds, long sequence) {
+        try {
+            String url = aiServiceUrl + "/api/v1/knowledge/statistics/batch";
+
+            Map<String, Object> request = new HashMap<>();
+            request.put("kb_ids", kbIds);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            Map<String, Object> response = restTemplate.postForObject(url, new HttpEntity<>(request, headers), Map.class);
+
+            if (response == null || !Boolean.TRUE.equals(response.get("success"))
+                    || !(response.get("statistics") instanceof Map<?, ?> statistics)) {
+                log.warn("批量查询知识库统计信息失败: kbIds={}", kbIds);
+                return Map.of();
+            }
+            Map<Long, Map<String, Object>> loaded = new HashMap<>();
+            long now = System.currentTimeMillis();
+            statistics.forEach((key, value) -> {
+                if (value instanceof Map<?, ?> stats) {
+                    Long kbId = Long.valueOf(key.toString());
+                    loaded.put(kbId, (Map<String, Object>) stats);
+                    CachedStatistics fresh = new CachedStatistics((Map<String, Object>) stats, now, sequence);
+                    cache.merge(kbId, fresh, (cached, next) -> next.sequence() >= cached.sequence() ? next : cached);
+                }
+            });
+            return loaded;
+        } catch (Exception e) {
+            log.error("批量查询知识库统计信息失败: kbIds={}, 错误={}", kbIds, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private record CachedStatistics(Map<String, Object> statistics, long loadedAt, long sequence) {
+    }
+
+    private record InFlightLoad(long sequence, CompletableFuture<Map<Long, Map<String, Object>>> future) {
+    }
+}
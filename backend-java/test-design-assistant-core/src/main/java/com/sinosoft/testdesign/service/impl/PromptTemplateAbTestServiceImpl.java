@@ -9,6 +9,7 @@ import com.sinosoft.testdesign.repository.PromptTemplateAbTestRepository;
 import com.sinosoft.testdesign.repository.PromptTemplateRepository;
 import com.sinosoft.testdesign.repository.PromptTemplateVersionRepository;
 import com.sinosoft.testdesign.service.PromptTemplateAbTestService;
+import com.sinosoft.testdesign.util.AbTestBucketing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -19,7 +20,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 
 /**
  * 提示词模板A/B测试服务实现
@@ -36,7 +36,10 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
     private final PromptTemplateAbTestExecutionRepository executionRepository;
     private final PromptTemplateRepository templateRepository;
     private final PromptTemplateVersionRepository versionRepository;
-    private final Random random = new Random();
+    private final AbTestStatsRegistry statsRegistry;
+    private final AbTestEvaluator abTestEvaluator;
+    private final AbTestAssignmentCache assignmentCache;
+    private final PromptTemplateCompiler templateCompiler;
     
     @Override
     @Transactional
@@ -63,6 +66,12 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
             throw new RuntimeException("流量分配比例之和必须等于100");
         }
         
+        // 验证流量分配模式
+        if (abTest.getAllocationMode() != null
+                && !"fixed".equals(abTest.getAllocationMode()) && !"bandit".equals(abTest.getAllocationMode())) {
+            throw new RuntimeException("不支持的流量分配模式: " + abTest.getAllocationMode());
+        }
+        
         // 检查是否已有正在运行的测试
         Optional<PromptTemplateAbTest> runningTest = abTestRepository.findRunningTestByTemplateId(templateId);
         if (runningTest.isPresent()) {
@@ -136,19 +145,23 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
         log.info("停止A/B测试: id={}", id);
         
         PromptTemplateAbTest abTest = getAbTestById(id);
-        abTest.setStatus("completed");
-        abTest.setEndTime(LocalDateTime.now());
-        abTest.setUpdateTime(LocalDateTime.now());
         
-        // 如果启用了自动选择，执行自动选择
-        if ("1".equals(abTest.getAutoSelectEnabled())) {
+        // 如果启用了自动选择且结果已显著，推广胜出版本（需在标记完成前判断，否则运行状态检查不通过）；
+        // 未显著时只结束测试，不推广当前领先版本
+        if (shouldAutoSelect(id)) {
             try {
-                autoSelectBestVersion(id);
+                String winner = (String) getAbTestStatistics(id).get("winner");
+                if (winner != null && promoteVersion(abTest, winner) != null) {
+                    return abTest;
+                }
             } catch (Exception e) {
                 log.error("自动选择最优版本失败: {}", e.getMessage());
             }
         }
         
+        abTest.setStatus("completed");
+        abTest.setEndTime(LocalDateTime.now());
+        abTest.setUpdateTime(LocalDateTime.now());
         return abTestRepository.save(abTest);
     }
     
@@ -163,6 +176,8 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
         }
         
         abTestRepository.deleteById(id);
+        statsRegistry.evict(AbTestStatsRegistry.SCOPE_PROMPT, id);
+        assignmentCache.evict(AbTestStatsRegistry.SCOPE_PROMPT, id);
         log.info("删除A/B测试成功: id={}", id);
     }
     
@@ -175,20 +190,26 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
             return "A";
         }
         
-        // 根据流量分配比例随机选择版本
-        int randomValue = random.nextInt(100);
-        if (randomValue < abTest.getTrafficSplitA()) {
-            return "A";
-        } else {
-            return "B";
+        // 按请求ID一致性哈希分桶，同一请求ID始终落在同一版本
+        int trafficSplitA = abTest.getTrafficSplitA();
+        if (!"bandit".equals(abTest.getAllocationMode())) {
+            return AbTestBucketing.selectVariant(abTestId, requestId, trafficSplitA);
         }
+        // bandit模式会调整流量比例，已参与测试的请求ID沿用首次分到的版本
+        return assignmentCache.select(AbTestStatsRegistry.SCOPE_PROMPT, abTestId, requestId,
+                () -> executionRepository.findFirstByAbTestIdAndRequestIdOrderByIdAsc(abTestId, requestId)
+                        .map(PromptTemplateAbTestExecution::getVersionLabel),
+                () -> AbTestBucketing.selectVariant(abTestId, requestId, trafficSplitA));
     }
     
     @Override
     @Transactional
     public PromptTemplateAbTestExecution recordExecution(PromptTemplateAbTestExecution execution) {
         execution.setExecutionTime(LocalDateTime.now());
-        return executionRepository.save(execution);
+        PromptTemplateAbTestExecution saved = executionRepository.save(execution);
+        statsRegistry.record(AbTestStatsRegistry.SCOPE_PROMPT, saved.getAbTestId(), saved.getVersionLabel(),
+                saved.getStatus(), saved.getResponseTime(), saved.getUserRating());
+        return saved;
     }
     
     @Override
@@ -197,76 +218,36 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
         
         Map<String, Object> stats = new HashMap<>();
         
-        // 版本A统计
-        Long versionACount = executionRepository.countVersionAExecutions(abTestId);
-        Long versionASuccess = executionRepository.countVersionASuccess(abTestId);
-        Double versionAAvgResponseTime = executionRepository.getVersionAAvgResponseTime(abTestId);
-        Double versionAAvgRating = executionRepository.getVersionAAvgRating(abTestId);
-        
-        double versionASuccessRate = versionACount > 0 ? (versionASuccess.doubleValue() / versionACount.doubleValue()) * 100 : 0;
-        
-        Map<String, Object> versionAStats = new HashMap<>();
-        versionAStats.put("totalExecutions", versionACount);
-        versionAStats.put("successCount", versionASuccess);
-        versionAStats.put("successRate", Math.round(versionASuccessRate * 100.0) / 100.0);
-        versionAStats.put("avgResponseTime", versionAAvgResponseTime != null ? Math.round(versionAAvgResponseTime) : null);
-        versionAStats.put("avgRating", versionAAvgRating != null ? Math.round(versionAAvgRating * 10.0) / 10.0 : null);
-        
-        // 版本B统计
-        Long versionBCount = executionRepository.countVersionBExecutions(abTestId);
-        Long versionBSuccess = executionRepository.countVersionBSuccess(abTestId);
-        Double versionBAvgResponseTime = executionRepository.getVersionBAvgResponseTime(abTestId);
-        Double versionBAvgRating = executionRepository.getVersionBAvgRating(abTestId);
-        
-        double versionBSuccessRate = versionBCount > 0 ? (versionBSuccess.doubleValue() / versionBCount.doubleValue()) * 100 : 0;
-        
-        Map<String, Object> versionBStats = new HashMap<>();
-        versionBStats.put("totalExecutions", versionBCount);
-        versionBStats.put("successCount", versionBSuccess);
-        versionBStats.put("successRate", Math.round(versionBSuccessRate * 100.0) / 100.0);
-        versionBStats.put("avgResponseTime", versionBAvgResponseTime != null ? Math.round(versionBAvgResponseTime) : null);
-        versionBStats.put("avgRating", versionBAvgRating != null ? Math.round(versionBAvgRating * 10.0) / 10.0 : null);
+        // 统计由内存计数器提供，不逐项查库
+        AbTestStatsRegistry.VariantStats statsA = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, abTestId, "A");
+        AbTestStatsRegistry.VariantStats statsB = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, abTestId, "B");
+        Map<String, Object> versionAStats = toVersionStats(statsA);
+        Map<String, Object> versionBStats = toVersionStats(statsB);
         
         stats.put("versionA", versionAStats);
         stats.put("versionB", versionBStats);
-        stats.put("totalExecutions", versionACount + versionBCount);
+        stats.put("totalExecutions", statsA.executions() + statsB.executions());
         
-        // 判断哪个版本更优
-        String betterVersion = determineBetterVersion(versionAStats, versionBStats, abTest.getSelectionCriteria());
-        stats.put("betterVersion", betterVersion);
+        // 判断哪个版本更优：betterVersion为当前领先版本，winner为已达到显著性的胜出版本
+        AbTestEvaluator.Evaluation evaluation = abTestEvaluator.evaluate(abTest.getSelectionCriteria(), statsA, statsB);
+        stats.put("betterVersion", evaluation.leader());
+        stats.put("winner", evaluation.winner());
+        stats.put("probabilityBBetter", Math.round(evaluation.probabilityBBetter() * 10000) / 10000.0);
+        stats.put("pValue", evaluation.pValue());
         
         return stats;
     }
     
-    /**
-     * 判断哪个版本更优
-     */
-    private String determineBetterVersion(Map<String, Object> versionAStats, Map<String, Object> versionBStats, String criteria) {
-        switch (criteria) {
-            case "success_rate":
-                double rateA = (Double) versionAStats.get("successRate");
-                double rateB = (Double) versionBStats.get("successRate");
-                return rateA >= rateB ? "A" : "B";
-                
-            case "response_time":
-                Integer timeA = (Integer) versionAStats.get("avgResponseTime");
-                Integer timeB = (Integer) versionBStats.get("avgResponseTime");
-                if (timeA == null && timeB == null) return "A";
-                if (timeA == null) return "B";
-                if (timeB == null) return "A";
-                return timeA <= timeB ? "A" : "B";
-                
-            case "user_rating":
-                Double ratingA = (Double) versionAStats.get("avgRating");
-                Double ratingB = (Double) versionBStats.get("avgRating");
-                if (ratingA == null && ratingB == null) return "A";
-                if (ratingA == null) return "B";
-                if (ratingB == null) return "A";
-                return ratingA >= ratingB ? "A" : "B";
-                
-            default:
-                return "A";
-        }
+    private Map<String, Object> toVersionStats(AbTestStatsRegistry.VariantStats variantStats) {
+        Double avgResponseTime = variantStats.avgResponseTime();
+        Double avgRating = variantStats.avgRating();
+        Map<String, Object> versionStats = new HashMap<>();
+        versionStats.put("totalExecutions", variantStats.executions());
+        versionStats.put("successCount", variantStats.successCount());
+        versionStats.put("successRate", Math.round(variantStats.successRate() * 100 * 100.0) / 100.0);
+        versionStats.put("avgResponseTime", avgResponseTime != null ? Math.round(avgResponseTime) : null);
+        versionStats.put("avgRating", avgRating != null ? Math.round(avgRating * 10.0) / 10.0 : null);
+        return versionStats;
     }
     
     @Override
@@ -282,8 +263,8 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
         }
         
         // 检查是否达到最小样本数
-        Long totalExecutions = executionRepository.countVersionAExecutions(abTestId) +
-                              executionRepository.countVersionBExecutions(abTestId);
+        long totalExecutions = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, abTestId, "A").executions()
+                + statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, abTestId, "B").executions();
         
         return totalExecutions >= abTest.getMinSamples();
     }
@@ -299,17 +280,79 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
             throw new RuntimeException("不满足自动选择条件");
         }
         
-        // 获取统计信息
+        // 只推广已达到显著性的胜出版本
         Map<String, Object> stats = getAbTestStatistics(abTestId);
-        String betterVersion = (String) stats.get("betterVersion");
+        String winner = (String) stats.get("winner");
+        if (winner == null) {
+            throw new RuntimeException("A/B测试结果尚未显著，不能自动选择版本");
+        }
+        
+        PromptTemplateVersion bestVersion = promoteVersion(abTest, winner);
+        if (bestVersion == null) {
+            throw new RuntimeException("A/B测试已结束");
+        }
+        log.info("自动选择最优版本成功: version={}, versionNumber={}", winner, bestVersion.getVersionNumber());
         
-        // 获取最优版本
-        Long bestVersionId = "A".equals(betterVersion) ? abTest.getVersionAId() : abTest.getVersionBId();
+        return bestVersion;
+    }
+    
+    @Override
+    @Transactional
+    public void evaluateAbTest(Long abTestId) {
+        PromptTemplateAbTest abTest = getAbTestById(abTestId);
+        if (!"running".equals(abTest.getStatus())) {
+            return;
+        }
+        
+        AbTestStatsRegistry.VariantStats statsA = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, abTestId, "A");
+        AbTestStatsRegistry.VariantStats statsB = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, abTestId, "B");
+        long totalExecutions = statsA.executions() + statsB.executions();
+        AbTestEvaluator.Evaluation evaluation = abTestEvaluator.evaluate(abTest.getSelectionCriteria(), statsA, statsB);
+        
+        // 结果已显著且达到最小样本数时提前结束测试
+        if ("1".equals(abTest.getAutoSelectEnabled()) && evaluation.winner() != null
+                && totalExecutions >= abTest.getMinSamples()) {
+            PromptTemplateVersion bestVersion = promoteVersion(abTest, evaluation.winner());
+            if (bestVersion == null) {
+                return;
+            }
+            log.info("A/B测试结果已显著，自动提升版本: abTestId={}, version={}, versionNumber={}, P(B更优)={}",
+                    abTestId, evaluation.winner(), bestVersion.getVersionNumber(), evaluation.probabilityBBetter());
+            return;
+        }
+        
+        // bandit模式调整的流量比例只作用于新进入测试的分流键，已分配的键由AbTestAssignmentCache保持原版本
+        if ("bandit".equals(abTest.getAllocationMode())) {
+            Integer splitA = abTestEvaluator.banditTrafficSplitA(evaluation, totalExecutions);
+            if (splitA != null && !splitA.equals(abTest.getTrafficSplitA())) {
+                log.info("调整A/B测试流量分配: abTestId={}, A: {}% -> {}%", abTestId, abTest.getTrafficSplitA(), splitA);
+                abTest.setTrafficSplitA(splitA);
+                abTest.setTrafficSplitB(100 - splitA);
+                abTest.setUpdateTime(LocalDateTime.now());
+                abTestRepository.save(abTest);
+            }
+        }
+    }
+    
+    /**
+     * 结束A/B测试并将指定版本设为模板当前版本
+     *
+     * @return 推广的版本；测试已被其他节点或请求结束时返回null，不重复推广
+     */
+    private PromptTemplateVersion promoteVersion(PromptTemplateAbTest abTest, String versionLabel) {
+        Long bestVersionId = "A".equals(versionLabel) ? abTest.getVersionAId() : abTest.getVersionBId();
         PromptTemplateVersion bestVersion = versionRepository.findById(bestVersionId)
                 .orElseThrow(() -> new RuntimeException("最优版本不存在: " + bestVersionId));
         
-        // 停止A/B测试
-        stopAbTest(abTestId);
+        // 停止A/B测试：仅当测试仍在运行时更新状态，保证只推广一次
+        LocalDateTime now = LocalDateTime.now();
+        if (abTestRepository.completeIfRunning(abTest.getId(), now) == 0) {
+            log.info("A/B测试已结束，跳过版本推广: abTestId={}", abTest.getId());
+            return null;
+        }
+        abTest.setStatus("completed");
+        abTest.setEndTime(now);
+        abTest.setUpdateTime(now);
         
         // 将最优版本设为当前版本
         versionRepository.updateAllVersionsToNonCurrent(abTest.getTemplateId());
@@ -323,8 +366,7 @@ public class PromptTemplateAbTestServiceImpl implements PromptTemplateAbTestServ
         template.setTemplateVariables(bestVersion.getTemplateVariables());
         template.setVersion(bestVersion.getVersionNumber());
         templateRepository.save(template);
-        
-        log.info("自动选择最优版本成功: version={}, versionNumber={}", betterVersion, bestVersion.getVersionNumber());
+        templateCompiler.invalidateTemplate(abTest.getTemplateId());
         
         return bestVersion;
     }
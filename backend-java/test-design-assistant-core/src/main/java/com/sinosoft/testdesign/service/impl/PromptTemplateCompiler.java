@@ -0,0 +1,118 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.entity.PromptTemplate;
+import com.sinosoft.testdesign.entity.PromptTemplateVersion;
+import com.sinosoft.testdesign.util.CompiledPromptTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 提示词模板编译缓存
+ * 模板按（模板ID，版本号）缓存编译结果，模板版本记录按版本ID缓存（版本记录创建后内容不再变化）。
+ * 模板元数据在刷新间隔内直接复用，避免每次生成提示词都查库；本节点内的修改通过invalidate在事务提交后生效
+ * （提交前清除时，并发的读取可能把未提交前的旧模板重新放回缓存），其他节点的修改最迟在一个刷新间隔后生效。
+ *
+ * @author sinosoft
+ * @date 2026-02-04
+ */
+@Slf4j
+@Component
+public class PromptTemplateCompiler {
+
+    /** 模板元数据刷新间隔（毫秒），超过后重新读库确认版本 */
+    private static final long REFRESH_INTERVAL_MILLIS = 30_000L;
+
+    private final Map<Long, ResolvedTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<Long, CompiledPromptTemplate> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 获取模板及其编译结果
+     *
+     * @param templateId 模板ID
+     * @param loader 读取模板的逻辑（模板不存在时抛出异常）
+     * @return 模板元数据及编译结果
+     */
+    public ResolvedTemplate resolveTemplate(Long templateId, Function<Long, PromptTemplate> loader) {
+        ResolvedTemplate cached = templates.get(templateId);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt() < REFRESH_INTERVAL_MILLIS) {
+            return cached;
+        }
+
+        PromptTemplate template = loader.apply(templateId);
+        String content = template.getTemplateContent() != null ? template.getTemplateContent() : "";
+        CompiledPromptTemplate compiled = cached != null
+                && Objects.equals(cached.version(), template.getVersion())
+                && cached.compiled().getSource().equals(content)
+                ? cached.compiled()
+                : CompiledPromptTemplate.compile(content);
+        ResolvedTemplate resolved = new ResolvedTemplate(templateId, template.getVersion(),
+                template.getIsActive(), compiled, now);
+        templates.put(templateId, resolved);
+        if (compiled != (cached != null ? cached.compiled() : null)) {
+            log.debug("编译提示词模板: templateId={}, version={}, 变量数={}",
+                    templateId, template.getVersion(), compiled.getVariableNames().size());
+        }
+        return resolved;
+    }
+
+    /**
+     * 获取模板版本记录的编译结果
+     *
+     * @param versionId 版本ID
+     * @param loader 读取版本记录的逻辑（版本不存在时抛出异常）
+     * @return 编译结果
+     */
+    public CompiledPromptTemplate resolveVersion(Long versionId, Function<Long, PromptTemplateVersion> loader) {
+        return versions.computeIfAbsent(versionId, id -> {
+            PromptTemplateVersion version = loader.apply(id);
+            return CompiledPromptTemplate.compile(
+                    version.getTemplateContent() != null ? version.getTemplateContent() : "");
+        });
+    }
+
+    /**
+     * 模板修改、启停或删除后清除缓存，在事务中调用时提交后清除
+     */
+    public void invalidateTemplate(Long templateId) {
+        if (templateId != null) {
+            afterCommit(() -> templates.remove(templateId));
+        }
+    }
+
+    /**
+     * 模板版本删除后清除缓存，在事务中调用时提交后清除
+     */
+    public void invalidateVersion(Long versionId) {
+        if (versionId != null) {
+            afterCommit(() -> versions.remove(versionId));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 模板元数据及编译结果
+     */
+    public record ResolvedTemplate(Long templateId, Integer version, String isActive,
+                                   CompiledPromptTemplate compiled, long loadedAt) {
+    }
+}
@@ -5,13 +5,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sinosoft.testdesign.common.BusinessException;
 import com.sinosoft.testdesign.entity.PromptTemplate;
 import com.sinosoft.testdesign.entity.PromptTemplateAbTest;
-import com.sinosoft.testdesign.entity.PromptTemplateVersion;
+import com.sinosoft.testdesign.entity.PromptTemplateAbTestExecution;
 import com.sinosoft.testdesign.repository.PromptTemplateRepository;
+import com.sinosoft.testdesign.repository.PromptTemplateAbTestExecutionRepository;
 import com.sinosoft.testdesign.repository.PromptTemplateAbTestRepository;
 import com.sinosoft.testdesign.repository.PromptTemplateVersionRepository;
 import com.sinosoft.testdesign.service.PromptTemplateService;
+import com.sinosoft.testdesign.util.AbTestBucketing;
+import com.sinosoft.testdesign.util.CompiledPromptTemplate;
+import com.sinosoft.testdesign.utils.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -21,8 +26,6 @@ import org.springframework.util.StringUtils;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.Optional;
 
 /**
@@ -39,11 +42,13 @@ public class PromptTemplateServiceImpl implements PromptTemplateService {
     private final PromptTemplateRepository templateRepository;
     private final PromptTemplateAbTestRepository abTestRepository;
     private final PromptTemplateVersionRepository versionRepository;
+    private final PromptTemplateCompiler templateCompiler;
+    private final PromptTemplateAbTestExecutionRepository abTestExecutionRepository;
+    private final AbTestAssignmentCache assignmentCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     private static final String TEMPLATE_CODE_PREFIX = "TMP";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{([^}]+)\\}");
     
     @Override
     @Transactional
@@ -144,7 +149,9 @@ public class PromptTemplateServiceImpl implements PromptTemplateService {
         existing.setVersion(existing.getVersion() + 1);
         
         log.info("更新模板成功，编码: {}, 版本: {}", existing.getTemplateCode(), existing.getVersion());
-        return templateRepository.save(existing);
+        PromptTemplate saved = templateRepository.save(existing);
+        templateCompiler.invalidateTemplate(id);
+        return saved;
     }
     
     @Override
@@ -167,6 +174,7 @@ public class PromptTemplateServiceImpl implements PromptTemplateService {
                 .orElseThrow(() -> new BusinessException("模板不存在"));
         
         templateRepository.deleteById(id);
+        templateCompiler.invalidateTemplate(id);
         log.info("删除模板成功，编码: {}", template.getTemplateCode());
     }
     
@@ -186,15 +194,17 @@ public class PromptTemplateServiceImpl implements PromptTemplateService {
         template.setVersion(template.getVersion() + 1);
         
         log.info("切换模板状态成功，编码: {}, 新状态: {}", template.getTemplateCode(), isActive);
-        return templateRepository.save(template);
+        PromptTemplate saved = templateRepository.save(template);
+        templateCompiler.invalidateTemplate(id);
+        return saved;
     }
     
     @Override
     public String generatePrompt(Long templateId, Map<String, Object> variables) {
-        PromptTemplate template = templateRepository.findById(templateId)
-                .orElseThrow(() -> new BusinessException("模板不存在"));
+        PromptTemplateCompiler.ResolvedTemplate template = templateCompiler.resolveTemplate(templateId,
+                id -> templateRepository.findById(id).orElseThrow(() -> new BusinessException("模板不存在")));
         
-        if (!"1".equals(template.getIsActive())) {
+        if (!"1".equals(template.isActive())) {
             throw new BusinessException("模板未启用，无法生成提示词");
         }
         
@@ -202,27 +212,38 @@ public class PromptTemplateServiceImpl implements PromptTemplateService {
         Optional<PromptTemplateAbTest> runningTest = abTestRepository.findRunningTestByTemplateId(templateId);
         if (runningTest.isPresent()) {
             PromptTemplateAbTest abTest = runningTest.get();
-            // 根据流量分配选择版本（这里简化处理，实际应该在调用时传入requestId）
-            // 注意：实际实现中，应该使用requestId来确保同一请求使用相同版本
+            // 按当前用户（无用户时按traceId）分桶选择版本
             String selectedVersion = selectVersionForAbTest(abTest);
-            PromptTemplateVersion version = "A".equals(selectedVersion) 
-                    ? versionRepository.findById(abTest.getVersionAId())
-                            .orElseThrow(() -> new BusinessException("版本A不存在"))
-                    : versionRepository.findById(abTest.getVersionBId())
-                            .orElseThrow(() -> new BusinessException("版本B不存在"));
+            CompiledPromptTemplate version = "A".equals(selectedVersion)
+                    ? templateCompiler.resolveVersion(abTest.getVersionAId(), id -> versionRepository.findById(id)
+                            .orElseThrow(() -> new BusinessException("版本A不存在")))
+                    : templateCompiler.resolveVersion(abTest.getVersionBId(), id -> versionRepository.findById(id)
+                            .orElseThrow(() -> new BusinessException("版本B不存在")));
             
-            return generatePrompt(version.getTemplateContent(), variables);
+            return render(version, variables);
         }
         
-        return generatePrompt(template.getTemplateContent(), variables);
+        return render(template.compiled(), variables);
     }
     
     /**
-     * 为A/B测试选择版本（简化版，实际应该基于requestId的哈希值）
+     * 为A/B测试选择版本：同一用户始终使用同一版本
+     * bandit模式调整流量比例后，已参与测试的用户沿用首次分到的版本
      */
     private String selectVersionForAbTest(PromptTemplateAbTest abTest) {
-        int randomValue = new java.util.Random().nextInt(100);
-        return randomValue < abTest.getTrafficSplitA() ? "A" : "B";
+        Long abTestId = abTest.getId();
+        int trafficSplitA = abTest.getTrafficSplitA();
+        Long userId = SecurityUtils.getCurrentUserId();
+        if (userId == null) {
+            return AbTestBucketing.selectVariant(abTestId, MDC.get("traceId"), trafficSplitA);
+        }
+        if (!"bandit".equals(abTest.getAllocationMode())) {
+            return AbTestBucketing.selectVariant(abTestId, userId, trafficSplitA);
+        }
+        return assignmentCache.select(AbTestStatsRegistry.SCOPE_PROMPT, abTestId, "user:" + userId,
+                () -> abTestExecutionRepository.findFirstByAbTestIdAndUserIdOrderByIdAsc(abTestId, userId)
+                        .map(PromptTemplateAbTestExecution::getVersionLabel),
+                () -> AbTestBucketing.selectVariant(abTestId, userId, trafficSplitA));
     }
     
     @Override
@@ -231,39 +252,26 @@ public class PromptTemplateServiceImpl implements PromptTemplateService {
             throw new BusinessException("模板内容不能为空");
         }
         
-        if (variables == null) {
-            variables = new HashMap<>();
-        }
-        
-        String result = templateContent;
-        Matcher matcher = VARIABLE_PATTERN.matcher(templateContent);
-        
-        // 查找所有变量占位符
-        Set<String> requiredVariables = new HashSet<>();
-        while (matcher.find()) {
-            String variableName = matcher.group(1).trim();
-            requiredVariables.add(variableName);
+        // 临时内容只解析一次，不进入缓存
+        return render(CompiledPromptTemplate.compile(templateContent), variables);
+    }
+    
+    /**
+     * 渲染已编译的模板，未提供值的变量使用空字符串替换
+     */
+    private String render(CompiledPromptTemplate compiled, Map<String, Object> variables) {
+        if (!StringUtils.hasText(compiled.getSource())) {
+            throw new BusinessException("模板内容不能为空");
         }
         
         // 检查必需变量是否都提供了值
-        for (String varName : requiredVariables) {
-            if (!variables.containsKey(varName) || variables.get(varName) == null) {
+        for (String varName : compiled.getVariableNames()) {
+            if (variables == null || variables.get(varName) == null) {
                 log.warn("模板变量 {} 未提供值，将使用空字符串替换", varName);
             }
         }
         
-        // 替换所有变量
-        matcher = VARIABLE_PATTERN.matcher(result);
-        StringBuffer sb = new StringBuffer();
-        while (matcher.find()) {
-            String variableName = matcher.group(1).trim();
-            Object value = variables.get(variableName);
-            String replacement = value != null ? value.toString() : "";
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
-        }
-        matcher.appendTail(sb);
-        
-        return sb.toString();
+        return compiled.render(variables);
     }
     
     /**
@@ -29,6 +29,7 @@ public class PromptTemplateVersionServiceImpl implements PromptTemplateVersionSe
     
     private final PromptTemplateVersionRepository versionRepository;
     private final PromptTemplateRepository templateRepository;
+    private final PromptTemplateCompiler templateCompiler;
     
     @Override
     @Transactional
@@ -62,6 +63,7 @@ public class PromptTemplateVersionServiceImpl implements PromptTemplateVersionSe
             // 同时更新模板表的版本号
             template.setVersion(version.getVersionNumber());
             templateRepository.save(template);
+            templateCompiler.invalidateTemplate(templateId);
         }
         
         PromptTemplateVersion saved = versionRepository.save(version);
@@ -139,6 +141,7 @@ public class PromptTemplateVersionServiceImpl implements PromptTemplateVersionSe
         template.setTemplateVariables(targetVersion.getTemplateVariables());
         template.setVersion(saved.getVersionNumber());
         templateRepository.save(template);
+        templateCompiler.invalidateTemplate(templateId);
         
         log.info("回滚成功: 新版本号={}", saved.getVersionNumber());
         return saved;
@@ -176,6 +179,7 @@ public class PromptTemplateVersionServiceImpl implements PromptTemplateVersionSe
         }
         
         versionRepository.deleteById(id);
+        templateCompiler.invalidateVersion(id);
         log.info("删除版本成功: id={}", id);
     }
 }
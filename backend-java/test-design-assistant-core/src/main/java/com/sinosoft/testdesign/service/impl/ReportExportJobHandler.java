@@ -0,0 +1,56 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.service.JobHandler;
+import com.sinosoft.testdesign.service.JobQueueService;
+import com.sinosoft.testdesign.service.TestReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 报告导出任务处理器
+ * 任务参数是报告编码和导出格式；导出进度按5%的粒度写回任务，完成后把文件URL写入任务结果。
+ * 导出文件按内容寻址，重试或其他实例重复执行时直接复用已生成的文件
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportExportJobHandler implements JobHandler {
+
+    /** 进度回报粒度（百分比） */
+    private static final int PROGRESS_STEP = 5;
+
+    private final TestReportService reportService;
+    private final JobQueueService jobQueueService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String jobType() {
+        return JobQueueService.JOB_REPORT_EXPORT;
+    }
+
+    @Override
+    public void handle(AsyncJob job) throws Exception {
+        JsonNode payload = objectMapper.readTree(job.getPayload());
+        String reportCode = payload.path("reportCode").asText();
+        String format = payload.path("format").asText();
+        AtomicInteger reported = new AtomicInteger();
+        String fileUrl = reportService.exportReport(reportCode, format, progress -> {
+            int step = Math.min(progress, 99) / PROGRESS_STEP * PROGRESS_STEP;
+            if (step > reported.get()) {
+                reported.set(step);
+                jobQueueService.reportProgress(job.getId(), job.getLeaseOwner(), step, null);
+            }
+        });
+        jobQueueService.reportProgress(job.getId(), job.getLeaseOwner(), 100, fileUrl);
+        log.info("报告导出任务完成: {}, 文件URL: {}", job.getId(), fileUrl);
+    }
+}
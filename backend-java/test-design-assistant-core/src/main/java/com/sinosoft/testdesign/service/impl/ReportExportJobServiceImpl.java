@@ -0,0 +1,119 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.ReportExportConfig;
+import com.sinosoft.testdesign.dto.ReportExportJobDTO;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.repository.AsyncJobRepository;
+import com.sinosoft.testdesign.service.JobQueueService;
+import com.sinosoft.testdesign.service.ReportExportJobService;
+import com.sinosoft.testdesign.service.TestReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 报告导出任务服务实现
+ * 导出任务写入后台任务队列（async_job），由任意实例的报告导出通道领取执行，并发数由任务队列的通道配置控制；
+ * 等待中的任务数达到上限时直接拒绝，避免大报告导出堆积。任务状态、进度和文件URL保存在任务表中，
+ * 任意实例都可以查询，实例重启后未完成的导出在租约过期后由其他实例继续执行。
+ * 生成的文件由报告服务按内容缓存，重新提交相同内容的导出会直接命中已有文件。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportExportJobServiceImpl implements ReportExportJobService {
+
+    static final String STATUS_PENDING = "PENDING";
+    static final String STATUS_RUNNING = "RUNNING";
+    static final String STATUS_COMPLETED = "COMPLETED";
+    static final String STATUS_FAILED = "FAILED";
+
+    /** 未结束的任务状态（任务队列状态） */
+    private static final List<String> ACTIVE_STATUSES = List.of("PENDING", "RUNNING");
+
+    private final TestReportService reportService;
+    private final JobQueueService jobQueueService;
+    private final AsyncJobRepository jobRepository;
+    private final ReportExportConfig config;
+
+    @Override
+    public ReportExportJobDTO submit(String reportCode, String format) {
+        if (!StringUtils.hasText(format)) {
+            throw new BusinessException("导出格式不能为空");
+        }
+        if (!format.matches("WORD|PDF|EXCEL")) {
+            throw new BusinessException("导出格式必须是 WORD/PDF/EXCEL 之一");
+        }
+        // 报告不存在时立即失败，不进入队列
+        reportService.getReportByCode(reportCode);
+
+        String businessKey = reportCode + ":" + format;
+        // 本实例内串行化查重和入队；不同实例同时提交同一报告时可能各入队一次，导出文件按内容缓存，第二次直接复用
+        synchronized (this) {
+            AsyncJob active = jobRepository.findFirstByJobTypeAndBusinessKeyAndStatusInOrderByIdDesc(
+                    JobQueueService.JOB_REPORT_EXPORT, businessKey, ACTIVE_STATUSES).orElse(null);
+            if (active != null) {
+                return toDTO(active, reportCode, format);
+            }
+            if (jobRepository.countByJobTypeAndStatus(JobQueueService.JOB_REPORT_EXPORT, "PENDING")
+                    >= config.getQueueCapacity()) {
+                log.warn("报告导出任务队列已满，拒绝导出: {}, 格式: {}", reportCode, format);
+                throw new BusinessException("报告导出任务过多，请稍后重试");
+            }
+            AsyncJob job = jobQueueService.enqueue(JobQueueService.JOB_REPORT_EXPORT, businessKey,
+                    Map.of("reportCode", reportCode, "format", format), JobQueueService.PRIORITY_INTERACTIVE);
+            log.info("提交报告导出任务: {}, 报告: {}, 格式: {}", job.getId(), reportCode, format);
+            return toDTO(job, reportCode, format);
+        }
+    }
+
+    @Override
+    public ReportExportJobDTO getJob(String jobId) {
+        AsyncJob job = null;
+        try {
+            job = jobRepository.findById(Long.valueOf(jobId))
+                    .filter(j -> JobQueueService.JOB_REPORT_EXPORT.equals(j.getJobType()))
+                    .orElse(null);
+        } catch (NumberFormatException e) {
+            // 按任务不存在处理
+        }
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(config.getJobRetentionMinutes());
+        if (job == null || (job.getFinishTime() != null && job.getFinishTime().isBefore(expireBefore))) {
+            throw new BusinessException("导出任务不存在或已过期: " + jobId);
+        }
+        String businessKey = job.getBusinessKey();
+        int separator = businessKey.lastIndexOf(':');
+        return toDTO(job, businessKey.substring(0, separator), businessKey.substring(separator + 1));
+    }
+
+    private static ReportExportJobDTO toDTO(AsyncJob job, String reportCode, String format) {
+        ReportExportJobDTO dto = new ReportExportJobDTO();
+        dto.setJobId(String.valueOf(job.getId()));
+        dto.setReportCode(reportCode);
+        dto.setFormat(format);
+        switch (job.getStatus()) {
+            case "SUCCESS" -> {
+                dto.setStatus(STATUS_COMPLETED);
+                dto.setFileUrl(job.getResult());
+            }
+            case "FAILED" -> dto.setStatus(STATUS_FAILED);
+            case "RUNNING" -> dto.setStatus(STATUS_RUNNING);
+            default -> dto.setStatus(STATUS_PENDING);
+        }
+        dto.setProgress(job.getProgress() != null ? job.getProgress() : 0);
+        // 等待重试的任务同样返回上一次的失败原因
+        dto.setErrorMessage(job.getLastError());
+        dto.setCreateTime(job.getCreateTime());
+        dto.setFinishTime(job.getFinishTime());
+        return dto;
+    }
+}
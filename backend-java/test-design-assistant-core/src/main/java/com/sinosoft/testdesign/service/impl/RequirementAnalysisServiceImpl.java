@@ -8,6 +8,7 @@ import com.sinosoft.testdesign.dto.TestPointDTO;
 import com.sinosoft.testdesign.entity.ModelConfig;
 import com.sinosoft.testdesign.entity.TestRequirement;
 import com.sinosoft.testdesign.repository.RequirementRepository;
+import com.sinosoft.testdesign.service.AiResponseCacheService;
 import com.sinosoft.testdesign.service.ModelCallService;
 import com.sinosoft.testdesign.service.RequirementAnalysisService;
 import lombok.RequiredArgsConstructor;
@@ -54,6 +55,7 @@ public class RequirementAnalysisServiceImpl implements RequirementAnalysisServic
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     private final ModelCallService modelCallService;
+    private final AiResponseCacheService aiResponseCacheService;
     
     /** 需求分析任务类型常量 */
     private static final String TASK_TYPE_REQUIREMENT_ANALYSIS = "REQUIREMENT_ANALYSIS";
@@ -323,33 +325,19 @@ public class RequirementAnalysisServiceImpl implements RequirementAnalysisServic
             
             // 优先从模型配置中获取最佳模型
             Optional<ModelConfig> modelConfigOpt = modelCallService.getBestModelForTask(TASK_TYPE_REQUIREMENT_ANALYSIS);
+            Map<String, Object> keyExtras = modelConfigOpt
+                    .map(config -> Map.<String, Object>of("model_code", config.getModelCode()))
+                    .orElse(null);
             
-            if (modelConfigOpt.isPresent()) {
-                ModelConfig modelConfig = modelConfigOpt.get();
-                log.info("需求分析使用模型配置: modelCode={}, modelName={}, modelType={}",
-                        modelConfig.getModelCode(), modelConfig.getModelName(), modelConfig.getModelType());
-                
-                try {
-                    Map<String, Object> response = modelCallService.callWithModel(modelConfig, url, request);
-                    
-                    if (Boolean.TRUE.equals(response.get("success"))) {
-                        Map<String, Object> analysisResult = (Map<String, Object>) response.get("result");
-                        if (analysisResult != null) {
-                            return analysisResult;
-                        }
-                    }
-                    log.warn("模型配置调用返回失败，尝试降级: {}", response.get("message"));
-                } catch (Exception e) {
-                    log.warn("模型配置调用异常，尝试降级: {}", e.getMessage());
-                }
-            } else {
-                log.warn("未找到可用的模型配置，尝试直接调用 AI 服务");
-            }
-            
-            // 降级策略1：不带模型配置直接调用 Python AI 服务
-            Map<String, Object> fallbackResult = callAIServiceDirectly(url, request);
-            if (fallbackResult != null) {
-                return fallbackResult;
+            // 相同需求文本+模型直接复用缓存的分析结果，本地分析降级结果不缓存
+            Map<String, Object> response = aiResponseCacheService.getOrLoad(
+                    AiResponseCacheService.TASK_REQUIREMENT_ANALYSIS, request, keyExtras,
+                    r -> r.get("result") != null,
+                    () -> callRemoteAnalysis(modelConfigOpt, url, request));
+            Map<String, Object> analysisResult = response != null
+                    ? (Map<String, Object>) response.get("result") : null;
+            if (analysisResult != null) {
+                return analysisResult;
             }
             
             // 降级策略2：使用本地简单分析
@@ -362,6 +350,44 @@ public class RequirementAnalysisServiceImpl implements RequirementAnalysisServic
         }
     }
     
+    /**
+     * 调用远程AI服务分析需求：优先使用模型配置，失败时降级为直接调用
+     * 
+     * @return 包含 result 的响应；AI 服务不可用时返回空 Map
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> callRemoteAnalysis(Optional<ModelConfig> modelConfigOpt, String url,
+                                                   Map<String, Object> request) {
+        if (modelConfigOpt.isPresent()) {
+            ModelConfig modelConfig = modelConfigOpt.get();
+            log.info("需求分析使用模型配置: modelCode={}, modelName={}, modelType={}",
+                    modelConfig.getModelCode(), modelConfig.getModelName(), modelConfig.getModelType());
+            
+            try {
+                Map<String, Object> response = modelCallService.callWithModel(modelConfig, url, request);
+                
+                if (Boolean.TRUE.equals(response.get("success"))) {
+                    Map<String, Object> analysisResult = (Map<String, Object>) response.get("result");
+                    if (analysisResult != null) {
+                        return Map.of("result", analysisResult);
+                    }
+                }
+                log.warn("模型配置调用返回失败，尝试降级: {}", response.get("message"));
+            } catch (Exception e) {
+                log.warn("模型配置调用异常，尝试降级: {}", e.getMessage());
+            }
+        } else {
+            log.warn("未找到可用的模型配置，尝试直接调用 AI 服务");
+        }
+        
+        // 降级策略1：不带模型配置直接调用 Python AI 服务
+        Map<String, Object> fallbackResult = callAIServiceDirectly(url, request);
+        if (fallbackResult != null) {
+            return Map.of("result", fallbackResult);
+        }
+        return Map.of();
+    }
+    
     @SuppressWarnings("unchecked")
     private Map<String, Object> callAIServiceDirectly(String url, Map<String, Object> request) {
         try {
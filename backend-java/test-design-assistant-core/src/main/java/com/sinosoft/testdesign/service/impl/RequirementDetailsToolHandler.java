@@ -0,0 +1,53 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.entity.TestRequirement;
+import com.sinosoft.testdesign.repository.RequirementRepository;
+import com.sinosoft.testdesign.service.AgentToolHandler;
+import com.sinosoft.testdesign.service.RequirementService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Agent工具：获取需求详情
+ * 与Python Agent引擎的get_requirement_details工具参数和返回格式一致，直接读取需求（走需求缓存）而不经过HTTP接口
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Component
+@RequiredArgsConstructor
+public class RequirementDetailsToolHandler implements AgentToolHandler {
+
+    private final RequirementService requirementService;
+    private final RequirementRepository requirementRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String toolCode() {
+        return "get_requirement_details";
+    }
+
+    @Override
+    public Map<String, Object> execute(Map<String, Object> arguments) {
+        Object requirementId = arguments.get("requirement_id");
+        Object requirementCode = arguments.get("requirement_code");
+        TestRequirement requirement;
+        if (requirementId != null) {
+            requirement = requirementService.getRequirementById(Long.valueOf(requirementId.toString()));
+        } else if (requirementCode != null) {
+            requirement = requirementRepository.findByRequirementCode(requirementCode.toString())
+                    .orElseThrow(() -> new BusinessException("需求不存在"));
+        } else {
+            throw new BusinessException("必须提供requirement_id或requirement_code");
+        }
+        return Map.of(
+                "success", true,
+                "requirement", objectMapper.convertValue(requirement, new TypeReference<Map<String, Object>>() {})
+        );
+    }
+}
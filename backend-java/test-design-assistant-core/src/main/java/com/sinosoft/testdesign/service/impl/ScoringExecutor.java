@@ -0,0 +1,59 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.ScoringExecutorConfig;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 评分线程池
+ * 用例质量和风险评估共用的有界线程池，线程数和队列容量见{@link ScoringExecutorConfig}；
+ * 队列满时由提交评分的线程自行执行，评分不会因排队被拒绝。
+ * 不实现{@link java.util.concurrent.Executor}，避免替换Spring默认的异步任务线程池。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Component
+public class ScoringExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    public ScoringExecutor(ScoringExecutorConfig config) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getPoolSize(), config.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "scoring-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 并行评分，结果顺序与输入一致
+     *
+     * @throws CompletionException 任一评分失败，原因为评分抛出的异常
+     */
+    public <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> scorer) {
+        List<CompletableFuture<R>> futures = items.stream()
+                .map(item -> CompletableFuture.<R>supplyAsync(() -> scorer.apply(item), executor))
+                .toList();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
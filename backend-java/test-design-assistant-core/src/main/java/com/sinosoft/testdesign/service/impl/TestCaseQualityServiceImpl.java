@@ -1,13 +1,43 @@
 package com.sinosoft.testdesign.service.impl;
 
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.dto.CaseQualityBatchResponseDTO;
 import com.sinosoft.testdesign.entity.TestCase;
+import com.sinosoft.testdesign.entity.TestCaseQuality;
+import com.sinosoft.testdesign.repository.TestCaseQualityRepository;
+import com.sinosoft.testdesign.repository.TestCaseRepository;
 import com.sinosoft.testdesign.service.TestCaseQualityService;
+import com.sinosoft.testdesign.util.CaseTextFeatures;
+import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntConsumer;
+
 /**
  * 用例质量评估服务实现
+ * 每个文本字段只做一次线性扫描（{@link CaseTextFeatures}），各评分项共用扫描结果。
+ * 批量评估按版本戳（版本号、更新时间）分批处理：只加载并重新评分版本变化的用例，
+ * 评分在共用的评分线程池（{@link ScoringExecutor}）中并行执行，结果保存到用例质量评分表，供列表排序和筛选。
+ * 每批在独立事务中加载、评分并提交，持久化上下文随事务结束释放，全量评估时内存不随用例数增长；
+ * 全量评估耗时较长，由批量评估任务（{@link CaseQualityBatchJobHandler}）在后台调用。
  * 
  * @author sinosoft
  * @date 2024-01-01
@@ -16,20 +46,189 @@ import org.springframework.util.StringUtils;
 @Service
 public class TestCaseQualityServiceImpl implements TestCaseQualityService {
     
+    /** 每批处理的用例数 */
+    private static final int BATCH_SIZE = 500;
+    
+    private final TestCaseRepository testCaseRepository;
+    private final TestCaseQualityRepository qualityRepository;
+    /** 每批一个事务，批内的加载和保存一起提交 */
+    private final TransactionTemplate batchTransaction;
+    private final ScoringExecutor scoringExecutor;
+    
+    public TestCaseQualityServiceImpl(TestCaseRepository testCaseRepository,
+                                      TestCaseQualityRepository qualityRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      ScoringExecutor scoringExecutor) {
+        this.testCaseRepository = testCaseRepository;
+        this.qualityRepository = qualityRepository;
+        this.scoringExecutor = scoringExecutor;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
     @Override
     public QualityScore assessQuality(TestCase testCase) {
+        return assessQuality(testCase, CaseText.of(testCase));
+    }
+    
+    @Override
+    public CompletenessScore checkCompleteness(TestCase testCase) {
+        return checkCompleteness(testCase, CaseText.of(testCase));
+    }
+    
+    @Override
+    public StandardizationScore checkStandardization(TestCase testCase) {
+        return checkStandardization(testCase, CaseText.of(testCase));
+    }
+    
+    @Override
+    public CaseQualityBatchResponseDTO assessBatch(Long requirementId) {
+        return assessBatch(requirementId, progress -> { });
+    }
+    
+    @Override
+    public CaseQualityBatchResponseDTO assessBatch(Long requirementId, IntConsumer progressListener) {
+        long startTime = System.currentTimeMillis();
+        List<Object[]> stamps = requirementId != null
+                ? testCaseRepository.findVersionStampsByRequirementId(requirementId)
+                : testCaseRepository.findAllVersionStamps();
+        log.info("批量评估用例质量: requirementId={}, 用例数={}", requirementId, stamps.size());
+        
+        int assessedCount = 0;
+        Map<String, Long> qualityLevelCount = new LinkedHashMap<>();
+        for (String level : List.of("优秀", "良好", "一般", "需改进")) {
+            qualityLevelCount.put(level, 0L);
+        }
+        BigDecimal scoreSum = BigDecimal.ZERO;
+        for (int from = 0; from < stamps.size(); from += BATCH_SIZE) {
+            List<Object[]> batch = stamps.subList(from, Math.min(from + BATCH_SIZE, stamps.size()));
+            BatchResult result = batchTransaction.execute(status -> {
+                BatchResult batchResult = assessStaleCases(batch);
+                if (!batchResult.rescored().isEmpty()) {
+                    qualityRepository.saveAll(batchResult.rescored());
+                }
+                return batchResult;
+            });
+            assessedCount += result.rescored().size();
+            for (TestCaseQuality quality : result.qualities()) {
+                qualityLevelCount.merge(quality.getQualityLevel(), 1L, Long::sum);
+                scoreSum = scoreSum.add(quality.getTotalScore());
+            }
+            progressListener.accept((int) ((long) Math.min(from + BATCH_SIZE, stamps.size()) * 100 / stamps.size()));
+        }
+        
+        CaseQualityBatchResponseDTO response = new CaseQualityBatchResponseDTO();
+        response.setRequirementId(requirementId);
+        response.setTotalCount(stamps.size());
+        response.setAssessedCount(assessedCount);
+        response.setSkippedCount(stamps.size() - assessedCount);
+        response.setQualityLevelCount(qualityLevelCount);
+        response.setAvgScore(stamps.isEmpty() ? BigDecimal.ZERO
+                : scoreSum.divide(BigDecimal.valueOf(stamps.size()), 2, RoundingMode.HALF_UP));
+        response.setElapsedMillis(System.currentTimeMillis() - startTime);
+        log.info("批量评估用例质量完成: requirementId={}, 用例数={}, 重新评分数={}, 耗时={}ms",
+                requirementId, stamps.size(), assessedCount, response.getElapsedMillis());
+        return response;
+    }
+    
+    @Override
+    public Page<TestCaseQuality> getQualityScores(Long requirementId, String qualityLevel,
+                                                  Double minScore, Double maxScore, Pageable pageable) {
+        Specification<TestCaseQuality> spec = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (requirementId != null) {
+                predicates.add(cb.equal(root.get("requirementId"), requirementId));
+            }
+            if (StringUtils.hasText(qualityLevel)) {
+                predicates.add(cb.equal(root.get("qualityLevel"), qualityLevel));
+            }
+            if (minScore != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("totalScore"), BigDecimal.valueOf(minScore)));
+            }
+            if (maxScore != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("totalScore"), BigDecimal.valueOf(maxScore)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        return qualityRepository.findAll(spec, pageable);
+    }
+    
+    /**
+     * 对一批用例版本戳：已有评分且版本未变化的直接返回，其余加载用例并行重新评分
+     * 
+     * @return 批内全部用例的评分，以及其中重新评分、需要保存的部分
+     */
+    private BatchResult assessStaleCases(List<Object[]> stamps) {
+        List<Long> caseIds = stamps.stream().map(stamp -> ((Number) stamp[0]).longValue()).toList();
+        Map<Long, TestCaseQuality> existing = new HashMap<>();
+        for (TestCaseQuality quality : qualityRepository.findByCaseIdIn(caseIds)) {
+            existing.put(quality.getCaseId(), quality);
+        }
+        
+        List<TestCaseQuality> result = new ArrayList<>(stamps.size());
+        List<Long> staleIds = new ArrayList<>();
+        for (Object[] stamp : stamps) {
+            Long caseId = ((Number) stamp[0]).longValue();
+            Integer version = stamp[1] != null ? ((Number) stamp[1]).intValue() : null;
+            LocalDateTime updateTime = (LocalDateTime) stamp[2];
+            TestCaseQuality quality = existing.get(caseId);
+            if (quality != null && Objects.equals(quality.getCaseVersion(), version)
+                    && Objects.equals(quality.getCaseUpdateTime(), updateTime)) {
+                result.add(quality);
+            } else {
+                staleIds.add(caseId);
+            }
+        }
+        if (staleIds.isEmpty()) {
+            return new BatchResult(result, List.of());
+        }
+        
+        List<TestCase> staleCases = testCaseRepository.findAllById(staleIds);
+        List<QualityScore> scores;
+        try {
+            scores = scoringExecutor.map(staleCases, this::assessQuality);
+        } catch (CompletionException e) {
+            log.error("批量评估用例质量失败: {}", e.getCause().getMessage(), e.getCause());
+            throw new BusinessException("用例质量评估失败: " + e.getCause().getMessage());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<TestCaseQuality> rescored = new ArrayList<>(staleCases.size());
+        for (int i = 0; i < staleCases.size(); i++) {
+            TestCase testCase = staleCases.get(i);
+            QualityScore score = scores.get(i);
+            TestCaseQuality quality = existing.get(testCase.getId());
+            if (quality == null) {
+                quality = new TestCaseQuality();
+                quality.setCaseId(testCase.getId());
+            }
+            quality.setRequirementId(testCase.getRequirementId());
+            quality.setTotalScore(toScore(score.getTotalScore()));
+            quality.setCompletenessScore(toScore(score.getCompletenessScore()));
+            quality.setStandardizationScore(toScore(score.getStandardizationScore()));
+            quality.setExecutabilityScore(toScore(score.getExecutabilityScore()));
+            quality.setQualityLevel(score.getQualityLevel());
+            quality.setCaseVersion(testCase.getVersion());
+            quality.setCaseUpdateTime(testCase.getUpdateTime());
+            quality.setAssessTime(now);
+            rescored.add(quality);
+        }
+        result.addAll(rescored);
+        return new BatchResult(result, rescored);
+    }
+    
+    private QualityScore assessQuality(TestCase testCase, CaseText text) {
         QualityScore score = new QualityScore();
         
         // 1. 完整性评分（30%）
-        CompletenessScore completenessScore = checkCompleteness(testCase);
+        CompletenessScore completenessScore = checkCompleteness(testCase, text);
         score.setCompletenessScore(completenessScore.getTotalScore());
         
         // 2. 规范性评分（10%）
-        StandardizationScore standardizationScore = checkStandardization(testCase);
+        StandardizationScore standardizationScore = checkStandardization(testCase, text);
         score.setStandardizationScore(standardizationScore.getTotalScore());
         
         // 3. 可执行性评分（20%）
-        double executabilityScore = assessExecutability(testCase);
+        double executabilityScore = assessExecutability(testCase, text);
         score.setExecutabilityScore(executabilityScore);
         
         // 综合评分：完整性30% + 规范性10% + 可执行性20% = 60%（剩余40%需要人工评估）
@@ -45,20 +244,19 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
         return score;
     }
     
-    @Override
-    public CompletenessScore checkCompleteness(TestCase testCase) {
+    private CompletenessScore checkCompleteness(TestCase testCase, CaseText text) {
         CompletenessScore score = new CompletenessScore();
         
         // 1. 前置条件完整性（20%）
-        double preConditionScore = assessPreCondition(testCase.getPreCondition());
+        double preConditionScore = assessPreCondition(testCase.getPreCondition(), text.preCondition());
         score.setPreConditionScore(preConditionScore);
         
         // 2. 测试步骤完整性（40%）
-        double testStepScore = assessTestStep(testCase.getTestStep());
+        double testStepScore = assessTestStep(testCase.getTestStep(), text.testStep());
         score.setTestStepScore(testStepScore);
         
         // 3. 预期结果完整性（30%）
-        double expectedResultScore = assessExpectedResult(testCase.getExpectedResult());
+        double expectedResultScore = assessExpectedResult(testCase.getExpectedResult(), text.expectedResult());
         score.setExpectedResultScore(expectedResultScore);
         
         // 4. 基本信息完整性（10%）
@@ -76,20 +274,19 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
         return score;
     }
     
-    @Override
-    public StandardizationScore checkStandardization(TestCase testCase) {
+    private StandardizationScore checkStandardization(TestCase testCase, CaseText text) {
         StandardizationScore score = new StandardizationScore();
         
         // 1. 命名规范性（30%）
-        double namingScore = assessNaming(testCase);
+        double namingScore = assessNaming(testCase, text.caseName());
         score.setNamingScore(namingScore);
         
         // 2. 格式规范性（40%）
-        double formatScore = assessFormat(testCase);
+        double formatScore = assessFormat(testCase, text);
         score.setFormatScore(formatScore);
         
         // 3. 内容规范性（30%）
-        double contentScore = assessContent(testCase);
+        double contentScore = assessContent(testCase, text.testStep());
         score.setContentScore(contentScore);
         
         // 综合规范性评分
@@ -105,17 +302,17 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
     /**
      * 评估前置条件完整性
      */
-    private double assessPreCondition(String preCondition) {
+    private double assessPreCondition(String preCondition, CaseTextFeatures features) {
         if (!StringUtils.hasText(preCondition)) {
             return 50.0; // 前置条件可选，但如果有会更好
         }
         
         // 检查前置条件长度和内容
-        if (preCondition.trim().length() < 5) {
+        if (features.trimmedLength() < 5) {
             return 60.0; // 内容过短
         }
         
-        if (preCondition.trim().length() > 500) {
+        if (features.trimmedLength() > 500) {
             return 80.0; // 内容过长，但基本完整
         }
         
@@ -125,13 +322,13 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
     /**
      * 评估测试步骤完整性
      */
-    private double assessTestStep(String testStep) {
+    private double assessTestStep(String testStep, CaseTextFeatures features) {
         if (!StringUtils.hasText(testStep)) {
             return 0.0; // 测试步骤必须
         }
         
         // 检查测试步骤长度
-        int length = testStep.trim().length();
+        int length = features.trimmedLength();
         if (length < 10) {
             return 30.0; // 内容过短
         }
@@ -141,8 +338,7 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
         }
         
         // 检查是否包含步骤编号（1. 2. 或 步骤1 步骤2）
-        boolean hasStepNumbers = testStep.matches(".*[\\d一二三四五六七八九十][\\.、].*") ||
-                                 testStep.matches(".*步骤[\\d一二三四五六七八九十].*");
+        boolean hasStepNumbers = features.hasNumbering() || features.hasStepLabel();
         
         if (hasStepNumbers) {
             return 100.0; // 有步骤编号，结构清晰
@@ -154,13 +350,13 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
     /**
      * 评估预期结果完整性
      */
-    private double assessExpectedResult(String expectedResult) {
+    private double assessExpectedResult(String expectedResult, CaseTextFeatures features) {
         if (!StringUtils.hasText(expectedResult)) {
             return 0.0; // 预期结果必须
         }
         
         // 检查预期结果长度
-        int length = expectedResult.trim().length();
+        int length = features.trimmedLength();
         if (length < 5) {
             return 40.0; // 内容过短
         }
@@ -209,26 +405,26 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
     /**
      * 评估命名规范性
      */
-    private double assessNaming(TestCase testCase) {
+    private double assessNaming(TestCase testCase, CaseTextFeatures features) {
         if (!StringUtils.hasText(testCase.getCaseName())) {
             return 0.0;
         }
         
-        String caseName = testCase.getCaseName().trim();
+        String caseName = testCase.getCaseName();
         
         // 检查用例名称长度（5-200字符）
-        if (caseName.length() < 5) {
+        if (features.trimmedLength() < 5) {
             return 50.0; // 名称过短
         }
         
-        if (caseName.length() > 200) {
+        if (features.trimmedLength() > 200) {
             return 70.0; // 名称过长
         }
         
         // 检查命名格式（建议包含模块名、功能点等）
         // 这里使用简单的启发式规则
-        boolean hasModule = caseName.contains("_") || caseName.contains("-") || 
-                           caseName.matches(".*[模块|功能|测试].*");
+        boolean hasModule = caseName.indexOf('_') >= 0 || caseName.indexOf('-') >= 0 ||
+                           features.hasNamingKeyword();
         
         if (hasModule) {
             return 100.0; // 命名规范
@@ -240,14 +436,13 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
     /**
      * 评估格式规范性
      */
-    private double assessFormat(TestCase testCase) {
+    private double assessFormat(TestCase testCase, CaseText text) {
         double score = 0.0;
         
         // 检查测试步骤格式
         if (StringUtils.hasText(testCase.getTestStep())) {
-            String testStep = testCase.getTestStep();
             // 检查是否包含换行或步骤分隔符
-            if (testStep.contains("\n") || testStep.matches(".*[\\d一二三四五六七八九十][\\.、].*")) {
+            if (text.testStep().hasLineBreak() || text.testStep().hasNumbering()) {
                 score += 50.0; // 格式规范
             } else {
                 score += 30.0; // 格式基本规范
@@ -256,9 +451,8 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
         
         // 检查预期结果格式
         if (StringUtils.hasText(testCase.getExpectedResult())) {
-            String expectedResult = testCase.getExpectedResult();
             // 检查是否包含换行或列表格式
-            if (expectedResult.contains("\n") || expectedResult.matches(".*[\\d一二三四五六七八九十][\\.、].*")) {
+            if (text.expectedResult().hasLineBreak() || text.expectedResult().hasNumbering()) {
                 score += 50.0; // 格式规范
             } else {
                 score += 30.0; // 格式基本规范
@@ -271,18 +465,14 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
     /**
      * 评估内容规范性
      */
-    private double assessContent(TestCase testCase) {
+    private double assessContent(TestCase testCase, CaseTextFeatures features) {
         double score = 100.0;
         
         // 检查是否包含明显的错误字符或格式问题
         String testStep = testCase.getTestStep();
         if (StringUtils.hasText(testStep)) {
             // 检查是否包含过多的特殊字符
-            long specialCharCount = testStep.chars()
-                    .filter(c -> !Character.isLetterOrDigit(c) && 
-                                !Character.isWhitespace(c) && 
-                                c < 128) // 排除中文等
-                    .count();
+            long specialCharCount = features.asciiSymbolCount(); // 排除中文等
             
             if (specialCharCount > testStep.length() * 0.3) {
                 score -= 20.0; // 特殊字符过多
@@ -295,14 +485,13 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
     /**
      * 评估可执行性
      */
-    private double assessExecutability(TestCase testCase) {
+    private double assessExecutability(TestCase testCase, CaseText text) {
         double score = 0.0;
         
         // 测试步骤清晰度（40%）
         if (StringUtils.hasText(testCase.getTestStep())) {
-            String testStep = testCase.getTestStep();
             // 检查步骤是否清晰（包含动作动词）
-            boolean hasActionVerbs = testStep.matches(".*[输入|点击|选择|填写|提交|验证|检查|确认].*");
+            boolean hasActionVerbs = text.testStep().hasActionVerb();
             if (hasActionVerbs) {
                 score += 40.0;
             } else {
@@ -338,5 +527,31 @@ public class TestCaseQualityServiceImpl implements TestCaseQualityService {
             return "需改进";
         }
     }
+    
+    private static BigDecimal toScore(double score) {
+        return BigDecimal.valueOf(score).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * 一批用例的评分结果
+     * 
+     * @param qualities 批内全部用例的评分
+     * @param rescored 其中重新评分的部分
+     */
+    private record BatchResult(List<TestCaseQuality> qualities, List<TestCaseQuality> rescored) {
+    }
+    
+    /**
+     * 用例各文本字段的扫描结果
+     */
+    private record CaseText(CaseTextFeatures caseName, CaseTextFeatures preCondition,
+                            CaseTextFeatures testStep, CaseTextFeatures expectedResult) {
+        
+        static CaseText of(TestCase testCase) {
+            return new CaseText(CaseTextFeatures.scan(testCase.getCaseName()),
+                    CaseTextFeatures.scan(testCase.getPreCondition()),
+                    CaseTextFeatures.scan(testCase.getTestStep()),
+                    CaseTextFeatures.scan(testCase.getExpectedResult()));
+        }
+    }
 }
-
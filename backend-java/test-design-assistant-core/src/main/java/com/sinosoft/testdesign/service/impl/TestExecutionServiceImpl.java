@@ -34,10 +34,13 @@ public class TestExecutionServiceImpl implements TestExecutionService {
     
     private final TestExecutionTaskRepository taskRepository;
     private final TestExecutionRecordRepository recordRepository;
+    private final ExecutionAggregateStore aggregateStore;
     
     private static final String TASK_CODE_PREFIX = "TASK";
     private static final String RECORD_CODE_PREFIX = "REC";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    /** 执行记录状态条件更新的最大尝试次数 */
+    private static final int MAX_STATUS_UPDATE_ATTEMPTS = 5;
     
     @Override
     @Transactional
@@ -96,6 +99,9 @@ public class TestExecutionServiceImpl implements TestExecutionService {
             existing.setTaskType(task.getTaskType());
         }
         if (task.getRequirementId() != null) {
+            if (!task.getRequirementId().equals(existing.getRequirementId())) {
+                aggregateStore.requirementChanged(id, task.getRequirementId());
+            }
             existing.setRequirementId(task.getRequirementId());
         }
         if (task.getCaseId() != null) {
@@ -217,7 +223,7 @@ public class TestExecutionServiceImpl implements TestExecutionService {
         }
         
         // 验证任务是否存在
-        taskRepository.findById(record.getTaskId())
+        TestExecutionTask task = taskRepository.findById(record.getTaskId())
                 .orElseThrow(() -> new BusinessException("执行任务不存在"));
         
         // 自动生成记录编码（如果未提供）
@@ -238,8 +244,11 @@ public class TestExecutionServiceImpl implements TestExecutionService {
             record.setExecutionTime(java.time.LocalDateTime.now());
         }
         
+        TestExecutionRecord saved = recordRepository.save(record);
+        aggregateStore.recordCreated(saved, task.getRequirementId());
+        
         log.info("创建执行记录成功，编码: {}", record.getRecordCode());
-        return recordRepository.save(record);
+        return saved;
     }
     
     @Override
@@ -270,18 +279,38 @@ public class TestExecutionServiceImpl implements TestExecutionService {
     public TestExecutionRecord updateExecutionRecordStatus(String recordCode, String status) {
         log.info("更新执行记录状态: {} -> {}", recordCode, status);
         
-        TestExecutionRecord record = recordRepository.findByRecordCode(recordCode)
-                .orElseThrow(() -> new BusinessException("执行记录不存在: " + recordCode));
-        
-        record.setExecutionStatus(status);
-        
-        // 如果状态为完成，设置完成时间
-        if ("SUCCESS".equals(status) || "FAILED".equals(status) || "SKIPPED".equals(status)) {
-            record.setFinishTime(java.time.LocalDateTime.now());
+        for (int attempt = 1; ; attempt++) {
+            TestExecutionRecord record = recordRepository.findByRecordCode(recordCode)
+                    .orElseThrow(() -> new BusinessException("执行记录不存在: " + recordCode));
+            
+            String oldStatus = record.getExecutionStatus();
+            if (Objects.equals(oldStatus, status)) {
+                return record;
+            }
+            
+            // 如果状态为完成，设置完成时间
+            LocalDateTime finishTime = record.getFinishTime();
+            if ("SUCCESS".equals(status) || "FAILED".equals(status) || "SKIPPED".equals(status)) {
+                finishTime = LocalDateTime.now();
+            }
+            
+            // 以读到的原状态为条件更新，只有更新成功的一方把记录从原状态移到新状态，聚合计数不会重复增减
+            if (recordRepository.transitionStatus(recordCode, oldStatus, status, finishTime) == 1) {
+                record.setExecutionStatus(status);
+                record.setFinishTime(finishTime);
+                Long requirementId = taskRepository.findById(record.getTaskId())
+                        .map(TestExecutionTask::getRequirementId)
+                        .orElse(null);
+                aggregateStore.statusChanged(record, oldStatus, requirementId);
+                log.info("更新执行记录状态成功，编码: {}, 新状态: {}", recordCode, status);
+                return record;
+            }
+            
+            if (attempt >= MAX_STATUS_UPDATE_ATTEMPTS) {
+                throw new BusinessException("执行记录状态并发更新冲突，请稍后重试: " + recordCode);
+            }
+            log.debug("执行记录状态已被并发修改，重新读取后重试: {}", recordCode);
         }
-        
-        log.info("更新执行记录状态成功，编码: {}, 新状态: {}", recordCode, status);
-        return recordRepository.save(record);
     }
     
     /**
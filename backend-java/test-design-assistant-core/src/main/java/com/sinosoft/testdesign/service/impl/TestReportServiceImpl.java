@@ -1,6 +1,7 @@
 package com.sinosoft.testdesign.service.impl;
 
-import com.alibaba.excel.EasyExcel;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.itextpdf.kernel.colors.ColorConstants;
@@ -18,25 +19,37 @@ import com.sinosoft.testdesign.entity.*;
 import com.sinosoft.testdesign.repository.*;
 import com.sinosoft.testdesign.service.TestReportService;
 import com.sinosoft.testdesign.service.TestReportTemplateService;
+import com.sinosoft.testdesign.util.StreamingExcelWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xwpf.usermodel.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 测试报告生成服务实现
@@ -55,6 +68,7 @@ public class TestReportServiceImpl implements TestReportService {
     private final TestExecutionTaskRepository taskRepository;
     private final TestExecutionRecordRepository recordRepository;
     private final RequirementRepository requirementRepository;
+    private final ExecutionAggregateStore aggregateStore;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
@@ -65,6 +79,15 @@ public class TestReportServiceImpl implements TestReportService {
     
     private static final String REPORT_CODE_PREFIX = "RPT";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    /** 导出文件缓存目录（按内容寻址） */
+    private static final String EXPORT_CACHE_DIR = "reports/cache";
+    /** PDF执行记录表格每批刷新的行数 */
+    private static final int PDF_FLUSH_ROWS = 200;
+    /** 执行记录表格列 */
+    private static final List<String> EXECUTION_RECORD_HEADERS =
+            List.of("记录编码", "执行状态", "执行类型", "执行耗时(ms)", "执行时间");
+    /** 导出时每批读取的执行记录数 */
+    private static final int RECORD_BATCH_SIZE = 500;
     
     @Override
     @Transactional
@@ -215,6 +238,11 @@ public class TestReportServiceImpl implements TestReportService {
     
     @Override
     public String exportReport(String reportCode, String format) {
+        return exportReport(reportCode, format, progress -> { });
+    }
+    
+    @Override
+    public String exportReport(String reportCode, String format, IntConsumer progressListener) {
         log.info("导出测试报告: {}, 格式: {}", reportCode, format);
         
         TestReport report = getReportByCode(reportCode);
@@ -227,32 +255,51 @@ public class TestReportServiceImpl implements TestReportService {
             throw new BusinessException("导出格式必须是 WORD/PDF/EXCEL 之一");
         }
         
-        // 生成文件路径（按日期组织）
-        String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        String fileName = reportCode + "." + getFileExtension(format);
-        String relativePath = "reports/" + datePath + "/" + fileName;
-        String fullPath = Paths.get(basePath, relativePath).toString();
-        String fileUrl = "/api/v1/files/" + relativePath.replace("\\", "/");
+        // 第一遍只读取统计信息和记录数，执行记录在写文件时再逐条读取
+        ReportContentOutline outline = outlineReportContent(report);
+        
+        // 按渲染内容寻址：内容未变化的报告直接复用已生成的文件
+        String contentKey = exportContentKey(report, format, outline);
+        String relativePath = EXPORT_CACHE_DIR + "/" + contentKey.substring(0, 2) + "/"
+                + contentKey + "." + getFileExtension(format);
+        String fileUrl = "/api/v1/files/" + relativePath;
         
         // 根据格式调用不同的导出方法
         try {
-            // 创建目录
-            Path targetPath = Paths.get(fullPath);
-            Files.createDirectories(targetPath.getParent());
-            
-            switch (format) {
-                case "EXCEL":
-                    exportToExcel(report, targetPath);
-                    break;
-                case "WORD":
-                    exportToWord(report, targetPath);
-                    break;
-                case "PDF":
-                    exportToPdf(report, targetPath);
-                    break;
-                default:
-                    throw new BusinessException("不支持的导出格式: " + format);
+            Path targetPath = Paths.get(basePath, relativePath);
+            if (Files.isRegularFile(targetPath)) {
+                // 刷新修改时间，清理缓存时按最近一次复用计算保留时间
+                Files.setLastModifiedTime(targetPath, FileTime.fromMillis(System.currentTimeMillis()));
+                log.info("报告内容未变化，复用已导出文件: {}", fileUrl);
+            } else {
+                // 先写临时文件再原子替换，并发导出同一报告时不会读到半截文件
+                Files.createDirectories(targetPath.getParent());
+                Path tempPath = Files.createTempFile(targetPath.getParent(), contentKey, ".tmp");
+                try {
+                    switch (format) {
+                        case "EXCEL":
+                            exportToExcel(report, outline, tempPath);
+                            break;
+                        case "WORD":
+                            exportToWord(report, outline, tempPath);
+                            break;
+                        case "PDF":
+                            exportToPdf(report, outline, tempPath, progressListener);
+                            break;
+                        default:
+                            throw new BusinessException("不支持的导出格式: " + format);
+                    }
+                    try {
+                        Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(tempPath);
+                }
             }
+            progressListener.accept(100);
             
             // 更新报告的文件信息
             report.setFileUrl(fileUrl);
@@ -267,26 +314,85 @@ public class TestReportServiceImpl implements TestReportService {
         }
     }
     
+    @Override
+    public int purgeExpiredExportFiles(long retentionHours) {
+        Path cacheDir = Paths.get(basePath, EXPORT_CACHE_DIR);
+        if (!Files.isDirectory(cacheDir)) {
+            return 0;
+        }
+        long expireBefore = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours);
+        int purged = 0;
+        // 包括异常退出时遗留的临时文件
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < expireBefore && Files.deleteIfExists(file)) {
+                        purged++;
+                    }
+                } catch (IOException e) {
+                    log.warn("删除过期导出文件失败: {}, 错误: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("清理导出文件缓存失败: {}", e.getMessage());
+        }
+        return purged;
+    }
+    
+    /**
+     * 计算导出内容键
+     * 覆盖导出文件中出现的所有报告字段和执行记录版本，任一变化都会生成新文件
+     */
+    private String exportContentKey(TestReport report, String format, ReportContentOutline outline) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object field : new Object[]{format, report.getReportCode(), report.getReportName(),
+                    report.getReportType(), report.getReportStatus(), report.getCreateTime(),
+                    report.getCreatorName(), report.getReportSummary(), report.getReportContent(),
+                    outline.recordsVersion()}) {
+                digest.update(String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+    
     /**
      * 导出为Excel格式
-     * 使用EasyExcel实现
+     * 使用SXSSF流式写出，执行记录逐条写入，内存中只保留滑动窗口内的行
      */
-    private void exportToExcel(TestReport report, Path targetPath) throws Exception {
+    private void exportToExcel(TestReport report, ReportContentOutline outline, Path targetPath) throws Exception {
         log.info("导出报告为Excel格式: {}", targetPath);
         
-        // 解析报告内容（JSON）
-        Map<String, Object> reportData = parseReportContent(report.getReportContent());
-        
-        try (FileOutputStream outputStream = new FileOutputStream(targetPath.toFile())) {
-            // 创建Excel数据列表
-            List<Map<String, Object>> excelData = convertReportDataToExcelList(reportData);
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("测试报告");
+             OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(targetPath))) {
+            writer.writeTitle(report.getReportName(), EXECUTION_RECORD_HEADERS.size() - 1);
+            writer.skipRow();
+            
+            // 基本信息和统计信息
+            writer.writeRow(StreamingExcelWriter.Style.PLAIN, "报告编码", report.getReportCode());
+            writer.writeRow(StreamingExcelWriter.Style.PLAIN, "汇总时间", outline.summaryTime());
+            Map<String, Object> statistics = outline.statistics();
+            if (statistics != null) {
+                writer.writeRow(StreamingExcelWriter.Style.PLAIN, "总执行记录数",
+                        Objects.toString(statistics.get("totalRecords"), ""));
+                writer.writeRow(StreamingExcelWriter.Style.PLAIN, "成功率",
+                        statistics.containsKey("successRate") ? statistics.get("successRate") + "%" : "");
+                writer.writeRow(StreamingExcelWriter.Style.PLAIN, "平均耗时(ms)",
+                        Objects.toString(statistics.get("avgDuration"), ""));
+            }
             
-            // 使用EasyExcel写入文件（使用Map方式）
-            // 注意：这里简化实现，实际可以根据报告类型使用不同的DTO类
-            EasyExcel.write(outputStream)
-                    .sheet("测试报告")
-                    .doWrite(excelData);
+            // 执行记录详情
+            if (outline.recordCount() > 0) {
+                writer.skipRow();
+                writer.writeRow(StreamingExcelWriter.Style.HEADER, EXECUTION_RECORD_HEADERS);
+                forEachExecutionRecord(report, outline,
+                        record -> writer.writeRow(StreamingExcelWriter.Style.DATA, executionRecordRow(record)));
+            }
             
+            writer.writeTo(outputStream);
             log.info("Excel导出完成: {}", targetPath);
         }
     }
@@ -295,7 +401,7 @@ public class TestReportServiceImpl implements TestReportService {
      * 导出为Word格式
      * 使用Apache POI实现
      */
-    private void exportToWord(TestReport report, Path targetPath) throws Exception {
+    private void exportToWord(TestReport report, ReportContentOutline outline, Path targetPath) throws Exception {
         log.info("导出报告为Word格式: {}", targetPath);
         
         // 解析报告内容（JSON）
@@ -319,7 +425,7 @@ public class TestReportServiceImpl implements TestReportService {
             }
             
             // 添加报告内容
-            addReportContentToWord(document, reportData);
+            addReportContentToWord(document, report, outline, reportData);
             
             // 保存文件
             try (FileOutputStream outputStream = new FileOutputStream(targetPath.toFile())) {
@@ -332,18 +438,17 @@ public class TestReportServiceImpl implements TestReportService {
     
     /**
      * 导出为PDF格式
-     * 使用iText7实现
+     * 使用iText7实现，执行记录表格使用大表格模式逐批写出，已写出的页面随即刷新到文件，
+     * 执行记录逐条流式读取，内存占用与记录数无关
      */
-    private void exportToPdf(TestReport report, Path targetPath) throws Exception {
+    private void exportToPdf(TestReport report, ReportContentOutline outline, Path targetPath,
+                             IntConsumer progressListener) throws Exception {
         log.info("导出报告为PDF格式: {}", targetPath);
+        progressListener.accept(5);
         
-        // 解析报告内容（JSON）
-        Map<String, Object> reportData = parseReportContent(report.getReportContent());
-        
-        try (FileOutputStream outputStream = new FileOutputStream(targetPath.toFile())) {
-            PdfWriter writer = new PdfWriter(outputStream);
-            PdfDocument pdfDoc = new PdfDocument(writer);
-            Document document = new Document(pdfDoc, PageSize.A4);
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(targetPath));
+             Document document = new Document(new PdfDocument(new PdfWriter(outputStream)), PageSize.A4)) {
+            PdfDocument pdfDoc = document.getPdfDocument();
             
             // 设置文档属性
             pdfDoc.getDocumentInfo().setTitle(report.getReportName());
@@ -377,9 +482,9 @@ public class TestReportServiceImpl implements TestReportService {
             }
             
             // 添加报告内容
-            addReportContentToPdf(document, reportData);
+            addStatisticsToPdf(document, outline.statistics());
+            addExecutionRecordsToPdf(document, report, outline, progressListener);
             
-            document.close();
             log.info("PDF导出完成: {}", targetPath);
         } catch (Exception e) {
             log.error("PDF导出失败: {}", e.getMessage(), e);
@@ -450,51 +555,22 @@ public class TestReportServiceImpl implements TestReportService {
     }
     
     /**
-     * 将报告数据转换为Excel列表格式
+     * 执行记录表格行，列与EXECUTION_RECORD_HEADERS对应
      */
-    private List<Map<String, Object>> convertReportDataToExcelList(Map<String, Object> reportData) {
-        List<Map<String, Object>> excelData = new ArrayList<>();
-        
-        // 添加基本信息
-        Map<String, Object> basicInfo = new LinkedHashMap<>();
-        basicInfo.put("项目", "测试报告");
-        basicInfo.put("报告名称", reportData.getOrDefault("reportName", ""));
-        basicInfo.put("汇总时间", reportData.getOrDefault("summaryTime", ""));
-        excelData.add(basicInfo);
-        
-        // 添加统计信息
-        if (reportData.containsKey("statistics")) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> statistics = (Map<String, Object>) reportData.get("statistics");
-            Map<String, Object> statsRow = new LinkedHashMap<>();
-            statsRow.put("项目", "统计信息");
-            statsRow.put("总记录数", statistics.getOrDefault("totalRecords", ""));
-            statsRow.put("成功率", statistics.getOrDefault("successRate", ""));
-            statsRow.put("平均耗时", statistics.getOrDefault("avgDuration", ""));
-            excelData.add(statsRow);
-        }
-        
-        // 添加执行记录详情
-        if (reportData.containsKey("executionRecords")) {
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> records = (List<Map<String, Object>>) reportData.get("executionRecords");
-            for (Map<String, Object> record : records) {
-                Map<String, Object> recordRow = new LinkedHashMap<>();
-                recordRow.put("项目", "执行记录");
-                recordRow.put("记录编码", record.getOrDefault("recordCode", ""));
-                recordRow.put("执行状态", record.getOrDefault("executionStatus", ""));
-                recordRow.put("执行耗时", record.getOrDefault("executionDuration", ""));
-                excelData.add(recordRow);
-            }
-        }
-        
-        return excelData;
+    private List<String> executionRecordRow(Map<String, Object> record) {
+        return List.of(
+                String.valueOf(record.getOrDefault("recordCode", "")),
+                String.valueOf(record.getOrDefault("executionStatus", "")),
+                String.valueOf(record.getOrDefault("executionType", "")),
+                record.get("executionDuration") != null ? String.valueOf(record.get("executionDuration")) : "",
+                record.get("executionTime") != null ? String.valueOf(record.get("executionTime")) : "");
     }
     
     /**
      * 将报告内容添加到Word文档
      */
-    private void addReportContentToWord(XWPFDocument document, Map<String, Object> reportData) {
+    private void addReportContentToWord(XWPFDocument document, TestReport report, ReportContentOutline outline,
+                                        Map<String, Object> reportData) throws IOException {
         // 添加统计信息
         if (reportData.containsKey("statistics")) {
             @SuppressWarnings("unchecked")
@@ -518,34 +594,28 @@ public class TestReportServiceImpl implements TestReportService {
         }
         
         // 添加执行记录详情
-        if (reportData.containsKey("executionRecords")) {
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> records = (List<Map<String, Object>>) reportData.get("executionRecords");
-            
+        if (outline.recordCount() > 0) {
             XWPFParagraph recordsPara = document.createParagraph();
             XWPFRun recordsRun = recordsPara.createRun();
             recordsRun.setText("执行记录详情：");
             recordsRun.setBold(true);
             
-            for (Map<String, Object> record : records) {
+            forEachExecutionRecord(report, outline, record -> {
                 XWPFParagraph para = document.createParagraph();
                 XWPFRun run = para.createRun();
                 run.setText(String.format("记录编码：%s，执行状态：%s",
                         record.getOrDefault("recordCode", ""),
                         record.getOrDefault("executionStatus", "")));
-            }
+            });
         }
     }
     
     /**
-     * 将报告内容添加到PDF文档
+     * 将统计信息添加到PDF文档
      */
-    private void addReportContentToPdf(Document document, Map<String, Object> reportData) {
+    private void addStatisticsToPdf(Document document, Map<String, Object> statistics) {
         // 添加统计信息
-        if (reportData.containsKey("statistics")) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> statistics = (Map<String, Object>) reportData.get("statistics");
-            
+        if (statistics != null) {
             Paragraph statsTitle = new Paragraph("统计信息")
                     .setFontSize(14)
                     .setBold()
@@ -578,11 +648,11 @@ public class TestReportServiceImpl implements TestReportService {
             // 添加状态统计
             if (statistics.containsKey("statusCount")) {
                 @SuppressWarnings("unchecked")
-                Map<String, Long> statusCount = (Map<String, Long>) statistics.get("statusCount");
+                Map<String, Object> statusCount = (Map<String, Object>) statistics.get("statusCount");
                 if (statusCount != null && !statusCount.isEmpty()) {
                     statsTable.addCell(createInfoCell("状态统计", true));
                     StringBuilder statusText = new StringBuilder();
-                    for (Map.Entry<String, Long> entry : statusCount.entrySet()) {
+                    for (Map.Entry<String, Object> entry : statusCount.entrySet()) {
                         if (statusText.length() > 0) {
                             statusText.append("，");
                         }
@@ -594,51 +664,156 @@ public class TestReportServiceImpl implements TestReportService {
             
             document.add(statsTable);
         }
+    }
+    
+    /**
+     * 将执行记录添加到PDF文档
+     * 表格先加入文档，每写入PDF_FLUSH_ROWS行刷新一次，已排版的行写出后即释放
+     */
+    private void addExecutionRecordsToPdf(Document document, TestReport report, ReportContentOutline outline,
+                                          IntConsumer progressListener) throws IOException {
+        long recordCount = outline.recordCount();
+        if (recordCount == 0) {
+            return;
+        }
+        Paragraph recordsTitle = new Paragraph("执行记录详情")
+                .setFontSize(14)
+                .setBold()
+                .setMarginTop(15)
+                .setMarginBottom(10);
+        document.add(recordsTitle);
+        
+        // 创建执行记录表格（大表格模式）
+        Table recordsTable = new Table(UnitValue.createPercentArray(new float[]{2, 1.5f, 1.5f, 1.5f, 2}), true)
+                .useAllAvailableWidth()
+                .setMarginBottom(15);
         
-        // 添加执行记录详情
-        if (reportData.containsKey("executionRecords")) {
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> records = (List<Map<String, Object>>) reportData.get("executionRecords");
-            
-            if (records != null && !records.isEmpty()) {
-                Paragraph recordsTitle = new Paragraph("执行记录详情")
-                        .setFontSize(14)
-                        .setBold()
-                        .setMarginTop(15)
-                        .setMarginBottom(10);
-                document.add(recordsTitle);
-                
-                // 创建执行记录表格
-                Table recordsTable = new Table(UnitValue.createPercentArray(new float[]{2, 1.5f, 1.5f, 1.5f, 2}))
-                        .useAllAvailableWidth()
-                        .setMarginBottom(15);
-                
-                // 表头
-                recordsTable.addHeaderCell(createInfoCell("记录编码", true));
-                recordsTable.addHeaderCell(createInfoCell("执行状态", true));
-                recordsTable.addHeaderCell(createInfoCell("执行类型", true));
-                recordsTable.addHeaderCell(createInfoCell("执行耗时(ms)", true));
-                recordsTable.addHeaderCell(createInfoCell("执行时间", true));
-                
-                // 数据行
-                for (Map<String, Object> record : records) {
-                    recordsTable.addCell(createInfoCell(
-                            String.valueOf(record.getOrDefault("recordCode", "")), false));
-                    recordsTable.addCell(createInfoCell(
-                            String.valueOf(record.getOrDefault("executionStatus", "")), false));
-                    recordsTable.addCell(createInfoCell(
-                            String.valueOf(record.getOrDefault("executionType", "")), false));
-                    recordsTable.addCell(createInfoCell(
-                            record.get("executionDuration") != null ? 
-                                    String.valueOf(record.get("executionDuration")) : "", false));
-                    recordsTable.addCell(createInfoCell(
-                            record.get("executionTime") != null ? 
-                                    String.valueOf(record.get("executionTime")) : "", false));
+        // 表头
+        for (String header : EXECUTION_RECORD_HEADERS) {
+            recordsTable.addHeaderCell(createInfoCell(header, true));
+        }
+        document.add(recordsTable);
+        
+        // 数据行
+        int[] written = {0};
+        forEachExecutionRecord(report, outline, record -> {
+            for (String value : executionRecordRow(record)) {
+                recordsTable.addCell(createInfoCell(value, false));
+            }
+            if (++written[0] % PDF_FLUSH_ROWS == 0) {
+                recordsTable.flush();
+                progressListener.accept(5 + (int) Math.min(90, 90L * written[0] / recordCount));
+            }
+        });
+        recordsTable.complete();
+    }
+    
+    /**
+     * 读取报告内容概要
+     * 报告内容中内嵌执行记录时（旧版报告）流式统计记录数，不把执行记录解析为对象；
+     * 否则执行记录在导出时按报告关联的执行任务从数据库分批读取，记录数和版本取自执行聚合
+     */
+    private ReportContentOutline outlineReportContent(TestReport report) {
+        Map<String, Object> statistics = null;
+        String summaryTime = "";
+        long inlineRecordCount = -1;
+        String reportContent = report.getReportContent();
+        if (StringUtils.hasText(reportContent)) {
+            try (JsonParser parser = objectMapper.getFactory().createParser(reportContent)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String fieldName = parser.getCurrentName();
+                        JsonToken token = parser.nextToken();
+                        if ("statistics".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                            statistics = objectMapper.readValue(parser, new TypeReference<Map<String, Object>>() {});
+                        } else if ("summaryTime".equals(fieldName) && token == JsonToken.VALUE_STRING) {
+                            summaryTime = parser.getText();
+                        } else if ("executionRecords".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                            inlineRecordCount = 0;
+                            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                parser.skipChildren();
+                                inlineRecordCount++;
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
                 }
-                
-                document.add(recordsTable);
+            } catch (Exception e) {
+                log.warn("解析报告内容失败: {}", e.getMessage());
+                return new ReportContentOutline(null, "", 0, true, null);
             }
         }
+        if (inlineRecordCount >= 0) {
+            return new ReportContentOutline(statistics, summaryTime, inlineRecordCount, true, null);
+        }
+        if (report.getExecutionTaskId() == null) {
+            return new ReportContentOutline(statistics, summaryTime, 0, false, null);
+        }
+        ExecutionAggregateStore.ExecutionSummary summary = aggregateStore.summarizeTask(report.getExecutionTaskId());
+        return new ReportContentOutline(statistics, summaryTime, summary.totalRecords(), false,
+                summary.statusCount() + "@" + summary.lastUpdateTime());
+    }
+    
+    /**
+     * 逐条读取报告的执行记录
+     */
+    private void forEachExecutionRecord(TestReport report, ReportContentOutline outline,
+                                        Consumer<Map<String, Object>> consumer) throws IOException {
+        if (outline.recordCount() == 0) {
+            return;
+        }
+        if (outline.inlineRecords()) {
+            forEachInlineExecutionRecord(report.getReportContent(), consumer);
+            return;
+        }
+        // 按ID分批读取，每批只取报告需要的字段，不进入持久化上下文
+        long afterId = 0;
+        List<TestExecutionRecordRepository.RecordRow> rows;
+        do {
+            rows = recordRepository.findByTaskIdAndIdGreaterThanOrderByIdAsc(
+                    report.getExecutionTaskId(), afterId, PageRequest.of(0, RECORD_BATCH_SIZE));
+            for (TestExecutionRecordRepository.RecordRow row : rows) {
+                consumer.accept(convertRecordToMap(row));
+                afterId = row.getId();
+            }
+        } while (rows.size() == RECORD_BATCH_SIZE);
+    }
+    
+    /**
+     * 逐条读取报告内容JSON中内嵌的执行记录
+     */
+    private void forEachInlineExecutionRecord(String reportContent, Consumer<Map<String, Object>> consumer)
+            throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(reportContent)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("executionRecords".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        consumer.accept(objectMapper.readValue(parser, new TypeReference<Map<String, Object>>() {}));
+                    }
+                    return;
+                }
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    /**
+     * 报告内容概要
+     *
+     * @param statistics 统计信息，没有时为null
+     * @param summaryTime 汇总时间
+     * @param recordCount 执行记录数
+     * @param inlineRecords 执行记录是否内嵌在报告内容中
+     * @param recordsVersion 从数据库读取的执行记录的版本，内嵌时为null
+     */
+    private record ReportContentOutline(Map<String, Object> statistics, String summaryTime, long recordCount,
+                                        boolean inlineRecords, String recordsVersion) {
     }
     
     /**
@@ -666,62 +841,24 @@ public class TestReportServiceImpl implements TestReportService {
         // 1. 基础统计信息
         Map<String, Object> statistics = new HashMap<>();
         
-        // 根据执行任务ID汇总
+        // 根据执行任务ID汇总（读取执行聚合，执行记录在导出时按任务分批读取，不内嵌到报告内容）
         if (executionTaskId != null) {
-            List<TestExecutionRecord> records = recordRepository.findByTaskId(executionTaskId);
-            statistics.put("totalRecords", records.size());
-            
-            // 按状态统计
-            Map<String, Long> statusCount = records.stream()
-                    .collect(Collectors.groupingBy(
-                            r -> r.getExecutionStatus() != null ? r.getExecutionStatus() : "UNKNOWN",
-                            Collectors.counting()));
-            statistics.put("statusCount", statusCount);
-            
-            // 成功率
-            long successCount = statusCount.getOrDefault("SUCCESS", 0L);
-            long totalCount = records.size();
-            double successRate = totalCount > 0 ? (double) successCount / totalCount * 100 : 0.0;
-            statistics.put("successRate", String.format("%.2f", successRate));
-            
-            // 平均执行时间
-            double avgDuration = records.stream()
-                    .filter(r -> r.getExecutionDuration() != null)
-                    .mapToInt(TestExecutionRecord::getExecutionDuration)
-                    .average()
-                    .orElse(0.0);
-            statistics.put("avgDuration", String.format("%.2f", avgDuration));
-            
-            // 执行记录详情
-            List<Map<String, Object>> recordDetails = records.stream()
-                    .map(this::convertRecordToMap)
-                    .collect(Collectors.toList());
-            summary.put("executionRecords", recordDetails);
+            ExecutionAggregateStore.ExecutionSummary taskSummary = aggregateStore.summarizeTask(executionTaskId);
+            statistics.put("totalRecords", taskSummary.totalRecords());
+            statistics.put("statusCount", taskSummary.statusCount());
+            statistics.put("successRate", String.format("%.2f", taskSummary.successRate()));
+            statistics.put("avgDuration", String.format("%.2f", taskSummary.avgDuration()));
         }
         
         // 根据需求ID汇总
         if (requirementId != null) {
-            // 查询关联的执行任务
-            List<TestExecutionTask> tasks = taskRepository.findByRequirementId(requirementId);
-            statistics.put("totalTasks", tasks.size());
+            statistics.put("totalTasks", taskRepository.countByRequirementId(requirementId));
             
-            // 汇总所有任务的执行记录
-            List<TestExecutionRecord> allRecords = new ArrayList<>();
-            for (TestExecutionTask task : tasks) {
-                allRecords.addAll(recordRepository.findByTaskId(task.getId()));
-            }
-            
-            if (!allRecords.isEmpty()) {
-                Map<String, Long> allStatusCount = allRecords.stream()
-                        .collect(Collectors.groupingBy(
-                                r -> r.getExecutionStatus() != null ? r.getExecutionStatus() : "UNKNOWN",
-                                Collectors.counting()));
-                statistics.put("allStatusCount", allStatusCount);
-                
-                long allSuccessCount = allStatusCount.getOrDefault("SUCCESS", 0L);
-                long allTotalCount = allRecords.size();
-                double allSuccessRate = allTotalCount > 0 ? (double) allSuccessCount / allTotalCount * 100 : 0.0;
-                statistics.put("allSuccessRate", String.format("%.2f", allSuccessRate));
+            ExecutionAggregateStore.ExecutionSummary requirementSummary =
+                    aggregateStore.summarizeRequirement(requirementId);
+            if (requirementSummary.totalRecords() > 0) {
+                statistics.put("allStatusCount", requirementSummary.statusCount());
+                statistics.put("allSuccessRate", String.format("%.2f", requirementSummary.successRate()));
             }
         }
         
@@ -774,7 +911,7 @@ public class TestReportServiceImpl implements TestReportService {
     /**
      * 转换执行记录为Map
      */
-    private Map<String, Object> convertRecordToMap(TestExecutionRecord record) {
+    private Map<String, Object> convertRecordToMap(TestExecutionRecordRepository.RecordRow record) {
         Map<String, Object> map = new HashMap<>();
         map.put("recordCode", record.getRecordCode());
         map.put("caseId", record.getCaseId());
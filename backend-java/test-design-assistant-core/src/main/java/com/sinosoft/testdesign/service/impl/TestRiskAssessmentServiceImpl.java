@@ -3,15 +3,13 @@ package com.sinosoft.testdesign.service.impl;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.dto.ReleaseRiskAssessmentResponseDTO;
 import com.sinosoft.testdesign.entity.TestCoverageAnalysis;
-import com.sinosoft.testdesign.entity.TestCase;
-import com.sinosoft.testdesign.entity.TestExecutionRecord;
 import com.sinosoft.testdesign.entity.TestExecutionTask;
 import com.sinosoft.testdesign.entity.TestRequirement;
 import com.sinosoft.testdesign.entity.TestRiskAssessment;
 import com.sinosoft.testdesign.repository.TestCoverageAnalysisRepository;
 import com.sinosoft.testdesign.repository.TestCaseRepository;
-import com.sinosoft.testdesign.repository.TestExecutionRecordRepository;
 import com.sinosoft.testdesign.repository.TestExecutionTaskRepository;
 import com.sinosoft.testdesign.repository.TestRiskAssessmentRepository;
 import com.sinosoft.testdesign.repository.RequirementRepository;
@@ -30,9 +28,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletionException;
 
 /**
  * 风险评估服务实现
+ * 评估所需的需求、用例数、覆盖分析、执行任务和执行记录汇总先按集合一次取回为不可变输入，
+ * 评分、风险项和可行性都只基于该输入计算，不再重复查询；版本上线评估在共用的评分线程池中并行评分后批量保存。
  * 
  * @author sinosoft
  * @date 2024-01-17
@@ -46,8 +47,9 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
     private final RequirementRepository requirementRepository;
     private final TestCaseRepository testCaseRepository;
     private final TestExecutionTaskRepository executionTaskRepository;
-    private final TestExecutionRecordRepository executionRecordRepository;
     private final TestCoverageAnalysisRepository coverageRepository;
+    private final ExecutionAggregateStore aggregateStore;
+    private final ScoringExecutor scoringExecutor;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     private static final String RISK_CODE_PREFIX = "RISK";
@@ -58,6 +60,11 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
     private static final BigDecimal MEDIUM_RISK_THRESHOLD = new BigDecimal("40"); // 40-69 中风险
     // <40 低风险
     
+    // 版本上线结论
+    static final String RELEASE_GO = "GO";
+    static final String RELEASE_CONDITIONAL_GO = "CONDITIONAL_GO";
+    static final String RELEASE_NO_GO = "NO_GO";
+    
     @Override
     @Transactional
     public TestRiskAssessment assessRisk(TestRiskAssessment assessment) {
@@ -91,26 +98,202 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
     public TestRiskAssessment assessRequirementRisk(Long requirementId) {
         log.info("评估需求风险: requirementId={}", requirementId);
         
-        TestRequirement requirement = requirementRepository.findById(requirementId)
-                .orElseThrow(() -> new BusinessException("需求不存在: " + requirementId));
+        RiskInputs inputs = loadInputs(List.of(requirementId), Collections.emptyList());
+        if (!inputs.requirements().containsKey(requirementId)) {
+            throw new BusinessException("需求不存在: " + requirementId);
+        }
+        TestRiskAssessment assessment = buildRequirementAssessment(inputs, requirementId);
+        assessment.setAssessmentCode(generateAssessmentCode());
+        
+        TestRiskAssessment saved = riskRepository.save(assessment);
+        log.info("需求风险评估完成: assessmentCode={}, 风险评分={}, 风险等级={}", 
+                saved.getAssessmentCode(), saved.getRiskScore(), saved.getRiskLevel());
+        
+        return saved;
+    }
+    
+    @Override
+    @Transactional
+    public TestRiskAssessment assessExecutionTaskRisk(Long executionTaskId) {
+        log.info("评估执行任务风险: executionTaskId={}", executionTaskId);
+        
+        RiskInputs inputs = loadInputs(Collections.emptyList(), List.of(executionTaskId));
+        if (!inputs.tasks().containsKey(executionTaskId)) {
+            throw new BusinessException("执行任务不存在: " + executionTaskId);
+        }
+        TestRiskAssessment assessment = buildExecutionTaskAssessment(inputs, executionTaskId);
+        assessment.setAssessmentCode(generateAssessmentCode());
+        
+        TestRiskAssessment saved = riskRepository.save(assessment);
+        log.info("执行任务风险评估完成: assessmentCode={}, 风险评分={}, 风险等级={}", 
+                saved.getAssessmentCode(), saved.getRiskScore(), saved.getRiskLevel());
+        
+        return saved;
+    }
+    
+    @Override
+    @Transactional
+    public ReleaseRiskAssessmentResponseDTO assessReleaseRisk(List<Long> requirementIds, List<Long> executionTaskIds) {
+        List<Long> reqIds = requirementIds != null
+                ? requirementIds.stream().filter(Objects::nonNull).distinct().toList() : Collections.emptyList();
+        List<Long> taskIds = executionTaskIds != null
+                ? executionTaskIds.stream().filter(Objects::nonNull).distinct().toList() : Collections.emptyList();
+        if (reqIds.isEmpty() && taskIds.isEmpty()) {
+            throw new BusinessException("必须提供需求ID或执行任务ID");
+        }
+        log.info("评估版本上线风险: 需求数={}, 执行任务数={}", reqIds.size(), taskIds.size());
+        long startTime = System.currentTimeMillis();
+        
+        RiskInputs inputs = loadInputs(reqIds, taskIds);
+        List<Long> missingRequirements = reqIds.stream().filter(id -> !inputs.requirements().containsKey(id)).toList();
+        if (!missingRequirements.isEmpty()) {
+            throw new BusinessException("需求不存在: " + missingRequirements);
+        }
+        List<Long> missingTasks = taskIds.stream().filter(id -> !inputs.tasks().containsKey(id)).toList();
+        if (!missingTasks.isEmpty()) {
+            throw new BusinessException("执行任务不存在: " + missingTasks);
+        }
+        
+        // 输入已全部取回且不可变，评分只做计算，在共用的评分线程池中并行执行
+        List<TestRiskAssessment> assessments;
+        try {
+            assessments = new ArrayList<>(scoringExecutor.map(reqIds, id -> buildRequirementAssessment(inputs, id)));
+            assessments.addAll(scoringExecutor.map(taskIds, id -> buildExecutionTaskAssessment(inputs, id)));
+        } catch (CompletionException e) {
+            log.error("版本上线风险评估失败: {}", e.getCause().getMessage(), e.getCause());
+            throw new BusinessException("风险评估失败: " + e.getCause().getMessage());
+        }
+        
+        // 一次前缀查询分配全部编码，批量保存
+        List<String> codes = generateAssessmentCodes(assessments.size());
+        for (int i = 0; i < assessments.size(); i++) {
+            assessments.get(i).setAssessmentCode(codes.get(i));
+        }
+        List<TestRiskAssessment> saved = riskRepository.saveAll(assessments);
         
-        // 查询该需求下的所有用例
-        List<TestCase> testCases = testCaseRepository.findByRequirementId(requirementId);
+        ReleaseRiskAssessmentResponseDTO response = summarizeRelease(saved);
+        log.info("版本上线风险评估完成: 评估数={}, 结论={}, 耗时={}ms", 
+                saved.size(), response.getDecision(), System.currentTimeMillis() - startTime);
+        return response;
+    }
+    
+    @Override
+    public String assessRiskLevel(BigDecimal riskScore) {
+        if (riskScore == null) {
+            return "LOW";
+        }
+        
+        if (riskScore.compareTo(HIGH_RISK_THRESHOLD) >= 0) {
+            return "HIGH";
+        } else if (riskScore.compareTo(MEDIUM_RISK_THRESHOLD) >= 0) {
+            return "MEDIUM";
+        } else {
+            return "LOW";
+        }
+    }
+    
+    @Override
+    public BigDecimal assessFeasibility(Long requirementId, Long executionTaskId) {
+        log.info("评估上线可行性: requirementId={}, executionTaskId={}", requirementId, executionTaskId);
+        return calculateFeasibilityScore(loadInputs(requirementId, executionTaskId), requirementId, executionTaskId);
+    }
+    
+    @Override
+    public String identifyRiskItems(Long requirementId, Long executionTaskId) {
+        log.info("识别风险项: requirementId={}, executionTaskId={}", requirementId, executionTaskId);
+        return collectRiskItems(loadInputs(requirementId, executionTaskId), requirementId, executionTaskId);
+    }
+    
+    @Override
+    public TestRiskAssessment getAssessmentById(Long id) {
+        return riskRepository.findById(id)
+                .orElseThrow(() -> new BusinessException("风险评估不存在"));
+    }
+    
+    @Override
+    public TestRiskAssessment getAssessmentByCode(String assessmentCode) {
+        return riskRepository.findByAssessmentCode(assessmentCode)
+                .orElseThrow(() -> new BusinessException("风险评估不存在: " + assessmentCode));
+    }
+    
+    @Override
+    public Page<TestRiskAssessment> getAssessmentList(Pageable pageable) {
+        return riskRepository.findAll(pageable);
+    }
+    
+    @Override
+    public List<TestRiskAssessment> getAssessmentByRequirementId(Long requirementId) {
+        return riskRepository.findByRequirementId(requirementId);
+    }
+    
+    @Override
+    public List<TestRiskAssessment> getAssessmentByExecutionTaskId(Long executionTaskId) {
+        return riskRepository.findByExecutionTaskId(executionTaskId);
+    }
+    
+    @Override
+    public List<TestRiskAssessment> getAssessmentByRiskLevel(String riskLevel) {
+        return riskRepository.findByRiskLevel(riskLevel);
+    }
+    
+    /**
+     * 一次取回评估所需的全部输入：需求、执行任务、用例数、覆盖分析和执行记录汇总各一次集合查询。
+     * 执行任务关联的需求一并加载，任务的可行性和风险项需要用到需求的用例和覆盖率。
+     */
+    private RiskInputs loadInputs(Collection<Long> requirementIds, Collection<Long> executionTaskIds) {
+        Map<Long, TestExecutionTask> tasks = new HashMap<>();
+        if (!executionTaskIds.isEmpty()) {
+            executionTaskRepository.findAllById(executionTaskIds).forEach(task -> tasks.put(task.getId(), task));
+        }
+        Set<Long> allRequirementIds = new HashSet<>(requirementIds);
+        tasks.values().stream()
+                .map(TestExecutionTask::getRequirementId)
+                .filter(Objects::nonNull)
+                .forEach(allRequirementIds::add);
+        
+        Map<Long, TestRequirement> requirements = new HashMap<>();
+        Map<Long, Integer> caseCounts = new HashMap<>();
+        Map<Long, List<TestCoverageAnalysis>> coverages = new HashMap<>();
+        if (!allRequirementIds.isEmpty()) {
+            requirementRepository.findAllById(allRequirementIds)
+                    .forEach(requirement -> requirements.put(requirement.getId(), requirement));
+            for (Object[] row : testCaseRepository.countByRequirementIdIn(allRequirementIds)) {
+                caseCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+            for (TestCoverageAnalysis analysis : coverageRepository.findByRequirementIdIn(allRequirementIds)) {
+                coverages.computeIfAbsent(analysis.getRequirementId(), k -> new ArrayList<>()).add(analysis);
+            }
+        }
+        coverages.replaceAll((id, list) -> List.copyOf(list));
         
-        // 查询覆盖分析数据
-        List<TestCoverageAnalysis> coverageAnalyses = coverageRepository.findByRequirementId(requirementId);
+        Map<Long, ExecutionAggregateStore.ExecutionSummary> taskSummaries = tasks.isEmpty()
+                ? Collections.emptyMap() : aggregateStore.summarizeTasks(tasks.keySet());
+        return new RiskInputs(Map.copyOf(requirements), Map.copyOf(tasks), Map.copyOf(caseCounts),
+                Map.copyOf(coverages), Map.copyOf(taskSummaries));
+    }
+    
+    private RiskInputs loadInputs(Long requirementId, Long executionTaskId) {
+        return loadInputs(requirementId != null ? List.of(requirementId) : Collections.emptyList(),
+                executionTaskId != null ? List.of(executionTaskId) : Collections.emptyList());
+    }
+    
+    /**
+     * 根据预取的输入构建需求风险评估（未分配编码）
+     */
+    private TestRiskAssessment buildRequirementAssessment(RiskInputs inputs, Long requirementId) {
+        TestRequirement requirement = inputs.requirements().get(requirementId);
         
         // 计算风险评分（0-100，分数越高风险越大）
-        BigDecimal riskScore = calculateRequirementRiskScore(requirement, testCases, coverageAnalyses);
+        BigDecimal riskScore = calculateRequirementRiskScore(inputs, requirementId);
         
         // 确定风险等级
         String riskLevel = assessRiskLevel(riskScore);
         
         // 识别风险项
-        String riskItemsJson = identifyRiskItems(requirementId, null);
+        String riskItemsJson = collectRiskItems(inputs, requirementId, null);
         
         // 评估上线可行性（0-100，分数越高越可行）
-        BigDecimal feasibilityScore = assessFeasibility(requirementId, null);
+        BigDecimal feasibilityScore = calculateFeasibilityScore(inputs, requirementId, null);
         
         // 生成上线建议
         String feasibilityRecommendation = generateFeasibilityRecommendation(riskScore, feasibilityScore, riskItemsJson);
@@ -120,15 +303,13 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         assessmentDetails.put("requirementId", requirementId);
         assessmentDetails.put("requirementCode", requirement.getRequirementCode());
         assessmentDetails.put("requirementName", requirement.getRequirementName());
-        assessmentDetails.put("testCaseCount", testCases.size());
+        assessmentDetails.put("testCaseCount", inputs.caseCount(requirementId));
         assessmentDetails.put("riskScore", riskScore);
         assessmentDetails.put("riskLevel", riskLevel);
         assessmentDetails.put("feasibilityScore", feasibilityScore);
-        assessmentDetails.put("coverageAnalysesCount", coverageAnalyses.size());
+        assessmentDetails.put("coverageAnalysesCount", inputs.coverages(requirementId).size());
         
-        // 创建评估记录
         TestRiskAssessment assessment = new TestRiskAssessment();
-        assessment.setAssessmentCode(generateAssessmentCode());
         assessment.setAssessmentName(requirement.getRequirementName() + " - 风险评估");
         assessment.setRequirementId(requirementId);
         assessment.setRiskLevel(riskLevel);
@@ -138,38 +319,19 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         assessment.setFeasibilityRecommendation(feasibilityRecommendation);
         assessment.setAssessmentDetails(toJson(assessmentDetails));
         assessment.setAssessmentTime(LocalDateTime.now());
-        
-        TestRiskAssessment saved = riskRepository.save(assessment);
-        log.info("需求风险评估完成: assessmentCode={}, 风险评分={}, 风险等级={}", 
-                saved.getAssessmentCode(), riskScore, riskLevel);
-        
-        return saved;
+        return assessment;
     }
     
-    @Override
-    @Transactional
-    public TestRiskAssessment assessExecutionTaskRisk(Long executionTaskId) {
-        log.info("评估执行任务风险: executionTaskId={}", executionTaskId);
-        
-        TestExecutionTask task = executionTaskRepository.findById(executionTaskId)
-                .orElseThrow(() -> new BusinessException("执行任务不存在: " + executionTaskId));
-        
-        // 查询执行记录
-        List<TestExecutionRecord> records = executionRecordRepository.findByTaskId(executionTaskId);
-        
-        // 计算风险评分
-        BigDecimal riskScore = calculateExecutionTaskRiskScore(task, records);
+    /**
+     * 根据预取的输入构建执行任务风险评估（未分配编码）
+     */
+    private TestRiskAssessment buildExecutionTaskAssessment(RiskInputs inputs, Long executionTaskId) {
+        TestExecutionTask task = inputs.tasks().get(executionTaskId);
         
-        // 确定风险等级
+        BigDecimal riskScore = calculateExecutionTaskRiskScore(inputs, executionTaskId);
         String riskLevel = assessRiskLevel(riskScore);
-        
-        // 识别风险项
-        String riskItemsJson = identifyRiskItems(task.getRequirementId(), executionTaskId);
-        
-        // 评估上线可行性
-        BigDecimal feasibilityScore = assessFeasibility(task.getRequirementId(), executionTaskId);
-        
-        // 生成上线建议
+        String riskItemsJson = collectRiskItems(inputs, task.getRequirementId(), executionTaskId);
+        BigDecimal feasibilityScore = calculateFeasibilityScore(inputs, task.getRequirementId(), executionTaskId);
         String feasibilityRecommendation = generateFeasibilityRecommendation(riskScore, feasibilityScore, riskItemsJson);
         
         // 构建评估详情
@@ -184,9 +346,7 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         assessmentDetails.put("riskLevel", riskLevel);
         assessmentDetails.put("feasibilityScore", feasibilityScore);
         
-        // 创建评估记录
         TestRiskAssessment assessment = new TestRiskAssessment();
-        assessment.setAssessmentCode(generateAssessmentCode());
         assessment.setAssessmentName(task.getTaskName() + " - 风险评估");
         assessment.setRequirementId(task.getRequirementId());
         assessment.setExecutionTaskId(executionTaskId);
@@ -197,33 +357,13 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         assessment.setFeasibilityRecommendation(feasibilityRecommendation);
         assessment.setAssessmentDetails(toJson(assessmentDetails));
         assessment.setAssessmentTime(LocalDateTime.now());
-        
-        TestRiskAssessment saved = riskRepository.save(assessment);
-        log.info("执行任务风险评估完成: assessmentCode={}, 风险评分={}, 风险等级={}", 
-                saved.getAssessmentCode(), riskScore, riskLevel);
-        
-        return saved;
-    }
-    
-    @Override
-    public String assessRiskLevel(BigDecimal riskScore) {
-        if (riskScore == null) {
-            return "LOW";
-        }
-        
-        if (riskScore.compareTo(HIGH_RISK_THRESHOLD) >= 0) {
-            return "HIGH";
-        } else if (riskScore.compareTo(MEDIUM_RISK_THRESHOLD) >= 0) {
-            return "MEDIUM";
-        } else {
-            return "LOW";
-        }
+        return assessment;
     }
     
-    @Override
-    public BigDecimal assessFeasibility(Long requirementId, Long executionTaskId) {
-        log.info("评估上线可行性: requirementId={}, executionTaskId={}", requirementId, executionTaskId);
-        
+    /**
+     * 计算上线可行性评分（0-100，分数越高越可行）
+     */
+    private BigDecimal calculateFeasibilityScore(RiskInputs inputs, Long requirementId, Long executionTaskId) {
         // 基础可行性分数（100分）
         BigDecimal baseScore = new BigDecimal("100");
         BigDecimal deduction = BigDecimal.ZERO;
@@ -231,17 +371,9 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         // 1. 根据风险评分扣分（风险评分越高，扣分越多）
         BigDecimal riskScore = BigDecimal.ZERO;
         if (requirementId != null) {
-            List<TestCase> testCases = testCaseRepository.findByRequirementId(requirementId);
-            List<TestCoverageAnalysis> coverageAnalyses = coverageRepository.findByRequirementId(requirementId);
-            riskScore = calculateRequirementRiskScore(
-                    requirementRepository.findById(requirementId).orElse(null),
-                    testCases, coverageAnalyses);
+            riskScore = calculateRequirementRiskScore(inputs, requirementId);
         } else if (executionTaskId != null) {
-            TestExecutionTask task = executionTaskRepository.findById(executionTaskId).orElse(null);
-            List<TestExecutionRecord> records = executionTaskId != null 
-                    ? executionRecordRepository.findByTaskId(executionTaskId) 
-                    : Collections.emptyList();
-            riskScore = calculateExecutionTaskRiskScore(task, records);
+            riskScore = calculateExecutionTaskRiskScore(inputs, executionTaskId);
         }
         
         // 风险评分越高，扣分越多（最多扣40分）
@@ -249,8 +381,7 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         
         // 2. 根据用例覆盖率扣分
         if (requirementId != null) {
-            List<TestCoverageAnalysis> coverageAnalyses = coverageRepository.findByRequirementId(requirementId);
-            for (TestCoverageAnalysis analysis : coverageAnalyses) {
+            for (TestCoverageAnalysis analysis : inputs.coverages(requirementId)) {
                 if (analysis.getCoverageRate() != null && analysis.getCoverageRate().compareTo(new BigDecimal("80")) < 0) {
                     // 覆盖率低于80%时扣分
                     BigDecimal gap = new BigDecimal("80").subtract(analysis.getCoverageRate());
@@ -261,7 +392,7 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         
         // 3. 根据执行失败率扣分
         if (executionTaskId != null) {
-            TestExecutionTask task = executionTaskRepository.findById(executionTaskId).orElse(null);
+            TestExecutionTask task = inputs.tasks().get(executionTaskId);
             if (task != null && task.getSuccessCount() + task.getFailCount() > 0) {
                 int total = task.getSuccessCount() + task.getFailCount();
                 double failRate = task.getFailCount() * 100.0 / total;
@@ -283,27 +414,27 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         return feasibilityScore.setScale(2, RoundingMode.HALF_UP);
     }
     
-    @Override
-    public String identifyRiskItems(Long requirementId, Long executionTaskId) {
-        log.info("识别风险项: requirementId={}, executionTaskId={}", requirementId, executionTaskId);
-        
+    /**
+     * 识别风险项，返回JSON数组
+     */
+    private String collectRiskItems(RiskInputs inputs, Long requirementId, Long executionTaskId) {
         List<Map<String, Object>> riskItems = new ArrayList<>();
         
         // 1. 用例数量风险
         if (requirementId != null) {
-            List<TestCase> testCases = testCaseRepository.findByRequirementId(requirementId);
-            if (testCases.isEmpty()) {
+            int testCaseCount = inputs.caseCount(requirementId);
+            if (testCaseCount == 0) {
                 Map<String, Object> item = new HashMap<>();
                 item.put("type", "TEST_CASE_COUNT");
                 item.put("level", "HIGH");
                 item.put("description", "需求缺少测试用例");
                 item.put("recommendation", "建议为该需求创建测试用例");
                 riskItems.add(item);
-            } else if (testCases.size() < 3) {
+            } else if (testCaseCount < 3) {
                 Map<String, Object> item = new HashMap<>();
                 item.put("type", "TEST_CASE_COUNT");
                 item.put("level", "MEDIUM");
-                item.put("description", "测试用例数量较少（" + testCases.size() + "个）");
+                item.put("description", "测试用例数量较少（" + testCaseCount + "个）");
                 item.put("recommendation", "建议增加测试用例数量");
                 riskItems.add(item);
             }
@@ -311,8 +442,7 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         
         // 2. 覆盖率风险
         if (requirementId != null) {
-            List<TestCoverageAnalysis> coverageAnalyses = coverageRepository.findByRequirementId(requirementId);
-            for (TestCoverageAnalysis analysis : coverageAnalyses) {
+            for (TestCoverageAnalysis analysis : inputs.coverages(requirementId)) {
                 if (analysis.getCoverageRate() != null && analysis.getCoverageRate().compareTo(new BigDecimal("80")) < 0) {
                     Map<String, Object> item = new HashMap<>();
                     item.put("type", "COVERAGE");
@@ -329,7 +459,7 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         
         // 3. 执行失败风险
         if (executionTaskId != null) {
-            TestExecutionTask task = executionTaskRepository.findById(executionTaskId).orElse(null);
+            TestExecutionTask task = inputs.tasks().get(executionTaskId);
             if (task != null && task.getSuccessCount() + task.getFailCount() > 0) {
                 int total = task.getSuccessCount() + task.getFailCount();
                 double failRate = task.getFailCount() * 100.0 / total;
@@ -350,50 +480,19 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         return toJson(riskItems);
     }
     
-    @Override
-    public TestRiskAssessment getAssessmentById(Long id) {
-        return riskRepository.findById(id)
-                .orElseThrow(() -> new BusinessException("风险评估不存在"));
-    }
-    
-    @Override
-    public TestRiskAssessment getAssessmentByCode(String assessmentCode) {
-        return riskRepository.findByAssessmentCode(assessmentCode)
-                .orElseThrow(() -> new BusinessException("风险评估不存在: " + assessmentCode));
-    }
-    
-    @Override
-    public Page<TestRiskAssessment> getAssessmentList(Pageable pageable) {
-        return riskRepository.findAll(pageable);
-    }
-    
-    @Override
-    public List<TestRiskAssessment> getAssessmentByRequirementId(Long requirementId) {
-        return riskRepository.findByRequirementId(requirementId);
-    }
-    
-    @Override
-    public List<TestRiskAssessment> getAssessmentByExecutionTaskId(Long executionTaskId) {
-        return riskRepository.findByExecutionTaskId(executionTaskId);
-    }
-    
-    @Override
-    public List<TestRiskAssessment> getAssessmentByRiskLevel(String riskLevel) {
-        return riskRepository.findByRiskLevel(riskLevel);
-    }
-    
     /**
      * 计算需求风险评分（0-100，分数越高风险越大）
      */
-    private BigDecimal calculateRequirementRiskScore(TestRequirement requirement, 
-                                                      List<TestCase> testCases,
-                                                      List<TestCoverageAnalysis> coverageAnalyses) {
+    private BigDecimal calculateRequirementRiskScore(RiskInputs inputs, Long requirementId) {
+        TestRequirement requirement = inputs.requirements().get(requirementId);
+        int testCaseCount = inputs.caseCount(requirementId);
+        List<TestCoverageAnalysis> coverageAnalyses = inputs.coverages(requirementId);
         BigDecimal riskScore = BigDecimal.ZERO;
         
         // 1. 用例数量风险（30%权重）
-        if (testCases.isEmpty()) {
+        if (testCaseCount == 0) {
             riskScore = riskScore.add(new BigDecimal("30")); // 无用例，高风险
-        } else if (testCases.size() < 3) {
+        } else if (testCaseCount < 3) {
             riskScore = riskScore.add(new BigDecimal("15")); // 用例少，中风险
         }
         
@@ -441,10 +540,10 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
     /**
      * 计算执行任务风险评分（0-100，分数越高风险越大）
      */
-    private BigDecimal calculateExecutionTaskRiskScore(TestExecutionTask task, 
-                                                         List<TestExecutionRecord> records) {
+    private BigDecimal calculateExecutionTaskRiskScore(RiskInputs inputs, Long executionTaskId) {
         BigDecimal riskScore = BigDecimal.ZERO;
         
+        TestExecutionTask task = inputs.tasks().get(executionTaskId);
         if (task == null) {
             return new BigDecimal("50"); // 任务不存在，中等风险
         }
@@ -472,12 +571,12 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
             riskScore = riskScore.add(new BigDecimal("30"));
         }
         
-        // 3. 记录失败风险（20%权重）
-        long failedRecords = records.stream()
-                .filter(r -> "FAILED".equals(r.getExecutionStatus()))
-                .count();
-        if (failedRecords > 0 && records.size() > 0) {
-            double recordFailRate = failedRecords * 100.0 / records.size();
+        // 3. 记录失败风险（20%权重），记录数取自执行聚合
+        ExecutionAggregateStore.ExecutionSummary summary = inputs.taskSummaries().get(executionTaskId);
+        long recordCount = summary != null ? summary.totalRecords() : 0;
+        long failedRecords = summary != null ? summary.statusCount().getOrDefault("FAILED", 0L) : 0;
+        if (failedRecords > 0 && recordCount > 0) {
+            double recordFailRate = failedRecords * 100.0 / recordCount;
             riskScore = riskScore.add(BigDecimal.valueOf(recordFailRate * 0.2)); // 每1%失败率加0.2分
         }
         
@@ -492,6 +591,48 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         return riskScore.setScale(2, RoundingMode.HALF_UP);
     }
     
+    /**
+     * 汇总版本内各评估，给出上线结论：
+     * 存在高风险项或最低可行性低于60分不建议上线，存在中风险项或最低可行性低于80分有条件上线，否则可以上线
+     */
+    private ReleaseRiskAssessmentResponseDTO summarizeRelease(List<TestRiskAssessment> assessments) {
+        Map<String, Long> riskLevelCount = new LinkedHashMap<>();
+        riskLevelCount.put("HIGH", 0L);
+        riskLevelCount.put("MEDIUM", 0L);
+        riskLevelCount.put("LOW", 0L);
+        BigDecimal minFeasibility = null;
+        BigDecimal feasibilitySum = BigDecimal.ZERO;
+        for (TestRiskAssessment assessment : assessments) {
+            riskLevelCount.merge(assessment.getRiskLevel(), 1L, Long::sum);
+            BigDecimal feasibility = assessment.getFeasibilityScore();
+            feasibilitySum = feasibilitySum.add(feasibility);
+            minFeasibility = minFeasibility == null || feasibility.compareTo(minFeasibility) < 0
+                    ? feasibility : minFeasibility;
+        }
+        
+        String decision;
+        String recommendation;
+        if (riskLevelCount.get("HIGH") > 0 || minFeasibility.compareTo(new BigDecimal("60")) < 0) {
+            decision = RELEASE_NO_GO;
+            recommendation = "不建议上线：存在高风险项或上线可行性低于60分的需求/执行任务，需修复后重新评估。";
+        } else if (riskLevelCount.get("MEDIUM") > 0 || minFeasibility.compareTo(new BigDecimal("80")) < 0) {
+            decision = RELEASE_CONDITIONAL_GO;
+            recommendation = "有条件上线：存在中风险项，建议修复或确认风险后上线。";
+        } else {
+            decision = RELEASE_GO;
+            recommendation = "建议正常上线。";
+        }
+        
+        ReleaseRiskAssessmentResponseDTO response = new ReleaseRiskAssessmentResponseDTO();
+        response.setDecision(decision);
+        response.setRecommendation(recommendation);
+        response.setRiskLevelCount(riskLevelCount);
+        response.setMinFeasibilityScore(minFeasibility);
+        response.setAvgFeasibilityScore(feasibilitySum.divide(new BigDecimal(assessments.size()), 2, RoundingMode.HALF_UP));
+        response.setAssessments(assessments);
+        return response;
+    }
+    
     /**
      * 生成上线建议
      */
@@ -527,6 +668,13 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
      * 生成评估编码（RISK-YYYYMMDD-序号）
      */
     private String generateAssessmentCode() {
+        return generateAssessmentCodes(1).get(0);
+    }
+    
+    /**
+     * 批量生成连续的评估编码，只查询一次当天已生成的编码
+     */
+    private List<String> generateAssessmentCodes(int count) {
         String dateStr = LocalDate.now().format(DATE_FORMATTER);
         String prefix = RISK_CODE_PREFIX + "-" + dateStr + "-";
         
@@ -548,8 +696,11 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
         }
         
         // 生成新序号
-        int newSequence = maxSequence + 1;
-        return prefix + String.format("%03d", newSequence);
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            codes.add(prefix + String.format("%03d", maxSequence + i));
+        }
+        return codes;
     }
     
     /**
@@ -575,5 +726,28 @@ public class TestRiskAssessmentServiceImpl implements TestRiskAssessmentService
             return "{}";
         }
     }
+    
+    /**
+     * 风险评估输入，加载后不再修改，可被多个评分线程共享
+     *
+     * @param requirements 需求ID -> 需求
+     * @param tasks 执行任务ID -> 执行任务
+     * @param caseCounts 需求ID -> 用例数（没有用例的需求不在其中）
+     * @param coverages 需求ID -> 覆盖分析
+     * @param taskSummaries 执行任务ID -> 执行记录汇总
+     */
+    private record RiskInputs(Map<Long, TestRequirement> requirements,
+                              Map<Long, TestExecutionTask> tasks,
+                              Map<Long, Integer> caseCounts,
+                              Map<Long, List<TestCoverageAnalysis>> coverages,
+                              Map<Long, ExecutionAggregateStore.ExecutionSummary> taskSummaries) {
+        
+        int caseCount(Long requirementId) {
+            return caseCounts.getOrDefault(requirementId, 0);
+        }
+        
+        List<TestCoverageAnalysis> coverages(Long requirementId) {
+            return coverages.getOrDefault(requirementId, Collections.emptyList());
+        }
+    }
 }
-
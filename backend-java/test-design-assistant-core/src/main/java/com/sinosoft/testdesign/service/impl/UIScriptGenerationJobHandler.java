@@ -0,0 +1,76 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.dto.UIScriptGenerationRequest;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.entity.TestExecutionTask;
+import com.sinosoft.testdesign.repository.TestExecutionTaskRepository;
+import com.sinosoft.testdesign.service.JobHandler;
+import com.sinosoft.testdesign.service.JobQueueService;
+import com.sinosoft.testdesign.service.UIScriptGenerationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * UI脚本生成任务处理器
+ * 业务主键是执行任务ID，任务参数是原始的脚本生成请求；任务已成功或已最终失败时不再重复生成。
+ * 生成服务内部捕获异常并把任务记为FAILED，处理器据此抛出异常让任务队列按退避策略重试，
+ * 重试前任务恢复为PENDING，达到最大次数后由 onGiveUp 记为FAILED
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UIScriptGenerationJobHandler implements JobHandler {
+
+    private final UIScriptGenerationService scriptGenerationService;
+    private final TestExecutionTaskRepository taskRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String jobType() {
+        return JobQueueService.JOB_UI_SCRIPT_GENERATION;
+    }
+
+    @Override
+    public void handle(AsyncJob job) throws Exception {
+        Long taskId = Long.valueOf(job.getBusinessKey());
+        TestExecutionTask task = taskRepository.findById(taskId).orElse(null);
+        if (task == null || "SUCCESS".equals(task.getTaskStatus()) || "FAILED".equals(task.getTaskStatus())) {
+            log.info("UI脚本生成任务不存在或已结束，跳过: {}", taskId);
+            return;
+        }
+        UIScriptGenerationRequest request = objectMapper.readValue(job.getPayload(), UIScriptGenerationRequest.class);
+        scriptGenerationService.executeScriptGeneration(taskId, request);
+
+        TestExecutionTask result = taskRepository.findById(taskId).orElse(null);
+        if (result != null && "FAILED".equals(result.getTaskStatus())) {
+            String error = result.getErrorMessage();
+            // 等待重试，最终失败由 onGiveUp 记录
+            result.setTaskStatus("PENDING");
+            result.setFinishTime(null);
+            result.setFailCount(0);
+            taskRepository.save(result);
+            throw new BusinessException("UI脚本生成失败: " + error);
+        }
+    }
+
+    @Override
+    public void onGiveUp(AsyncJob job, String error) {
+        taskRepository.findById(Long.valueOf(job.getBusinessKey()))
+                .filter(task -> !"SUCCESS".equals(task.getTaskStatus()) && !"FAILED".equals(task.getTaskStatus()))
+                .ifPresent(task -> {
+                    task.setTaskStatus("FAILED");
+                    task.setErrorMessage(error);
+                    task.setFinishTime(LocalDateTime.now());
+                    task.setFailCount(1);
+                    taskRepository.save(task);
+                });
+    }
+}
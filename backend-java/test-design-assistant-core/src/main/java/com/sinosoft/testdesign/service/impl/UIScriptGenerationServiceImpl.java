@@ -9,11 +9,12 @@ import com.sinosoft.testdesign.entity.PageElementInfo;
 import com.sinosoft.testdesign.entity.TestExecutionTask;
 import com.sinosoft.testdesign.repository.PageElementInfoRepository;
 import com.sinosoft.testdesign.repository.TestExecutionTaskRepository;
+import com.sinosoft.testdesign.service.AiResponseCacheService;
+import com.sinosoft.testdesign.service.JobQueueService;
 import com.sinosoft.testdesign.service.UIScriptGenerationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -39,6 +40,8 @@ public class UIScriptGenerationServiceImpl implements UIScriptGenerationService
     private final PageElementInfoRepository pageElementInfoRepository;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final AiResponseCacheService aiResponseCacheService;
+    private final JobQueueService jobQueueService;
     
     @Value("${app.ai-service.url:http://localhost:8000}")
     private String aiServiceUrl;
@@ -78,8 +81,9 @@ public class UIScriptGenerationServiceImpl implements UIScriptGenerationService
         
         task = taskRepository.save(task);
         
-        // 异步执行脚本生成
-        executeScriptGenerationAsync(task.getId(), request);
+        // 提交到后台任务队列，与任务记录在同一事务中写入
+        jobQueueService.enqueue(JobQueueService.JOB_UI_SCRIPT_GENERATION, String.valueOf(task.getId()),
+                request, JobQueueService.PRIORITY_INTERACTIVE);
         
         return taskCode;
     }
@@ -182,9 +186,9 @@ public class UIScriptGenerationServiceImpl implements UIScriptGenerationService
         }
     }
     
-    @Async
+    @Override
     @Transactional
-    public void executeScriptGenerationAsync(Long taskId, UIScriptGenerationRequest request) {
+    public void executeScriptGeneration(Long taskId, UIScriptGenerationRequest request) {
         TestExecutionTask task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new BusinessException("任务不存在: " + taskId));
         
@@ -217,7 +221,11 @@ public class UIScriptGenerationServiceImpl implements UIScriptGenerationService
             // 调用Python服务生成脚本
             String url = aiServiceUrl + "/api/v1/ui-script/generate";
             log.info("调用Python服务生成脚本，URL: {}", url);
-            Map<String, Object> response = restTemplate.postForObject(url, pythonRequest, Map.class);
+            Map<String, Object> response = aiResponseCacheService.getOrLoad(
+                    AiResponseCacheService.TASK_UI_SCRIPT_GENERATION,
+                    pythonRequest,
+                    r -> r.get("script_content") instanceof String script && StringUtils.hasText(script),
+                    () -> restTemplate.postForObject(url, pythonRequest, Map.class));
             
             if (response == null) {
                 throw new BusinessException("Python服务返回空响应");
@@ -11,6 +11,8 @@ import com.sinosoft.testdesign.repository.WorkflowAbTestRepository;
 import com.sinosoft.testdesign.repository.WorkflowDefinitionRepository;
 import com.sinosoft.testdesign.repository.WorkflowVersionRepository;
 import com.sinosoft.testdesign.service.WorkflowAbTestService;
+import com.sinosoft.testdesign.service.WorkflowDefinitionService;
+import com.sinosoft.testdesign.util.AbTestBucketing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,7 +23,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 import java.util.stream.Collectors;
 
 /**
@@ -39,7 +40,10 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
     private final WorkflowAbTestExecutionRepository executionRepository;
     private final WorkflowDefinitionRepository workflowRepository;
     private final WorkflowVersionRepository versionRepository;
-    private final Random random = new Random();
+    private final AbTestStatsRegistry statsRegistry;
+    private final AbTestEvaluator abTestEvaluator;
+    private final AbTestAssignmentCache assignmentCache;
+    private final WorkflowDefinitionService workflowDefinitionService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -59,6 +63,14 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
         if (sa + sb != 100) {
             throw new BusinessException("流量分配比例之和必须等于100");
         }
+        String criteria = dto.getSelectionCriteria() != null ? dto.getSelectionCriteria() : AbTestEvaluator.CRITERIA_SUCCESS_RATE;
+        if (!AbTestEvaluator.CRITERIA_SUCCESS_RATE.equals(criteria) && !AbTestEvaluator.CRITERIA_RESPONSE_TIME.equals(criteria)) {
+            throw new BusinessException("不支持的选择标准: " + criteria);
+        }
+        String allocationMode = dto.getAllocationMode() != null ? dto.getAllocationMode() : "fixed";
+        if (!"fixed".equals(allocationMode) && !"bandit".equals(allocationMode)) {
+            throw new BusinessException("不支持的流量分配模式: " + allocationMode);
+        }
         Optional<WorkflowAbTest> running = abTestRepository.findRunningTestByWorkflowId(workflowId);
         if (running.isPresent()) {
             throw new BusinessException("该工作流已有正在运行的 A/B 测试，请先停止");
@@ -71,6 +83,10 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
                 .versionBId(dto.getVersionBId())
                 .trafficSplitA(sa)
                 .trafficSplitB(sb)
+                .autoSelectEnabled(dto.getAutoSelectEnabled() != null ? dto.getAutoSelectEnabled() : "0")
+                .minSamples(dto.getMinSamples() != null ? dto.getMinSamples() : 100)
+                .selectionCriteria(criteria)
+                .allocationMode(allocationMode)
                 .status("draft")
                 .createdBy(dto.getCreatedBy())
                 .build();
@@ -144,6 +160,8 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
             throw new BusinessException("不能删除正在运行的 A/B 测试，请先停止");
         }
         abTestRepository.deleteById(id);
+        statsRegistry.evict(AbTestStatsRegistry.SCOPE_WORKFLOW, id);
+        assignmentCache.evict(AbTestStatsRegistry.SCOPE_WORKFLOW, id);
         log.info("删除工作流 A/B 测试成功: id={}", id);
     }
 
@@ -151,12 +169,14 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
     public Map<String, Object> getAbTestStatistics(Long abTestId) {
         WorkflowAbTest ab = abTestRepository.findById(abTestId)
                 .orElseThrow(() -> new BusinessException("A/B 测试不存在: " + abTestId));
-        long countA = executionRepository.countVersionA(abTestId);
-        long countB = executionRepository.countVersionB(abTestId);
-        long successA = executionRepository.countVersionASuccess(abTestId);
-        long successB = executionRepository.countVersionBSuccess(abTestId);
-        Double avgRespA = executionRepository.avgResponseTimeA(abTestId);
-        Double avgRespB = executionRepository.avgResponseTimeB(abTestId);
+        AbTestStatsRegistry.VariantStats statsA = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_WORKFLOW, abTestId, "A");
+        AbTestStatsRegistry.VariantStats statsB = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_WORKFLOW, abTestId, "B");
+        long countA = statsA.executions();
+        long countB = statsB.executions();
+        long successA = statsA.successCount();
+        long successB = statsB.successCount();
+        Double avgRespA = statsA.avgResponseTime();
+        Double avgRespB = statsB.avgResponseTime();
         Map<String, Object> stats = new HashMap<>();
         stats.put("abTestId", abTestId);
         stats.put("workflowId", ab.getWorkflowId());
@@ -169,6 +189,11 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
         stats.put("versionBSuccessRate", countB > 0 ? (double) successB / countB : 0.0);
         stats.put("versionAAvgResponseTimeMs", avgRespA != null ? avgRespA : 0.0);
         stats.put("versionBAvgResponseTimeMs", avgRespB != null ? avgRespB : 0.0);
+        AbTestEvaluator.Evaluation evaluation = abTestEvaluator.evaluate(ab.getSelectionCriteria(), statsA, statsB);
+        stats.put("betterVersion", evaluation.leader());
+        stats.put("winner", evaluation.winner());
+        stats.put("probabilityBBetter", evaluation.probabilityBBetter());
+        stats.put("pValue", evaluation.pValue());
         return stats;
     }
 
@@ -179,8 +204,15 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
         if (!"running".equals(ab.getStatus())) {
             return "A";
         }
-        int r = random.nextInt(100);
-        return r < ab.getTrafficSplitA() ? "A" : "B";
+        int trafficSplitA = ab.getTrafficSplitA();
+        if (!"bandit".equals(ab.getAllocationMode())) {
+            return AbTestBucketing.selectVariant(abTestId, requestId, trafficSplitA);
+        }
+        // bandit模式会调整流量比例，已参与测试的请求ID沿用首次分到的版本
+        return assignmentCache.select(AbTestStatsRegistry.SCOPE_WORKFLOW, abTestId, requestId,
+                () -> executionRepository.findFirstByAbTestIdAndRequestIdOrderByIdAsc(abTestId, requestId)
+                        .map(WorkflowAbTestExecution::getVersionLabel),
+                () -> AbTestBucketing.selectVariant(abTestId, requestId, trafficSplitA));
     }
 
     @Override
@@ -189,7 +221,52 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
         if (!abTestRepository.existsById(execution.getAbTestId())) {
             throw new BusinessException("A/B 测试不存在: " + execution.getAbTestId());
         }
-        return executionRepository.save(execution);
+        WorkflowAbTestExecution saved = executionRepository.save(execution);
+        statsRegistry.record(AbTestStatsRegistry.SCOPE_WORKFLOW, saved.getAbTestId(), saved.getVersionLabel(),
+                saved.getStatus(), saved.getResponseTime(), null);
+        return saved;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void evaluateAbTest(Long abTestId) {
+        WorkflowAbTest ab = abTestRepository.findById(abTestId)
+                .orElseThrow(() -> new BusinessException("A/B 测试不存在: " + abTestId));
+        if (!"running".equals(ab.getStatus())) {
+            return;
+        }
+        AbTestStatsRegistry.VariantStats statsA = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_WORKFLOW, abTestId, "A");
+        AbTestStatsRegistry.VariantStats statsB = statsRegistry.getStats(AbTestStatsRegistry.SCOPE_WORKFLOW, abTestId, "B");
+        long total = statsA.executions() + statsB.executions();
+        AbTestEvaluator.Evaluation evaluation = abTestEvaluator.evaluate(ab.getSelectionCriteria(), statsA, statsB);
+
+        if ("1".equals(ab.getAutoSelectEnabled()) && evaluation.winner() != null && total >= ab.getMinSamples()) {
+            Long winnerVersionId = AbTestBucketing.VARIANT_A.equals(evaluation.winner()) ? ab.getVersionAId() : ab.getVersionBId();
+            WorkflowVersion winnerVersion = versionRepository.findById(winnerVersionId)
+                    .orElseThrow(() -> new BusinessException("胜出版本不存在: " + winnerVersionId));
+            // 仅当测试仍在运行时结束测试，其他节点已结束时不重复切换版本
+            LocalDateTime now = LocalDateTime.now();
+            if (abTestRepository.completeIfRunning(abTestId, now) == 0) {
+                log.info("工作流 A/B 测试已结束，跳过版本切换: id={}", abTestId);
+                return;
+            }
+            workflowDefinitionService.rollbackToVersion(ab.getWorkflowId(), winnerVersion.getVersion());
+            log.info("工作流 A/B 测试结果已显著，切换到胜出版本: id={}, workflowId={}, version={}",
+                    abTestId, ab.getWorkflowId(), winnerVersion.getVersion());
+            return;
+        }
+
+        // bandit模式调整的流量比例只作用于新进入测试的请求，已分配的请求由AbTestAssignmentCache保持原版本
+        if ("bandit".equals(ab.getAllocationMode())) {
+            Integer splitA = abTestEvaluator.banditTrafficSplitA(evaluation, total);
+            if (splitA != null && !splitA.equals(ab.getTrafficSplitA())) {
+                log.info("调整工作流 A/B 测试流量分配: id={}, A: {}% -> {}%", abTestId, ab.getTrafficSplitA(), splitA);
+                ab.setTrafficSplitA(splitA);
+                ab.setTrafficSplitB(100 - splitA);
+                ab.setUpdateTime(LocalDateTime.now());
+                abTestRepository.save(ab);
+            }
+        }
     }
 
     private WorkflowAbTestResponseDTO toResponse(WorkflowAbTest ab) {
@@ -205,6 +282,10 @@ public class WorkflowAbTestServiceImpl implements WorkflowAbTestService {
         dto.setStartTime(ab.getStartTime());
         dto.setEndTime(ab.getEndTime());
         dto.setStatus(ab.getStatus());
+        dto.setAutoSelectEnabled(ab.getAutoSelectEnabled());
+        dto.setMinSamples(ab.getMinSamples());
+        dto.setSelectionCriteria(ab.getSelectionCriteria());
+        dto.setAllocationMode(ab.getAllocationMode());
         dto.setCreatedBy(ab.getCreatedBy());
         dto.setCreateTime(ab.getCreateTime());
         dto.setUpdateTime(ab.getUpdateTime());
@@ -0,0 +1,718 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.WorkflowExecutionConfig;
+import com.sinosoft.testdesign.entity.WorkflowNodeExecution;
+import com.sinosoft.testdesign.repository.WorkflowNodeExecutionRepository;
+import com.sinosoft.testdesign.service.AIServiceClient;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * 工作流DAG执行器
+ * 节点的所有上游结束后才进入就绪队列，互不依赖的分支在有界线程池中并发执行，
+ * 多分支工作流的总耗时接近关键路径耗时而不是所有节点耗时之和。调度本身不阻塞线程，线程池里排队的只有就绪节点。
+ * 输入、转换、条件节点在JVM内执行，只有模型调用节点访问AI服务；依赖数据库的领域节点（需求分析、模板选择、用例保存等）、
+ * 循环节点、表达式条件和有环的图不在这里执行，由调用方整体交给Python工作流引擎。
+ * 每个节点的输入、输出、耗时和状态记录到WorkflowNodeExecution。
+ * 从失败节点恢复时，上次执行成功的节点直接使用检查点输出，不再执行；配置了结果缓存的节点类型（默认模型调用）
+ * 按配置和输入的内容哈希复用以前的输出，输入未变化的节点在重新执行时不会再次调用AI服务。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+public class WorkflowDagExecutor {
+
+    static final String STATUS_RUNNING = "RUNNING";
+    static final String STATUS_SUCCESS = "SUCCESS";
+    static final String STATUS_FAILED = "FAILED";
+    static final String STATUS_SKIPPED = "SKIPPED";
+    static final String STATUS_CANCELLED = "CANCELLED";
+
+    static final String LLM_NODE_TYPE = "llm_call";
+    static final String CONDITION_NODE_TYPE = "condition";
+
+    private static final Set<String> NATIVE_NODE_TYPES = Set.of("input", "requirement_input", "test_case_input",
+            "file_upload", "format_transform", "data_clean", "data_merge", "result_parse",
+            CONDITION_NODE_TYPE, LLM_NODE_TYPE);
+
+    /** 非条件节点：所有出边都生效 */
+    private static final int ALL_BRANCHES = -1;
+    /** 条件节点没有对应分支：所有出边都不生效 */
+    private static final int NO_BRANCH = -2;
+
+    private final AIServiceClient aiServiceClient;
+    private final WorkflowNodeExecutionRepository nodeExecutionRepository;
+    private final ObjectMapper objectMapper;
+    private final WorkflowNodeMemoStore memoStore;
+    private final ThreadPoolExecutor executor;
+    /** 整体交给Python引擎执行的工作流，阻塞等待响应，与节点线程隔离 */
+    private final ThreadPoolExecutor remoteExecutor;
+
+    @Value("${app.ai-service.url:http://localhost:8000}")
+    private String aiServiceUrl;
+
+    public WorkflowDagExecutor(AIServiceClient aiServiceClient,
+                               WorkflowNodeExecutionRepository nodeExecutionRepository,
+                               ObjectMapper objectMapper,
+                               WorkflowNodeMemoStore memoStore,
+                               WorkflowExecutionConfig config) {
+        this.aiServiceClient = aiServiceClient;
+        this.nodeExecutionRepository = nodeExecutionRepository;
+        this.objectMapper = objectMapper;
+        this.memoStore = memoStore;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getPoolSize(), config.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "workflow-node-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        AtomicInteger remoteThreadIndex = new AtomicInteger();
+        this.remoteExecutor = new ThreadPoolExecutor(config.getRemotePoolSize(), config.getRemotePoolSize(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getRemoteQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "workflow-remote-" + remoteThreadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 工作流能否在JVM内执行：配置有效、图无环且所有节点都有Java实现
+     */
+    public boolean supports(CompiledWorkflow workflow) {
+        if (!workflow.isValid() || !workflow.isAcyclic()) {
+            return false;
+        }
+        for (CompiledWorkflow.Node node : workflow.nodes()) {
+            if (!NATIVE_NODE_TYPES.contains(node.type())) {
+                return false;
+            }
+            // 表达式条件依赖Python求值，只支持field/operator/value形式
+            if (node.kind() == CompiledWorkflow.NodeKind.CONDITION
+                    && (node.config().get("condition") != null || node.config().get("condition_expression") != null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 准备一次执行，调用start()后开始调度
+     *
+     * @param listener 节点结束回调，在执行节点的线程上调用
+     */
+    public DagRun prepare(CompiledWorkflow workflow, String executionId, Object inputData, NodeListener listener) {
+        return prepare(workflow, executionId, inputData, RunOptions.defaults(), listener);
+    }
+
+    /**
+     * 按执行选项准备一次执行（恢复执行时传入检查点）
+     *
+     * @param listener 节点结束回调，在执行节点的线程上调用
+     */
+    public DagRun prepare(CompiledWorkflow workflow, String executionId, Object inputData,
+                          RunOptions options, NodeListener listener) {
+        if (!supports(workflow)) {
+            throw new BusinessException("工作流包含无法在JVM内执行的节点或存在环");
+        }
+        return new DagRun(workflow, executionId, inputData, options, listener);
+    }
+
+    /**
+     * 在远程执行线程池中执行整体任务（用于交给Python引擎执行的工作流），不占用节点线程
+     *
+     * @throws BusinessException 等待队列已满
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, remoteExecutor);
+        } catch (RejectedExecutionException e) {
+            throw new BusinessException("工作流执行任务过多，请稍后重试");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        remoteExecutor.shutdownNow();
+    }
+
+    /**
+     * 一次工作流执行的调度状态
+     */
+    public final class DagRun {
+
+        private final CompiledWorkflow workflow;
+        private final String executionId;
+        private final Object inputData;
+        private final RunOptions options;
+        private final NodeListener listener;
+        private final AtomicReferenceArray<NodeOutcome> outcomes;
+        private final AtomicIntegerArray pendingPredecessors;
+        private final AtomicInteger finishedCount = new AtomicInteger();
+        private final CompletableFuture<DagResult> completion = new CompletableFuture<>();
+        private volatile boolean cancelled;
+        private volatile String failedNodeId;
+        private volatile String failureMessage;
+
+        private DagRun(CompiledWorkflow workflow, String executionId, Object inputData,
+                       RunOptions options, NodeListener listener) {
+            this.workflow = workflow;
+            this.executionId = executionId;
+            this.inputData = inputData;
+            this.options = options;
+            this.listener = listener;
+            this.outcomes = new AtomicReferenceArray<>(workflow.size());
+            this.pendingPredecessors = new AtomicIntegerArray(workflow.size());
+            for (int i = 0; i < workflow.size(); i++) {
+                pendingPredecessors.set(i, workflow.predecessors(i).length);
+            }
+        }
+
+        /**
+         * 开始调度没有上游的节点
+         */
+        public void start() {
+            Deque<Integer> ready = new ArrayDeque<>();
+            for (int i = 0; i < workflow.size(); i++) {
+                if (workflow.predecessors(i).length == 0) {
+                    ready.add(i);
+                }
+            }
+            dispatch(ready);
+        }
+
+        /**
+         * 取消执行：运行中的节点执行完，其余节点不再执行并记为SKIPPED
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * 所有节点结束（成功、失败或跳过）后完成
+         */
+        public CompletableFuture<DagResult> completion() {
+            return completion;
+        }
+
+        private void dispatch(Deque<Integer> ready) {
+            while (!ready.isEmpty()) {
+                int index = ready.poll();
+                String skipReason = skipReason(index);
+                if (skipReason != null) {
+                    finish(index, skip(index, skipReason), ready);
+                    continue;
+                }
+                if (options.checkpointOutputs().containsKey(workflow.node(index).id())) {
+                    finish(index, restore(index), ready);
+                    continue;
+                }
+                try {
+                    executor.execute(() -> runNode(index));
+                } catch (RejectedExecutionException e) {
+                    CompiledWorkflow.Node node = workflow.node(index);
+                    log.warn("工作流节点执行队列已满: {}, 节点: {}", executionId, node.id());
+                    markFailed(node, "工作流节点执行队列已满，请稍后重试");
+                    finish(index, NodeOutcome.FAILED, ready);
+                }
+            }
+        }
+
+        private void runNode(int index) {
+            CompiledWorkflow.Node node = workflow.node(index);
+            NodeOutcome outcome = NodeOutcome.FAILED;
+            try {
+                // 排队期间工作流可能已取消或其他分支失败
+                String skipReason = skipReason(index);
+                if (skipReason != null) {
+                    outcome = skip(index, skipReason);
+                    return;
+                }
+                Object input = buildInput(index);
+                WorkflowNodeExecution record = WorkflowNodeExecution.builder()
+                        .executionId(executionId)
+                        .nodeId(node.id())
+                        .nodeType(node.type())
+                        .nodeName(node.name())
+                        .inputData(toJson(input))
+                        .status(STATUS_RUNNING)
+                        .startTime(LocalDateTime.now())
+                        .retryCount(options.retryCounts().getOrDefault(node.id(), 0))
+                        .build();
+                record = nodeExecutionRepository.save(record);
+                long startMillis = System.currentTimeMillis();
+                try {
+                    String memoKey = memoStore.keyFor(node, input);
+                    Object output = options.reuseMemo() ? memoStore.lookup(memoKey).orElse(null) : null;
+                    if (output != null) {
+                        log.debug("复用工作流节点缓存结果: {}, 节点: {}", executionId, node.id());
+                    } else {
+                        output = executeNode(node, input);
+                        memoStore.store(memoKey, node.type(), output);
+                    }
+                    record.setOutputData(toJson(output));
+                    record.setStatus(STATUS_SUCCESS);
+                    outcome = new NodeOutcome(STATUS_SUCCESS, output, chosenBranch(node, output));
+                } catch (Exception e) {
+                    log.warn("工作流节点执行失败: {}, 节点: {}, 错误: {}", executionId, node.id(), e.getMessage());
+                    record.setErrorMessage(e.getMessage());
+                    record.setStatus(STATUS_FAILED);
+                    markFailed(node, e.getMessage());
+                }
+                record.setEndTime(LocalDateTime.now());
+                record.setDuration((int) (System.currentTimeMillis() - startMillis));
+                nodeExecutionRepository.save(record);
+            } catch (Exception e) {
+                log.error("记录工作流节点执行失败: {}, 节点: {}", executionId, node.id(), e);
+                markFailed(node, e.getMessage());
+                outcome = NodeOutcome.FAILED;
+            } finally {
+                Deque<Integer> ready = new ArrayDeque<>();
+                finish(index, outcome, ready);
+                dispatch(ready);
+            }
+        }
+
+        private void finish(int index, NodeOutcome outcome, Deque<Integer> ready) {
+            outcomes.set(index, outcome);
+            for (int next : workflow.successors(index)) {
+                if (pendingPredecessors.decrementAndGet(next) == 0) {
+                    ready.add(next);
+                }
+            }
+            int finished = finishedCount.incrementAndGet();
+            if (listener != null) {
+                try {
+                    listener.onNodeFinished(workflow.node(index).id(), finished, workflow.size());
+                } catch (Exception e) {
+                    log.warn("工作流节点回调失败: {}, 错误: {}", executionId, e.getMessage());
+                }
+            }
+            if (finished == workflow.size()) {
+                completion.complete(result());
+            }
+        }
+
+        /**
+         * 使用检查点输出完成节点，不再执行
+         */
+        private NodeOutcome restore(int index) {
+            CompiledWorkflow.Node node = workflow.node(index);
+            Object output = options.checkpointOutputs().get(node.id());
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                nodeExecutionRepository.save(WorkflowNodeExecution.builder()
+                        .executionId(executionId)
+                        .nodeId(node.id())
+                        .nodeType(node.type())
+                        .nodeName(node.name())
+                        .inputData(toJson(buildInput(index)))
+                        .outputData(toJson(output))
+                        .status(STATUS_SUCCESS)
+                        .startTime(now)
+                        .endTime(now)
+                        .duration(0)
+                        .build());
+            } catch (Exception e) {
+                log.warn("记录恢复的工作流节点失败: {}, 节点: {}, 错误: {}", executionId, node.id(), e.getMessage());
+            }
+            return new NodeOutcome(STATUS_SUCCESS, output, chosenBranch(node, output));
+        }
+
+        private NodeOutcome skip(int index, String reason) {
+            CompiledWorkflow.Node node = workflow.node(index);
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                nodeExecutionRepository.save(WorkflowNodeExecution.builder()
+                        .executionId(executionId)
+                        .nodeId(node.id())
+                        .nodeType(node.type())
+                        .nodeName(node.name())
+                        .status(STATUS_SKIPPED)
+                        .errorMessage(reason)
+                        .startTime(now)
+                        .endTime(now)
+                        .duration(0)
+                        .build());
+            } catch (Exception e) {
+                log.warn("记录跳过的工作流节点失败: {}, 节点: {}, 错误: {}", executionId, node.id(), e.getMessage());
+            }
+            return NodeOutcome.SKIPPED;
+        }
+
+        private void markFailed(CompiledWorkflow.Node node, String message) {
+            synchronized (this) {
+                if (failedNodeId == null) {
+                    failureMessage = message;
+                    failedNodeId = node.id();
+                }
+            }
+        }
+
+        private String skipReason(int index) {
+            if (cancelled) {
+                return "工作流已取消";
+            }
+            if (failedNodeId != null) {
+                return "节点" + failedNodeId + "执行失败";
+            }
+            int[] predecessors = workflow.predecessors(index);
+            if (predecessors.length == 0) {
+                return null;
+            }
+            for (int predecessor : predecessors) {
+                if (edgeActive(predecessor, index)) {
+                    return null;
+                }
+            }
+            return "分支未执行";
+        }
+
+        private boolean edgeActive(int source, int target) {
+            NodeOutcome outcome = outcomes.get(source);
+            return outcome != null && STATUS_SUCCESS.equals(outcome.status())
+                    && (outcome.branchTarget() == ALL_BRANCHES || outcome.branchTarget() == target);
+        }
+
+        /**
+         * 没有上游的节点使用工作流输入；一个生效上游时使用其输出；多个生效上游时按入边顺序组成列表
+         */
+        private Object buildInput(int index) {
+            int[] predecessors = workflow.predecessors(index);
+            if (predecessors.length == 0) {
+                return inputData;
+            }
+            List<Object> inputs = new ArrayList<>();
+            for (int predecessor : predecessors) {
+                if (edgeActive(predecessor, index)) {
+                    inputs.add(outcomes.get(predecessor).output());
+                }
+            }
+            return inputs.size() == 1 ? inputs.get(0) : inputs;
+        }
+
+        /**
+         * 条件节点第一条出边是true分支、第二条是false分支
+         */
+        private int chosenBranch(CompiledWorkflow.Node node, Object output) {
+            if (node.kind() != CompiledWorkflow.NodeKind.CONDITION) {
+                return ALL_BRANCHES;
+            }
+            boolean result = output instanceof Map<?, ?> map && Boolean.TRUE.equals(map.get("condition_result"));
+            int[] successors = workflow.successors(node.index());
+            int branch = result ? 0 : 1;
+            return branch < successors.length ? successors[branch] : NO_BRANCH;
+        }
+
+        /**
+         * 执行结果：只有一个出口节点时为其输出，多个出口节点时为 节点ID -> 输出
+         */
+        private DagResult result() {
+            if (cancelled) {
+                return new DagResult(STATUS_CANCELLED, null, null, "工作流已取消");
+            }
+            if (failedNodeId != null) {
+                return new DagResult(STATUS_FAILED, null, failedNodeId, failureMessage);
+            }
+            Map<String, Object> sinkOutputs = new LinkedHashMap<>();
+            for (int i = 0; i < workflow.size(); i++) {
+                NodeOutcome outcome = outcomes.get(i);
+                if (workflow.successors(i).length == 0 && STATUS_SUCCESS.equals(outcome.status())) {
+                    sinkOutputs.put(workflow.node(i).id(), outcome.output());
+                }
+            }
+            Object output = sinkOutputs.size() == 1 ? sinkOutputs.values().iterator().next() : sinkOutputs;
+            return new DagResult(STATUS_SUCCESS, output, null, null);
+        }
+    }
+
+    private Object executeNode(CompiledWorkflow.Node node, Object input) {
+        return switch (node.type()) {
+            case "input", "format_transform", "data_clean" -> input;
+            case "requirement_input" -> requirementInput(input);
+            case "test_case_input" -> extract(input, "test_case", "testCase");
+            case "file_upload" -> extract(input, "file_path", "filePath");
+            case "data_merge" -> merge(input);
+            case "result_parse" -> parseResult(input, node.config());
+            case CONDITION_NODE_TYPE -> evaluateCondition(input, node.config());
+            case LLM_NODE_TYPE -> callLlm(input, node.config());
+            default -> throw new BusinessException("不支持的节点类型: " + node.type());
+        };
+    }
+
+    private static Object requirementInput(Object input) {
+        if (input instanceof Map<?, ?> map) {
+            Object text = firstPresent(map, "requirement_text", "requirementText");
+            if (text != null) {
+                Map<String, Object> output = new HashMap<>();
+                output.put("requirement_text", text);
+                output.put("requirement_id", firstPresent(map, "requirement_id", "requirementId"));
+                return output;
+            }
+        }
+        if (input instanceof String text) {
+            return Map.of("requirement_text", text);
+        }
+        return input;
+    }
+
+    private static Object extract(Object input, String key, String camelKey) {
+        if (input instanceof Map<?, ?> map) {
+            Object value = firstPresent(map, key, camelKey);
+            if (value != null) {
+                return Map.of(key, value);
+            }
+        }
+        return input;
+    }
+
+    private static Object merge(Object input) {
+        if (!(input instanceof List<?> items)) {
+            return input;
+        }
+        List<Object> merged = new ArrayList<>();
+        for (Object item : items) {
+            if (item instanceof Map<?, ?>) {
+                merged.add(item);
+            } else if (item instanceof Collection<?> collection) {
+                merged.addAll(collection);
+            }
+        }
+        return merged;
+    }
+
+    private static Object parseResult(Object input, Map<String, Object> config) {
+        Map<String, Object> data = requireMap(input);
+        Object content = data.get("content");
+        if (isEmpty(content) && data.get("model_response") instanceof Map<?, ?> response) {
+            content = response.get("content");
+        }
+        if (isEmpty(content)) {
+            throw new BusinessException("缺少content");
+        }
+        Map<String, Object> output = new LinkedHashMap<>(data);
+        if ("case".equals(config.getOrDefault("parse_type", "case"))) {
+            output.put("parsed_data", List.of(Map.of("case_name", "解析的用例", "content", content)));
+        } else {
+            output.put("parsed_data", content);
+        }
+        return output;
+    }
+
+    private static Object evaluateCondition(Object input, Map<String, Object> config) {
+        Object field = config.get("field");
+        String operator = String.valueOf(config.getOrDefault("operator", "eq"));
+        Object value = config.get("value");
+        boolean result = true;
+        if (field != null) {
+            result = input instanceof Map<?, ?> map && map.containsKey(field)
+                    && evaluate(map.get(field), operator, value);
+        }
+        Map<String, Object> output = new LinkedHashMap<>();
+        if (input instanceof Map<?, ?> map) {
+            map.forEach((k, v) -> output.put(String.valueOf(k), v));
+        } else {
+            output.put("data", input);
+        }
+        output.put("condition_result", result);
+        output.put("_condition_metadata", Map.of("condition", field + " " + operator + " " + value, "result", result));
+        return output;
+    }
+
+    private static boolean evaluate(Object actual, String operator, Object expected) {
+        return switch (operator) {
+            case "eq", "==" -> valueEquals(actual, expected);
+            case "ne", "!=" -> !valueEquals(actual, expected);
+            case "gt", ">" -> ordered(actual, expected, c -> c > 0);
+            case "gte", ">=" -> ordered(actual, expected, c -> c >= 0);
+            case "lt", "<" -> ordered(actual, expected, c -> c < 0);
+            case "lte", "<=" -> ordered(actual, expected, c -> c <= 0);
+            case "in" -> contains(expected, actual);
+            case "not_in" -> !(expected instanceof Collection<?> || expected instanceof String) || !contains(expected, actual);
+            case "contains" -> contains(actual, expected);
+            case "is_empty" -> isEmpty(actual);
+            case "is_not_empty" -> !isEmpty(actual);
+            default -> {
+                log.warn("未知的条件操作符: {}", operator);
+                yield true;
+            }
+        };
+    }
+
+    private static boolean valueEquals(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return new BigDecimal(x.toString()).compareTo(new BigDecimal(y.toString())) == 0;
+        }
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * 比较数值或字符串，类型不可比较时为false
+     */
+    private static boolean ordered(Object a, Object b, IntPredicate predicate) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return predicate.test(new BigDecimal(x.toString()).compareTo(new BigDecimal(y.toString())));
+        }
+        if (a instanceof String x && b instanceof String y) {
+            return predicate.test(x.compareTo(y));
+        }
+        return false;
+    }
+
+    private static boolean contains(Object container, Object item) {
+        if (container instanceof Collection<?> collection) {
+            return collection.stream().anyMatch(element -> valueEquals(element, item));
+        }
+        return container instanceof String text && item instanceof String part && text.contains(part);
+    }
+
+    private static boolean isEmpty(Object value) {
+        if (value == null || Boolean.FALSE.equals(value)) {
+            return true;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue() == 0;
+        }
+        if (value instanceof String text) {
+            return text.isBlank();
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.isEmpty();
+        }
+        return value instanceof Map<?, ?> map && map.isEmpty();
+    }
+
+    private Object callLlm(Object input, Map<String, Object> config) {
+        Map<String, Object> data = requireMap(input);
+        Object prompt = data.get("prompt");
+        if (isEmpty(prompt)) {
+            throw new BusinessException("缺少prompt");
+        }
+        Object modelCode = config.get("model_code") != null ? config.get("model_code") : data.get("model_code");
+        if (isEmpty(modelCode)) {
+            throw new BusinessException("缺少model_code");
+        }
+        Map<String, Object> request = new HashMap<>();
+        request.put("model_code", modelCode);
+        request.put("prompt", prompt);
+        request.put("max_tokens", config.get("max_tokens"));
+        request.put("temperature", config.get("temperature"));
+        Map<String, Object> response = aiServiceClient.post(aiServiceUrl + "/api/v1/llm/call", request);
+        if (response == null || "error".equals(response.get("status"))) {
+            throw new BusinessException("模型调用失败: "
+                    + (response != null ? response.get("message") : "AI服务返回空响应"));
+        }
+        Map<String, Object> output = new LinkedHashMap<>(data);
+        output.put("model_response", response);
+        output.put("content", response.getOrDefault("content", ""));
+        return output;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> requireMap(Object input) {
+        if (!(input instanceof Map<?, ?>)) {
+            throw new BusinessException("输入数据格式错误");
+        }
+        return (Map<String, Object>) input;
+    }
+
+    private static Object firstPresent(Map<?, ?> map, String key, String alternativeKey) {
+        Object value = map.get(key);
+        return !isEmpty(value) ? value : map.get(alternativeKey);
+    }
+
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            return String.valueOf(value);
+        }
+    }
+
+    /**
+     * 节点结束回调
+     */
+    @FunctionalInterface
+    public interface NodeListener {
+
+        /**
+         * @param nodeId 结束的节点ID
+         * @param finishedNodes 已结束（含跳过）的节点数
+         * @param totalNodes 节点总数
+         */
+        void onNodeFinished(String nodeId, int finishedNodes, int totalNodes);
+    }
+
+    /**
+     * 节点执行结果
+     *
+     * @param status SUCCESS/FAILED/SKIPPED
+     * @param output 节点输出
+     * @param branchTarget 条件节点选中分支的目标节点下标
+     */
+    private record NodeOutcome(String status, Object output, int branchTarget) {
+        private static final NodeOutcome FAILED = new NodeOutcome(STATUS_FAILED, null, NO_BRANCH);
+        private static final NodeOutcome SKIPPED = new NodeOutcome(STATUS_SKIPPED, null, NO_BRANCH);
+    }
+
+    /**
+     * 执行选项
+     *
+     * @param checkpointOutputs 检查点：节点ID -> 上次执行成功的输出，这些节点不再执行
+     * @param retryCounts 节点ID -> 本次执行记录的重试次数
+     * @param reuseMemo 是否复用节点结果缓存；为false时节点重新执行，输出仍会刷新缓存
+     */
+    public record RunOptions(Map<String, Object> checkpointOutputs, Map<String, Integer> retryCounts,
+                             boolean reuseMemo) {
+
+        public static RunOptions defaults() {
+            return new RunOptions(Map.of(), Map.of(), true);
+        }
+    }
+
+    /**
+     * 工作流执行结果
+     *
+     * @param status SUCCESS/FAILED/CANCELLED
+     * @param output 出口节点输出
+     * @param errorNodeId 失败节点ID
+     * @param errorMessage 错误信息
+     */
+    public record DagResult(String status, Object output, String errorNodeId, String errorMessage) {
+    }
+}
@@ -1,6 +1,5 @@
 package com.sinosoft.testdesign.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sinosoft.testdesign.common.BusinessException;
 import com.sinosoft.testdesign.entity.WorkflowDefinition;
@@ -33,6 +32,7 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
     private final WorkflowDefinitionRepository workflowRepository;
     private final WorkflowVersionRepository versionRepository;
     private final ObjectMapper objectMapper;
+    private final WorkflowPlanCache planCache;
     
     private static final String WORKFLOW_CODE_PREFIX = "WF";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
@@ -40,8 +40,8 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
     @Override
     @Transactional
     public WorkflowDefinition createWorkflow(WorkflowDefinition workflow) {
-        // 验证工作流配置
-        validateWorkflowConfig(workflow.getWorkflowConfig());
+        // 验证工作流配置，编译结果保存后直接放入缓存
+        CompiledWorkflow plan = CompiledWorkflow.compile(workflow.getWorkflowConfig(), objectMapper).requireValid();
         
         // 自动生成工作流代码（如果未提供）
         if (!StringUtils.hasText(workflow.getWorkflowCode())) {
@@ -68,6 +68,7 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
         }
         
         WorkflowDefinition saved = workflowRepository.save(workflow);
+        planCache.put(saved, plan);
         
         // 创建初始版本
         createVersion(saved.getId(), "初始版本");
@@ -87,8 +88,9 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
                 .orElseThrow(() -> new BusinessException("工作流定义不存在"));
         
         // 验证工作流配置
+        CompiledWorkflow plan = null;
         if (workflow.getWorkflowConfig() != null) {
-            validateWorkflowConfig(workflow.getWorkflowConfig());
+            plan = CompiledWorkflow.compile(workflow.getWorkflowConfig(), objectMapper).requireValid();
         }
         
         // 不允许修改工作流代码
@@ -97,12 +99,13 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
             throw new BusinessException("不允许修改工作流代码");
         }
         
-        // 如果配置发生变化，创建新版本
+        // 如果配置发生变化，创建新版本；版本号只由服务端递增，不接受请求中的版本号，
+        // 否则编译结果缓存的（工作流ID, 版本号）会对应到不同的配置
+        Integer newVersion = null;
         if (workflow.getWorkflowConfig() != null 
                 && !workflow.getWorkflowConfig().equals(existing.getWorkflowConfig())) {
             // 版本号自增
-            Integer newVersion = existing.getVersion() + 1;
-            workflow.setVersion(newVersion);
+            newVersion = existing.getVersion() + 1;
             
             // 创建新版本记录
             createVersion(existing.getId(), "更新版本");
@@ -121,8 +124,8 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
         if (workflow.getWorkflowConfig() != null) {
             existing.setWorkflowConfig(workflow.getWorkflowConfig());
         }
-        if (workflow.getVersion() != null) {
-            existing.setVersion(workflow.getVersion());
+        if (newVersion != null) {
+            existing.setVersion(newVersion);
         }
         if (workflow.getIsActive() != null) {
             existing.setIsActive(workflow.getIsActive());
@@ -131,7 +134,12 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
             existing.setIsDefault(workflow.getIsDefault());
         }
         
-        return workflowRepository.save(existing);
+        WorkflowDefinition saved = workflowRepository.save(existing);
+        planCache.invalidate(saved.getId());
+        if (plan != null) {
+            planCache.put(saved, plan);
+        }
+        return saved;
     }
     
     @Override
@@ -169,6 +177,7 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
         // 如果有关联的执行记录，可以阻止删除或软删除
         
         workflowRepository.deleteById(id);
+        planCache.invalidate(id);
         log.info("删除工作流定义成功，ID: {}", id);
     }
     
@@ -204,101 +213,12 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
     
     @Override
     public Map<String, Object> validateWorkflowConfig(String workflowConfig) {
-        Map<String, Object> result = new HashMap<>();
-        List<String> errors = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
-        
-        try {
-            // 解析JSON配置
-            Map<String, Object> config = objectMapper.readValue(workflowConfig, 
-                    new TypeReference<Map<String, Object>>() {});
-            
-            // 验证必需字段
-            if (!config.containsKey("nodes")) {
-                errors.add("缺少必需字段: nodes");
-            }
-            if (!config.containsKey("edges")) {
-                errors.add("缺少必需字段: edges");
-            }
-            
-            // 验证节点
-            if (config.containsKey("nodes")) {
-                Object nodesObj = config.get("nodes");
-                if (nodesObj instanceof List) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> nodes = (List<Map<String, Object>>) nodesObj;
-                    
-                    if (nodes.isEmpty()) {
-                        errors.add("工作流必须至少包含一个节点");
-                    }
-                    
-                    // 检查节点ID唯一性
-                    Set<String> nodeIds = new HashSet<>();
-                    for (Map<String, Object> node : nodes) {
-                        String nodeId = (String) node.get("id");
-                        if (nodeId == null || nodeId.isEmpty()) {
-                            errors.add("节点缺少id字段");
-                        } else if (nodeIds.contains(nodeId)) {
-                            errors.add("节点ID重复: " + nodeId);
-                        } else {
-                            nodeIds.add(nodeId);
-                        }
-                        
-                        // 验证节点类型
-                        String nodeType = (String) node.get("type");
-                        if (nodeType == null || nodeType.isEmpty()) {
-                            errors.add("节点缺少type字段: " + nodeId);
-                        }
-                    }
-                } else {
-                    errors.add("nodes字段必须是数组");
-                }
-            }
-            
-            // 验证边
-            if (config.containsKey("edges")) {
-                Object edgesObj = config.get("edges");
-                if (edgesObj instanceof List) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> edges = (List<Map<String, Object>>) edgesObj;
-                    
-                    // 检查边的source和target是否存在于nodes中
-                    if (config.containsKey("nodes")) {
-                        @SuppressWarnings("unchecked")
-                        List<Map<String, Object>> nodes = (List<Map<String, Object>>) config.get("nodes");
-                        Set<String> nodeIds = new HashSet<>();
-                        for (Map<String, Object> node : nodes) {
-                            nodeIds.add((String) node.get("id"));
-                        }
-                        
-                        for (Map<String, Object> edge : edges) {
-                            String source = (String) edge.get("source");
-                            String target = (String) edge.get("target");
-                            
-                            if (source == null || target == null) {
-                                errors.add("边缺少source或target字段");
-                            } else {
-                                if (!nodeIds.contains(source)) {
-                                    errors.add("边的source节点不存在: " + source);
-                                }
-                                if (!nodeIds.contains(target)) {
-                                    errors.add("边的target节点不存在: " + target);
-                                }
-                            }
-                        }
-                    }
-                } else {
-                    errors.add("edges字段必须是数组");
-                }
-            }
-            
-        } catch (Exception e) {
-            errors.add("工作流配置JSON格式错误: " + e.getMessage());
-        }
+        CompiledWorkflow plan = CompiledWorkflow.compile(workflowConfig, objectMapper);
         
-        result.put("valid", errors.isEmpty());
-        result.put("errors", errors);
-        result.put("warnings", warnings);
+        Map<String, Object> result = new HashMap<>();
+        result.put("valid", plan.isValid());
+        result.put("errors", new ArrayList<>(plan.errors()));
+        result.put("warnings", new ArrayList<>(plan.warnings()));
         
         return result;
     }
@@ -348,7 +268,9 @@ public class WorkflowDefinitionServiceImpl implements WorkflowDefinitionService
         workflow.setWorkflowConfig(targetVersion.getWorkflowConfig());
         workflow.setVersion(workflow.getVersion() + 1);
         
-        return workflowRepository.save(workflow);
+        WorkflowDefinition saved = workflowRepository.save(workflow);
+        planCache.invalidate(workflowId);
+        return saved;
     }
     
     /**
@@ -0,0 +1,52 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.service.JobHandler;
+import com.sinosoft.testdesign.service.JobQueueService;
+import com.sinosoft.testdesign.service.WorkflowExecutionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 工作流执行任务处理器
+ * 业务主键是执行ID，任务参数是是否复用节点缓存和恢复的原执行ID；执行已结束或已取消时不再执行。
+ * 节点失败是执行结果而不是任务失败，执行记为FAILED后任务正常结束，由用户从失败节点恢复；
+ * 执行实例宕机时任务在租约过期后被重新领取，从本执行已成功的节点继续，达到最大次数后执行记为FAILED
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkflowExecutionJobHandler implements JobHandler {
+
+    private final WorkflowExecutionService executionService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String jobType() {
+        return JobQueueService.JOB_WORKFLOW_EXECUTION;
+    }
+
+    @Override
+    public void handle(AsyncJob job) throws Exception {
+        Payload payload = job.getPayload() != null
+                ? objectMapper.readValue(job.getPayload(), Payload.class) : new Payload(true, null);
+        executionService.runExecution(job.getBusinessKey(), payload.reuseMemo(), payload.resumedFrom());
+    }
+
+    @Override
+    public void onGiveUp(AsyncJob job, String error) {
+        executionService.failExecution(job.getBusinessKey(), error);
+    }
+
+    /**
+     * 任务参数
+     *
+     * @param reuseMemo 是否复用节点结果缓存
+     * @param resumedFrom 恢复的原执行ID，不是恢复执行时为null
+     */
+    record Payload(boolean reuseMemo, String resumedFrom) {
+    }
+}
@@ -1,26 +1,41 @@
 package com.sinosoft.testdesign.service.impl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
 import com.sinosoft.testdesign.entity.WorkflowDefinition;
 import com.sinosoft.testdesign.entity.WorkflowExecution;
+import com.sinosoft.testdesign.entity.WorkflowNodeExecution;
 import com.sinosoft.testdesign.repository.WorkflowDefinitionRepository;
 import com.sinosoft.testdesign.repository.WorkflowExecutionRepository;
+import com.sinosoft.testdesign.repository.WorkflowNodeExecutionRepository;
+import com.sinosoft.testdesign.service.JobQueueService;
 import com.sinosoft.testdesign.service.WorkflowExecutionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 工作流执行服务实现
+ * 工作流配置编译为DAG后由WorkflowDagExecutor在有界线程池中调度，互不依赖的分支并发执行，
+ * 只有模型调用节点访问AI服务；包含Python专有节点的工作流整体交给Python工作流引擎。
+ * 执行记录和后台任务（WORKFLOW_EXECUTION）在同一事务中写入，由任意实例的任务队列工作线程领取执行；
+ * 执行实例宕机后任务在租约过期时被重新领取，本执行中已成功的节点作为检查点不再执行，
+ * 达到最大重试次数后执行记为FAILED。
+ * 失败或取消的执行可以从失败节点恢复：已成功节点的输出作为检查点，只重新执行其余节点。
+ * 执行状态以数据库为准：取消和写入结果都是带状态条件的更新，任意实例都可以取消执行；
+ * 执行所在实例在节点结束更新进度时发现执行已不在运行中，即停止调度后续节点。
  * 
  * @author sinosoft
  * @date 2026-01-26
@@ -32,19 +47,33 @@ public class WorkflowExecutionServiceImpl implements WorkflowExecutionService {
     
     private final WorkflowDefinitionRepository workflowRepository;
     private final WorkflowExecutionRepository executionRepository;
+    private final WorkflowNodeExecutionRepository nodeExecutionRepository;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final WorkflowDagExecutor dagExecutor;
+    private final WorkflowPlanCache planCache;
+    private final JobQueueService jobQueueService;
+    
+    /** 未结束的执行状态 */
+    private static final Set<String> ACTIVE_STATUSES = Set.of("PENDING", "RUNNING");
+    
+    /** 执行ID -> 正在JVM内调度的执行，用于取消 */
+    private final Map<String, WorkflowDagExecutor.DagRun> activeRuns = new ConcurrentHashMap<>();
     
     @Value("${app.ai-service.url:http://localhost:8000}")
     private String aiServiceUrl;
     
+    /**
+     * 执行记录和后台任务一起提交，由任务队列工作线程开始调度
+     */
     @Override
     @Transactional
     public WorkflowExecution executeWorkflow(
             Long workflowId,
             Map<String, Object> inputData,
             Long creatorId,
-            String creatorName) {
+            String creatorName,
+            boolean reuseMemo) {
         
         // 查询工作流定义
         WorkflowDefinition workflow = workflowRepository.findById(workflowId)
@@ -54,6 +83,9 @@ public class WorkflowExecutionServiceImpl implements WorkflowExecutionService {
             throw new IllegalArgumentException("工作流未启用: " + workflow.getWorkflowCode());
         }
         
+        // 同一版本的工作流只编译一次
+        CompiledWorkflow compiled = planCache.get(workflow).requireValid();
+        
         // 生成执行ID
         String executionId = "EXEC-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8);
         
@@ -74,6 +106,7 @@ public class WorkflowExecutionServiceImpl implements WorkflowExecutionService {
                 .inputData(inputDataJson)
                 .status("PENDING")
                 .progress(0)
+                .startTime(LocalDateTime.now())
                 .creatorId(creatorId)
                 .creatorName(creatorName)
                 .createTime(LocalDateTime.now())
@@ -81,80 +114,285 @@ public class WorkflowExecutionServiceImpl implements WorkflowExecutionService {
         
         execution = executionRepository.save(execution);
         
-        // 异步执行工作流
-        executeWorkflowAsync(execution, workflow, inputData);
+        // 提交到后台任务队列，与执行记录在同一事务中写入
+        jobQueueService.enqueue(JobQueueService.JOB_WORKFLOW_EXECUTION, executionId,
+                new WorkflowExecutionJobHandler.Payload(reuseMemo, null), JobQueueService.PRIORITY_INTERACTIVE);
         
         return execution;
     }
     
-    @Async
+    /**
+     * 以原执行的输入创建新的执行，原执行中成功节点的输出作为检查点不再执行，
+     * 失败节点和之后未执行的节点重新执行，失败节点的重试次数加1
+     */
+    @Override
     @Transactional
-    public void executeWorkflowAsync(
+    public WorkflowExecution resumeExecution(String executionId, Long creatorId, String creatorName) {
+        WorkflowExecution original = executionRepository.findByExecutionId(executionId)
+                .orElseThrow(() -> new IllegalArgumentException("执行记录不存在: " + executionId));
+        
+        if (!"FAILED".equals(original.getStatus()) && !"CANCELLED".equals(original.getStatus())) {
+            throw new IllegalArgumentException("只能恢复FAILED或CANCELLED状态的执行");
+        }
+        
+        WorkflowDefinition workflow = workflowRepository.findById(original.getWorkflowId())
+                .orElseThrow(() -> new IllegalArgumentException("工作流定义不存在: " + original.getWorkflowId()));
+        
+        // 检查点只对产生它的工作流版本有效
+        if (!Objects.equals(workflow.getVersion(), original.getWorkflowVersion())) {
+            throw new IllegalArgumentException("工作流已更新到版本" + workflow.getVersion() + "，请重新执行");
+        }
+        
+        CompiledWorkflow compiled = planCache.get(workflow).requireValid();
+        if (!dagExecutor.supports(compiled)) {
+            throw new IllegalArgumentException("由Python工作流引擎执行的工作流不支持从失败节点恢复，请重新执行");
+        }
+        
+        Map<String, Object> checkpointOutputs = new HashMap<>();
+        collectCheckpoints(executionId, checkpointOutputs, new HashMap<>());
+        
+        String newExecutionId = "EXEC-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        String executionLog;
+        try {
+            executionLog = objectMapper.writeValueAsString(Map.of(
+                    "resumed_from", executionId, "checkpoint_nodes", checkpointOutputs.keySet()));
+        } catch (Exception e) {
+            executionLog = null;
+        }
+        
+        WorkflowExecution execution = WorkflowExecution.builder()
+                .executionId(newExecutionId)
+                .workflowId(workflow.getId())
+                .workflowCode(workflow.getWorkflowCode())
+                .workflowVersion(workflow.getVersion())
+                .executionType("RESUME")
+                .inputData(original.getInputData())
+                .executionLog(executionLog)
+                .status("PENDING")
+                .progress(0)
+                .startTime(LocalDateTime.now())
+                .creatorId(creatorId)
+                .creatorName(creatorName)
+                .createTime(LocalDateTime.now())
+                .build();
+        
+        execution = executionRepository.save(execution);
+        
+        // 检查点在开始执行时按原执行的节点记录重新读取
+        jobQueueService.enqueue(JobQueueService.JOB_WORKFLOW_EXECUTION, newExecutionId,
+                new WorkflowExecutionJobHandler.Payload(true, executionId), JobQueueService.PRIORITY_INTERACTIVE);
+        
+        log.info("从失败节点恢复工作流执行: {} -> {}, 检查点节点数: {}",
+                executionId, newExecutionId, checkpointOutputs.size());
+        return execution;
+    }
+    
+    @Override
+    public void runExecution(String executionId, boolean reuseMemo, String resumedFrom) {
+        WorkflowExecution execution = executionRepository.findByExecutionId(executionId).orElse(null);
+        if (execution == null || !ACTIVE_STATUSES.contains(execution.getStatus())) {
+            log.info("工作流执行不存在或已结束，跳过: {}", executionId);
+            return;
+        }
+        // 排队的执行只有在这里才会改为RUNNING，仍为RUNNING说明上次领取任务的实例已中断
+        boolean interrupted = "RUNNING".equals(execution.getStatus());
+        
+        WorkflowDefinition workflow = workflowRepository.findById(execution.getWorkflowId()).orElse(null);
+        if (workflow == null) {
+            failExecution(executionId, "工作流定义不存在: " + execution.getWorkflowId());
+            return;
+        }
+        // 检查点只对产生它的工作流版本有效，排队期间工作流被修改时不执行
+        if (!Objects.equals(workflow.getVersion(), execution.getWorkflowVersion())) {
+            failExecution(executionId, "工作流已更新到版本" + workflow.getVersion() + "，请重新执行");
+            return;
+        }
+        CompiledWorkflow compiled;
+        Map<String, Object> inputData;
+        try {
+            compiled = planCache.get(workflow).requireValid();
+            inputData = execution.getInputData() != null
+                    ? objectMapper.readValue(execution.getInputData(), new TypeReference<Map<String, Object>>() {}) : Map.of();
+        } catch (Exception e) {
+            failExecution(executionId, e.getMessage());
+            return;
+        }
+        if (executionRepository.startIfActive(executionId) == 0) {
+            log.info("工作流执行已取消，跳过: {}", executionId);
+            return;
+        }
+        execution.setStatus("RUNNING");
+        
+        Map<String, Object> checkpointOutputs = new HashMap<>();
+        Map<String, Integer> retryCounts = new HashMap<>();
+        if (resumedFrom != null) {
+            collectCheckpoints(resumedFrom, checkpointOutputs, retryCounts);
+        }
+        if (interrupted) {
+            nodeExecutionRepository.failRunningNodes(executionId, "执行实例中断", LocalDateTime.now());
+            collectCheckpoints(executionId, checkpointOutputs, retryCounts);
+            log.warn("继续执行中断的工作流: {}, 检查点节点数: {}", executionId, checkpointOutputs.size());
+        }
+        
+        startExecution(execution, workflow, compiled, inputData,
+                new WorkflowDagExecutor.RunOptions(checkpointOutputs, retryCounts, reuseMemo)).join();
+    }
+    
+    @Override
+    public void failExecution(String executionId, String errorMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        if (executionRepository.failIfActive(executionId, errorMessage, now) > 0) {
+            nodeExecutionRepository.failRunningNodes(executionId, errorMessage, now);
+            log.warn("工作流执行失败: {}, 原因: {}", executionId, errorMessage);
+        }
+    }
+    
+    /**
+     * 读取执行中已成功节点的输出作为检查点，失败节点的重试次数加1
+     */
+    private void collectCheckpoints(String executionId, Map<String, Object> checkpointOutputs,
+                                    Map<String, Integer> retryCounts) {
+        for (WorkflowNodeExecution nodeExecution : nodeExecutionRepository.findByExecutionIdOrderByCreateTimeAsc(executionId)) {
+            if ("SUCCESS".equals(nodeExecution.getStatus())) {
+                try {
+                    checkpointOutputs.put(nodeExecution.getNodeId(), nodeExecution.getOutputData() != null
+                            ? objectMapper.readValue(nodeExecution.getOutputData(), Object.class) : null);
+                } catch (Exception e) {
+                    // 输出无法解析的节点重新执行
+                    log.warn("解析节点检查点失败: {}, 节点: {}", executionId, nodeExecution.getNodeId());
+                }
+            } else if ("FAILED".equals(nodeExecution.getStatus())) {
+                int retryCount = nodeExecution.getRetryCount() != null ? nodeExecution.getRetryCount() : 0;
+                retryCounts.merge(nodeExecution.getNodeId(), retryCount + 1, Math::max);
+            }
+        }
+    }
+    
+    /**
+     * 在节点线程池中执行工作流：可在JVM内执行的按DAG并发调度，其余整体交给Python工作流引擎
+     * 
+     * @return 执行结果写入后完成
+     */
+    private CompletableFuture<Void> startExecution(
             WorkflowExecution execution,
             WorkflowDefinition workflow,
-            Map<String, Object> inputData) {
+            CompiledWorkflow compiled,
+            Map<String, Object> inputData,
+            WorkflowDagExecutor.RunOptions options) {
         
+        String executionId = execution.getExecutionId();
+        Long workflowId = workflow.getId();
         long startTime = System.currentTimeMillis();
-        execution.setStatus("RUNNING");
-        execution.setStartTime(LocalDateTime.now());
-        executionRepository.save(execution);
-        
+        CompletableFuture<WorkflowDagExecutor.DagResult> completion;
         try {
-            // 调用Python服务执行工作流
-            String url = aiServiceUrl + "/api/v1/workflow/execute";
-            Map<String, Object> request = new HashMap<>();
-            request.put("workflow_config", workflow.getWorkflowConfig());
-            request.put("input_data", inputData);
-            request.put("workflow_id", workflow.getId());
-            request.put("workflow_code", workflow.getWorkflowCode());
-            request.put("workflow_version", workflow.getVersion());
-            
-            Map<String, Object> response = restTemplate.postForObject(url, request, Map.class);
-            
-            if (response == null) {
-                throw new RuntimeException("Python服务返回空响应");
+            if (dagExecutor.supports(compiled)) {
+                WorkflowDagExecutor.DagRun run = dagExecutor.prepare(compiled, executionId, inputData, options,
+                        (nodeId, finishedNodes, totalNodes) -> {
+                            if (executionRepository.updateProgress(
+                                    executionId, finishedNodes * 100 / totalNodes, nodeId) == 0) {
+                                // 执行已在其他实例上被取消
+                                cancelLocalRun(executionId);
+                            }
+                        });
+                activeRuns.put(executionId, run);
+                run.start();
+                completion = run.completion();
+            } else {
+                // 包含依赖数据库的领域节点、循环节点或表达式条件
+                completion = dagExecutor.submit(() -> executeRemotely(workflow, inputData));
             }
-            
-            String status = (String) response.get("status");
-            long duration = System.currentTimeMillis() - startTime;
-            
-            execution.setStatus("success".equals(status) ? "SUCCESS" : "FAILED");
-            execution.setProgress(100);
+        } catch (BusinessException e) {
+            activeRuns.remove(executionId);
+            execution.setStatus("FAILED");
+            execution.setErrorMessage(e.getMessage());
             execution.setEndTime(LocalDateTime.now());
-            execution.setDuration((int) duration);
-            
-            if (response.containsKey("output")) {
-                try {
-                    execution.setOutputData(objectMapper.writeValueAsString(response.get("output")));
-                } catch (Exception e) {
-                    log.warn("序列化输出数据失败", e);
+            executionRepository.save(execution);
+            throw e;
+        }
+        return completion.handle((result, error) -> {
+            finishExecution(executionId, workflowId, result, error, startTime);
+            return null;
+        });
+    }
+    
+    /**
+     * 调用Python服务执行整个工作流
+     */
+    private WorkflowDagExecutor.DagResult executeRemotely(WorkflowDefinition workflow, Map<String, Object> inputData) {
+        String url = aiServiceUrl + "/api/v1/workflow/execute";
+        Map<String, Object> request = new HashMap<>();
+        request.put("workflow_config", workflow.getWorkflowConfig());
+        request.put("input_data", inputData);
+        request.put("workflow_id", workflow.getId());
+        request.put("workflow_code", workflow.getWorkflowCode());
+        request.put("workflow_version", workflow.getVersion());
+        
+        Map<String, Object> response = restTemplate.postForObject(url, request, Map.class);
+        
+        if (response == null) {
+            throw new RuntimeException("Python服务返回空响应");
+        }
+        
+        String status = "success".equals(response.get("status")) ? "SUCCESS" : "FAILED";
+        return new WorkflowDagExecutor.DagResult(status, response.get("output"),
+                (String) response.get("error_node"), (String) response.get("error"));
+    }
+    
+    /**
+     * 写入执行结果；执行已被取消时保留取消状态，也不计入工作流的执行统计
+     */
+    private void finishExecution(
+            String executionId,
+            Long workflowId,
+            WorkflowDagExecutor.DagResult result,
+            Throwable error,
+            long startTime) {
+        
+        activeRuns.remove(executionId);
+        try {
+            long duration = System.currentTimeMillis() - startTime;
+            String status;
+            Integer progress = null;
+            String outputData = null;
+            String errorMessage;
+            String errorNodeId = null;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                status = "FAILED";
+                errorMessage = cause.getMessage();
+                log.error("工作流执行失败: {}", executionId, cause);
+            } else {
+                status = result.status();
+                errorMessage = result.errorMessage();
+                errorNodeId = result.errorNodeId();
+                if ("SUCCESS".equals(status)) {
+                    progress = 100;
+                }
+                if (result.output() != null) {
+                    try {
+                        outputData = objectMapper.writeValueAsString(result.output());
+                    } catch (Exception e) {
+                        log.warn("序列化输出数据失败", e);
+                    }
                 }
             }
-            
-            if (response.containsKey("error")) {
-                execution.setErrorMessage((String) response.get("error"));
-                execution.setErrorNodeId((String) response.get("error_node"));
+            if (executionRepository.finishIfRunning(executionId, status, progress, outputData, errorMessage,
+                    errorNodeId, LocalDateTime.now(), (int) duration) == 0) {
+                log.info("工作流执行已取消: {}", executionId);
+                return;
             }
             
-            executionRepository.save(execution);
-            
             // 更新工作流定义的执行统计
-            workflow.setLastExecutionTime(LocalDateTime.now());
-            workflow.setExecutionCount(workflow.getExecutionCount() + 1);
-            workflowRepository.save(workflow);
-            
-            log.info("工作流执行完成: {}, 状态: {}, 耗时: {}ms", 
-                    execution.getExecutionId(), execution.getStatus(), duration);
+            workflowRepository.findById(workflowId).ifPresent(workflow -> {
+                workflow.setLastExecutionTime(LocalDateTime.now());
+                workflow.setExecutionCount(workflow.getExecutionCount() + 1);
+                workflowRepository.save(workflow);
+            });
             
+            log.info("工作流执行完成: {}, 状态: {}, 耗时: {}ms", executionId, status, duration);
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            execution.setStatus("FAILED");
-            execution.setErrorMessage(e.getMessage());
-            execution.setEndTime(LocalDateTime.now());
-            execution.setDuration((int) duration);
-            executionRepository.save(execution);
-            
-            log.error("工作流执行失败: {}", execution.getExecutionId(), e);
+            log.error("更新工作流执行结果失败: {}", executionId, e);
         }
     }
     
@@ -183,20 +421,33 @@ public class WorkflowExecutionServiceImpl implements WorkflowExecutionService {
         return executionRepository.findAll(pageable);
     }
     
+    /**
+     * 执行可能在其他实例上调度：只在数据库中改为CANCELLED，执行所在实例在下一个节点结束时停止调度；
+     * 执行在本实例上时立即停止调度。交给Python引擎的执行无法中断，返回的结果不再写入
+     */
     @Override
-    @Transactional
     public WorkflowExecution cancelExecution(String executionId) {
         WorkflowExecution execution = executionRepository.findByExecutionId(executionId)
                 .orElseThrow(() -> new IllegalArgumentException("执行记录不存在: " + executionId));
         
-        if (!"PENDING".equals(execution.getStatus()) && !"RUNNING".equals(execution.getStatus())) {
+        LocalDateTime endTime = LocalDateTime.now();
+        if (executionRepository.cancelIfActive(executionId, endTime) == 0) {
             throw new IllegalArgumentException("只能取消PENDING或RUNNING状态的执行");
         }
         
-        execution.setStatus("CANCELLED");
-        execution.setEndTime(LocalDateTime.now());
+        // 运行中的节点执行完，其余节点不再调度
+        cancelLocalRun(executionId);
         
-        return executionRepository.save(execution);
+        execution.setStatus("CANCELLED");
+        execution.setEndTime(endTime);
+        return execution;
+    }
+    
+    private void cancelLocalRun(String executionId) {
+        WorkflowDagExecutor.DagRun run = activeRuns.remove(executionId);
+        if (run != null) {
+            run.cancel();
+        }
     }
     
     @Override
@@ -0,0 +1,128 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sinosoft.testdesign.config.WorkflowNodeMemoConfig;
+import com.sinosoft.testdesign.entity.WorkflowNodeMemo;
+import com.sinosoft.testdesign.repository.WorkflowNodeMemoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * 工作流节点结果缓存
+ * 缓存键是（节点类型, 节点配置, 节点输入）规范化JSON（Map按键排序）的SHA-256，与工作流ID和执行ID无关：
+ * 同一工作流重新执行、A/B测试的不同版本共用未修改的节点时，输入相同的节点直接复用已保存的输出。
+ * 缓存读写失败只记日志，节点照常执行。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+public class WorkflowNodeMemoStore {
+
+    private final WorkflowNodeMemoRepository memoRepository;
+    private final WorkflowNodeMemoConfig config;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter canonicalWriter;
+
+    public WorkflowNodeMemoStore(WorkflowNodeMemoRepository memoRepository,
+                                 WorkflowNodeMemoConfig config,
+                                 ObjectMapper objectMapper) {
+        this.memoRepository = memoRepository;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    /**
+     * 计算节点的缓存键
+     *
+     * @return 十六进制哈希，未启用缓存、节点类型不缓存或输入无法序列化时返回null
+     */
+    public String keyFor(CompiledWorkflow.Node node, Object input) {
+        if (!config.isEnabled() || !config.getNodeTypes().contains(node.type())) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(node.type().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(canonicalWriter.writeValueAsBytes(node.config()));
+            digest.update((byte) 0);
+            digest.update(canonicalWriter.writeValueAsBytes(input));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            log.debug("节点输入无法序列化，不使用缓存: {}, 错误: {}", node.id(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 查找未过期的缓存结果，命中时延长保留时间
+     */
+    public Optional<Object> lookup(String memoKey) {
+        if (memoKey == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<WorkflowNodeMemo> memo = memoRepository.findByMemoKey(memoKey);
+            if (memo.isEmpty() || memo.get().getOutputData() == null || expired(memo.get())) {
+                return Optional.empty();
+            }
+            Object output = objectMapper.readValue(memo.get().getOutputData(), Object.class);
+            memoRepository.recordHit(memoKey, LocalDateTime.now());
+            return Optional.ofNullable(output);
+        } catch (Exception e) {
+            log.warn("读取工作流节点缓存失败: {}, 错误: {}", memoKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 保存节点输出，已有同键缓存（如已过期未清理）时覆盖
+     */
+    public void store(String memoKey, String nodeType, Object output) {
+        if (memoKey == null || output == null) {
+            return;
+        }
+        try {
+            String outputData = objectMapper.writeValueAsString(output);
+            WorkflowNodeMemo memo = memoRepository.findByMemoKey(memoKey)
+                    .orElseGet(() -> WorkflowNodeMemo.builder().memoKey(memoKey).nodeType(nodeType).build());
+            memo.setOutputData(outputData);
+            memo.setLastHitTime(LocalDateTime.now());
+            memoRepository.save(memo);
+        } catch (DataIntegrityViolationException e) {
+            // 并发执行的相同节点已写入
+            log.debug("工作流节点缓存已存在: {}", memoKey);
+        } catch (Exception e) {
+            log.warn("保存工作流节点缓存失败: {}, 错误: {}", memoKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 清理超过保留时间没有写入或命中的缓存
+     *
+     * @return 清理条数
+     */
+    public int purgeExpired() {
+        return memoRepository.deleteByLastHitTimeBefore(LocalDateTime.now().minusHours(config.getTtlHours()));
+    }
+
+    private boolean expired(WorkflowNodeMemo memo) {
+        return memo.getLastHitTime() != null
+                && memo.getLastHitTime().isBefore(LocalDateTime.now().minusHours(config.getTtlHours()));
+    }
+}
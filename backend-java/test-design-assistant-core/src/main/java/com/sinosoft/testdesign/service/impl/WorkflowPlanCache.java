@@ -0,0 +1,111 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.entity.WorkflowDefinition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 工作流编译结果缓存
+ * 按（工作流ID, 版本号）缓存CompiledWorkflow，高频执行的工作流不再重复解析配置JSON。
+ * 命中时还会核对配置文本是否相同（先比较引用和长度，开销远小于解析），
+ * 保存失败回滚等导致版本号与配置不一致时不会返回过期的编译结果。
+ * 保存或删除工作流时的缓存写入和清除在事务提交后执行，提交前并发执行读到的旧配置不会在提交后继续留在缓存中。
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkflowPlanCache {
+
+    /** 缓存的编译结果上限 */
+    private static final int MAX_CACHED_PLANS = 512;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<PlanKey, CachedPlan> plans = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PlanKey, CachedPlan> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    };
+
+    /**
+     * 获取工作流当前版本的编译结果，未缓存时编译并缓存
+     *
+     * @return 编译结果，配置有错误时也会返回（由调用方决定是否requireValid()）
+     */
+    public CompiledWorkflow get(WorkflowDefinition workflow) {
+        PlanKey key = new PlanKey(workflow.getId(), workflow.getVersion());
+        String config = workflow.getWorkflowConfig();
+        CachedPlan cached;
+        synchronized (plans) {
+            cached = plans.get(key);
+        }
+        if (cached != null && cached.matches(config)) {
+            return cached.plan();
+        }
+        CompiledWorkflow plan = CompiledWorkflow.compile(config, objectMapper);
+        put(workflow, plan);
+        log.debug("编译工作流: {}, 版本: {}", workflow.getId(), workflow.getVersion());
+        return plan;
+    }
+
+    /**
+     * 缓存已编译的结果（如保存前校验时编译的结果），在事务中调用时提交后写入
+     */
+    public void put(WorkflowDefinition workflow, CompiledWorkflow plan) {
+        if (workflow.getId() == null || workflow.getVersion() == null) {
+            return;
+        }
+        PlanKey key = new PlanKey(workflow.getId(), workflow.getVersion());
+        CachedPlan cached = new CachedPlan(workflow.getWorkflowConfig(), plan);
+        afterCommit(() -> {
+            synchronized (plans) {
+                plans.put(key, cached);
+            }
+        });
+    }
+
+    /**
+     * 清除工作流所有版本的编译结果，在事务中调用时提交后清除
+     */
+    public void invalidate(Long workflowId) {
+        afterCommit(() -> {
+            synchronized (plans) {
+                plans.keySet().removeIf(key -> key.workflowId().equals(workflowId));
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record PlanKey(Long workflowId, Integer version) {
+    }
+
+    private record CachedPlan(String config, CompiledWorkflow plan) {
+
+        private boolean matches(String other) {
+            return config == other || (config != null && config.equals(other));
+        }
+    }
+}
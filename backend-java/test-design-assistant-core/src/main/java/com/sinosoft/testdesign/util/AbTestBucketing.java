@@ -0,0 +1,116 @@
+package com.sinosoft.testdesign.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A/B测试流量分桶
+ * 以A/B测试ID为种子，对分流键（用户ID或请求ID）计算MurmurHash3（32位）后映射到[0, 10000)的桶，
+ * 桶号小于"版本A流量百分比 × 100"的分到版本A。同一用户在同一测试中始终落在同一版本，
+ * 不同测试之间的分桶相互独立。计算过程不分配对象，也没有共享的随机数生成器。
+ *
+ * @author sinosoft
+ * @date 2026-02-05
+ */
+public final class AbTestBucketing {
+
+    public static final String VARIANT_A = "A";
+    public static final String VARIANT_B = "B";
+
+    /** 桶总数，流量百分比精度为0.01% */
+    public static final int BUCKETS = 10000;
+
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private AbTestBucketing() {
+    }
+
+    /**
+     * 按用户ID分流
+     *
+     * @param abTestId A/B测试ID
+     * @param userId 用户ID
+     * @param trafficSplitA 版本A流量百分比（0-100）
+     * @return "A"或"B"
+     */
+    public static String selectVariant(long abTestId, long userId, int trafficSplitA) {
+        return variantOf(bucket(abTestId, userId), trafficSplitA);
+    }
+
+    /**
+     * 按字符串键（如请求ID）分流，键为空时随机分流
+     *
+     * @param abTestId A/B测试ID
+     * @param key 分流键
+     * @param trafficSplitA 版本A流量百分比（0-100）
+     * @return "A"或"B"
+     */
+    public static String selectVariant(long abTestId, CharSequence key, int trafficSplitA) {
+        int bucket = key == null || key.length() == 0
+                ? ThreadLocalRandom.current().nextInt(BUCKETS)
+                : bucket(abTestId, key);
+        return variantOf(bucket, trafficSplitA);
+    }
+
+    /**
+     * 计算字符串键所在的桶：每两个UTF-16字符组成一个32位块
+     */
+    public static int bucket(long abTestId, CharSequence key) {
+        int h1 = seed(abTestId);
+        int length = key.length();
+        int i = 1;
+        for (; i < length; i += 2) {
+            int k1 = key.charAt(i - 1) | (key.charAt(i) << 16);
+            h1 = mixH1(h1, mixK1(k1));
+        }
+        if ((length & 1) == 1) {
+            h1 ^= mixK1(key.charAt(length - 1));
+        }
+        return toBucket(fmix(h1, 2 * length));
+    }
+
+    /**
+     * 计算数值键所在的桶：按低32位、高32位两个块处理
+     */
+    public static int bucket(long abTestId, long key) {
+        int h1 = seed(abTestId);
+        h1 = mixH1(h1, mixK1((int) key));
+        h1 = mixH1(h1, mixK1((int) (key >>> 32)));
+        return toBucket(fmix(h1, 8));
+    }
+
+    private static String variantOf(int bucket, int trafficSplitA) {
+        return bucket < trafficSplitA * (BUCKETS / 100) ? VARIANT_A : VARIANT_B;
+    }
+
+    private static int seed(long abTestId) {
+        return (int) (abTestId ^ (abTestId >>> 32));
+    }
+
+    private static int toBucket(int hash) {
+        return (int) ((hash & 0xffffffffL) % BUCKETS);
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    private static int fmix(int h1, int length) {
+        h1 ^= length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+}
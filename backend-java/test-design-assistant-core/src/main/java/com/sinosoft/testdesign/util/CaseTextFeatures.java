@@ -0,0 +1,97 @@
+package com.sinosoft.testdesign.util;
+
+/**
+ * 用例文本特征
+ * 用例质量评分需要的文本特征（去首尾空白后的长度、换行、步骤编号、动作动词、ASCII符号数等）在一次线性扫描中全部得出，
+ * 不使用".*x.*"形式的正则：这类正则每次调用都重新编译，长文本上会大量回溯，且"."不匹配换行，多行文本永远不命中。
+ *
+ * @param trimmedLength 去掉首尾空白（与String.trim()一致）后的长度
+ * @param hasLineBreak 是否包含换行
+ * @param hasNumbering 是否包含"1."、"二、"形式的编号
+ * @param hasStepLabel 是否包含"步骤1"、"步骤三"形式的步骤标签
+ * @param hasActionVerb 是否包含输入、点击、选择等动作动词（按完整词匹配）
+ * @param hasNamingKeyword 是否包含模块、功能、测试等命名关键字（按完整词匹配）
+ * @param asciiSymbolCount ASCII范围内非字母数字、非空白字符的个数
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+public record CaseTextFeatures(int trimmedLength, boolean hasLineBreak, boolean hasNumbering, boolean hasStepLabel,
+                               boolean hasActionVerb, boolean hasNamingKeyword, int asciiSymbolCount) {
+
+    private static final CaseTextFeatures EMPTY = new CaseTextFeatures(0, false, false, false, false, false, 0);
+
+    private static final String NUMERALS = "一二三四五六七八九十";
+    private static final String[] ACTION_VERBS = {"输入", "点击", "选择", "填写", "提交", "验证", "检查", "确认"};
+    private static final String[] NAMING_KEYWORDS = {"模块", "功能", "测试"};
+
+    /**
+     * 扫描文本
+     *
+     * @param text 文本，可为null
+     */
+    public static CaseTextFeatures scan(String text) {
+        if (text == null || text.isEmpty()) {
+            return EMPTY;
+        }
+        int length = text.length();
+        int first = -1;
+        int last = -1;
+        boolean hasLineBreak = false;
+        boolean hasNumbering = false;
+        boolean hasStepLabel = false;
+        boolean hasActionVerb = false;
+        boolean hasNamingKeyword = false;
+        int asciiSymbolCount = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c > ' ') {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+            if (c == '\n') {
+                hasLineBreak = true;
+            }
+            if (c < 128 && !Character.isLetterOrDigit(c) && !Character.isWhitespace(c)) {
+                asciiSymbolCount++;
+            }
+            if (!hasActionVerb && startsWithAny(text, i, ACTION_VERBS)) {
+                hasActionVerb = true;
+            }
+            if (!hasNamingKeyword && startsWithAny(text, i, NAMING_KEYWORDS)) {
+                hasNamingKeyword = true;
+            }
+            if (i + 1 >= length) {
+                continue;
+            }
+            char next = text.charAt(i + 1);
+            if (!hasNumbering && isNumeral(c) && (next == '.' || next == '、')) {
+                hasNumbering = true;
+            }
+            if (!hasStepLabel && c == '步' && next == '骤' && i + 2 < length && isNumeral(text.charAt(i + 2))) {
+                hasStepLabel = true;
+            }
+        }
+        int trimmedLength = first < 0 ? 0 : last - first + 1;
+        return new CaseTextFeatures(trimmedLength, hasLineBreak, hasNumbering, hasStepLabel,
+                hasActionVerb, hasNamingKeyword, asciiSymbolCount);
+    }
+
+    private static boolean isNumeral(char c) {
+        return (c >= '0' && c <= '9') || NUMERALS.indexOf(c) >= 0;
+    }
+
+    /**
+     * text在offset处是否以某个词开头（比较完整的词，不限于词的前两个字）
+     */
+    private static boolean startsWithAny(String text, int offset, String[] words) {
+        char c = text.charAt(offset);
+        for (String word : words) {
+            if (word.charAt(0) == c && text.startsWith(word, offset)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package com.sinosoft.testdesign.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的提示词模板
+ * 模板内容只解析一次，拆分为"文本片段 + 变量"交替的片段列表；渲染时按顺序拼接，不再使用正则。
+ * 占位符语义与原正则 {@code \{([^}]+)\}} 一致：左花括号到其后第一个右花括号之间至少一个字符，变量名去首尾空白。
+ * 实例不可变，可在多线程间共享。
+ *
+ * @author sinosoft
+ * @date 2026-02-04
+ */
+public final class CompiledPromptTemplate {
+
+    private final String source;
+    /** 文本片段，literals[i]位于variables[i]之前，最后一个文本片段位于所有变量之后 */
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+    private final Set<String> variableNames;
+
+    private CompiledPromptTemplate(String source, String[] literals, String[] variables) {
+        this.source = source;
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        Set<String> names = new LinkedHashSet<>();
+        Collections.addAll(names, variables);
+        this.variableNames = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * 编译模板内容
+     *
+     * @param source 模板内容
+     * @return 编译结果
+     */
+    public static CompiledPromptTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int length = source.length();
+        int literalStart = 0;
+        int i = 0;
+        while (i < length) {
+            if (source.charAt(i) != '{') {
+                i++;
+                continue;
+            }
+            int close = source.indexOf('}', i + 1);
+            if (close < 0) {
+                // 其后不再有右花括号，不可能再出现占位符
+                break;
+            }
+            if (close == i + 1) {
+                // "{}"不是占位符
+                i++;
+                continue;
+            }
+            literals.add(source.substring(literalStart, i));
+            variables.add(source.substring(i + 1, close).trim());
+            literalStart = close + 1;
+            i = literalStart;
+        }
+        literals.add(source.substring(literalStart));
+        return new CompiledPromptTemplate(source, literals.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    /**
+     * 渲染模板，未提供值的变量替换为空字符串。先解析全部变量值，按实际总长度一次分配StringBuilder
+     *
+     * @param values 变量值
+     * @return 渲染结果
+     */
+    public String render(Map<String, ?> values) {
+        if (variables.length == 0) {
+            return source;
+        }
+        String[] resolved = new String[variables.length];
+        int capacity = literalLength;
+        for (int i = 0; i < variables.length; i++) {
+            Object value = values != null ? values.get(variables[i]) : null;
+            resolved[i] = value != null ? value.toString() : "";
+            capacity += resolved[i].length();
+        }
+        StringBuilder sb = new StringBuilder(capacity);
+        for (int i = 0; i < variables.length; i++) {
+            sb.append(literals[i]).append(resolved[i]);
+        }
+        sb.append(literals[variables.length]);
+        return sb.toString();
+    }
+
+    /**
+     * 模板中出现的变量名（去重，按首次出现顺序）
+     */
+    public Set<String> getVariableNames() {
+        return variableNames;
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
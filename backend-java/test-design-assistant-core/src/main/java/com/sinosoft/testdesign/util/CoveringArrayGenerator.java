@@ -0,0 +1,500 @@
+package com.sinosoft.testdesign.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * t-way覆盖表生成器（IPOG算法）
+ * 保证任意t个因素的所有取值组合至少出现在一行中（t=2即配对组合），支持混合水平、禁止组合约束和必须包含的种子行。
+ * 算法按水平数降序逐个加入因素：先对已有行做水平扩展（为新因素选择覆盖最多未覆盖组合的取值），
+ * 再做垂直扩展（把剩余未覆盖组合填入已有行的空位或追加新行）。每组（t-1个旧因素 + 新因素）的覆盖情况
+ * 用一个BitSet记录，组合按混合进制编码为下标，判断与标记均为O(1)。
+ * 所有取值均以水平下标表示，UNSET表示未指定。
+ * 约束之间可能隐含冲突（每个禁止组合单独看都允许某个组合，但该组合无法补全为合法的整行），
+ * 这类行补全失败时，其覆盖的组合改为逐个重新生成行覆盖；仍无法覆盖的组合作为不可覆盖组合报告，不会静默丢失。
+ *
+ * @author sinosoft
+ * @date 2026-02-07
+ */
+public final class CoveringArrayGenerator {
+
+    /** 未指定取值 */
+    public static final int UNSET = -1;
+
+    public static final int MIN_STRENGTH = 2;
+    public static final int MAX_STRENGTH = 4;
+
+    private CoveringArrayGenerator() {
+    }
+
+    /**
+     * 生成无约束的覆盖表
+     *
+     * @param levels 各因素的水平数
+     * @param strength 覆盖强度（2-4）
+     * @return 覆盖表，每行为各因素的水平下标
+     */
+    public static int[][] generate(int[] levels, int strength) {
+        return generate(levels, strength, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * 生成覆盖表
+     *
+     * @param levels 各因素的水平数
+     * @param strength 覆盖强度（2-4），因素数少于强度时按因素数生成全组合
+     * @param constraints 禁止组合，每项长度与因素数相同，指定取值的因素同时取到这些值的行不会生成
+     * @param seeds 必须包含的种子行，每项长度与因素数相同，UNSET位置由算法填充
+     * @return 覆盖表，每行为各因素的水平下标；种子行在最前面
+     */
+    public static int[][] generate(int[] levels, int strength, List<int[]> constraints, List<int[]> seeds) {
+        return generateWithReport(levels, strength, constraints, seeds).rows();
+    }
+
+    /**
+     * 生成覆盖表，并报告因约束无法覆盖的组合
+     *
+     * @param levels 各因素的水平数
+     * @param strength 覆盖强度（2-4），因素数少于强度时按因素数生成全组合
+     * @param constraints 禁止组合，每项长度与因素数相同
+     * @param seeds 必须包含的种子行，每项长度与因素数相同
+     * @return 覆盖表及不可覆盖的组合
+     */
+    public static Report generateWithReport(int[] levels, int strength, List<int[]> constraints, List<int[]> seeds) {
+        if (strength < MIN_STRENGTH || strength > MAX_STRENGTH) {
+            throw new IllegalArgumentException("覆盖强度必须在" + MIN_STRENGTH + "到" + MAX_STRENGTH + "之间: " + strength);
+        }
+        int n = levels.length;
+        for (int level : levels) {
+            if (level <= 0) {
+                throw new IllegalArgumentException("因素水平数必须大于0");
+            }
+        }
+        if (n == 0) {
+            return new Report(new int[0][], Collections.emptyList());
+        }
+
+        // 按水平数降序处理因素，水平数多的因素先加入可以得到更小的表
+        int[] order = IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingInt((Integer f) -> levels[f]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] sortedLevels = new int[n];
+        for (int i = 0; i < n; i++) {
+            sortedLevels[i] = levels[order[i]];
+        }
+
+        List<int[][]> forbidden = new ArrayList<>();
+        for (int[] constraint : constraints) {
+            int[] sorted = reorder(constraint, order, levels, "约束条件");
+            List<int[]> pairs = new ArrayList<>();
+            for (int f = 0; f < n; f++) {
+                if (sorted[f] != UNSET) {
+                    pairs.add(new int[]{f, sorted[f]});
+                }
+            }
+            if (!pairs.isEmpty()) {
+                forbidden.add(pairs.toArray(new int[0][]));
+            }
+        }
+
+        Engine engine = new Engine(sortedLevels, Math.min(strength, n), forbidden.toArray(new int[0][][]));
+        for (int[] seed : seeds) {
+            engine.addSeed(reorder(seed, order, levels, "种子行"));
+        }
+        List<int[]> rows = engine.run();
+
+        int[][] result = new int[rows.size()][];
+        for (int r = 0; r < rows.size(); r++) {
+            result[r] = restoreOrder(rows.get(r), order);
+        }
+        List<int[]> uncoverable = new ArrayList<>(engine.uncoverable.size());
+        for (int[] tuple : engine.uncoverable) {
+            uncoverable.add(restoreOrder(tuple, order));
+        }
+        return new Report(result, uncoverable);
+    }
+
+    private static int[] restoreOrder(int[] sorted, int[] order) {
+        int[] original = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            original[order[i]] = sorted[i];
+        }
+        return original;
+    }
+
+    private static int[] reorder(int[] values, int[] order, int[] levels, String name) {
+        if (values.length != levels.length) {
+            throw new IllegalArgumentException(name + "长度与因素数不一致");
+        }
+        int[] sorted = new int[values.length];
+        for (int i = 0; i < order.length; i++) {
+            int value = values[order[i]];
+            if (value != UNSET && (value < 0 || value >= levels[order[i]])) {
+                throw new IllegalArgumentException(name + "中的取值超出因素水平范围");
+            }
+            sorted[i] = value;
+        }
+        return sorted;
+    }
+
+    /**
+     * 覆盖表生成结果
+     *
+     * @param rows 覆盖表，每行为各因素的水平下标
+     * @param uncoverableTuples 不违反任何单个禁止组合、但与约束组合后无法补全为合法整行的组合，
+     *                          长度与因素数相同，未涉及的因素为UNSET
+     */
+    public record Report(int[][] rows, List<int[]> uncoverableTuples) {
+    }
+
+    /**
+     * IPOG执行过程（因素已按水平数降序排列）
+     */
+    private static final class Engine {
+
+        private final int[] levels;
+        private final int strength;
+        /** 禁止组合，每项为若干{因素, 取值} */
+        private final int[][][] forbidden;
+        private final List<int[]> rows = new ArrayList<>();
+        private final List<int[]> uncoverable = new ArrayList<>();
+
+        private Engine(int[] levels, int strength, int[][][] forbidden) {
+            this.levels = levels;
+            this.strength = strength;
+            this.forbidden = forbidden;
+        }
+
+        private void addSeed(int[] seed) {
+            if (violates(seed)) {
+                throw new IllegalArgumentException("种子行违反约束条件");
+            }
+            if (!fill(seed.clone(), 0)) {
+                throw new IllegalArgumentException("种子行无法补全为满足约束条件的组合");
+            }
+            rows.add(seed.clone());
+        }
+
+        private List<int[]> run() {
+            for (int k = strength - 1; k < levels.length; k++) {
+                extend(k);
+            }
+            return fillUnset();
+        }
+
+        /**
+         * 加入第k个因素：覆盖所有"t-1个旧因素 + 因素k"的取值组合
+         */
+        private void extend(int k) {
+            int[][] combos = combinations(k, strength - 1);
+            int levelK = levels[k];
+            int[] sizes = new int[combos.length];
+            BitSet[] covered = new BitSet[combos.length];
+            for (int c = 0; c < combos.length; c++) {
+                long size = levelK;
+                for (int f : combos[c]) {
+                    size *= levels[f];
+                }
+                if (size > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("因素组合数过大，无法生成覆盖表");
+                }
+                sizes[c] = (int) size;
+                covered[c] = new BitSet(sizes[c]);
+            }
+
+            // 水平扩展：为已有行选择覆盖最多未覆盖组合的取值，没有收益时留空供垂直扩展使用
+            int[] bases = new int[combos.length];
+            for (int[] row : rows) {
+                if (row[k] == UNSET) {
+                    for (int c = 0; c < combos.length; c++) {
+                        bases[c] = baseIndex(row, combos[c]);
+                    }
+                    int best = UNSET;
+                    int bestGain = 0;
+                    for (int v = 0; v < levelK; v++) {
+                        int gain = 0;
+                        for (int c = 0; c < combos.length; c++) {
+                            if (bases[c] >= 0 && !covered[c].get(bases[c] * levelK + v)) {
+                                gain++;
+                            }
+                        }
+                        if (gain > bestGain) {
+                            row[k] = v;
+                            if (!violates(row)) {
+                                best = v;
+                                bestGain = gain;
+                            }
+                            row[k] = UNSET;
+                        }
+                    }
+                    row[k] = best;
+                }
+                if (row[k] != UNSET) {
+                    markCovered(row, k, combos, covered);
+                }
+            }
+
+            // 垂直扩展：逐个处理剩余未覆盖组合
+            List<int[]> openRows = new ArrayList<>();
+            for (int[] row : rows) {
+                if (hasUnset(row, k)) {
+                    openRows.add(row);
+                }
+            }
+            int[] tuple = new int[strength];
+            for (int c = 0; c < combos.length; c++) {
+                int[] factors = combos[c];
+                BitSet bits = covered[c];
+                for (int index = bits.nextClearBit(0); index < sizes[c]; index = bits.nextClearBit(index + 1)) {
+                    decode(index, factors, levelK, tuple);
+                    int[] target = placeInOpenRow(openRows, factors, k, tuple);
+                    if (target == null) {
+                        int[] row = new int[levels.length];
+                        Arrays.fill(row, UNSET);
+                        assign(row, factors, k, tuple);
+                        if (violates(row)) {
+                            // 组合本身被约束禁止，不需要覆盖
+                            bits.set(index);
+                            continue;
+                        }
+                        rows.add(row);
+                        openRows.add(row);
+                        target = row;
+                    }
+                    markCovered(target, k, combos, covered);
+                }
+            }
+        }
+
+        /**
+         * 把组合填入第一个兼容的未满行，返回该行；没有兼容行时返回null
+         */
+        private int[] placeInOpenRow(List<int[]> openRows, int[] factors, int k, int[] tuple) {
+            for (int[] row : openRows) {
+                if (!compatible(row, factors, k, tuple)) {
+                    continue;
+                }
+                int[] previous = new int[strength];
+                for (int i = 0; i < factors.length; i++) {
+                    previous[i] = row[factors[i]];
+                }
+                previous[factors.length] = row[k];
+                assign(row, factors, k, tuple);
+                if (!violates(row)) {
+                    return row;
+                }
+                assign(row, factors, k, previous);
+            }
+            return null;
+        }
+
+        private boolean compatible(int[] row, int[] factors, int k, int[] tuple) {
+            for (int i = 0; i < factors.length; i++) {
+                int value = row[factors[i]];
+                if (value != UNSET && value != tuple[i]) {
+                    return false;
+                }
+            }
+            return row[k] == UNSET || row[k] == tuple[factors.length];
+        }
+
+        private static void assign(int[] row, int[] factors, int k, int[] tuple) {
+            for (int i = 0; i < factors.length; i++) {
+                row[factors[i]] = tuple[i];
+            }
+            row[k] = tuple[factors.length];
+        }
+
+        private void markCovered(int[] row, int k, int[][] combos, BitSet[] covered) {
+            int levelK = levels[k];
+            for (int c = 0; c < combos.length; c++) {
+                int base = baseIndex(row, combos[c]);
+                if (base >= 0) {
+                    covered[c].set(base * levelK + row[k]);
+                }
+            }
+        }
+
+        /**
+         * 行在旧因素上的混合进制编码，有未指定取值时返回-1
+         */
+        private int baseIndex(int[] row, int[] factors) {
+            int index = 0;
+            for (int f : factors) {
+                int value = row[f];
+                if (value == UNSET) {
+                    return -1;
+                }
+                index = index * levels[f] + value;
+            }
+            return index;
+        }
+
+        private void decode(int index, int[] factors, int levelK, int[] tuple) {
+            tuple[factors.length] = index % levelK;
+            index /= levelK;
+            for (int i = factors.length - 1; i >= 0; i--) {
+                int level = levels[factors[i]];
+                tuple[i] = index % level;
+                index /= level;
+            }
+        }
+
+        private static boolean hasUnset(int[] row, int k) {
+            for (int f = 0; f <= k; f++) {
+                if (row[f] == UNSET) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 行中已指定的取值是否命中某个禁止组合
+         */
+        private boolean violates(int[] row) {
+            for (int[][] constraint : forbidden) {
+                boolean matched = true;
+                for (int[] pair : constraint) {
+                    if (row[pair[0]] != pair[1]) {
+                        matched = false;
+                        break;
+                    }
+                }
+                if (matched) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 为剩余空位选择不违反约束的取值；无法补全的行不输出，其覆盖的组合重新覆盖
+         */
+        private List<int[]> fillUnset() {
+            List<int[]> result = new ArrayList<>(rows.size());
+            List<int[]> dropped = new ArrayList<>();
+            for (int[] row : rows) {
+                if (fill(row, 0)) {
+                    result.add(row);
+                } else {
+                    dropped.add(row);
+                }
+            }
+            if (!dropped.isEmpty()) {
+                recover(result, dropped);
+            }
+            return result;
+        }
+
+        /**
+         * 回溯补全从第f个因素起的空位，无合法补全时恢复空位并返回false
+         */
+        private boolean fill(int[] row, int f) {
+            while (f < row.length && row[f] != UNSET) {
+                f++;
+            }
+            if (f == row.length) {
+                return true;
+            }
+            for (int v = 0; v < levels[f]; v++) {
+                row[f] = v;
+                if (!violates(row) && fill(row, f + 1)) {
+                    return true;
+                }
+            }
+            row[f] = UNSET;
+            return false;
+        }
+
+        /**
+         * 逐个检查被丢弃行上的t元组合：已被输出行覆盖的跳过，否则以该组合为起点补全新行，仍无法补全的记为不可覆盖
+         */
+        private void recover(List<int[]> result, List<int[]> dropped) {
+            int[][] combos = combinations(levels.length, strength);
+            List<int[]> reported = new ArrayList<>();
+            for (int[] row : dropped) {
+                for (int[] factors : combos) {
+                    if (!assigned(row, factors) || covers(result, row, factors) || covers(reported, row, factors)) {
+                        continue;
+                    }
+                    int[] candidate = new int[levels.length];
+                    Arrays.fill(candidate, UNSET);
+                    for (int f : factors) {
+                        candidate[f] = row[f];
+                    }
+                    // 补全失败时fill会恢复空位，candidate仍只包含该组合的取值
+                    if (!violates(candidate) && fill(candidate, 0)) {
+                        result.add(candidate);
+                    } else {
+                        reported.add(candidate);
+                    }
+                }
+            }
+            uncoverable.addAll(reported);
+        }
+
+        private static boolean assigned(int[] row, int[] factors) {
+            for (int f : factors) {
+                if (row[f] == UNSET) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * rows中是否有某行在factors上与row取值相同
+         */
+        private static boolean covers(List<int[]> rows, int[] row, int[] factors) {
+            for (int[] other : rows) {
+                boolean same = true;
+                for (int f : factors) {
+                    if (other[f] != row[f]) {
+                        same = false;
+                        break;
+                    }
+                }
+                if (same) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * [0, n)中所有大小为r的子集（字典序）
+         */
+        private static int[][] combinations(int n, int r) {
+            if (r > n) {
+                return new int[0][];
+            }
+            List<int[]> result = new ArrayList<>();
+            int[] current = new int[r];
+            for (int i = 0; i < r; i++) {
+                current[i] = i;
+            }
+            while (true) {
+                result.add(current.clone());
+                int i = r - 1;
+                while (i >= 0 && current[i] == n - r + i) {
+                    i--;
+                }
+                if (i < 0) {
+                    break;
+                }
+                current[i]++;
+                for (int j = i + 1; j < r; j++) {
+                    current[j] = current[j - 1] + 1;
+                }
+            }
+            return result.toArray(new int[0][]);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.sinosoft.testdesign.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mermaid流程图SVG渲染器
+ * 只支持场景图/路径图生成的流程图子集：graph/flowchart方向声明、带引号标签的节点（矩形、圆角、菱形、六边形、圆柱）
+ * 以及带可选标签的"-->"连线，遇到其他语法时抛出IllegalArgumentException，由调用方改用远程渲染。
+ * 布局采用分层图布局：先按DFS反转回边消除环，按最长路径分层，再用重心法做几轮层内排序以减少交叉，
+ * 最后按方向（TD/LR/BT/RL）计算坐标，连线为节点间直线加箭头。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+public final class MermaidSvgRenderer {
+
+    private static final Pattern HEADER = Pattern.compile("^(?:graph|flowchart)\\s+(TD|TB|LR|RL|BT)\\s*$");
+    private static final Pattern NODE = Pattern.compile(
+            "^([A-Za-z0-9_]+)\\s*(\\[\\(|\\{\\{|\\[|\\{|\\()\"(.*)\"(\\)\\]|\\}\\}|\\]|\\}|\\))$");
+    private static final Pattern EDGE = Pattern.compile(
+            "^([A-Za-z0-9_]+)\\s*-->\\s*(?:\\|([^|]*)\\|\\s*)?([A-Za-z0-9_]+)$");
+
+    private static final int NODE_HEIGHT = 44;
+    private static final int MIN_NODE_WIDTH = 100;
+    private static final int NODE_GAP = 40;
+    private static final int LAYER_GAP = 70;
+    private static final int MARGIN = 20;
+    private static final int ORDERING_SWEEPS = 4;
+
+    private MermaidSvgRenderer() {
+    }
+
+    /**
+     * 渲染为SVG文档
+     *
+     * @param mermaidCode Mermaid流程图代码
+     * @return SVG文本
+     * @throws IllegalArgumentException 包含不支持的语法时
+     */
+    public static String render(String mermaidCode) {
+        Graph graph = parse(mermaidCode);
+        layout(graph);
+        return toSvg(graph);
+    }
+
+    // ==================== 解析 ====================
+
+    private static Graph parse(String mermaidCode) {
+        if (mermaidCode == null) {
+            throw new IllegalArgumentException("Mermaid代码为空");
+        }
+        Graph graph = null;
+        for (String rawLine : mermaidCode.split("\\r?\\n")) {
+            String line = rawLine.trim();
+            if (line.isEmpty() || line.startsWith("%%")) {
+                continue;
+            }
+            if (graph == null) {
+                Matcher header = HEADER.matcher(line);
+                if (!header.matches()) {
+                    throw new IllegalArgumentException("不支持的Mermaid图类型: " + line);
+                }
+                graph = new Graph(header.group(1));
+                continue;
+            }
+            Matcher node = NODE.matcher(line);
+            if (node.matches()) {
+                Node n = graph.node(node.group(1));
+                n.shape = node.group(2);
+                n.label = node.group(3);
+                continue;
+            }
+            Matcher edge = EDGE.matcher(line);
+            if (edge.matches()) {
+                graph.edges.add(new Edge(graph.node(edge.group(1)), graph.node(edge.group(3)), edge.group(2)));
+                continue;
+            }
+            throw new IllegalArgumentException("不支持的Mermaid语法: " + line);
+        }
+        if (graph == null) {
+            throw new IllegalArgumentException("缺少Mermaid图类型声明");
+        }
+        return graph;
+    }
+
+    // ==================== 布局 ====================
+
+    private static void layout(Graph graph) {
+        List<Node> nodes = new ArrayList<>(graph.nodes.values());
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).index = i;
+        }
+        List<List<Integer>> successors = acyclicSuccessors(graph, nodes);
+
+        // 最长路径分层（Kahn拓扑序）
+        int[] inDegree = new int[nodes.size()];
+        for (List<Integer> targets : successors) {
+            for (int target : targets) {
+                inDegree[target]++;
+            }
+        }
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (inDegree[i] == 0) {
+                queue.add(i);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int target : successors.get(current)) {
+                nodes.get(target).layer = Math.max(nodes.get(target).layer, nodes.get(current).layer + 1);
+                if (--inDegree[target] == 0) {
+                    queue.add(target);
+                }
+            }
+        }
+
+        int layerCount = nodes.stream().mapToInt(n -> n.layer).max().orElse(-1) + 1;
+        List<List<Node>> layers = new ArrayList<>(layerCount);
+        for (int i = 0; i < layerCount; i++) {
+            layers.add(new ArrayList<>());
+        }
+        for (Node node : nodes) {
+            layers.get(node.layer).add(node);
+            node.width = Math.max(MIN_NODE_WIDTH, textWidth(node.label) + 32);
+            if ("{".equals(node.shape)) {
+                // 菱形的文字区域较小
+                node.width = node.width * 3 / 2;
+            }
+        }
+        orderLayers(graph, layers);
+        assignCoordinates(graph, layers);
+    }
+
+    /**
+     * 邻接表，DFS中遇到的回边反向，保证分层时无环
+     */
+    private static List<List<Integer>> acyclicSuccessors(Graph graph, List<Node> nodes) {
+        List<List<Integer>> outgoing = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            outgoing.add(new ArrayList<>());
+        }
+        for (Edge edge : graph.edges) {
+            if (edge.from != edge.to) {
+                outgoing.get(edge.from.index).add(edge.to.index);
+            }
+        }
+        List<List<Integer>> successors = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            successors.add(new ArrayList<>());
+        }
+        // 0未访问、1在栈上、2已完成
+        int[] state = new int[nodes.size()];
+        for (int root = 0; root < nodes.size(); root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            Deque<int[]> stack = new ArrayDeque<>();
+            stack.push(new int[]{root, 0});
+            state[root] = 1;
+            while (!stack.isEmpty()) {
+                int[] frame = stack.peek();
+                List<Integer> targets = outgoing.get(frame[0]);
+                if (frame[1] == targets.size()) {
+                    state[frame[0]] = 2;
+                    stack.pop();
+                    continue;
+                }
+                int target = targets.get(frame[1]++);
+                if (state[target] == 1) {
+                    successors.get(target).add(frame[0]);
+                } else {
+                    successors.get(frame[0]).add(target);
+                    if (state[target] == 0) {
+                        state[target] = 1;
+                        stack.push(new int[]{target, 0});
+                    }
+                }
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * 重心法层内排序：交替向下、向上按相邻层连接节点的平均位置排序
+     */
+    private static void orderLayers(Graph graph, List<List<Node>> layers) {
+        Map<Node, List<Node>> upper = new HashMap<>();
+        Map<Node, List<Node>> lower = new HashMap<>();
+        for (Edge edge : graph.edges) {
+            Node top = edge.from.layer <= edge.to.layer ? edge.from : edge.to;
+            Node bottom = top == edge.from ? edge.to : edge.from;
+            if (top.layer != bottom.layer) {
+                lower.computeIfAbsent(top, k -> new ArrayList<>()).add(bottom);
+                upper.computeIfAbsent(bottom, k -> new ArrayList<>()).add(top);
+            }
+        }
+        updatePositions(layers);
+        for (int sweep = 0; sweep < ORDERING_SWEEPS; sweep++) {
+            boolean down = sweep % 2 == 0;
+            for (int step = 1; step < layers.size(); step++) {
+                List<Node> layer = layers.get(down ? step : layers.size() - 1 - step);
+                Map<Node, List<Node>> neighbours = down ? upper : lower;
+                for (Node node : layer) {
+                    List<Node> adjacent = neighbours.get(node);
+                    node.barycenter = adjacent == null ? node.position
+                            : adjacent.stream().mapToInt(n -> n.position).average().orElse(node.position);
+                }
+                layer.sort(Comparator.comparingDouble(n -> n.barycenter));
+                updatePositions(layers);
+            }
+        }
+    }
+
+    private static void updatePositions(List<List<Node>> layers) {
+        for (List<Node> layer : layers) {
+            for (int i = 0; i < layer.size(); i++) {
+                layer.get(i).position = i;
+            }
+        }
+    }
+
+    private static void assignCoordinates(Graph graph, List<List<Node>> layers) {
+        boolean horizontal = graph.horizontal();
+        // 层内排列方向上的长度：纵向布局为节点宽度之和，横向布局为节点高度之和
+        int[] extents = new int[layers.size()];
+        int maxExtent = 0;
+        for (int i = 0; i < layers.size(); i++) {
+            int extent = 0;
+            for (Node node : layers.get(i)) {
+                extent += (horizontal ? NODE_HEIGHT : node.width) + NODE_GAP;
+            }
+            extents[i] = Math.max(0, extent - NODE_GAP);
+            maxExtent = Math.max(maxExtent, extents[i]);
+        }
+        // 层方向上每层的厚度：横向布局为该层最宽节点
+        int[] thickness = new int[layers.size()];
+        for (int i = 0; i < layers.size(); i++) {
+            thickness[i] = horizontal
+                    ? layers.get(i).stream().mapToInt(n -> n.width).max().orElse(0)
+                    : NODE_HEIGHT;
+        }
+        int layerOffset = MARGIN;
+        for (int i = 0; i < layers.size(); i++) {
+            int offset = MARGIN + (maxExtent - extents[i]) / 2;
+            for (Node node : layers.get(i)) {
+                int along = horizontal ? NODE_HEIGHT : node.width;
+                if (horizontal) {
+                    node.cx = layerOffset + thickness[i] / 2.0;
+                    node.cy = offset + along / 2.0;
+                } else {
+                    node.cx = offset + along / 2.0;
+                    node.cy = layerOffset + thickness[i] / 2.0;
+                }
+                offset += along + NODE_GAP;
+            }
+            layerOffset += thickness[i] + LAYER_GAP;
+        }
+        int layerLength = Math.max(0, layerOffset - LAYER_GAP) + MARGIN;
+        int crossLength = maxExtent + 2 * MARGIN;
+        graph.width = horizontal ? layerLength : crossLength;
+        graph.height = horizontal ? crossLength : layerLength;
+        // BT/RL为TD/LR的镜像
+        for (Node node : graph.nodes.values()) {
+            if ("BT".equals(graph.direction)) {
+                node.cy = graph.height - node.cy;
+            } else if ("RL".equals(graph.direction)) {
+                node.cx = graph.width - node.cx;
+            }
+        }
+    }
+
+    // ==================== 输出 ====================
+
+    private static String toSvg(Graph graph) {
+        StringBuilder svg = new StringBuilder(256 + graph.nodes.size() * 200 + graph.edges.size() * 150);
+        int width = Math.max(graph.width, 2 * MARGIN);
+        int height = Math.max(graph.height, 2 * MARGIN);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(width)
+                .append("\" height=\"").append(height)
+                .append("\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                .append("\" font-family=\"sans-serif\" font-size=\"14\">\n");
+        svg.append("<defs><marker id=\"arrow\" viewBox=\"0 0 10 10\" refX=\"10\" refY=\"5\" markerWidth=\"8\" ")
+                .append("markerHeight=\"8\" orient=\"auto-start-reverse\"><path d=\"M0,0 L10,5 L0,10 z\" ")
+                .append("fill=\"#333\"/></marker></defs>\n");
+        svg.append("<rect width=\"100%\" height=\"100%\" fill=\"#ffffff\"/>\n");
+        for (Edge edge : graph.edges) {
+            appendEdge(svg, edge);
+        }
+        for (Node node : graph.nodes.values()) {
+            appendNode(svg, node);
+        }
+        svg.append("</svg>\n");
+        return svg.toString();
+    }
+
+    private static void appendEdge(StringBuilder svg, Edge edge) {
+        double[] start = boundaryPoint(edge.from, edge.to.cx, edge.to.cy);
+        double[] end = boundaryPoint(edge.to, edge.from.cx, edge.from.cy);
+        svg.append("<line x1=\"").append(fmt(start[0])).append("\" y1=\"").append(fmt(start[1]))
+                .append("\" x2=\"").append(fmt(end[0])).append("\" y2=\"").append(fmt(end[1]))
+                .append("\" stroke=\"#333\" stroke-width=\"1.5\" marker-end=\"url(#arrow)\"/>\n");
+        if (edge.label != null && !edge.label.isBlank()) {
+            double mx = (start[0] + end[0]) / 2;
+            double my = (start[1] + end[1]) / 2;
+            int labelWidth = textWidth(edge.label) + 8;
+            svg.append("<rect x=\"").append(fmt(mx - labelWidth / 2.0)).append("\" y=\"").append(fmt(my - 10))
+                    .append("\" width=\"").append(labelWidth).append("\" height=\"20\" fill=\"#ffffff\"/>\n");
+            appendText(svg, mx, my, edge.label, 12);
+        }
+    }
+
+    private static void appendNode(StringBuilder svg, Node node) {
+        double x = node.cx - node.width / 2.0;
+        double y = node.cy - NODE_HEIGHT / 2.0;
+        double w = node.width;
+        double h = NODE_HEIGHT;
+        String style = " fill=\"#ECECFF\" stroke=\"#9370DB\" stroke-width=\"1.5\"/>\n";
+        switch (node.shape) {
+            case "(" -> svg.append("<rect x=\"").append(fmt(x)).append("\" y=\"").append(fmt(y))
+                    .append("\" width=\"").append(fmt(w)).append("\" height=\"").append(fmt(h))
+                    .append("\" rx=\"").append(fmt(h / 2)).append('"').append(style);
+            case "{" -> svg.append("<polygon points=\"")
+                    .append(fmt(node.cx)).append(',').append(fmt(y)).append(' ')
+                    .append(fmt(x + w)).append(',').append(fmt(node.cy)).append(' ')
+                    .append(fmt(node.cx)).append(',').append(fmt(y + h)).append(' ')
+                    .append(fmt(x)).append(',').append(fmt(node.cy)).append('"').append(style);
+            case "{{" -> svg.append("<polygon points=\"")
+                    .append(fmt(x + 12)).append(',').append(fmt(y)).append(' ')
+                    .append(fmt(x + w - 12)).append(',').append(fmt(y)).append(' ')
+                    .append(fmt(x + w)).append(',').append(fmt(node.cy)).append(' ')
+                    .append(fmt(x + w - 12)).append(',').append(fmt(y + h)).append(' ')
+                    .append(fmt(x + 12)).append(',').append(fmt(y + h)).append(' ')
+                    .append(fmt(x)).append(',').append(fmt(node.cy)).append('"').append(style);
+            case "[(" -> svg.append("<path d=\"M").append(fmt(x)).append(',').append(fmt(y + 6))
+                    .append(" a").append(fmt(w / 2)).append(",6 0 0,0 ").append(fmt(w)).append(",0")
+                    .append(" a").append(fmt(w / 2)).append(",6 0 0,0 ").append(fmt(-w)).append(",0")
+                    .append(" v").append(fmt(h - 12))
+                    .append(" a").append(fmt(w / 2)).append(",6 0 0,0 ").append(fmt(w)).append(",0")
+                    .append(" v").append(fmt(-(h - 12))).append('"').append(style);
+            default -> svg.append("<rect x=\"").append(fmt(x)).append("\" y=\"").append(fmt(y))
+                    .append("\" width=\"").append(fmt(w)).append("\" height=\"").append(fmt(h))
+                    .append("\" rx=\"4\"").append(style);
+        }
+        appendText(svg, node.cx, node.cy, node.label, 14);
+    }
+
+    private static void appendText(StringBuilder svg, double x, double y, String text, int fontSize) {
+        svg.append("<text x=\"").append(fmt(x)).append("\" y=\"").append(fmt(y))
+                .append("\" font-size=\"").append(fontSize)
+                .append("\" text-anchor=\"middle\" dominant-baseline=\"central\">")
+                .append(escapeXml(text)).append("</text>\n");
+    }
+
+    /**
+     * 从节点中心指向(tx, ty)的射线与节点外框的交点
+     */
+    private static double[] boundaryPoint(Node node, double tx, double ty) {
+        double dx = tx - node.cx;
+        double dy = ty - node.cy;
+        if (dx == 0 && dy == 0) {
+            return new double[]{node.cx, node.cy};
+        }
+        double halfWidth = node.width / 2.0;
+        double halfHeight = NODE_HEIGHT / 2.0;
+        double scale = Math.min(dx == 0 ? Double.MAX_VALUE : halfWidth / Math.abs(dx),
+                dy == 0 ? Double.MAX_VALUE : halfHeight / Math.abs(dy));
+        return new double[]{node.cx + dx * scale, node.cy + dy * scale};
+    }
+
+    /**
+     * 估算文字宽度（14px字体）：全角字符14像素，其他8像素
+     */
+    private static int textWidth(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += text.charAt(i) < 0x1100 ? 8 : 14;
+        }
+        return width;
+    }
+
+    private static String fmt(double value) {
+        if (value == Math.rint(value)) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String escapeXml(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&apos;");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // ==================== 图模型 ====================
+
+    private static final class Graph {
+        private final String direction;
+        private final Map<String, Node> nodes = new LinkedHashMap<>();
+        private final List<Edge> edges = new ArrayList<>();
+        private int width;
+        private int height;
+
+        private Graph(String direction) {
+            this.direction = "TB".equals(direction) ? "TD" : direction;
+        }
+
+        private boolean horizontal() {
+            return "LR".equals(direction) || "RL".equals(direction);
+        }
+
+        /**
+         * 获取节点，连线中首次出现的节点按矩形、以ID为标签创建
+         */
+        private Node node(String id) {
+            return nodes.computeIfAbsent(id, Node::new);
+        }
+    }
+
+    private static final class Node {
+        private final String id;
+        private String label;
+        private String shape = "[";
+        private int index;
+        private int layer;
+        private int position;
+        private double barycenter;
+        private int width;
+        private double cx;
+        private double cy;
+
+        private Node(String id) {
+            this.id = id;
+            this.label = id;
+        }
+    }
+
+    private record Edge(Node from, Node to, String label) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.sinosoft.testdesign.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * 混合进制笛卡尔积
+ * 第i位的取值范围为[0, radices[i])，组合按混合进制编码为long（最后一位为最低位），
+ * 迭代时按计数器逐个生成，不预先展开整个笛卡尔积。
+ * 组合总数超出long范围时，key()退化为64位哈希：仅用于去重，碰撞概率可忽略，碰撞时只会多跳过一个组合。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+public final class MixedRadixProduct implements Iterable<int[]> {
+
+    private final int[] radices;
+    /** 组合总数，超出long范围时为Long.MAX_VALUE */
+    private final long size;
+    private final boolean encodable;
+
+    public MixedRadixProduct(int[] radices) {
+        this.radices = radices.clone();
+        long product = 1;
+        boolean overflow = false;
+        for (int radix : this.radices) {
+            if (radix <= 0) {
+                product = 0;
+                overflow = false;
+                break;
+            }
+            if (product > Long.MAX_VALUE / radix) {
+                overflow = true;
+            } else {
+                product *= radix;
+            }
+        }
+        this.encodable = !overflow;
+        this.size = overflow ? Long.MAX_VALUE : product;
+    }
+
+    /**
+     * 组合总数（超出long范围时为Long.MAX_VALUE）
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 组合能否无损编码为long
+     */
+    public boolean isEncodable() {
+        return encodable;
+    }
+
+    /**
+     * 组合的去重键：可编码时为混合进制编码，否则为64位哈希
+     */
+    public long key(int[] digits) {
+        if (encodable) {
+            long key = 0;
+            for (int i = 0; i < radices.length; i++) {
+                key = key * radices[i] + digits[i];
+            }
+            return key;
+        }
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int digit : digits) {
+            hash = (hash ^ digit) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return hash;
+    }
+
+    /**
+     * 将混合进制编码还原为各位取值
+     *
+     * @param key 编码（0到size-1）
+     * @param digits 输出数组
+     */
+    public void decode(long key, int[] digits) {
+        if (!encodable) {
+            throw new IllegalStateException("组合总数超出long范围，无法解码");
+        }
+        for (int i = radices.length - 1; i >= 0; i--) {
+            digits[i] = (int) (key % radices[i]);
+            key /= radices[i];
+        }
+    }
+
+    /**
+     * 随机生成一个组合
+     *
+     * @param random 随机数生成器
+     * @return 各位取值
+     */
+    public int[] random(Random random) {
+        int[] digits = new int[radices.length];
+        for (int i = 0; i < radices.length; i++) {
+            digits[i] = random.nextInt(radices[i]);
+        }
+        return digits;
+    }
+
+    /**
+     * 按编码顺序逐个生成组合，每次返回新数组
+     */
+    @Override
+    public Iterator<int[]> iterator() {
+        return new Iterator<>() {
+            private final int[] current = new int[radices.length];
+            private boolean hasNext = size > 0;
+
+            @Override
+            public boolean hasNext() {
+                return hasNext;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext) {
+                    throw new NoSuchElementException();
+                }
+                int[] result = current.clone();
+                // 最低位加1并进位
+                int i = radices.length - 1;
+                while (i >= 0 && ++current[i] == radices[i]) {
+                    current[i] = 0;
+                    i--;
+                }
+                hasNext = i >= 0;
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,347 @@
+package com.sinosoft.testdesign.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 标准正交表（强度2）
+ * 水平数为素数或素数幂q的正交表L(q^m)按Rao-Hamming方法由有限域GF(q)构造：行对应GF(q)^m中的向量x，
+ * 列对应首个非零分量为1的非零向量c，单元格取值为内积x·c，共q^m行、(q^m-1)/(q-1)列；
+ * L12(2¹¹)不是素数幂行数，按Plackett-Burman生成行循环移位构造。
+ * 单元格在访问时计算，只保存列向量和有限域运算表，不会整表展开。
+ * 因素水平数少于正交表水平数时按取模合并（collapsing），仍保证任意两因素的取值组合全部出现。
+ *
+ * @author sinosoft
+ * @date 2026-02-07
+ */
+public final class OrthogonalArray {
+
+    /** 支持的正交表水平数（素数及素数幂） */
+    private static final int[] SUPPORTED_LEVELS = {2, 3, 4, 5, 7, 8, 9, 11, 13};
+
+    /** 自动选择时允许的最大行数 */
+    public static final int MAX_RUNS = 2048;
+
+    /** Plackett-Burman 12行设计的生成行 */
+    private static final String PB12_GENERATOR = "++-+++---+-";
+
+    private static final char[] SUPERSCRIPTS = {'⁰', '¹', '²', '³', '⁴', '⁵', '⁶', '⁷', '⁸', '⁹'};
+
+    /** 所有行数不超过MAX_RUNS的正交表，按行数升序（行数相同时水平数低的在前）；构造只生成列向量，开销很小 */
+    private static final List<OrthogonalArray> CATALOG = buildCatalog();
+
+    private final String name;
+    private final int runs;
+    private final int level;
+    private final int columns;
+    /** Rao-Hamming构造：有限域与列向量；Plackett-Burman构造时为null */
+    private final GaloisField field;
+    private final int dimension;
+    private final int[][] columnVectors;
+
+    private OrthogonalArray(int runs, int level, int columns, GaloisField field, int dimension, int[][] columnVectors) {
+        this.name = "L" + runs + "(" + level + superscript(columns) + ")";
+        this.runs = runs;
+        this.level = level;
+        this.columns = columns;
+        this.field = field;
+        this.dimension = dimension;
+        this.columnVectors = columnVectors;
+    }
+
+    /**
+     * 按Rao-Hamming方法构造L(q^m)
+     *
+     * @param level 水平数q（素数或素数幂）
+     * @param dimension 维数m（不小于2）
+     * @return 正交表
+     */
+    public static OrthogonalArray raoHamming(int level, int dimension) {
+        if (dimension < 2) {
+            throw new IllegalArgumentException("正交表维数必须不小于2");
+        }
+        GaloisField field = GaloisField.of(level);
+        long runs = 1;
+        for (int i = 0; i < dimension; i++) {
+            runs *= level;
+        }
+        if (runs > Integer.MAX_VALUE / dimension) {
+            throw new IllegalArgumentException("正交表规模过大");
+        }
+        // 列向量：首个非零分量为1的非零向量（高位在前）
+        List<int[]> vectors = new ArrayList<>();
+        int[] vector = new int[dimension];
+        for (int code = 1; code < runs; code++) {
+            int value = code;
+            for (int i = dimension - 1; i >= 0; i--) {
+                vector[i] = value % level;
+                value /= level;
+            }
+            int leading = 0;
+            while (vector[leading] == 0) {
+                leading++;
+            }
+            if (vector[leading] == 1) {
+                vectors.add(vector.clone());
+            }
+        }
+        return new OrthogonalArray((int) runs, level, vectors.size(), field, dimension, vectors.toArray(new int[0][]));
+    }
+
+    /**
+     * Plackett-Burman构造的L12(2¹¹)
+     */
+    public static OrthogonalArray plackettBurman12() {
+        return new OrthogonalArray(12, 2, 11, null, 0, null);
+    }
+
+    /**
+     * 按名称获取正交表，名称可只写行数部分，如"L9"或"L9(3⁴)"；水平数不同但行数相同的表（L16）按完整名称区分，
+     * 只写"L16"时取二水平表
+     *
+     * @param name 正交表名称
+     * @return 正交表，不支持时返回null
+     */
+    public static OrthogonalArray byName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim();
+        for (OrthogonalArray candidate : CATALOG) {
+            String candidateName = candidate.getName();
+            if (candidateName.equals(normalized)
+                    || candidateName.substring(0, candidateName.indexOf('(')).equals(normalized)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 选择能容纳所有因素的最小正交表
+     *
+     * @param factorLevels 各因素水平数
+     * @return 正交表，没有合适的（水平数过多或行数超过MAX_RUNS）时返回null
+     */
+    public static OrthogonalArray select(int[] factorLevels) {
+        for (OrthogonalArray candidate : CATALOG) {
+            if (candidate.fits(factorLevels)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static List<OrthogonalArray> buildCatalog() {
+        List<OrthogonalArray> catalog = new ArrayList<>();
+        catalog.add(plackettBurman12());
+        for (int level : SUPPORTED_LEVELS) {
+            for (int dimension = 2; Math.pow(level, dimension) <= MAX_RUNS; dimension++) {
+                catalog.add(raoHamming(level, dimension));
+            }
+        }
+        catalog.sort(Comparator.comparingInt(OrthogonalArray::getRuns).thenComparingInt(OrthogonalArray::getLevel));
+        return Collections.unmodifiableList(catalog);
+    }
+
+    /**
+     * 正交表能否容纳这些因素：列数足够且水平数不低于任一因素的水平数
+     */
+    public boolean fits(int[] factorLevels) {
+        if (factorLevels.length > columns) {
+            return false;
+        }
+        for (int factorLevel : factorLevels) {
+            if (factorLevel > level) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 单元格取值（0到level-1）
+     */
+    public int get(int row, int column) {
+        if (field == null) {
+            // Plackett-Burman：第0行全为0，第r行为生成行循环右移r-1位
+            if (row == 0) {
+                return 0;
+            }
+            return PB12_GENERATOR.charAt((column - (row - 1) + 11) % 11) == '+' ? 1 : 0;
+        }
+        int[] vector = columnVectors[column];
+        int value = 0;
+        int remaining = row;
+        for (int i = dimension - 1; i >= 0; i--) {
+            int digit = remaining % level;
+            remaining /= level;
+            value = field.add(value, field.multiply(digit, vector[i]));
+        }
+        return value;
+    }
+
+    /**
+     * 将第row行映射到各因素：第i个因素使用第i列，水平数不足的因素按取模合并
+     *
+     * @param row 行号
+     * @param factorLevels 各因素水平数
+     * @return 各因素的水平下标
+     */
+    public int[] row(int row, int[] factorLevels) {
+        if (row < 0 || row >= runs) {
+            throw new IndexOutOfBoundsException("行号超出范围: " + row);
+        }
+        int[] values = new int[factorLevels.length];
+        for (int i = 0; i < factorLevels.length; i++) {
+            values[i] = get(row, i) % factorLevels[i];
+        }
+        return values;
+    }
+
+    /**
+     * 逐行计算的迭代器
+     *
+     * @param factorLevels 各因素水平数
+     * @return 行迭代器，每次返回新数组
+     */
+    public Iterator<int[]> rows(int[] factorLevels) {
+        if (!fits(factorLevels)) {
+            throw new IllegalArgumentException(name + "无法容纳这些因素");
+        }
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < runs;
+            }
+
+            @Override
+            public int[] next() {
+                if (next >= runs) {
+                    throw new NoSuchElementException();
+                }
+                return row(next++, factorLevels);
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    private static String superscript(int value) {
+        String digits = Integer.toString(value);
+        StringBuilder sb = new StringBuilder(digits.length());
+        for (int i = 0; i < digits.length(); i++) {
+            sb.append(SUPERSCRIPTS[digits.charAt(i) - '0']);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 有限域GF(p^k)：元素按p进制系数编码（低位为常数项），加法和乘法预先制表
+     */
+    private static final class GaloisField {
+
+        private final int[][] addTable;
+        private final int[][] multiplyTable;
+
+        private GaloisField(int order, int prime, int[] modulus) {
+            int degree = modulus.length - 1;
+            addTable = new int[order][order];
+            multiplyTable = new int[order][order];
+            for (int a = 0; a < order; a++) {
+                for (int b = 0; b < order; b++) {
+                    int[] pa = toPolynomial(a, prime, degree);
+                    int[] pb = toPolynomial(b, prime, degree);
+                    int[] sum = new int[degree];
+                    for (int i = 0; i < degree; i++) {
+                        sum[i] = (pa[i] + pb[i]) % prime;
+                    }
+                    addTable[a][b] = fromPolynomial(sum, prime);
+                    multiplyTable[a][b] = fromPolynomial(multiply(pa, pb, prime, modulus), prime);
+                }
+            }
+        }
+
+        /**
+         * 构造q阶有限域，素数幂使用固定的不可约多项式（系数低位在前）
+         */
+        private static GaloisField of(int order) {
+            return switch (order) {
+                case 2, 3, 5, 7, 11, 13 -> new GaloisField(order, order, new int[]{0, 1});
+                case 4 -> new GaloisField(4, 2, new int[]{1, 1, 1});       // x² + x + 1
+                case 8 -> new GaloisField(8, 2, new int[]{1, 1, 0, 1});    // x³ + x + 1
+                case 9 -> new GaloisField(9, 3, new int[]{1, 0, 1});       // x² + 1
+                default -> throw new IllegalArgumentException("不支持的正交表水平数: " + order);
+            };
+        }
+
+        private int add(int a, int b) {
+            return addTable[a][b];
+        }
+
+        private int multiply(int a, int b) {
+            return multiplyTable[a][b];
+        }
+
+        private static int[] multiply(int[] a, int[] b, int prime, int[] modulus) {
+            int degree = modulus.length - 1;
+            int[] product = new int[2 * degree];
+            for (int i = 0; i < degree; i++) {
+                for (int j = 0; j < degree; j++) {
+                    product[i + j] = (product[i + j] + a[i] * b[j]) % prime;
+                }
+            }
+            // 用首一不可约多项式约化：x^degree = -(低次项)
+            for (int i = product.length - 1; i >= degree; i--) {
+                int coefficient = product[i];
+                if (coefficient == 0) {
+                    continue;
+                }
+                product[i] = 0;
+                for (int j = 0; j < degree; j++) {
+                    product[i - degree + j] = ((product[i - degree + j] - coefficient * modulus[j]) % prime + prime) % prime;
+                }
+            }
+            int[] result = new int[degree];
+            System.arraycopy(product, 0, result, 0, degree);
+            return result;
+        }
+
+        private static int[] toPolynomial(int value, int prime, int degree) {
+            int[] coefficients = new int[degree];
+            for (int i = 0; i < degree; i++) {
+                coefficients[i] = value % prime;
+                value /= prime;
+            }
+            return coefficients;
+        }
+
+        private static int fromPolynomial(int[] coefficients, int prime) {
+            int value = 0;
+            for (int i = coefficients.length - 1; i >= 0; i--) {
+                value = value * prime + coefficients[i];
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.sinosoft.testdesign.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 步骤前缀树
+ * 每条路径（用例的步骤序列）从根节点插入，步骤前缀相同的路径共用节点，所有路径的末尾再汇合到同一个结束节点，
+ * 整体是一个树形的有向无环图。节点记录经过的路径数，路径删除后计数归零的节点随之删除，
+ * 因此单条路径的增删只涉及该路径上的节点，节点ID在增删过程中保持不变。非线程安全。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+public final class StepTrie {
+
+    private final TrieNode root = new TrieNode(0, null, null);
+    /** 路径ID -> 路径记录，保持插入顺序 */
+    private final Map<Long, PathEntry> paths = new LinkedHashMap<>();
+    private int nextNodeId = 1;
+    private int nodeCount;
+
+    /**
+     * 路径是否已按给定版本插入
+     *
+     * @param pathId 路径ID
+     * @param version 路径版本（按引用比较）
+     */
+    public boolean contains(long pathId, Object version) {
+        PathEntry entry = paths.get(pathId);
+        return entry != null && entry.version == version;
+    }
+
+    /**
+     * 插入或替换一条路径，空步骤列表视为删除
+     *
+     * @param pathId 路径ID
+     * @param version 路径版本
+     * @param steps 步骤序列
+     */
+    public void put(long pathId, Object version, List<String> steps) {
+        remove(pathId);
+        if (steps.isEmpty()) {
+            return;
+        }
+        List<TrieNode> nodes = new ArrayList<>(steps.size());
+        TrieNode current = root;
+        for (String step : steps) {
+            TrieNode child = current.children.get(step);
+            if (child == null) {
+                child = new TrieNode(nextNodeId++, step, current);
+                current.children.put(step, child);
+                nodeCount++;
+            }
+            child.pathCount++;
+            nodes.add(child);
+            current = child;
+        }
+        current.terminalCount++;
+        paths.put(pathId, new PathEntry(version, nodes));
+    }
+
+    /**
+     * 删除一条路径
+     */
+    public void remove(long pathId) {
+        PathEntry entry = paths.remove(pathId);
+        if (entry == null) {
+            return;
+        }
+        entry.nodes.get(entry.nodes.size() - 1).terminalCount--;
+        // 从叶子向根递减，计数归零的节点从父节点摘除
+        for (int i = entry.nodes.size() - 1; i >= 0; i--) {
+            TrieNode node = entry.nodes.get(i);
+            if (--node.pathCount == 0) {
+                node.parent.children.remove(node.label);
+                nodeCount--;
+            }
+        }
+    }
+
+    /**
+     * 只保留给定ID的路径
+     */
+    public void retainAll(Collection<Long> pathIds) {
+        Set<Long> keep = pathIds instanceof Set<Long> set ? set : new HashSet<>(pathIds);
+        for (Long pathId : new ArrayList<>(paths.keySet())) {
+            if (!keep.contains(pathId)) {
+                remove(pathId);
+            }
+        }
+    }
+
+    /**
+     * 节点数（不含根节点）
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 路径数
+     */
+    public int pathCount() {
+        return paths.size();
+    }
+
+    /**
+     * 按先序遍历输出节点
+     *
+     * @return 节点列表，父节点在子节点之前
+     */
+    public List<Node> nodes() {
+        List<Node> result = new ArrayList<>(nodeCount);
+        Deque<TrieNode> stack = new ArrayDeque<>();
+        pushChildren(stack, root);
+        while (!stack.isEmpty()) {
+            TrieNode node = stack.pop();
+            result.add(new Node(node.id, node.label, node.parent == root ? 0 : node.parent.id, node.terminalCount > 0));
+            pushChildren(stack, node);
+        }
+        return result;
+    }
+
+    /**
+     * 各路径经过的节点ID，按路径插入顺序
+     */
+    public List<int[]> pathNodeIds() {
+        List<int[]> result = new ArrayList<>(paths.size());
+        for (PathEntry entry : paths.values()) {
+            int[] ids = new int[entry.nodes.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = entry.nodes.get(i).id;
+            }
+            result.add(ids);
+        }
+        return result;
+    }
+
+    private static void pushChildren(Deque<TrieNode> stack, TrieNode node) {
+        // 逆序入栈，使出栈顺序与插入顺序一致
+        List<TrieNode> children = new ArrayList<>(node.children.values());
+        for (int i = children.size() - 1; i >= 0; i--) {
+            stack.push(children.get(i));
+        }
+    }
+
+    /**
+     * 节点快照
+     *
+     * @param id 节点ID（从1开始，删除后不复用）
+     * @param label 步骤文本
+     * @param parentId 父节点ID，根节点的子节点为0
+     * @param terminal 是否有路径在此结束
+     */
+    public record Node(int id, String label, int parentId, boolean terminal) {
+    }
+
+    private static final class TrieNode {
+        private final int id;
+        private final String label;
+        private final TrieNode parent;
+        private final Map<String, TrieNode> children = new LinkedHashMap<>();
+        private int pathCount;
+        private int terminalCount;
+
+        private TrieNode(int id, String label, TrieNode parent) {
+            this.id = id;
+            this.label = label;
+            this.parent = parent;
+        }
+    }
+
+    private record PathEntry(Object version, List<TrieNode> nodes) {
+    }
+}
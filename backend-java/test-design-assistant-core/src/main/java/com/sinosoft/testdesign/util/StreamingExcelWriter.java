@@ -0,0 +1,226 @@
+package com.sinosoft.testdesign.util;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式Excel写入器
+ * 基于SXSSFWorkbook，内存中只保留最近ROW_WINDOW行，更早的行刷写到临时文件，导出大表时内存占用与行数无关。
+ * 列宽在写入单元格时按显示宽度（中文等全角字符计2，多行文本取最长一行）累计最大值，写出时一次性设置，
+ * 不再调用逐行测量字体的autoSizeColumn。单元格样式按类型在首次使用时创建一次，之后所有单元格共用。
+ * 写出后必须close()以删除临时文件。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+public final class StreamingExcelWriter implements Closeable {
+
+    /** 内存中保留的行数 */
+    public static final int ROW_WINDOW = 100;
+
+    /** 列宽范围（1/256字符宽度） */
+    private static final int MIN_COLUMN_WIDTH = 2000;
+    private static final int MAX_COLUMN_WIDTH = 15000;
+
+    /**
+     * 单元格样式
+     */
+    public enum Style {
+        /** 标题：加粗、浅蓝底 */
+        TITLE,
+        /** 表头：加粗、灰底、居中 */
+        HEADER,
+        /** 表头：加粗白字、灰底、居中（用例生成任务导出） */
+        HEADER_WHITE,
+        /** 数据：细边框、自动换行 */
+        DATA,
+        /** 无边框的说明文字 */
+        PLAIN
+    }
+
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final Map<Style, CellStyle> styles = new EnumMap<>(Style.class);
+    /** 各列已写入内容的最大显示宽度（字符数） */
+    private int[] columnChars = new int[16];
+    private int columnCount;
+    private int rowNum;
+
+    public StreamingExcelWriter(String sheetName) {
+        this.workbook = new SXSSFWorkbook(ROW_WINDOW);
+        // 临时文件压缩，超大表时减少磁盘占用
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+    }
+
+    /**
+     * 写入一行
+     *
+     * @param style 单元格样式
+     * @param values 各列取值，null写为空字符串
+     * @return 行号
+     */
+    public int writeRow(Style style, List<String> values) {
+        return writeRow(style, values.toArray(new String[0]));
+    }
+
+    /**
+     * 写入一行
+     *
+     * @param style 单元格样式
+     * @param values 各列取值，null写为空字符串
+     * @return 行号
+     */
+    public int writeRow(Style style, String... values) {
+        int current = rowNum++;
+        Row row = sheet.createRow(current);
+        CellStyle cellStyle = style(style);
+        for (int col = 0; col < values.length; col++) {
+            String value = values[col] != null ? values[col] : "";
+            Cell cell = row.createCell(col);
+            cell.setCellValue(value);
+            cell.setCellStyle(cellStyle);
+            if (style != Style.TITLE) {
+                trackWidth(col, value);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 写入横跨lastColumn+1列的标题行（合并单元格，不参与列宽计算）
+     *
+     * @return 行号
+     */
+    public int writeTitle(String title, int lastColumn) {
+        int current = writeRow(Style.TITLE, title);
+        if (lastColumn > 0) {
+            sheet.addMergedRegion(new CellRangeAddress(current, current, 0, lastColumn));
+        }
+        return current;
+    }
+
+    /**
+     * 跳过一行（空行）
+     */
+    public void skipRow() {
+        rowNum++;
+    }
+
+    /**
+     * 当前行号（下一行写入的位置）
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * 设置列宽并写出到输出流，输出流由调用方关闭
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        for (int col = 0; col < columnCount; col++) {
+            int width = (columnChars[col] + 2) * 256;
+            sheet.setColumnWidth(col, Math.max(MIN_COLUMN_WIDTH, Math.min(MAX_COLUMN_WIDTH, width)));
+        }
+        workbook.write(outputStream);
+    }
+
+    /**
+     * 删除临时文件并关闭工作簿
+     */
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void trackWidth(int col, String value) {
+        if (col >= columnChars.length) {
+            columnChars = Arrays.copyOf(columnChars, Math.max(col + 1, columnChars.length * 2));
+        }
+        columnCount = Math.max(columnCount, col + 1);
+        // 超过最大列宽后不再测量
+        if (columnChars[col] * 256 >= MAX_COLUMN_WIDTH) {
+            return;
+        }
+        columnChars[col] = Math.max(columnChars[col], displayWidth(value));
+    }
+
+    /**
+     * 显示宽度：全角字符计2，多行文本取最长一行
+     */
+    static int displayWidth(String value) {
+        int max = 0;
+        int line = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n') {
+                max = Math.max(max, line);
+                line = 0;
+            } else if (c != '\r') {
+                line += c < 0x1100 ? 1 : 2;
+            }
+        }
+        return Math.max(max, line);
+    }
+
+    private CellStyle style(Style style) {
+        return styles.computeIfAbsent(style, this::createStyle);
+    }
+
+    private CellStyle createStyle(Style style) {
+        CellStyle cellStyle = workbook.createCellStyle();
+        if (style == Style.PLAIN) {
+            return cellStyle;
+        }
+        cellStyle.setBorderTop(BorderStyle.THIN);
+        cellStyle.setBorderBottom(BorderStyle.THIN);
+        cellStyle.setBorderLeft(BorderStyle.THIN);
+        cellStyle.setBorderRight(BorderStyle.THIN);
+        cellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        Font font = workbook.createFont();
+        switch (style) {
+            case TITLE -> {
+                font.setBold(true);
+                font.setFontHeightInPoints((short) 12);
+                cellStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
+                cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            }
+            case HEADER, HEADER_WHITE -> {
+                font.setBold(true);
+                font.setFontHeightInPoints((short) 11);
+                if (style == Style.HEADER_WHITE) {
+                    font.setColor(IndexedColors.WHITE.getIndex());
+                }
+                cellStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+                cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                cellStyle.setAlignment(HorizontalAlignment.CENTER);
+                cellStyle.setWrapText(true);
+            }
+            default -> {
+                font.setFontHeightInPoints((short) 10);
+                cellStyle.setWrapText(true);
+            }
+        }
+        cellStyle.setFont(font);
+        return cellStyle;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sinosoft.testdesign.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 测试步骤分词器
+ * 将用例的测试步骤文本拆分为规范化的步骤列表：按换行、中英文分号分隔，去掉"1."、"①"、"步骤一："等编号，
+ * 并为判断、验证、输入类步骤加上前缀。正则表达式预先编译，不在每次解析时重新编译。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+public final class TestStepTokenizer {
+
+    private static final Pattern SEPARATOR = Pattern.compile("\n|；|;|\\r\\n|\\r");
+    private static final Pattern NUMBER_PREFIX = Pattern.compile("^[\\d①②③④⑤⑥⑦⑧⑨⑩]+[.、：:：]\\s*");
+    private static final Pattern STEP_PREFIX = Pattern.compile("^步骤[\\d一二三四五六七八九十]+[：:]\\s*");
+
+    private TestStepTokenizer() {
+    }
+
+    /**
+     * 解析测试步骤
+     *
+     * @param testStep 测试步骤文本
+     * @return 规范化后的步骤（不可修改），没有有效步骤时为空列表
+     */
+    public static List<String> tokenize(String testStep) {
+        if (testStep == null || testStep.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> steps = new ArrayList<>();
+        for (String part : SEPARATOR.split(testStep)) {
+            String step = part.trim();
+            if (step.length() <= 1) {
+                continue;
+            }
+            step = NUMBER_PREFIX.matcher(step).replaceFirst("");
+            step = STEP_PREFIX.matcher(step).replaceFirst("");
+
+            // 识别条件判断步骤
+            if (step.contains("如果") || step.contains("若") || step.contains("当")) {
+                step = "判断：" + step;
+            }
+            // 识别验证步骤
+            if (step.contains("验证") || step.contains("检查") || step.contains("确认")) {
+                step = "验证：" + step;
+            }
+            // 识别输入步骤
+            if (step.contains("输入") || step.contains("填写") || step.contains("录入")) {
+                step = "输入：" + step;
+            }
+            if (!step.isBlank()) {
+                steps.add(step);
+            }
+        }
+        return Collections.unmodifiableList(steps);
+    }
+}
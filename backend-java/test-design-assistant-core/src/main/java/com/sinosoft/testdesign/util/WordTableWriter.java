@@ -0,0 +1,67 @@
+package com.sinosoft.testdesign.util;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+
+import java.util.List;
+
+/**
+ * Word表格写入工具
+ * XWPF没有流式写入API，文档只能整体构建后写出；这里只创建表头行，数据行按需逐行追加，
+ * 单元格直接写入默认段落，避免预先创建整张空表再逐格删除、重建段落。
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+public final class WordTableWriter {
+
+    private WordTableWriter() {
+    }
+
+    /**
+     * 写入居中加粗的标题段落
+     */
+    public static void writeTitle(XWPFDocument document, String title) {
+        XWPFParagraph paragraph = document.createParagraph();
+        paragraph.setAlignment(ParagraphAlignment.CENTER);
+        XWPFRun run = paragraph.createRun();
+        run.setText(title);
+        run.setBold(true);
+        run.setFontSize(16);
+    }
+
+    /**
+     * 创建只有表头行的表格
+     *
+     * @param document 文档
+     * @param headers 表头
+     * @return 表格
+     */
+    public static XWPFTable createTable(XWPFDocument document, List<String> headers) {
+        XWPFTable table = document.createTable(1, headers.size());
+        fillRow(table.getRow(0), headers);
+        return table;
+    }
+
+    /**
+     * 追加一行数据
+     */
+    public static void appendRow(XWPFTable table, List<String> values) {
+        fillRow(table.createRow(), values);
+    }
+
+    private static void fillRow(XWPFTableRow row, List<String> values) {
+        for (int i = 0; i < values.size(); i++) {
+            XWPFTableCell cell = row.getCell(i);
+            XWPFParagraph paragraph = cell.getParagraphs().isEmpty() ? cell.addParagraph() : cell.getParagraphs().get(0);
+            paragraph.setAlignment(ParagraphAlignment.CENTER);
+            String value = values.get(i);
+            paragraph.createRun().setText(value != null ? value : "");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.sinosoft.testdesign.benchmark;
+
+import com.sinosoft.testdesign.util.CoveringArrayGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 覆盖表生成基准测试
+ * 测量IPOG算法在不同规模下生成配对（t=2）及3-way覆盖表的耗时，目标为20因素×10水平配对表远低于1秒。
+ * 运行方式：先执行 mvn test-compile，再以test classpath运行本类的main方法，例如
+ * mvn -pl test-design-assistant-core exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.sinosoft.testdesign.benchmark.CoveringArrayBenchmark
+ *
+ * @author sinosoft
+ * @date 2026-02-07
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoveringArrayBenchmark {
+
+    /** 因素数 × 水平数 */
+    @Param({"10x3", "20x10", "50x4"})
+    private String shape;
+
+    private int[] levels;
+
+    @Setup
+    public void setUp() {
+        String[] parts = shape.split("x");
+        levels = new int[Integer.parseInt(parts[0])];
+        Arrays.fill(levels, Integer.parseInt(parts[1]));
+    }
+
+    @Benchmark
+    public int[][] pairwise() {
+        return CoveringArrayGenerator.generate(levels, 2);
+    }
+
+    @Benchmark
+    public int[][] threeWay() {
+        return CoveringArrayGenerator.generate(levels, 3);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CoveringArrayBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
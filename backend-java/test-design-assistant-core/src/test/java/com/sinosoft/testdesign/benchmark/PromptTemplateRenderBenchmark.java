@@ -0,0 +1,117 @@
+package com.sinosoft.testdesign.benchmark;
+
+import com.sinosoft.testdesign.util.CompiledPromptTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 提示词模板渲染基准测试
+ * 对比原正则实现（每次调用两遍正则 + StringBuffer）与预编译片段列表的渲染耗时。
+ * 运行方式：先执行 mvn test-compile，再以test classpath运行本类的main方法，例如
+ * mvn -pl test-design-assistant-core exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.sinosoft.testdesign.benchmark.PromptTemplateRenderBenchmark
+ *
+ * @author sinosoft
+ * @date 2026-02-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptTemplateRenderBenchmark {
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{([^}]+)\\}");
+
+    /** 模板中的变量个数 */
+    @Param({"4", "32"})
+    private int variableCount;
+
+    private String templateContent;
+    private Map<String, Object> variables;
+    private CompiledPromptTemplate compiled;
+    /** 原实现中缺失变量检查的结果，写入字段避免被JIT消除 */
+    private int missingVariables;
+
+    @Setup
+    public void setUp() {
+        StringBuilder content = new StringBuilder("你是一名资深测试工程师，请根据以下需求设计测试用例。\n");
+        variables = new HashMap<>();
+        for (int i = 0; i < variableCount; i++) {
+            content.append("第").append(i).append("项输入：{var").append(i).append("}，请覆盖边界值和异常场景。\n");
+            variables.put("var" + i, "用户在登录页面输入用户名和密码后点击登录按钮" + i);
+        }
+        content.append("输出格式为JSON数组，每个元素包含用例名称、前置条件、测试步骤和预期结果。");
+        templateContent = content.toString();
+        compiled = CompiledPromptTemplate.compile(templateContent);
+    }
+
+    @Benchmark
+    public String regexRender() {
+        return legacyGeneratePrompt(templateContent, variables);
+    }
+
+    @Benchmark
+    public String compiledRender() {
+        return compiled.render(variables);
+    }
+
+    @Benchmark
+    public String compileAndRender() {
+        return CompiledPromptTemplate.compile(templateContent).render(variables);
+    }
+
+    /**
+     * 原PromptTemplateServiceImpl.generatePrompt(String, Map)的实现
+     */
+    private String legacyGeneratePrompt(String templateContent, Map<String, Object> variables) {
+        Matcher matcher = VARIABLE_PATTERN.matcher(templateContent);
+        Set<String> requiredVariables = new HashSet<>();
+        while (matcher.find()) {
+            requiredVariables.add(matcher.group(1).trim());
+        }
+        int missing = 0;
+        for (String varName : requiredVariables) {
+            if (!variables.containsKey(varName) || variables.get(varName) == null) {
+                missing++;
+            }
+        }
+        matcher = VARIABLE_PATTERN.matcher(templateContent);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            Object value = variables.get(matcher.group(1).trim());
+            String replacement = value != null ? value.toString() : "";
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(sb);
+        missingVariables = missing;
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PromptTemplateRenderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
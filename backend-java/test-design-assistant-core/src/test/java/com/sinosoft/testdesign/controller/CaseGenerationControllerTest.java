@@ -6,15 +6,26 @@ import com.sinosoft.testdesign.dto.BatchCaseGenerationResult;
 import com.sinosoft.testdesign.dto.CaseGenerationRequest;
 import com.sinosoft.testdesign.dto.CaseGenerationResult;
 import com.sinosoft.testdesign.dto.GenerationTaskDTO;
+import com.sinosoft.testdesign.dto.TaskDetailDTO;
 import com.sinosoft.testdesign.service.IntelligentCaseGenerationService;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -151,5 +162,36 @@ class CaseGenerationControllerTest extends BaseControllerTest {
                 .andExpect(jsonPath("$.data[0].id").value(1L))
                 .andExpect(jsonPath("$.data[1].id").value(2L));
     }
+    
+    @Test
+    @DisplayName("导出任务Excel-完整生成后返回文件，表头为白字灰底")
+    void testExportTaskToExcel_Success() throws Exception {
+        // Given
+        TaskDetailDTO taskDetail = new TaskDetailDTO();
+        taskDetail.setId(1L);
+        taskDetail.setTaskCode("TASK-20240101-001");
+        taskDetail.setTaskStatus("SUCCESS");
+        taskDetail.setTotalCases(0);
+        taskDetail.setSuccessCases(0);
+        taskDetail.setFailCases(0);
+        when(caseGenerationService.getTaskDetail(1L)).thenReturn(taskDetail);
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/v1/case-generation/tasks/{taskId}/export-excel", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString(".xlsx")))
+                .andReturn();
+        
+        // Then
+        byte[] content = result.getResponse().getContentAsByteArray();
+        assertEquals(content.length, result.getResponse().getContentLength());
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(content))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Row headerRow = sheet.getRow(14);
+            assertEquals("用例编码", headerRow.getCell(0).getStringCellValue());
+            CellStyle style = headerRow.getCell(0).getCellStyle();
+            assertEquals(IndexedColors.GREY_25_PERCENT.getIndex(), style.getFillForegroundColor());
+            assertEquals(IndexedColors.WHITE.getIndex(), workbook.getFontAt(style.getFontIndex()).getColor());
+        }
+    }
 }
-
@@ -2,18 +2,29 @@ package com.sinosoft.testdesign.controller;
 
 import com.sinosoft.testdesign.common.BaseControllerTest;
 import com.sinosoft.testdesign.common.TestDataBuilder;
+import com.sinosoft.testdesign.dto.CaseQualityBatchJobDTO;
+import com.sinosoft.testdesign.dto.CaseQualityBatchResponseDTO;
 import com.sinosoft.testdesign.entity.TestCase;
+import com.sinosoft.testdesign.entity.TestCaseQuality;
 import com.sinosoft.testdesign.repository.TestCaseRepository;
+import com.sinosoft.testdesign.service.CaseQualityBatchJobService;
 import com.sinosoft.testdesign.service.TestCaseQualityService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
@@ -31,6 +42,9 @@ class TestCaseQualityControllerTest extends BaseControllerTest {
     @MockBean
     private TestCaseRepository testCaseRepository;
     
+    @MockBean
+    private CaseQualityBatchJobService batchJobService;
+    
     @Test
     @DisplayName("评估用例质量-成功")
     void testAssessQuality_Success() throws Exception {
@@ -145,5 +159,71 @@ class TestCaseQualityControllerTest extends BaseControllerTest {
         mockMvc.perform(get("/v1/test-case-quality/assess/{caseId}", caseId))
                 .andExpect(status().is5xxServerError());
     }
+    
+    @Test
+    @DisplayName("批量评估用例质量-提交任务")
+    void testAssessBatch_Success() throws Exception {
+        // Given
+        CaseQualityBatchJobDTO job = new CaseQualityBatchJobDTO();
+        job.setJobId("5");
+        job.setRequirementId(1L);
+        job.setStatus("PENDING");
+        job.setProgress(0);
+        when(batchJobService.submit(1L)).thenReturn(job);
+        
+        // When & Then
+        mockMvc.perform(post("/v1/test-case-quality/assess/batch").param("requirementId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.jobId").value("5"))
+                .andExpect(jsonPath("$.data.status").value("PENDING"));
+    }
+    
+    @Test
+    @DisplayName("批量评估用例质量-查询任务结果")
+    void testGetBatchJob_Completed() throws Exception {
+        // Given
+        CaseQualityBatchResponseDTO response = new CaseQualityBatchResponseDTO();
+        response.setRequirementId(1L);
+        response.setTotalCount(3);
+        response.setAssessedCount(2);
+        response.setSkippedCount(1);
+        CaseQualityBatchJobDTO job = new CaseQualityBatchJobDTO();
+        job.setJobId("5");
+        job.setStatus("COMPLETED");
+        job.setProgress(100);
+        job.setResult(response);
+        when(batchJobService.getJob("5")).thenReturn(job);
+        
+        // When & Then
+        mockMvc.perform(get("/v1/test-case-quality/assess/batch/{jobId}", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.progress").value(100))
+                .andExpect(jsonPath("$.data.result.assessedCount").value(2))
+                .andExpect(jsonPath("$.data.result.skippedCount").value(1));
+    }
+    
+    @Test
+    @DisplayName("查询用例质量评分-按总分排序")
+    void testGetQualityScores_Success() throws Exception {
+        // Given
+        TestCaseQuality quality = new TestCaseQuality();
+        quality.setCaseId(1L);
+        quality.setTotalScore(new BigDecimal("85.00"));
+        quality.setQualityLevel("良好");
+        when(qualityService.getQualityScores(eq(1L), eq("良好"), eq(80.0), isNull(), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(quality), PageRequest.of(0, 10), 1));
+        
+        // When & Then
+        mockMvc.perform(get("/v1/test-case-quality/scores")
+                .param("requirementId", "1")
+                .param("qualityLevel", "良好")
+                .param("minScore", "80"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.content[0].caseId").value(1))
+                .andExpect(jsonPath("$.data.content[0].totalScore").value(85.00));
+        verify(qualityService).getQualityScores(eq(1L), eq("良好"), eq(80.0), isNull(),
+                argThat(p -> p.getSort().getOrderFor("totalScore").isDescending()));
+    }
 }
-
@@ -1,10 +1,12 @@
 package com.sinosoft.testdesign.controller;
 
 import com.sinosoft.testdesign.common.BaseControllerTest;
+import com.sinosoft.testdesign.dto.ReportExportJobDTO;
 import com.sinosoft.testdesign.dto.TestReportRequestDTO;
 import com.sinosoft.testdesign.dto.TestReportResponseDTO;
 import com.sinosoft.testdesign.entity.TestReport;
 import com.sinosoft.testdesign.mapper.EntityDTOMapper;
+import com.sinosoft.testdesign.service.ReportExportJobService;
 import com.sinosoft.testdesign.service.TestReportService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -37,6 +39,9 @@ class TestReportControllerTest extends BaseControllerTest {
     @MockBean
     private EntityDTOMapper entityDTOMapper;
     
+    @MockBean
+    private ReportExportJobService reportExportJobService;
+    
     @Test
     @DisplayName("生成测试报告-成功")
     void testGenerateReport_Success() throws Exception {
@@ -167,5 +172,41 @@ class TestReportControllerTest extends BaseControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value(200));
     }
+    
+    @Test
+    @DisplayName("提交报告导出任务-成功")
+    void testSubmitExportJob_Success() throws Exception {
+        // Given
+        ReportExportJobDTO job = new ReportExportJobDTO();
+        job.setJobId("job-1");
+        job.setStatus("PENDING");
+        job.setProgress(0);
+        when(reportExportJobService.submit("RPT-20240117-001", "PDF")).thenReturn(job);
+        
+        // When & Then
+        mockMvc.perform(post("/v1/test-reports/{reportCode}/export-jobs", "RPT-20240117-001")
+                        .param("format", "PDF"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.jobId").value("job-1"))
+                .andExpect(jsonPath("$.data.status").value("PENDING"));
+    }
+    
+    @Test
+    @DisplayName("查询报告导出任务-成功")
+    void testGetExportJob_Success() throws Exception {
+        // Given
+        ReportExportJobDTO job = new ReportExportJobDTO();
+        job.setJobId("job-1");
+        job.setStatus("COMPLETED");
+        job.setProgress(100);
+        job.setFileUrl("/api/v1/files/reports/cache/ab/abc.pdf");
+        when(reportExportJobService.getJob("job-1")).thenReturn(job);
+        
+        // When & Then
+        mockMvc.perform(get("/v1/test-reports/export-jobs/{jobId}", "job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.progress").value(100))
+                .andExpect(jsonPath("$.data.fileUrl").value("/api/v1/files/reports/cache/ab/abc.pdf"));
+    }
 }
-
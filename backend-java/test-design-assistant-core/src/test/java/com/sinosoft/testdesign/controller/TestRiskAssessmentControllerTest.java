@@ -1,6 +1,8 @@
 package com.sinosoft.testdesign.controller;
 
 import com.sinosoft.testdesign.common.BaseControllerTest;
+import com.sinosoft.testdesign.dto.ReleaseRiskAssessmentRequestDTO;
+import com.sinosoft.testdesign.dto.ReleaseRiskAssessmentResponseDTO;
 import com.sinosoft.testdesign.dto.TestRiskAssessmentRequestDTO;
 import com.sinosoft.testdesign.dto.TestRiskAssessmentResponseDTO;
 import com.sinosoft.testdesign.entity.TestRiskAssessment;
@@ -72,6 +74,31 @@ class TestRiskAssessmentControllerTest extends BaseControllerTest {
                 .andExpect(jsonPath("$.data.id").value(1L));
     }
     
+    @Test
+    @DisplayName("评估版本上线风险-成功")
+    void testAssessReleaseRisk_Success() throws Exception {
+        // Given
+        ReleaseRiskAssessmentRequestDTO dto = new ReleaseRiskAssessmentRequestDTO();
+        dto.setRequirementIds(List.of(1L, 2L));
+        dto.setExecutionTaskIds(List.of(3L));
+        
+        ReleaseRiskAssessmentResponseDTO response = new ReleaseRiskAssessmentResponseDTO();
+        response.setDecision("CONDITIONAL_GO");
+        response.setMinFeasibilityScore(new BigDecimal("80.00"));
+        
+        when(riskService.assessReleaseRisk(List.of(1L, 2L), List.of(3L)))
+            .thenReturn(response);
+        
+        // When & Then
+        mockMvc.perform(post("/v1/test-risk-assessment/assess/release")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.decision").value("CONDITIONAL_GO"))
+                .andExpect(jsonPath("$.data.minFeasibilityScore").value(80.00));
+    }
+    
     @Test
     @DisplayName("评估需求风险-成功")
     void testAssessRequirementRisk_Success() throws Exception {
@@ -0,0 +1,213 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.AgentContextConfig;
+import com.sinosoft.testdesign.dto.AgentContextDTO;
+import com.sinosoft.testdesign.dto.AgentMessageDTO;
+import com.sinosoft.testdesign.dto.AgentMessagePageDTO;
+import com.sinosoft.testdesign.entity.AgentMessage;
+import com.sinosoft.testdesign.entity.AgentSession;
+import com.sinosoft.testdesign.repository.AgentMessageRepository;
+import com.sinosoft.testdesign.repository.AgentSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Agent会话对话服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Agent会话对话服务测试")
+class AgentConversationServiceImplTest {
+
+    @Mock
+    private AgentSessionRepository sessionRepository;
+
+    @Mock
+    private AgentMessageRepository messageRepository;
+
+    private final List<AgentMessage> stored = new ArrayList<>();
+    private AgentSession session;
+    private AgentContextConfig config;
+    private AgentConversationServiceImpl conversationService;
+
+    @BeforeEach
+    void setUp() {
+        config = new AgentContextConfig();
+        config.setWindowTokenBudget(100);
+        config.setSummaryTokenBudget(40);
+        config.setDigestChars(10);
+        config.setCatchUpBatchSize(3);
+        conversationService = new AgentConversationServiceImpl(sessionRepository, messageRepository, config, new ObjectMapper());
+
+        session = new AgentSession();
+        session.setId(1L);
+        session.setSessionCode("SESSION-001");
+        session.setAgentId(1L);
+        session.setContextData("{\"conversation_history\":[],\"metadata\":{}}");
+        lenient().when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        lenient().when(sessionRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(session));
+        lenient().when(messageRepository.save(any(AgentMessage.class))).thenAnswer(inv -> {
+            AgentMessage message = inv.getArgument(0);
+            message.setId((long) stored.size() + 1);
+            stored.add(message);
+            return message;
+        });
+        lenient().when(messageRepository.findAfter(eq(1L), anyLong(), any(Pageable.class))).thenAnswer(inv ->
+                page(m -> m.getId() > (Long) inv.getArgument(1), Comparator.comparing(AgentMessage::getId), inv.getArgument(2)));
+        lenient().when(messageRepository.findLatest(eq(1L), any(Pageable.class))).thenAnswer(inv ->
+                page(m -> true, Comparator.comparing(AgentMessage::getId).reversed(), inv.getArgument(1)));
+        lenient().when(messageRepository.findBefore(eq(1L), anyLong(), any(Pageable.class))).thenAnswer(inv ->
+                page(m -> m.getId() < (Long) inv.getArgument(1), Comparator.comparing(AgentMessage::getId).reversed(),
+                        inv.getArgument(2)));
+    }
+
+    @Test
+    @DisplayName("上下文窗口-长会话的上下文大小有上限，早期消息进入摘要")
+    void testContextBounded() {
+        for (int i = 1; i <= 50; i++) {
+            conversationService.appendMessage(1L, message(i % 2 == 1 ? "user" : "assistant", "第" + i + "轮" + "内容".repeat(40), 30));
+        }
+
+        AgentContextDTO context = conversationService.getContext(1L);
+
+        assertEquals(50L, context.getLastMessageId());
+        assertTrue(context.getEstimatedTokens() <= config.getWindowTokenBudget() + config.getSummaryTokenBudget());
+        assertEquals(2, context.getMessages().size());
+        assertTrue(context.getMessages().get(1).get("content").startsWith("第50轮"));
+        assertEquals(48, context.getSummarizedMessages());
+        assertTrue(context.getSummary().startsWith("（更早的"));
+        assertTrue(context.getSummary().endsWith("assistant: 第48轮内容内容内容…"));
+        assertEquals(1500, session.getTotalTokens());
+        // 窗口与Python引擎的上下文数据共存
+        assertTrue(session.getContextData().contains("\"conversation_history\""));
+        assertTrue(session.getContextData().contains("\"" + AgentConversationServiceImpl.CONTEXT_WINDOW_KEY + "\""));
+    }
+
+    @Test
+    @DisplayName("上下文窗口-纳入外部写入的消息，重启后从context_data恢复")
+    void testContextCatchUpAndRestore() {
+        conversationService.appendMessage(1L, message("user", "你好", 1));
+        // Python引擎直接写入的消息
+        for (int i = 0; i < 7; i++) {
+            AgentMessage external = message("assistant", "回复" + i, 1);
+            external.setSessionId(1L);
+            messageRepository.save(external);
+        }
+
+        clearInvocations(sessionRepository);
+        AgentContextDTO context = conversationService.getContext(1L);
+        assertEquals(8, context.getMessages().size());
+        assertEquals(8L, context.getLastMessageId());
+        assertNull(context.getSummary());
+        // 查询上下文只读，不写会话
+        verify(sessionRepository, never()).save(any());
+
+        // 下次追加消息时从缓存的窗口继续，并写回context_data
+        conversationService.appendMessage(1L, message("user", "继续", 1));
+        context = conversationService.getContext(1L);
+        assertEquals(9, context.getMessages().size());
+
+        // 新实例（无本地缓存）从context_data恢复窗口，只读取之后的新消息
+        AgentConversationServiceImpl restarted =
+                new AgentConversationServiceImpl(sessionRepository, messageRepository, config, new ObjectMapper());
+        clearInvocations(messageRepository);
+        AgentContextDTO restored = restarted.getContext(1L);
+        assertEquals(context, restored);
+        verify(messageRepository).findAfter(eq(1L), eq(9L), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("追加消息-事务回滚时本地缓存的窗口不变，提交后才替换")
+    void testAppendMessage_CacheUpdatedAfterCommit() {
+        conversationService.appendMessage(1L, message("user", "你好", 1));
+        String committedContext = session.getContextData();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            conversationService.appendMessage(1L, message("assistant", "回滚的回复", 1));
+            // 模拟回滚：消息和会话都未写入
+            stored.remove(stored.size() - 1);
+            session.setContextData(committedContext);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        AgentContextDTO context = conversationService.getContext(1L);
+        assertEquals(1L, context.getLastMessageId());
+        assertEquals(1, context.getMessages().size());
+
+        conversationService.appendMessage(1L, message("assistant", "新的回复", 1));
+        context = conversationService.getContext(1L);
+        assertEquals(List.of("你好", "新的回复"), context.getMessages().stream().map(m -> m.get("content")).toList());
+    }
+
+    @Test
+    @DisplayName("追加消息-会话已关闭时拒绝")
+    void testAppendMessage_SessionClosed() {
+        session.setStatus("CLOSED");
+
+        assertThrows(BusinessException.class, () -> conversationService.appendMessage(1L, message("user", "你好", 1)));
+        verify(messageRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("消息分页-按游标从新到旧翻页")
+    void testListMessages_Keyset() {
+        for (int i = 1; i <= 5; i++) {
+            conversationService.appendMessage(1L, message("user", "消息" + i, 1));
+        }
+
+        AgentMessagePageDTO first = conversationService.listMessages(1L, null, 2);
+        assertEquals(List.of(5L, 4L), first.getMessages().stream().map(AgentMessageDTO::getId).toList());
+        assertTrue(first.isHasMore());
+
+        AgentMessagePageDTO second = conversationService.listMessages(1L, first.getNextCursor(), 2);
+        assertEquals(List.of(3L, 2L), second.getMessages().stream().map(AgentMessageDTO::getId).toList());
+
+        AgentMessagePageDTO last = conversationService.listMessages(1L, second.getNextCursor(), 2);
+        assertEquals(List.of(1L), last.getMessages().stream().map(AgentMessageDTO::getId).toList());
+        assertFalse(last.isHasMore());
+        assertNull(last.getNextCursor());
+    }
+
+    private List<AgentMessageDTO> page(Predicate<AgentMessage> filter, Comparator<AgentMessage> order, Pageable pageable) {
+        return stored.stream()
+                .filter(filter)
+                .sorted(order)
+                .limit(pageable.getPageSize())
+                .map(m -> new AgentMessageDTO(m.getId(), m.getMessageType(), m.getRole(), m.getContent(),
+                        m.getTokensUsed(), m.getModelCode(), m.getCreateTime()))
+                .toList();
+    }
+
+    private static AgentMessage message(String role, String content, int tokens) {
+        AgentMessage message = new AgentMessage();
+        message.setRole(role);
+        message.setContent(content);
+        message.setTokensUsed(tokens);
+        return message;
+    }
+}
@@ -0,0 +1,332 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.config.AgentToolExecutionConfig;
+import com.sinosoft.testdesign.dto.AgentToolCallRequestDTO;
+import com.sinosoft.testdesign.entity.AgentSession;
+import com.sinosoft.testdesign.entity.AgentTool;
+import com.sinosoft.testdesign.entity.AgentToolCall;
+import com.sinosoft.testdesign.entity.AgentToolRelation;
+import com.sinosoft.testdesign.repository.AgentSessionRepository;
+import com.sinosoft.testdesign.repository.AgentToolCallRepository;
+import com.sinosoft.testdesign.repository.AgentToolRelationRepository;
+import com.sinosoft.testdesign.repository.AgentToolRepository;
+import com.sinosoft.testdesign.service.AgentToolHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Agent工具执行服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Agent工具执行服务测试")
+class AgentToolExecutionServiceImplTest {
+
+    @Mock
+    private AgentSessionRepository sessionRepository;
+
+    @Mock
+    private AgentToolRepository toolRepository;
+
+    @Mock
+    private AgentToolRelationRepository relationRepository;
+
+    @Mock
+    private AgentToolCallRepository toolCallRepository;
+
+    private final List<AgentTool> tools = new ArrayList<>();
+    private final AtomicInteger slowInvocations = new AtomicInteger();
+    private final AtomicInteger lookupInvocations = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private AgentToolExecutionServiceImpl toolExecutionService;
+
+    @BeforeEach
+    void setUp() {
+        AgentSession session = new AgentSession();
+        session.setId(1L);
+        session.setAgentId(10L);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        lenient().when(relationRepository.findByAgentIdAndEnabled(10L)).thenAnswer(inv -> tools.stream().map(tool -> {
+            AgentToolRelation relation = new AgentToolRelation();
+            relation.setAgentId(10L);
+            relation.setToolId(tool.getId());
+            return relation;
+        }).toList());
+        lenient().when(toolRepository.findAllById(anyIterable())).thenAnswer(inv -> tools);
+        lenient().when(toolCallRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        AgentToolHandler slow = handler("slow_search", arguments -> {
+            slowInvocations.incrementAndGet();
+            int concurrent = running.incrementAndGet();
+            maxRunning.accumulateAndGet(concurrent, Math::max);
+            try {
+                Thread.sleep(((Number) arguments.getOrDefault("sleep_ms", 300)).longValue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted");
+            } finally {
+                running.decrementAndGet();
+            }
+            return Map.of("success", true, "query", arguments.getOrDefault("query", ""));
+        });
+        AgentToolHandler lookup = handler("lookup", arguments -> {
+            lookupInvocations.incrementAndGet();
+            if (arguments.containsKey("fail")) {
+                throw new IllegalArgumentException("参数错误");
+            }
+            return Map.of("success", true, "id", arguments.get("id"));
+        });
+        toolExecutionService = new AgentToolExecutionServiceImpl(sessionRepository, toolRepository, relationRepository,
+                toolCallRepository, new AgentToolExecutionConfig(), new ObjectMapper(), List.of(slow, lookup));
+    }
+
+    @AfterEach
+    void tearDown() {
+        toolExecutionService.shutdown();
+    }
+
+    @Test
+    @DisplayName("并发执行-同一轮的调用并行运行，记录按请求顺序一次保存")
+    void testExecuteToolCalls_Parallel() {
+        tools.add(tool(1L, "slow_search", null));
+        tools.add(tool(2L, "lookup", null));
+
+        long start = System.currentTimeMillis();
+        List<AgentToolCall> records = toolExecutionService.executeToolCalls(1L, 5L, List.of(
+                call("slow_search", Map.of("query", "a")),
+                call("slow_search", Map.of("query", "b")),
+                call("slow_search", Map.of("query", "c")),
+                call("lookup", Map.of("id", 1, "fail", true)),
+                call("unknown_tool", Map.of())));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 800, "三个300ms的调用应并行执行，实际耗时" + elapsed + "ms");
+        assertEquals(List.of("SUCCESS", "SUCCESS", "SUCCESS", "FAILED", "FAILED"),
+                records.stream().map(AgentToolCall::getCallStatus).toList());
+        assertTrue(records.get(1).getCallResult().contains("\"b\""));
+        assertEquals("参数错误", records.get(3).getErrorMessage());
+        assertEquals("工具不存在或未授权给该Agent", records.get(4).getErrorMessage());
+        assertTrue(records.stream().allMatch(r -> r.getSessionId() == 1L && r.getMessageId() == 5L));
+        verify(toolCallRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("超时与并发上限-超时的调用记为TIMEOUT，同一工具的并发不超过上限")
+    void testExecuteToolCalls_TimeoutAndConcurrencyCap() {
+        tools.add(tool(1L, "slow_search", "{\"timeout_ms\": 1000, \"max_concurrency\": 1}"));
+
+        List<AgentToolCall> records = toolExecutionService.executeToolCalls(1L, null, List.of(
+                call("slow_search", Map.of("query", "a", "sleep_ms", 100)),
+                call("slow_search", Map.of("query", "b", "sleep_ms", 100)),
+                call("slow_search", Map.of("query", "c", "sleep_ms", 5000))));
+
+        assertEquals(List.of("SUCCESS", "SUCCESS", "TIMEOUT"), records.stream().map(AgentToolCall::getCallStatus).toList());
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("幂等工具-参数相同（键顺序不同）的调用复用结果")
+    void testExecuteToolCalls_IdempotentCache() {
+        tools.add(tool(2L, "lookup", "{\"idempotent\": true}"));
+        tools.add(tool(1L, "slow_search", "{\"idempotent\": false}"));
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("id", 7);
+        args.put("scope", "all");
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("scope", "all");
+        reordered.put("id", 7);
+
+        List<AgentToolCall> first = toolExecutionService.executeToolCalls(1L, null, List.of(
+                call("lookup", args), call("lookup", reordered),
+                call("slow_search", Map.of("sleep_ms", 1)), call("slow_search", Map.of("sleep_ms", 1))));
+        List<AgentToolCall> second = toolExecutionService.executeToolCalls(1L, null, List.of(call("lookup", reordered)));
+
+        assertEquals(1, lookupInvocations.get());
+        assertEquals(2, slowInvocations.get());
+        assertEquals(first.get(0).getCallResult(), second.get(0).getCallResult());
+        assertEquals(first.get(0).getCallArguments(), first.get(1).getCallArguments());
+    }
+
+    @Test
+    @DisplayName("幂等工具-缓存的结果每次返回副本")
+    @SuppressWarnings("unchecked")
+    void testExecuteToolCalls_CachedResultCopied() {
+        tools.add(tool(2L, "lookup", "{\"idempotent\": true}"));
+        AgentToolHandler mutating = handler("lookup", arguments -> {
+            lookupInvocations.incrementAndGet();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("items", new ArrayList<>(List.of("a")));
+            return result;
+        });
+        toolExecutionService.shutdown();
+        toolExecutionService = new AgentToolExecutionServiceImpl(sessionRepository, toolRepository, relationRepository,
+                toolCallRepository, new AgentToolExecutionConfig(), new ObjectMapper(), List.of(mutating));
+        toolExecutionService.executeToolCalls(1L, null, List.of(call("lookup", Map.of("id", 1))));
+
+        String key = "lookup\u0000{\"id\":1}";
+        Map<String, Object> first = toolExecutionService.cachedResult(key);
+        ((List<Object>) first.get("items")).add("b");
+        Map<String, Object> second = toolExecutionService.cachedResult(key);
+
+        assertEquals(List.of("a"), second.get("items"));
+        assertEquals(1, lookupInvocations.get());
+    }
+
+    @Test
+    @DisplayName("幂等工具-并发会话共享执行，先超时的调用方不中断其他调用方的等待")
+    void testExecuteToolCalls_SharedCallTimesOutPerWaiter() throws Exception {
+        tools.add(tool(1L, "slow_search", "{\"idempotent\": true, \"timeout_ms\": 400}"));
+        Map<String, Object> args = Map.of("query", "a", "sleep_ms", 500);
+
+        CompletableFuture<List<AgentToolCall>> early = CompletableFuture.supplyAsync(() ->
+                toolExecutionService.executeToolCalls(1L, null, List.of(call("slow_search", args))));
+        Thread.sleep(200);
+        List<AgentToolCall> late = toolExecutionService.executeToolCalls(1L, null, List.of(call("slow_search", args)));
+
+        assertEquals("TIMEOUT", early.get().get(0).getCallStatus());
+        assertEquals("SUCCESS", late.get(0).getCallStatus());
+        assertEquals(1, slowInvocations.get());
+    }
+
+    @Test
+    @DisplayName("并发上限-修改上限后按工具编码调整名额，执行中的调用仍计入上限")
+    void testExecuteToolCalls_ConcurrencyResizedPerTool() throws Exception {
+        AgentTool slowTool = tool(1L, "slow_search", "{\"max_concurrency\": 1}");
+        tools.add(slowTool);
+
+        CompletableFuture<List<AgentToolCall>> first = CompletableFuture.supplyAsync(() ->
+                toolExecutionService.executeToolCalls(1L, null, List.of(
+                        call("slow_search", Map.of("query", "a")), call("slow_search", Map.of("query", "b")))));
+        Thread.sleep(100);
+        slowTool.setToolConfig("{\"max_concurrency\": 2}");
+        List<AgentToolCall> second = toolExecutionService.executeToolCalls(1L, null, List.of(
+                call("slow_search", Map.of("query", "c")), call("slow_search", Map.of("query", "d"))));
+
+        assertTrue(first.get().stream().allMatch(r -> "SUCCESS".equals(r.getCallStatus())));
+        assertTrue(second.stream().allMatch(r -> "SUCCESS".equals(r.getCallStatus())));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("并发上限-等待名额的调用不占用线程，其他工具的调用不被阻塞")
+    void testExecuteToolCalls_WaitingCallsDoNotHoldPoolThreads() throws Exception {
+        tools.add(tool(1L, "slow_search", "{\"max_concurrency\": 1}"));
+        tools.add(tool(2L, "lookup", null));
+        AgentToolExecutionConfig config = new AgentToolExecutionConfig();
+        config.setPoolSize(2);
+        toolExecutionService.shutdown();
+        toolExecutionService = new AgentToolExecutionServiceImpl(sessionRepository, toolRepository, relationRepository,
+                toolCallRepository, config, new ObjectMapper(), List.of(
+                        handler("slow_search", arguments -> {
+                            slowInvocations.incrementAndGet();
+                            int concurrent = running.incrementAndGet();
+                            maxRunning.accumulateAndGet(concurrent, Math::max);
+                            try {
+                                Thread.sleep(300);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            } finally {
+                                running.decrementAndGet();
+                            }
+                            return Map.of("success", true);
+                        }),
+                        handler("lookup", arguments -> Map.of("success", true))));
+
+        CompletableFuture<List<AgentToolCall>> slowCalls = CompletableFuture.supplyAsync(() ->
+                toolExecutionService.executeToolCalls(1L, null, List.of(
+                        call("slow_search", Map.of("query", "a")),
+                        call("slow_search", Map.of("query", "b")),
+                        call("slow_search", Map.of("query", "c")))));
+        Thread.sleep(100);
+        long start = System.currentTimeMillis();
+        List<AgentToolCall> lookup = toolExecutionService.executeToolCalls(1L, null, List.of(call("lookup", Map.of())));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals("SUCCESS", lookup.get(0).getCallStatus());
+        assertTrue(elapsed < 150, "等待名额的调用不应占用线程，实际耗时" + elapsed + "ms");
+        assertTrue(slowCalls.get().stream().allMatch(r -> "SUCCESS".equals(r.getCallStatus())));
+        assertEquals(1, maxRunning.get());
+        assertEquals(3, slowInvocations.get());
+    }
+
+    @Test
+    @DisplayName("幂等工具-同时发起的相同调用只执行一次")
+    void testExecuteToolCalls_ConcurrentIdenticalCallsRunOnce() throws Exception {
+        tools.add(tool(1L, "slow_search", "{\"idempotent\": true, \"max_concurrency\": 8}"));
+        Map<String, Object> args = Map.of("query", "a", "sleep_ms", 200);
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<AgentToolCall>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return toolExecutionService.executeToolCalls(1L, null, List.of(call("slow_search", args)));
+                }));
+            }
+            start.countDown();
+            for (Future<List<AgentToolCall>> future : futures) {
+                assertEquals("SUCCESS", future.get(5, TimeUnit.SECONDS).get(0).getCallStatus());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, slowInvocations.get());
+    }
+
+    private static AgentTool tool(Long id, String code, String toolConfig) {
+        AgentTool tool = new AgentTool();
+        tool.setId(id);
+        tool.setToolCode(code);
+        tool.setToolName(code);
+        tool.setToolConfig(toolConfig);
+        return tool;
+    }
+
+    private static AgentToolCallRequestDTO call(String toolCode, Map<String, Object> arguments) {
+        return new AgentToolCallRequestDTO(toolCode, arguments);
+    }
+
+    private static AgentToolHandler handler(String code, Function<Map<String, Object>, Map<String, Object>> body) {
+        return new AgentToolHandler() {
+            @Override
+            public String toolCode() {
+                return code;
+            }
+
+            @Override
+            public Map<String, Object> execute(Map<String, Object> arguments) {
+                return body.apply(arguments);
+            }
+        };
+    }
+}
@@ -0,0 +1,207 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.AiRequestCoalescingConfig;
+import com.sinosoft.testdesign.metrics.BusinessMetricsCollector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AI请求合并服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-03
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("AI请求合并服务测试")
+class AiRequestCoalescingServiceImplTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOps;
+
+    @Mock
+    private BusinessMetricsCollector metricsCollector;
+
+    private AiRequestCoalescingConfig config;
+    private AiRequestCoalescingServiceImpl coalescingService;
+
+    @BeforeEach
+    void setUp() {
+        config = new AiRequestCoalescingConfig();
+        config.setPollIntervalMillis(10);
+        config.setWaitTimeoutSeconds(5);
+        coalescingService = new AiRequestCoalescingServiceImpl(stringRedisTemplate, config, metricsCollector);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOps);
+    }
+
+    @Test
+    @DisplayName("本节点并发相同请求-只调用一次")
+    void testExecute_ConcurrentIdenticalRequestsLoadOnce() throws Exception {
+        config.setClusterEnabled(false);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Map<String, Object>> leader = executor.submit(() -> coalescingService.execute("CASE_GENERATION", "h1",
+                    () -> {
+                        loads.incrementAndGet();
+                        loaderStarted.countDown();
+                        await(releaseLoader);
+                        return Map.of("status", "success");
+                    }, null));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            Future<Map<String, Object>> follower1 = executor.submit(() -> coalescingService.execute("CASE_GENERATION", "h1",
+                    () -> {
+                        loads.incrementAndGet();
+                        return Map.of("status", "duplicate");
+                    }, null));
+            Future<Map<String, Object>> follower2 = executor.submit(() -> coalescingService.execute("CASE_GENERATION", "h1",
+                    () -> {
+                        loads.incrementAndGet();
+                        return Map.of("status", "duplicate");
+                    }, null));
+            waitUntilInFlightFollowers();
+            releaseLoader.countDown();
+
+            assertEquals("success", leader.get(5, TimeUnit.SECONDS).get("status"));
+            assertEquals("success", follower1.get(5, TimeUnit.SECONDS).get("status"));
+            assertEquals("success", follower2.get(5, TimeUnit.SECONDS).get("status"));
+            assertEquals(1, loads.get());
+            verify(metricsCollector, times(2)).recordAiRequestCoalesced("CASE_GENERATION", "local");
+            assertEquals(2L, coalescingService.getStatistics().get("localCoalesced"));
+            assertEquals(0, coalescingService.getStatistics().get("inFlight"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("本节点领头调用失败-等待方收到相同异常")
+    void testExecute_LeaderFailurePropagates() throws Exception {
+        config.setClusterEnabled(false);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, Object>> leader = executor.submit(() -> coalescingService.execute("CASE_GENERATION", "h2",
+                    () -> {
+                        loaderStarted.countDown();
+                        await(releaseLoader);
+                        throw new IllegalStateException("AI服务不可用");
+                    }, null));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<Map<String, Object>> follower = executor.submit(() -> coalescingService.execute("CASE_GENERATION", "h2",
+                    () -> Map.of("status", "success"), null));
+            waitUntilInFlightFollowers();
+            releaseLoader.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+            assertInstanceOf(IllegalStateException.class, followerError.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("跨节点-获取锁后调用并释放锁")
+    void testExecute_ClusterLockAcquired() {
+        when(valueOps.setIfAbsent(eq("ai:inflight:h3"), anyString(), any(Duration.class))).thenReturn(true);
+
+        Map<String, Object> result = coalescingService.execute("CASE_GENERATION", "h3",
+                () -> Map.of("status", "success"), () -> null);
+
+        assertEquals("success", result.get("status"));
+        verify(stringRedisTemplate).execute(any(), eq(java.util.List.of("ai:inflight:h3")), anyString());
+        verify(metricsCollector, never()).recordAiRequestCoalesced(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("跨节点-锁被其他节点持有时复用其结果")
+    void testExecute_ClusterWaitsForSharedResult() {
+        when(valueOps.setIfAbsent(eq("ai:inflight:h4"), anyString(), any(Duration.class))).thenReturn(false);
+        when(stringRedisTemplate.hasKey("ai:inflight:h4")).thenReturn(true);
+        AtomicInteger polls = new AtomicInteger();
+        AtomicInteger loads = new AtomicInteger();
+
+        Map<String, Object> result = coalescingService.execute("CASE_GENERATION", "h4",
+                () -> {
+                    loads.incrementAndGet();
+                    return Map.of("status", "self");
+                },
+                () -> polls.incrementAndGet() >= 3 ? Map.of("status", "shared") : null);
+
+        assertEquals("shared", result.get("status"));
+        assertEquals(0, loads.get());
+        verify(metricsCollector).recordAiRequestCoalesced("CASE_GENERATION", "cluster");
+    }
+
+    @Test
+    @DisplayName("跨节点-锁释放但无可复用结果时自行调用")
+    void testExecute_ClusterLockReleasedWithoutResult() {
+        when(valueOps.setIfAbsent(eq("ai:inflight:h5"), anyString(), any(Duration.class))).thenReturn(false);
+        when(stringRedisTemplate.hasKey("ai:inflight:h5")).thenReturn(false);
+
+        Map<String, Object> result = coalescingService.execute("CASE_GENERATION", "h5",
+                () -> Map.of("status", "self"), () -> null);
+
+        assertEquals("self", result.get("status"));
+        verify(metricsCollector, never()).recordAiRequestCoalesced(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("关闭合并时直接调用")
+    void testExecute_Disabled() {
+        config.setEnabled(false);
+
+        Map<String, Object> result = coalescingService.execute("CASE_GENERATION", "h6",
+                () -> Map.of("status", "success"), () -> null);
+
+        assertEquals("success", result.get("status"));
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    /**
+     * 等待方提交后稍作等待，确保其已挂到进行中的请求上
+     */
+    private void waitUntilInFlightFollowers() throws InterruptedException {
+        Thread.sleep(200);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.config.AiRequestCoalescingConfig;
+import com.sinosoft.testdesign.config.AiResponseCacheConfig;
+import com.sinosoft.testdesign.metrics.BusinessMetricsCollector;
+import com.sinosoft.testdesign.service.AiResponseCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AI响应缓存服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-02
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("AI响应缓存服务测试")
+class AiResponseCacheServiceImplTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOps;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOps;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOps;
+
+    @Mock
+    private BusinessMetricsCollector metricsCollector;
+
+    private AiResponseCacheConfig cacheConfig;
+    private AiResponseCacheServiceImpl cacheService;
+    private final Map<String, String> redisValues = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        cacheConfig = new AiResponseCacheConfig();
+        AiRequestCoalescingConfig coalescingConfig = new AiRequestCoalescingConfig();
+        coalescingConfig.setClusterEnabled(false);
+        cacheService = new AiResponseCacheServiceImpl(stringRedisTemplate, new ObjectMapper(),
+                cacheConfig, metricsCollector,
+                new AiRequestCoalescingServiceImpl(stringRedisTemplate, coalescingConfig, metricsCollector));
+
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOps);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOps);
+        when(valueOps.get(anyString())).thenAnswer(invocation -> redisValues.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> {
+            redisValues.put(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(valueOps).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        when(zSetOps.zCard(anyString())).thenReturn(1L);
+    }
+
+    @Test
+    @DisplayName("规范化哈希-键顺序和空白不影响结果")
+    void testCanonicalHash_IgnoresKeyOrderAndWhitespace() {
+        Map<String, Object> first = new HashMap<>();
+        first.put("requirement_text", "用户登录\r\n  输入用户名和密码");
+        first.put("layer_code", "SYSTEM");
+        first.put("model_code", "deepseek");
+
+        Map<String, Object> second = new java.util.LinkedHashMap<>();
+        second.put("model_code", "deepseek");
+        second.put("layer_code", "SYSTEM");
+        second.put("requirement_text", "  用户登录 输入用户名和密码 ");
+
+        String hash1 = cacheService.canonicalHash(AiResponseCacheService.TASK_CASE_GENERATION, first, null);
+        String hash2 = cacheService.canonicalHash(AiResponseCacheService.TASK_CASE_GENERATION, second, null);
+
+        assertEquals(hash1, hash2);
+        assertEquals(64, hash1.length());
+    }
+
+    @Test
+    @DisplayName("规范化哈希-模型或模板版本不同则不同")
+    void testCanonicalHash_DiffersByModelAndTemplateVersion() {
+        Map<String, Object> request = Map.of("requirement_text", "用户登录", "model_code", "deepseek");
+        Map<String, Object> otherModel = Map.of("requirement_text", "用户登录", "model_code", "qwen");
+
+        String base = cacheService.canonicalHash("CASE_GENERATION", request, Map.of("template_version", 1));
+        assertNotEquals(base, cacheService.canonicalHash("CASE_GENERATION", otherModel, Map.of("template_version", 1)));
+        assertNotEquals(base, cacheService.canonicalHash("CASE_GENERATION", request, Map.of("template_version", 2)));
+        assertNotEquals(base, cacheService.canonicalHash("REQUIREMENT_ANALYSIS", request, Map.of("template_version", 1)));
+    }
+
+    @Test
+    @DisplayName("获取或加载-第二次请求命中缓存")
+    void testGetOrLoad_SecondCallHitsCache() {
+        Map<String, Object> request = Map.of("requirement_text", "用户登录", "model_code", "deepseek");
+        AtomicInteger loads = new AtomicInteger();
+
+        Map<String, Object> first = cacheService.getOrLoad("CASE_GENERATION", request,
+                r -> "success".equals(r.get("status")),
+                () -> {
+                    loads.incrementAndGet();
+                    return Map.of("status", "success", "cases", List.of(Map.of("case_name", "登录成功")), "tokens_used", 120);
+                });
+        Map<String, Object> second = cacheService.getOrLoad("CASE_GENERATION", request,
+                r -> "success".equals(r.get("status")),
+                () -> {
+                    loads.incrementAndGet();
+                    return Map.of("status", "success");
+                });
+
+        assertEquals(1, loads.get());
+        assertEquals(first, second);
+        verify(metricsCollector).recordAiCacheMiss("CASE_GENERATION");
+        verify(metricsCollector).recordAiCacheHit("CASE_GENERATION", "exact", 120L);
+
+        Map<String, Object> statistics = cacheService.getStatistics();
+        assertEquals(1L, statistics.get("hits"));
+        assertEquals(1L, statistics.get("misses"));
+        assertEquals(50.0, statistics.get("hitRate"));
+        assertEquals(120L, statistics.get("tokensSaved"));
+    }
+
+    @Test
+    @DisplayName("获取或加载-失败响应不缓存")
+    void testGetOrLoad_FailedResponseNotCached() {
+        Map<String, Object> request = Map.of("requirement_text", "用户登录");
+
+        cacheService.getOrLoad("CASE_GENERATION", request,
+                r -> "success".equals(r.get("status")),
+                () -> Map.of("status", "error"));
+
+        verify(valueOps, never()).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    @DisplayName("获取或加载-Redis不可用时直接调用")
+    void testGetOrLoad_RedisUnavailable() {
+        when(valueOps.get(anyString())).thenThrow(new RedisConnectionFailureException("connection refused"));
+        doThrow(new RedisConnectionFailureException("connection refused"))
+                .when(valueOps).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+
+        Map<String, Object> result = cacheService.getOrLoad("CASE_GENERATION", Map.of("requirement_text", "用户登录"),
+                r -> true, () -> Map.of("status", "success"));
+
+        assertEquals("success", result.get("status"));
+    }
+
+    @Test
+    @DisplayName("获取或加载-关闭缓存时不访问Redis")
+    void testGetOrLoad_Disabled() {
+        cacheConfig.setEnabled(false);
+
+        Map<String, Object> result = cacheService.getOrLoad("CASE_GENERATION", Map.of("requirement_text", "用户登录"),
+                r -> true, () -> Map.of("status", "success"));
+
+        assertEquals("success", result.get("status"));
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    @DisplayName("超出条目上限-淘汰最早写入的条目")
+    void testGetOrLoad_TrimsOldestEntries() {
+        cacheConfig.setMaxEntriesPerTaskType(2);
+        when(zSetOps.zCard(anyString())).thenReturn(3L);
+        when(zSetOps.range(anyString(), eq(0L), eq(0L))).thenReturn(java.util.Set.of("oldest"));
+
+        cacheService.getOrLoad("CASE_GENERATION", Map.of("requirement_text", "用户登录"),
+                r -> true, () -> Map.of("status", "success"));
+
+        verify(stringRedisTemplate).delete(List.of("ai:resp:entry:CASE_GENERATION:oldest"));
+        verify(zSetOps).removeRange("ai:resp:idx:CASE_GENERATION", 0, 0);
+    }
+
+    @Test
+    @DisplayName("近似匹配桶已满-只淘汰最早写入的候选，不清空整个桶")
+    void testGetOrLoad_SimilarBucketEvictsOldestCandidate() {
+        cacheConfig.setSimilarityEnabled(true);
+        cacheConfig.setSimilarityMaxCandidates(2);
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOps);
+        when(hashOps.size(anyString())).thenReturn(2L);
+        when(hashOps.hasKey(anyString(), any())).thenReturn(false);
+        Map<Object, Object> bucket = new java.util.LinkedHashMap<>();
+        bucket.put("a1", "hash-new");
+        bucket.put("b2", "hash-old");
+        when(hashOps.entries(anyString())).thenReturn(bucket);
+        when(zSetOps.score(eq("ai:resp:idx:CASE_GENERATION"), any(Object[].class)))
+                .thenReturn(java.util.Arrays.asList(2000.0, 1000.0));
+
+        cacheService.getOrLoad("CASE_GENERATION", Map.of("requirement_text", "用户登录"),
+                r -> true, () -> Map.of("status", "success"));
+
+        verify(hashOps).delete(startsWith("ai:resp:sim:CASE_GENERATION:"), eq("b2"));
+        verify(hashOps).put(startsWith("ai:resp:sim:CASE_GENERATION:"), anyString(), anyString());
+        verify(stringRedisTemplate, never()).delete(startsWith("ai:resp:sim:"));
+    }
+
+    @Test
+    @DisplayName("清除缓存-近似匹配桶用SCAN查找，不使用KEYS")
+    @SuppressWarnings("unchecked")
+    void testEvict_ScansSimilarBuckets() {
+        when(zSetOps.range("ai:resp:idx:CASE_GENERATION", 0, -1)).thenReturn(java.util.Set.of("h1"));
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn("ai:resp:sim:CASE_GENERATION:s1", "ai:resp:sim:CASE_GENERATION:s2");
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+
+        cacheService.evict("CASE_GENERATION");
+
+        verify(stringRedisTemplate).delete(List.of("ai:resp:entry:CASE_GENERATION:h1", "ai:resp:idx:CASE_GENERATION"));
+        verify(stringRedisTemplate).delete(List.of("ai:resp:sim:CASE_GENERATION:s1", "ai:resp:sim:CASE_GENERATION:s2"));
+        verify(stringRedisTemplate, never()).keys(anyString());
+        verify(cursor).close();
+    }
+
+    @Test
+    @DisplayName("SimHash-近似文本汉明距离小，不同文本距离大")
+    void testSimHash_NearDuplicates() {
+        String text = "用户在登录页面输入正确的用户名和密码，点击登录按钮后进入系统首页，并显示欢迎信息";
+        String nearDuplicate = "用户在登录页面输入正确的用户名和密码，点击登录按钮后进入系统首页，并显示欢迎信息。";
+        String different = "管理员导出本月所有订单明细为Excel文件，文件包含订单号、金额、下单时间等字段";
+
+        int nearDistance = Long.bitCount(AiResponseCacheServiceImpl.simHash(text)
+                ^ AiResponseCacheServiceImpl.simHash(nearDuplicate));
+        int farDistance = Long.bitCount(AiResponseCacheServiceImpl.simHash(text)
+                ^ AiResponseCacheServiceImpl.simHash(different));
+
+        assertTrue(nearDistance <= cacheConfig.getSimilarityMaxDistance(), "nearDistance=" + nearDistance);
+        assertTrue(farDistance > cacheConfig.getSimilarityMaxDistance(), "farDistance=" + farDistance);
+    }
+}
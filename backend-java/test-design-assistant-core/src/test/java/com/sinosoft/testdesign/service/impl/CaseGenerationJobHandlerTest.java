@@ -0,0 +1,115 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.JobQueueConfig;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.entity.CaseGenerationTask;
+import com.sinosoft.testdesign.repository.CaseGenerationTaskRepository;
+import com.sinosoft.testdesign.scheduled.JobQueueWorker;
+import com.sinosoft.testdesign.service.IntelligentCaseGenerationService;
+import com.sinosoft.testdesign.service.JobQueueService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用例生成任务处理器单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("用例生成任务处理器测试")
+class CaseGenerationJobHandlerTest {
+
+    @Mock
+    private IntelligentCaseGenerationService caseGenerationService;
+
+    @Mock
+    private CaseGenerationTaskRepository taskRepository;
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    private CaseGenerationJobHandler handler;
+    private CaseGenerationTask task;
+    private AsyncJob job;
+
+    @BeforeEach
+    void setUp() {
+        handler = new CaseGenerationJobHandler(caseGenerationService, taskRepository);
+        task = new CaseGenerationTask();
+        task.setId(7L);
+        task.setTaskStatus("PENDING");
+        lenient().when(taskRepository.findById(7L)).thenReturn(Optional.of(task));
+        job = AsyncJob.builder()
+                .id(1L)
+                .jobType(JobQueueService.JOB_CASE_GENERATION)
+                .businessKey("7")
+                .attempts(1)
+                .maxAttempts(3)
+                .build();
+    }
+
+    @Test
+    @DisplayName("AI调用失败-生成服务记为FAILED时抛出异常，任务恢复为PENDING等待重试")
+    void testHandle_ServiceFailedThrows() {
+        doAnswer(inv -> {
+            task.setTaskStatus("FAILED");
+            task.setErrorMessage("Python服务返回空响应");
+            return null;
+        }).when(caseGenerationService).executeGenerationTask(7L);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> handler.handle(job));
+
+        assertTrue(e.getMessage().contains("Python服务返回空响应"));
+        assertEquals("PENDING", task.getTaskStatus());
+        verify(taskRepository).save(task);
+    }
+
+    @Test
+    @DisplayName("已结束的任务-成功或最终失败时不再生成")
+    void testHandle_SkipsFinished() throws Exception {
+        task.setTaskStatus("FAILED");
+        handler.handle(job);
+        task.setTaskStatus("SUCCESS");
+        handler.handle(job);
+
+        verify(caseGenerationService, never()).executeGenerationTask(any());
+    }
+
+    @Test
+    @DisplayName("工作线程-AI调用失败的任务记为失败重试，不记为成功")
+    void testWorker_FailedGenerationRetried() {
+        doAnswer(inv -> {
+            task.setTaskStatus("FAILED");
+            task.setErrorMessage("Connection refused");
+            return null;
+        }).when(caseGenerationService).executeGenerationTask(7L);
+        when(jobQueueService.claim(eq(JobQueueService.JOB_CASE_GENERATION), anyString(), anyInt()))
+                .thenReturn(List.of(job))
+                .thenReturn(List.of());
+        when(jobQueueService.fail(eq(1L), anyString(), anyString())).thenReturn(false);
+
+        JobQueueWorker worker = new JobQueueWorker(jobQueueService, new JobQueueConfig(), List.of(handler));
+        try {
+            worker.poll();
+
+            verify(jobQueueService, timeout(2000)).fail(eq(1L), anyString(), contains("Connection refused"));
+            verify(jobQueueService, never()).complete(anyLong(), anyString());
+            assertEquals("PENDING", task.getTaskStatus());
+        } finally {
+            worker.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.dto.CaseQualityBatchJobDTO;
+import com.sinosoft.testdesign.dto.CaseQualityBatchResponseDTO;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.repository.AsyncJobRepository;
+import com.sinosoft.testdesign.service.JobQueueService;
+import com.sinosoft.testdesign.service.TestCaseQualityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用例质量批量评估任务服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("用例质量批量评估任务服务测试")
+class CaseQualityBatchJobServiceImplTest {
+
+    @Mock
+    private TestCaseQualityService qualityService;
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    @Mock
+    private AsyncJobRepository jobRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CaseQualityBatchJobServiceImpl jobService;
+    private CaseQualityBatchJobHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        jobService = new CaseQualityBatchJobServiceImpl(jobQueueService, jobRepository, objectMapper);
+        handler = new CaseQualityBatchJobHandler(qualityService, jobQueueService, objectMapper);
+    }
+
+    @Test
+    @DisplayName("提交评估任务-同一需求未结束时复用任务，不指定需求时按全部用例入队")
+    void testSubmit_DeduplicatedByScope() {
+        when(jobRepository.findFirstByJobTypeAndBusinessKeyAndStatusInOrderByIdDesc(
+                eq(JobQueueService.JOB_CASE_QUALITY_ASSESSMENT), eq("10"), anyList()))
+                .thenReturn(Optional.of(job(3L, "10", "RUNNING")));
+        when(jobQueueService.enqueue(JobQueueService.JOB_CASE_QUALITY_ASSESSMENT, "ALL", null,
+                JobQueueService.PRIORITY_INTERACTIVE)).thenReturn(job(4L, "ALL", "PENDING"));
+
+        CaseQualityBatchJobDTO running = jobService.submit(10L);
+        CaseQualityBatchJobDTO all = jobService.submit(null);
+
+        assertEquals("3", running.getJobId());
+        assertEquals(10L, running.getRequirementId());
+        assertEquals(ReportExportJobServiceImpl.STATUS_RUNNING, running.getStatus());
+        assertEquals("4", all.getJobId());
+        assertNull(all.getRequirementId());
+        verify(jobQueueService, never()).enqueue(anyString(), eq("10"), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("执行评估任务-回报分页进度，完成后结果可从任务查询")
+    void testHandle_ProgressAndResult() throws Exception {
+        AsyncJob job = job(5L, "10", "RUNNING");
+        job.setLeaseOwner("worker-1");
+        CaseQualityBatchResponseDTO response = new CaseQualityBatchResponseDTO();
+        response.setRequirementId(10L);
+        response.setAssessedCount(2);
+        when(qualityService.assessBatch(eq(10L), any())).thenAnswer(inv -> {
+            IntConsumer listener = inv.getArgument(1);
+            listener.accept(50);
+            listener.accept(100);
+            return response;
+        });
+
+        handler.handle(job);
+
+        verify(jobQueueService).reportProgress(5L, "worker-1", 50, null);
+        verify(jobQueueService).reportProgress(5L, "worker-1", 99, null);
+        ArgumentCaptor<String> result = ArgumentCaptor.forClass(String.class);
+        verify(jobQueueService).reportProgress(eq(5L), eq("worker-1"), eq(100), result.capture());
+
+        AsyncJob finished = job(5L, "10", "SUCCESS");
+        finished.setProgress(100);
+        finished.setResult(result.getValue());
+        when(jobRepository.findById(5L)).thenReturn(Optional.of(finished));
+        CaseQualityBatchJobDTO dto = jobService.getJob("5");
+        assertEquals(ReportExportJobServiceImpl.STATUS_COMPLETED, dto.getStatus());
+        assertEquals(2, dto.getResult().getAssessedCount());
+    }
+
+    @Test
+    @DisplayName("查询评估任务-其他类型的任务或非法ID视为不存在")
+    void testGetJob_NotFound() {
+        AsyncJob other = job(6L, "RPT-1:PDF", "PENDING");
+        other.setJobType(JobQueueService.JOB_REPORT_EXPORT);
+        when(jobRepository.findById(6L)).thenReturn(Optional.of(other));
+
+        assertThrows(BusinessException.class, () -> jobService.getJob("6"));
+        assertThrows(BusinessException.class, () -> jobService.getJob("abc"));
+    }
+
+    private static AsyncJob job(Long id, String businessKey, String status) {
+        return AsyncJob.builder()
+                .id(id)
+                .jobType(JobQueueService.JOB_CASE_QUALITY_ASSESSMENT)
+                .businessKey(businessKey)
+                .status(status)
+                .build();
+    }
+}
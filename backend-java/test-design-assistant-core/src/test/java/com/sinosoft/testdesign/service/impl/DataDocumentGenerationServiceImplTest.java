@@ -0,0 +1,548 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.dto.EquivalenceTableRequestDTO;
+import com.sinosoft.testdesign.dto.EquivalenceTableResponseDTO;
+import com.sinosoft.testdesign.dto.OrthogonalTableRequestDTO;
+import com.sinosoft.testdesign.dto.OrthogonalTableResponseDTO;
+import com.sinosoft.testdesign.repository.RequirementRepository;
+import com.sinosoft.testdesign.repository.TestCaseRepository;
+import com.sinosoft.testdesign.service.AIServiceClient;
+import com.sinosoft.testdesign.service.FileUploadService;
+import com.sinosoft.testdesign.util.CoveringArrayGenerator;
+import com.sinosoft.testdesign.util.MixedRadixProduct;
+import com.sinosoft.testdesign.util.OrthogonalArray;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据文档生成服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-07
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("数据文档生成服务测试")
+class DataDocumentGenerationServiceImplTest {
+
+    @Mock
+    private RequirementRepository requirementRepository;
+
+    @Mock
+    private TestCaseRepository testCaseRepository;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @Mock
+    private AIServiceClient aiServiceClient;
+
+    private DataDocumentGenerationServiceImpl dataDocumentGenerationService;
+
+    @BeforeEach
+    void setUp() {
+        dataDocumentGenerationService = new DataDocumentGenerationServiceImpl(requirementRepository,
+                testCaseRepository, fileUploadService, new ObjectMapper(), aiServiceClient);
+    }
+
+    @Test
+    @DisplayName("生成正交表-混合水平配对组合全覆盖")
+    void testGenerateOrthogonalTable_PairwiseCoverage() {
+        OrthogonalTableRequestDTO request = request();
+
+        OrthogonalTableResponseDTO response = dataDocumentGenerationService.generateOrthogonalTable(request);
+
+        assertEquals(0, countUncoveredPairs(response.getTableData(), request.getFactors()));
+        assertTrue(response.getCombinationCount() < response.getTheoreticalMaxCases());
+        // 最大的两个因素水平数之积是配对表行数下界
+        assertTrue(response.getCombinationCount() >= 12);
+        assertTrue(response.getCombinationCount() <= 16, "rows=" + response.getCombinationCount());
+    }
+
+    @Test
+    @DisplayName("生成正交表-同水平因素使用标准正交表")
+    void testGenerateOrthogonalTable_StandardArray() {
+        Map<String, List<String>> factors = new LinkedHashMap<>();
+        factors.put("浏览器", List.of("Chrome", "Firefox", "Safari"));
+        factors.put("操作系统", List.of("Windows", "Mac", "Linux"));
+        factors.put("网络", List.of("WiFi", "4G", "5G"));
+        factors.put("语言", List.of("中文", "英文", "日文"));
+        OrthogonalTableRequestDTO request = new OrthogonalTableRequestDTO();
+        request.setFactors(factors);
+        request.setFormat("JSON");
+
+        OrthogonalTableResponseDTO response = dataDocumentGenerationService.generateOrthogonalTable(request);
+
+        assertEquals("L9(3⁴)", response.getTableType());
+        assertEquals(9, response.getCombinationCount());
+        assertEquals(0, countUncoveredPairs(response.getTableData(), factors));
+    }
+
+    @Test
+    @DisplayName("生成正交表-指定的正交表无法容纳因素")
+    void testGenerateOrthogonalTable_SpecifiedTableTooSmall() {
+        OrthogonalTableRequestDTO request = request();
+        request.setTableType("L4");
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> dataDocumentGenerationService.generateOrthogonalTable(request));
+        assertTrue(exception.getMessage().contains("L4(2³)"));
+    }
+
+    @Test
+    @DisplayName("正交表-标准正交表任意两列的水平组合均衡出现")
+    void testOrthogonalArray_Balanced() {
+        for (String name : List.of("L4", "L8", "L9", "L12", "L16", "L16(4⁵)", "L25", "L27",
+                "L32", "L49", "L64(4²¹)", "L81", "L125")) {
+            OrthogonalArray array = OrthogonalArray.byName(name);
+            assertNotNull(array, name);
+            int q = array.getLevel();
+            int expected = array.getRuns() / (q * q);
+            for (int a = 0; a < array.getColumns(); a++) {
+                for (int b = a + 1; b < array.getColumns(); b++) {
+                    Map<Integer, Integer> counts = new HashMap<>();
+                    for (int r = 0; r < array.getRuns(); r++) {
+                        counts.merge(array.get(r, a) * q + array.get(r, b), 1, Integer::sum);
+                    }
+                    assertEquals(q * q, counts.size(), array.getName() + " 列" + a + "," + b);
+                    assertTrue(counts.values().stream().allMatch(c -> c == expected), array.getName());
+                }
+            }
+        }
+        assertEquals("L27(3¹³)", OrthogonalArray.byName("L27").getName());
+        assertEquals("L125(5³¹)", OrthogonalArray.byName("L125").getName());
+    }
+
+    @Test
+    @DisplayName("正交表-按因素选择最小正交表并逐行计算")
+    void testOrthogonalArray_SelectAndIterate() {
+        assertEquals("L8(2⁷)", OrthogonalArray.select(new int[]{2, 2, 2, 2, 2}).getName());
+        assertEquals("L12(2¹¹)", OrthogonalArray.select(new int[]{2, 2, 2, 2, 2, 2, 2, 2, 2, 2}).getName());
+        assertEquals("L16(4⁵)", OrthogonalArray.select(new int[]{4, 3, 2}).getName());
+        assertNull(OrthogonalArray.select(new int[]{20, 2}));
+
+        int[] levels = {4, 3, 2};
+        Iterator<int[]> rows = OrthogonalArray.byName("L16(4⁵)").rows(levels);
+        int count = 0;
+        while (rows.hasNext()) {
+            int[] row = rows.next();
+            for (int i = 0; i < levels.length; i++) {
+                assertTrue(row[i] >= 0 && row[i] < levels[i]);
+            }
+            count++;
+        }
+        assertEquals(16, count);
+    }
+
+    @Test
+    @DisplayName("生成正交表-约束组合不出现且其余组合全覆盖")
+    void testGenerateOrthogonalTable_Constraints() {
+        OrthogonalTableRequestDTO request = request();
+        Map<String, String> forbidden = new LinkedHashMap<>();
+        forbidden.put("浏览器", "Safari");
+        forbidden.put("操作系统", "Windows");
+        request.setConstraints(List.of(forbidden));
+
+        OrthogonalTableResponseDTO response = dataDocumentGenerationService.generateOrthogonalTable(request);
+
+        for (Map<String, Object> row : response.getTableData()) {
+            assertFalse("Safari".equals(row.get("浏览器")) && "Windows".equals(row.get("操作系统")));
+        }
+        // 只有被禁止的一个组合未覆盖
+        assertEquals(1, countUncoveredPairs(response.getTableData(), request.getFactors()));
+    }
+
+    @Test
+    @DisplayName("生成正交表-种子组合包含在结果中")
+    void testGenerateOrthogonalTable_Seeds() {
+        OrthogonalTableRequestDTO request = request();
+        Map<String, String> seed = new LinkedHashMap<>();
+        seed.put("浏览器", "Edge");
+        seed.put("网络", "4G");
+        request.setSeeds(List.of(seed));
+
+        OrthogonalTableResponseDTO response = dataDocumentGenerationService.generateOrthogonalTable(request);
+
+        Map<String, Object> first = response.getTableData().get(0);
+        assertEquals("Edge", first.get("浏览器"));
+        assertEquals("4G", first.get("网络"));
+        assertEquals(0, countUncoveredPairs(response.getTableData(), request.getFactors()));
+    }
+
+    @Test
+    @DisplayName("生成正交表-约束中的因素不存在")
+    void testGenerateOrthogonalTable_UnknownConstraintFactor() {
+        OrthogonalTableRequestDTO request = request();
+        request.setConstraints(List.of(Map.of("分辨率", "1080p")));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> dataDocumentGenerationService.generateOrthogonalTable(request));
+        assertTrue(exception.getMessage().contains("分辨率"));
+    }
+
+    @Test
+    @DisplayName("生成正交表-约束之间隐含冲突时报告无法覆盖的组合")
+    void testGenerateOrthogonalTable_ReportsUncoverableCombinations() {
+        OrthogonalTableRequestDTO request = request();
+        // 中文只能未登录、WiFi只能已登录，因此"WiFi + 中文"无法出现在任何合法行中
+        request.setConstraints(List.of(
+                Map.of("语言", "中文", "登录状态", "已登录"),
+                Map.of("网络", "WiFi", "登录状态", "未登录")));
+
+        OrthogonalTableResponseDTO response = dataDocumentGenerationService.generateOrthogonalTable(request);
+
+        assertEquals(List.of(Map.of("网络", "WiFi", "语言", "中文")), response.getUncoverableCombinations());
+        for (Map<String, Object> row : response.getTableData()) {
+            assertEquals(5, row.size());
+            assertFalse("中文".equals(row.get("语言")) && "已登录".equals(row.get("登录状态")));
+            assertFalse("WiFi".equals(row.get("网络")) && "未登录".equals(row.get("登录状态")));
+        }
+    }
+
+    @Test
+    @DisplayName("覆盖表-随机约束下可补全的组合全部覆盖，无法补全的组合全部报告")
+    void testCoveringArray_ConstraintsNeverDropCoverableTuples() {
+        Random random = new Random(20260207L);
+        for (int round = 0; round < 200; round++) {
+            int[] levels = new int[4 + random.nextInt(2)];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = 2 + random.nextInt(2);
+            }
+            List<int[]> constraints = new ArrayList<>();
+            for (int c = 1 + random.nextInt(4); c > 0; c--) {
+                int[] constraint = new int[levels.length];
+                Arrays.fill(constraint, CoveringArrayGenerator.UNSET);
+                int a = random.nextInt(levels.length);
+                int b = (a + 1 + random.nextInt(levels.length - 1)) % levels.length;
+                constraint[a] = random.nextInt(levels[a]);
+                constraint[b] = random.nextInt(levels[b]);
+                constraints.add(constraint);
+            }
+
+            CoveringArrayGenerator.Report report =
+                    CoveringArrayGenerator.generateWithReport(levels, 2, constraints, List.of());
+
+            List<int[]> validRows = new ArrayList<>();
+            for (int[] digits : new MixedRadixProduct(levels)) {
+                if (!matchesAny(digits, constraints)) {
+                    validRows.add(digits.clone());
+                }
+            }
+            for (int[] row : report.rows()) {
+                assertFalse(matchesAny(row, constraints));
+            }
+            for (int[] factors : subsets(levels.length, 2)) {
+                for (int x = 0; x < levels[factors[0]]; x++) {
+                    for (int y = 0; y < levels[factors[1]]; y++) {
+                        int[] tuple = new int[levels.length];
+                        Arrays.fill(tuple, CoveringArrayGenerator.UNSET);
+                        tuple[factors[0]] = x;
+                        tuple[factors[1]] = y;
+                        boolean feasible = validRows.stream().anyMatch(row -> contains(row, tuple));
+                        boolean covered = Arrays.stream(report.rows()).anyMatch(row -> contains(row, tuple));
+                        boolean reported = report.uncoverableTuples().stream().anyMatch(t -> Arrays.equals(t, tuple));
+                        assertEquals(feasible, covered, "round=" + round + " tuple=" + Arrays.toString(tuple));
+                        if (!feasible) {
+                            assertTrue(reported || matchesAny(tuple, constraints),
+                                    "round=" + round + " tuple=" + Arrays.toString(tuple));
+                        } else {
+                            assertFalse(reported);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("覆盖表-20因素10水平配对表全覆盖")
+    void testCoveringArray_LargePairwise() {
+        int[] levels = new int[20];
+        Arrays.fill(levels, 10);
+
+        int[][] rows = CoveringArrayGenerator.generate(levels, 2);
+
+        assertEquals(0, countUncovered(rows, levels, 2));
+        assertTrue(rows.length < 250, "rows=" + rows.length);
+    }
+
+    @Test
+    @DisplayName("覆盖表-3-way与4-way组合全覆盖")
+    void testCoveringArray_HigherStrength() {
+        int[] levels = {3, 3, 3, 3, 3, 3, 2, 2};
+
+        int[][] threeWay = CoveringArrayGenerator.generate(levels, 3);
+        int[][] fourWay = CoveringArrayGenerator.generate(levels, 4);
+
+        assertEquals(0, countUncovered(threeWay, levels, 3));
+        assertEquals(0, countUncovered(fourWay, levels, 4));
+        assertTrue(threeWay.length < fourWay.length);
+    }
+
+    @Test
+    @DisplayName("覆盖表-因素数少于强度时生成全组合")
+    void testCoveringArray_FewerFactorsThanStrength() {
+        int[][] rows = CoveringArrayGenerator.generate(new int[]{2, 3}, 3);
+
+        assertEquals(6, rows.length);
+        assertThrows(IllegalArgumentException.class, () -> CoveringArrayGenerator.generate(new int[]{2, 3}, 5));
+    }
+
+    @Test
+    @DisplayName("生成等价类表-组合数较少时生成完整笛卡尔积，有效用例在前")
+    void testGenerateEquivalenceTable_FullProduct() {
+        EquivalenceTableRequestDTO request = new EquivalenceTableRequestDTO();
+        request.setFormat("JSON");
+        request.setInputParameters(new LinkedHashMap<>(Map.of(
+                "年龄", Map.of("有效等价类", List.of("18", "60"), "无效等价类", List.of("-1")),
+                "姓名", Map.of("有效等价类", List.of("张三"), "无效等价类", List.of("", "超长姓名")))));
+
+        EquivalenceTableResponseDTO response = dataDocumentGenerationService.generateEquivalenceTable(request);
+
+        assertEquals(9, response.getTestCaseCount());
+        assertEquals(2, response.getValidCaseCount());
+        assertEquals(7, response.getInvalidCaseCount());
+        List<Map<String, Object>> rows = response.getTableData();
+        assertEquals(Boolean.TRUE, rows.get(0).get("isValid"));
+        assertEquals(Boolean.TRUE, rows.get(1).get("isValid"));
+        for (int i = 3; i < rows.size(); i++) {
+            assertTrue((Integer) rows.get(i - 1).get("invalidCount") <= (Integer) rows.get(i).get("invalidCount"));
+        }
+    }
+
+    @Test
+    @DisplayName("生成等价类表-组合数过多时按上限生成有效组合和边界组合")
+    void testGenerateEquivalenceTable_LargeSpaceIsBounded() {
+        // 8个参数 × 6个等价类，完整笛卡尔积约168万
+        Map<String, Map<String, List<String>>> parameters = new LinkedHashMap<>();
+        for (int i = 0; i < 8; i++) {
+            parameters.put("参数" + i, Map.of(
+                    "有效等价类", List.of("v1", "v2", "v3", "v4"),
+                    "无效等价类", List.of("x1", "x2")));
+        }
+        EquivalenceTableRequestDTO request = new EquivalenceTableRequestDTO();
+        request.setFormat("JSON");
+        request.setInputParameters(parameters);
+
+        EquivalenceTableResponseDTO response = dataDocumentGenerationService.generateEquivalenceTable(request);
+
+        assertEquals(1000, response.getTestCaseCount());
+        assertEquals(8, response.getInvalidCaseCount());
+        Set<Map<String, Object>> distinct = new HashSet<>(response.getTableData());
+        assertEquals(1000, distinct.size());
+        for (int i = 0; i < 8; i++) {
+            String param = "参数" + i;
+            assertTrue(response.getTableData().stream().anyMatch(row ->
+                    "x1".equals(row.get(param)) && Integer.valueOf(1).equals(row.get("invalidCount"))));
+        }
+    }
+
+    @Test
+    @DisplayName("生成等价类表-配对与随机抽样策略")
+    void testGenerateEquivalenceTable_Strategies() {
+        Map<String, Map<String, List<String>>> parameters = new LinkedHashMap<>();
+        for (int i = 0; i < 6; i++) {
+            parameters.put("参数" + i, Map.of("有效等价类", List.of("v1", "v2", "v3"), "无效等价类", List.of("x1")));
+        }
+        EquivalenceTableRequestDTO request = new EquivalenceTableRequestDTO();
+        request.setFormat("JSON");
+        request.setInputParameters(parameters);
+        request.setCombinationStrategy("PAIRWISE");
+
+        EquivalenceTableResponseDTO pairwise = dataDocumentGenerationService.generateEquivalenceTable(request);
+
+        Map<String, List<String>> factors = new LinkedHashMap<>();
+        parameters.keySet().forEach(name -> factors.put(name, List.of("v1", "v2", "v3", "x1")));
+        assertEquals(0, countUncoveredPairs(pairwise.getTableData(), factors));
+        assertTrue(pairwise.getTestCaseCount() < 40);
+
+        request.setCombinationStrategy("RANDOM");
+        request.setMaxCombinations(50);
+        EquivalenceTableResponseDTO random = dataDocumentGenerationService.generateEquivalenceTable(request);
+        assertEquals(50, random.getTestCaseCount());
+        assertEquals(50, new HashSet<>(random.getTableData()).size());
+    }
+
+    @Test
+    @DisplayName("混合进制笛卡尔积-逐个生成并可按long编码还原")
+    void testMixedRadixProduct() {
+        MixedRadixProduct product = new MixedRadixProduct(new int[]{2, 3, 4});
+        assertEquals(24, product.size());
+        long expectedKey = 0;
+        int[] decoded = new int[3];
+        for (int[] digits : product) {
+            long key = product.key(digits);
+            assertEquals(expectedKey++, key);
+            product.decode(key, decoded);
+            assertArrayEquals(digits, decoded);
+        }
+        assertEquals(24, expectedKey);
+
+        int[] radices = new int[40];
+        Arrays.fill(radices, 6);
+        MixedRadixProduct huge = new MixedRadixProduct(radices);
+        assertFalse(huge.isEncodable());
+        assertEquals(Long.MAX_VALUE, huge.size());
+    }
+
+    @Test
+    @DisplayName("导出等价类表到Excel-流式写出全部行并按内容设置列宽")
+    void testExportEquivalenceTableToExcel() throws Exception {
+        EquivalenceTableResponseDTO response = new EquivalenceTableResponseDTO();
+        response.setTitle("等价类表");
+        response.setParameters(List.of("用户名", "密码"));
+        List<Map<String, Object>> tableData = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("用户名", "user" + i);
+            row.put("密码", i % 2 == 0 ? "包含大小写字母和数字的长密码" + i : "123");
+            row.put("isValid", i % 2 == 0);
+            tableData.add(row);
+        }
+        response.setTableData(tableData);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        dataDocumentGenerationService.exportEquivalenceTableToExcel(response, outputStream);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("等价类表");
+            // 标题、空行、表头 + 数据行
+            assertEquals(2 + 1500, sheet.getLastRowNum());
+            assertEquals("用例编号", sheet.getRow(2).getCell(2).getStringCellValue());
+            Row last = sheet.getRow(sheet.getLastRowNum());
+            assertEquals("user1499", last.getCell(0).getStringCellValue());
+            assertEquals("TC-1500", last.getCell(2).getStringCellValue());
+            assertEquals("无效", last.getCell(3).getStringCellValue());
+            assertTrue(sheet.getColumnWidth(1) > sheet.getColumnWidth(0));
+        }
+    }
+
+    @Test
+    @DisplayName("导出正交表到Word-逐行追加表格行")
+    void testExportOrthogonalTableToWord() throws Exception {
+        OrthogonalTableResponseDTO response = dataDocumentGenerationService.generateOrthogonalTable(request());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        dataDocumentGenerationService.exportOrthogonalTableToWord(response, outputStream);
+
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            XWPFTable table = document.getTables().get(0);
+            assertEquals(response.getTableData().size() + 1, table.getNumberOfRows());
+            assertEquals("用例编号", table.getRow(0).getCell(response.getFactors().size()).getText());
+            assertEquals("TC-001", table.getRow(1).getCell(response.getFactors().size()).getText());
+            assertEquals(response.getTableData().get(0).get("浏览器"), table.getRow(1).getCell(0).getText());
+        }
+    }
+
+    private OrthogonalTableRequestDTO request() {
+        Map<String, List<String>> factors = new LinkedHashMap<>();
+        factors.put("浏览器", List.of("Chrome", "Firefox", "Safari", "Edge"));
+        factors.put("操作系统", List.of("Windows", "Mac", "Linux"));
+        factors.put("网络", List.of("WiFi", "4G", "5G"));
+        factors.put("语言", List.of("中文", "英文"));
+        factors.put("登录状态", List.of("已登录", "未登录"));
+        OrthogonalTableRequestDTO request = new OrthogonalTableRequestDTO();
+        request.setFactors(factors);
+        request.setFormat("JSON");
+        return request;
+    }
+
+    private int countUncoveredPairs(List<Map<String, Object>> tableData, Map<String, List<String>> factors) {
+        List<String> names = new ArrayList<>(factors.keySet());
+        int[] levels = names.stream().mapToInt(name -> factors.get(name).size()).toArray();
+        int[][] rows = new int[tableData.size()][];
+        for (int r = 0; r < rows.length; r++) {
+            rows[r] = new int[names.size()];
+            for (int i = 0; i < names.size(); i++) {
+                rows[r][i] = factors.get(names.get(i)).indexOf(tableData.get(r).get(names.get(i)));
+            }
+        }
+        return countUncovered(rows, levels, 2);
+    }
+
+    /**
+     * 统计未被覆盖的t-way组合数
+     */
+    private static boolean matchesAny(int[] row, List<int[]> constraints) {
+        for (int[] constraint : constraints) {
+            if (contains(row, constraint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * row在pattern指定（非UNSET）的每个因素上取值相同
+     */
+    private static boolean contains(int[] row, int[] pattern) {
+        for (int f = 0; f < pattern.length; f++) {
+            if (pattern[f] != CoveringArrayGenerator.UNSET && row[f] != pattern[f]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int countUncovered(int[][] rows, int[] levels, int strength) {
+        int uncovered = 0;
+        for (int[] factors : subsets(levels.length, strength)) {
+            Set<String> seen = new HashSet<>();
+            for (int[] row : rows) {
+                StringBuilder key = new StringBuilder();
+                for (int f : factors) {
+                    key.append(row[f]).append(',');
+                }
+                seen.add(key.toString());
+            }
+            int total = 1;
+            for (int f : factors) {
+                total *= levels[f];
+            }
+            uncovered += total - seen.size();
+        }
+        return uncovered;
+    }
+
+    private List<int[]> subsets(int n, int r) {
+        List<int[]> result = new ArrayList<>();
+        collect(n, r, 0, new int[r], 0, result);
+        return result;
+    }
+
+    private void collect(int n, int r, int start, int[] current, int depth, List<int[]> result) {
+        if (depth == r) {
+            result.add(current.clone());
+            return;
+        }
+        for (int i = start; i < n; i++) {
+            current[depth] = i;
+            collect(n, r, i + 1, current, depth + 1, result);
+        }
+    }
+}
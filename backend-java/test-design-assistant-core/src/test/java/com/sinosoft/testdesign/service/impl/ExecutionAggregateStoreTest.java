@@ -0,0 +1,103 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.entity.TestExecutionAggregate;
+import com.sinosoft.testdesign.entity.TestExecutionRecord;
+import com.sinosoft.testdesign.repository.TestExecutionAggregateRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 测试执行聚合存储单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("测试执行聚合存储测试")
+class ExecutionAggregateStoreTest {
+
+    @Mock
+    private TestExecutionAggregateRepository aggregateRepository;
+
+    @InjectMocks
+    private ExecutionAggregateStore aggregateStore;
+
+    @Test
+    @DisplayName("新增执行记录-以单条upsert语句累加，聚合行不存在时由数据库插入")
+    void testRecordCreated() {
+        aggregateStore.recordCreated(record("SUCCESS", 120), 10L);
+        aggregateStore.recordCreated(record(null, null), 10L);
+
+        verify(aggregateRepository).upsertIncrement(eq(1L), eq(10L), eq("SUCCESS"), eq(1L), eq(1L), eq(120L), any());
+        verify(aggregateRepository).upsertIncrement(eq(1L), eq(10L), eq("UNKNOWN"), eq(1L), eq(0L), eq(0L), any());
+        verify(aggregateRepository, never()).increment(anyLong(), anyString(), anyLong(), anyLong(), anyLong(), any());
+        verify(aggregateRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("状态变化-从原状态扣减并计入新状态")
+    void testStatusChanged() {
+        when(aggregateRepository.increment(anyLong(), anyString(), anyLong(), anyLong(), anyLong(), any()))
+                .thenReturn(1);
+
+        aggregateStore.statusChanged(record("FAILED", 80), "RUNNING", 10L);
+        aggregateStore.statusChanged(record("FAILED", 80), "FAILED", 10L);
+
+        verify(aggregateRepository).increment(eq(1L), eq("RUNNING"), eq(-1L), eq(-1L), eq(-80L), any());
+        verify(aggregateRepository).upsertIncrement(eq(1L), eq(10L), eq("FAILED"), eq(1L), eq(1L), eq(80L), any());
+        verify(aggregateRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("汇总-按任务和按需求计算成功率和平均耗时")
+    void testSummarize() {
+        when(aggregateRepository.findByTaskId(1L)).thenReturn(List.of(
+                aggregate("SUCCESS", 3, 3, 300), aggregate("FAILED", 1, 0, 0), aggregate("RUNNING", 0, 0, 0)));
+        when(aggregateRepository.sumByRequirementId(10L)).thenReturn(List.<Object[]>of(
+                new Object[]{"SUCCESS", 6L, 2L, 500L, LocalDateTime.of(2026, 2, 9, 10, 0)},
+                new Object[]{"FAILED", 2L, 2L, 100L, LocalDateTime.of(2026, 2, 9, 11, 0)}));
+
+        ExecutionAggregateStore.ExecutionSummary task = aggregateStore.summarizeTask(1L);
+        ExecutionAggregateStore.ExecutionSummary requirement = aggregateStore.summarizeRequirement(10L);
+
+        assertEquals(Map.of("SUCCESS", 3L, "FAILED", 1L), task.statusCount());
+        assertEquals(4, task.totalRecords());
+        assertEquals(75.0, task.successRate(), 1e-9);
+        assertEquals(100.0, task.avgDuration(), 1e-9);
+        assertEquals(8, requirement.totalRecords());
+        assertEquals(150.0, requirement.avgDuration(), 1e-9);
+        assertEquals(LocalDateTime.of(2026, 2, 9, 11, 0), requirement.lastUpdateTime());
+        assertEquals(0.0, aggregateStore.summarizeTask(2L).successRate());
+    }
+
+    private static TestExecutionRecord record(String status, Integer duration) {
+        TestExecutionRecord record = new TestExecutionRecord();
+        record.setTaskId(1L);
+        record.setExecutionStatus(status);
+        record.setExecutionDuration(duration);
+        return record;
+    }
+
+    private static TestExecutionAggregate aggregate(String status, long count, long durationCount, long durationSum) {
+        TestExecutionAggregate aggregate = new TestExecutionAggregate();
+        aggregate.setTaskId(1L);
+        aggregate.setExecutionStatus(status);
+        aggregate.setRecordCount(count);
+        aggregate.setDurationCount(durationCount);
+        aggregate.setDurationSum(durationSum);
+        aggregate.setUpdateTime(LocalDateTime.of(2026, 2, 9, 9, 0));
+        return aggregate;
+    }
+}
@@ -0,0 +1,305 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.dto.PathDiagramRequestDTO;
+import com.sinosoft.testdesign.dto.PathDiagramResponseDTO;
+import com.sinosoft.testdesign.dto.SceneDiagramRequestDTO;
+import com.sinosoft.testdesign.dto.SceneDiagramResponseDTO;
+import com.sinosoft.testdesign.entity.TestCase;
+import com.sinosoft.testdesign.entity.TestRequirement;
+import com.sinosoft.testdesign.repository.RequirementRepository;
+import com.sinosoft.testdesign.repository.TestCaseRepository;
+import com.sinosoft.testdesign.service.AIServiceClient;
+import com.sinosoft.testdesign.service.FileUploadService;
+import com.sinosoft.testdesign.util.MermaidSvgRenderer;
+import com.sinosoft.testdesign.util.TestStepTokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 流程文档生成服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("流程文档生成服务测试")
+class FlowDocumentGenerationServiceImplTest {
+
+    private static final String MERMAID = "graph LR\n"
+            + "    %% 路径图：登录\n\n"
+            + "    start_1(\"开始\")\n"
+            + "    step_1[\"输入：输入用户名<admin>\"]\n"
+            + "    step_2{{\"验证：检查登录结果\"}}\n"
+            + "    end_1(\"结束\")\n"
+            + "    start_1 --> step_1\n"
+            + "    step_1 -->|提交| step_2\n"
+            + "    step_2 --> end_1\n";
+
+    @Mock
+    private RequirementRepository requirementRepository;
+
+    @Mock
+    private TestCaseRepository testCaseRepository;
+
+    @Mock
+    private AIServiceClient aiServiceClient;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    private FlowDocumentGenerationServiceImpl flowDocumentGenerationService;
+
+    @BeforeEach
+    void setUp() {
+        DiagramArtifactStore store = new DiagramArtifactStore(fileUploadService);
+        ReflectionTestUtils.setField(store, "basePath", tempDir.toString());
+        flowDocumentGenerationService = new FlowDocumentGenerationServiceImpl(requirementRepository,
+                aiServiceClient, store, new CaseStepGraphBuilder(testCaseRepository), restTemplate);
+        ReflectionTestUtils.setField(flowDocumentGenerationService, "aiServiceUrl", "http://localhost:8000");
+        lenient().when(fileUploadService.getFileUrl(anyString())).thenAnswer(inv -> "/api/v1/files/" + inv.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("导出SVG-本地渲染并按内容缓存，不调用Python服务")
+    void testExportSvg_RenderedLocallyAndCached() throws Exception {
+        String first = flowDocumentGenerationService.exportPathDiagramFile(MERMAID, "SVG", "登录.svg");
+        String second = flowDocumentGenerationService.exportPathDiagramFile(MERMAID, "svg", "登录_2.svg");
+
+        assertEquals(first, second);
+        assertTrue(first.startsWith("/api/v1/files/diagrams/"));
+        assertTrue(first.endsWith(".svg"));
+        verifyNoInteractions(aiServiceClient);
+        try (Stream<Path> files = Files.walk(tempDir.resolve("diagrams"))) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    @DisplayName("导出PNG-下载远程渲染的文件保存到本地，Python服务不可用时仍返回")
+    void testExportPng_RemoteResultStoredLocally() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        when(aiServiceClient.post(anyString(), any()))
+                .thenReturn(Map.of("status", "success", "url", "/api/v1/flow-documents/files/a.png"))
+                .thenThrow(new RuntimeException("连接被拒绝"));
+        when(restTemplate.getForObject("http://localhost:8000/api/v1/flow-documents/files/a.png", byte[].class))
+                .thenReturn(png);
+
+        String first = flowDocumentGenerationService.exportSceneDiagramFile(MERMAID, "PNG", "a.png");
+        String second = flowDocumentGenerationService.exportSceneDiagramFile(MERMAID, "PNG", "b.png");
+
+        assertTrue(first.startsWith("/api/v1/files/diagrams/"));
+        assertTrue(first.endsWith(".png"));
+        assertEquals(first, second);
+        verify(aiServiceClient, times(1)).post(anyString(), any());
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(byte[].class));
+        Path stored = tempDir.resolve(first.substring("/api/v1/files/".length()));
+        assertArrayEquals(png, Files.readAllBytes(stored));
+    }
+
+    @Test
+    @DisplayName("导出PNG-失败结果不缓存")
+    void testExportPng_FailureNotCached() {
+        when(aiServiceClient.post(anyString(), any()))
+                .thenThrow(new RuntimeException("连接被拒绝"))
+                .thenReturn(Map.of("status", "success", "url", "/api/v1/flow-documents/files/a.png"));
+        when(restTemplate.getForObject(anyString(), eq(byte[].class))).thenReturn(new byte[]{1, 2, 3});
+
+        String first = flowDocumentGenerationService.exportSceneDiagramFile(MERMAID, "PNG", "a.png");
+        String second = flowDocumentGenerationService.exportSceneDiagramFile(MERMAID, "PNG", "a.png");
+
+        assertEquals("/v1/flow-documents/files/a.png", first);
+        assertTrue(second.startsWith("/api/v1/files/diagrams/"));
+        verify(aiServiceClient, times(2)).post(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("导出PDF-只有在线渲染URL时直接返回，不缓存")
+    void testExportPdf_OnlineUrlNotCached() {
+        when(aiServiceClient.post(anyString(), any()))
+                .thenReturn(Map.of("status", "success", "online_url", "https://mermaid.ink/img/abc"));
+
+        String first = flowDocumentGenerationService.exportPathDiagramFile(MERMAID, "pdf", "a.pdf");
+        String second = flowDocumentGenerationService.exportPathDiagramFile(MERMAID, "pdf", "a.pdf");
+
+        assertEquals("https://mermaid.ink/img/abc", first);
+        assertEquals(first, second);
+        verify(aiServiceClient, times(2)).post(anyString(), any());
+        verifyNoInteractions(restTemplate);
+        assertFalse(Files.exists(tempDir.resolve("diagrams")));
+    }
+
+    @Test
+    @DisplayName("导出-不支持的格式在访问文件系统前拒绝")
+    void testExport_RejectsUnsupportedFormat() {
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> flowDocumentGenerationService.exportPathDiagramFile(MERMAID, "svg/../../../../tmp/x", "a"));
+        assertTrue(e.getMessage().contains("不支持的导出格式"));
+        assertThrows(BusinessException.class,
+                () -> flowDocumentGenerationService.exportSceneDiagramFile(MERMAID, "jpg", "a.jpg"));
+
+        SceneDiagramRequestDTO request = new SceneDiagramRequestDTO();
+        request.setFormat("../png");
+        assertThrows(BusinessException.class, () -> flowDocumentGenerationService.generateSceneDiagram(request));
+
+        verifyNoInteractions(aiServiceClient, restTemplate);
+        assertFalse(Files.exists(tempDir.resolve("diagrams")));
+    }
+
+    @Test
+    @DisplayName("生成场景图-SVG格式在本地导出")
+    void testGenerateSceneDiagram_Svg() {
+        TestCase case1 = new TestCase();
+        case1.setId(1L);
+        case1.setCaseName("正常登录");
+        case1.setCaseType("正常");
+        TestCase case2 = new TestCase();
+        case2.setId(2L);
+        case2.setCaseName("密码错误");
+        case2.setCaseType("异常");
+        when(testCaseRepository.findVersionStampsByIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(stamp(1L, 1), stamp(2L, 1)));
+        when(testCaseRepository.findAllById(any())).thenReturn(List.of(case1, case2));
+
+        SceneDiagramRequestDTO request = new SceneDiagramRequestDTO();
+        request.setCaseIds(List.of(1L, 2L));
+        request.setFormat("SVG");
+        SceneDiagramResponseDTO response = flowDocumentGenerationService.generateSceneDiagram(request);
+
+        assertEquals(2, response.getNodeCount());
+        assertTrue(response.getFileUrl().endsWith(".svg"));
+        verifyNoInteractions(aiServiceClient);
+    }
+
+    @Test
+    @DisplayName("生成路径图-相同步骤前缀合并为前缀树")
+    void testGeneratePathDiagram_MergesCommonPrefixes() {
+        List<TestCase> cases = List.of(
+                testCase(1L, 1, "1. 打开登录页\n2. 输入用户名和密码\n3. 点击登录"),
+                testCase(2L, 1, "1. 打开登录页\n2. 输入用户名和密码\n3. 点击忘记密码"),
+                testCase(3L, 1, "步骤一：打开登录页；步骤二：点击注册"));
+        when(requirementRepository.findById(10L)).thenReturn(Optional.of(requirement()));
+        when(testCaseRepository.findVersionStampsByRequirementId(10L))
+                .thenReturn(List.of(stamp(1L, 1), stamp(2L, 1), stamp(3L, 1)));
+        when(testCaseRepository.findAllById(any())).thenReturn(cases);
+
+        PathDiagramResponseDTO response = flowDocumentGenerationService.generatePathDiagram(pathRequest());
+
+        // 开始、结束 + 打开登录页、输入、点击登录、点击忘记密码、点击注册
+        assertEquals(7, response.getNodeCount());
+        assertEquals(3, response.getPathCount());
+        // 开始->打开登录页，打开登录页->输入/点击注册，输入->两个叶子，三个叶子->结束
+        assertEquals(8, response.getEdgeCount());
+        assertEquals(1, countOccurrences(response.getMermaidCode(), "[\"打开登录页\"]"));
+    }
+
+    @Test
+    @DisplayName("生成路径图-只重新加载并解析版本变化的用例")
+    void testGeneratePathDiagram_IncrementalRebuild() {
+        when(requirementRepository.findById(10L)).thenReturn(Optional.of(requirement()));
+        when(testCaseRepository.findVersionStampsByRequirementId(10L))
+                .thenReturn(List.of(stamp(1L, 1), stamp(2L, 1)))
+                .thenReturn(List.of(stamp(1L, 1), stamp(2L, 2)));
+        when(testCaseRepository.findAllById(any()))
+                .thenReturn(List.of(testCase(1L, 1, "打开首页\n搜索商品"), testCase(2L, 1, "打开首页\n查看订单")))
+                .thenReturn(List.of(testCase(2L, 2, "打开首页\n搜索商品\n加入购物车")));
+
+        PathDiagramResponseDTO first = flowDocumentGenerationService.generatePathDiagram(pathRequest());
+        PathDiagramResponseDTO second = flowDocumentGenerationService.generatePathDiagram(pathRequest());
+
+        assertEquals(5, first.getNodeCount());
+        // 查看订单节点被删除，新增加入购物车节点
+        assertEquals(5, second.getNodeCount());
+        assertFalse(second.getMermaidCode().contains("查看订单"));
+        assertTrue(second.getMermaidCode().contains("加入购物车"));
+        verify(testCaseRepository).findAllById(argThat(ids -> Set.copyOf((List<Long>) ids).equals(Set.of(1L, 2L))));
+        verify(testCaseRepository).findAllById(List.of(2L));
+    }
+
+    @Test
+    @DisplayName("步骤分词-去除编号并识别步骤类型")
+    void testTestStepTokenizer() {
+        assertEquals(List.of("打开登录页", "输入：输入用户名", "验证：检查提示信息", "点击确定"),
+                TestStepTokenizer.tokenize("1. 打开登录页\r\n②、输入用户名；步骤三：检查提示信息;点击确定\n \nx"));
+        assertTrue(TestStepTokenizer.tokenize(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("SVG渲染-分层布局、转义标签并支持环")
+    void testMermaidSvgRenderer() {
+        String svg = MermaidSvgRenderer.render(MERMAID);
+        assertTrue(svg.startsWith("<svg"));
+        assertTrue(svg.contains("输入：输入用户名&lt;admin&gt;"));
+        assertTrue(svg.contains(">提交</text>"));
+        assertEquals(3, countOccurrences(svg, "<line "));
+
+        String cyclic = MermaidSvgRenderer.render("graph TD\n    a[\"A\"]\n    b[\"B\"]\n    a --> b\n    b --> a\n");
+        assertEquals(2, countOccurrences(cyclic, "<line "));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MermaidSvgRenderer.render("sequenceDiagram\n    A->>B: hi\n"));
+        assertThrows(IllegalArgumentException.class,
+                () -> MermaidSvgRenderer.render("graph TD\n    a -.-> b\n"));
+    }
+
+    private static Object[] stamp(Long id, int version) {
+        return new Object[]{id, version, LocalDateTime.of(2026, 2, 8, 10, 0).plusMinutes(version)};
+    }
+
+    private static TestCase testCase(Long id, int version, String testStep) {
+        TestCase testCase = new TestCase();
+        testCase.setId(id);
+        testCase.setVersion(version);
+        testCase.setUpdateTime(LocalDateTime.of(2026, 2, 8, 10, 0).plusMinutes(version));
+        testCase.setCaseName("用例" + id);
+        testCase.setTestStep(testStep);
+        return testCase;
+    }
+
+    private static TestRequirement requirement() {
+        TestRequirement requirement = new TestRequirement();
+        requirement.setId(10L);
+        requirement.setRequirementName("登录");
+        return requirement;
+    }
+
+    private static PathDiagramRequestDTO pathRequest() {
+        PathDiagramRequestDTO request = new PathDiagramRequestDTO();
+        request.setRequirementId(10L);
+        return request;
+    }
+
+    private static int countOccurrences(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + token.length())) {
+            count++;
+        }
+        return count;
+    }
+}
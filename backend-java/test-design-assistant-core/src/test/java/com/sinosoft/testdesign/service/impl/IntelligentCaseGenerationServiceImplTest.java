@@ -9,6 +9,8 @@ import com.sinosoft.testdesign.dto.GenerationTaskDTO;
 import com.sinosoft.testdesign.entity.*;
 import com.sinosoft.testdesign.metrics.BusinessMetricsCollector;
 import com.sinosoft.testdesign.repository.*;
+import com.sinosoft.testdesign.service.AiResponseCacheService;
+import com.sinosoft.testdesign.service.JobQueueService;
 import com.sinosoft.testdesign.service.SpecificationCheckService;
 import com.sinosoft.testdesign.service.TestCaseService;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,6 +27,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -70,6 +73,12 @@ class IntelligentCaseGenerationServiceImplTest {
     @Mock
     private BusinessMetricsCollector metricsCollector;
     
+    @Mock
+    private AiResponseCacheService aiResponseCacheService;
+    
+    @Mock
+    private JobQueueService jobQueueService;
+    
     @InjectMocks
     private IntelligentCaseGenerationServiceImpl intelligentCaseGenerationService;
     
@@ -82,6 +91,12 @@ class IntelligentCaseGenerationServiceImplTest {
     
     @BeforeEach
     void setUp() {
+        // AI响应缓存直接透传到实际调用
+        lenient().when(aiResponseCacheService.getOrLoad(anyString(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+        lenient().when(aiResponseCacheService.getOrLoad(anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+        
         objectMapper = new ObjectMapper();
         ReflectionTestUtils.setField(intelligentCaseGenerationService, "objectMapper", objectMapper);
         ReflectionTestUtils.setField(intelligentCaseGenerationService, "aiServiceUrl", "http://localhost:8000");
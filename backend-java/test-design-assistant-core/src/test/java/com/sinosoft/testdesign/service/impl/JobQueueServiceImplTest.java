@@ -0,0 +1,155 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.config.JobQueueConfig;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.repository.AsyncJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 后台任务队列服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("后台任务队列服务测试")
+class JobQueueServiceImplTest {
+
+    private static final String WORKER = "node-1";
+
+    @Mock
+    private AsyncJobRepository jobRepository;
+
+    private JobQueueConfig config;
+    private JobQueueServiceImpl jobQueueService;
+
+    @BeforeEach
+    void setUp() {
+        config = new JobQueueConfig();
+        jobQueueService = new JobQueueServiceImpl(jobRepository, config, new ObjectMapper());
+        lenient().when(jobRepository.save(any(AsyncJob.class))).thenAnswer(inv -> inv.getArgument(0));
+        lenient().when(jobRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("提交任务-参数序列化为JSON，立即可领取")
+    void testEnqueue() {
+        AsyncJob job = jobQueueService.enqueue("UI_SCRIPT_GENERATION", "12",
+                Map.of("naturalLanguageDesc", "点击登录按钮"), 10);
+
+        assertEquals("PENDING", job.getStatus());
+        assertEquals("{\"naturalLanguageDesc\":\"点击登录按钮\"}", job.getPayload());
+        assertEquals(10, job.getPriority());
+        assertEquals(0, job.getAttempts());
+        assertEquals(3, job.getMaxAttempts());
+        assertFalse(job.getAvailableTime().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("领取任务-写入租约并增加领取次数，没有空闲线程时不查询")
+    void testClaim() {
+        AsyncJob pending = job(1L, "PENDING", 0);
+        when(jobRepository.lockClaimable(eq("CASE_GENERATION"), any(), eq(2))).thenReturn(List.of(pending));
+
+        List<AsyncJob> claimed = jobQueueService.claim("CASE_GENERATION", WORKER, 2);
+
+        assertEquals(1, claimed.size());
+        assertEquals("RUNNING", pending.getStatus());
+        assertEquals(1, pending.getAttempts());
+        assertEquals(WORKER, pending.getLeaseOwner());
+        assertTrue(pending.getLeaseExpireTime().isAfter(LocalDateTime.now().plusSeconds(110)));
+
+        assertTrue(jobQueueService.claim("CASE_GENERATION", WORKER, 0).isEmpty());
+        verify(jobRepository, times(1)).lockClaimable(anyString(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("任务失败-按指数退避重新排队，达到最大次数后放弃")
+    void testFail_BackoffThenGiveUp() {
+        AsyncJob job = job(1L, "RUNNING", 2);
+        job.setLeaseOwner(WORKER);
+        when(jobRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(job));
+
+        assertFalse(jobQueueService.fail(1L, WORKER, "AI服务暂时不可用"));
+        assertEquals("PENDING", job.getStatus());
+        assertNull(job.getLeaseOwner());
+        assertEquals("AI服务暂时不可用", job.getLastError());
+        // 第2次失败等待 10 * 2 秒
+        assertTrue(job.getAvailableTime().isAfter(LocalDateTime.now().plusSeconds(15)));
+
+        job.setStatus("RUNNING");
+        job.setLeaseOwner(WORKER);
+        job.setAttempts(3);
+        assertTrue(jobQueueService.fail(1L, WORKER, "AI服务暂时不可用"));
+        assertEquals("FAILED", job.getStatus());
+        assertNotNull(job.getFinishTime());
+
+        assertEquals(10, jobQueueService.backoffSeconds(1));
+        assertEquals(40, jobQueueService.backoffSeconds(3));
+        assertEquals(600, jobQueueService.backoffSeconds(30));
+    }
+
+    @Test
+    @DisplayName("完成任务-租约已被其他实例接管时忽略结果")
+    void testComplete_IgnoresLostLease() {
+        AsyncJob job = job(1L, "RUNNING", 2);
+        job.setLeaseOwner("node-2");
+        when(jobRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(job));
+
+        jobQueueService.complete(1L, WORKER);
+
+        assertEquals("RUNNING", job.getStatus());
+        verify(jobRepository, never()).save(any());
+
+        job.setLeaseOwner(WORKER);
+        jobQueueService.complete(1L, WORKER);
+        assertEquals("SUCCESS", job.getStatus());
+        assertNull(job.getLeaseOwner());
+    }
+
+    @Test
+    @DisplayName("回收租约-宕机实例的任务重新排队，达到最大次数的任务返回给调用方")
+    void testReapExpiredLeases() {
+        AsyncJob retry = job(1L, "RUNNING", 1);
+        retry.setLeaseOwner("node-2");
+        AsyncJob exhausted = job(2L, "RUNNING", 3);
+        exhausted.setLeaseOwner("node-2");
+        when(jobRepository.lockExpiredLeases(any(), anyInt())).thenReturn(List.of(retry, exhausted));
+
+        List<AsyncJob> givenUp = jobQueueService.reapExpiredLeases();
+
+        assertEquals(List.of(exhausted), givenUp);
+        assertEquals("PENDING", retry.getStatus());
+        assertNull(retry.getLeaseOwner());
+        assertEquals("FAILED", exhausted.getStatus());
+        assertTrue(exhausted.getLastError().contains("node-2"));
+        verify(jobRepository).saveAll(List.of(retry, exhausted));
+    }
+
+    private static AsyncJob job(Long id, String status, int attempts) {
+        return AsyncJob.builder()
+                .id(id)
+                .jobType("CASE_GENERATION")
+                .businessKey(String.valueOf(id))
+                .status(status)
+                .attempts(attempts)
+                .maxAttempts(3)
+                .availableTime(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.KbPermissionCacheConfig;
+import com.sinosoft.testdesign.entity.KnowledgeBasePermission;
+import com.sinosoft.testdesign.repository.KnowledgeBasePermissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 知识库权限本地缓存单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("知识库权限缓存测试")
+class KbPermissionCacheTest {
+
+    @Mock
+    private KnowledgeBasePermissionRepository permissionRepository;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final List<KnowledgeBasePermission> permissions = new ArrayList<>();
+    private KbPermissionCacheConfig config;
+    private KbPermissionCache permissionCache;
+
+    @BeforeEach
+    void setUp() {
+        config = new KbPermissionCacheConfig();
+        config.setMaxUsers(2);
+        permissionCache = new KbPermissionCache(permissionRepository, stringRedisTemplate, config);
+        lenient().when(permissionRepository.findByUserId(anyLong())).thenAnswer(inv -> permissions.stream()
+                .filter(p -> p.getUserId().equals(inv.getArgument(0)))
+                .toList());
+        permissions.add(permission(1L, 100L, "read"));
+        permissions.add(permission(1L, 100L, "admin"));
+        permissions.add(permission(2L, 100L, "read"));
+    }
+
+    @Test
+    @DisplayName("权限检查-首次加载用户全部权限，之后只查内存")
+    void testHasPermission_LoadedOnce() {
+        assertTrue(permissionCache.hasPermission(1L, 100L, "admin"));
+        assertTrue(permissionCache.hasPermission(2L, 100L, "read"));
+        assertFalse(permissionCache.hasPermission(2L, 100L, "write"));
+        assertFalse(permissionCache.hasPermission(3L, 100L, "read"));
+
+        verify(permissionRepository, times(1)).findByUserId(100L);
+        verify(permissionRepository, never()).existsByKbIdAndUserIdAndPermissionType(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("失效-本实例立即生效并发布消息，收到其他实例的消息时清除缓存")
+    void testInvalidate_LocalAndRemote() {
+        assertFalse(permissionCache.hasPermission(3L, 100L, "read"));
+        permissions.add(permission(3L, 100L, "read"));
+
+        permissionCache.invalidate(100L);
+        assertTrue(permissionCache.hasPermission(3L, 100L, "read"));
+        verify(stringRedisTemplate).convertAndSend("kb:permission:invalidate", "100");
+
+        permissions.removeIf(p -> p.getKbId().equals(3L));
+        permissionCache.onMessage(new DefaultMessage("kb:permission:invalidate".getBytes(StandardCharsets.UTF_8),
+                "100".getBytes(StandardCharsets.UTF_8)), null);
+        assertFalse(permissionCache.hasPermission(3L, 100L, "read"));
+        verify(permissionRepository, times(3)).findByUserId(100L);
+    }
+
+    @Test
+    @DisplayName("容量上限-超出后淘汰最久未使用的用户")
+    void testLruEviction() {
+        permissions.add(permission(1L, 200L, "read"));
+        permissions.add(permission(1L, 300L, "read"));
+
+        permissionCache.hasPermission(1L, 100L, "read");
+        permissionCache.hasPermission(1L, 200L, "read");
+        permissionCache.hasPermission(1L, 100L, "read");
+        permissionCache.hasPermission(1L, 300L, "read");
+        permissionCache.hasPermission(1L, 100L, "read");
+        permissionCache.hasPermission(1L, 200L, "read");
+
+        verify(permissionRepository, times(1)).findByUserId(100L);
+        verify(permissionRepository, times(2)).findByUserId(200L);
+    }
+
+    private static KnowledgeBasePermission permission(Long kbId, Long userId, String permissionType) {
+        KnowledgeBasePermission permission = new KnowledgeBasePermission();
+        permission.setKbId(kbId);
+        permission.setUserId(userId);
+        permission.setPermissionType(permissionType);
+        return permission;
+    }
+}
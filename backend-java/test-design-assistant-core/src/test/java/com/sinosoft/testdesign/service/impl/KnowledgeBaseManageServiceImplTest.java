@@ -1,10 +1,13 @@
 package com.sinosoft.testdesign.service.impl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.KbSyncConfig;
 import com.sinosoft.testdesign.dto.KnowledgeBaseRequestDTO;
 import com.sinosoft.testdesign.dto.KnowledgeBaseResponseDTO;
 import com.sinosoft.testdesign.dto.KnowledgePermissionRequestDTO;
+import com.sinosoft.testdesign.dto.KnowledgePermissionResponseDTO;
 import com.sinosoft.testdesign.entity.KnowledgeBase;
 import com.sinosoft.testdesign.entity.KnowledgeBasePermission;
 import com.sinosoft.testdesign.entity.KnowledgeBaseSyncLog;
@@ -15,15 +18,27 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -58,6 +73,18 @@ class KnowledgeBaseManageServiceImplTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private KnowledgeBaseStatisticsCache statisticsCache;
+
+    @Mock
+    private KbPermissionCache permissionCache;
+
+    @Mock
+    private KnowledgeBaseManifestSync manifestSync;
+
+    @Spy
+    private KbSyncConfig kbSyncConfig = new KbSyncConfig();
+
     @InjectMocks
     private KnowledgeBaseManageServiceImpl knowledgeBaseManageService;
 
@@ -189,9 +216,7 @@ class KnowledgeBaseManageServiceImplTest {
         stats.put("document_count", 10);
         stats.put("chunk_count", 100);
         stats.put("last_sync_time", LocalDateTime.now().toString());
-        when(restTemplate.postForObject(
-                ArgumentMatchers.contains("/knowledge/statistics"),
-                any(), eq(Map.class))).thenReturn(stats);
+        when(statisticsCache.getStatistics(List.of(1L))).thenReturn(Map.of(1L, stats));
 
         KnowledgeBaseResponseDTO dto = knowledgeBaseManageService.getKnowledgeBaseById(1L);
 
@@ -216,9 +241,8 @@ class KnowledgeBaseManageServiceImplTest {
     @DisplayName("获取知识库列表-成功")
     void getKnowledgeBaseList_Success() {
         when(knowledgeBaseRepository.findByIsActive("1")).thenReturn(List.of(kb));
-        when(restTemplate.postForObject(
-                ArgumentMatchers.contains("/knowledge/statistics"),
-                any(), eq(Map.class))).thenReturn(Map.of("document_count", 0, "chunk_count", 0));
+        when(statisticsCache.getStatistics(List.of(1L)))
+                .thenReturn(Map.of(1L, Map.of("document_count", 0, "chunk_count", 0)));
 
         List<KnowledgeBaseResponseDTO> list = knowledgeBaseManageService.getKnowledgeBaseList();
 
@@ -227,11 +251,50 @@ class KnowledgeBaseManageServiceImplTest {
         assertEquals("测试知识库", list.get(0).getKbName());
     }
 
+    @Test
+    @DisplayName("获取用户知识库列表-知识库和统计信息各查询一次")
+    void getUserKnowledgeBaseList_BatchLoaded() {
+        KnowledgeBase kb2 = new KnowledgeBase();
+        kb2.setId(2L);
+        kb2.setKbName("第二个知识库");
+        when(permissionRepository.findKbIdByUserIdAndPermissionType(100L, "read")).thenReturn(List.of(2L, 1L, 3L));
+        when(knowledgeBaseRepository.findAllById(List.of(2L, 1L, 3L))).thenReturn(List.of(kb, kb2));
+        when(statisticsCache.getStatistics(List.of(2L, 1L)))
+                .thenReturn(Map.of(2L, Map.of("document_count", 3, "chunk_count", 30)));
+
+        List<KnowledgeBaseResponseDTO> list = knowledgeBaseManageService.getUserKnowledgeBaseList(100L, "read");
+
+        assertEquals(List.of(2L, 1L), list.stream().map(KnowledgeBaseResponseDTO::getId).toList());
+        assertEquals(3, list.get(0).getDocumentCount());
+        assertEquals(0, list.get(1).getDocumentCount());
+        verify(knowledgeBaseRepository, never()).findById(anyLong());
+        verify(statisticsCache, times(1)).getStatistics(anyCollection());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    @DisplayName("查询知识库权限-联表查询知识库名称")
+    void getKnowledgeBasePermissions_Joined() {
+        KnowledgeBasePermission permission = new KnowledgeBasePermission();
+        permission.setId(9L);
+        permission.setKbId(1L);
+        permission.setUserId(100L);
+        permission.setPermissionType("admin");
+        when(permissionRepository.findWithKnowledgeBaseByKbId(1L))
+                .thenReturn(List.<Object[]>of(new Object[]{permission, "KB-20260128-0001", "测试知识库"}));
+
+        List<KnowledgePermissionResponseDTO> permissions = knowledgeBaseManageService.getKnowledgeBasePermissions(1L);
+
+        assertEquals(1, permissions.size());
+        assertEquals("测试知识库", permissions.get(0).getKbName());
+        assertEquals("KB-20260128-0001", permissions.get(0).getKbCode());
+        verify(knowledgeBaseRepository, never()).findById(anyLong());
+    }
+
     @Test
     @DisplayName("检查权限-存在返回true")
     void checkPermission_Exists_True() {
-        when(permissionRepository.existsByKbIdAndUserIdAndPermissionType(1L, 100L, "admin"))
-                .thenReturn(true);
+        when(permissionCache.hasPermission(1L, 100L, "admin")).thenReturn(true);
 
         assertTrue(knowledgeBaseManageService.checkPermission(1L, 100L, "admin"));
     }
@@ -239,12 +302,56 @@ class KnowledgeBaseManageServiceImplTest {
     @Test
     @DisplayName("检查权限-不存在返回false")
     void checkPermission_NotExists_False() {
-        when(permissionRepository.existsByKbIdAndUserIdAndPermissionType(1L, 100L, "admin"))
-                .thenReturn(false);
+        when(permissionCache.hasPermission(1L, 100L, "admin")).thenReturn(false);
 
         assertFalse(knowledgeBaseManageService.checkPermission(1L, 100L, "admin"));
     }
 
+    @Test
+    @DisplayName("上传文档-知识库中已有相同内容时直接返回已有文档编码")
+    void uploadDocument_SameContent_Skipped() {
+        when(knowledgeBaseRepository.findById(1L)).thenReturn(Optional.of(kb));
+        when(restTemplate.postForObject(eq("http://localhost:8000/api/v1/knowledge/upload/check"), any(), eq(Map.class)))
+                .thenReturn(Map.of("success", true, "exists", true, "doc_code", "DOC-1"));
+
+        String docCode = knowledgeBaseManageService.uploadDocument(1L, "a.txt",
+                new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)), 100L);
+
+        assertEquals("DOC-1", docCode);
+        verify(restTemplate, never()).execute(any(URI.class), any(), any(), any());
+        verify(statisticsCache, never()).markStale(any());
+    }
+
+    @Test
+    @DisplayName("上传文档-内容以流的方式转发，携带内容哈希")
+    @SuppressWarnings("unchecked")
+    void uploadDocument_Streamed() throws Exception {
+        when(knowledgeBaseRepository.findById(1L)).thenReturn(Optional.of(kb));
+        when(restTemplate.postForObject(anyString(), any(), eq(Map.class))).thenReturn(Map.of("success", true, "exists", false));
+        MockClientHttpRequest sent = new MockClientHttpRequest();
+        when(restTemplate.execute(any(URI.class), eq(HttpMethod.POST), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenAnswer(inv -> {
+                    inv.<RequestCallback>getArgument(2).doWithRequest(sent);
+                    return inv.<ResponseExtractor<String>>getArgument(3).extractData(new MockClientHttpResponse(
+                            "{\"success\":true,\"doc_code\":\"DOC-2\"}".getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+                });
+        when(objectMapper.readValue(anyString(), any(TypeReference.class))).thenReturn(Map.of("success", true, "doc_code", "DOC-2"));
+
+        String docCode = knowledgeBaseManageService.uploadDocument(1L, "需求 说明.txt",
+                new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)), 100L);
+
+        assertEquals("DOC-2", docCode);
+        assertEquals("hello", sent.getBodyAsString());
+        assertEquals(5L, sent.getHeaders().getContentLength());
+        ArgumentCaptor<URI> uri = ArgumentCaptor.forClass(URI.class);
+        verify(restTemplate).execute(uri.capture(), eq(HttpMethod.POST), any(RequestCallback.class), any(ResponseExtractor.class));
+        assertTrue(uri.getValue().getPath().endsWith("/api/v1/knowledge/upload/stream"));
+        // SHA-256("hello")
+        assertTrue(uri.getValue().getQuery().contains("content_hash=2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824"));
+        assertTrue(uri.getValue().getQuery().contains("file_name=需求 说明.txt"));
+        verify(statisticsCache).markStale(1L);
+    }
+
     @Test
     @DisplayName("生成知识库编码-无已有编码时从0001开始")
     void generateKbCode_NoExisting_StartsFrom0001() {
@@ -273,4 +380,40 @@ class KnowledgeBaseManageServiceImplTest {
         assertNotNull(code);
         assertTrue(code.endsWith("0004"));
     }
+
+    @Test
+    @DisplayName("同步知识库-同一知识库正在同步时拒绝新的同步")
+    void syncKnowledgeBase_RejectsConcurrentSync() {
+        when(knowledgeBaseRepository.findById(1L)).thenReturn(Optional.of(kb));
+        List<Exception> nested = new ArrayList<>();
+        when(manifestSync.syncIncremental(eq(kb), eq("/data/docs"))).thenAnswer(inv -> {
+            nested.add(assertThrows(BusinessException.class,
+                    () -> knowledgeBaseManageService.syncKnowledgeBase(1L, "incremental", "/data/docs")));
+            return new HashMap<>(Map.of("success", true, "added_count", 1));
+        });
+
+        Map<String, Object> result = knowledgeBaseManageService.syncKnowledgeBase(1L, "incremental", "/data/docs");
+
+        assertEquals(true, result.get("success"));
+        assertEquals(1, nested.size());
+        assertTrue(nested.get(0).getMessage().contains("正在同步"));
+        verify(syncLogRepository).failStaleRunning(eq(1L), any(), any());
+        // 释放后可以再次同步
+        knowledgeBaseManageService.syncKnowledgeBase(1L, "incremental", "/data/docs");
+        verify(manifestSync, times(2)).syncIncremental(kb, "/data/docs");
+    }
+
+    @Test
+    @DisplayName("同步知识库-其他节点正在同步（运行中日志唯一约束冲突）时拒绝")
+    void syncKnowledgeBase_RunningOnOtherNode() {
+        when(knowledgeBaseRepository.findById(1L)).thenReturn(Optional.of(kb));
+        when(syncLogRepository.save(any(KnowledgeBaseSyncLog.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_kb_sync_log_running"));
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> knowledgeBaseManageService.syncKnowledgeBase(1L, "incremental", "/data/docs"));
+
+        assertTrue(e.getMessage().contains("正在同步"));
+        verify(manifestSync, never()).syncIncremental(any(), any());
+    }
 }
@@ -0,0 +1,218 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.KbSyncConfig;
+import com.sinosoft.testdesign.entity.KnowledgeBase;
+import com.sinosoft.testdesign.entity.KnowledgeDocumentManifest;
+import com.sinosoft.testdesign.repository.KnowledgeDocumentManifestRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 知识库文档清单同步单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("知识库文档清单同步测试")
+class KnowledgeBaseManifestSyncTest {
+
+    @Mock
+    private KnowledgeDocumentManifestRepository manifestRepository;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path sourceDir;
+
+    private final List<KnowledgeDocumentManifest> manifest = new ArrayList<>();
+    private final List<Map<String, Object>> requests = new ArrayList<>();
+    private KnowledgeBaseManifestSync manifestSync;
+    private KnowledgeBase kb;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        KbSyncConfig config = new KbSyncConfig();
+        config.setHashThreads(2);
+        config.setBatchSize(2);
+        manifestSync = new KnowledgeBaseManifestSync(manifestRepository, restTemplate, config, transactionManager);
+        ReflectionTestUtils.setField(manifestSync, "aiServiceUrl", "http://localhost:8000");
+        kb = new KnowledgeBase();
+        kb.setId(1L);
+
+        lenient().when(manifestRepository.findByKbId(1L)).thenAnswer(inv -> List.copyOf(manifest));
+        lenient().when(manifestRepository.saveAll(anyIterable())).thenAnswer(inv -> {
+            for (KnowledgeDocumentManifest entry : (Iterable<KnowledgeDocumentManifest>) inv.getArgument(0)) {
+                if (!manifest.contains(entry)) {
+                    manifest.add(entry);
+                }
+            }
+            return inv.getArgument(0);
+        });
+        lenient().doAnswer(inv -> manifest.removeAll((Collection<?>) inv.getArgument(0)))
+                .when(manifestRepository).deleteAll(anyIterable());
+        lenient().when(restTemplate.postForObject(eq("http://localhost:8000/api/v1/knowledge/sync/batch"), any(), eq(Map.class)))
+                .thenAnswer(inv -> {
+                    Map<String, Object> request = inv.getArgument(1);
+                    requests.add(request);
+                    List<Map<String, Object>> files = (List<Map<String, Object>>) request.getOrDefault("files", List.of());
+                    return Map.of("success", true, "results", files.stream()
+                            .map(file -> Map.of("path", file.get("path"), "success", !file.get("path").toString().contains("bad"),
+                                    "doc_code", file.get("doc_code")))
+                            .toList());
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        manifestSync.shutdown();
+    }
+
+    @Test
+    @DisplayName("增量同步-只提交新增、内容变化和已删除的文件，分批提交")
+    @SuppressWarnings("unchecked")
+    void testSyncIncremental_OnlyChanges() throws Exception {
+        write("a.txt", "alpha");
+        write("sub/b.md", "beta");
+        write("c.txt", "gamma");
+        write("d.txt", "delta");
+        write("ignored.bin", "binary");
+
+        Map<String, Object> first = manifestSync.syncIncremental(kb, sourceDir.toString());
+        assertEquals(4, first.get("added_count"));
+        assertEquals(2, requests.size());
+        assertTrue(manifest.stream().anyMatch(m -> m.getRelativePath().equals("sub/b.md")));
+
+        requests.clear();
+        write("a.txt", "alpha-v2");
+        Files.setLastModifiedTime(write("c.txt", "gamma"), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        Files.delete(sourceDir.resolve("d.txt"));
+
+        Map<String, Object> second = manifestSync.syncIncremental(kb, sourceDir.toString());
+
+        assertEquals(0, second.get("added_count"));
+        assertEquals(1, second.get("updated_count"));
+        assertEquals(1, second.get("deleted_count"));
+        assertEquals(2, second.get("unchanged_count"));
+        assertEquals(2, requests.size());
+        List<Map<String, Object>> files = (List<Map<String, Object>>) requests.get(0).get("files");
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).get("path").toString().endsWith("a.txt"));
+        assertEquals(List.of(KnowledgeBaseManifestSync.docCodeOf(1L, "d.txt")), requests.get(1).get("deleted_doc_codes"));
+        assertEquals(3, manifest.size());
+    }
+
+    @Test
+    @DisplayName("增量同步-处理失败的文件不写入清单，下次同步重试")
+    void testSyncIncremental_FailedRetried() throws Exception {
+        write("bad.txt", "broken");
+        write("good.txt", "fine");
+
+        Map<String, Object> first = manifestSync.syncIncremental(kb, sourceDir.toString());
+        Map<String, Object> second = manifestSync.syncIncremental(kb, sourceDir.toString());
+
+        assertEquals(1, first.get("added_count"));
+        assertEquals(1, first.get("failed_count"));
+        assertEquals(0, second.get("added_count"));
+        assertEquals(1, second.get("failed_count"));
+        assertEquals(1, second.get("unchanged_count"));
+        assertEquals(List.of("good.txt"), manifest.stream().map(KnowledgeDocumentManifest::getRelativePath).toList());
+    }
+
+    @Test
+    @DisplayName("增量同步-不同目录下的同名文件对应不同文档，删除其一不影响另一个")
+    @SuppressWarnings("unchecked")
+    void testSyncIncremental_SameFileNameInDifferentDirs() throws Exception {
+        write("a/readme.md", "first");
+        write("b/readme.md", "second");
+
+        manifestSync.syncIncremental(kb, sourceDir.toString());
+        List<Map<String, Object>> files = (List<Map<String, Object>>) requests.get(0).get("files");
+        assertNotEquals(files.get(0).get("doc_code"), files.get(1).get("doc_code"));
+
+        requests.clear();
+        Files.delete(sourceDir.resolve("a/readme.md"));
+        Map<String, Object> result = manifestSync.syncIncremental(kb, sourceDir.toString());
+
+        assertEquals(1, result.get("deleted_count"));
+        assertEquals(List.of(KnowledgeBaseManifestSync.docCodeOf(1L, "a/readme.md")),
+                requests.get(0).get("deleted_doc_codes"));
+        assertEquals(List.of("b/readme.md"), manifest.stream().map(KnowledgeDocumentManifest::getRelativePath).toList());
+    }
+
+    @Test
+    @DisplayName("重建清单-全量同步中的同名文件标记为待重新同步，增量同步按相对路径重新导入并删除旧文档")
+    @SuppressWarnings("unchecked")
+    void testRebuildManifest_FlagsFileNameCollisions() throws Exception {
+        write("a/readme.md", "first");
+        write("b/readme.md", "second");
+        write("c.txt", "gamma");
+
+        assertEquals(3, manifestSync.rebuildManifest(1L, sourceDir.toString()));
+        Map<String, Object> result = manifestSync.syncIncremental(kb, sourceDir.toString());
+
+        assertEquals(2, result.get("updated_count"));
+        assertEquals(1, result.get("unchanged_count"));
+        List<Map<String, Object>> files = (List<Map<String, Object>>) requests.get(0).get("files");
+        assertEquals(2, files.size());
+        assertTrue(files.stream().allMatch(file -> "readme.md".equals(file.get("previous_doc_code"))));
+        assertTrue(manifest.stream().filter(m -> m.getRelativePath().endsWith("readme.md"))
+                .allMatch(m -> m.getDocCode().equals(KnowledgeBaseManifestSync.docCodeOf(1L, m.getRelativePath()))));
+    }
+
+    @Test
+    @DisplayName("增量同步-每批清单独立提交，后续批次失败时已完成批次的清单保留")
+    @SuppressWarnings("unchecked")
+    void testSyncIncremental_CommitsPerBatch() throws Exception {
+        write("a.txt", "alpha");
+        write("b.txt", "beta");
+        write("c.txt", "gamma");
+        doAnswer(inv -> {
+            Map<String, Object> request = inv.getArgument(1);
+            List<Map<String, Object>> files = (List<Map<String, Object>>) request.get("files");
+            return Map.of("success", true, "results", files.stream()
+                    .map(file -> Map.of("path", file.get("path"), "success", true, "doc_code", file.get("doc_code")))
+                    .toList());
+        }).doThrow(new RuntimeException("AI服务不可用"))
+                .when(restTemplate).postForObject(eq("http://localhost:8000/api/v1/knowledge/sync/batch"), any(), eq(Map.class));
+
+        Map<String, Object> result = manifestSync.syncIncremental(kb, sourceDir.toString());
+
+        assertEquals(2, result.get("added_count"));
+        assertEquals(1, result.get("failed_count"));
+        assertEquals(2, manifest.size());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    private Path write(String relativePath, String content) throws Exception {
+        Path path = sourceDir.resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, content);
+    }
+}
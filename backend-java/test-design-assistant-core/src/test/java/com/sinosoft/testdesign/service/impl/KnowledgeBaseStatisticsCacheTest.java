@@ -0,0 +1,158 @@
+package com.sinosoft.testdesign.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 知识库统计信息缓存单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("知识库统计信息缓存测试")
+class KnowledgeBaseStatisticsCacheTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private KnowledgeBaseStatisticsCache statisticsCache;
+
+    @BeforeEach
+    void setUp() {
+        statisticsCache = new KnowledgeBaseStatisticsCache(restTemplate);
+        ReflectionTestUtils.setField(statisticsCache, "aiServiceUrl", "http://localhost:8000");
+    }
+
+    @Test
+    @DisplayName("批量查询-未缓存的知识库合并为一次请求，缓存命中不再请求")
+    @SuppressWarnings("unchecked")
+    void testGetStatistics_BatchAndCached() {
+        when(restTemplate.postForObject(eq("http://localhost:8000/api/v1/knowledge/statistics/batch"), any(), eq(Map.class)))
+                .thenReturn(Map.of("success", true, "statistics", Map.of(
+                        "1", Map.of("document_count", 2, "chunk_count", 20),
+                        "2", Map.of("document_count", 0, "chunk_count", 0))))
+                .thenReturn(Map.of("success", true, "statistics", Map.of(
+                        "3", Map.of("document_count", 5, "chunk_count", 50))));
+
+        Map<Long, Map<String, Object>> first = statisticsCache.getStatistics(List.of(1L, 2L));
+        Map<Long, Map<String, Object>> second = statisticsCache.getStatistics(List.of(2L, 1L, 3L));
+
+        assertEquals(2, first.get(1L).get("document_count"));
+        assertEquals(3, second.size());
+        assertEquals(50, second.get(3L).get("chunk_count"));
+        ArgumentCaptor<HttpEntity<Map<String, Object>>> request = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(2)).postForObject(anyString(), request.capture(), eq(Map.class));
+        assertEquals(List.of(3L), List.copyOf((Collection<Long>) request.getAllValues().get(1).getBody().get("kb_ids")));
+    }
+
+    @Test
+    @DisplayName("AI服务不可用-返回过期的缓存值")
+    void testGetStatistics_StaleOnError() {
+        ReflectionTestUtils.setField(statisticsCache, "ttlSeconds", 0L);
+        when(restTemplate.postForObject(anyString(), any(), eq(Map.class)))
+                .thenReturn(Map.of("success", true, "statistics", Map.of("1", Map.of("document_count", 4))))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        statisticsCache.getStatistics(List.of(1L));
+        Map<Long, Map<String, Object>> stale = statisticsCache.getStatistics(List.of(1L, 2L));
+
+        assertEquals(4, stale.get(1L).get("document_count"));
+        assertFalse(stale.containsKey(2L));
+    }
+
+    @Test
+    @DisplayName("刷新失败-保留旧值，查询仍返回旧值")
+    void testRefresh_KeepsStaleOnError() {
+        when(restTemplate.postForObject(anyString(), any(), eq(Map.class)))
+                .thenReturn(Map.of("success", true, "statistics", Map.of("1", Map.of("document_count", 4))))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        statisticsCache.getStatistics(List.of(1L));
+        statisticsCache.markStale(1L);
+        statisticsCache.refresh(1L);
+        Map<Long, Map<String, Object>> stale = statisticsCache.getStatistics(List.of(1L));
+
+        assertEquals(4, stale.get(1L).get("document_count"));
+        // 标记过期后再次查询会重新请求
+        verify(restTemplate, times(3)).postForObject(anyString(), any(), eq(Map.class));
+    }
+
+    @Test
+    @DisplayName("并发查询-同一知识库等待进行中的查询，只请求一次")
+    void testGetStatistics_ConcurrentLoadShared() throws Exception {
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.postForObject(anyString(), any(), eq(Map.class))).thenAnswer(inv -> {
+            requested.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of("success", true, "statistics", Map.of("1", Map.of("document_count", 7)));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<Long, Map<String, Object>>> first = executor.submit(() -> statisticsCache.getStatistics(List.of(1L)));
+            assertTrue(requested.await(5, TimeUnit.SECONDS));
+            Future<Map<Long, Map<String, Object>>> second = executor.submit(() -> statisticsCache.getStatistics(List.of(1L)));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(7, first.get(5, TimeUnit.SECONDS).get(1L).get("document_count"));
+            assertEquals(7, second.get(5, TimeUnit.SECONDS).get(1L).get("document_count"));
+            verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(Map.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("提交后刷新-不复用刷新前发起的查询，重新请求")
+    void testRefresh_DoesNotReuseEarlierLoad() throws Exception {
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.postForObject(anyString(), any(), eq(Map.class)))
+                .thenAnswer(inv -> {
+                    requested.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Map.of("success", true, "statistics", Map.of("1", Map.of("document_count", 1)));
+                })
+                .thenReturn(Map.of("success", true, "statistics", Map.of("1", Map.of("document_count", 2))));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<Long, Map<String, Object>>> earlier = executor.submit(() -> statisticsCache.getStatistics(List.of(1L)));
+            assertTrue(requested.await(5, TimeUnit.SECONDS));
+            statisticsCache.refresh(1L);
+            release.countDown();
+            earlier.get(5, TimeUnit.SECONDS);
+
+            verify(restTemplate, times(2)).postForObject(anyString(), any(), eq(Map.class));
+            // 先发起、后返回的查询不覆盖刷新结果
+            assertEquals(2, statisticsCache.getStatistics(List.of(1L)).get(1L).get("document_count"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
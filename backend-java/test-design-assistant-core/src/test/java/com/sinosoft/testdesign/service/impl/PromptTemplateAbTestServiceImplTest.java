@@ -0,0 +1,449 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.AbTestEvaluationConfig;
+import com.sinosoft.testdesign.entity.PromptTemplate;
+import com.sinosoft.testdesign.entity.PromptTemplateAbTest;
+import com.sinosoft.testdesign.entity.PromptTemplateAbTestExecution;
+import com.sinosoft.testdesign.entity.PromptTemplateVersion;
+import com.sinosoft.testdesign.repository.PromptTemplateAbTestExecutionRepository;
+import com.sinosoft.testdesign.repository.PromptTemplateAbTestRepository;
+import com.sinosoft.testdesign.repository.PromptTemplateRepository;
+import com.sinosoft.testdesign.repository.PromptTemplateVersionRepository;
+import com.sinosoft.testdesign.repository.WorkflowAbTestExecutionRepository;
+import com.sinosoft.testdesign.util.AbTestBucketing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 提示词模板A/B测试服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-05
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("提示词模板A/B测试服务测试")
+class PromptTemplateAbTestServiceImplTest {
+
+    @Mock
+    private PromptTemplateAbTestRepository abTestRepository;
+
+    @Mock
+    private PromptTemplateAbTestExecutionRepository executionRepository;
+
+    @Mock
+    private PromptTemplateRepository templateRepository;
+
+    @Mock
+    private PromptTemplateVersionRepository versionRepository;
+
+    @Mock
+    private WorkflowAbTestExecutionRepository workflowExecutionRepository;
+
+    private AbTestStatsRegistry statsRegistry;
+    private AbTestEvaluator abTestEvaluator;
+    private PromptTemplateAbTestServiceImpl abTestService;
+    private PromptTemplateAbTest abTest;
+
+    @BeforeEach
+    void setUp() {
+        statsRegistry = new AbTestStatsRegistry(executionRepository, workflowExecutionRepository);
+        abTestEvaluator = new AbTestEvaluator(new AbTestEvaluationConfig());
+        abTestService = new PromptTemplateAbTestServiceImpl(abTestRepository, executionRepository,
+                templateRepository, versionRepository, statsRegistry, abTestEvaluator, new AbTestAssignmentCache(),
+                new PromptTemplateCompiler());
+
+        abTest = new PromptTemplateAbTest();
+        abTest.setId(7L);
+        abTest.setTemplateId(1L);
+        abTest.setVersionAId(11L);
+        abTest.setVersionBId(12L);
+        abTest.setTrafficSplitA(30);
+        abTest.setTrafficSplitB(70);
+        abTest.setStatus("running");
+        abTest.setSelectionCriteria("success_rate");
+        abTest.setAutoSelectEnabled("0");
+        abTest.setMinSamples(100);
+        abTest.setAllocationMode("fixed");
+        when(abTestRepository.findById(7L)).thenReturn(Optional.of(abTest));
+        when(executionRepository.save(any(PromptTemplateAbTestExecution.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("选择版本-同一请求ID始终选择同一版本")
+    void testSelectVersion_StickyByRequestId() {
+        for (int i = 0; i < 100; i++) {
+            String requestId = "req-" + i;
+            String first = abTestService.selectVersion(7L, requestId);
+            for (int j = 0; j < 5; j++) {
+                assertEquals(first, abTestService.selectVersion(7L, requestId));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("选择版本-流量分配符合比例")
+    void testSelectVersion_FollowsTrafficSplit() {
+        int countA = 0;
+        int total = 20000;
+        for (int i = 0; i < total; i++) {
+            if ("A".equals(abTestService.selectVersion(7L, "user-" + i))) {
+                countA++;
+            }
+        }
+        double ratioA = (double) countA / total;
+        assertTrue(ratioA > 0.28 && ratioA < 0.32, "ratioA=" + ratioA);
+    }
+
+    @Test
+    @DisplayName("选择版本-数值键与边界比例")
+    void testBucketing_NumericKeyAndBounds() {
+        assertEquals(AbTestBucketing.selectVariant(7L, 42L, 50), AbTestBucketing.selectVariant(7L, 42L, 50));
+        assertEquals("A", AbTestBucketing.selectVariant(7L, 42L, 100));
+        assertEquals("B", AbTestBucketing.selectVariant(7L, 42L, 0));
+        assertEquals("A", AbTestBucketing.selectVariant(7L, "req-1", 100));
+        assertEquals("B", AbTestBucketing.selectVariant(7L, "req-1", 0));
+    }
+
+    @Test
+    @DisplayName("选择版本-测试未运行时返回版本A")
+    void testSelectVersion_NotRunning() {
+        abTest.setStatus("paused");
+
+        assertEquals("A", abTestService.selectVersion(7L, "req-1"));
+    }
+
+    @Test
+    @DisplayName("统计信息-加载基线后由内存计数器累加，不重复查库")
+    void testGetAbTestStatistics_ServedFromMemory() {
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 10L, 8L, 800L, 80000L, 8L, 40L, 160L, 10L});
+        baseline.add(new Object[]{"B", 10L, 9L, 1800L, 360000L, 9L, 30L, 90L, 10L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+
+        Map<String, Object> before = abTestService.getAbTestStatistics(7L);
+        abTestService.recordExecution(execution("A", "success", 200, 5));
+        abTestService.recordExecution(execution("A", "failed", null, null));
+        Map<String, Object> after = abTestService.getAbTestStatistics(7L);
+
+        assertEquals(20L, before.get("totalExecutions"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> versionA = (Map<String, Object>) after.get("versionA");
+        assertEquals(12L, versionA.get("totalExecutions"));
+        assertEquals(9L, versionA.get("successCount"));
+        assertEquals(75.0, versionA.get("successRate"));
+        assertEquals(111L, versionA.get("avgResponseTime"));
+        assertEquals(4.1, versionA.get("avgRating"));
+        assertEquals("B", after.get("betterVersion"));
+        verify(executionRepository, times(1)).aggregateByVersionLabel(7L);
+    }
+
+    @Test
+    @DisplayName("统计信息-按响应时间判断更优版本")
+    void testGetAbTestStatistics_ResponseTimeCriteria() {
+        abTest.setSelectionCriteria("response_time");
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 10L, 8L, 800L, 80000L, 8L, 0L, 0L, 0L});
+        baseline.add(new Object[]{"B", 10L, 9L, 1800L, 360000L, 9L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+
+        Map<String, Object> stats = abTestService.getAbTestStatistics(7L);
+
+        assertEquals("A", stats.get("betterVersion"));
+    }
+
+    @Test
+    @DisplayName("统计信息-定时刷新时重新加载基线")
+    void testRefreshAll_ReloadsBaseline() {
+        List<Object[]> first = new ArrayList<>();
+        first.add(new Object[]{"A", 1L, 1L, 100L, 10000L, 1L, 0L, 0L, 0L});
+        List<Object[]> second = new ArrayList<>();
+        second.add(new Object[]{"A", 5L, 5L, 500L, 50000L, 5L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(first, second);
+
+        abTestService.getAbTestStatistics(7L);
+        abTestService.recordExecution(execution("A", "success", 100, null));
+        statsRegistry.refreshAll();
+
+        assertEquals(5L, statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A").executions());
+    }
+
+    @Test
+    @DisplayName("统计信息-刷新期间记录的执行结果计入新快照，刷新失败时保留原统计")
+    void testRefreshAll_PublishesBaselineAndDeltaTogether() {
+        List<Object[]> first = new ArrayList<>();
+        first.add(new Object[]{"A", 1L, 1L, 100L, 10000L, 1L, 0L, 0L, 0L});
+        List<Object[]> second = new ArrayList<>();
+        second.add(new Object[]{"A", 5L, 5L, 500L, 50000L, 5L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L))
+                .thenReturn(first)
+                .thenAnswer(inv -> {
+                    // 基线查询之后提交的执行记录
+                    statsRegistry.record(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A", "success", 100, null);
+                    assertEquals(2L, statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A").executions());
+                    return second;
+                })
+                .thenThrow(new RuntimeException("数据库不可用"));
+
+        assertEquals(1L, statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A").executions());
+        statsRegistry.refreshAll();
+        assertEquals(6L, statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A").executions());
+
+        statsRegistry.refreshAll();
+        assertEquals(6L, statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A").executions());
+        verify(executionRepository, times(3)).aggregateByVersionLabel(7L);
+    }
+
+    @Test
+    @DisplayName("统计信息-执行记录在事务提交后才计入")
+    void testRecord_CountedAfterCommit() {
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 1L, 1L, 100L, 10000L, 1L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+        statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            statsRegistry.record(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A", "success", 100, null);
+            assertEquals(1L, statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A").executions());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(2L, statsRegistry.getStats(AbTestStatsRegistry.SCOPE_PROMPT, 7L, "A").executions());
+    }
+
+    @Test
+    @DisplayName("自动评估-成功率差异显著时提升胜出版本并结束测试")
+    void testEvaluateAbTest_PromotesSignificantWinner() {
+        abTest.setAutoSelectEnabled("1");
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 100L, 60L, 0L, 0L, 0L, 0L, 0L, 0L});
+        baseline.add(new Object[]{"B", 100L, 85L, 0L, 0L, 0L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+        PromptTemplateVersion versionB = new PromptTemplateVersion();
+        versionB.setId(12L);
+        versionB.setTemplateId(1L);
+        versionB.setVersionNumber(3);
+        versionB.setTemplateContent("新版本内容 {input}");
+        when(versionRepository.findById(12L)).thenReturn(Optional.of(versionB));
+        PromptTemplate template = new PromptTemplate();
+        template.setId(1L);
+        template.setTemplateContent("旧版本内容");
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        when(abTestRepository.completeIfRunning(eq(7L), any())).thenReturn(1);
+
+        abTestService.evaluateAbTest(7L);
+
+        assertEquals("completed", abTest.getStatus());
+        assertNotNull(abTest.getEndTime());
+        assertEquals("1", versionB.getIsCurrent());
+        assertEquals("新版本内容 {input}", template.getTemplateContent());
+        assertEquals(3, template.getVersion());
+        verify(versionRepository).updateAllVersionsToNonCurrent(1L);
+    }
+
+    @Test
+    @DisplayName("自动评估-其他节点已结束测试时不重复提升版本")
+    void testEvaluateAbTest_AlreadyCompletedElsewhere() {
+        abTest.setAutoSelectEnabled("1");
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 100L, 60L, 0L, 0L, 0L, 0L, 0L, 0L});
+        baseline.add(new Object[]{"B", 100L, 85L, 0L, 0L, 0L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+        PromptTemplateVersion versionB = new PromptTemplateVersion();
+        versionB.setId(12L);
+        when(versionRepository.findById(12L)).thenReturn(Optional.of(versionB));
+        when(abTestRepository.completeIfRunning(eq(7L), any())).thenReturn(0);
+
+        abTestService.evaluateAbTest(7L);
+
+        verify(versionRepository, never()).updateAllVersionsToNonCurrent(anyLong());
+        verify(templateRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("停止测试-结果未显著时只结束测试，不推广领先版本")
+    void testStopAbTest_DoesNotPromoteLeader() {
+        abTest.setAutoSelectEnabled("1");
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 60L, 50L, 0L, 0L, 0L, 0L, 0L, 0L});
+        baseline.add(new Object[]{"B", 60L, 52L, 0L, 0L, 0L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+        when(abTestRepository.save(abTest)).thenReturn(abTest);
+
+        PromptTemplateAbTest stopped = abTestService.stopAbTest(7L);
+
+        assertEquals("completed", stopped.getStatus());
+        assertEquals("B", abTestService.getAbTestStatistics(7L).get("betterVersion"));
+        verify(versionRepository, never()).updateAllVersionsToNonCurrent(anyLong());
+        assertThrows(RuntimeException.class, () -> abTestService.autoSelectBestVersion(7L));
+    }
+
+    @Test
+    @DisplayName("自动评估-差异未显著时不提升版本")
+    void testEvaluateAbTest_NotSignificant() {
+        abTest.setAutoSelectEnabled("1");
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 60L, 50L, 0L, 0L, 0L, 0L, 0L, 0L});
+        baseline.add(new Object[]{"B", 60L, 52L, 0L, 0L, 0L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+
+        abTestService.evaluateAbTest(7L);
+
+        assertEquals("running", abTest.getStatus());
+        verify(versionRepository, never()).updateAllVersionsToNonCurrent(anyLong());
+    }
+
+    @Test
+    @DisplayName("自动评估-bandit模式按胜出概率调整流量并保留最小流量")
+    void testEvaluateAbTest_BanditAdjustsTrafficSplit() {
+        abTest.setAllocationMode("bandit");
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 20L, 10L, 0L, 0L, 0L, 0L, 0L, 0L});
+        baseline.add(new Object[]{"B", 20L, 14L, 0L, 0L, 0L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+
+        abTestService.evaluateAbTest(7L);
+
+        assertEquals(10, abTest.getTrafficSplitA());
+        assertEquals(90, abTest.getTrafficSplitB());
+        assertEquals("running", abTest.getStatus());
+        verify(abTestRepository).save(abTest);
+    }
+
+    @Test
+    @DisplayName("选择版本-bandit模式调整流量后已分配的请求ID保持原版本")
+    void testSelectVersion_BanditKeepsAssignments() {
+        abTest.setAllocationMode("bandit");
+        Map<String, String> assigned = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            assigned.put("req-" + i, abTestService.selectVersion(7L, "req-" + i));
+        }
+
+        abTest.setTrafficSplitA(90);
+        abTest.setTrafficSplitB(10);
+
+        assigned.forEach((requestId, version) -> assertEquals(version, abTestService.selectVersion(7L, requestId)));
+        int countA = 0;
+        for (int i = 1000; i < 3000; i++) {
+            if ("A".equals(abTestService.selectVersion(7L, "req-" + i))) {
+                countA++;
+            }
+        }
+        assertTrue(countA > 1700, "countA=" + countA);
+    }
+
+    @Test
+    @DisplayName("选择版本-bandit模式本地无记录时沿用执行记录中的版本")
+    void testSelectVersion_BanditUsesRecordedVersion() {
+        abTest.setAllocationMode("bandit");
+        abTest.setTrafficSplitA(0);
+        PromptTemplateAbTestExecution recorded = execution("A", "success", 100, null);
+        when(executionRepository.findFirstByAbTestIdAndRequestIdOrderByIdAsc(7L, "req-1"))
+                .thenReturn(Optional.of(recorded));
+
+        assertEquals("A", abTestService.selectVersion(7L, "req-1"));
+        assertEquals("B", abTestService.selectVersion(7L, "req-2"));
+    }
+
+    @Test
+    @DisplayName("自动评估-bandit模式样本不足时不调整流量")
+    void testEvaluateAbTest_BanditWarmup() {
+        abTest.setAllocationMode("bandit");
+        List<Object[]> baseline = new ArrayList<>();
+        baseline.add(new Object[]{"A", 5L, 1L, 0L, 0L, 0L, 0L, 0L, 0L});
+        baseline.add(new Object[]{"B", 5L, 5L, 0L, 0L, 0L, 0L, 0L, 0L});
+        when(executionRepository.aggregateByVersionLabel(7L)).thenReturn(baseline);
+
+        abTestService.evaluateAbTest(7L);
+
+        assertEquals(30, abTest.getTrafficSplitA());
+        verify(abTestRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("评估器-响应时间按序贯检验判定，样本不足时不判定胜出")
+    void testEvaluator_ResponseTime() {
+        // 均值 100ms vs 120ms，标准差约 10ms
+        AbTestStatsRegistry.VariantStats fastA = new AbTestStatsRegistry.VariantStats(
+                50, 50, 5000, 50 * (100 * 100 + 100), 50, 0, 0, 0);
+        AbTestStatsRegistry.VariantStats slowB = new AbTestStatsRegistry.VariantStats(
+                50, 50, 6000, 50 * (120 * 120 + 100), 50, 0, 0, 0);
+        AbTestEvaluator.Evaluation evaluation = abTestEvaluator.evaluate("response_time", fastA, slowB);
+        assertEquals("A", evaluation.leader());
+        assertEquals("A", evaluation.winner());
+        assertTrue(evaluation.pValue() < 0.01);
+
+        AbTestStatsRegistry.VariantStats fewA = new AbTestStatsRegistry.VariantStats(
+                10, 10, 1000, 10 * (100 * 100 + 100), 10, 0, 0, 0);
+        AbTestStatsRegistry.VariantStats fewB = new AbTestStatsRegistry.VariantStats(
+                10, 10, 1200, 10 * (120 * 120 + 100), 10, 0, 0, 0);
+        AbTestEvaluator.Evaluation early = abTestEvaluator.evaluate("response_time", fewA, fewB);
+        assertEquals("A", early.leader());
+        assertNull(early.winner());
+    }
+
+    @Test
+    @DisplayName("评估器-两版本无差异时每隔10个样本反复评估，假阳性率不超过显著性水平")
+    void testEvaluator_RepeatedLooksControlFalsePositives() {
+        Random random = new Random(20260209L);
+        int runs = 200;
+        int falsePositives = 0;
+        for (int run = 0; run < runs; run++) {
+            long successA = 0;
+            long successB = 0;
+            for (int n = 1; n <= 2000; n++) {
+                successA += random.nextDouble() < 0.5 ? 1 : 0;
+                successB += random.nextDouble() < 0.5 ? 1 : 0;
+                if (n % 10 == 0 && abTestEvaluator.evaluate("success_rate",
+                        new AbTestStatsRegistry.VariantStats(n, successA, 0, 0, 0, 0, 0, 0),
+                        new AbTestStatsRegistry.VariantStats(n, successB, 0, 0, 0, 0, 0, 0)).winner() != null) {
+                    falsePositives++;
+                    break;
+                }
+            }
+        }
+        assertTrue(falsePositives <= runs * 0.05, "falsePositives=" + falsePositives);
+    }
+
+    @Test
+    @DisplayName("评估器-标准正态分布函数")
+    void testEvaluator_NormalCdf() {
+        assertEquals(0.5, AbTestEvaluator.normalCdf(0), 1e-7);
+        assertEquals(0.975, AbTestEvaluator.normalCdf(1.959964), 1e-6);
+        assertEquals(0.025, AbTestEvaluator.normalCdf(-1.959964), 1e-6);
+    }
+
+    private PromptTemplateAbTestExecution execution(String label, String status, Integer responseTime, Integer rating) {
+        PromptTemplateAbTestExecution execution = new PromptTemplateAbTestExecution();
+        execution.setAbTestId(7L);
+        execution.setRequestId("req");
+        execution.setVersionId("A".equals(label) ? 11L : 12L);
+        execution.setVersionLabel(label);
+        execution.setStatus(status);
+        execution.setResponseTime(responseTime);
+        execution.setUserRating(rating);
+        return execution;
+    }
+}
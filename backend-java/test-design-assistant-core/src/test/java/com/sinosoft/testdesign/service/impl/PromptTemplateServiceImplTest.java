@@ -2,18 +2,23 @@ package com.sinosoft.testdesign.service.impl;
 
 import com.sinosoft.testdesign.common.BusinessException;
 import com.sinosoft.testdesign.entity.PromptTemplate;
+import com.sinosoft.testdesign.repository.PromptTemplateAbTestRepository;
 import com.sinosoft.testdesign.repository.PromptTemplateRepository;
+import com.sinosoft.testdesign.repository.PromptTemplateVersionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
 
@@ -34,6 +39,15 @@ class PromptTemplateServiceImplTest {
     @Mock
     private PromptTemplateRepository templateRepository;
     
+    @Mock
+    private PromptTemplateAbTestRepository abTestRepository;
+    
+    @Mock
+    private PromptTemplateVersionRepository versionRepository;
+    
+    @Spy
+    private PromptTemplateCompiler templateCompiler = new PromptTemplateCompiler();
+    
     @InjectMocks
     private PromptTemplateServiceImpl templateService;
     
@@ -395,5 +409,96 @@ class PromptTemplateServiceImplTest {
         assertTrue(result.contains("值1"));
         assertTrue(result.contains("{var2}") || result.contains("")); // 未提供的变量会被替换为空字符串
     }
+    
+    @Test
+    @DisplayName("生成提示词-编译结果按模板缓存，不重复查库")
+    void testGeneratePrompt_CompiledTemplateCached() {
+        // Given
+        Long templateId = 1L;
+        when(templateRepository.findById(templateId))
+            .thenReturn(Optional.of(template));
+        
+        // When
+        String first = templateService.generatePrompt(templateId, Map.of("var1", "值1", "var2", "值2"));
+        String second = templateService.generatePrompt(templateId, Map.of("var1", "A", "var2", "B"));
+        
+        // Then
+        assertEquals("这是一个测试模板，包含变量值1和值2", first);
+        assertEquals("这是一个测试模板，包含变量A和B", second);
+        verify(templateRepository, times(1)).findById(templateId);
+    }
+    
+    @Test
+    @DisplayName("生成提示词-更新模板后使用新内容")
+    void testGeneratePrompt_InvalidatedAfterUpdate() {
+        // Given
+        Long templateId = 1L;
+        when(templateRepository.findById(templateId))
+            .thenReturn(Optional.of(template));
+        when(templateRepository.save(any(PromptTemplate.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        templateService.generatePrompt(templateId, Map.of("var1", "值1"));
+        
+        PromptTemplate update = new PromptTemplate();
+        update.setTemplateName("功能测试模板");
+        update.setTemplateContent("新模板{var1}");
+        templateService.updateTemplate(templateId, update);
+        
+        // When
+        String result = templateService.generatePrompt(templateId, Map.of("var1", "值1"));
+        
+        // Then
+        assertEquals("新模板值1", result);
+    }
+    
+    @Test
+    @DisplayName("生成提示词-更新模板的事务提交后才清除缓存")
+    void testGeneratePrompt_InvalidatedAfterCommit() {
+        // Given
+        Long templateId = 1L;
+        when(templateRepository.findById(templateId))
+            .thenReturn(Optional.of(template));
+        when(templateRepository.save(any(PromptTemplate.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        templateService.generatePrompt(templateId, Map.of("var1", "值1"));
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            PromptTemplate update = new PromptTemplate();
+            update.setTemplateName("功能测试模板");
+            update.setTemplateContent("新模板{var1}");
+            templateService.updateTemplate(templateId, update);
+            
+            // 提交前缓存不变，并发读取不会把旧模板重新放回缓存
+            assertEquals("这是一个测试模板，包含变量值1和", templateService.generatePrompt(templateId, Map.of("var1", "值1")));
+            
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        
+        // When
+        String result = templateService.generatePrompt(templateId, Map.of("var1", "值1"));
+        
+        // Then
+        assertEquals("新模板值1", result);
+    }
+    
+    @Test
+    @DisplayName("生成提示词-占位符解析与原正则规则一致")
+    void testGeneratePrompt_PlaceholderEdgeCases() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", "张三");
+        variables.put("a{b", "嵌套");
+        variables.put("price", "$100\\");
+        
+        assertEquals("你好张三！", templateService.generatePrompt("你好{ name }！", variables));
+        assertEquals("空占位{}保留", templateService.generatePrompt("空占位{}保留", variables));
+        assertEquals("x嵌套y", templateService.generatePrompt("x{a{b}y", variables));
+        assertEquals("未闭合{name", templateService.generatePrompt("未闭合{name", variables));
+        assertEquals("价格$100\\", templateService.generatePrompt("价格{price}", variables));
+        assertEquals("张三张三", templateService.generatePrompt("{name}{name}", variables));
+        assertEquals("无变量", templateService.generatePrompt("无变量", null));
+        assertEquals("缺少", templateService.generatePrompt("缺少{missing}", variables));
+    }
 }
-
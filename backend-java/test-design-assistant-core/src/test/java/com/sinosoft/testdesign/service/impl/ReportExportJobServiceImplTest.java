@@ -0,0 +1,161 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.ReportExportConfig;
+import com.sinosoft.testdesign.dto.ReportExportJobDTO;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.entity.TestReport;
+import com.sinosoft.testdesign.repository.AsyncJobRepository;
+import com.sinosoft.testdesign.service.JobQueueService;
+import com.sinosoft.testdesign.service.TestReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 报告导出任务服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-08
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("报告导出任务服务测试")
+class ReportExportJobServiceImplTest {
+
+    @Mock
+    private TestReportService reportService;
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    @Mock
+    private AsyncJobRepository jobRepository;
+
+    private ReportExportJobServiceImpl jobService;
+    private ReportExportJobHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        ReportExportConfig config = new ReportExportConfig();
+        config.setQueueCapacity(1);
+        jobService = new ReportExportJobServiceImpl(reportService, jobQueueService, jobRepository, config);
+        handler = new ReportExportJobHandler(reportService, jobQueueService, new ObjectMapper());
+        lenient().when(reportService.getReportByCode(anyString())).thenReturn(new TestReport());
+    }
+
+    @Test
+    @DisplayName("提交导出任务-写入任务队列，状态和进度从任务表读取")
+    void testSubmit_EnqueuedAndQueried() {
+        AsyncJob queued = job(5L, "RPT-1:PDF", "PENDING");
+        when(jobQueueService.enqueue(eq(JobQueueService.JOB_REPORT_EXPORT), eq("RPT-1:PDF"),
+                eq(Map.of("reportCode", "RPT-1", "format", "PDF")), eq(JobQueueService.PRIORITY_INTERACTIVE)))
+                .thenReturn(queued);
+
+        ReportExportJobDTO submitted = jobService.submit("RPT-1", "PDF");
+
+        assertEquals("5", submitted.getJobId());
+        assertEquals(ReportExportJobServiceImpl.STATUS_PENDING, submitted.getStatus());
+
+        AsyncJob finished = job(5L, "RPT-1:PDF", "SUCCESS");
+        finished.setProgress(100);
+        finished.setResult("/api/v1/files/reports/cache/ab/abc.pdf");
+        finished.setFinishTime(LocalDateTime.now());
+        when(jobRepository.findById(5L)).thenReturn(Optional.of(finished));
+
+        ReportExportJobDTO dto = jobService.getJob("5");
+        assertEquals(ReportExportJobServiceImpl.STATUS_COMPLETED, dto.getStatus());
+        assertEquals(100, dto.getProgress());
+        assertEquals("/api/v1/files/reports/cache/ab/abc.pdf", dto.getFileUrl());
+        assertEquals("RPT-1", dto.getReportCode());
+        assertEquals("PDF", dto.getFormat());
+    }
+
+    @Test
+    @DisplayName("提交导出任务-相同报告未结束时复用任务，等待任务数达到上限时拒绝")
+    void testSubmit_DeduplicatedAndBounded() {
+        AsyncJob running = job(3L, "RPT-1:PDF", "RUNNING");
+        when(jobRepository.findFirstByJobTypeAndBusinessKeyAndStatusInOrderByIdDesc(
+                eq(JobQueueService.JOB_REPORT_EXPORT), eq("RPT-1:PDF"), anyCollection()))
+                .thenReturn(Optional.of(running));
+        when(jobRepository.countByJobTypeAndStatus(JobQueueService.JOB_REPORT_EXPORT, "PENDING")).thenReturn(1L);
+
+        assertEquals("3", jobService.submit("RPT-1", "PDF").getJobId());
+        assertThrows(BusinessException.class, () -> jobService.submit("RPT-2", "PDF"));
+        verify(jobQueueService, never()).enqueue(anyString(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("查询导出任务-失败、过期、不存在")
+    void testGetJob_FailedExpiredMissing() {
+        AsyncJob failed = job(6L, "RPT-1:EXCEL", "FAILED");
+        failed.setLastError("导出报告失败: 磁盘已满");
+        failed.setFinishTime(LocalDateTime.now());
+        when(jobRepository.findById(6L)).thenReturn(Optional.of(failed));
+        AsyncJob expired = job(7L, "RPT-1:EXCEL", "SUCCESS");
+        expired.setFinishTime(LocalDateTime.now().minusDays(1));
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(expired));
+        AsyncJob otherType = job(8L, "9", "RUNNING");
+        otherType.setJobType(JobQueueService.JOB_CASE_GENERATION);
+        when(jobRepository.findById(8L)).thenReturn(Optional.of(otherType));
+
+        ReportExportJobDTO dto = jobService.getJob("6");
+        assertEquals(ReportExportJobServiceImpl.STATUS_FAILED, dto.getStatus());
+        assertEquals("导出报告失败: 磁盘已满", dto.getErrorMessage());
+        assertThrows(BusinessException.class, () -> jobService.getJob("7"));
+        assertThrows(BusinessException.class, () -> jobService.getJob("8"));
+        assertThrows(BusinessException.class, () -> jobService.getJob("missing"));
+    }
+
+    @Test
+    @DisplayName("提交导出任务-格式不合法")
+    void testSubmit_Invalid() {
+        assertThrows(BusinessException.class, () -> jobService.submit("RPT-1", "HTML"));
+        verifyNoInteractions(jobQueueService);
+    }
+
+    @Test
+    @DisplayName("任务处理器-按粒度回报进度并写入文件URL")
+    void testHandler_ReportsProgressAndResult() throws Exception {
+        AsyncJob running = job(5L, "RPT-1:PDF", "RUNNING");
+        running.setPayload("{\"reportCode\":\"RPT-1\",\"format\":\"PDF\"}");
+        running.setLeaseOwner("worker-1");
+        when(reportService.exportReport(eq("RPT-1"), eq("PDF"), any())).thenAnswer(inv -> {
+            IntConsumer progress = inv.getArgument(2);
+            for (int p = 1; p <= 100; p++) {
+                progress.accept(p);
+            }
+            return "/api/v1/files/reports/cache/ab/abc.pdf";
+        });
+
+        handler.handle(running);
+
+        verify(jobQueueService).reportProgress(5L, "worker-1", 40, null);
+        verify(jobQueueService).reportProgress(5L, "worker-1", 95, null);
+        verify(jobQueueService).reportProgress(5L, "worker-1", 100, "/api/v1/files/reports/cache/ab/abc.pdf");
+        // 5, 10, ..., 95 共19次，加完成时1次
+        verify(jobQueueService, times(20)).reportProgress(eq(5L), eq("worker-1"), anyInt(), any());
+    }
+
+    private static AsyncJob job(Long id, String businessKey, String status) {
+        return AsyncJob.builder()
+                .id(id)
+                .jobType(JobQueueService.JOB_REPORT_EXPORT)
+                .businessKey(businessKey)
+                .status(status)
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+}
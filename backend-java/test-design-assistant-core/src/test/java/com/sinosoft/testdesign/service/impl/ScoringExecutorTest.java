@@ -0,0 +1,63 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.sinosoft.testdesign.config.ScoringExecutorConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 评分线程池单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@DisplayName("评分线程池测试")
+class ScoringExecutorTest {
+
+    private ScoringExecutor scoringExecutor;
+
+    @BeforeEach
+    void setUp() {
+        ScoringExecutorConfig config = new ScoringExecutorConfig();
+        config.setPoolSize(2);
+        config.setQueueCapacity(4);
+        scoringExecutor = new ScoringExecutor(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scoringExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("并行评分-超出队列容量时由提交线程执行，结果顺序与输入一致")
+    void testMap_KeepsOrderBeyondQueueCapacity() {
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+
+        List<Integer> result = scoringExecutor.map(items, i -> i * 2);
+
+        assertEquals(IntStream.range(0, 100).map(i -> i * 2).boxed().toList(), result);
+    }
+
+    @Test
+    @DisplayName("并行评分-任一评分失败时抛出原始异常")
+    void testMap_PropagatesFailure() {
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> scoringExecutor.map(List.of(1, 2, 3), i -> {
+                    if (i == 2) {
+                        throw new IllegalStateException("评分失败");
+                    }
+                    return i;
+                }));
+
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals("评分失败", e.getCause().getMessage());
+    }
+}
@@ -1,13 +1,31 @@
 package com.sinosoft.testdesign.service.impl;
 
 import com.sinosoft.testdesign.common.TestDataBuilder;
+import com.sinosoft.testdesign.config.ScoringExecutorConfig;
+import com.sinosoft.testdesign.dto.CaseQualityBatchResponseDTO;
 import com.sinosoft.testdesign.entity.TestCase;
+import com.sinosoft.testdesign.entity.TestCaseQuality;
+import com.sinosoft.testdesign.repository.TestCaseQualityRepository;
+import com.sinosoft.testdesign.repository.TestCaseRepository;
 import com.sinosoft.testdesign.service.TestCaseQualityService;
+import com.sinosoft.testdesign.util.CaseTextFeatures;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * 用例质量评估服务单元测试
@@ -15,14 +33,25 @@ import static org.junit.jupiter.api.Assertions.*;
  * @author sinosoft
  * @date 2024-01-XX
  */
+@ExtendWith(MockitoExtension.class)
 @DisplayName("用例质量评估服务测试")
 class TestCaseQualityServiceImplTest {
     
+    @Mock
+    private TestCaseRepository testCaseRepository;
+    
+    @Mock
+    private TestCaseQualityRepository qualityRepository;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
     private TestCaseQualityService qualityService;
     
     @BeforeEach
     void setUp() {
-        qualityService = new TestCaseQualityServiceImpl();
+        qualityService = new TestCaseQualityServiceImpl(testCaseRepository, qualityRepository, transactionManager,
+                new ScoringExecutor(new ScoringExecutorConfig()));
     }
     
     @Test
@@ -343,5 +372,146 @@ class TestCaseQualityServiceImplTest {
         assertNotNull(score2);
         assertTrue(score1.getExecutabilityScore() >= score2.getExecutabilityScore()); // 有动作动词得分更高
     }
+    
+    @Test
+    @DisplayName("文本特征-一次扫描识别多行文本中的编号和动作动词")
+    void testCaseTextFeatures_MultiLine() {
+        CaseTextFeatures features = CaseTextFeatures.scan("  前置说明\n1. 输入用户名\n步骤二：点击登录 #  ");
+        
+        assertEquals("前置说明\n1. 输入用户名\n步骤二：点击登录 #".length(), features.trimmedLength());
+        assertTrue(features.hasLineBreak());
+        assertTrue(features.hasNumbering());
+        assertTrue(features.hasStepLabel());
+        assertTrue(features.hasActionVerb());
+        assertFalse(features.hasNamingKeyword());
+        assertEquals(2, features.asciiSymbolCount());
+        // 单个字符不再被当作动作动词
+        assertFalse(CaseTextFeatures.scan("用户名 按钮 入口").hasActionVerb());
+        assertEquals(0, CaseTextFeatures.scan(null).trimmedLength());
+        // 按完整词匹配，句末的词同样识别
+        assertTrue(CaseTextFeatures.scan("最后确认").hasActionVerb());
+        assertFalse(CaseTextFeatures.scan("确定按钮").hasActionVerb());
+    }
+    
+    @Test
+    @DisplayName("测试步骤评估-多行步骤的编号计入结构分")
+    void testTestStepAssessment_MultiLineNumbering() {
+        TestCase testCase = TestDataBuilder.testCase()
+            .withName("测试用例")
+            .withSteps("1. 登录系统\n2. 进入投保页面\n3. 填写投保信息")
+            .withExpectedResult("预期结果")
+            .build();
+        
+        TestCaseQualityService.CompletenessScore score = qualityService.checkCompleteness(testCase);
+        
+        assertEquals(100.0, score.getTestStepScore());
+    }
+    
+    @Test
+    @DisplayName("批量评估-只重新评分版本变化的用例并保存")
+    void testAssessBatch_OnlyStaleCasesRescored() {
+        // Given
+        LocalDateTime updateTime = LocalDateTime.of(2026, 2, 9, 10, 0);
+        TestCaseQuality unchanged = quality(1L, 1, updateTime, "良好", "80.00");
+        unchanged.setId(11L);
+        TestCaseQuality outdated = quality(2L, 1, updateTime, "需改进", "30.00");
+        outdated.setId(12L);
+        when(testCaseRepository.findVersionStampsByRequirementId(10L)).thenReturn(List.of(
+                new Object[]{1L, 1, updateTime},
+                new Object[]{2L, 2, updateTime.plusMinutes(1)},
+                new Object[]{3L, 1, updateTime}));
+        when(qualityRepository.findByCaseIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(unchanged, outdated));
+        TestCase case2 = TestDataBuilder.testCase()
+            .withId(2L)
+            .withName("投保模块_正常投保流程测试")
+            .withSteps("1. 登录系统\n2. 进入投保页面\n3. 填写投保信息")
+            .withExpectedResult("1. 系统返回成功提示\n2. 生成保单号")
+            .build();
+        case2.setRequirementId(10L);
+        case2.setVersion(2);
+        case2.setUpdateTime(updateTime.plusMinutes(1));
+        TestCase case3 = TestDataBuilder.testCase()
+            .withId(3L)
+            .withName("测试")
+            .withSteps("测试")
+            .build();
+        case3.setRequirementId(10L);
+        when(testCaseRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(case2, case3));
+        
+        // When
+        CaseQualityBatchResponseDTO result = qualityService.assessBatch(10L);
+        
+        // Then
+        assertEquals(3, result.getTotalCount());
+        assertEquals(2, result.getAssessedCount());
+        assertEquals(1, result.getSkippedCount());
+        assertEquals(1L, result.getQualityLevelCount().get("良好"));
+        
+        ArgumentCaptor<List<TestCaseQuality>> captor = ArgumentCaptor.forClass(List.class);
+        verify(qualityRepository).saveAll(captor.capture());
+        List<TestCaseQuality> saved = captor.getValue();
+        assertEquals(2, saved.size());
+        // 已有评分原地更新，新用例新建评分
+        assertSame(outdated, saved.get(0));
+        assertEquals(2, outdated.getCaseVersion());
+        assertTrue(outdated.getTotalScore().compareTo(new BigDecimal("30.00")) > 0);
+        assertNull(saved.get(1).getId());
+        assertEquals(3L, saved.get(1).getCaseId());
+        assertEquals("需改进", saved.get(1).getQualityLevel());
+        assertEquals(10L, saved.get(1).getRequirementId());
+    }
+    
+    @Test
+    @DisplayName("批量评估-评分全部未过期时不加载用例")
+    void testAssessBatch_AllUpToDate() {
+        LocalDateTime updateTime = LocalDateTime.of(2026, 2, 9, 10, 0);
+        when(testCaseRepository.findAllVersionStamps()).thenReturn(List.<Object[]>of(new Object[]{1L, 1, updateTime}));
+        when(qualityRepository.findByCaseIdIn(List.of(1L)))
+            .thenReturn(List.of(quality(1L, 1, updateTime, "优秀", "92.50")));
+        
+        CaseQualityBatchResponseDTO result = qualityService.assessBatch(null);
+        
+        assertEquals(0, result.getAssessedCount());
+        assertEquals(new BigDecimal("92.50"), result.getAvgScore());
+        verify(testCaseRepository, never()).findAllById(any());
+        verify(qualityRepository, never()).saveAll(any());
+    }
+    
+    @Test
+    @DisplayName("批量评估-每页单独提交并回报进度")
+    void testAssessBatch_CommitsEachPage() {
+        LocalDateTime updateTime = LocalDateTime.of(2026, 2, 9, 10, 0);
+        List<Object[]> stamps = new ArrayList<>();
+        List<TestCase> cases = new ArrayList<>();
+        for (long id = 1; id <= 600; id++) {
+            stamps.add(new Object[]{id, 1, updateTime});
+            TestCase testCase = TestDataBuilder.testCase().withId(id).withName("测试").withSteps("测试").build();
+            cases.add(testCase);
+        }
+        when(testCaseRepository.findAllVersionStamps()).thenReturn(stamps);
+        when(qualityRepository.findByCaseIdIn(anyList())).thenReturn(List.of());
+        when(testCaseRepository.findAllById(anyList())).thenAnswer(inv -> {
+            List<Long> ids = inv.getArgument(0);
+            return cases.subList((int) (ids.get(0) - 1), (int) (ids.get(ids.size() - 1).longValue()));
+        });
+        List<Integer> progress = new ArrayList<>();
+        
+        CaseQualityBatchResponseDTO result = qualityService.assessBatch(null, progress::add);
+        
+        assertEquals(600, result.getAssessedCount());
+        verify(qualityRepository, times(2)).saveAll(anyList());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(List.of(83, 100), progress);
+    }
+    
+    private static TestCaseQuality quality(Long caseId, Integer version, LocalDateTime updateTime,
+                                           String level, String totalScore) {
+        TestCaseQuality quality = new TestCaseQuality();
+        quality.setCaseId(caseId);
+        quality.setCaseVersion(version);
+        quality.setCaseUpdateTime(updateTime);
+        quality.setQualityLevel(level);
+        quality.setTotalScore(new BigDecimal(totalScore));
+        return quality;
+    }
 }
-
@@ -22,7 +22,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -44,6 +53,9 @@ class TestExecutionServiceImplTest {
     @Mock
     private TestExecutionRecordRepository recordRepository;
     
+    @Mock
+    private ExecutionAggregateStore aggregateStore;
+    
     @InjectMocks
     private TestExecutionServiceImpl executionService;
     
@@ -321,6 +333,125 @@ class TestExecutionServiceImplTest {
         assertNotNull(result.getRecordCode());
         assertTrue(result.getRecordCode().startsWith("REC-"));
         verify(recordRepository, times(1)).save(any(TestExecutionRecord.class));
+        verify(aggregateStore).recordCreated(result, 1L);
+    }
+    
+    @Test
+    @DisplayName("更新执行记录状态-同步执行聚合")
+    void testUpdateExecutionRecordStatus_UpdatesAggregate() {
+        // Given
+        testRecord.setExecutionStatus("RUNNING");
+        when(recordRepository.findByRecordCode("REC-20240117-001"))
+            .thenReturn(Optional.of(testRecord));
+        when(recordRepository.transitionStatus(eq("REC-20240117-001"), eq("RUNNING"), eq("SUCCESS"), any()))
+            .thenReturn(1);
+        when(taskRepository.findById(1L))
+            .thenReturn(Optional.of(testTask));
+        
+        // When
+        executionService.updateExecutionRecordStatus("REC-20240117-001", "SUCCESS");
+        executionService.updateExecutionRecordStatus("REC-20240117-001", "SUCCESS");
+        
+        // Then
+        assertEquals("SUCCESS", testRecord.getExecutionStatus());
+        assertNotNull(testRecord.getFinishTime());
+        verify(recordRepository, times(1)).transitionStatus(anyString(), anyString(), anyString(), any());
+        verify(recordRepository, never()).save(any(TestExecutionRecord.class));
+        verify(aggregateStore, times(1)).statusChanged(testRecord, "RUNNING", 1L);
+        verifyNoMoreInteractions(aggregateStore);
+    }
+    
+    @Test
+    @DisplayName("更新执行记录状态-状态已被并发修改时不计入聚合并重新读取")
+    void testUpdateExecutionRecordStatus_LostRaceRereads() {
+        // Given
+        TestExecutionRecord stale = new TestExecutionRecord();
+        stale.setRecordCode("REC-20240117-001");
+        stale.setTaskId(1L);
+        stale.setExecutionStatus("PENDING");
+        testRecord.setExecutionStatus("RUNNING");
+        when(recordRepository.findByRecordCode("REC-20240117-001"))
+            .thenReturn(Optional.of(stale))
+            .thenReturn(Optional.of(testRecord));
+        when(recordRepository.transitionStatus(eq("REC-20240117-001"), eq("PENDING"), eq("FAILED"), any()))
+            .thenReturn(0);
+        when(recordRepository.transitionStatus(eq("REC-20240117-001"), eq("RUNNING"), eq("FAILED"), any()))
+            .thenReturn(1);
+        when(taskRepository.findById(1L))
+            .thenReturn(Optional.of(testTask));
+        
+        // When
+        TestExecutionRecord result = executionService.updateExecutionRecordStatus("REC-20240117-001", "FAILED");
+        
+        // Then
+        assertSame(testRecord, result);
+        verify(aggregateStore, times(1)).statusChanged(testRecord, "RUNNING", 1L);
+        verifyNoMoreInteractions(aggregateStore);
+    }
+    
+    @Test
+    @DisplayName("更新执行记录状态-并发更新后聚合计数与记录状态一致")
+    void testUpdateExecutionRecordStatus_ConcurrentUpdatesKeepAggregateConsistent() throws Exception {
+        // Given：数据库中的记录状态，条件更新按比较并交换语义模拟
+        AtomicReference<String> storedStatus = new AtomicReference<>("PENDING");
+        Map<String, AtomicInteger> aggregate = new ConcurrentHashMap<>();
+        aggregate.put("PENDING", new AtomicInteger(1));
+        when(recordRepository.findByRecordCode("REC-20240117-001")).thenAnswer(invocation -> {
+            TestExecutionRecord snapshot = new TestExecutionRecord();
+            snapshot.setRecordCode("REC-20240117-001");
+            snapshot.setTaskId(1L);
+            snapshot.setExecutionStatus(storedStatus.get());
+            Thread.yield();
+            return Optional.of(snapshot);
+        });
+        when(recordRepository.transitionStatus(eq("REC-20240117-001"), anyString(), anyString(), any()))
+            .thenAnswer(invocation -> storedStatus.compareAndSet(
+                    invocation.getArgument(1), invocation.getArgument(2)) ? 1 : 0);
+        when(taskRepository.findById(1L))
+            .thenReturn(Optional.of(testTask));
+        doAnswer(invocation -> {
+            TestExecutionRecord changed = invocation.getArgument(0);
+            aggregate.computeIfAbsent(invocation.getArgument(1), k -> new AtomicInteger()).decrementAndGet();
+            aggregate.computeIfAbsent(changed.getExecutionStatus(), k -> new AtomicInteger()).incrementAndGet();
+            return null;
+        }).when(aggregateStore).statusChanged(any(TestExecutionRecord.class), anyString(), any());
+        
+        String[] statuses = {"RUNNING", "SUCCESS", "FAILED", "SKIPPED"};
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        // When
+        try {
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 200; i++) {
+                        try {
+                            executionService.updateExecutionRecordStatus("REC-20240117-001",
+                                    statuses[(offset + i) % statuses.length]);
+                        } catch (BusinessException e) {
+                            // 冲突重试次数用尽时放弃本次更新，聚合计数不受影响
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        // Then：只有记录当前状态计数为1，其余状态计数都回到0
+        for (Map.Entry<String, AtomicInteger> entry : aggregate.entrySet()) {
+            int expected = entry.getKey().equals(storedStatus.get()) ? 1 : 0;
+            assertEquals(expected, entry.getValue().get(), "状态计数不一致: " + entry.getKey());
+        }
     }
     
     @Test
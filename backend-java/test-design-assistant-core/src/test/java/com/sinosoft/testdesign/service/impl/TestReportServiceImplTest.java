@@ -1,6 +1,9 @@
 package com.sinosoft.testdesign.service.impl;
 
+import com.alibaba.excel.EasyExcel;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
 import com.sinosoft.testdesign.common.BusinessException;
 import com.sinosoft.testdesign.entity.*;
 import com.sinosoft.testdesign.repository.*;
@@ -9,6 +12,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,10 +20,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -54,9 +66,17 @@ class TestReportServiceImplTest {
     @Mock
     private RequirementRepository requirementRepository;
     
+    @Mock
+    private ExecutionAggregateStore aggregateStore;
+    
     @InjectMocks
     private TestReportServiceImpl reportService;
     
+    private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+    
+    @TempDir
+    Path tempDir;
+    
     private TestReport testReport;
     private TestExecutionTask testTask;
     private TestExecutionRecord testRecord;
@@ -106,8 +126,8 @@ class TestReportServiceImplTest {
                 report.setId(1L);
                 return report;
             });
-        when(taskRepository.findByRequirementId(anyLong()))
-            .thenReturn(new ArrayList<>());
+        when(aggregateStore.summarizeRequirement(1L))
+            .thenReturn(new ExecutionAggregateStore.ExecutionSummary(Map.of(), 0, 0, null));
         
         // When
         TestReport result = reportService.generateReport(newReport);
@@ -291,29 +311,148 @@ class TestReportServiceImplTest {
     
     @Test
     @DisplayName("汇总测试执行结果-成功")
-    void testSummarizeExecutionResults_Success() {
+    void testSummarizeExecutionResults_Success() throws Exception {
         // Given
-        List<TestExecutionRecord> records = new ArrayList<>();
-        testRecord.setExecutionStatus("SUCCESS");
-        records.add(testRecord);
+        when(taskRepository.countByRequirementId(1L)).thenReturn(3L);
+        when(aggregateStore.summarizeRequirement(1L)).thenReturn(new ExecutionAggregateStore.ExecutionSummary(
+                Map.of("SUCCESS", 3L, "FAILED", 1L), 4, 400, LocalDateTime.now()));
+        when(aggregateStore.summarizeTask(2L)).thenReturn(new ExecutionAggregateStore.ExecutionSummary(
+                Map.of("SUCCESS", 1L), 1, 250, LocalDateTime.now()));
         
-        List<TestExecutionTask> tasks = new ArrayList<>();
-        TestExecutionTask task = new TestExecutionTask();
-        task.setId(1L);
-        tasks.add(task);
+        // When
+        String result = reportService.summarizeExecutionResults(1L, 2L);
         
-        when(taskRepository.findByRequirementId(1L))
-            .thenReturn(tasks);
-        when(recordRepository.findByTaskId(1L))
-            .thenReturn(records);
+        // Then
+        Map<String, Object> content = new ObjectMapper().readValue(result, Map.class);
+        Map<String, Object> statistics = (Map<String, Object>) content.get("statistics");
+        assertEquals(3, statistics.get("totalTasks"));
+        assertEquals("75.00", statistics.get("allSuccessRate"));
+        assertEquals(1, statistics.get("totalRecords"));
+        assertEquals("250.00", statistics.get("avgDuration"));
+        assertFalse(content.containsKey("executionRecords"));
+        verify(taskRepository, never()).findByRequirementId(anyLong());
+        verify(recordRepository, never()).findByTaskId(anyLong());
+    }
+    
+    @Test
+    @DisplayName("导出PDF-执行记录从数据库分批读取并按内容复用文件")
+    void testExportReport_PdfStreamedAndCached() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(reportService, "basePath", tempDir.toString());
+        LocalDateTime aggregatedAt = LocalDateTime.of(2026, 2, 9, 10, 0);
+        when(aggregateStore.summarizeTask(1L))
+            .thenReturn(new ExecutionAggregateStore.ExecutionSummary(Map.of("SUCCESS", 1500L), 1500, 150000, aggregatedAt));
+        testReport.setReportContent(reportService.summarizeExecutionResults(null, 1L));
+        when(reportRepository.findByReportCode("RPT-20240117-001")).thenReturn(Optional.of(testReport));
+        when(recordRepository.findByTaskIdAndIdGreaterThanOrderByIdAsc(eq(1L), anyLong(), any()))
+            .thenAnswer(invocation -> recordRows(invocation.getArgument(1), 1500, invocation.getArgument(2)));
+        List<Integer> progress = new ArrayList<>();
         
         // When
-        String result = reportService.summarizeExecutionResults(1L, null);
+        String first = reportService.exportReport("RPT-20240117-001", "PDF", progress::add);
+        Path file = tempDir.resolve(first.substring("/api/v1/files/".length()));
+        FileTime renderedAt = Files.getLastModifiedTime(file);
+        String second = reportService.exportReport("RPT-20240117-001", "PDF");
+        // 报告内容未变但执行记录变化
+        when(aggregateStore.summarizeTask(1L))
+            .thenReturn(new ExecutionAggregateStore.ExecutionSummary(Map.of("SUCCESS", 1500L), 1500, 150000,
+                    aggregatedAt.plusMinutes(1)));
+        String third = reportService.exportReport("RPT-20240117-001", "PDF");
         
         // Then
-        assertNotNull(result);
-        verify(taskRepository, times(1)).findByRequirementId(1L);
-        verify(recordRepository, times(1)).findByTaskId(1L);
+        assertTrue(first.startsWith("/api/v1/files/reports/cache/"));
+        assertTrue(first.endsWith(".pdf"));
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(file.toFile()))) {
+            assertTrue(pdf.getNumberOfPages() > 10);
+        }
+        assertTrue(progress.stream().anyMatch(p -> p > 5 && p < 100));
+        assertEquals(100, progress.get(progress.size() - 1));
+        assertEquals(first, second);
+        // 复用时只刷新修改时间，不重新渲染
+        assertTrue(Files.getLastModifiedTime(file).compareTo(renderedAt) >= 0);
+        assertNotEquals(first, third);
+        assertEquals(third, testReport.getFileUrl());
+        verify(reportRepository, times(3)).save(testReport);
+        // 两次渲染，每次 500 + 500 + 500 + 0 四批
+        verify(recordRepository, times(8)).findByTaskIdAndIdGreaterThanOrderByIdAsc(eq(1L), anyLong(), any());
+    }
+    
+    @Test
+    @DisplayName("清理导出文件缓存-删除超过保留时间未复用的文件")
+    void testPurgeExpiredExportFiles() throws Exception {
+        ReflectionTestUtils.setField(reportService, "basePath", tempDir.toString());
+        Path cacheDir = Files.createDirectories(tempDir.resolve("reports/cache/ab"));
+        Path expired = Files.writeString(cacheDir.resolve("abc.pdf"), "old");
+        Path leftover = Files.writeString(cacheDir.resolve("abd123.tmp"), "partial");
+        Path recent = Files.writeString(cacheDir.resolve("abe.pdf"), "new");
+        FileTime twoDaysAgo = FileTime.fromMillis(System.currentTimeMillis() - 48L * 3600 * 1000);
+        Files.setLastModifiedTime(expired, twoDaysAgo);
+        Files.setLastModifiedTime(leftover, twoDaysAgo);
+        
+        assertEquals(2, reportService.purgeExpiredExportFiles(24));
+        
+        assertFalse(Files.exists(expired));
+        assertFalse(Files.exists(leftover));
+        assertTrue(Files.exists(recent));
+        assertEquals(0, reportService.purgeExpiredExportFiles(24));
+    }
+    
+    @Test
+    @DisplayName("导出Excel-旧版报告内嵌的执行记录仍可导出")
+    void testExportReport_ExcelInlineRecords() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(reportService, "basePath", tempDir.toString());
+        testReport.setReportContent("{\"statistics\": {\"totalRecords\": 2}, \"executionRecords\": ["
+                + "{\"recordCode\": \"REC-1\", \"executionStatus\": \"SUCCESS\"},"
+                + "{\"recordCode\": \"REC-2\", \"executionStatus\": \"FAILED\"}]}");
+        when(reportRepository.findByReportCode("RPT-20240117-001")).thenReturn(Optional.of(testReport));
+        
+        // When
+        String fileUrl = reportService.exportReport("RPT-20240117-001", "EXCEL");
+        
+        // Then
+        List<Map<Integer, String>> rows = EasyExcel.read(tempDir.resolve(fileUrl.substring("/api/v1/files/".length())).toFile())
+                .sheet().headRowNumber(0).doReadSync();
+        assertTrue(rows.stream().anyMatch(row -> row.containsValue("REC-2")));
+        verifyNoInteractions(aggregateStore);
+        verify(recordRepository, never()).findByTaskIdAndIdGreaterThanOrderByIdAsc(anyLong(), anyLong(), any());
+    }
+    
+    @Test
+    @DisplayName("导出PDF-报告内容无法解析时只导出基本信息")
+    void testExportReport_PdfMalformedContent() {
+        // Given
+        ReflectionTestUtils.setField(reportService, "basePath", tempDir.toString());
+        testReport.setReportContent("{\"statistics\": {\"totalRecords\": 1}, \"executionRecords\": [");
+        when(reportRepository.findByReportCode("RPT-20240117-001")).thenReturn(Optional.of(testReport));
+        
+        // When
+        String fileUrl = reportService.exportReport("RPT-20240117-001", "PDF");
+        
+        // Then
+        assertTrue(Files.isRegularFile(tempDir.resolve(fileUrl.substring("/api/v1/files/".length()))));
+    }
+    
+    @Test
+    @DisplayName("导出报告-格式不支持")
+    void testExportReport_InvalidFormat() {
+        when(reportRepository.findByReportCode("RPT-20240117-001")).thenReturn(Optional.of(testReport));
+        
+        assertThrows(BusinessException.class, () -> reportService.exportReport("RPT-20240117-001", "HTML"));
+        verify(reportRepository, never()).save(any());
+    }
+    
+    private static List<TestExecutionRecordRepository.RecordRow> recordRows(long afterId, int total, Pageable pageable) {
+        List<TestExecutionRecordRepository.RecordRow> rows = new ArrayList<>();
+        for (long id = afterId + 1; id <= total && rows.size() < pageable.getPageSize(); id++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("recordCode", "REC-" + id);
+            row.put("executionType", "AUTOMATED");
+            row.put("executionStatus", id % 10 == 0 ? "FAILED" : "SUCCESS");
+            row.put("executionDuration", (int) id);
+            rows.add(PROJECTION_FACTORY.createProjection(TestExecutionRecordRepository.RecordRow.class, row));
+        }
+        return rows;
     }
 }
-
@@ -1,6 +1,8 @@
 package com.sinosoft.testdesign.service.impl;
 
 import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.ScoringExecutorConfig;
+import com.sinosoft.testdesign.dto.ReleaseRiskAssessmentResponseDTO;
 import com.sinosoft.testdesign.entity.TestRiskAssessment;
 import com.sinosoft.testdesign.entity.TestRequirement;
 import com.sinosoft.testdesign.entity.TestExecutionTask;
@@ -17,7 +19,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
@@ -28,6 +29,7 @@ import org.springframework.data.domain.Pageable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -62,7 +64,9 @@ class TestRiskAssessmentServiceImplTest {
     @Mock
     private TestCoverageAnalysisRepository coverageRepository;
     
-    @InjectMocks
+    @Mock
+    private ExecutionAggregateStore aggregateStore;
+    
     private TestRiskAssessmentServiceImpl riskService;
     
     private TestRiskAssessment testAssessment;
@@ -72,6 +76,10 @@ class TestRiskAssessmentServiceImplTest {
     
     @BeforeEach
     void setUp() {
+        riskService = new TestRiskAssessmentServiceImpl(assessmentRepository, requirementRepository,
+                testCaseRepository, taskRepository, coverageRepository, aggregateStore,
+                new ScoringExecutor(new ScoringExecutorConfig()));
+        
         testAssessment = new TestRiskAssessment();
         testAssessment.setId(1L);
         testAssessment.setAssessmentCode("RISK-20240117-001");
@@ -110,11 +118,11 @@ class TestRiskAssessmentServiceImplTest {
         testCase.setId(1L);
         cases.add(testCase);
         
-        when(requirementRepository.findById(1L))
-            .thenReturn(Optional.of(testRequirement));
-        when(testCaseRepository.findByRequirementId(1L))
-            .thenReturn(cases);
-        when(coverageRepository.findByRequirementId(1L))
+        when(requirementRepository.findAllById(any()))
+            .thenReturn(List.of(testRequirement));
+        when(testCaseRepository.countByRequirementIdIn(any()))
+            .thenReturn(caseCountRows(1L, cases.size()));
+        when(coverageRepository.findByRequirementIdIn(any()))
             .thenReturn(new ArrayList<>());
         when(assessmentRepository.findByAssessmentCodeStartingWithOrderByIdDesc(anyString()))
             .thenReturn(new ArrayList<>());
@@ -146,11 +154,11 @@ class TestRiskAssessmentServiceImplTest {
         testCase.setId(1L);
         cases.add(testCase);
         
-        when(requirementRepository.findById(1L))
-            .thenReturn(Optional.of(testRequirement));
-        when(testCaseRepository.findByRequirementId(1L))
-            .thenReturn(cases);
-        when(coverageRepository.findByRequirementId(1L))
+        when(requirementRepository.findAllById(any()))
+            .thenReturn(List.of(testRequirement));
+        when(testCaseRepository.countByRequirementIdIn(any()))
+            .thenReturn(caseCountRows(1L, cases.size()));
+        when(coverageRepository.findByRequirementIdIn(any()))
             .thenReturn(new ArrayList<>());
         when(assessmentRepository.findByAssessmentCodeStartingWithOrderByIdDesc(anyString()))
             .thenReturn(new ArrayList<>());
@@ -177,10 +185,10 @@ class TestRiskAssessmentServiceImplTest {
         List<TestExecutionRecord> records = new ArrayList<>();
         records.add(testRecord);
         
-        when(taskRepository.findById(1L))
-            .thenReturn(Optional.of(testTask));
-        when(recordRepository.findByTaskId(1L))
-            .thenReturn(records);
+        when(taskRepository.findAllById(any()))
+            .thenReturn(List.of(testTask));
+        when(aggregateStore.summarizeTasks(any()))
+            .thenReturn(Map.of(1L, summary(Map.of("SUCCESS", (long) records.size()))));
         when(assessmentRepository.findByAssessmentCodeStartingWithOrderByIdDesc(anyString()))
             .thenReturn(new ArrayList<>());
         when(assessmentRepository.save(any(TestRiskAssessment.class)))
@@ -238,11 +246,11 @@ class TestRiskAssessmentServiceImplTest {
         records.add(testRecord);
         
         List<TestCase> cases = new ArrayList<>();
-        when(requirementRepository.findById(1L))
-            .thenReturn(Optional.of(testRequirement));
-        when(testCaseRepository.findByRequirementId(1L))
-            .thenReturn(cases);
-        when(coverageRepository.findByRequirementId(1L))
+        when(requirementRepository.findAllById(any()))
+            .thenReturn(List.of(testRequirement));
+        when(testCaseRepository.countByRequirementIdIn(any()))
+            .thenReturn(caseCountRows(1L, cases.size()));
+        when(coverageRepository.findByRequirementIdIn(any()))
             .thenReturn(new ArrayList<>());
         
         // When
@@ -315,11 +323,11 @@ class TestRiskAssessmentServiceImplTest {
         records.add(testRecord);
         
         List<TestCase> cases = new ArrayList<>();
-        when(requirementRepository.findById(1L))
-            .thenReturn(Optional.of(testRequirement));
-        when(testCaseRepository.findByRequirementId(1L))
-            .thenReturn(cases);
-        when(coverageRepository.findByRequirementId(1L))
+        when(requirementRepository.findAllById(any()))
+            .thenReturn(List.of(testRequirement));
+        when(testCaseRepository.countByRequirementIdIn(any()))
+            .thenReturn(caseCountRows(1L, cases.size()));
+        when(coverageRepository.findByRequirementIdIn(any()))
             .thenReturn(new ArrayList<>());
         
         // When
@@ -327,10 +335,93 @@ class TestRiskAssessmentServiceImplTest {
         
         // Then
         assertNotNull(result);
-        // identifyRiskItems方法会检查用例数量和覆盖率，不会调用recordRepository
-        verify(testCaseRepository, times(1)).findByRequirementId(1L);
-        verify(coverageRepository, times(1)).findByRequirementId(1L);
+        // identifyRiskItems方法会检查用例数量和覆盖率，每类输入只查询一次，不会调用recordRepository
+        verify(testCaseRepository, times(1)).countByRequirementIdIn(any());
+        verify(coverageRepository, times(1)).findByRequirementIdIn(any());
         verify(recordRepository, never()).findAll(any(org.springframework.data.jpa.domain.Specification.class));
+        verifyNoInteractions(aggregateStore);
+    }
+    
+    @Test
+    @DisplayName("评估版本上线风险-集合预取、并行评分并批量保存")
+    void testAssessReleaseRisk_Success() {
+        // Given
+        TestRequirement lowRisk = new TestRequirement();
+        lowRisk.setId(2L);
+        lowRisk.setRequirementName("低风险需求");
+        TestCoverageAnalysis coverage = new TestCoverageAnalysis();
+        coverage.setRequirementId(2L);
+        coverage.setCoverageType("REQUIREMENT");
+        coverage.setCoverageRate(new BigDecimal("90"));
+        testTask.setRequirementId(2L);
+        testTask.setSuccessCount(6);
+        testTask.setFailCount(4);
+        
+        when(taskRepository.findAllById(any())).thenReturn(List.of(testTask));
+        when(requirementRepository.findAllById(any())).thenReturn(List.of(testRequirement, lowRisk));
+        when(testCaseRepository.countByRequirementIdIn(any())).thenReturn(caseCountRows(2L, 5));
+        when(coverageRepository.findByRequirementIdIn(any())).thenReturn(List.of(coverage));
+        when(aggregateStore.summarizeTasks(any()))
+            .thenReturn(Map.of(1L, summary(Map.of("SUCCESS", 6L, "FAILED", 4L))));
+        when(assessmentRepository.findByAssessmentCodeStartingWithOrderByIdDesc(anyString()))
+            .thenReturn(List.of(testAssessment));
+        when(assessmentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        ReleaseRiskAssessmentResponseDTO result = riskService.assessReleaseRisk(List.of(1L, 2L, 1L), List.of(1L));
+        
+        // Then
+        assertEquals(3, result.getAssessments().size());
+        // 需求1无用例、无覆盖分析：风险50（中风险），可行性80
+        TestRiskAssessment first = result.getAssessments().get(0);
+        assertEquals(1L, first.getRequirementId());
+        assertEquals("MEDIUM", first.getRiskLevel());
+        assertEquals(new BigDecimal("80.00"), first.getFeasibilityScore());
+        // 需求2用例充足、覆盖率90%：低风险
+        assertEquals("LOW", result.getAssessments().get(1).getRiskLevel());
+        // 执行任务失败率40%：任务风险 40 + 40*0.2 = 48，可行性按关联需求风险扣分并按失败率扣15分
+        TestRiskAssessment taskAssessment = result.getAssessments().get(2);
+        assertEquals(1L, taskAssessment.getExecutionTaskId());
+        assertEquals(new BigDecimal("48.00"), taskAssessment.getRiskScore());
+        assertEquals(new BigDecimal("85.00"), taskAssessment.getFeasibilityScore());
+        // 编码只查询一次，从当天已有最大序号之后连续分配
+        assertEquals(List.of("-002", "-003", "-004"), result.getAssessments().stream()
+                .map(a -> a.getAssessmentCode().substring(a.getAssessmentCode().length() - 4))
+                .toList());
+        
+        assertEquals(TestRiskAssessmentServiceImpl.RELEASE_CONDITIONAL_GO, result.getDecision());
+        assertEquals(2L, result.getRiskLevelCount().get("MEDIUM"));
+        assertEquals(1L, result.getRiskLevelCount().get("LOW"));
+        assertEquals(new BigDecimal("80.00"), result.getMinFeasibilityScore());
+        verify(requirementRepository, times(1)).findAllById(any());
+        verify(testCaseRepository, times(1)).countByRequirementIdIn(any());
+        verify(coverageRepository, times(1)).findByRequirementIdIn(any());
+        verify(assessmentRepository, times(1)).findByAssessmentCodeStartingWithOrderByIdDesc(anyString());
+        verify(assessmentRepository, times(1)).saveAll(anyList());
+        verify(assessmentRepository, never()).save(any(TestRiskAssessment.class));
+    }
+    
+    @Test
+    @DisplayName("评估版本上线风险-需求不存在或未指定评估对象")
+    void testAssessReleaseRisk_Invalid() {
+        when(requirementRepository.findAllById(any())).thenReturn(List.of(testRequirement));
+        
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> riskService.assessReleaseRisk(List.of(1L, 9L), null));
+        assertTrue(exception.getMessage().contains("9"));
+        assertThrows(BusinessException.class, () -> riskService.assessReleaseRisk(null, List.of()));
+        verify(assessmentRepository, never()).saveAll(anyList());
+    }
+    
+    private static List<Object[]> caseCountRows(Long requirementId, int count) {
+        List<Object[]> rows = new ArrayList<>();
+        if (count > 0) {
+            rows.add(new Object[]{requirementId, (long) count});
+        }
+        return rows;
+    }
+    
+    private static ExecutionAggregateStore.ExecutionSummary summary(Map<String, Long> statusCount) {
+        return new ExecutionAggregateStore.ExecutionSummary(statusCount, 0, 0, null);
     }
 }
-
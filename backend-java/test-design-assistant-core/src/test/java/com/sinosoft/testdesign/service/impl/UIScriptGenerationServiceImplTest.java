@@ -8,6 +8,8 @@ import com.sinosoft.testdesign.entity.PageElementInfo;
 import com.sinosoft.testdesign.entity.TestExecutionTask;
 import com.sinosoft.testdesign.repository.PageElementInfoRepository;
 import com.sinosoft.testdesign.repository.TestExecutionTaskRepository;
+import com.sinosoft.testdesign.service.AiResponseCacheService;
+import com.sinosoft.testdesign.service.JobQueueService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -50,6 +53,12 @@ class UIScriptGenerationServiceImplTest {
     @Mock
     private ObjectMapper objectMapper;
     
+    @Mock
+    private AiResponseCacheService aiResponseCacheService;
+    
+    @Mock
+    private JobQueueService jobQueueService;
+    
     @InjectMocks
     private UIScriptGenerationServiceImpl scriptGenerationService;
     
@@ -58,6 +67,12 @@ class UIScriptGenerationServiceImplTest {
     
     @BeforeEach
     void setUp() {
+        // AI响应缓存直接透传到实际调用
+        lenient().when(aiResponseCacheService.getOrLoad(anyString(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+        lenient().when(aiResponseCacheService.getOrLoad(anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+        
         // 设置AI服务URL
         ReflectionTestUtils.setField(scriptGenerationService, "aiServiceUrl", "http://localhost:8000");
         
@@ -89,16 +104,16 @@ class UIScriptGenerationServiceImplTest {
                 task.setId(1L);
                 return task;
             });
-        when(taskRepository.findById(1L))
-            .thenReturn(Optional.of(testTask));
         
         // When
         String result = scriptGenerationService.generateScript(testRequest);
         
-        // Then
+        // Then - 脚本生成提交到后台任务队列执行
         assertNotNull(result);
         assertTrue(result.startsWith("TASK-"));
         verify(taskRepository, times(1)).save(any(TestExecutionTask.class));
+        verify(jobQueueService).enqueue(JobQueueService.JOB_UI_SCRIPT_GENERATION, "1",
+                testRequest, JobQueueService.PRIORITY_INTERACTIVE);
     }
     
     @Test
@@ -0,0 +1,170 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.entity.WorkflowDefinition;
+import com.sinosoft.testdesign.entity.WorkflowVersion;
+import com.sinosoft.testdesign.repository.WorkflowDefinitionRepository;
+import com.sinosoft.testdesign.repository.WorkflowVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 工作流定义服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("工作流定义服务测试")
+class WorkflowDefinitionServiceImplTest {
+
+    private static final String CONFIG_V1 = "{\"nodes\":[{\"id\":\"in\",\"type\":\"input\"},"
+            + "{\"id\":\"llm\",\"type\":\"llm_call\"}],\"edges\":[{\"source\":\"in\",\"target\":\"llm\"}]}";
+    private static final String CONFIG_V2 = "{\"nodes\":[{\"id\":\"in\",\"type\":\"input\"},"
+            + "{\"id\":\"clean\",\"type\":\"data_clean\"}],\"edges\":[{\"source\":\"in\",\"target\":\"clean\"}]}";
+
+    @Mock
+    private WorkflowDefinitionRepository workflowRepository;
+
+    @Mock
+    private WorkflowVersionRepository versionRepository;
+
+    private WorkflowPlanCache planCache;
+    private WorkflowDefinitionServiceImpl workflowService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        planCache = new WorkflowPlanCache(objectMapper);
+        workflowService = new WorkflowDefinitionServiceImpl(workflowRepository, versionRepository, objectMapper, planCache);
+        lenient().when(workflowRepository.save(any(WorkflowDefinition.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("校验配置-收集错误和警告")
+    void testValidateWorkflowConfig() {
+        Map<String, Object> result = workflowService.validateWorkflowConfig("{\"nodes\":["
+                + "{\"id\":\"a\",\"type\":\"input\"},{\"id\":\"a\",\"type\":\"input\"},{\"type\":\"input\"},"
+                + "{\"id\":\"b\",\"type\":\"custom_node\"},{\"id\":\"c\",\"type\":\"data_clean\"}],"
+                + "\"edges\":[{\"source\":\"b\",\"target\":\"c\"},{\"source\":\"c\",\"target\":\"b\"},"
+                + "{\"source\":\"a\",\"target\":\"x\"}]}");
+
+        assertEquals(false, result.get("valid"));
+        assertEquals(List.of("节点ID重复: a", "节点缺少id字段", "边的target节点不存在: x"), result.get("errors"));
+        assertEquals(List.of("未知的节点类型: custom_node（节点b）", "节点不可达: b", "节点不可达: c",
+                "工作流存在环但没有循环节点，环上的节点会被重复执行"), result.get("warnings"));
+
+        Map<String, Object> valid = workflowService.validateWorkflowConfig(CONFIG_V1);
+        assertEquals(true, valid.get("valid"));
+        assertEquals(List.of(), valid.get("warnings"));
+        assertEquals(false, workflowService.validateWorkflowConfig("{\"nodes\":").get("valid"));
+    }
+
+    @Test
+    @DisplayName("创建工作流-配置无效时拒绝保存")
+    void testCreateWorkflow_InvalidConfig() {
+        WorkflowDefinition workflow = new WorkflowDefinition();
+        workflow.setWorkflowConfig("{\"nodes\":[],\"edges\":[]}");
+
+        assertThrows(BusinessException.class, () -> workflowService.createWorkflow(workflow));
+        verify(workflowRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("编译缓存-同一版本复用编译结果，更新配置后版本递增并重新编译")
+    void testPlanCache_ReusedAndInvalidatedOnUpdate() {
+        WorkflowDefinition existing = workflow(CONFIG_V1, 3);
+        when(workflowRepository.findById(1L)).thenReturn(Optional.of(existing));
+
+        CompiledWorkflow first = planCache.get(existing);
+        assertSame(first, planCache.get(existing));
+
+        WorkflowDefinition update = new WorkflowDefinition();
+        update.setId(1L);
+        update.setWorkflowConfig(CONFIG_V2);
+        // 请求中的版本号不生效
+        update.setVersion(1);
+        WorkflowDefinition saved = workflowService.updateWorkflow(update);
+
+        assertEquals(4, saved.getVersion());
+        CompiledWorkflow second = planCache.get(saved);
+        assertNotSame(first, second);
+        assertEquals("clean", second.node(1).id());
+        assertEquals(CompiledWorkflow.NodeKind.TRANSFORM, second.node(1).kind());
+        assertSame(second, planCache.get(saved));
+    }
+
+    @Test
+    @DisplayName("编译缓存-只修改名称时版本不变，回滚后使用回滚的配置")
+    void testPlanCache_RenameAndRollback() {
+        WorkflowDefinition existing = workflow(CONFIG_V2, 2);
+        when(workflowRepository.findById(1L)).thenReturn(Optional.of(existing));
+        planCache.get(existing);
+
+        WorkflowDefinition rename = new WorkflowDefinition();
+        rename.setId(1L);
+        rename.setWorkflowName("重命名");
+        rename.setVersion(1);
+        assertEquals(2, workflowService.updateWorkflow(rename).getVersion());
+
+        when(versionRepository.findByWorkflowIdAndVersion(1L, 1))
+                .thenReturn(Optional.of(WorkflowVersion.builder().workflowId(1L).version(1).workflowConfig(CONFIG_V1).build()));
+        WorkflowDefinition rolledBack = workflowService.rollbackToVersion(1L, 1);
+
+        assertEquals(3, rolledBack.getVersion());
+        assertEquals("llm_call", planCache.get(rolledBack).node(1).type());
+    }
+
+    @Test
+    @DisplayName("编译缓存-事务提交后才清除和写入，回滚时保留原有编译结果")
+    void testPlanCache_UpdatedAfterCommit() {
+        WorkflowDefinition existing = workflow(CONFIG_V1, 3);
+        WorkflowDefinition committed = workflow(CONFIG_V1, 3);
+        when(workflowRepository.findById(1L)).thenReturn(Optional.of(existing));
+        CompiledWorkflow first = planCache.get(committed);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            WorkflowDefinition update = new WorkflowDefinition();
+            update.setId(1L);
+            update.setWorkflowConfig(CONFIG_V2);
+            workflowService.updateWorkflow(update);
+
+            // 提交前仍使用已提交版本的编译结果
+            assertSame(first, planCache.get(committed));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // 回滚后缓存不变
+        assertSame(first, planCache.get(committed));
+    }
+
+    private static WorkflowDefinition workflow(String config, int version) {
+        WorkflowDefinition workflow = new WorkflowDefinition();
+        workflow.setId(1L);
+        workflow.setWorkflowCode("WF-20260209-001");
+        workflow.setWorkflowName("用例生成");
+        workflow.setWorkflowConfig(config);
+        workflow.setVersion(version);
+        workflow.setIsActive(true);
+        return workflow;
+    }
+}
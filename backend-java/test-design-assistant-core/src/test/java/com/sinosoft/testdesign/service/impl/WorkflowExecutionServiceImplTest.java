@@ -0,0 +1,618 @@
+package com.sinosoft.testdesign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sinosoft.testdesign.common.BusinessException;
+import com.sinosoft.testdesign.config.WorkflowExecutionConfig;
+import com.sinosoft.testdesign.config.WorkflowNodeMemoConfig;
+import com.sinosoft.testdesign.entity.AsyncJob;
+import com.sinosoft.testdesign.entity.WorkflowDefinition;
+import com.sinosoft.testdesign.entity.WorkflowExecution;
+import com.sinosoft.testdesign.entity.WorkflowNodeExecution;
+import com.sinosoft.testdesign.entity.WorkflowNodeMemo;
+import com.sinosoft.testdesign.repository.WorkflowDefinitionRepository;
+import com.sinosoft.testdesign.repository.WorkflowExecutionRepository;
+import com.sinosoft.testdesign.repository.WorkflowNodeExecutionRepository;
+import com.sinosoft.testdesign.repository.WorkflowNodeMemoRepository;
+import com.sinosoft.testdesign.service.AIServiceClient;
+import com.sinosoft.testdesign.service.JobQueueService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 工作流执行服务单元测试
+ *
+ * @author sinosoft
+ * @date 2026-02-09
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("工作流执行服务测试")
+class WorkflowExecutionServiceImplTest {
+
+    private static final String PARALLEL_CONFIG = "{\"nodes\":["
+            + "{\"id\":\"in\",\"type\":\"input\"},"
+            + "{\"id\":\"llm_a\",\"type\":\"llm_call\",\"config\":{\"model_code\":\"DEEPSEEK_CHAT\"}},"
+            + "{\"id\":\"llm_b\",\"type\":\"llm_call\",\"config\":{\"model_code\":\"DEEPSEEK_CHAT\"}},"
+            + "{\"id\":\"merge\",\"type\":\"data_merge\"}],"
+            + "\"edges\":[{\"source\":\"in\",\"target\":\"llm_a\"},{\"source\":\"in\",\"target\":\"llm_b\"},"
+            + "{\"source\":\"llm_a\",\"target\":\"merge\"},{\"source\":\"llm_b\",\"target\":\"merge\"}]}";
+
+    private static final String CONDITION_CONFIG = "{\"nodes\":["
+            + "{\"id\":\"in\",\"type\":\"input\"},"
+            + "{\"id\":\"check\",\"type\":\"condition\",\"config\":{\"field\":\"priority\",\"operator\":\"eq\",\"value\":\"HIGH\"}},"
+            + "{\"id\":\"llm\",\"type\":\"llm_call\",\"config\":{\"model_code\":\"DEEPSEEK_CHAT\"}},"
+            + "{\"id\":\"plain\",\"type\":\"format_transform\"}],"
+            + "\"edges\":[{\"source\":\"in\",\"target\":\"check\"},"
+            + "{\"source\":\"check\",\"target\":\"llm\"},{\"source\":\"check\",\"target\":\"plain\"}]}";
+
+    private static final String CHAIN_CONFIG = "{\"nodes\":["
+            + "{\"id\":\"in\",\"type\":\"input\"},"
+            + "{\"id\":\"llm\",\"type\":\"llm_call\",\"config\":{\"model_code\":\"DEEPSEEK_CHAT\"}},"
+            + "{\"id\":\"parse\",\"type\":\"result_parse\",\"config\":{\"parse_type\":\"text\"}}],"
+            + "\"edges\":[{\"source\":\"in\",\"target\":\"llm\"},{\"source\":\"llm\",\"target\":\"parse\"}]}";
+
+    @Mock
+    private WorkflowDefinitionRepository workflowRepository;
+
+    @Mock
+    private WorkflowExecutionRepository executionRepository;
+
+    @Mock
+    private WorkflowNodeExecutionRepository nodeExecutionRepository;
+
+    @Mock
+    private WorkflowNodeMemoRepository memoRepository;
+
+    @Mock
+    private AIServiceClient aiServiceClient;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    private WorkflowDagExecutor dagExecutor;
+    private WorkflowExecutionServiceImpl executionService;
+    private WorkflowExecutionJobHandler jobHandler;
+    /** 模拟任务队列工作线程 */
+    private final ExecutorService jobWorker = Executors.newCachedThreadPool();
+    private final List<AsyncJob> enqueuedJobs = new CopyOnWriteArrayList<>();
+
+    private final Map<String, WorkflowExecution> executions = new ConcurrentHashMap<>();
+    private final List<WorkflowNodeExecution> nodeRecords = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        WorkflowExecutionConfig config = new WorkflowExecutionConfig();
+        config.setPoolSize(4);
+        config.setQueueCapacity(16);
+        WorkflowNodeMemoStore memoStore = new WorkflowNodeMemoStore(memoRepository, new WorkflowNodeMemoConfig(), objectMapper);
+        dagExecutor = new WorkflowDagExecutor(aiServiceClient, nodeExecutionRepository, objectMapper, memoStore, config);
+        ReflectionTestUtils.setField(dagExecutor, "aiServiceUrl", "http://localhost:8000");
+        executionService = new WorkflowExecutionServiceImpl(workflowRepository, executionRepository,
+                nodeExecutionRepository, restTemplate, objectMapper, dagExecutor, new WorkflowPlanCache(objectMapper),
+                jobQueueService);
+        ReflectionTestUtils.setField(executionService, "aiServiceUrl", "http://localhost:8000");
+        jobHandler = new WorkflowExecutionJobHandler(executionService, objectMapper);
+
+        // 提交的任务由模拟的工作线程领取执行
+        lenient().when(jobQueueService.enqueue(eq(JobQueueService.JOB_WORKFLOW_EXECUTION), anyString(), any(), anyInt()))
+                .thenAnswer(inv -> {
+                    AsyncJob job = AsyncJob.builder()
+                            .id((long) enqueuedJobs.size() + 1)
+                            .jobType(JobQueueService.JOB_WORKFLOW_EXECUTION)
+                            .businessKey(inv.getArgument(1))
+                            .payload(objectMapper.writeValueAsString(inv.getArgument(2)))
+                            .build();
+                    enqueuedJobs.add(job);
+                    jobWorker.execute(() -> {
+                        try {
+                            jobHandler.handle(job);
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                    return job;
+                });
+
+        lenient().when(executionRepository.save(any(WorkflowExecution.class))).thenAnswer(inv -> {
+            WorkflowExecution execution = inv.getArgument(0);
+            executions.put(execution.getExecutionId(), execution);
+            return execution;
+        });
+        lenient().when(executionRepository.findByExecutionId(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(executions.get(inv.<String>getArgument(0))));
+        // 带状态条件的更新按数据库语义作用于内存中的执行记录
+        lenient().when(executionRepository.startIfActive(anyString())).thenAnswer(inv -> {
+            WorkflowExecution execution = executions.get(inv.<String>getArgument(0));
+            if (execution == null || !List.of("PENDING", "RUNNING").contains(execution.getStatus())) {
+                return 0;
+            }
+            execution.setStatus("RUNNING");
+            return 1;
+        });
+        lenient().when(executionRepository.failIfActive(anyString(), any(), any())).thenAnswer(inv -> {
+            WorkflowExecution execution = executions.get(inv.<String>getArgument(0));
+            if (execution == null || !List.of("PENDING", "RUNNING").contains(execution.getStatus())) {
+                return 0;
+            }
+            execution.setStatus("FAILED");
+            execution.setErrorMessage(inv.getArgument(1));
+            execution.setEndTime(inv.getArgument(2));
+            return 1;
+        });
+        lenient().when(nodeExecutionRepository.failRunningNodes(anyString(), any(), any())).thenAnswer(inv -> {
+            int updated = 0;
+            for (WorkflowNodeExecution record : nodeRecords) {
+                if (inv.<String>getArgument(0).equals(record.getExecutionId()) && "RUNNING".equals(record.getStatus())) {
+                    record.setStatus("FAILED");
+                    record.setErrorMessage(inv.getArgument(1));
+                    record.setEndTime(inv.getArgument(2));
+                    updated++;
+                }
+            }
+            return updated;
+        });
+        lenient().when(executionRepository.updateProgress(anyString(), anyInt(), anyString())).thenAnswer(inv -> {
+            WorkflowExecution execution = executions.get(inv.<String>getArgument(0));
+            if (execution == null || !"RUNNING".equals(execution.getStatus())) {
+                return 0;
+            }
+            execution.setProgress(inv.getArgument(1));
+            execution.setCurrentNodeId(inv.getArgument(2));
+            return 1;
+        });
+        lenient().when(executionRepository.finishIfRunning(anyString(), anyString(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    WorkflowExecution execution = executions.get(inv.<String>getArgument(0));
+                    if (execution == null || !"RUNNING".equals(execution.getStatus())) {
+                        return 0;
+                    }
+                    if (inv.getArgument(2) != null) {
+                        execution.setProgress(inv.getArgument(2));
+                    }
+                    execution.setOutputData(inv.getArgument(3));
+                    execution.setErrorMessage(inv.getArgument(4));
+                    execution.setErrorNodeId(inv.getArgument(5));
+                    execution.setDuration(inv.getArgument(7));
+                    execution.setStatus(inv.getArgument(1));
+                    // 结束时间最后写入，awaitFinished看到结束时间时其余字段已就绪
+                    execution.setEndTime(inv.getArgument(6));
+                    return 1;
+                });
+        lenient().when(executionRepository.cancelIfActive(anyString(), any())).thenAnswer(inv -> {
+            WorkflowExecution execution = executions.get(inv.<String>getArgument(0));
+            if (execution == null || !List.of("PENDING", "RUNNING").contains(execution.getStatus())) {
+                return 0;
+            }
+            execution.setStatus("CANCELLED");
+            execution.setEndTime(inv.getArgument(1));
+            return 1;
+        });
+        lenient().when(nodeExecutionRepository.save(any(WorkflowNodeExecution.class))).thenAnswer(inv -> {
+            WorkflowNodeExecution record = inv.getArgument(0);
+            if (nodeRecords.stream().noneMatch(r -> r == record)) {
+                nodeRecords.add(record);
+            }
+            return record;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobWorker.shutdownNow();
+        dagExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("执行工作流-并行分支按关键路径耗时完成并记录节点耗时")
+    void testExecute_ParallelBranches() throws Exception {
+        givenWorkflow(PARALLEL_CONFIG);
+        when(aiServiceClient.post(eq("http://localhost:8000/api/v1/llm/call"), any())).thenAnswer(inv -> {
+            Thread.sleep(300);
+            return Map.of("content", "生成结果", "model_code", "DEEPSEEK_CHAT");
+        });
+
+        long start = System.currentTimeMillis();
+        WorkflowExecution execution = executionService.executeWorkflow(1L, Map.of("prompt", "生成用例"), 1L, "admin");
+        WorkflowExecution finished = awaitFinished(execution.getExecutionId());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals("SUCCESS", finished.getStatus());
+        assertEquals(100, finished.getProgress());
+        assertTrue(elapsed < 550, "两个模型调用应并发执行，实际耗时" + elapsed + "ms");
+        assertTrue(finished.getOutputData().startsWith("["));
+        verify(aiServiceClient, times(2)).post(anyString(), any());
+        verifyNoInteractions(restTemplate);
+
+        assertEquals(4, nodeRecords.size());
+        WorkflowNodeExecution llmRecord = nodeRecord("llm_a");
+        assertEquals("SUCCESS", llmRecord.getStatus());
+        assertTrue(llmRecord.getDuration() >= 300);
+        assertNotNull(llmRecord.getEndTime());
+        verify(executionRepository, atLeastOnce()).updateProgress(eq(execution.getExecutionId()), anyInt(), anyString());
+        verify(workflowRepository).save(argThat(w -> w.getExecutionCount() == 1));
+        verify(jobQueueService).enqueue(eq(JobQueueService.JOB_WORKFLOW_EXECUTION), eq(execution.getExecutionId()),
+                any(), eq(JobQueueService.PRIORITY_INTERACTIVE));
+    }
+
+    @Test
+    @DisplayName("执行工作流-条件不满足时跳过true分支，不调用模型")
+    void testExecute_ConditionSkipsBranch() throws Exception {
+        givenWorkflow(CONDITION_CONFIG);
+
+        WorkflowExecution execution = executionService.executeWorkflow(1L,
+                Map.of("priority", "LOW", "prompt", "生成用例"), 1L, "admin");
+        WorkflowExecution finished = awaitFinished(execution.getExecutionId());
+
+        assertEquals("SUCCESS", finished.getStatus());
+        assertTrue(finished.getOutputData().contains("\"condition_result\":false"));
+        assertEquals("SKIPPED", nodeRecord("llm").getStatus());
+        assertEquals("SUCCESS", nodeRecord("plain").getStatus());
+        verifyNoInteractions(aiServiceClient);
+    }
+
+    @Test
+    @DisplayName("执行工作流-节点失败时记录失败节点并跳过下游")
+    void testExecute_NodeFailure() throws Exception {
+        givenWorkflow(CHAIN_CONFIG);
+        when(aiServiceClient.post(anyString(), any()))
+                .thenReturn(Map.of("status", "error", "message", "AI服务暂时不可用，请稍后重试"));
+
+        WorkflowExecution execution = executionService.executeWorkflow(1L, Map.of("prompt", "生成用例"), 1L, "admin");
+        WorkflowExecution finished = awaitFinished(execution.getExecutionId());
+
+        assertEquals("FAILED", finished.getStatus());
+        assertEquals("llm", finished.getErrorNodeId());
+        assertEquals("模型调用失败: AI服务暂时不可用，请稍后重试", finished.getErrorMessage());
+        assertEquals("FAILED", nodeRecord("llm").getStatus());
+        assertEquals("SKIPPED", nodeRecord("parse").getStatus());
+    }
+
+    @Test
+    @DisplayName("取消执行-运行中的节点结束后不再调度下游节点")
+    void testCancelExecution_StopsScheduling() throws Exception {
+        givenWorkflow(CHAIN_CONFIG);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(aiServiceClient.post(anyString(), any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of("content", "生成结果");
+        });
+
+        WorkflowExecution execution = executionService.executeWorkflow(1L, Map.of("prompt", "生成用例"), 1L, "admin");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        WorkflowExecution cancelled = executionService.cancelExecution(execution.getExecutionId());
+        assertEquals("CANCELLED", cancelled.getStatus());
+        release.countDown();
+
+        waitFor(() -> nodeRecords.size() == 3);
+        assertEquals("SUCCESS", nodeRecord("llm").getStatus());
+        assertEquals("SKIPPED", nodeRecord("parse").getStatus());
+        assertEquals("工作流已取消", nodeRecord("parse").getErrorMessage());
+        assertEquals("CANCELLED", executions.get(execution.getExecutionId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("取消执行-在其他实例上取消时，执行所在实例在节点结束后停止调度且不覆盖取消状态")
+    void testCancelExecution_FromOtherInstance() throws Exception {
+        givenWorkflow(CHAIN_CONFIG);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(aiServiceClient.post(anyString(), any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of("content", "生成结果");
+        });
+
+        WorkflowExecution execution = executionService.executeWorkflow(1L, Map.of("prompt", "生成用例"), 1L, "admin");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 其他实例的取消只体现在数据库中
+        assertEquals(1, executionRepository.cancelIfActive(execution.getExecutionId(), LocalDateTime.now()));
+        release.countDown();
+
+        waitFor(() -> nodeRecords.size() == 3);
+        assertEquals("SKIPPED", nodeRecord("parse").getStatus());
+        assertEquals("工作流已取消", nodeRecord("parse").getErrorMessage());
+        verify(executionRepository, timeout(2000)).finishIfRunning(eq(execution.getExecutionId()), anyString(),
+                any(), any(), any(), any(), any(), any());
+        assertEquals("CANCELLED", executions.get(execution.getExecutionId()).getStatus());
+        verify(workflowRepository, never()).save(any());
+        assertThrows(IllegalArgumentException.class, () -> executionService.cancelExecution(execution.getExecutionId()));
+    }
+
+    @Test
+    @DisplayName("重新执行-输入未变化的模型调用节点复用缓存结果")
+    void testExecute_ReusesMemoizedNodeOutput() throws Exception {
+        givenWorkflow(CHAIN_CONFIG);
+        Map<String, WorkflowNodeMemo> memos = new ConcurrentHashMap<>();
+        when(memoRepository.findByMemoKey(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(memos.get(inv.<String>getArgument(0))));
+        when(memoRepository.save(any(WorkflowNodeMemo.class))).thenAnswer(inv -> {
+            WorkflowNodeMemo memo = inv.getArgument(0);
+            memos.put(memo.getMemoKey(), memo);
+            return memo;
+        });
+        when(aiServiceClient.post(anyString(), any())).thenReturn(Map.of("content", "生成结果"));
+
+        WorkflowExecution first = awaitFinished(executionService.executeWorkflow(1L,
+                Map.of("prompt", "生成用例"), 1L, "admin").getExecutionId());
+        WorkflowExecution second = awaitFinished(executionService.executeWorkflow(1L,
+                Map.of("prompt", "生成用例"), 1L, "admin").getExecutionId());
+        WorkflowExecution changed = awaitFinished(executionService.executeWorkflow(1L,
+                Map.of("prompt", "生成登录用例"), 1L, "admin").getExecutionId());
+
+        assertEquals("SUCCESS", first.getStatus());
+        assertEquals("SUCCESS", second.getStatus());
+        assertEquals(first.getOutputData(), second.getOutputData());
+        assertEquals("SUCCESS", changed.getStatus());
+        // 只有输入变化的执行再次调用模型，result_parse不缓存
+        verify(aiServiceClient, times(2)).post(anyString(), any());
+        assertEquals(2, memos.size());
+        assertTrue(memos.values().stream().allMatch(m -> "llm_call".equals(m.getNodeType())));
+        verify(memoRepository).recordHit(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("强制刷新-不复用节点缓存，重新调用模型并更新缓存")
+    void testExecute_ForceRefreshSkipsMemo() throws Exception {
+        givenWorkflow(CHAIN_CONFIG);
+        Map<String, WorkflowNodeMemo> memos = new ConcurrentHashMap<>();
+        lenient().when(memoRepository.findByMemoKey(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(memos.get(inv.<String>getArgument(0))));
+        when(memoRepository.save(any(WorkflowNodeMemo.class))).thenAnswer(inv -> {
+            WorkflowNodeMemo memo = inv.getArgument(0);
+            memos.put(memo.getMemoKey(), memo);
+            return memo;
+        });
+        when(aiServiceClient.post(anyString(), any()))
+                .thenReturn(Map.of("content", "第一次结果"))
+                .thenReturn(Map.of("content", "刷新后结果"));
+
+        WorkflowExecution first = awaitFinished(executionService.executeWorkflow(1L,
+                Map.of("prompt", "生成用例"), 1L, "admin").getExecutionId());
+        WorkflowExecution refreshed = awaitFinished(executionService.executeWorkflow(1L,
+                Map.of("prompt", "生成用例"), 1L, "admin", false).getExecutionId());
+        WorkflowExecution reused = awaitFinished(executionService.executeWorkflow(1L,
+                Map.of("prompt", "生成用例"), 1L, "admin").getExecutionId());
+
+        assertTrue(first.getOutputData().contains("第一次结果"));
+        assertTrue(refreshed.getOutputData().contains("刷新后结果"));
+        // 刷新后的输出写回缓存，之后的执行复用新结果
+        assertTrue(reused.getOutputData().contains("刷新后结果"));
+        verify(aiServiceClient, times(2)).post(anyString(), any());
+        assertEquals(1, memos.size());
+        verify(memoRepository, times(1)).recordHit(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("恢复执行-已成功节点使用检查点，只重新执行失败节点及下游")
+    void testResumeExecution_FromFailedNode() throws Exception {
+        givenWorkflow("{\"nodes\":["
+                + "{\"id\":\"in\",\"type\":\"input\"},"
+                + "{\"id\":\"draft\",\"type\":\"llm_call\",\"config\":{\"model_code\":\"DEEPSEEK_CHAT\"}},"
+                + "{\"id\":\"review\",\"type\":\"llm_call\",\"config\":{\"model_code\":\"QWEN_MAX\"}},"
+                + "{\"id\":\"parse\",\"type\":\"result_parse\",\"config\":{\"parse_type\":\"text\"}}],"
+                + "\"edges\":[{\"source\":\"in\",\"target\":\"draft\"},{\"source\":\"draft\",\"target\":\"review\"},"
+                + "{\"source\":\"review\",\"target\":\"parse\"}]}");
+        when(nodeExecutionRepository.findByExecutionIdOrderByCreateTimeAsc(anyString())).thenAnswer(inv ->
+                nodeRecords.stream().filter(r -> inv.<String>getArgument(0).equals(r.getExecutionId())).toList());
+        Map<String, Integer> calls = new ConcurrentHashMap<>();
+        when(aiServiceClient.post(anyString(), any())).thenAnswer(inv -> {
+            String modelCode = (String) inv.<Map<String, Object>>getArgument(1).get("model_code");
+            int call = calls.merge(modelCode, 1, Integer::sum);
+            if ("QWEN_MAX".equals(modelCode) && call == 1) {
+                return Map.of("status", "error", "message", "AI服务暂时不可用，请稍后重试");
+            }
+            return Map.of("content", modelCode + "结果");
+        });
+
+        WorkflowExecution failed = awaitFinished(executionService.executeWorkflow(1L,
+                Map.of("prompt", "生成用例"), 1L, "admin").getExecutionId());
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals("review", failed.getErrorNodeId());
+
+        WorkflowExecution resumed = executionService.resumeExecution(failed.getExecutionId(), 1L, "admin");
+        WorkflowExecution finished = awaitFinished(resumed.getExecutionId());
+
+        assertEquals("SUCCESS", finished.getStatus());
+        assertEquals("RESUME", finished.getExecutionType());
+        assertTrue(finished.getExecutionLog().contains(failed.getExecutionId()));
+        assertTrue(finished.getOutputData().contains("QWEN_MAX结果"));
+        assertEquals(Map.of("DEEPSEEK_CHAT", 1, "QWEN_MAX", 2), calls);
+
+        List<WorkflowNodeExecution> resumedRecords = nodeRecords.stream()
+                .filter(r -> resumed.getExecutionId().equals(r.getExecutionId())).toList();
+        assertEquals(4, resumedRecords.size());
+        WorkflowNodeExecution draft = resumedRecords.stream().filter(r -> "draft".equals(r.getNodeId())).findFirst().orElseThrow();
+        assertEquals("SUCCESS", draft.getStatus());
+        assertEquals(0, draft.getDuration());
+        WorkflowNodeExecution review = resumedRecords.stream().filter(r -> "review".equals(r.getNodeId())).findFirst().orElseThrow();
+        assertEquals("SUCCESS", review.getStatus());
+        assertEquals(1, review.getRetryCount());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> executionService.resumeExecution(resumed.getExecutionId(), 1L, "admin"));
+    }
+
+    @Test
+    @DisplayName("执行实例中断-任务重新领取后从本执行已成功的节点继续，遗留的运行中节点记为失败")
+    void testRunExecution_ResumesInterruptedRun() throws Exception {
+        givenWorkflow(CHAIN_CONFIG);
+        when(nodeExecutionRepository.findByExecutionIdOrderByCreateTimeAsc(anyString())).thenAnswer(inv ->
+                nodeRecords.stream().filter(r -> inv.<String>getArgument(0).equals(r.getExecutionId())).toList());
+        when(aiServiceClient.post(anyString(), any())).thenReturn(Map.of("content", "生成结果"));
+        executions.put("EXEC-1", runningExecution("EXEC-1"));
+        nodeRecords.add(WorkflowNodeExecution.builder().executionId("EXEC-1").nodeId("in").nodeType("input")
+                .status("SUCCESS").outputData("{\"prompt\":\"生成用例\"}").build());
+        WorkflowNodeExecution orphan = WorkflowNodeExecution.builder().executionId("EXEC-1").nodeId("llm")
+                .nodeType("llm_call").status("RUNNING").retryCount(0).build();
+        nodeRecords.add(orphan);
+
+        jobHandler.handle(AsyncJob.builder().id(1L).jobType(JobQueueService.JOB_WORKFLOW_EXECUTION)
+                .businessKey("EXEC-1").payload("{\"reuseMemo\":true}").build());
+
+        WorkflowExecution finished = executions.get("EXEC-1");
+        assertEquals("SUCCESS", finished.getStatus());
+        assertTrue(finished.getOutputData().contains("生成结果"));
+        assertEquals("FAILED", orphan.getStatus());
+        assertEquals("执行实例中断", orphan.getErrorMessage());
+        WorkflowNodeExecution rerun = nodeRecords.stream()
+                .filter(r -> "llm".equals(r.getNodeId()) && r != orphan).findFirst().orElseThrow();
+        assertEquals("SUCCESS", rerun.getStatus());
+        assertEquals(1, rerun.getRetryCount());
+        // 已成功的输入节点使用检查点，不再执行
+        assertEquals(0, nodeRecords.stream().filter(r -> "in".equals(r.getNodeId()) && r.getDuration() != null)
+                .findFirst().orElseThrow().getDuration());
+        verify(aiServiceClient, times(1)).post(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("任务放弃重试-中断的执行记为失败，可以从失败节点恢复")
+    void testGiveUp_MarksExecutionFailedAndResumable() throws Exception {
+        givenWorkflow(CHAIN_CONFIG);
+        when(aiServiceClient.post(anyString(), any())).thenReturn(Map.of("content", "生成结果"));
+        executions.put("EXEC-1", runningExecution("EXEC-1"));
+        AsyncJob job = AsyncJob.builder().id(1L).jobType(JobQueueService.JOB_WORKFLOW_EXECUTION)
+                .businessKey("EXEC-1").build();
+
+        jobHandler.onGiveUp(job, "任务租约过期");
+
+        assertEquals("FAILED", executions.get("EXEC-1").getStatus());
+        assertEquals("任务租约过期", executions.get("EXEC-1").getErrorMessage());
+        WorkflowExecution resumed = executionService.resumeExecution("EXEC-1", 1L, "admin");
+        assertEquals("SUCCESS", awaitFinished(resumed.getExecutionId()).getStatus());
+
+        // 已结束的执行再次领取时跳过
+        jobHandler.handle(job);
+        assertEquals("FAILED", executions.get("EXEC-1").getStatus());
+        verify(aiServiceClient, times(1)).post(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("执行工作流-包含Python专有节点时整体交给Python引擎")
+    void testExecute_DelegatesUnsupportedNodes() throws Exception {
+        givenWorkflow("{\"nodes\":[{\"id\":\"in\",\"type\":\"requirement_input\"},"
+                + "{\"id\":\"save\",\"type\":\"case_save\"}],"
+                + "\"edges\":[{\"source\":\"in\",\"target\":\"save\"}]}");
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(restTemplate.postForObject(eq("http://localhost:8000/api/v1/workflow/execute"), any(), eq(Map.class)))
+                .thenAnswer(inv -> {
+                    threads.add(Thread.currentThread().getName());
+                    return Map.of("status", "success", "output", Map.of("saved", 3));
+                });
+
+        WorkflowExecution execution = executionService.executeWorkflow(1L, Map.of("requirement_text", "登录"), 1L, "admin");
+        WorkflowExecution finished = awaitFinished(execution.getExecutionId());
+
+        assertEquals("SUCCESS", finished.getStatus());
+        assertEquals("{\"saved\":3}", finished.getOutputData());
+        // 阻塞等待Python响应的执行不占用节点线程
+        assertTrue(threads.get(0).startsWith("workflow-remote-"));
+        verifyNoInteractions(aiServiceClient, nodeExecutionRepository);
+    }
+
+    @Test
+    @DisplayName("执行工作流-配置无效时不创建执行记录")
+    void testExecute_InvalidConfig() {
+        givenWorkflow("{\"nodes\":[],\"edges\":[]}");
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> executionService.executeWorkflow(1L, Map.of(), 1L, "admin"));
+        assertTrue(e.getMessage().contains("工作流必须至少包含一个节点"));
+        verify(executionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("编译工作流-拓扑序、环检测和配置校验")
+    void testCompiledWorkflow() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CompiledWorkflow compiled = CompiledWorkflow.compile(PARALLEL_CONFIG, objectMapper);
+        int[] order = compiled.topologicalOrder();
+        assertEquals(0, order[0]);
+        assertEquals(compiled.indexOf("merge"), order[3]);
+        assertArrayEquals(new int[]{1, 2}, compiled.successors(compiled.indexOf("in")));
+        assertTrue(dagExecutor.supports(compiled));
+
+        CompiledWorkflow cyclic = CompiledWorkflow.compile("{\"nodes\":[{\"id\":\"a\",\"type\":\"input\"},"
+                + "{\"id\":\"b\",\"type\":\"input\"}],\"edges\":[{\"source\":\"a\",\"target\":\"b\"},"
+                + "{\"source\":\"b\",\"target\":\"a\"}]}", objectMapper);
+        assertFalse(cyclic.isAcyclic());
+        assertFalse(dagExecutor.supports(cyclic));
+
+        CompiledWorkflow duplicated = CompiledWorkflow.compile("{\"nodes\":[{\"id\":\"a\",\"type\":\"input\"},"
+                + "{\"id\":\"a\",\"type\":\"input\"}],\"edges\":[]}", objectMapper);
+        assertEquals(List.of("节点ID重复: a"), duplicated.errors());
+        assertFalse(dagExecutor.supports(duplicated));
+        assertThrows(BusinessException.class, duplicated::requireValid);
+        assertEquals(List.of("边的target节点不存在: x"), CompiledWorkflow.compile("{\"nodes\":[{\"id\":\"a\",\"type\":\"input\"}],"
+                + "\"edges\":[{\"source\":\"a\",\"target\":\"x\"}]}", objectMapper).errors());
+        assertFalse(CompiledWorkflow.compile("not json", objectMapper).isValid());
+    }
+
+    private void givenWorkflow(String config) {
+        WorkflowDefinition workflow = new WorkflowDefinition();
+        workflow.setId(1L);
+        workflow.setWorkflowCode("WF-20260209-001");
+        workflow.setVersion(1);
+        workflow.setIsActive(true);
+        workflow.setExecutionCount(0);
+        workflow.setWorkflowConfig(config);
+        when(workflowRepository.findById(1L)).thenReturn(Optional.of(workflow));
+    }
+
+    private WorkflowExecution runningExecution(String executionId) {
+        return WorkflowExecution.builder()
+                .executionId(executionId)
+                .workflowId(1L)
+                .workflowCode("WF-20260209-001")
+                .workflowVersion(1)
+                .executionType("API")
+                .inputData("{\"prompt\":\"生成用例\"}")
+                .status("RUNNING")
+                .progress(0)
+                .startTime(LocalDateTime.now())
+                .build();
+    }
+
+    private WorkflowExecution awaitFinished(String executionId) throws InterruptedException {
+        waitFor(() -> executions.get(executionId).getEndTime() != null);
+        return executions.get(executionId);
+    }
+
+    private WorkflowNodeExecution nodeRecord(String nodeId) {
+        return nodeRecords.stream().filter(r -> nodeId.equals(r.getNodeId())).findFirst().orElseThrow();
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+}
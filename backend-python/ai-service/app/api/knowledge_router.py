@@ -1,7 +1,7 @@
 """
 知识库API路由（第四阶段增强）
 """
-from fastapi import APIRouter, Depends, HTTPException, UploadFile, File, Form
+from fastapi import APIRouter, Depends, HTTPException, UploadFile, File, Form, Request
 from sqlalchemy.orm import Session
 from typing import List, Optional
 from pydantic import BaseModel
@@ -206,6 +206,57 @@ async def get_knowledge_base_statistics(
     except Exception as e:
         raise HTTPException(status_code=500, detail=f"查询统计信息失败: {str(e)}")
 
+class StatisticsBatchRequest(BaseModel):
+    """批量统计查询请求"""
+    kb_ids: List[int]
+
+
+@router.post("/statistics/batch")
+async def get_knowledge_base_statistics_batch(
+    request: StatisticsBatchRequest,
+    db: Session = Depends(get_db)
+):
+    """
+    批量获取知识库统计信息，一次请求返回多个知识库的文档数量、分块数量、最后同步时间
+    返回 statistics: {kb_id: {document_count, chunk_count, last_sync_time}}，没有文档的知识库计数为0
+    """
+    try:
+        from sqlalchemy import text, bindparam
+        
+        kb_ids = list(set(request.kb_ids))
+        statistics = {
+            str(kb_id): {"document_count": 0, "chunk_count": 0, "last_sync_time": None}
+            for kb_id in kb_ids
+        }
+        if not kb_ids:
+            return {"success": True, "statistics": statistics}
+        
+        # 文档数量和分块数量（按知识库分组）
+        count_sql = text("""
+        SELECT d.kb_id, COUNT(DISTINCT d.id), COUNT(c.id)
+        FROM knowledge_document d
+        LEFT JOIN knowledge_document_chunk c ON c.doc_id = d.id
+        WHERE d.kb_id IN :kb_ids AND d.is_active = '1'
+        GROUP BY d.kb_id
+        """).bindparams(bindparam("kb_ids", expanding=True))
+        for kb_id, doc_count, chunk_count in db.execute(count_sql, {"kb_ids": kb_ids}).fetchall():
+            statistics[str(kb_id)]["document_count"] = doc_count
+            statistics[str(kb_id)]["chunk_count"] = chunk_count
+        
+        # 最后同步时间
+        sync_sql = text("""
+        SELECT kb_id, MAX(end_time) FROM knowledge_base_sync_log
+        WHERE kb_id IN :kb_ids AND status = 'success'
+        GROUP BY kb_id
+        """).bindparams(bindparam("kb_ids", expanding=True))
+        for kb_id, last_sync_time in db.execute(sync_sql, {"kb_ids": kb_ids}).fetchall():
+            statistics[str(kb_id)]["last_sync_time"] = last_sync_time.isoformat() if last_sync_time else None
+        
+        return {"success": True, "statistics": statistics}
+    except Exception as e:
+        raise HTTPException(status_code=500, detail=f"批量查询统计信息失败: {str(e)}")
+
+
 @router.get("/documents/by-kb/{kb_id}")
 async def list_documents_by_kb(
     kb_id: int,
@@ -411,6 +462,48 @@ async def sync_knowledge_base(
         raise HTTPException(status_code=500, detail=f"同步失败: {str(e)}")
 
 
+class KBSyncFileItem(BaseModel):
+    """批量同步文件项"""
+    path: str
+    content_hash: Optional[str] = None
+    doc_code: Optional[str] = None
+    previous_doc_code: Optional[str] = None
+
+
+class KBSyncBatchRequest(BaseModel):
+    """知识库批量同步请求（只包含变化的文件）"""
+    kb_id: int
+    files: List[KBSyncFileItem] = []
+    deleted_doc_codes: List[str] = []
+    chunking_strategy: str = "paragraph"
+    chunk_size: int = 1000
+    chunk_overlap: int = 200
+
+
+@router.post("/sync/batch")
+async def sync_knowledge_base_batch(
+    request: KBSyncBatchRequest,
+    db: Session = Depends(get_db)
+):
+    """
+    批量同步知识库文件（核心服务按文档清单计算出新增/变化/删除的文件后分批调用）
+    """
+    try:
+        service = KBSyncService(db)
+        return service.sync_files(
+            kb_id=request.kb_id,
+            files=[item.dict() for item in request.files],
+            deleted_doc_codes=request.deleted_doc_codes,
+            chunking_strategy=request.chunking_strategy,
+            chunk_size=request.chunk_size,
+            chunk_overlap=request.chunk_overlap
+        )
+    except ValueError as e:
+        raise HTTPException(status_code=400, detail=str(e))
+    except Exception as e:
+        raise HTTPException(status_code=500, detail=f"批量同步失败: {str(e)}")
+
+
 @router.get("/knowledge-base/{kb_id}/sync-logs")
 async def get_sync_logs(
     kb_id: int,
@@ -454,11 +547,7 @@ async def upload_document(
         creator_id = request.creator_id
         # 解码Base64内容
         import base64
-        import os
         from pathlib import Path
-        from app.services.document_pipeline_service import DocumentPipelineService
-        from app.services.embedding_service import EmbeddingService
-        from app.services.text_chunking_service import ChunkingStrategy
 
         file_bytes = base64.b64decode(file_content)
 
@@ -477,83 +566,200 @@ async def upload_document(
 
         logger.info(f"文件保存成功: {file_path}")
 
-        # 步骤2: 调用文档处理管道服务
-        # 实例化服务
-        embedding_service = EmbeddingService(db)
-        pipeline_service = DocumentPipelineService(
-            db=db,
-            embedding_service=embedding_service
-        )
-
-        # 步骤3: 处理文档（解析、分块、向量化、入库）
-        doc_code = f"DOC-{kb_id}-{timestamp}"
-        file_ext = Path(file_name).suffix[1:].lower() if Path(file_name).suffix else "txt"
-
-        result = pipeline_service.process_document(
-            file_path=str(file_path),
-            doc_code=doc_code,
-            doc_name=file_name,
-            doc_type=file_ext,
-            kb_id=kb_id,
-            doc_category=None,
-            chunking_strategy=ChunkingStrategy.PARAGRAPH,
-            chunk_size=1000,
-            chunk_overlap=200
-        )
-
-        # 步骤4: 检查处理结果
-        if not result.get("success"):
-            # 处理失败，删除已保存的文件
-            if file_path.exists():
-                os.remove(file_path)
-            raise HTTPException(
-                status_code=500,
-                detail=f"文档处理失败: {result.get('error', '未知错误')}"
-            )
+        return _ingest_uploaded_file(db, kb_id, file_name, file_path, timestamp)
 
-        # 步骤5: 记录同步日志（如果知识库同步日志表存在）
-        try:
-            from sqlalchemy import text
-            insert_log_sql = """
-            INSERT INTO knowledge_base_sync_log
-            (kb_id, sync_type, source_path, added_count, updated_count,
-             deleted_count, failed_count, status, start_time, end_time)
-            VALUES
-            (:kb_id, :sync_type, :source_path, :added_count, :updated_count,
-             :deleted_count, :failed_count, :status, NOW(), NOW())
-            """
-            db.execute(
-                text(insert_log_sql),
-                {
-                    "kb_id": kb_id,
-                    "sync_type": "upload",
-                    "source_path": str(file_path),
-                    "added_count": 1,
-                    "updated_count": 0,
-                    "deleted_count": 0,
-                    "failed_count": 0,
-                    "status": "success"
-                }
-            )
-            db.commit()
-            logger.info("同步日志记录成功")
-        except Exception as e:
-            logger.warning(f"记录同步日志失败: {str(e)}")
-            # 不影响主流程
+    except HTTPException:
+        raise
+    except Exception as e:
+        logger.error(f"上传文档失败: {str(e)}", exc_info=True)
+        raise HTTPException(status_code=500, detail=f"上传文档失败: {str(e)}")
 
-        logger.info(f"文档上传成功: doc_code={doc_code}, doc_id={result.get('doc_id')}, chunks={result.get('chunks')}")
 
+class UploadCheckRequest(BaseModel):
+    """上传前检查请求"""
+    kb_id: int
+    content_hash: str
+
+
+def _find_document_by_hash(db: Session, kb_id: int, content_hash: str) -> Optional[str]:
+    """查询知识库中内容哈希相同的有效文档编码"""
+    from sqlalchemy import text
+    row = db.execute(
+        text("""
+        SELECT doc_code FROM knowledge_document
+        WHERE kb_id = :kb_id AND content_hash = :content_hash AND is_active = '1'
+        ORDER BY id DESC LIMIT 1
+        """),
+        {"kb_id": kb_id, "content_hash": content_hash}
+    ).fetchone()
+    return row[0] if row else None
+
+
+@router.post("/upload/check")
+async def check_upload(
+    request: UploadCheckRequest,
+    db: Session = Depends(get_db)
+):
+    """
+    上传前检查知识库中是否已有内容相同（SHA-256相同）的文档
+    """
+    try:
+        doc_code = _find_document_by_hash(db, request.kb_id, request.content_hash)
         return {
             "success": True,
-            "doc_id": result.get("doc_id"),
-            "doc_code": doc_code,
-            "chunks": result.get("chunks"),
-            "message": "文档上传成功"
+            "exists": doc_code is not None,
+            "doc_code": doc_code
         }
+    except Exception as e:
+        raise HTTPException(status_code=500, detail=f"检查文档失败: {str(e)}")
+
+
+@router.post("/upload/stream")
+async def upload_document_stream(
+    request: Request,
+    kb_id: int,
+    file_name: str,
+    creator_id: Optional[int] = None,
+    content_hash: Optional[str] = None,
+    db: Session = Depends(get_db)
+):
+    """
+    上传文档到知识库（请求体为文件原始内容，分块读取写入磁盘，不在内存中保留整个文件）
+    content_hash为文件的SHA-256，知识库中已有相同内容的文档时直接返回该文档编码
+    """
+    import hashlib
+    import os
+    from pathlib import Path
+
+    file_path = None
+    try:
+        if content_hash:
+            existing = _find_document_by_hash(db, kb_id, content_hash)
+            if existing:
+                return {"success": True, "doc_code": existing, "skipped": True, "message": "文档内容未变化"}
+
+        upload_dir = Path("data/uploads")
+        upload_dir.mkdir(parents=True, exist_ok=True)
+        timestamp = int(time.time())
+        file_path = upload_dir / f"{timestamp}_{Path(file_name).name}"
+
+        digest = hashlib.sha256()
+        with open(file_path, "wb") as f:
+            async for chunk in request.stream():
+                digest.update(chunk)
+                f.write(chunk)
+
+        actual_hash = digest.hexdigest()
+        if content_hash and content_hash.lower() != actual_hash:
+            os.remove(file_path)
+            raise HTTPException(status_code=400, detail="文件内容哈希不一致，传输可能不完整")
+
+        logger.info(f"文件保存成功: {file_path}")
+        return _ingest_uploaded_file(db, kb_id, file_name, file_path, timestamp, actual_hash)
 
     except HTTPException:
         raise
     except Exception as e:
         logger.error(f"上传文档失败: {str(e)}", exc_info=True)
+        if file_path is not None and file_path.exists():
+            os.remove(file_path)
         raise HTTPException(status_code=500, detail=f"上传文档失败: {str(e)}")
 
+
+def _ingest_uploaded_file(db: Session, kb_id: int, file_name: str, file_path, timestamp: int,
+                          content_hash: Optional[str] = None) -> dict:
+    """
+    处理已保存到本地的上传文件（解析、分块、向量化、入库）并记录同步日志
+    content_hash不为空时写入文档记录，用于跳过内容未变化的重复上传
+    """
+    import os
+    from pathlib import Path
+    from app.services.document_pipeline_service import DocumentPipelineService
+    from app.services.embedding_service import EmbeddingService
+    from app.services.text_chunking_service import ChunkingStrategy
+
+    # 步骤1: 调用文档处理管道服务
+    # 实例化服务
+    embedding_service = EmbeddingService(db)
+    pipeline_service = DocumentPipelineService(
+        db=db,
+        embedding_service=embedding_service
+    )
+
+    # 步骤2: 处理文档（解析、分块、向量化、入库）
+    doc_code = f"DOC-{kb_id}-{timestamp}"
+    file_ext = Path(file_name).suffix[1:].lower() if Path(file_name).suffix else "txt"
+
+    result = pipeline_service.process_document(
+        file_path=str(file_path),
+        doc_code=doc_code,
+        doc_name=file_name,
+        doc_type=file_ext,
+        kb_id=kb_id,
+        doc_category=None,
+        chunking_strategy=ChunkingStrategy.PARAGRAPH,
+        chunk_size=1000,
+        chunk_overlap=200
+    )
+
+    # 步骤3: 检查处理结果
+    if not result.get("success"):
+        # 处理失败，删除已保存的文件
+        if file_path.exists():
+            os.remove(file_path)
+        raise HTTPException(
+            status_code=500,
+            detail=f"文档处理失败: {result.get('error', '未知错误')}"
+        )
+
+    # 步骤4: 记录内容哈希（用于跳过内容未变化的重复上传）
+    if content_hash:
+        try:
+            from sqlalchemy import text
+            db.execute(
+                text("UPDATE knowledge_document SET content_hash = :content_hash WHERE id = :doc_id"),
+                {"content_hash": content_hash, "doc_id": result.get("doc_id")}
+            )
+            db.commit()
+        except Exception as e:
+            logger.warning(f"记录文档内容哈希失败: {str(e)}")
+
+    # 步骤5: 记录同步日志（如果知识库同步日志表存在）
+    try:
+        from sqlalchemy import text
+        insert_log_sql = """
+        INSERT INTO knowledge_base_sync_log
+        (kb_id, sync_type, source_path, added_count, updated_count,
+         deleted_count, failed_count, status, start_time, end_time)
+        VALUES
+        (:kb_id, :sync_type, :source_path, :added_count, :updated_count,
+         :deleted_count, :failed_count, :status, NOW(), NOW())
+        """
+        db.execute(
+            text(insert_log_sql),
+            {
+                "kb_id": kb_id,
+                "sync_type": "upload",
+                "source_path": str(file_path),
+                "added_count": 1,
+                "updated_count": 0,
+                "deleted_count": 0,
+                "failed_count": 0,
+                "status": "success"
+            }
+        )
+        db.commit()
+        logger.info("同步日志记录成功")
+    except Exception as e:
+        logger.warning(f"记录同步日志失败: {str(e)}")
+        # 不影响主流程
+
+    logger.info(f"文档上传成功: doc_code={doc_code}, doc_id={result.get('doc_id')}, chunks={result.get('chunks')}")
+
+    return {
+        "success": True,
+        "doc_id": result.get("doc_id"),
+        "doc_code": doc_code,
+        "chunks": result.get("chunks"),
+        "message": "文档上传成功"
+    }
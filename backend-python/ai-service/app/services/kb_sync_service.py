@@ -251,6 +251,87 @@ class KBSyncService:
                 "error": str(e)
             }
     
+    def sync_files(
+        self,
+        kb_id: int,
+        files: List[Dict],
+        deleted_doc_codes: List[str],
+        chunking_strategy: str = "paragraph",
+        chunk_size: int = 1000,
+        chunk_overlap: int = 200
+    ) -> Dict:
+        """
+        同步指定的文件（由调用方按文档清单计算出的新增/变化/删除文件）
+        
+        Args:
+            kb_id: 知识库ID
+            files: 需要（重新）导入的文件列表，每项包含path、content_hash，
+                   以及调用方按相对路径生成的doc_code和旧文档编码previous_doc_code（可选）
+            deleted_doc_codes: 需要删除的文档编码列表
+            chunking_strategy: 分块策略
+            chunk_size: 分块大小
+            chunk_overlap: 分块重叠
+            
+        Returns:
+            同步结果，results按文件返回是否成功及文档编码
+        """
+        if not self._check_kb_exists(kb_id):
+            raise ValueError(f"知识库不存在: {kb_id}")
+        
+        results = []
+        for item in files:
+            file_path = item.get("path")
+            # 文档编码由调用方按相对路径生成，不同子目录下的同名文件对应不同文档
+            doc_code = item.get("doc_code") or os.path.basename(file_path)
+            previous_doc_code = item.get("previous_doc_code")
+            try:
+                if previous_doc_code and previous_doc_code != doc_code:
+                    self._delete_document(kb_id, previous_doc_code)
+                self._update_document(
+                    kb_id=kb_id,
+                    file_path=file_path,
+                    chunking_strategy=chunking_strategy,
+                    chunk_size=chunk_size,
+                    chunk_overlap=chunk_overlap,
+                    doc_code=doc_code
+                )
+                if item.get("content_hash"):
+                    self._set_content_hash(kb_id, doc_code, item["content_hash"])
+                results.append({"path": file_path, "success": True, "doc_code": doc_code})
+            except Exception as e:
+                logger.error(f"同步文件失败: {file_path}, 错误: {str(e)}")
+                results.append({"path": file_path, "success": False, "error": str(e)})
+        
+        deleted_count = 0
+        for doc_code in deleted_doc_codes:
+            self._delete_document(kb_id, doc_code)
+            deleted_count += 1
+        
+        logger.info(f"批量同步完成: kb_id={kb_id}, 文件={len(files)}, 删除={deleted_count}")
+        return {
+            "success": True,
+            "results": results,
+            "deleted_count": deleted_count
+        }
+    
+    def _set_content_hash(self, kb_id: int, doc_code: str, content_hash: str):
+        """
+        记录文档内容哈希
+        
+        Args:
+            kb_id: 知识库ID
+            doc_code: 文档编码
+            content_hash: 内容哈希（SHA-256）
+        """
+        self.db.execute(
+            text("""
+            UPDATE knowledge_document SET content_hash = :content_hash
+            WHERE kb_id = :kb_id AND doc_code = :doc_code
+            """),
+            {"kb_id": kb_id, "doc_code": doc_code, "content_hash": content_hash}
+        )
+        self.db.commit()
+    
     def _detect_changes(
         self,
         kb_id: int,
@@ -379,7 +460,8 @@ class KBSyncService:
         file_path: str,
         chunking_strategy: str,
         chunk_size: int,
-        chunk_overlap: int
+        chunk_overlap: int,
+        doc_code: Optional[str] = None
     ):
         """
         添加文档到知识库
@@ -390,6 +472,7 @@ class KBSyncService:
             chunking_strategy: 分块策略
             chunk_size: 分块大小
             chunk_overlap: 分块重叠
+            doc_code: 文档编码，未指定时使用文件名
         """
         # 导入文档处理服务
         from app.services.document_pipeline_service import DocumentPipelineService
@@ -419,7 +502,7 @@ class KBSyncService:
         
         result = pipeline.process_document(
             file_path=file_path,
-            doc_code=filename,  # 使用文件名作为文档编码
+            doc_code=doc_code or filename,  # 未指定时使用文件名作为文档编码
             doc_name=filename,
             doc_type=file_ext,
             kb_id=kb_id,
@@ -437,7 +520,8 @@ class KBSyncService:
         file_path: str,
         chunking_strategy: str,
         chunk_size: int,
-        chunk_overlap: int
+        chunk_overlap: int,
+        doc_code: Optional[str] = None
     ):
         """
         更新文档（删除旧的，添加新的）
@@ -448,14 +532,15 @@ class KBSyncService:
             chunking_strategy: 分块策略
             chunk_size: 分块大小
             chunk_overlap: 分块重叠
+            doc_code: 文档编码，未指定时使用文件名
         """
-        filename = os.path.basename(file_path)
+        doc_code = doc_code or os.path.basename(file_path)
         
         # 删除旧文档
-        self._delete_document(kb_id, filename)
+        self._delete_document(kb_id, doc_code)
         
         # 添加新文档
-        self._add_document(kb_id, file_path, chunking_strategy, chunk_size, chunk_overlap)
+        self._add_document(kb_id, file_path, chunking_strategy, chunk_size, chunk_overlap, doc_code)
     
     def _delete_document(self, kb_id: int, doc_code: str):
         """
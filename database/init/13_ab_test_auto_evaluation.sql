@@ -0,0 +1,17 @@
+-- A/B测试自动评估升级脚本
+-- 提示词模板/工作流A/B测试支持bandit分流和自动推广胜出版本
+
+-- 提示词模板A/B测试：分流模式（fixed-固定比例 / bandit-按胜出概率自动调整）
+ALTER TABLE prompt_template_ab_test ADD COLUMN IF NOT EXISTS allocation_mode VARCHAR(20) DEFAULT 'fixed';
+
+-- 工作流A/B测试：自动选择配置
+ALTER TABLE workflow_ab_test ADD COLUMN IF NOT EXISTS auto_select_enabled VARCHAR(1) DEFAULT '0';
+ALTER TABLE workflow_ab_test ADD COLUMN IF NOT EXISTS min_samples INT DEFAULT 100;
+ALTER TABLE workflow_ab_test ADD COLUMN IF NOT EXISTS selection_criteria VARCHAR(50) DEFAULT 'success_rate';
+ALTER TABLE workflow_ab_test ADD COLUMN IF NOT EXISTS allocation_mode VARCHAR(20) DEFAULT 'fixed';
+
+COMMENT ON COLUMN prompt_template_ab_test.allocation_mode IS '分流模式：fixed-固定比例，bandit-按胜出概率自动调整';
+COMMENT ON COLUMN workflow_ab_test.auto_select_enabled IS '是否达到显著性后自动推广胜出版本';
+COMMENT ON COLUMN workflow_ab_test.min_samples IS '自动选择前两个版本合计的最小样本数';
+COMMENT ON COLUMN workflow_ab_test.selection_criteria IS '判定指标：success_rate / response_time';
+COMMENT ON COLUMN workflow_ab_test.allocation_mode IS '分流模式：fixed-固定比例，bandit-按胜出概率自动调整';
@@ -0,0 +1,28 @@
+-- 测试执行聚合表
+-- 按（执行任务, 执行状态）汇总执行记录条数和耗时，创建执行记录、更新记录状态时增量维护，报告统计直接读取
+
+CREATE TABLE IF NOT EXISTS test_execution_aggregate (
+    id BIGSERIAL PRIMARY KEY,
+    task_id BIGINT NOT NULL, -- 执行任务ID
+    requirement_id BIGINT, -- 需求ID（冗余自执行任务）
+    execution_status VARCHAR(50) NOT NULL, -- 执行状态（为空的记录计入UNKNOWN）
+    record_count BIGINT NOT NULL DEFAULT 0, -- 执行记录数
+    duration_count BIGINT NOT NULL DEFAULT 0, -- 有执行耗时的记录数
+    duration_sum BIGINT NOT NULL DEFAULT 0, -- 执行耗时合计（毫秒）
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (task_id, execution_status),
+    FOREIGN KEY (task_id) REFERENCES test_execution_task(id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_execution_aggregate_requirement_id ON test_execution_aggregate(requirement_id);
+
+COMMENT ON TABLE test_execution_aggregate IS '测试执行聚合表（按任务和状态汇总执行记录）';
+
+-- 按已有执行记录回填
+INSERT INTO test_execution_aggregate (task_id, requirement_id, execution_status, record_count, duration_count, duration_sum, update_time)
+SELECT r.task_id, t.requirement_id, COALESCE(r.execution_status, 'UNKNOWN'),
+       COUNT(*), COUNT(r.execution_duration), COALESCE(SUM(r.execution_duration), 0), CURRENT_TIMESTAMP
+FROM test_execution_record r
+JOIN test_execution_task t ON t.id = r.task_id
+GROUP BY r.task_id, t.requirement_id, COALESCE(r.execution_status, 'UNKNOWN')
+ON CONFLICT (task_id, execution_status) DO NOTHING;
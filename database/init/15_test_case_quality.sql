@@ -0,0 +1,22 @@
+-- 用例质量评分表
+-- 批量质量评估按用例保存评分，列表按质量排序、筛选直接读取；用例版本号和更新时间未变化时不重新评分
+
+CREATE TABLE IF NOT EXISTS test_case_quality (
+    id BIGSERIAL PRIMARY KEY,
+    case_id BIGINT NOT NULL UNIQUE, -- 用例ID
+    requirement_id BIGINT, -- 需求ID（冗余自用例）
+    total_score DECIMAL(5,2), -- 总分（0-100）
+    completeness_score DECIMAL(5,2), -- 完整性评分
+    standardization_score DECIMAL(5,2), -- 规范性评分
+    executability_score DECIMAL(5,2), -- 可执行性评分
+    quality_level VARCHAR(20), -- 质量等级：优秀/良好/一般/需改进
+    case_version INTEGER, -- 评分时的用例版本号
+    case_update_time TIMESTAMP, -- 评分时的用例更新时间
+    assess_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (case_id) REFERENCES test_case(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_case_quality_requirement_id ON test_case_quality(requirement_id);
+CREATE INDEX IF NOT EXISTS idx_case_quality_total_score ON test_case_quality(total_score);
+
+COMMENT ON TABLE test_case_quality IS '用例质量评分表';
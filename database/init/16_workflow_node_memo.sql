@@ -0,0 +1,17 @@
+-- 工作流节点结果缓存表
+-- 按（节点类型, 节点配置, 节点输入）的内容哈希保存节点输出，重新执行或断点恢复时输入未变化的模型调用节点直接复用结果；
+-- 超过保留时间（app.workflow-memo.ttl-hours）没有命中的缓存由定时任务清理
+
+CREATE TABLE IF NOT EXISTS workflow_node_memo (
+    id BIGSERIAL PRIMARY KEY,
+    memo_key VARCHAR(64) NOT NULL UNIQUE, -- 内容哈希（SHA-256十六进制）
+    node_type VARCHAR(50) NOT NULL, -- 节点类型
+    output_data TEXT, -- 节点输出（JSON格式）
+    hit_count INTEGER NOT NULL DEFAULT 0, -- 命中次数
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_hit_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP -- 最近写入或命中时间
+);
+
+CREATE INDEX IF NOT EXISTS idx_workflow_node_memo_last_hit_time ON workflow_node_memo(last_hit_time);
+
+COMMENT ON TABLE workflow_node_memo IS '工作流节点结果缓存表';
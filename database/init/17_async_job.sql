@@ -0,0 +1,28 @@
+-- 后台任务队列表
+-- 用例生成、UI脚本生成等耗时任务写入该表后由任意实例领取执行（SELECT ... FOR UPDATE SKIP LOCKED）；
+-- 领取时加租约并定时续约，租约过期（实例宕机）的任务重新排队，失败按指数退避重试
+
+CREATE TABLE IF NOT EXISTS async_job (
+    id BIGSERIAL PRIMARY KEY,
+    job_type VARCHAR(50) NOT NULL, -- 任务类型：CASE_GENERATION/UI_SCRIPT_GENERATION
+    business_key VARCHAR(100), -- 业务主键（如用例生成任务ID）
+    payload TEXT, -- 任务参数（JSON格式）
+    priority INTEGER NOT NULL DEFAULT 0, -- 优先级，同一类型内数值大的先领取
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- 状态：PENDING/RUNNING/SUCCESS/FAILED
+    attempts INTEGER NOT NULL DEFAULT 0, -- 已领取次数
+    max_attempts INTEGER NOT NULL DEFAULT 3, -- 最大领取次数
+    available_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- 可被领取的时间（重试退避）
+    lease_owner VARCHAR(100), -- 持有租约的工作实例
+    lease_expire_time TIMESTAMP, -- 租约到期时间
+    heartbeat_time TIMESTAMP, -- 最近一次续约时间
+    last_error TEXT, -- 最近一次失败原因
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    start_time TIMESTAMP, -- 最近一次领取时间
+    finish_time TIMESTAMP -- 结束时间
+);
+
+CREATE INDEX IF NOT EXISTS idx_async_job_claim ON async_job(status, job_type, available_time);
+CREATE INDEX IF NOT EXISTS idx_async_job_lease ON async_job(status, lease_expire_time);
+CREATE INDEX IF NOT EXISTS idx_async_job_business_key ON async_job(job_type, business_key);
+
+COMMENT ON TABLE async_job IS '后台任务队列表';
@@ -0,0 +1,4 @@
+-- Agent消息分页索引
+-- 消息列表按 (session_id, id) 游标分页，上下文窗口按 id 追加新消息，都只扫描索引范围
+
+CREATE INDEX IF NOT EXISTS idx_agent_message_session_msg ON agent_message(session_id, id);
@@ -0,0 +1,6 @@
+-- 知识库文档内容哈希
+-- 上传前按 (kb_id, content_hash) 查询，内容未变化的文件不再重复解析、分块和向量化
+
+ALTER TABLE knowledge_document ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS idx_knowledge_document_kb_hash ON knowledge_document(kb_id, content_hash);
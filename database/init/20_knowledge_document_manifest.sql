@@ -0,0 +1,17 @@
+-- 知识库文档清单表
+-- 增量同步时记录源目录中每个文件的大小、修改时间和内容哈希；
+-- 大小和修改时间都未变化的文件不再读取，内容哈希未变化的文件不再重新向量化
+
+CREATE TABLE IF NOT EXISTS knowledge_document_manifest (
+    id BIGSERIAL PRIMARY KEY,
+    kb_id BIGINT NOT NULL, -- 知识库ID
+    relative_path VARCHAR(1000) NOT NULL, -- 相对源目录的路径
+    file_size BIGINT NOT NULL, -- 文件大小（字节）
+    last_modified BIGINT NOT NULL, -- 文件修改时间（毫秒）
+    content_hash VARCHAR(64) NOT NULL, -- 内容哈希（SHA-256十六进制）
+    doc_code VARCHAR(500), -- 对应的知识库文档编码
+    sync_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, -- 最近同步时间
+    CONSTRAINT uk_knowledge_document_manifest_path UNIQUE (kb_id, relative_path)
+);
+
+COMMENT ON TABLE knowledge_document_manifest IS '知识库文档清单表';
@@ -0,0 +1,4 @@
+-- A/B测试分流粘性
+-- bandit模式调整流量后，已参与测试的用户按其首条执行记录的版本继续分流，按 (ab_test_id, user_id) 查询首条记录
+
+CREATE INDEX IF NOT EXISTS idx_ab_test_execution_ab_test_user ON prompt_template_ab_test_execution(ab_test_id, user_id);
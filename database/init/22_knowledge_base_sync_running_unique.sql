@@ -0,0 +1,9 @@
+-- 知识库同步互斥
+-- 同一知识库同时只允许一条运行中的同步日志，多个节点同时发起同步时后插入的失败
+
+-- 历史遗留的重复运行中日志只保留最新一条
+UPDATE knowledge_base_sync_log SET status = 'failed', error_message = '同步未正常结束', end_time = CURRENT_TIMESTAMP
+WHERE status = 'running'
+  AND id NOT IN (SELECT MAX(id) FROM knowledge_base_sync_log WHERE status = 'running' GROUP BY kb_id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_kb_sync_log_running ON knowledge_base_sync_log(kb_id) WHERE status = 'running';
@@ -0,0 +1,6 @@
+-- 后台任务进度与结果
+-- 报告导出改为写入后台任务队列执行：任务状态、进度和导出文件URL保存在 async_job 中，
+-- 任意实例都可以查询，实例重启后未完成的导出由其他实例继续执行
+
+ALTER TABLE async_job ADD COLUMN IF NOT EXISTS progress INTEGER NOT NULL DEFAULT 0; -- 执行进度（0-100）
+ALTER TABLE async_job ADD COLUMN IF NOT EXISTS result TEXT; -- 执行结果（如导出文件URL）